@@ -37,6 +37,7 @@ import org.gearvrf.io.cursor3d.settings.SettingsView;
 import org.gearvrf.io.cursor3d.settings.SettingsView.SettingsChangeListener;
 import org.gearvrf.scene_objects.GVRViewSceneObject;
 import org.gearvrf.utility.Log;
+import org.joml.Vector3f;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
@@ -64,6 +65,8 @@ public final class CursorManager implements IEventReceiver
     // Result of XML parsing in a package of all settings that need displaying.
     private static final String TAG = CursorManager.class.getSimpleName();
     private static final float DEFAULT_CURSOR_SCALE = 10.0f;
+    // Edge of the cells the selectable objects are bucketed in, in world units
+    private static final float SELECTABLE_CELL_SIZE = 2.0f;
     static String SETTINGS_SOURCE = "settings.xml";
 
     private GVRContext context;
@@ -78,7 +81,7 @@ public final class CursorManager implements IEventReceiver
     private LaserCursor settingsCursor;
     private float settingsIoDeviceFarDepth, settingsIoDeviceNearDepth;
     private ICursorActivationListener activationListener;
-    private List<SelectableBehavior> selectableBehaviors;
+    private final SelectableRegistry<SelectableBehavior> selectableBehaviors;
     private GVRBoundsPicker objectCursorPicker;
     private GVREventReceiver listeners;
 
@@ -139,7 +142,7 @@ public final class CursorManager implements IEventReceiver
         listeners = new GVREventReceiver(this);
         globalSettings = GlobalSettings.getInstance();
         themes = new HashMap<String, CursorTheme>();
-        selectableBehaviors = new ArrayList<SelectableBehavior>();
+        selectableBehaviors = new SelectableRegistry<SelectableBehavior>(SELECTABLE_CELL_SIZE);
         mCursorDepth = DEFAULT_CURSOR_SCALE;
 
         try {
@@ -676,19 +679,79 @@ public final class CursorManager implements IEventReceiver
         return true;
     }
 
-    private void addSelectableBehavior(GVRSceneObject object) {
+    /**
+     * Updates the position of a selectable {@link GVRSceneObject} in the index used by
+     * {@link #getSelectableObjectsOnRay(Cursor, List)}.
+     * <p/>
+     * Objects are indexed by their bounding volume when they are made selectable, and again
+     * when a {@link Cursor} enters them or a {@link MovableBehavior} drops them. Call this after
+     * moving a selectable object in any other way.
+     *
+     * @param object the selectable {@link GVRSceneObject} which moved.
+     * @return <code>true</code> on success or <code>false</code> if the object is not
+     * selectable.
+     */
+    public boolean updateSelectableObject(GVRSceneObject object) {
+        if (null == object) {
+            throw new IllegalArgumentException("GVRSceneObject cannot be null");
+        }
+        SelectableBehavior selectableBehavior = findSelectableBehavior(object);
+        return selectableBehavior != null && updateSelectableBehavior(selectableBehavior, object);
+    }
+
+    private boolean updateSelectableBehavior(SelectableBehavior selectableBehavior,
+                                             GVRSceneObject object) {
+        GVRSceneObject.BoundingVolume bounds = object.getBoundingVolume();
+        return selectableBehaviors.update(selectableBehavior, bounds.center.x, bounds.center.y,
+                bounds.center.z, bounds.radius);
+    }
+
+    /**
+     * Gets the selectable objects whose bounding sphere crosses the pick ray of a
+     * {@link Cursor}, up to the far depth of its {@link IoDevice}.
+     * <p/>
+     * Only the selectable objects near the ray are tested, so this call is cheap even with many
+     * selectable objects, and it can be made from any thread. It does not replace picking: the
+     * objects returned are candidates that the bounding sphere test could not rule out.
+     *
+     * @param cursor the {@link Cursor}, it should be active.
+     * @param result the list the {@link SelectableBehavior}s found are added to.
+     * @return the number of {@link SelectableBehavior}s added to the list.
+     */
+    public int getSelectableObjectsOnRay(Cursor cursor, List<SelectableBehavior> result) {
+        IoDevice ioDevice = cursor.getIoDevice();
+        if (ioDevice == null) {
+            return 0;
+        }
+        GVRCursorController controller = ioDevice.getGvrCursorController();
+        Vector3f origin = new Vector3f();
+        Vector3f direction = new Vector3f();
+        controller.getPicker().getWorldPickRay(origin, direction);
+        return selectableBehaviors.queryRay(origin.x, origin.y, origin.z,
+                direction.x, direction.y, direction.z, Math.abs(controller.getFarDepth()),
+                result);
+    }
+
+    private SelectableBehavior findSelectableBehavior(GVRSceneObject object) {
         SelectableBehavior selectableBehavior = (SelectableBehavior) object.getComponent(
                 SelectableBehavior.getComponentType());
         if (selectableBehavior == null) {
             selectableBehavior = (SelectableBehavior) object.getComponent(MovableBehavior.
                     getComponentType());
         }
+        return selectableBehavior;
+    }
+
+    private void addSelectableBehavior(GVRSceneObject object) {
+        SelectableBehavior selectableBehavior = findSelectableBehavior(object);
         if (selectableBehavior != null) {
-            Log.d(TAG, "Adding a Selectable Object");
-            synchronized (selectableBehaviors)
-            {
-                selectableBehaviors.add(selectableBehavior);
+            GVRSceneObject.BoundingVolume bounds = object.getBoundingVolume();
+            if (!selectableBehaviors.add(selectableBehavior, bounds.center.x, bounds.center.y,
+                    bounds.center.z, bounds.radius)) {
+                // already selectable, the active cursors know about it
+                return;
             }
+            Log.d(TAG, "Adding a Selectable Object");
             if (activationListener == null) {
                 createLocalActivationListener();
             }
@@ -703,17 +766,9 @@ public final class CursorManager implements IEventReceiver
     }
 
     private void removeSelectableBehavior(GVRSceneObject object) {
-        SelectableBehavior selectableBehavior = (SelectableBehavior) object.getComponent(
-                SelectableBehavior.getComponentType());
-        if (selectableBehavior == null) {
-            selectableBehavior = (SelectableBehavior) object.getComponent(MovableBehavior.
-                    getComponentType());
-        }
+        SelectableBehavior selectableBehavior = findSelectableBehavior(object);
         if (selectableBehavior != null) {
-            synchronized (selectableBehaviors)
-            {
-                selectableBehaviors.remove(selectableBehavior);
-            }
+            selectableBehaviors.remove(selectableBehavior);
         }
         object.detachComponent(GVRSwitch.getComponentType());
     }
@@ -1133,6 +1188,7 @@ public final class CursorManager implements IEventReceiver
             {
                 return;
             }
+            updateSelectableBehavior(selector, obj);
             float cursorDistance = getDistance(cursor.getPositionX(),
                                                cursor.getPositionY(),
                                                cursor.getPositionZ());
@@ -1269,29 +1325,25 @@ public final class CursorManager implements IEventReceiver
         activationListener = new ICursorActivationListener() {
 
             @Override
-            public void onDeactivated(Cursor cursor) {
+            public void onDeactivated(final Cursor cursor) {
                 Log.d(TAG, "Cursor DeActivated:" + cursor.getName());
-                synchronized (selectableBehaviors)
-                {
-                    for (SelectableBehavior selectableBehavior : selectableBehaviors)
-                    {
+                selectableBehaviors.visitAll(new SelectableRegistry.Visitor<SelectableBehavior>() {
+                    @Override
+                    public void visit(SelectableBehavior selectableBehavior) {
                         selectableBehavior.onCursorDeactivated(cursor);
                     }
-                }
+                });
             }
 
             @Override
-            public void onActivated(Cursor cursor) {
-                GVRCursorController controller = cursor.getIoDevice().getGvrCursorController();
+            public void onActivated(final Cursor cursor) {
                 Log.d(TAG, "On CursorActivated");
-                synchronized (selectableBehaviors)
-                {
-
-                    for (SelectableBehavior selectableBehavior : selectableBehaviors)
-                    {
+                selectableBehaviors.visitAll(new SelectableRegistry.Visitor<SelectableBehavior>() {
+                    @Override
+                    public void visit(SelectableBehavior selectableBehavior) {
                         selectableBehavior.onCursorActivated(cursor);
                     }
-                }
+                });
             }
         };
         listeners.addListener(activationListener);
@@ -139,6 +139,7 @@ public class MovableBehavior extends SelectableBehavior {
                     GVRCursorController controller = hit.getPicker().getController();
 
                     controller.stopDrag();
+                    cursorManager.updateSelectableObject(mSelected);
                     mSelected = null;
                     // object has been moved, invalidate all other cursors to check for events
                     for (Cursor remaining : cursorManager.getActiveCursors())
@@ -0,0 +1,663 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io.cursor3d;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The selectable objects known to a {@link CursorManager}, bucketed by the
+ * cell of a uniform grid their bounding sphere is centered in.
+ * <p>
+ * Objects are added and removed one at a time, as their
+ * {@link SelectableBehavior} is attached and detached, and each change only
+ * touches the cell of the object. {@link #queryRay} enumerates the cells along
+ * a ray and only tests the objects in them, so a cursor doesn't have to test
+ * every selectable object of the scene.
+ * <p>
+ * Changes are serialized, but reads don't lock: each cell publishes an
+ * immutable array of its objects, replaced when the cell changes, and the
+ * table of cells is replaced when it grows. A read concurrent with changes
+ * sees each cell either before or after a change, so an object moved by
+ * {@link #update} can be missed by a read which overlaps the move.
+ * <p>
+ * Bounding spheres larger than half a cell, or centered too far from the
+ * origin for the grid, are kept in a list which every query tests.
+ *
+ * @param <T> type of the registered objects, compared by identity
+ */
+final class SelectableRegistry<T>
+{
+    private static final Object[] EMPTY = new Object[0];
+    private static final int KEY_BITS = 21;
+    private static final int KEY_MASK = (1 << KEY_BITS) - 1;
+    private static final int MAX_INDEX = (1 << (KEY_BITS - 1)) - 1;
+    private static final int MIN_INDEX = -(1 << (KEY_BITS - 1));
+    private static final long LARGE = -1;
+    /* Rays crossing more slabs than a sixteenth of the table scan all the cells */
+    private static final int CELLS_PER_SLAB = 16;
+
+    /**
+     * Receives the objects of {@link #visitAll(Visitor)}.
+     */
+    interface Visitor<T>
+    {
+        void visit(T item);
+    }
+
+    private static final class Entry<T>
+    {
+        final T item;
+        final float x;
+        final float y;
+        final float z;
+        final float radius;
+        final long key;
+
+        Entry(T item, float x, float y, float z, float radius, long key)
+        {
+            this.item = item;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.radius = radius;
+            this.key = key;
+        }
+    }
+
+    /*
+     * All the objects registered at a version of the registry
+     */
+    private static final class Snapshot
+    {
+        final int version;
+        final Object[] items;
+
+        Snapshot(int version, Object[] items)
+        {
+            this.version = version;
+            this.items = items;
+        }
+    }
+
+    private static final class Cell
+    {
+        final long key;
+        volatile Object[] entries = EMPTY;
+
+        Cell(long key)
+        {
+            this.key = key;
+        }
+    }
+
+    private final float mCellSize;
+    private final float mInverseCellSize;
+    private final float mMaxRadius;
+    // Guarded by this
+    private final Map<T, Entry<T>> mEntries = new IdentityHashMap<T, Entry<T>>();
+    private int mUsedSlots;
+    private volatile AtomicReferenceArray<Cell> mTable = new AtomicReferenceArray<Cell>(64);
+    private volatile int mCellCount;
+    private volatile Object[] mLarge = EMPTY;
+    private volatile int mSize;
+    // Incremented after each object is added or removed
+    private volatile int mVersion;
+    private volatile Snapshot mSnapshot;
+
+    /**
+     * @param cellSize edge of the grid cells, in world units. Rays are
+     *                 followed one cell at a time, and objects with a radius
+     *                 up to half of it are bucketed.
+     */
+    SelectableRegistry(float cellSize)
+    {
+        if (!(cellSize > 0))
+        {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        mCellSize = cellSize;
+        mInverseCellSize = 1 / cellSize;
+        mMaxRadius = cellSize / 2;
+    }
+
+    float getCellSize()
+    {
+        return mCellSize;
+    }
+
+    /**
+     * @return the number of registered objects
+     */
+    int size()
+    {
+        return mSize;
+    }
+
+    /**
+     * @return the number of non empty cells
+     */
+    int getCellCount()
+    {
+        return mCellCount;
+    }
+
+    /**
+     * Registers an object.
+     *
+     * @return false if the object was already registered
+     */
+    synchronized boolean add(T item, float x, float y, float z, float radius)
+    {
+        if (mEntries.containsKey(item))
+        {
+            return false;
+        }
+        final Entry<T> entry = newEntry(item, x, y, z, radius);
+        insert(entry);
+        mEntries.put(item, entry);
+        mSize = mEntries.size();
+        ++mVersion;
+        return true;
+    }
+
+    /**
+     * Moves a registered object to a new bounding sphere.
+     *
+     * @return false if the object isn't registered
+     */
+    synchronized boolean update(T item, float x, float y, float z, float radius)
+    {
+        final Entry<T> old = mEntries.get(item);
+        if (old == null)
+        {
+            return false;
+        }
+        final Entry<T> entry = newEntry(item, x, y, z, radius);
+        if (entry.key == old.key)
+        {
+            replace(old, entry);
+        }
+        else
+        {
+            delete(old);
+            insert(entry);
+        }
+        mEntries.put(item, entry);
+        return true;
+    }
+
+    /**
+     * Unregisters an object.
+     *
+     * @return false if the object wasn't registered
+     */
+    synchronized boolean remove(T item)
+    {
+        final Entry<T> entry = mEntries.remove(item);
+        if (entry == null)
+        {
+            return false;
+        }
+        delete(entry);
+        mSize = mEntries.size();
+        ++mVersion;
+        return true;
+    }
+
+    synchronized boolean contains(T item)
+    {
+        return mEntries.containsKey(item);
+    }
+
+    synchronized void clear()
+    {
+        mEntries.clear();
+        mTable = new AtomicReferenceArray<Cell>(64);
+        mUsedSlots = 0;
+        mCellCount = 0;
+        mLarge = EMPTY;
+        mSize = 0;
+        ++mVersion;
+    }
+
+    /**
+     * Visits all the registered objects, without locking or copying them.
+     * An object added or removed during the visit may or may not be visited.
+     * <p>
+     * The objects are gathered from the cells in an array after they are
+     * added or removed, so visits are as fast as the iteration of a list
+     * until the next change. Moving objects keeps the array.
+     *
+     * @return the number of objects visited
+     */
+    @SuppressWarnings("unchecked")
+    int visitAll(Visitor<? super T> visitor)
+    {
+        final Object[] items = getItems();
+        for (Object item : items)
+        {
+            visitor.visit((T) item);
+        }
+        return items.length;
+    }
+
+    /*
+     * Gets the array of all the objects, gathering it again if objects
+     * were added or removed since it was gathered. Concurrent readers may
+     * gather it at the same time, the array of a reader which overlaps a
+     * change isn't kept.
+     */
+    private Object[] getItems()
+    {
+        final int version = mVersion;
+        final Snapshot snapshot = mSnapshot;
+        if ((snapshot != null) && (snapshot.version == version))
+        {
+            return snapshot.items;
+        }
+        final AtomicReferenceArray<Cell> table = mTable;
+        final Object[] large = mLarge;
+        Object[] items = new Object[mSize + large.length];
+        int count = 0;
+
+        for (int i = -1, n = table.length(); i < n; ++i)
+        {
+            final Object[] entries;
+            if (i < 0)
+            {
+                entries = large;
+            }
+            else
+            {
+                final Cell cell = table.get(i);
+                if (cell == null)
+                {
+                    continue;
+                }
+                entries = cell.entries;
+            }
+            if (count + entries.length > items.length)
+            {
+                items = Arrays.copyOf(items, Math.max(items.length * 2, count + entries.length));
+            }
+            for (Object entry : entries)
+            {
+                items[count++] = ((Entry<?>) entry).item;
+            }
+        }
+        if (count < items.length)
+        {
+            items = Arrays.copyOf(items, count);
+        }
+        if (mVersion == version)
+        {
+            mSnapshot = new Snapshot(version, items);
+        }
+        return items;
+    }
+
+    /**
+     * Adds to a list the registered objects whose bounding sphere crosses a
+     * ray, without locking. Only the cells the ray goes through, and their
+     * neighbours within half a cell, are looked at.
+     *
+     * @param length length of the ray from its origin
+     * @return the number of objects added
+     */
+    int queryRay(float ox, float oy, float oz, float dx, float dy, float dz, float length,
+                 List<? super T> out)
+    {
+        final float norm = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (!(norm > 0) || !(length >= 0))
+        {
+            return 0;
+        }
+        dx /= norm;
+        dy /= norm;
+        dz /= norm;
+
+        int count = testAll(mLarge, ox, oy, oz, dx, dy, dz, length, out);
+        final AtomicReferenceArray<Cell> table = mTable;
+
+        /*
+         * Walk the slabs of cells along the axis the ray is the most aligned
+         * with (a); in each slab, the ray spans a small range of cells along
+         * the two other axes (u and v). Each cell is visited once.
+         */
+        final int axis;
+        final float oa, ou, ov, da, du, dv;
+        final float ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+        if ((ax >= ay) && (ax >= az))
+        {
+            axis = 0;
+            oa = ox; ou = oy; ov = oz;
+            da = dx; du = dy; dv = dz;
+        }
+        else if (ay >= az)
+        {
+            axis = 1;
+            oa = oy; ou = ox; ov = oz;
+            da = dy; du = dx; dv = dz;
+        }
+        else
+        {
+            axis = 2;
+            oa = oz; ou = ox; ov = oy;
+            da = dz; du = dx; dv = dy;
+        }
+        final float r = mMaxRadius;
+        final float end = oa + da * length;
+        final int first = clampIndex(Math.min(oa, end) - r);
+        final int last = clampIndex(Math.max(oa, end) + r);
+
+        if ((long) (last - first + 1) * CELLS_PER_SLAB > table.length())
+        {
+            for (int i = 0, n = table.length(); i < n; ++i)
+            {
+                final Cell cell = table.get(i);
+                if (cell != null)
+                {
+                    count += testAll(cell.entries, ox, oy, oz, dx, dy, dz, length, out);
+                }
+            }
+            return count;
+        }
+        for (int k = first; k <= last; ++k)
+        {
+            float t0 = (k * mCellSize - r - oa) / da;
+            float t1 = ((k + 1) * mCellSize + r - oa) / da;
+            if (t0 > t1)
+            {
+                final float t = t0;
+                t0 = t1;
+                t1 = t;
+            }
+            t0 = Math.max(t0, 0);
+            t1 = Math.min(t1, length);
+            if (t0 > t1)
+            {
+                continue;
+            }
+            final float u0 = ou + du * t0, u1 = ou + du * t1;
+            final float v0 = ov + dv * t0, v1 = ov + dv * t1;
+            final int uFirst = clampIndex(Math.min(u0, u1) - r);
+            final int uLast = clampIndex(Math.max(u0, u1) + r);
+            final int vFirst = clampIndex(Math.min(v0, v1) - r);
+            final int vLast = clampIndex(Math.max(v0, v1) + r);
+
+            for (int i = uFirst; i <= uLast; ++i)
+            {
+                for (int j = vFirst; j <= vLast; ++j)
+                {
+                    final long key;
+                    if (axis == 0)
+                    {
+                        key = key(k, i, j);
+                    }
+                    else if (axis == 1)
+                    {
+                        key = key(i, k, j);
+                    }
+                    else
+                    {
+                        key = key(i, j, k);
+                    }
+                    final Cell cell = find(table, key);
+                    if (cell != null)
+                    {
+                        count += testAll(cell.entries, ox, oy, oz, dx, dy, dz, length, out);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private Entry<T> newEntry(T item, float x, float y, float z, float radius)
+    {
+        if (item == null)
+        {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        radius = Math.abs(radius);
+        long key = LARGE;
+        if (radius <= mMaxRadius)
+        {
+            final float fx = (float) Math.floor(x * mInverseCellSize);
+            final float fy = (float) Math.floor(y * mInverseCellSize);
+            final float fz = (float) Math.floor(z * mInverseCellSize);
+            if (inRange(fx) && inRange(fy) && inRange(fz))
+            {
+                key = key((int) fx, (int) fy, (int) fz);
+            }
+        }
+        return new Entry<T>(item, x, y, z, radius, key);
+    }
+
+    private void insert(Entry<T> entry)
+    {
+        if (entry.key == LARGE)
+        {
+            mLarge = append(mLarge, entry);
+            return;
+        }
+        Cell cell = find(mTable, entry.key);
+        if (cell == null)
+        {
+            if ((mUsedSlots + 1) * 2 > mTable.length())
+            {
+                rehash();
+            }
+            cell = new Cell(entry.key);
+            final AtomicReferenceArray<Cell> table = mTable;
+            final int mask = table.length() - 1;
+            int i = hash(entry.key) & mask;
+            while (table.get(i) != null)
+            {
+                i = (i + 1) & mask;
+            }
+            table.set(i, cell);
+            ++mUsedSlots;
+        }
+        if (cell.entries.length == 0)
+        {
+            ++mCellCount;
+        }
+        cell.entries = append(cell.entries, entry);
+    }
+
+    private void delete(Entry<T> entry)
+    {
+        if (entry.key == LARGE)
+        {
+            mLarge = without(mLarge, entry);
+            return;
+        }
+        final Cell cell = find(mTable, entry.key);
+        if (cell != null)
+        {
+            cell.entries = without(cell.entries, entry);
+            if (cell.entries.length == 0)
+            {
+                --mCellCount;
+            }
+        }
+    }
+
+    private void replace(Entry<T> old, Entry<T> entry)
+    {
+        if (old.key == LARGE)
+        {
+            mLarge = replaced(mLarge, old, entry);
+            return;
+        }
+        final Cell cell = find(mTable, old.key);
+        if (cell != null)
+        {
+            cell.entries = replaced(cell.entries, old, entry);
+        }
+    }
+
+    /*
+     * Publishes a new table without the empty cells, large enough for the
+     * cells to fill at most a quarter of it. Readers of the old table keep a consistent
+     * view since the cells are shared.
+     */
+    private void rehash()
+    {
+        final AtomicReferenceArray<Cell> old = mTable;
+        int capacity = old.length();
+        while ((mCellCount + 1) * 4 > capacity)
+        {
+            capacity *= 2;
+        }
+        final AtomicReferenceArray<Cell> table = new AtomicReferenceArray<Cell>(capacity);
+        final int mask = capacity - 1;
+        int used = 0;
+        for (int i = 0, n = old.length(); i < n; ++i)
+        {
+            final Cell cell = old.get(i);
+            if ((cell == null) || (cell.entries.length == 0))
+            {
+                continue;
+            }
+            int j = hash(cell.key) & mask;
+            while (table.get(j) != null)
+            {
+                j = (j + 1) & mask;
+            }
+            table.set(j, cell);
+            ++used;
+        }
+        mUsedSlots = used;
+        mTable = table;
+    }
+
+    private static Cell find(AtomicReferenceArray<Cell> table, long key)
+    {
+        final int mask = table.length() - 1;
+        int i = hash(key) & mask;
+        while (true)
+        {
+            final Cell cell = table.get(i);
+            if ((cell == null) || (cell.key == key))
+            {
+                return cell;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /*
+     * Adds the objects whose bounding sphere is within reach of the segment
+     * from the origin to length along the normalized direction.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int testAll(Object[] entries, float ox, float oy, float oz,
+                                   float dx, float dy, float dz, float length,
+                                   List<? super T> out)
+    {
+        int count = 0;
+        for (Object o : entries)
+        {
+            final Entry<T> entry = (Entry<T>) o;
+            final float vx = entry.x - ox;
+            final float vy = entry.y - oy;
+            final float vz = entry.z - oz;
+            final float t = Math.max(0, Math.min(length, vx * dx + vy * dy + vz * dz));
+            final float px = vx - dx * t;
+            final float py = vy - dy * t;
+            final float pz = vz - dz * t;
+            if (px * px + py * py + pz * pz <= entry.radius * entry.radius)
+            {
+                out.add(entry.item);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static Object[] append(Object[] entries, Object entry)
+    {
+        final Object[] result = new Object[entries.length + 1];
+        System.arraycopy(entries, 0, result, 0, entries.length);
+        result[entries.length] = entry;
+        return result;
+    }
+
+    private static Object[] without(Object[] entries, Object entry)
+    {
+        for (int i = 0; i < entries.length; ++i)
+        {
+            if (entries[i] == entry)
+            {
+                if (entries.length == 1)
+                {
+                    return EMPTY;
+                }
+                final Object[] result = new Object[entries.length - 1];
+                System.arraycopy(entries, 0, result, 0, i);
+                System.arraycopy(entries, i + 1, result, i, entries.length - i - 1);
+                return result;
+            }
+        }
+        return entries;
+    }
+
+    private static Object[] replaced(Object[] entries, Object old, Object entry)
+    {
+        for (int i = 0; i < entries.length; ++i)
+        {
+            if (entries[i] == old)
+            {
+                final Object[] result = entries.clone();
+                result[i] = entry;
+                return result;
+            }
+        }
+        return entries;
+    }
+
+    private int clampIndex(float coordinate)
+    {
+        final float index = (float) Math.floor(coordinate * mInverseCellSize);
+        if (!(index >= MIN_INDEX))
+        {
+            return MIN_INDEX;
+        }
+        return (index > MAX_INDEX) ? MAX_INDEX : (int) index;
+    }
+
+    private static boolean inRange(float index)
+    {
+        return (index >= MIN_INDEX) && (index <= MAX_INDEX);
+    }
+
+    private static long key(int x, int y, int z)
+    {
+        return ((long) (x & KEY_MASK) << (2 * KEY_BITS)) | ((long) (y & KEY_MASK) << KEY_BITS)
+                | (z & KEY_MASK);
+    }
+
+    private static int hash(long key)
+    {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
@@ -0,0 +1,454 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io.cursor3d;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the {@link SelectableRegistry} with the synchronized list the
+ * {@link CursorManager} used to keep its selectable objects in, for 10000
+ * objects scattered around the user:
+ * <ul>
+ * <li>registering the objects one by one, then detaching and attaching
+ * a tenth of them again</li>
+ * <li>finding the objects along the rays of a cursor sweeping the scene</li>
+ * <li>activating a cursor, which visits every object</li>
+ * </ul>
+ * Each ray query is checked against a test of every object, and a last run
+ * checks that readers never miss a still object while another thread moves
+ * the others. It runs on a desktop JVM, with the unit tests on the class path:
+ * <pre>
+ *     java org.gearvrf.io.cursor3d.SelectableRegistryBenchmark
+ * </pre>
+ */
+final class SelectableRegistryBenchmark
+{
+    static final int OBJECTS = 10000;
+    static final int CHURN = OBJECTS / 10;
+    static final int RAYS = 2000;
+    static final int RUNS = 5;
+    static final float CELL_SIZE = 2;
+    static final float RAY_LENGTH = 50;
+
+    static final class Item
+    {
+        float x;
+        float y;
+        float z;
+        final float radius;
+
+        Item(float x, float y, float z, float radius)
+        {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.radius = radius;
+        }
+    }
+
+    private final List<Item> mItems = new ArrayList<Item>();
+    private final float[] mRays = new float[RAYS * 3];
+    private long mSink;
+
+    private SelectableRegistryBenchmark()
+    {
+        final Random random = new Random(3);
+        // Objects between 2 and 40 away, a few large ones like walls and floors
+        for (int i = 0; i < OBJECTS; ++i)
+        {
+            final double distance = 2 + random.nextDouble() * 38;
+            final double yaw = random.nextDouble() * 2 * Math.PI;
+            final double pitch = (random.nextDouble() - 0.5) * Math.PI * 0.6;
+            final float radius = (i % 500 == 0) ? 20 : 0.1f + random.nextFloat() * 0.6f;
+            mItems.add(new Item((float) (distance * Math.cos(pitch) * Math.sin(yaw)),
+                                (float) (distance * Math.sin(pitch)),
+                                (float) (-distance * Math.cos(pitch) * Math.cos(yaw)), radius));
+        }
+        for (int i = 0; i < RAYS; ++i)
+        {
+            final double yaw = Math.sin(i * 0.005) * Math.PI;
+            final double pitch = Math.sin(i * 0.013) * 0.5;
+            mRays[i * 3] = (float) (Math.cos(pitch) * Math.sin(yaw));
+            mRays[i * 3 + 1] = (float) Math.sin(pitch);
+            mRays[i * 3 + 2] = (float) (-Math.cos(pitch) * Math.cos(yaw));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        final SelectableRegistryBenchmark benchmark = new SelectableRegistryBenchmark();
+        boolean passed = benchmark.checkQueries();
+        passed &= benchmark.checkConcurrentReads();
+
+        for (int run = 0; run < RUNS; ++run)
+        {
+            final boolean print = (run == RUNS - 1);
+            benchmark.report(print, "register, list", benchmark.registerList(), OBJECTS + 2 * CHURN);
+            benchmark.report(print, "register, registry", benchmark.registerRegistry(),
+                             OBJECTS + 2 * CHURN);
+            benchmark.report(print, "rays, list", benchmark.raysList(), RAYS);
+            benchmark.report(print, "rays, registry", benchmark.raysRegistry(), RAYS);
+            benchmark.report(print, "activate, list", benchmark.activateList(), 100);
+            benchmark.report(print, "activate, registry", benchmark.activateRegistry(), 100);
+        }
+        if (!passed)
+        {
+            System.exit(1);
+        }
+    }
+
+    /*
+     * The old registration: append under a lock, remove by scanning the list
+     */
+    long registerList()
+    {
+        final List<Item> list = new ArrayList<Item>();
+        final long start = System.nanoTime();
+        for (Item item : mItems)
+        {
+            synchronized (list)
+            {
+                list.add(item);
+            }
+        }
+        for (int i = 0; i < CHURN; ++i)
+        {
+            final Item item = mItems.get(i * 10);
+            synchronized (list)
+            {
+                list.remove(item);
+            }
+            synchronized (list)
+            {
+                list.add(item);
+            }
+        }
+        final long time = System.nanoTime() - start;
+        mSink += list.size();
+        return time;
+    }
+
+    long registerRegistry()
+    {
+        final SelectableRegistry<Item> registry = new SelectableRegistry<Item>(CELL_SIZE);
+        final long start = System.nanoTime();
+        for (Item item : mItems)
+        {
+            registry.add(item, item.x, item.y, item.z, item.radius);
+        }
+        for (int i = 0; i < CHURN; ++i)
+        {
+            final Item item = mItems.get(i * 10);
+            registry.remove(item);
+            registry.add(item, item.x, item.y, item.z, item.radius);
+        }
+        final long time = System.nanoTime() - start;
+        mSink += registry.size();
+        return time;
+    }
+
+    /*
+     * Without an index, a cursor has to test every object of the list
+     */
+    long raysList()
+    {
+        final List<Item> list = new ArrayList<Item>(mItems);
+        final List<Item> found = new ArrayList<Item>();
+        final long start = System.nanoTime();
+        for (int i = 0; i < RAYS; ++i)
+        {
+            found.clear();
+            synchronized (list)
+            {
+                for (Item item : list)
+                {
+                    if (hits(item, mRays, i))
+                    {
+                        found.add(item);
+                    }
+                }
+            }
+            mSink += found.size();
+        }
+        return System.nanoTime() - start;
+    }
+
+    long raysRegistry()
+    {
+        final SelectableRegistry<Item> registry = newRegistry();
+        final List<Item> found = new ArrayList<Item>();
+        final long start = System.nanoTime();
+        for (int i = 0; i < RAYS; ++i)
+        {
+            found.clear();
+            registry.queryRay(0, 0, 0, mRays[i * 3], mRays[i * 3 + 1], mRays[i * 3 + 2],
+                              RAY_LENGTH, found);
+            mSink += found.size();
+        }
+        return System.nanoTime() - start;
+    }
+
+    long activateList()
+    {
+        final List<Item> list = new ArrayList<Item>(mItems);
+        final long start = System.nanoTime();
+        for (int i = 0; i < 100; ++i)
+        {
+            synchronized (list)
+            {
+                for (Item item : list)
+                {
+                    mSink += (int) item.radius;
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    long activateRegistry()
+    {
+        final SelectableRegistry<Item> registry = newRegistry();
+        final SelectableRegistry.Visitor<Item> visitor = new SelectableRegistry.Visitor<Item>()
+        {
+            public void visit(Item item)
+            {
+                mSink += (int) item.radius;
+            }
+        };
+        final long start = System.nanoTime();
+        for (int i = 0; i < 100; ++i)
+        {
+            registry.visitAll(visitor);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /*
+     * Rays from several origins, long and short, must find exactly the
+     * objects a test of every object finds, before and after moves.
+     */
+    boolean checkQueries()
+    {
+        final SelectableRegistry<Item> registry = newRegistry();
+        final Random random = new Random(5);
+        final List<Item> found = new ArrayList<Item>();
+        final float[] ray = new float[3];
+        int total = 0;
+        int candidates = 0;
+
+        for (int pass = 0; pass < 2; ++pass)
+        {
+            for (int i = 0; i < 500; ++i)
+            {
+                final float ox = (random.nextFloat() - 0.5f) * 10;
+                final float oy = (random.nextFloat() - 0.5f) * 10;
+                final float oz = (random.nextFloat() - 0.5f) * 10;
+                ray[0] = random.nextFloat() - 0.5f;
+                ray[1] = random.nextFloat() - 0.5f;
+                ray[2] = random.nextFloat() - 0.5f;
+                final float length = (i % 50 == 0) ? 1000 : random.nextFloat() * 60;
+
+                found.clear();
+                registry.queryRay(ox, oy, oz, ray[0], ray[1], ray[2], length, found);
+                final Map<Item, Boolean> expected = new IdentityHashMap<Item, Boolean>();
+                final float norm = (float) Math.sqrt(ray[0] * ray[0] + ray[1] * ray[1] + ray[2] * ray[2]);
+                for (Item item : mItems)
+                {
+                    if (hits(item, ox, oy, oz, ray[0] / norm, ray[1] / norm, ray[2] / norm, length))
+                    {
+                        expected.put(item, Boolean.TRUE);
+                    }
+                }
+                final Map<Item, Boolean> actual = new IdentityHashMap<Item, Boolean>();
+                for (Item item : found)
+                {
+                    actual.put(item, Boolean.TRUE);
+                }
+                if ((actual.size() != found.size()) || !actual.equals(expected))
+                {
+                    System.out.println(String.format("FAILED: ray %d of pass %d found %d objects, expected %d",
+                                                     i, pass, found.size(), expected.size()));
+                    return false;
+                }
+                total += found.size();
+            }
+            // Move a third of the objects, some into other cells
+            for (int i = 0; i < OBJECTS; i += 3)
+            {
+                final Item item = mItems.get(i);
+                item.x += (random.nextFloat() - 0.5f) * 6;
+                item.z += (random.nextFloat() - 0.5f) * 6;
+                registry.update(item, item.x, item.y, item.z, item.radius);
+            }
+        }
+        final List<Item> all = new ArrayList<Item>();
+        registry.visitAll(new SelectableRegistry.Visitor<Item>()
+        {
+            public void visit(Item item)
+            {
+                all.add(item);
+            }
+        });
+        final Map<Item, Boolean> unique = new IdentityHashMap<Item, Boolean>();
+        for (Item item : all)
+        {
+            unique.put(item, Boolean.TRUE);
+        }
+        if ((all.size() != OBJECTS) || (unique.size() != OBJECTS))
+        {
+            System.out.println("FAILED: visitAll visited " + all.size() + " objects");
+            return false;
+        }
+        for (int i = 0; i < RAYS; ++i)
+        {
+            found.clear();
+            candidates += registry.queryRay(0, 0, 0, mRays[i * 3], mRays[i * 3 + 1],
+                                            mRays[i * 3 + 2], RAY_LENGTH, found);
+        }
+        System.out.println(String.format("%d objects in %d cells, %d hits checked, "
+                                          + "%.1f objects on the sweep rays on average",
+                                          registry.size(), registry.getCellCount(), total,
+                                          (float) candidates / RAYS));
+        return true;
+    }
+
+    /*
+     * A thread keeps moving, removing and adding back the objects with an
+     * odd index while readers query rays aimed at the still ones.
+     */
+    boolean checkConcurrentReads() throws InterruptedException
+    {
+        final SelectableRegistry<Item> registry = newRegistry();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicInteger misses = new AtomicInteger();
+        final AtomicInteger queries = new AtomicInteger();
+        final Thread writer = new Thread()
+        {
+            public void run()
+            {
+                final Random random = new Random(9);
+                while (!done.get())
+                {
+                    final int index = random.nextInt(OBJECTS / 2) * 2 + 1;
+                    final Item item = mItems.get(index);
+                    if (random.nextBoolean())
+                    {
+                        registry.update(item, item.x + random.nextFloat() * 4, item.y,
+                                        item.z + random.nextFloat() * 4, item.radius);
+                    }
+                    else
+                    {
+                        registry.remove(item);
+                        registry.add(item, item.x, item.y, item.z, item.radius);
+                    }
+                }
+            }
+        };
+        final Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; ++r)
+        {
+            final int seed = r;
+            readers[r] = new Thread()
+            {
+                public void run()
+                {
+                    final Random random = new Random(seed);
+                    final List<Item> found = new ArrayList<Item>();
+                    for (int i = 0; i < 20000; ++i)
+                    {
+                        final Item target = mItems.get(random.nextInt(OBJECTS / 2) * 2);
+                        found.clear();
+                        registry.queryRay(0, 0, 0, target.x, target.y, target.z, RAY_LENGTH, found);
+                        boolean hit = false;
+                        for (Item item : found)
+                        {
+                            hit |= (item == target);
+                        }
+                        if (!hit)
+                        {
+                            misses.incrementAndGet();
+                        }
+                        queries.incrementAndGet();
+                    }
+                }
+            };
+        }
+        final long start = System.nanoTime();
+        writer.start();
+        for (Thread reader : readers)
+        {
+            reader.start();
+        }
+        for (Thread reader : readers)
+        {
+            reader.join();
+        }
+        final long time = System.nanoTime() - start;
+        done.set(true);
+        writer.join();
+        System.out.println(String.format("%d concurrent queries in %.1f ms, %d still objects missed",
+                                         queries.get(), time / 1e6, misses.get()));
+        if (misses.get() != 0)
+        {
+            System.out.println("FAILED: concurrent reads missed still objects");
+            return false;
+        }
+        return true;
+    }
+
+    private SelectableRegistry<Item> newRegistry()
+    {
+        final SelectableRegistry<Item> registry = new SelectableRegistry<Item>(CELL_SIZE);
+        for (Item item : mItems)
+        {
+            registry.add(item, item.x, item.y, item.z, item.radius);
+        }
+        return registry;
+    }
+
+    private void report(boolean print, String name, long time, int operations)
+    {
+        if (print)
+        {
+            System.out.println(String.format("%-20s %10.1f us total %10.3f us/op", name,
+                                             time / 1e3, time / 1e3 / operations));
+        }
+    }
+
+    private static boolean hits(Item item, float[] rays, int i)
+    {
+        return hits(item, 0, 0, 0, rays[i * 3], rays[i * 3 + 1], rays[i * 3 + 2], RAY_LENGTH);
+    }
+
+    private static boolean hits(Item item, float ox, float oy, float oz,
+                                float dx, float dy, float dz, float length)
+    {
+        final float vx = item.x - ox;
+        final float vy = item.y - oy;
+        final float vz = item.z - oz;
+        final float t = Math.max(0, Math.min(length, vx * dx + vy * dy + vz * dz));
+        final float px = vx - dx * t;
+        final float py = vy - dy * t;
+        final float pz = vz - dz * t;
+        return px * px + py * py + pz * pz <= item.radius * item.radius;
+    }
+}
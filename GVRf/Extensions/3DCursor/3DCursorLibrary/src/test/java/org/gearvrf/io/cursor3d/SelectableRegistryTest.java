@@ -0,0 +1,330 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io.cursor3d;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SelectableRegistryTest
+{
+    private static final float CELL_SIZE = 2;
+
+    private static final class Item
+    {
+        final float x;
+        final float y;
+        final float z;
+        final float radius;
+
+        Item(float x, float y, float z, float radius)
+        {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.radius = radius;
+        }
+    }
+
+    @Test
+    public void objectsAreRegisteredOnce()
+    {
+        final SelectableRegistry<Item> registry = new SelectableRegistry<Item>(CELL_SIZE);
+        final Item item = new Item(1, 2, 3, 0.5f);
+
+        assertTrue(registry.add(item, item.x, item.y, item.z, item.radius));
+        assertFalse(registry.add(item, 10, 10, 10, 0.5f));
+        assertEquals(1, registry.size());
+        assertTrue(registry.contains(item));
+        assertTrue(registry.remove(item));
+        assertFalse(registry.remove(item));
+        assertFalse(registry.contains(item));
+        assertFalse(registry.update(item, 0, 0, 0, 1));
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.getCellCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cellSizeMustBePositive()
+    {
+        new SelectableRegistry<Item>(0);
+    }
+
+    /*
+     * Rays from several origins, long and short, find exactly the objects a
+     * test of every object finds, large ones and ones far from the origin
+     * included.
+     */
+    @Test
+    public void raysFindTheSameObjectsAsAScan()
+    {
+        final Random random = new Random(5);
+        final List<Item> items = scatter(random, 2000);
+        final SelectableRegistry<Item> registry = register(items);
+
+        for (int i = 0; i < 300; ++i)
+        {
+            checkRay(registry, items, random, (i % 30 == 0) ? 1000 : random.nextFloat() * 60);
+        }
+    }
+
+    @Test
+    public void movedObjectsAreFoundWhereTheyAre()
+    {
+        final SelectableRegistry<Item> registry = new SelectableRegistry<Item>(CELL_SIZE);
+        final Item item = new Item(0, 0, -5, 0.5f);
+        final List<Item> found = new ArrayList<Item>();
+
+        registry.add(item, item.x, item.y, item.z, item.radius);
+        assertEquals(1, registry.queryRay(0, 0, 0, 0, 0, -1, 10, found));
+        assertTrue(registry.update(item, 7, 0, 0, 0.5f));
+        found.clear();
+        assertEquals(0, registry.queryRay(0, 0, 0, 0, 0, -1, 10, found));
+        assertEquals(1, registry.queryRay(0, 0, 0, 1, 0, 0, 10, found));
+        assertSame(item, found.get(0));
+
+        // Growing past half a cell moves it out of the grid
+        assertTrue(registry.update(item, 7, 0, 0, 3));
+        found.clear();
+        assertEquals(1, registry.queryRay(0, 0, 0, 1, 0, 0, 10, found));
+        assertEquals(0, registry.getCellCount());
+    }
+
+    @Test
+    public void raysStopAtTheirLength()
+    {
+        final SelectableRegistry<Item> registry = new SelectableRegistry<Item>(CELL_SIZE);
+        final List<Item> found = new ArrayList<Item>();
+
+        registry.add(new Item(0, 0, -20, 0.5f), 0, 0, -20, 0.5f);
+        assertEquals(0, registry.queryRay(0, 0, 0, 0, 0, -1, 19, found));
+        assertEquals(1, registry.queryRay(0, 0, 0, 0, 0, -1, 19.6f, found));
+        assertEquals(0, registry.queryRay(0, 0, 0, 0, 0, 1, 100, found));
+        assertEquals(0, registry.queryRay(0, 0, 0, 0, 0, 0, 100, found));
+    }
+
+    /*
+     * The array of all the objects is gathered again after objects are
+     * added or removed, and kept when they move.
+     */
+    @Test
+    public void visitsFollowAddsAndRemoves()
+    {
+        final Random random = new Random(8);
+        final List<Item> items = scatter(random, 1000);
+        final SelectableRegistry<Item> registry = register(items);
+
+        assertVisitsExactly(items, registry);
+        for (int i = 0; i < items.size(); i += 3)
+        {
+            final Item item = items.get(i);
+            registry.update(item, item.x + 5, item.y, item.z, item.radius);
+        }
+        assertVisitsExactly(items, registry);
+        for (int i = items.size() - 1; i >= 0; i -= 2)
+        {
+            registry.remove(items.remove(i));
+        }
+        assertVisitsExactly(items, registry);
+        final Item added = new Item(1, 1, 1, 0.1f);
+        registry.add(added, added.x, added.y, added.z, added.radius);
+        items.add(added);
+        assertVisitsExactly(items, registry);
+        registry.clear();
+        items.clear();
+        assertVisitsExactly(items, registry);
+    }
+
+    /*
+     * A thread keeps moving, removing and adding back the objects with an
+     * odd index while readers query rays aimed at the still ones.
+     */
+    @Test
+    public void concurrentReadsFindTheStillObjects() throws InterruptedException
+    {
+        final Random random = new Random(9);
+        final List<Item> items = scatter(random, 2000);
+        final SelectableRegistry<Item> registry = register(items);
+        final int[] misses = new int[3];
+        final Thread writer = new Thread()
+        {
+            public void run()
+            {
+                final Random random = new Random(10);
+                while (!isInterrupted())
+                {
+                    final Item item = items.get(random.nextInt(items.size() / 2) * 2 + 1);
+                    if (random.nextBoolean())
+                    {
+                        registry.update(item, item.x + random.nextFloat() * 4, item.y,
+                                        item.z + random.nextFloat() * 4, item.radius);
+                    }
+                    else
+                    {
+                        registry.remove(item);
+                        registry.add(item, item.x, item.y, item.z, item.radius);
+                    }
+                }
+            }
+        };
+        final Thread[] readers = new Thread[misses.length];
+
+        for (int r = 0; r < readers.length; ++r)
+        {
+            final int reader = r;
+            readers[r] = new Thread()
+            {
+                public void run()
+                {
+                    final Random random = new Random(reader);
+                    final List<Item> found = new ArrayList<Item>();
+                    for (int i = 0; i < 5000; ++i)
+                    {
+                        final Item target = items.get(random.nextInt(items.size() / 2) * 2);
+                        found.clear();
+                        registry.queryRay(0, 0, 0, target.x, target.y, target.z, 100, found);
+                        if (!found.contains(target))
+                        {
+                            ++misses[reader];
+                        }
+                    }
+                }
+            };
+        }
+        writer.start();
+        for (Thread reader : readers)
+        {
+            reader.start();
+        }
+        for (Thread reader : readers)
+        {
+            reader.join();
+        }
+        writer.interrupt();
+        writer.join();
+        for (int missed : misses)
+        {
+            assertEquals(0, missed);
+        }
+    }
+
+    /*
+     * Objects between 2 and 40 away, a few large ones like walls and floors
+     * and a few too far from the origin for the grid
+     */
+    private static List<Item> scatter(Random random, int count)
+    {
+        final List<Item> items = new ArrayList<Item>();
+
+        for (int i = 0; i < count; ++i)
+        {
+            final double distance = (i % 300 == 1) ? 1e7 : 2 + random.nextDouble() * 38;
+            final double yaw = random.nextDouble() * 2 * Math.PI;
+            final double pitch = (random.nextDouble() - 0.5) * Math.PI * 0.6;
+            final float radius = (i % 100 == 0) ? 20 : 0.1f + random.nextFloat() * 0.9f;
+            items.add(new Item((float) (distance * Math.cos(pitch) * Math.sin(yaw)),
+                               (float) (distance * Math.sin(pitch)),
+                               (float) (-distance * Math.cos(pitch) * Math.cos(yaw)), radius));
+        }
+        return items;
+    }
+
+    private static SelectableRegistry<Item> register(List<Item> items)
+    {
+        final SelectableRegistry<Item> registry = new SelectableRegistry<Item>(CELL_SIZE);
+
+        for (Item item : items)
+        {
+            assertTrue(registry.add(item, item.x, item.y, item.z, item.radius));
+        }
+        assertEquals(items.size(), registry.size());
+        return registry;
+    }
+
+    private static void checkRay(SelectableRegistry<Item> registry, List<Item> items,
+                                 Random random, float length)
+    {
+        final float ox = (random.nextFloat() - 0.5f) * 10;
+        final float oy = (random.nextFloat() - 0.5f) * 10;
+        final float oz = (random.nextFloat() - 0.5f) * 10;
+        final float dx = random.nextFloat() - 0.5f;
+        final float dy = random.nextFloat() - 0.5f;
+        final float dz = random.nextFloat() - 0.5f;
+        final float norm = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        final List<Item> found = new ArrayList<Item>();
+        final Map<Item, Boolean> expected = new IdentityHashMap<Item, Boolean>();
+
+        assertEquals(registry.queryRay(ox, oy, oz, dx, dy, dz, length, found), found.size());
+        for (Item item : items)
+        {
+            if (hits(item, ox, oy, oz, dx / norm, dy / norm, dz / norm, length))
+            {
+                expected.put(item, Boolean.TRUE);
+            }
+        }
+        assertEquals(expected, toSet(found));
+        assertEquals(expected.size(), found.size());
+    }
+
+    private static void assertVisitsExactly(List<Item> items, SelectableRegistry<Item> registry)
+    {
+        final List<Item> visited = new ArrayList<Item>();
+        final SelectableRegistry.Visitor<Item> visitor = new SelectableRegistry.Visitor<Item>()
+        {
+            public void visit(Item item)
+            {
+                visited.add(item);
+            }
+        };
+
+        assertEquals(items.size(), registry.visitAll(visitor));
+        assertEquals(items.size(), visited.size());
+        assertEquals(toSet(items), toSet(visited));
+    }
+
+    private static Map<Item, Boolean> toSet(List<Item> items)
+    {
+        final Map<Item, Boolean> set = new IdentityHashMap<Item, Boolean>();
+
+        for (Item item : items)
+        {
+            set.put(item, Boolean.TRUE);
+        }
+        return set;
+    }
+
+    private static boolean hits(Item item, float ox, float oy, float oz,
+                                float dx, float dy, float dz, float length)
+    {
+        final float vx = item.x - ox;
+        final float vy = item.y - oy;
+        final float vz = item.z - oz;
+        final float t = Math.max(0, Math.min(length, vx * dx + vy * dy + vz * dz));
+        final float px = vx - dx * t;
+        final float py = vy - dy * t;
+        final float pz = vz - dz * t;
+        return px * px + py * py + pz * pz <= item.radius * item.radius;
+    }
+}
@@ -32,11 +32,20 @@ public abstract class GVRAugmentedImage {
     public abstract float getExtentZ();
 
     /**
+     * Gets a copy of the augmented image center pose. Callers which read the
+     * pose every frame should use {@link #getCenterPose(float[])}.
      *
-     * @return The augmented image center pose
+     * @return The augmented image center pose, a new array each call
      */
     public abstract float[] getCenterPose();
 
+    /**
+     * Copies the augmented image center pose without allocating.
+     *
+     * @param poseOut Receives the 16 floats of the pose
+     */
+    public abstract void getCenterPose(float[] poseOut);
+
     /**
      *
      * @return The tracking state
@@ -26,6 +26,8 @@ import org.gearvrf.GVRSceneObject;
 import org.gearvrf.IActivityEvents;
 import org.gearvrf.mixedreality.arcore.ARCoreSession;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 
 /**
@@ -216,6 +218,16 @@ public class GVRMixedReality extends GVRBehavior implements IMRCommon {
         return mSession.getAllAugmentedImages();
     }
 
+    @Override
+    public void startTrackableRecording(OutputStream stream) throws IOException {
+        mSession.startTrackableRecording(stream);
+    }
+
+    @Override
+    public void stopTrackableRecording() throws IOException {
+        mSession.stopTrackableRecording();
+    }
+
     private class ActivityEventsHandler extends GVREventListeners.ActivityEvents {
         @Override
         public void onPause() {
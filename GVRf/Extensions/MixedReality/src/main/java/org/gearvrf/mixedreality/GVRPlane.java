@@ -58,11 +58,20 @@ public abstract class GVRPlane extends GVRSceneObject {
     public abstract GVRTrackingState getTrackingState();
 
     /**
+     * Gets a copy of the plane center pose. Callers which read the
+     * pose every frame should use {@link #getCenterPose(float[])}.
      *
-     * @return The plane center pose
+     * @return The plane center pose, a new array each call
      */
     public abstract float[] getCenterPose();
 
+    /**
+     * Copies the plane center pose without allocating.
+     *
+     * @param poseOut Receives the 16 floats of the pose
+     */
+    public abstract void getCenterPose(float[] poseOut);
+
     /**
      *
      * @return The plane type
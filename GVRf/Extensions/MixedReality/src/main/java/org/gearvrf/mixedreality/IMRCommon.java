@@ -21,6 +21,8 @@ import android.graphics.Bitmap;
 import org.gearvrf.GVRPicker;
 import org.gearvrf.GVRSceneObject;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 
 /**
@@ -159,4 +161,17 @@ public interface IMRCommon {
      * @return An ArrayList of GVRAugmentedImage
      */
     ArrayList<GVRAugmentedImage> getAllAugmentedImages();
+
+    /**
+     * Record the planes, augmented images and anchors of the session, so
+     * it can be replayed without a camera by a {@link TrackableRecording.Player}
+     *
+     * @param stream Receives the recording; it is closed when the recording stops
+     */
+    void startTrackableRecording(OutputStream stream) throws IOException;
+
+    /**
+     * Stop recording the trackables and close the stream
+     */
+    void stopTrackableRecording() throws IOException;
 }
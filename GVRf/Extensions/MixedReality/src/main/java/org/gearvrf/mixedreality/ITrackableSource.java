@@ -0,0 +1,35 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality;
+
+import java.io.IOException;
+
+/**
+ * Reports the trackables of an AR session frame by frame to a
+ * {@link TrackableSync}: the live ARCore session, or a recorded session
+ * replayed by {@link TrackableRecording.Player}.
+ */
+public interface ITrackableSource {
+    /**
+     * Reports the trackables of the next frame: calls
+     * {@link TrackableSync#beginFrame(long)}, then edits and commits each
+     * trackable. The caller dispatches the changes.
+     *
+     * @param sync receives the trackables
+     * @return false if there is no new frame
+     */
+    boolean update(TrackableSync sync) throws IOException;
+}
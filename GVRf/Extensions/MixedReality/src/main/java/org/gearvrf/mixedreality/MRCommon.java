@@ -21,6 +21,8 @@ import org.gearvrf.GVRContext;
 import org.gearvrf.GVRPicker;
 import org.gearvrf.GVRSceneObject;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 
 public abstract class MRCommon implements IMRCommon {
@@ -127,6 +129,16 @@ public abstract class MRCommon implements IMRCommon {
         return onGetAllAugmentedImages();
     }
 
+    @Override
+    public void startTrackableRecording(OutputStream stream) throws IOException {
+        onStartTrackableRecording(stream);
+    }
+
+    @Override
+    public void stopTrackableRecording() throws IOException {
+        onStopTrackableRecording();
+    }
+
     protected abstract void onResume();
 
     protected abstract void onPause();
@@ -162,4 +174,8 @@ public abstract class MRCommon implements IMRCommon {
     protected abstract void onSetAugmentedImages(ArrayList<Bitmap> imagesList);
 
     protected abstract ArrayList<GVRAugmentedImage> onGetAllAugmentedImages();
+
+    protected abstract void onStartTrackableRecording(OutputStream stream) throws IOException;
+
+    protected abstract void onStopTrackableRecording() throws IOException;
 }
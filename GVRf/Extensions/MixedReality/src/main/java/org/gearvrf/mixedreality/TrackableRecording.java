@@ -0,0 +1,316 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The file format of recorded trackable streams, so an AR session can be
+ * replayed without a camera, on a device or on a plain JVM.
+ * <p>
+ * A {@link Recorder} wraps the live {@link ITrackableSource} and writes, for
+ * each frame, the trackables which changed in it. A {@link Player} is a
+ * source which reads them back one frame per update, so a
+ * {@link TrackableSync} fed by it reports the same changes in the same frames
+ * as the live one did.
+ * <p>
+ * The file starts with "GVRT" and the version. Each frame follows as a tag
+ * byte, the timestamp as a signed delta from the previous frame and the number
+ * of trackables. Each trackable has its id, kind, change flags, tracking state
+ * and parent id, then only the values its flags say changed: type and extents,
+ * pose, polygon. Integers are LEB128 varints, floats are 32 bits big-endian.
+ * A zero tag ends the recording.
+ */
+public final class TrackableRecording {
+    static final byte[] MAGIC = { 'G', 'V', 'R', 'T' };
+    static final int VERSION = 1;
+    static final int TAG_END = 0;
+    static final int TAG_FRAME = 1;
+    static final int MAX_ID = 1 << 20;
+    static final int MAX_COUNT = 1 << 16;
+    static final int MAX_POLYGON = 1 << 16;
+
+    private static final GVRTrackingState[] STATES = GVRTrackingState.values();
+
+    private TrackableRecording() {
+    }
+
+    /**
+     * Writes the changes of a {@link TrackableSync} frame by frame. The
+     * recording is complete once the writer is closed.
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream mOut;
+        private long mTimestamp;
+        private boolean mClosed;
+
+        public Writer(OutputStream stream) throws IOException {
+            mOut = new DataOutputStream(new BufferedOutputStream(stream));
+            mOut.write(MAGIC);
+            mOut.writeShort(VERSION);
+        }
+
+        /**
+         * Writes the trackables which changed in the current frame of the
+         * sync. Call it after the source updated the sync.
+         */
+        public void write(TrackableSync sync) throws IOException {
+            if (mClosed) {
+                throw new IOException("The recording is closed");
+            }
+            int count = 0;
+            for (int i = 0; i < sync.getChangedCount(); ++i) {
+                if (sync.getChanged(i) != null) {
+                    ++count;
+                }
+            }
+            mOut.writeByte(TAG_FRAME);
+            writeVarint(zigzag(sync.getTimestamp() - mTimestamp));
+            mTimestamp = sync.getTimestamp();
+            writeVarint(count);
+            for (int i = 0; i < sync.getChangedCount(); ++i) {
+                final TrackableSync.Record record = sync.getChanged(i);
+                if (record != null) {
+                    write(record);
+                }
+            }
+        }
+
+        public void flush() throws IOException {
+            mOut.flush();
+        }
+
+        /**
+         * Ends the recording and closes the stream.
+         */
+        @Override
+        public void close() throws IOException {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            try {
+                mOut.writeByte(TAG_END);
+            } finally {
+                mOut.close();
+            }
+        }
+
+        private void write(TrackableSync.Record record) throws IOException {
+            final int changes = record.getChanges();
+
+            writeVarint(record.id);
+            mOut.writeByte(record.kind);
+            mOut.writeByte(changes);
+            mOut.writeByte(record.state.ordinal());
+            writeVarint(record.parentId + 1);
+            if ((changes & TrackableSync.EXTENT_CHANGED) != 0) {
+                writeVarint(record.type);
+                mOut.writeFloat(record.extentX);
+                mOut.writeFloat(record.extentZ);
+            }
+            if ((changes & TrackableSync.POSE_CHANGED) != 0) {
+                for (int i = 0; i < 16; ++i) {
+                    mOut.writeFloat(record.pose[i]);
+                }
+            }
+            if ((changes & TrackableSync.POLYGON_CHANGED) != 0) {
+                writeVarint(record.polygonSize);
+                for (int i = 0; i < record.polygonSize; ++i) {
+                    mOut.writeFloat(record.polygon[i]);
+                }
+            }
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                mOut.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            mOut.writeByte((int) value);
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    /**
+     * A source which records the frames of another source as they are
+     * reported.
+     */
+    public static final class Recorder implements ITrackableSource, Closeable {
+        private final ITrackableSource mSource;
+        private final Writer mWriter;
+
+        /**
+         * @param source the source to record
+         * @param stream receives the recording; it is closed with the recorder.
+         */
+        public Recorder(ITrackableSource source, OutputStream stream) throws IOException {
+            mSource = source;
+            mWriter = new Writer(stream);
+        }
+
+        @Override
+        public boolean update(TrackableSync sync) throws IOException {
+            if (!mSource.update(sync)) {
+                return false;
+            }
+            mWriter.write(sync);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            mWriter.close();
+        }
+    }
+
+    /**
+     * A source which replays a recording, one recorded frame per update.
+     * The sync it updates must start empty.
+     */
+    public static final class Player implements ITrackableSource, Closeable {
+        private final DataInputStream mIn;
+        private long mTimestamp;
+        private boolean mEnded;
+
+        public Player(InputStream stream) throws IOException {
+            mIn = new DataInputStream(new BufferedInputStream(stream));
+            for (byte b : MAGIC) {
+                if (mIn.readByte() != b) {
+                    throw new IOException("Not a trackable recording");
+                }
+            }
+            final int version = mIn.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported trackable recording version " + version);
+            }
+        }
+
+        /**
+         * Reports the next recorded frame.
+         *
+         * @return false at the end of the recording
+         * @throws EOFException if the recording is truncated
+         */
+        @Override
+        public boolean update(TrackableSync sync) throws IOException {
+            if (mEnded) {
+                return false;
+            }
+            final int tag = mIn.readUnsignedByte();
+            if (tag == TAG_END) {
+                mEnded = true;
+                return false;
+            }
+            if (tag != TAG_FRAME) {
+                throw new IOException("Corrupt trackable recording");
+            }
+            mTimestamp += unzigzag(readVarint());
+            final int count = readInt(MAX_COUNT);
+
+            sync.beginFrame(mTimestamp);
+            for (int i = 0; i < count; ++i) {
+                read(sync);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            mEnded = true;
+            mIn.close();
+        }
+
+        private void read(TrackableSync sync) throws IOException {
+            final int id = readInt(MAX_ID);
+            final int kind = mIn.readUnsignedByte();
+            final int changes = mIn.readUnsignedByte();
+            final int state = mIn.readUnsignedByte();
+            final int parentId = readInt(MAX_ID) - 1;
+            final TrackableSync.Record stored = sync.get(id);
+
+            if ((kind > TrackableSync.ANCHOR) || (state >= STATES.length)
+                    || ((stored == null) && ((changes & TrackableSync.ADDED) == 0))) {
+                throw new IOException("Corrupt trackable recording");
+            }
+            final TrackableSync.Record record = sync.edit(id, kind);
+            record.state = STATES[state];
+            record.parentId = parentId;
+            if ((changes & TrackableSync.EXTENT_CHANGED) != 0) {
+                record.type = readInt(Integer.MAX_VALUE);
+                record.extentX = mIn.readFloat();
+                record.extentZ = mIn.readFloat();
+            } else if (stored != null) {
+                record.type = stored.type;
+                record.extentX = stored.extentX;
+                record.extentZ = stored.extentZ;
+            }
+            if ((changes & TrackableSync.POSE_CHANGED) != 0) {
+                for (int i = 0; i < 16; ++i) {
+                    record.pose[i] = mIn.readFloat();
+                }
+            } else if (stored != null) {
+                System.arraycopy(stored.pose, 0, record.pose, 0, 16);
+            }
+            if ((changes & TrackableSync.POLYGON_CHANGED) != 0) {
+                final int size = readInt(MAX_POLYGON);
+                final float[] polygon = record.ensurePolygon(size);
+                for (int i = 0; i < size; ++i) {
+                    polygon[i] = mIn.readFloat();
+                }
+            } else if (stored != null) {
+                System.arraycopy(stored.polygon, 0, record.ensurePolygon(stored.polygonSize), 0,
+                        stored.polygonSize);
+            }
+            sync.commit();
+        }
+
+        private int readInt(int max) throws IOException {
+            final long value = readVarint();
+            if ((value < 0) || (value > max)) {
+                throw new IOException("Corrupt trackable recording");
+            }
+            return (int) value;
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = mIn.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt trackable recording");
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
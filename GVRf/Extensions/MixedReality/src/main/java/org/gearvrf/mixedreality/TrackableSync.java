@@ -0,0 +1,335 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last known state of the trackables of an AR session and finds
+ * what changed from one frame to the next.
+ * <p>
+ * An {@link ITrackableSource} reports the trackables of each frame: it calls
+ * {@link #beginFrame(long)}, then for each trackable fills the record returned
+ * by {@link #edit(int, int)} and calls {@link #commit()}. The committed values
+ * are compared with the stored ones, and {@link #dispatch(Listener)} only
+ * reports the trackables which really changed, with what changed.
+ * <p>
+ * Records are kept in an array indexed by the id the source gives to each
+ * trackable, and are stamped with the generation of the frame they were last
+ * reported in. Their pose and polygon arrays are updated in place and the
+ * records of removed trackables are pooled, so a session which doesn't find
+ * new trackables doesn't allocate.
+ */
+public final class TrackableSync {
+    public static final int PLANE = 0;
+    public static final int AUGMENTED_IMAGE = 1;
+    public static final int ANCHOR = 2;
+
+    /** The trackable was reported for the first time */
+    public static final int ADDED = 1;
+    public static final int STATE_CHANGED = 2;
+    public static final int POSE_CHANGED = 4;
+    public static final int EXTENT_CHANGED = 8;
+    public static final int POLYGON_CHANGED = 16;
+    /** The plane was subsumed by the plane {@link Record#parentId} */
+    public static final int MERGED = 32;
+
+    private static final int ALL_CHANGED = ADDED | STATE_CHANGED | POSE_CHANGED
+            | EXTENT_CHANGED | POLYGON_CHANGED;
+
+    /**
+     * Last known state of a trackable. The public fields are filled by the
+     * source between {@link #edit(int, int)} and {@link #commit()}; for
+     * stored records they are read only.
+     */
+    public static final class Record {
+        public int id = -1;
+        public int kind;
+        public GVRTrackingState state;
+        /** For planes, the ordinal of the {@link GVRPlane.Type} */
+        public int type;
+        /** Column-major center pose in the AR world */
+        public final float[] pose = new float[16];
+        public float extentX;
+        public float extentZ;
+        /** Id of the plane which subsumed this one, -1 if none */
+        public int parentId = -1;
+        /** X and Z of the polygon vertices; only the first polygonSize are valid */
+        public float[] polygon = new float[16];
+        public int polygonSize;
+
+        private int mGeneration;
+        private int mChanges;
+
+        /**
+         * Makes room for the polygon and sets its size.
+         *
+         * @param size number of floats, two per vertex
+         * @return the polygon array to fill
+         */
+        public float[] ensurePolygon(int size) {
+            if (polygon.length < size) {
+                polygon = new float[Math.max(size, polygon.length * 2)];
+            }
+            polygonSize = size;
+            return polygon;
+        }
+
+        /**
+         * @return the generation of the frame the trackable was last reported in
+         */
+        public int getGeneration() {
+            return mGeneration;
+        }
+
+        /**
+         * @return what changed in the last frame, 0 if the trackable wasn't
+         * reported or didn't change
+         */
+        public int getChanges() {
+            return mChanges;
+        }
+
+        private void clear() {
+            state = null;
+            type = 0;
+            extentX = 0;
+            extentZ = 0;
+            parentId = -1;
+            polygonSize = 0;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called for each trackable which changed in the frame, in the order
+         * they were committed.
+         *
+         * @param record  the trackable, valid until it is removed
+         * @param changes the change flags
+         */
+        void onTrackableChanged(Record record, int changes);
+    }
+
+    private final Record mScratch = new Record();
+    private Record[] mRecords = new Record[32];
+    private Record[] mPool = new Record[8];
+    private int mPoolSize;
+    private int[] mChanged = new int[32];
+    private int mChangedCount;
+    private int mGeneration;
+    private long mTimestamp;
+    private boolean mEditing;
+
+    /**
+     * Starts a frame.
+     *
+     * @param timestamp time of the frame in nanoseconds, from the source
+     */
+    public void beginFrame(long timestamp) {
+        for (int i = 0; i < mChangedCount; ++i) {
+            final Record record = mRecords[mChanged[i]];
+            if (record != null) {
+                record.mChanges = 0;
+            }
+        }
+        mChangedCount = 0;
+        mTimestamp = timestamp;
+        ++mGeneration;
+    }
+
+    /**
+     * Gets the record to fill with the state of a trackable in this frame.
+     * Its fields other than the pose and the id are cleared.
+     *
+     * @param id   id of the trackable; ids should be small and dense
+     * @param kind {@link #PLANE}, {@link #AUGMENTED_IMAGE} or {@link #ANCHOR}
+     */
+    public Record edit(int id, int kind) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative trackable id " + id);
+        }
+        mScratch.clear();
+        mScratch.id = id;
+        mScratch.kind = kind;
+        mEditing = true;
+        return mScratch;
+    }
+
+    /**
+     * Compares the record returned by {@link #edit(int, int)} with the
+     * stored state of the trackable and stores it.
+     */
+    public void commit() {
+        final Record edited = mScratch;
+        if (!mEditing) {
+            throw new IllegalStateException("commit() without edit()");
+        }
+        if (edited.state == null) {
+            throw new IllegalStateException("Trackable " + edited.id + " has no tracking state");
+        }
+        mEditing = false;
+
+        Record record = get(edited.id);
+        int changes;
+        if (record == null) {
+            record = obtain();
+            record.id = edited.id;
+            record.kind = edited.kind;
+            if (edited.id >= mRecords.length) {
+                mRecords = Arrays.copyOf(mRecords, Math.max(edited.id + 1, mRecords.length * 2));
+            }
+            mRecords[edited.id] = record;
+            changes = ALL_CHANGED;
+        } else if (record.kind != edited.kind) {
+            throw new IllegalStateException("Trackable " + edited.id + " changed kind");
+        } else {
+            changes = 0;
+            if (record.state != edited.state) {
+                changes |= STATE_CHANGED;
+            }
+            if (!Arrays.equals(record.pose, edited.pose)) {
+                changes |= POSE_CHANGED;
+            }
+            if ((record.extentX != edited.extentX) || (record.extentZ != edited.extentZ)
+                    || (record.type != edited.type)) {
+                changes |= EXTENT_CHANGED;
+            }
+            if (!samePolygon(record, edited)) {
+                changes |= POLYGON_CHANGED;
+            }
+        }
+        if ((edited.parentId >= 0) && (edited.parentId != record.parentId)) {
+            changes |= MERGED;
+        }
+
+        record.state = edited.state;
+        record.type = edited.type;
+        record.extentX = edited.extentX;
+        record.extentZ = edited.extentZ;
+        record.parentId = edited.parentId;
+        if ((changes & POSE_CHANGED) != 0) {
+            System.arraycopy(edited.pose, 0, record.pose, 0, 16);
+        }
+        if ((changes & POLYGON_CHANGED) != 0) {
+            System.arraycopy(edited.polygon, 0, record.ensurePolygon(edited.polygonSize), 0,
+                    edited.polygonSize);
+        }
+
+        final boolean listed = (record.mGeneration == mGeneration) && (record.mChanges != 0);
+        if (record.mGeneration != mGeneration) {
+            record.mGeneration = mGeneration;
+            record.mChanges = 0;
+        }
+        record.mChanges |= changes;
+        if ((changes != 0) && !listed) {
+            if (mChangedCount == mChanged.length) {
+                mChanged = Arrays.copyOf(mChanged, mChangedCount * 2);
+            }
+            mChanged[mChangedCount++] = record.id;
+        }
+    }
+
+    /**
+     * Reports the trackables which changed since {@link #beginFrame(long)}.
+     */
+    public void dispatch(Listener listener) {
+        for (int i = 0; i < mChangedCount; ++i) {
+            final Record record = mRecords[mChanged[i]];
+            if ((record != null) && (record.mChanges != 0)) {
+                listener.onTrackableChanged(record, record.mChanges);
+            }
+        }
+    }
+
+    /**
+     * Forgets a trackable and pools its record.
+     */
+    public void remove(int id) {
+        final Record record = get(id);
+        if (record == null) {
+            return;
+        }
+        mRecords[id] = null;
+        record.id = -1;
+        record.mGeneration = 0;
+        record.mChanges = 0;
+        if (mPoolSize == mPool.length) {
+            mPool = Arrays.copyOf(mPool, mPoolSize * 2);
+        }
+        mPool[mPoolSize++] = record;
+    }
+
+    /**
+     * @return the record of a trackable, null if it wasn't reported yet or
+     * was removed
+     */
+    public Record get(int id) {
+        return ((id >= 0) && (id < mRecords.length)) ? mRecords[id] : null;
+    }
+
+    /**
+     * @return the number of trackables which changed in the current frame
+     */
+    public int getChangedCount() {
+        return mChangedCount;
+    }
+
+    /**
+     * @return the i-th trackable which changed in the current frame; null
+     * if it was removed since
+     */
+    public Record getChanged(int i) {
+        return mRecords[mChanged[i]];
+    }
+
+    /**
+     * @return the generation of the current frame, incremented by each
+     * {@link #beginFrame(long)}
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * @return the timestamp of the current frame
+     */
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    private Record obtain() {
+        if (mPoolSize > 0) {
+            final Record record = mPool[--mPoolSize];
+            mPool[mPoolSize] = null;
+            record.clear();
+            return record;
+        }
+        return new Record();
+    }
+
+    private static boolean samePolygon(Record a, Record b) {
+        if (a.polygonSize != b.polygonSize) {
+            return false;
+        }
+        for (int i = 0; i < a.polygonSize; ++i) {
+            if (Float.floatToIntBits(a.polygon[i]) != Float.floatToIntBits(b.polygon[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -16,11 +16,11 @@
 package org.gearvrf.mixedreality.arcore;
 
 import com.google.ar.core.Anchor;
-import com.google.ar.core.TrackingState;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.mixedreality.GVRAnchor;
 import org.gearvrf.mixedreality.GVRTrackingState;
+import org.gearvrf.mixedreality.TrackableSync;
 
 /**
  * Represents a ARCore anchor in the scene.
@@ -29,10 +29,14 @@ import org.gearvrf.mixedreality.GVRTrackingState;
 public class ARCoreAnchor extends GVRAnchor {
     private Anchor mAnchor;
     private ARCorePose mPose;
+    private final int mTrackableId;
+    private TrackableSync.Record mRecord;
+    private boolean mPlaced;
 
-    protected ARCoreAnchor(GVRContext gvrContext) {
+    protected ARCoreAnchor(GVRContext gvrContext, int trackableId) {
         super(gvrContext);
         mPose = new ARCorePose();
+        mTrackableId = trackableId;
     }
 
     /**
@@ -58,6 +62,22 @@ public class ARCoreAnchor extends GVRAnchor {
         return this.mAnchor;
     }
 
+    /**
+     * @return The id of the anchor in the {@link TrackableSync}
+     */
+    protected int getTrackableId() {
+        return mTrackableId;
+    }
+
+    /**
+     * Sets the state of the anchor, once it was first reported
+     *
+     * @param record
+     */
+    protected void setRecord(TrackableSync.Record record) {
+        mRecord = record;
+    }
+
     @Override
     public GVRTrackingState getTrackingState() {
         return mTrackingState;
@@ -74,14 +94,20 @@ public class ARCoreAnchor extends GVRAnchor {
      * @param viewmtx
      * @param gvrmatrix
      * @param scale
+     * @param cameraMoved whether the matrices changed since the last update
      */
-    protected void update(float[] viewmtx, float[] gvrmatrix, float scale) {
+    protected void update(float[] viewmtx, float[] gvrmatrix, float scale, boolean cameraMoved) {
         // Updates only when the plane is in the scene
-        if (getParent() == null || !isEnabled()) {
+        if (mRecord == null || getParent() == null || !isEnabled()) {
+            mPlaced = false;
+            return;
+        }
+        if (mPlaced && !cameraMoved && (mRecord.getChanges() & TrackableSync.POSE_CHANGED) == 0) {
             return;
         }
 
         convertFromARtoVRSpace(viewmtx, gvrmatrix, scale);
+        mPlaced = true;
     }
 
     /**
@@ -92,7 +118,7 @@ public class ARCoreAnchor extends GVRAnchor {
      * @param scale Scale from AR to GVRf world.
      */
     protected void convertFromARtoVRSpace(float[] arViewMatrix, float[] vrCamMatrix, float scale) {
-        mPose.update(mAnchor.getPose(), arViewMatrix, vrCamMatrix, scale);
+        mPose.update(mRecord.pose, arViewMatrix, vrCamMatrix, scale);
         getTransform().setModelMatrix(mPose.getPoseMatrix());
     }
 }
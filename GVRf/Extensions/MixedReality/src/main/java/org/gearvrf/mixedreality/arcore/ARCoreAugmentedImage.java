@@ -15,19 +15,18 @@
 
 package org.gearvrf.mixedreality.arcore;
 
-import com.google.ar.core.AugmentedImage;
-
 import org.gearvrf.mixedreality.GVRAugmentedImage;
 import org.gearvrf.mixedreality.GVRTrackingState;
+import org.gearvrf.mixedreality.TrackableSync;
 
 /**
  * Represents an ARCore Augmented Image
  */
 public class ARCoreAugmentedImage extends GVRAugmentedImage {
-    private AugmentedImage mAugmentedImage;
+    private final TrackableSync.Record mRecord;
 
-    protected ARCoreAugmentedImage(AugmentedImage augmentedImage) {
-        mAugmentedImage = augmentedImage;
+    protected ARCoreAugmentedImage(TrackableSync.Record record) {
+        mRecord = record;
         mTrackingState = GVRTrackingState.PAUSED;
     }
 
@@ -36,7 +35,7 @@ public class ARCoreAugmentedImage extends GVRAugmentedImage {
      */
     @Override
     public float getExtentX() {
-        return mAugmentedImage.getExtentX();
+        return mRecord.extentX;
     }
 
     /**
@@ -44,7 +43,7 @@ public class ARCoreAugmentedImage extends GVRAugmentedImage {
      */
     @Override
     public float getExtentZ() {
-        return mAugmentedImage.getExtentZ();
+        return mRecord.extentZ;
     }
 
     /**
@@ -52,9 +51,14 @@ public class ARCoreAugmentedImage extends GVRAugmentedImage {
      */
     @Override
     public float[] getCenterPose() {
-        float[] centerPose = new float[16];
-        mAugmentedImage.getCenterPose().toMatrix(centerPose, 0);
-        return centerPose;
+        final float[] pose = new float[16];
+        getCenterPose(pose);
+        return pose;
+    }
+
+    @Override
+    public void getCenterPose(float[] poseOut) {
+        System.arraycopy(mRecord.pose, 0, poseOut, 0, 16);
     }
 
     /**
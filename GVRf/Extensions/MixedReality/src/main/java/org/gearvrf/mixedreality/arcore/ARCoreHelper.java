@@ -15,13 +15,15 @@
 
 package org.gearvrf.mixedreality.arcore;
 
+import android.util.SparseArray;
+
 import com.google.ar.core.Anchor;
-import com.google.ar.core.AugmentedImage;
+import com.google.ar.core.Frame;
 import com.google.ar.core.HitResult;
 import com.google.ar.core.LightEstimate;
 import com.google.ar.core.Plane;
+import com.google.ar.core.Session;
 import com.google.ar.core.Trackable;
-import com.google.ar.core.TrackingState;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRScene;
@@ -35,172 +37,240 @@ import org.gearvrf.mixedreality.GVRTrackingState;
 import org.gearvrf.mixedreality.IAnchorEventsListener;
 import org.gearvrf.mixedreality.IAugmentedImageEventsListener;
 import org.gearvrf.mixedreality.IPlaneEventsListener;
+import org.gearvrf.mixedreality.TrackableRecording;
+import org.gearvrf.mixedreality.TrackableSync;
+import org.gearvrf.utility.Log;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 public class ARCoreHelper {
+    private static final String TAG = ARCoreHelper.class.getSimpleName();
+
     private GVRContext mGvrContext;
     private GVRScene mGvrScene;
 
-    private Map<Plane, ARCorePlane> mArPlanes;
-    private Map<AugmentedImage, ARCoreAugmentedImage> mArAugmentedImages;
+    private final TrackableSync mSync = new TrackableSync();
+    private final ARCoreTrackableSource mSource;
+    private TrackableRecording.Writer mRecording;
+
+    private SparseArray<ARCorePlane> mArPlanes;
+    private SparseArray<ARCoreAugmentedImage> mArAugmentedImages;
     private List<ARCoreAnchor> mArAnchors;
 
+    /* Matrices of the frame being updated, and of the previous one */
+    private float[] mArViewMatrix;
+    private float[] mVrCamMatrix;
+    private float mScale;
+    private final float[] mLastArViewMatrix = new float[16];
+    private final float[] mLastVrCamMatrix = new float[16];
+    private float mLastScale;
+
     private ArrayList<IPlaneEventsListener> planeEventsListeners = new ArrayList<>();
     private ArrayList<IAnchorEventsListener> anchorEventsListeners = new ArrayList<>();
     private ArrayList<IAugmentedImageEventsListener> augmentedImageEventsListeners = new ArrayList<>();
 
+    private final TrackableSync.Listener mSyncListener = new TrackableSync.Listener() {
+        @Override
+        public void onTrackableChanged(TrackableSync.Record record, int changes) {
+            switch (record.kind) {
+                case TrackableSync.PLANE:
+                    onPlaneChanged(record, changes);
+                    break;
+                case TrackableSync.AUGMENTED_IMAGE:
+                    onAugmentedImageChanged(record, changes);
+                    break;
+                default:
+                    onAnchorChanged(record, changes);
+                    break;
+            }
+        }
+    };
+
     public ARCoreHelper(GVRContext gvrContext, GVRScene gvrScene) {
         mGvrContext = gvrContext;
         mGvrScene = gvrScene;
-        mArPlanes = new HashMap<>();
-        mArAugmentedImages = new HashMap<>();
+        mArPlanes = new SparseArray<>();
+        mArAugmentedImages = new SparseArray<>();
         mArAnchors = new ArrayList<>();
+        mSource = new ARCoreTrackableSource(mArAnchors);
     }
 
-    public void updatePlanes(Collection<Plane> allPlanes, float[] arViewMatrix,
-                             float[] vrCamMatrix, float scale) {
-        ARCorePlane arCorePlane;
-
-        for (Plane plane: allPlanes) {
-            if (plane.getTrackingState() != TrackingState.TRACKING
-                    || mArPlanes.containsKey(plane)) {
-                continue;
+    /**
+     * Updates the planes, the augmented images and the anchors from an ARCore frame.
+     * Listeners are only notified of what changed since the previous frame, and
+     * scene objects only move when their pose or the camera changed.
+     *
+     * @param session ARCore session
+     * @param frame Frame returned by the last update of the session
+     * @param arViewMatrix Phone's camera view matrix
+     * @param vrCamMatrix GVRf Camera matrix
+     * @param scale Scale from AR to GVRf world
+     */
+    public void updateTrackables(Session session, Frame frame, float[] arViewMatrix,
+                                 float[] vrCamMatrix, float scale) {
+        final boolean cameraMoved = !Arrays.equals(arViewMatrix, mLastArViewMatrix)
+                || !Arrays.equals(vrCamMatrix, mLastVrCamMatrix) || scale != mLastScale;
+
+        System.arraycopy(arViewMatrix, 0, mLastArViewMatrix, 0, 16);
+        System.arraycopy(vrCamMatrix, 0, mLastVrCamMatrix, 0, 16);
+        mLastScale = scale;
+        mArViewMatrix = arViewMatrix;
+        mVrCamMatrix = vrCamMatrix;
+        mScale = scale;
+
+        // Anchors are created and removed from other threads
+        synchronized (mSync) {
+            mSource.setFrame(session, frame);
+            if (!mSource.update(mSync)) {
+                return;
             }
+            record();
+            mSync.dispatch(mSyncListener);
 
-            arCorePlane = createPlane(plane);
-            // FIXME: New planes are updated two times
-            arCorePlane.update(arViewMatrix, vrCamMatrix, scale);
-            notifyPlaneDetectionListeners(arCorePlane);
+            for (int i = 0; i < mArPlanes.size(); ++i) {
+                mArPlanes.valueAt(i).update(arViewMatrix, vrCamMatrix, scale, cameraMoved);
+            }
+            for (int i = 0; i < mArAnchors.size(); ++i) {
+                mArAnchors.get(i).update(arViewMatrix, vrCamMatrix, scale, cameraMoved);
+            }
         }
+    }
 
-        for (Plane plane: mArPlanes.keySet()) {
-            arCorePlane = mArPlanes.get(plane);
+    private void onPlaneChanged(TrackableSync.Record record, int changes) {
+        ARCorePlane arCorePlane;
 
-            if (plane.getTrackingState() == TrackingState.TRACKING &&
-                    arCorePlane.getTrackingState() != GVRTrackingState.TRACKING) {
-                arCorePlane.setTrackingState(GVRTrackingState.TRACKING);
-                notifyPlaneStateChangeListeners(arCorePlane, GVRTrackingState.TRACKING);
-            }
-            else if (plane.getTrackingState() == TrackingState.PAUSED &&
-                    arCorePlane.getTrackingState() != GVRTrackingState.PAUSED) {
-                arCorePlane.setTrackingState(GVRTrackingState.PAUSED);
-                notifyPlaneStateChangeListeners(arCorePlane, GVRTrackingState.PAUSED);
-            }
-            else if (plane.getTrackingState() == TrackingState.STOPPED &&
-                    arCorePlane.getTrackingState() != GVRTrackingState.STOPPED) {
-                arCorePlane.setTrackingState(GVRTrackingState.STOPPED);
-                notifyPlaneStateChangeListeners(arCorePlane, GVRTrackingState.STOPPED);
-            }
+        if ((changes & TrackableSync.ADDED) != 0) {
+            arCorePlane = new ARCorePlane(mGvrContext, record);
+            mArPlanes.put(record.id, arCorePlane);
+            arCorePlane.update(mArViewMatrix, mVrCamMatrix, mScale, true);
+            notifyPlaneDetectionListeners(arCorePlane);
+        } else {
+            arCorePlane = mArPlanes.get(record.id);
+        }
 
-            if (plane.getSubsumedBy() != null && arCorePlane.getParentPlane() == null) {
-                arCorePlane.setParentPlane(mArPlanes.get(plane.getSubsumedBy()));
-                notifyMergedPlane(arCorePlane, arCorePlane.getParentPlane());
-            }
+        if ((changes & TrackableSync.STATE_CHANGED) != 0
+                && arCorePlane.getTrackingState() != record.state) {
+            arCorePlane.setTrackingState(record.state);
+            notifyPlaneStateChangeListeners(arCorePlane, record.state);
+        }
 
-            arCorePlane.update(arViewMatrix, vrCamMatrix, scale);
+        if ((changes & TrackableSync.MERGED) != 0 && arCorePlane.getParentPlane() == null) {
+            arCorePlane.setParentPlane(mArPlanes.get(record.parentId));
+            notifyMergedPlane(arCorePlane, arCorePlane.getParentPlane());
         }
     }
 
-    public void updateAugmentedImages(Collection<AugmentedImage> allAugmentedImages){
+    private void onAugmentedImageChanged(TrackableSync.Record record, int changes) {
         ARCoreAugmentedImage arCoreAugmentedImage;
 
-        for (AugmentedImage augmentedImage: allAugmentedImages) {
-            if (augmentedImage.getTrackingState() != TrackingState.TRACKING
-                || mArAugmentedImages.containsKey(augmentedImage)) {
-                continue;
-            }
-
-            arCoreAugmentedImage = createAugmentedImage(augmentedImage);
+        if ((changes & TrackableSync.ADDED) != 0) {
+            arCoreAugmentedImage = new ARCoreAugmentedImage(record);
+            mArAugmentedImages.put(record.id, arCoreAugmentedImage);
             notifyAugmentedImageDetectionListeners(arCoreAugmentedImage);
+        } else {
+            arCoreAugmentedImage = mArAugmentedImages.get(record.id);
+        }
+
+        if ((changes & TrackableSync.STATE_CHANGED) != 0
+                && arCoreAugmentedImage.getTrackingState() != record.state) {
+            arCoreAugmentedImage.setTrackingState(record.state);
+            notifyAugmentedImageStateChangeListeners(arCoreAugmentedImage, record.state);
+        }
+    }
 
-            mArAugmentedImages.put(augmentedImage, arCoreAugmentedImage);
+    private void onAnchorChanged(TrackableSync.Record record, int changes) {
+        if ((changes & (TrackableSync.ADDED | TrackableSync.STATE_CHANGED)) == 0) {
+            return;
         }
 
-        for (AugmentedImage augmentedImage: mArAugmentedImages.keySet()) {
-            arCoreAugmentedImage = mArAugmentedImages.get(augmentedImage);
+        for (int i = 0; i < mArAnchors.size(); ++i) {
+            ARCoreAnchor anchor = mArAnchors.get(i);
 
-            if (augmentedImage.getTrackingState() == TrackingState.TRACKING &&
-                    arCoreAugmentedImage.getTrackingState() != GVRTrackingState.TRACKING) {
-                arCoreAugmentedImage.setTrackingState(GVRTrackingState.TRACKING);
-                notifyAugmentedImageStateChangeListeners(arCoreAugmentedImage, GVRTrackingState.TRACKING);
+            if (anchor.getTrackableId() != record.id) {
+                continue;
             }
-            else if (augmentedImage.getTrackingState() == TrackingState.PAUSED &&
-                    arCoreAugmentedImage.getTrackingState() != GVRTrackingState.PAUSED) {
-                arCoreAugmentedImage.setTrackingState(GVRTrackingState.PAUSED);
-                notifyAugmentedImageStateChangeListeners(arCoreAugmentedImage, GVRTrackingState.PAUSED);
+            if ((changes & TrackableSync.ADDED) != 0) {
+                anchor.setRecord(record);
             }
-            else if (augmentedImage.getTrackingState() == TrackingState.STOPPED &&
-                    arCoreAugmentedImage.getTrackingState() != GVRTrackingState.STOPPED) {
-                arCoreAugmentedImage.setTrackingState(GVRTrackingState.STOPPED);
-                notifyAugmentedImageStateChangeListeners(arCoreAugmentedImage, GVRTrackingState.STOPPED);
+            if (anchor.getTrackingState() != record.state) {
+                anchor.setTrackingState(record.state);
+                notifyAnchorStateChangeListeners(anchor, record.state);
             }
+            return;
         }
     }
 
-    public void updateAnchors(float[] arViewMatrix, float[] vrCamMatrix, float scale) {
-        for (ARCoreAnchor anchor: mArAnchors) {
-            Anchor arAnchor = anchor.getAnchorAR();
+    /**
+     * Records the trackables of the following frames.
+     *
+     * @param stream Receives the recording; it is closed when the recording stops
+     */
+    public synchronized void startRecording(OutputStream stream) throws IOException {
+        if (mRecording != null) {
+            throw new IllegalStateException("The trackables are already recorded");
+        }
+        mRecording = new TrackableRecording.Writer(stream);
+    }
 
-            if (arAnchor.getTrackingState() == TrackingState.TRACKING &&
-                    anchor.getTrackingState() != GVRTrackingState.TRACKING) {
-                anchor.setTrackingState(GVRTrackingState.TRACKING);
-                notifyAnchorStateChangeListeners(anchor, GVRTrackingState.TRACKING);
-            }
-            else if (arAnchor.getTrackingState() == TrackingState.PAUSED &&
-                    anchor.getTrackingState() != GVRTrackingState.PAUSED) {
-                anchor.setTrackingState(GVRTrackingState.PAUSED);
-                notifyAnchorStateChangeListeners(anchor, GVRTrackingState.PAUSED);
-            }
-            else if (arAnchor.getTrackingState() == TrackingState.STOPPED &&
-                    anchor.getTrackingState() != GVRTrackingState.STOPPED) {
-                anchor.setTrackingState(GVRTrackingState.STOPPED);
-                notifyAnchorStateChangeListeners(anchor, GVRTrackingState.STOPPED);
-            }
+    /**
+     * Stops recording the trackables and closes the stream.
+     */
+    public synchronized void stopRecording() throws IOException {
+        TrackableRecording.Writer recording = mRecording;
+
+        mRecording = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
 
-            anchor.update(arViewMatrix, vrCamMatrix, scale);
+    private synchronized void record() {
+        if (mRecording == null) {
+            return;
+        }
+        try {
+            mRecording.write(mSync);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot write trackable recording, recording stopped: %s", e.getMessage());
+            try {
+                stopRecording();
+            } catch (IOException ignored) {
+            }
         }
     }
 
     public ArrayList<GVRPlane> getAllPlanes() {
-        ArrayList<GVRPlane> allPlanes = new ArrayList<>();
+        ArrayList<GVRPlane> allPlanes = new ArrayList<>(mArPlanes.size());
 
-        for (Plane plane: mArPlanes.keySet()) {
-            allPlanes.add(mArPlanes.get(plane));
+        for (int i = 0; i < mArPlanes.size(); ++i) {
+            allPlanes.add(mArPlanes.valueAt(i));
         }
 
         return allPlanes;
     }
 
     public ArrayList<GVRAugmentedImage> getAllAugmentedImages() {
-        ArrayList<GVRAugmentedImage> allAugmentedImages = new ArrayList<>();
+        ArrayList<GVRAugmentedImage> allAugmentedImages = new ArrayList<>(mArAugmentedImages.size());
 
-        for (AugmentedImage augmentedImage: mArAugmentedImages.keySet()) {
-            allAugmentedImages.add(mArAugmentedImages.get(augmentedImage));
+        for (int i = 0; i < mArAugmentedImages.size(); ++i) {
+            allAugmentedImages.add(mArAugmentedImages.valueAt(i));
         }
 
         return allAugmentedImages;
     }
 
-    public ARCorePlane createPlane(Plane plane) {
-        ARCorePlane arCorePlane = new ARCorePlane(mGvrContext, plane);
-        mArPlanes.put(plane, arCorePlane);
-        return arCorePlane;
-    }
-
-    public ARCoreAugmentedImage createAugmentedImage(AugmentedImage augmentedImage) {
-        ARCoreAugmentedImage arCoreAugmentedImage = new ARCoreAugmentedImage(augmentedImage);
-        return arCoreAugmentedImage;
-    }
-
     public GVRAnchor createAnchor(Anchor arAnchor, GVRSceneObject sceneObject) {
-        ARCoreAnchor arCoreAnchor = new ARCoreAnchor(mGvrContext);
-        arCoreAnchor.setAnchorAR(arAnchor);
-        mArAnchors.add(arCoreAnchor);
+        ARCoreAnchor arCoreAnchor;
+
+        synchronized (mSync) {
+            arCoreAnchor = new ARCoreAnchor(mGvrContext, mSource.newId());
+            arCoreAnchor.setAnchorAR(arAnchor);
+            mArAnchors.add(arCoreAnchor);
+        }
 
         if (sceneObject != null) {
             arCoreAnchor.attachSceneObject(sceneObject);
@@ -217,8 +287,11 @@ public class ARCoreHelper {
     }
 
     public void removeAnchor(ARCoreAnchor anchor) {
-        anchor.getAnchorAR().detach();
-        mArAnchors.remove(anchor);
+        synchronized (mSync) {
+            anchor.getAnchorAR().detach();
+            mArAnchors.remove(anchor);
+            mSync.remove(anchor.getTrackableId());
+        }
         mGvrScene.removeSceneObject(anchor);
     }
 
@@ -236,7 +309,7 @@ public class ARCoreHelper {
                 hit.getHitPose().toMatrix(hitPose, 0);
                 gvrHitResult.setPose(hitPose);
                 gvrHitResult.setDistance(hit.getDistance());
-                gvrHitResult.setPlane(mArPlanes.get(trackable));
+                gvrHitResult.setPlane(mArPlanes.get(mSource.getId(trackable)));
 
                 return gvrHitResult;
             }
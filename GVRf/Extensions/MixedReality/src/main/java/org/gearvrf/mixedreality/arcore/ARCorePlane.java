@@ -15,33 +15,28 @@
 
 package org.gearvrf.mixedreality.arcore;
 
-import com.google.ar.core.Plane;
-
 import org.gearvrf.GVRContext;
+import org.gearvrf.GVRSceneObject;
 import org.gearvrf.mixedreality.GVRPlane;
 import org.gearvrf.mixedreality.GVRTrackingState;
+import org.gearvrf.mixedreality.TrackableSync;
 
 import java.nio.FloatBuffer;
 
 
 class ARCorePlane extends GVRPlane {
-    private Plane mARPlane;
+    private static final Type[] TYPES = Type.values();
+
+    private final TrackableSync.Record mRecord;
     private ARCorePose mPose;
+    private FloatBuffer mPolygon;
+    private boolean mPlaced;
 
-    protected ARCorePlane(GVRContext gvrContext, Plane plane) {
+    protected ARCorePlane(GVRContext gvrContext, TrackableSync.Record record) {
         super(gvrContext);
         mPose = new ARCorePose();
-        mARPlane = plane;
-
-        if (mARPlane.getType() == Plane.Type.HORIZONTAL_DOWNWARD_FACING) {
-            mType = Type.HORIZONTAL_DOWNWARD_FACING;
-        }
-        else if (mARPlane.getType() == Plane.Type.HORIZONTAL_UPWARD_FACING) {
-            mType = Type.HORIZONTAL_UPWARD_FACING;
-        }
-        else {
-            mType = Type.VERTICAL;
-        }
+        mRecord = record;
+        mType = TYPES[record.type];
     }
 
     /**
@@ -62,6 +57,19 @@ class ARCorePlane extends GVRPlane {
         mParentPlane = plane;
     }
 
+    /**
+     * @return The id of the plane in the {@link TrackableSync}
+     */
+    protected int getTrackableId() {
+        return mRecord.id;
+    }
+
+    @Override
+    public void setSceneObject(GVRSceneObject obj) {
+        super.setSceneObject(obj);
+        mPlaced = false;
+    }
+
     @Override
     public GVRTrackingState getTrackingState() {
         return mTrackingState;
@@ -69,9 +77,14 @@ class ARCorePlane extends GVRPlane {
 
     @Override
     public float[] getCenterPose() {
-        float[] centerPose = new float[16];
-        mARPlane.getCenterPose().toMatrix(centerPose, 0);
-        return centerPose;
+        final float[] pose = new float[16];
+        getCenterPose(pose);
+        return pose;
+    }
+
+    @Override
+    public void getCenterPose(float[] poseOut) {
+        System.arraycopy(mRecord.pose, 0, poseOut, 0, 16);
     }
 
     @Override
@@ -81,17 +94,25 @@ class ARCorePlane extends GVRPlane {
 
     @Override
     public float getWidth() {
-        return mARPlane.getExtentX();
+        return mRecord.extentX;
     }
 
     @Override
     public float getHeight() {
-        return mARPlane.getExtentZ();
+        return mRecord.extentZ;
     }
 
+    /**
+     * The buffer is reused and follows the changes of the plane.
+     */
     @Override
     public FloatBuffer getPolygon() {
-        return mARPlane.getPolygon();
+        if (mPolygon == null || !mPolygon.hasArray() || mPolygon.array() != mRecord.polygon) {
+            mPolygon = FloatBuffer.wrap(mRecord.polygon);
+        }
+        mPolygon.clear();
+        mPolygon.limit(mRecord.polygonSize);
+        return mPolygon;
     }
 
     @Override
@@ -105,19 +126,26 @@ class ARCorePlane extends GVRPlane {
      * @param viewmtx
      * @param gvrmatrix
      * @param scale
+     * @param cameraMoved whether the matrices changed since the last update
      */
-    protected void update(float[] viewmtx, float[] gvrmatrix, float scale) {
+    protected void update(float[] viewmtx, float[] gvrmatrix, float scale, boolean cameraMoved) {
         // Updates only when the plane is in the scene
         if (getParent() == null || !isEnabled()) {
+            mPlaced = false;
             return;
         }
 
+        final int changes = mRecord.getChanges();
+        if (mPlaced && !cameraMoved && (changes & TrackableSync.POSE_CHANGED) == 0) {
+            return;
+        }
         convertFromARtoVRSpace(viewmtx, gvrmatrix, scale);
 
-        if (mSceneObject != null) {
-            mSceneObject.getTransform().setScale(mARPlane.getExtentX() * 0.95f,
-                    mARPlane.getExtentZ() * 0.95f, 1.0f);
+        if (mSceneObject != null && (!mPlaced || (changes & TrackableSync.EXTENT_CHANGED) != 0)) {
+            mSceneObject.getTransform().setScale(mRecord.extentX * 0.95f,
+                    mRecord.extentZ * 0.95f, 1.0f);
         }
+        mPlaced = true;
     }
     
     /**
@@ -128,7 +156,7 @@ class ARCorePlane extends GVRPlane {
      * @param scale Scale from AR to GVRf world
      */
     private void convertFromARtoVRSpace(float[] arViewMatrix, float[] vrCamMatrix, float scale) {
-        mPose.update(mARPlane.getCenterPose(), arViewMatrix, vrCamMatrix, scale);
+        mPose.update(mRecord.pose, arViewMatrix, vrCamMatrix, scale);
         getTransform().setModelMatrix(mPose.getPoseMatrix());
     }
 }
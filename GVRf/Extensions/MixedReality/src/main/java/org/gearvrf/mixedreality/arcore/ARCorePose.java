@@ -51,6 +51,20 @@ public class ARCorePose {
         ar2gvr(arViewMatrix, vrCamMatrix, scale);
     }
 
+    /**
+     * Converts from ARCore world space to GVRf's world space
+     *
+     * @param pose Column-major pose matrix in ARCore world space
+     * @param arViewMatrix Phone's camera view matrix
+     * @param vrCamMatrix GVRf Camera matrix
+     * @param scale Scale from AR to GVRf world
+     */
+    public void update(float[] pose, float[] arViewMatrix, float[] vrCamMatrix, float scale) {
+        System.arraycopy(pose, 0, mPoseMatrix, 0, 16);
+
+        ar2gvr(arViewMatrix, vrCamMatrix, scale);
+    }
+
     /**
      * Converts from AR world space to GVRf world space.
      */
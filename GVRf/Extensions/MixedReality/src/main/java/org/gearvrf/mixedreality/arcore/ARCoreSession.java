@@ -22,13 +22,11 @@ import android.view.Surface;
 
 import com.google.ar.core.Anchor;
 import com.google.ar.core.ArCoreApk;
-import com.google.ar.core.AugmentedImage;
 import com.google.ar.core.AugmentedImageDatabase;
 import com.google.ar.core.Camera;
 import com.google.ar.core.Config;
 import com.google.ar.core.Frame;
 import com.google.ar.core.HitResult;
-import com.google.ar.core.Plane;
 import com.google.ar.core.Pose;
 import com.google.ar.core.Session;
 import com.google.ar.core.TrackingState;
@@ -67,6 +65,8 @@ import org.joml.Quaternionf;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -289,13 +289,9 @@ public class ARCoreSession extends MRCommon {
             // Update passthrough object with last VR cam matrix
             updatePassThroughObject(mARPassThroughObject);
 
-            mArCoreHelper.updatePlanes(mSession.getAllTrackables(Plane.class),
+            mArCoreHelper.updateTrackables(mSession, arFrame,
                     mARViewMatrix, mGVRCamMatrix, AR2VR_SCALE);
 
-            mArCoreHelper.updateAugmentedImages(arFrame.getUpdatedTrackables(AugmentedImage.class));
-
-            mArCoreHelper.updateAnchors(mARViewMatrix, mGVRCamMatrix, AR2VR_SCALE);
-
             updateCloudAnchors(arFrame.getUpdatedAnchors());
 
             mLastARFrame = arFrame;
@@ -488,6 +484,16 @@ public class ARCoreSession extends MRCommon {
         return mArCoreHelper.getAllAugmentedImages();
     }
 
+    @Override
+    protected void onStartTrackableRecording(OutputStream stream) throws IOException {
+        mArCoreHelper.startRecording(stream);
+    }
+
+    @Override
+    protected void onStopTrackableRecording() throws IOException {
+        mArCoreHelper.stopRecording();
+    }
+
     private Vector2f convertToDisplayGeometrySpace(float[] hitPoint) {
         final float hitX = hitPoint[0] + 0.5f * mDisplayGeometry.x;
         final float hitY = mDisplayGeometry.y - hitPoint[1] - 0.5f * mDisplayGeometry.y;
@@ -0,0 +1,163 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality.arcore;
+
+import com.google.ar.core.AugmentedImage;
+import com.google.ar.core.Frame;
+import com.google.ar.core.Plane;
+import com.google.ar.core.Session;
+import com.google.ar.core.Trackable;
+import com.google.ar.core.TrackingState;
+
+import org.gearvrf.mixedreality.GVRPlane;
+import org.gearvrf.mixedreality.GVRTrackingState;
+import org.gearvrf.mixedreality.ITrackableSource;
+import org.gearvrf.mixedreality.TrackableSync;
+
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Reports the planes, augmented images and anchors of the last ARCore frame
+ * to a {@link TrackableSync}.
+ * <p>
+ * Planes and augmented images get an id the first time they are tracked;
+ * anchors get theirs when they are created. Poses and polygons are copied
+ * straight into the sync's record.
+ */
+class ARCoreTrackableSource implements ITrackableSource {
+    private final HashMap<Trackable, Integer> mIds = new HashMap<>();
+    private final List<ARCoreAnchor> mAnchors;
+    private int mNextId;
+    private Session mSession;
+    private Frame mFrame;
+
+    ARCoreTrackableSource(List<ARCoreAnchor> anchors) {
+        mAnchors = anchors;
+    }
+
+    /**
+     * Sets the frame to report on the next update.
+     */
+    void setFrame(Session session, Frame frame) {
+        mSession = session;
+        mFrame = frame;
+    }
+
+    /**
+     * @return the id of a plane or augmented image, -1 if it wasn't tracked yet
+     */
+    int getId(Trackable trackable) {
+        final Integer id = mIds.get(trackable);
+        return (id != null) ? id : -1;
+    }
+
+    /**
+     * @return a new id for an anchor
+     */
+    int newId() {
+        return mNextId++;
+    }
+
+    @Override
+    public boolean update(TrackableSync sync) {
+        if (mFrame == null) {
+            return false;
+        }
+        sync.beginFrame(mFrame.getTimestamp());
+        for (Plane plane: mSession.getAllTrackables(Plane.class)) {
+            updatePlane(sync, plane);
+        }
+        for (AugmentedImage image: mFrame.getUpdatedTrackables(AugmentedImage.class)) {
+            updateAugmentedImage(sync, image);
+        }
+        for (int i = 0; i < mAnchors.size(); ++i) {
+            final ARCoreAnchor anchor = mAnchors.get(i);
+            final TrackableSync.Record record = sync.edit(anchor.getTrackableId(),
+                    TrackableSync.ANCHOR);
+
+            record.state = convert(anchor.getAnchorAR().getTrackingState());
+            anchor.getAnchorAR().getPose().toMatrix(record.pose, 0);
+            sync.commit();
+        }
+        mFrame = null;
+        return true;
+    }
+
+    private void updatePlane(TrackableSync sync, Plane plane) {
+        final int id = track(plane);
+        if (id < 0) {
+            return;
+        }
+        final TrackableSync.Record record = sync.edit(id, TrackableSync.PLANE);
+        final FloatBuffer polygon = plane.getPolygon();
+        final int size = polygon.remaining();
+        final Plane parent = plane.getSubsumedBy();
+
+        record.state = convert(plane.getTrackingState());
+        if (plane.getType() == Plane.Type.HORIZONTAL_DOWNWARD_FACING) {
+            record.type = GVRPlane.Type.HORIZONTAL_DOWNWARD_FACING.ordinal();
+        } else if (plane.getType() == Plane.Type.HORIZONTAL_UPWARD_FACING) {
+            record.type = GVRPlane.Type.HORIZONTAL_UPWARD_FACING.ordinal();
+        } else {
+            record.type = GVRPlane.Type.VERTICAL.ordinal();
+        }
+        plane.getCenterPose().toMatrix(record.pose, 0);
+        record.extentX = plane.getExtentX();
+        record.extentZ = plane.getExtentZ();
+        polygon.get(record.ensurePolygon(size), 0, size);
+        if (parent != null) {
+            record.parentId = getId(parent);
+        }
+        sync.commit();
+    }
+
+    private void updateAugmentedImage(TrackableSync sync, AugmentedImage image) {
+        final int id = track(image);
+        if (id < 0) {
+            return;
+        }
+        final TrackableSync.Record record = sync.edit(id, TrackableSync.AUGMENTED_IMAGE);
+
+        record.state = convert(image.getTrackingState());
+        image.getCenterPose().toMatrix(record.pose, 0);
+        record.extentX = image.getExtentX();
+        record.extentZ = image.getExtentZ();
+        sync.commit();
+    }
+
+    /*
+     * Trackables are only reported once they were tracked.
+     */
+    private int track(Trackable trackable) {
+        int id = getId(trackable);
+        if ((id < 0) && (trackable.getTrackingState() == TrackingState.TRACKING)) {
+            id = newId();
+            mIds.put(trackable, id);
+        }
+        return id;
+    }
+
+    private static GVRTrackingState convert(TrackingState state) {
+        if (state == TrackingState.TRACKING) {
+            return GVRTrackingState.TRACKING;
+        } else if (state == TrackingState.PAUSED) {
+            return GVRTrackingState.PAUSED;
+        }
+        return GVRTrackingState.STOPPED;
+    }
+}
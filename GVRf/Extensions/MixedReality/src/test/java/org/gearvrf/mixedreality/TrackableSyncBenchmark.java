@@ -0,0 +1,324 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the time and the memory allocated per frame to synchronize the
+ * trackables of a long AR session: the per-frame maps and arrays the ARCore
+ * helper used before {@link TrackableSync}, the sync fed directly, and the
+ * sync fed by a recording played back from memory. It runs on a desktop
+ * JVM, with the unit tests on the class path:
+ * <pre>
+ *     java org.gearvrf.mixedreality.TrackableSyncBenchmark [frames]
+ * </pre>
+ * Allocations are only measured on JVMs with com.sun.management.
+ */
+final class TrackableSyncBenchmark {
+    static final int PLANES = 40;
+    static final int IMAGES = 4;
+    static final int ANCHORS = 60;
+
+    private static Object sThreadBean;
+    private static Method sAllocatedBytes;
+
+    private TrackableSyncBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final int frames = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+
+        for (int pass = 0; pass < 3; ++pass) {
+            final boolean report = (pass == 2);
+            runLegacy(frames, report);
+            runSync(frames, report);
+            runReplay(frames, report);
+        }
+    }
+
+    static void runLegacy(int frames, boolean report) {
+        final LegacySync legacy = new LegacySync();
+        final TrackableSync.Record scratch = new TrackableSync.Record();
+        final float[] converted = new float[16];
+        final long bytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        for (int frame = 0; frame < frames; ++frame) {
+            legacy.update(frame, scratch, converted);
+        }
+        print(report, "per-frame maps and arrays", frames, start, bytes, legacy.mEvents);
+    }
+
+    static void runSync(int frames, boolean report) throws IOException {
+        final TrackableSync sync = new TrackableSync();
+        final SyntheticSource source = new SyntheticSource(frames);
+        final Consumer consumer = new Consumer();
+        final long bytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        while (source.update(sync)) {
+            sync.dispatch(consumer);
+            consumer.convert(sync);
+        }
+        print(report, "trackable sync", frames, start, bytes, consumer.mEvents);
+    }
+
+    static void runReplay(int frames, boolean report) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final TrackableRecording.Recorder recorder = new TrackableRecording.Recorder(
+                new SyntheticSource(frames), out);
+        final TrackableSync recorded = new TrackableSync();
+        while (recorder.update(recorded)) {
+        }
+        recorder.close();
+
+        final TrackableSync sync = new TrackableSync();
+        final TrackableRecording.Player player = new TrackableRecording.Player(
+                new ByteArrayInputStream(out.toByteArray()));
+        final Consumer consumer = new Consumer();
+        final long bytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        while (player.update(sync)) {
+            sync.dispatch(consumer);
+            consumer.convert(sync);
+        }
+        print(report, "replay of " + (out.size() / 1024) + " KB", frames, start, bytes,
+                consumer.mEvents);
+    }
+
+    private static void print(boolean report, String name, int frames, long start, long bytes,
+                              int events) {
+        final long time = System.nanoTime() - start;
+        final long allocated = allocatedBytes() - bytes;
+        if (!report) {
+            return;
+        }
+        System.out.println(String.format("%-28s %8.2f us/frame %10s B/frame %8d events",
+                name, time / 1000.0 / frames,
+                (bytes < 0) ? "?" : String.format("%.1f", (double) allocated / frames),
+                events));
+    }
+
+    /**
+     * @return the bytes allocated by the current thread, -1 if unknown
+     */
+    static long allocatedBytes() {
+        try {
+            if (sAllocatedBytes == null) {
+                sThreadBean = Class.forName("java.lang.management.ManagementFactory")
+                        .getMethod("getThreadMXBean").invoke(null);
+                sAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                        .getMethod("getThreadAllocatedBytes", long.class);
+            }
+            return (Long) sAllocatedBytes.invoke(sThreadBean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Fills the state of a trackable in a frame: planes whose pose is refined
+     * every few frames and whose polygon grows, which pause from time to time
+     * and merge, augmented images and mostly still anchors.
+     */
+    static void fill(int index, int frame, TrackableSync.Record record) {
+        final float t = frame / 30.0f;
+        final boolean refined = ((frame + index) % 3) == 0;
+        final int step = refined ? frame : frame - (frame + index) % 3;
+
+        record.type = 0;
+        record.extentX = 0;
+        record.extentZ = 0;
+        record.parentId = -1;
+        record.polygonSize = 0;
+        record.state = (((frame / 300) + index) % 10 == 0)
+                ? GVRTrackingState.PAUSED : GVRTrackingState.TRACKING;
+        setPose(record.pose, index, (index < PLANES + IMAGES) ? step / 30.0f : 0);
+        if (index < PLANES) {
+            final int vertices = 8 + index % 16 + Math.min(frame / 120, 16);
+            final float radius = 0.5f + Math.min(frame / 120, 16) * 0.05f;
+            final float[] polygon = record.ensurePolygon(vertices * 2);
+
+            record.type = index % 3;
+            record.extentX = radius * 2;
+            record.extentZ = radius * 1.5f;
+            for (int i = 0; i < vertices; ++i) {
+                final double angle = i * 2 * Math.PI / vertices;
+                polygon[i * 2] = (float) Math.cos(angle) * radius;
+                polygon[i * 2 + 1] = (float) Math.sin(angle) * radius * 0.75f;
+            }
+            if ((index % 10 == 9) && (frame > 600)) {
+                record.parentId = index - 1;
+            }
+        } else if (index < PLANES + IMAGES) {
+            record.extentX = 0.2f;
+            record.extentZ = 0.3f;
+        } else if ((frame / 900 + index) % 20 == 0) {
+            // Anchors drift once in a while
+            record.pose[12] += t * 0.001f;
+        }
+    }
+
+    private static void setPose(float[] pose, int index, float t) {
+        for (int i = 0; i < 16; ++i) {
+            pose[i] = 0;
+        }
+        pose[0] = 1;
+        pose[5] = 1;
+        pose[10] = 1;
+        pose[15] = 1;
+        pose[12] = (index % 8) - 4 + (float) Math.sin(t + index) * 0.002f;
+        pose[13] = -1.5f + (index / 8) * 0.1f;
+        pose[14] = -2 - (float) Math.cos(t + index) * 0.002f;
+    }
+
+    static int kindOf(int index) {
+        if (index < PLANES) {
+            return TrackableSync.PLANE;
+        }
+        return (index < PLANES + IMAGES) ? TrackableSync.AUGMENTED_IMAGE : TrackableSync.ANCHOR;
+    }
+
+    /**
+     * A recorded session made up on the fly. Augmented images are only
+     * reported every other frame, like ARCore only reports updated images.
+     */
+    static final class SyntheticSource implements ITrackableSource {
+        private final int mFrames;
+        private int mFrame;
+
+        SyntheticSource(int frames) {
+            mFrames = frames;
+        }
+
+        @Override
+        public boolean update(TrackableSync sync) {
+            if (mFrame >= mFrames) {
+                return false;
+            }
+            sync.beginFrame(mFrame * 33333333L);
+            for (int i = 0; i < PLANES + IMAGES + ANCHORS; ++i) {
+                final int kind = kindOf(i);
+                if ((kind == TrackableSync.AUGMENTED_IMAGE) && ((mFrame & 1) != 0)) {
+                    continue;
+                }
+                fill(i, mFrame, sync.edit(i, kind));
+                sync.commit();
+            }
+            ++mFrame;
+            return true;
+        }
+    }
+
+    /**
+     * Does what the ARCore helper does with the changes: counts the events
+     * it would notify, and converts the poses which moved.
+     */
+    static final class Consumer implements TrackableSync.Listener {
+        final float[] mConverted = new float[16];
+        int mEvents;
+
+        @Override
+        public void onTrackableChanged(TrackableSync.Record record, int changes) {
+            mEvents += Integer.bitCount(changes & (TrackableSync.ADDED
+                    | TrackableSync.STATE_CHANGED | TrackableSync.MERGED));
+        }
+
+        void convert(TrackableSync sync) {
+            for (int i = 0; i < sync.getChangedCount(); ++i) {
+                final TrackableSync.Record record = sync.getChanged(i);
+                if ((record.getChanges() & TrackableSync.POSE_CHANGED) != 0) {
+                    multiply(mConverted, record.pose);
+                }
+            }
+        }
+    }
+
+    /**
+     * The previous ARCore helper and plane: trackables kept in maps keyed by
+     * the ARCore objects, a new pose matrix and polygon array for each
+     * trackable each frame, and every pose converted each frame.
+     */
+    static final class LegacySync {
+        final Map<Object, TrackableSync.Record> mTrackables =
+                new HashMap<Object, TrackableSync.Record>();
+        final Object[] mKeys = new Object[PLANES + IMAGES + ANCHORS];
+        int mEvents;
+
+        LegacySync() {
+            for (int i = 0; i < mKeys.length; ++i) {
+                mKeys[i] = new Object();
+            }
+        }
+
+        void update(int frame, TrackableSync.Record scratch, float[] converted) {
+            for (int i = 0; i < mKeys.length; ++i) {
+                if ((kindOf(i) == TrackableSync.AUGMENTED_IMAGE) && ((frame & 1) != 0)) {
+                    continue;
+                }
+                fill(i, frame, scratch);
+                if (!mTrackables.containsKey(mKeys[i])) {
+                    final TrackableSync.Record record = new TrackableSync.Record();
+                    record.id = i;
+                    mTrackables.put(mKeys[i], record);
+                    ++mEvents;
+                }
+            }
+            for (Object key : mTrackables.keySet()) {
+                final TrackableSync.Record record = mTrackables.get(key);
+                final int index = record.id;
+                fill(index, frame, scratch);
+
+                final float[] pose = new float[16];
+                System.arraycopy(scratch.pose, 0, pose, 0, 16);
+                final float[] polygon = new float[scratch.polygonSize];
+                System.arraycopy(scratch.polygon, 0, polygon, 0, polygon.length);
+
+                if (record.state != scratch.state) {
+                    record.state = scratch.state;
+                    ++mEvents;
+                }
+                if ((scratch.parentId >= 0) && (record.parentId < 0)) {
+                    record.parentId = scratch.parentId;
+                    ++mEvents;
+                }
+                multiply(converted, pose);
+            }
+        }
+    }
+
+    /*
+     * Stands for the conversion from the AR world to the GVRf world.
+     */
+    static void multiply(float[] result, float[] pose) {
+        for (int c = 0; c < 4; ++c) {
+            for (int r = 0; r < 4; ++r) {
+                float sum = 0;
+                for (int k = 0; k < 4; ++k) {
+                    sum += pose[k * 4 + r] * pose[c * 4 + k];
+                }
+                result[c * 4 + r] = sum;
+            }
+        }
+    }
+}
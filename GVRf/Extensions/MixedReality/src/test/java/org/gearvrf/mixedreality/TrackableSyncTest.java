@@ -0,0 +1,481 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class TrackableSyncTest {
+    private static final int PLANES = 40;
+    private static final int IMAGES = 4;
+    private static final int ANCHORS = 60;
+
+    private static Object sThreadBean;
+    private static Method sAllocatedBytes;
+
+    private final float[] mPolygon = { 0, 0, 1, 0, 1, 1 };
+
+    @Test
+    public void reportsAddedTrackables() {
+        final TrackableSync sync = new TrackableSync();
+        final Log log = new Log();
+
+        frame(sync, 0, GVRTrackingState.TRACKING, 0, mPolygon, -1);
+        sync.dispatch(log);
+        assertEquals(Arrays.asList("0:31"), log.take());
+        frame(sync, 1, GVRTrackingState.TRACKING, 0, mPolygon, -1);
+        sync.dispatch(log);
+        assertEquals(Arrays.asList("1:31"), log.take());
+    }
+
+    @Test
+    public void unchangedTrackableIsNotReported() {
+        final TrackableSync sync = new TrackableSync();
+        final Log log = new Log();
+
+        frame(sync, 0, GVRTrackingState.TRACKING, 0, mPolygon, -1);
+        frame(sync, 1, GVRTrackingState.TRACKING, 0, mPolygon, -1);
+        frame(sync, 0, GVRTrackingState.TRACKING, 0, mPolygon, -1);
+        sync.dispatch(log);
+        assertEquals(Collections.<String>emptyList(), log.take());
+        assertEquals(0, sync.get(0).getChanges());
+        assertEquals(sync.getGeneration(), sync.get(0).getGeneration());
+        assertEquals(sync.getGeneration() - 1, sync.get(1).getGeneration());
+    }
+
+    @Test
+    public void reportsEachChange() {
+        final TrackableSync sync = new TrackableSync();
+        final Log log = new Log();
+        final float[] polygon = mPolygon.clone();
+
+        frame(sync, 0, GVRTrackingState.TRACKING, 0, polygon, -1);
+        sync.dispatch(log);
+        log.take();
+
+        frame(sync, 0, GVRTrackingState.TRACKING, 0.5f, polygon, -1);
+        sync.dispatch(log);
+        assertEquals(Arrays.asList("0:4"), log.take());
+        assertEquals(0.5f, sync.get(0).pose[12], 0);
+
+        polygon[3] = 0.5f;
+        frame(sync, 0, GVRTrackingState.TRACKING, 0.5f, polygon, -1);
+        sync.dispatch(log);
+        assertEquals(Arrays.asList("0:16"), log.take());
+        frame(sync, 0, GVRTrackingState.TRACKING, 0.5f, Arrays.copyOf(polygon, 4), -1);
+        sync.dispatch(log);
+        assertEquals(Arrays.asList("0:16"), log.take());
+        assertEquals(4, sync.get(0).polygonSize);
+
+        frame(sync, 0, GVRTrackingState.PAUSED, 0.5f, Arrays.copyOf(polygon, 4), 1);
+        sync.dispatch(log);
+        assertEquals(Arrays.asList("0:34"), log.take());
+        frame(sync, 0, GVRTrackingState.PAUSED, 0.5f, Arrays.copyOf(polygon, 4), 1);
+        sync.dispatch(log);
+        assertEquals(Collections.<String>emptyList(), log.take());
+    }
+
+    @Test
+    public void trackableCommittedTwiceInAFrame() {
+        final TrackableSync sync = new TrackableSync();
+        final Log log = new Log();
+
+        frame(sync, 1, GVRTrackingState.TRACKING, 0, mPolygon, -1);
+        sync.dispatch(log);
+        log.take();
+
+        // The first commit changes nothing
+        sync.beginFrame(0);
+        for (GVRTrackingState state : new GVRTrackingState[] {
+                GVRTrackingState.TRACKING, GVRTrackingState.STOPPED }) {
+            final TrackableSync.Record record = sync.edit(1, TrackableSync.ANCHOR);
+            record.state = state;
+            System.arraycopy(sync.get(1).pose, 0, record.pose, 0, 16);
+            System.arraycopy(sync.get(1).polygon, 0, record.ensurePolygon(6), 0, 6);
+            sync.commit();
+        }
+        sync.dispatch(log);
+        assertEquals(Arrays.asList("1:2"), log.take());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void kindCannotChange() {
+        final TrackableSync sync = new TrackableSync();
+
+        frame(sync, 1, GVRTrackingState.TRACKING, 0, mPolygon, -1);
+        sync.beginFrame(0);
+        sync.edit(1, TrackableSync.PLANE).state = GVRTrackingState.STOPPED;
+        sync.commit();
+    }
+
+    @Test
+    public void removedRecordIsPooled() {
+        final TrackableSync sync = new TrackableSync();
+        final Log log = new Log();
+
+        frame(sync, 3, GVRTrackingState.TRACKING, 1, new float[] { 1, 2, 3, 4 }, -1);
+        final TrackableSync.Record removed = sync.get(3);
+        sync.remove(3);
+        sync.dispatch(log);
+        assertEquals(Collections.<String>emptyList(), log.take());
+        assertNull(sync.get(3));
+
+        frame(sync, 40, GVRTrackingState.PAUSED, 2, new float[0], -1);
+        sync.dispatch(log);
+        assertSame(removed, sync.get(40));
+        assertEquals(Arrays.asList("40:31"), log.take());
+        assertEquals(0, removed.polygonSize);
+        assertEquals(2, removed.pose[12], 0);
+        assertEquals(GVRTrackingState.PAUSED, removed.state);
+    }
+
+    /*
+     * A long synthetic session is recorded as it runs, then replayed into a
+     * new sync: both must report the same changes frame by frame and end
+     * with the same records.
+     */
+    @Test
+    public void replayReportsTheSameChanges() throws IOException {
+        final int frames = 3000;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final TrackableRecording.Recorder recorder = new TrackableRecording.Recorder(
+                new SyntheticSource(frames), out);
+        final TrackableSync live = new TrackableSync();
+        final Log liveLog = new Log();
+        while (recorder.update(live)) {
+            live.dispatch(liveLog);
+            liveLog.mChanges.add("frame " + live.getTimestamp());
+        }
+        recorder.close();
+
+        final TrackableRecording.Player player = new TrackableRecording.Player(
+                new ByteArrayInputStream(out.toByteArray()));
+        final TrackableSync replayed = new TrackableSync();
+        final Log replayLog = new Log();
+        while (player.update(replayed)) {
+            replayed.dispatch(replayLog);
+            replayLog.mChanges.add("frame " + replayed.getTimestamp());
+        }
+        assertFalse(player.update(replayed));
+        player.close();
+
+        assertTrue(liveLog.mChanges.size() > frames * 10);
+        assertEquals(liveLog.mChanges, replayLog.mChanges);
+        for (int id = 0; id < PLANES + IMAGES + ANCHORS; ++id) {
+            assertSameRecord(live.get(id), replayed.get(id));
+        }
+    }
+
+    /*
+     * Once every trackable was seen, frames only update records in place.
+     * Allocations are only measured on JVMs with com.sun.management.
+     */
+    @Test
+    public void steadyFramesDoNotAllocate() throws IOException {
+        final int frames = 4000;
+        final TrackableSync sync = new TrackableSync();
+        final SyntheticSource source = new SyntheticSource(frames);
+        final Consumer consumer = new Consumer();
+
+        assumeTrue(allocatedBytes() >= 0);
+        for (int i = 0; i < frames / 2; ++i) {
+            source.update(sync);
+            sync.dispatch(consumer);
+            consumer.convert(sync);
+        }
+        final long bytes = allocatedBytes();
+        while (source.update(sync)) {
+            sync.dispatch(consumer);
+            consumer.convert(sync);
+        }
+        final long allocated = allocatedBytes() - bytes;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        assertTrue(consumer.mEvents > 0);
+    }
+
+    @Test
+    public void truncatedRecordingFails() throws IOException {
+        final byte[] bytes = record(20);
+
+        for (int length = 0; length < bytes.length; length += 7) {
+            try {
+                replay(Arrays.copyOf(bytes, length));
+                fail("truncated to " + length + " bytes");
+            } catch (EOFException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void badMagicFails() throws IOException {
+        final byte[] bytes = record(20);
+
+        bytes[0] = 'X';
+        expectCorrupt(bytes);
+    }
+
+    @Test
+    public void badKindFails() throws IOException {
+        final byte[] bytes = record(20);
+
+        // Kind of the first trackable of the first frame
+        bytes[6 + 4] = 7;
+        expectCorrupt(bytes);
+    }
+
+    @Test
+    public void changesOfATrackableNotAddedFail() throws IOException {
+        final byte[] bytes = record(20);
+
+        bytes[6 + 5] = TrackableSync.POSE_CHANGED;
+        expectCorrupt(bytes);
+    }
+
+    private static byte[] record(int frames) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final TrackableRecording.Recorder recorder = new TrackableRecording.Recorder(
+                new SyntheticSource(frames), out);
+        final TrackableSync recorded = new TrackableSync();
+        while (recorder.update(recorded)) {
+        }
+        recorder.close();
+        return out.toByteArray();
+    }
+
+    private static void replay(byte[] bytes) throws IOException {
+        final TrackableRecording.Player player = new TrackableRecording.Player(
+                new ByteArrayInputStream(bytes));
+        final TrackableSync sync = new TrackableSync();
+        while (player.update(sync)) {
+        }
+    }
+
+    private static void expectCorrupt(byte[] bytes) {
+        try {
+            replay(bytes);
+            fail("corrupt recording replayed");
+        } catch (EOFException e) {
+            fail("corrupt recording reported as truncated");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /*
+     * Reports one trackable in a frame of its own.
+     */
+    private static void frame(TrackableSync sync, int id, GVRTrackingState state, float x,
+                              float[] polygon, int parentId) {
+        sync.beginFrame(0);
+        final TrackableSync.Record record = sync.edit(id, (id == 1)
+                ? TrackableSync.ANCHOR : TrackableSync.PLANE);
+        record.state = state;
+        Arrays.fill(record.pose, 0);
+        record.pose[0] = 1;
+        record.pose[5] = 1;
+        record.pose[10] = 1;
+        record.pose[15] = 1;
+        record.pose[12] = x;
+        System.arraycopy(polygon, 0, record.ensurePolygon(polygon.length), 0, polygon.length);
+        record.parentId = parentId;
+        sync.commit();
+    }
+
+    private static void assertSameRecord(TrackableSync.Record expected,
+                                         TrackableSync.Record actual) {
+        if ((expected == null) || (actual == null)) {
+            assertSame(expected, actual);
+            return;
+        }
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.kind, actual.kind);
+        assertEquals(expected.state, actual.state);
+        assertEquals(expected.type, actual.type);
+        assertTrue(Arrays.equals(expected.pose, actual.pose));
+        assertEquals(expected.extentX, actual.extentX, 0);
+        assertEquals(expected.extentZ, actual.extentZ, 0);
+        assertEquals(expected.parentId, actual.parentId);
+        assertEquals(expected.polygonSize, actual.polygonSize);
+        assertTrue(Arrays.equals(Arrays.copyOf(expected.polygon, expected.polygonSize),
+                                 Arrays.copyOf(actual.polygon, actual.polygonSize)));
+    }
+
+    /**
+     * @return the bytes allocated by the current thread, -1 if unknown
+     */
+    private static long allocatedBytes() {
+        try {
+            if (sAllocatedBytes == null) {
+                sThreadBean = Class.forName("java.lang.management.ManagementFactory")
+                        .getMethod("getThreadMXBean").invoke(null);
+                sAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                        .getMethod("getThreadAllocatedBytes", long.class);
+            }
+            return (Long) sAllocatedBytes.invoke(sThreadBean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static int kindOf(int index) {
+        if (index < PLANES) {
+            return TrackableSync.PLANE;
+        }
+        return (index < PLANES + IMAGES) ? TrackableSync.AUGMENTED_IMAGE : TrackableSync.ANCHOR;
+    }
+
+    /**
+     * Fills the state of a trackable in a frame: planes whose pose is refined
+     * every few frames and whose polygon grows, which pause from time to time
+     * and merge, augmented images and mostly still anchors.
+     */
+    private static void fill(int index, int frame, TrackableSync.Record record) {
+        final float t = frame / 30.0f;
+        final boolean refined = ((frame + index) % 3) == 0;
+        final int step = refined ? frame : frame - (frame + index) % 3;
+
+        record.type = 0;
+        record.extentX = 0;
+        record.extentZ = 0;
+        record.parentId = -1;
+        record.polygonSize = 0;
+        record.state = (((frame / 300) + index) % 10 == 0)
+                ? GVRTrackingState.PAUSED : GVRTrackingState.TRACKING;
+        setPose(record.pose, index, (index < PLANES + IMAGES) ? step / 30.0f : 0);
+        if (index < PLANES) {
+            final int vertices = 8 + index % 16 + Math.min(frame / 120, 16);
+            final float radius = 0.5f + Math.min(frame / 120, 16) * 0.05f;
+            final float[] polygon = record.ensurePolygon(vertices * 2);
+
+            record.type = index % 3;
+            record.extentX = radius * 2;
+            record.extentZ = radius * 1.5f;
+            for (int i = 0; i < vertices; ++i) {
+                final double angle = i * 2 * Math.PI / vertices;
+                polygon[i * 2] = (float) Math.cos(angle) * radius;
+                polygon[i * 2 + 1] = (float) Math.sin(angle) * radius * 0.75f;
+            }
+            if ((index % 10 == 9) && (frame > 600)) {
+                record.parentId = index - 1;
+            }
+        } else if (index < PLANES + IMAGES) {
+            record.extentX = 0.2f;
+            record.extentZ = 0.3f;
+        } else if ((frame / 900 + index) % 20 == 0) {
+            // Anchors drift once in a while
+            record.pose[12] += t * 0.001f;
+        }
+    }
+
+    private static void setPose(float[] pose, int index, float t) {
+        Arrays.fill(pose, 0);
+        pose[0] = 1;
+        pose[5] = 1;
+        pose[10] = 1;
+        pose[15] = 1;
+        pose[12] = (index % 8) - 4 + (float) Math.sin(t + index) * 0.002f;
+        pose[13] = -1.5f + (index / 8) * 0.1f;
+        pose[14] = -2 - (float) Math.cos(t + index) * 0.002f;
+    }
+
+    /**
+     * A session made up on the fly. Augmented images are only reported
+     * every other frame, like ARCore only reports updated images.
+     */
+    private static final class SyntheticSource implements ITrackableSource {
+        private final int mFrames;
+        private int mFrame;
+
+        SyntheticSource(int frames) {
+            mFrames = frames;
+        }
+
+        @Override
+        public boolean update(TrackableSync sync) {
+            if (mFrame >= mFrames) {
+                return false;
+            }
+            sync.beginFrame(mFrame * 33333333L);
+            for (int i = 0; i < PLANES + IMAGES + ANCHORS; ++i) {
+                final int kind = kindOf(i);
+                if ((kind == TrackableSync.AUGMENTED_IMAGE) && ((mFrame & 1) != 0)) {
+                    continue;
+                }
+                fill(i, mFrame, sync.edit(i, kind));
+                sync.commit();
+            }
+            ++mFrame;
+            return true;
+        }
+    }
+
+    /**
+     * Does what the ARCore helper does with the changes: counts the events
+     * it would notify, and reads the poses which moved.
+     */
+    private static final class Consumer implements TrackableSync.Listener {
+        final float[] mPose = new float[16];
+        int mEvents;
+
+        @Override
+        public void onTrackableChanged(TrackableSync.Record record, int changes) {
+            mEvents += Integer.bitCount(changes & (TrackableSync.ADDED
+                    | TrackableSync.STATE_CHANGED | TrackableSync.MERGED));
+        }
+
+        void convert(TrackableSync sync) {
+            for (int i = 0; i < sync.getChangedCount(); ++i) {
+                final TrackableSync.Record record = sync.getChanged(i);
+                if ((record.getChanges() & TrackableSync.POSE_CHANGED) != 0) {
+                    System.arraycopy(record.pose, 0, mPose, 0, 16);
+                }
+            }
+        }
+    }
+
+    private static final class Log implements TrackableSync.Listener {
+        final List<String> mChanges = new ArrayList<String>();
+
+        @Override
+        public void onTrackableChanged(TrackableSync.Record record, int changes) {
+            mChanges.add(record.id + ":" + changes);
+        }
+
+        List<String> take() {
+            final List<String> changes = new ArrayList<String>(mChanges);
+            mChanges.clear();
+            return changes;
+        }
+    }
+}
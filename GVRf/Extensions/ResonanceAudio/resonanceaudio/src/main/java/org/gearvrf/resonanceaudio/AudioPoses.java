@@ -0,0 +1,83 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.resonanceaudio;
+
+import org.joml.Quaternionf;
+
+import java.util.Arrays;
+
+/**
+ * The pose of the head and the positions of the playing sources
+ * captured on the rendering thread for one audio update.
+ * <p>
+ * The {@link GVRAudioManager} keeps three of these: one the rendering
+ * thread fills, the last one it filled, and the one the audio thread
+ * reads. They are only swapped under a lock, so neither thread waits
+ * for the other to capture or to update the engine.
+ */
+final class AudioPoses
+{
+    final Quaternionf mHeadRotation = new Quaternionf();
+    final float[] mHeadPosition = new float[3];
+    private AudioVoice[] mVoices = new AudioVoice[16];
+    private float[] mPositions = new float[16 * 3];
+    private int mCount = 0;
+
+    /*
+     * Forgets the positions of the last capture.
+     */
+    void clear()
+    {
+        Arrays.fill(mVoices, 0, mCount, null);
+        mCount = 0;
+    }
+
+    /*
+     * Records where a source is.
+     */
+    void add(AudioVoice voice, float x, float y, float z)
+    {
+        if (mCount >= mVoices.length)
+        {
+            mVoices = Arrays.copyOf(mVoices, mCount * 2);
+            mPositions = Arrays.copyOf(mPositions, mCount * 2 * 3);
+        }
+        final int k = mCount * 3;
+
+        mVoices[mCount++] = voice;
+        mPositions[k] = x;
+        mPositions[k + 1] = y;
+        mPositions[k + 2] = z;
+    }
+
+    int getCount()
+    {
+        return mCount;
+    }
+
+    /*
+     * Moves the voices to the positions captured.
+     * Called with the lock of the audio manager held.
+     */
+    void apply()
+    {
+        for (int i = 0; i < mCount; ++i)
+        {
+            final int k = i * 3;
+            mVoices[i].setPosition(mPositions[k], mPositions[k + 1], mPositions[k + 2]);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.resonanceaudio;
+
+/**
+ * The playback state of a {@link GVRAudioSource} and the voice
+ * the {@link GVRAudioManager} gives it.
+ * <p>
+ * A playing source has a voice which is either real, played by the
+ * audio engine, or virtual: paused in the engine, or not started yet.
+ * A virtual voice keeps time, so a sound which is not looped ends when
+ * it would have ended had it been heard. The engine cannot seek, so a
+ * sound which becomes real again resumes where it was paused, and is
+ * stopped when its time is up. A sound whose length the engine cannot
+ * tell is stopped instead of becoming virtual, unless it is looped.
+ * <p>
+ * The methods which take an engine are called with the
+ * lock of the audio manager held.
+ */
+final class AudioVoice
+{
+    static final int VOICE_NONE = 0;
+    static final int VOICE_REAL = 1;
+    static final int VOICE_VIRTUAL = 2;
+
+    private volatile String mSoundFile = null;
+    private volatile int mSourceId = IAudioEngine.INVALID_ID;
+    private volatile float mVolume = 1;
+    private volatile float mPriority = 1;
+    private volatile float mReferenceDistance = 1;
+    private boolean mLoop = false;
+
+    private boolean mPlaying = false;
+    private boolean mPaused = false;
+    private boolean mStarted = false;
+    // playSound or resumeSound was called since the last engine update
+    private boolean mStartPending = false;
+    private int mVoice = VOICE_NONE;
+    private float mGain = 0;
+    private float mEngineVolume = -1;
+    private float mDuration = 0;
+    private float mTime = 0;
+    private final float[] mPosition = new float[3];
+    private final float[] mEnginePosition = new float[3];
+
+    String getSoundFile()
+    {
+        return mSoundFile;
+    }
+
+    void setSoundFile(String soundFile)
+    {
+        mSoundFile = soundFile;
+    }
+
+    int getSourceId()
+    {
+        return mSourceId;
+    }
+
+    float getVolume()
+    {
+        return mVolume;
+    }
+
+    float getPriority()
+    {
+        return mPriority;
+    }
+
+    void setPriority(float priority)
+    {
+        mPriority = Math.max(0, priority);
+    }
+
+    float getReferenceDistance()
+    {
+        return mReferenceDistance;
+    }
+
+    void setReferenceDistance(float distance)
+    {
+        mReferenceDistance = Math.max(0.0001f, distance);
+    }
+
+    int getVoice()
+    {
+        return mVoice;
+    }
+
+    /*
+     * Gets how long the sound has played, heard or not, in seconds.
+     */
+    float getTime()
+    {
+        return mTime;
+    }
+
+    boolean isPlaying()
+    {
+        return mPlaying && !mPaused;
+    }
+
+    /*
+     * Determines whether the source wants to be heard.
+     */
+    boolean isActive()
+    {
+        return mPlaying && !mPaused && (mSoundFile != null);
+    }
+
+    void setPosition(float x, float y, float z)
+    {
+        mPosition[0] = x;
+        mPosition[1] = y;
+        mPosition[2] = z;
+    }
+
+    /*
+     * Starts playing from the beginning, unless the sound
+     * is already playing. The caller then gives it a voice.
+     */
+    void play(IAudioEngine engine, boolean looped)
+    {
+        mLoop = looped;
+        if (!mPlaying)
+        {
+            mTime = 0;
+            mDuration = engine.getSoundDuration(mSoundFile);
+        }
+        mPlaying = true;
+        mPaused = false;
+    }
+
+    void pause(IAudioEngine engine)
+    {
+        mPaused = true;
+        if (mVoice == VOICE_REAL)
+        {
+            engine.pauseSound(mSourceId);
+            mVoice = VOICE_VIRTUAL;
+            mGain = 0;
+        }
+    }
+
+    /*
+     * Resumes a paused sound.
+     * @return true if the caller should give it a voice again
+     */
+    boolean resume()
+    {
+        if (!mPlaying || !mPaused)
+        {
+            return false;
+        }
+        mPaused = false;
+        return true;
+    }
+
+    /*
+     * Stops the sound and destroys its sound object.
+     */
+    void stop(IAudioEngine engine)
+    {
+        if (mSourceId != IAudioEngine.INVALID_ID)
+        {
+            engine.stopSound(mSourceId);
+            mSourceId = IAudioEngine.INVALID_ID;
+        }
+        mPlaying = false;
+        mPaused = false;
+        mStarted = false;
+        mStartPending = false;
+        mVoice = VOICE_NONE;
+        mGain = 0;
+    }
+
+    void setVolume(IAudioEngine engine, float volume)
+    {
+        mVolume = volume;
+        if ((engine != null) && (mVoice == VOICE_REAL))
+        {
+            pushVolume(engine);
+        }
+    }
+
+    /*
+     * How loud the source would be at the listener, without the
+     * direction or the environment: the volume scaled by the
+     * priority, falling off with the inverse of the distance
+     * past the reference distance.
+     */
+    float getAudibility(float headX, float headY, float headZ)
+    {
+        final float dx = mPosition[0] - headX;
+        final float dy = mPosition[1] - headY;
+        final float dz = mPosition[2] - headZ;
+        final float d = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return mVolume * mPriority * mReferenceDistance / Math.max(d, mReferenceDistance);
+    }
+
+    /*
+     * Advances the clock of a playing voice, real or virtual, and
+     * stops a sound which is not looped once its time is up.
+     * @return true if the sound ended
+     */
+    boolean advance(IAudioEngine engine, float elapsed)
+    {
+        mTime += elapsed;
+        if (!mLoop && (mDuration > 0) && (mTime >= mDuration))
+        {
+            stop(engine);
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Called after the engine applied the calls made to it.
+     */
+    void onEngineUpdated()
+    {
+        mStartPending = false;
+    }
+
+    /*
+     * Makes the voice real, creating and starting the sound object
+     * if needed. The voice starts at the given gain.
+     */
+    boolean makeReal(IAudioEngine engine, float gain)
+    {
+        int sourceId = mSourceId;
+        if (sourceId == IAudioEngine.INVALID_ID)
+        {
+            sourceId = engine.createSoundObject(mSoundFile);
+            if (sourceId == IAudioEngine.INVALID_ID)
+            {
+                return false;
+            }
+            mSourceId = sourceId;
+            mStarted = false;
+        }
+        mGain = gain;
+        mEngineVolume = -1;
+        pushVolume(engine);
+        pushPosition(engine, true);
+        if (mStarted)
+        {
+            engine.resumeSound(sourceId);
+        }
+        else
+        {
+            engine.playSound(sourceId, mLoop);
+            mStarted = true;
+        }
+        mStartPending = true;
+        mVoice = VOICE_REAL;
+        return true;
+    }
+
+    /*
+     * Moves the voice one step towards being real or virtual,
+     * fading it by the given amount of gain.
+     */
+    void updateVoice(IAudioEngine engine, boolean real, float fadeStep)
+    {
+        if (real)
+        {
+            if ((mVoice != VOICE_REAL) && !makeReal(engine, 0))
+            {
+                return;
+            }
+            mGain = Math.min(1, mGain + fadeStep);
+        }
+        else if (mVoice == VOICE_REAL)
+        {
+            mGain = Math.max(0, mGain - fadeStep);
+            if (mGain <= 0)
+            {
+                makeVirtual(engine);
+                return;
+            }
+        }
+        else
+        {
+            makeVirtual(engine);
+            return;
+        }
+        if (!mLoop && !mStartPending && !engine.isSoundPlaying(mSourceId))
+        {
+            // The sound ended, the sound object can be played again
+            mPlaying = false;
+            mStarted = false;
+            mVoice = VOICE_NONE;
+            mGain = 0;
+            return;
+        }
+        pushVolume(engine);
+        pushPosition(engine, false);
+    }
+
+    private void makeVirtual(IAudioEngine engine)
+    {
+        if (!mLoop && (mDuration <= 0))
+        {
+            // Without its length the end of the sound cannot be told
+            stop(engine);
+            return;
+        }
+        if (mVoice == VOICE_REAL)
+        {
+            engine.pauseSound(mSourceId);
+        }
+        mVoice = VOICE_VIRTUAL;
+        mGain = 0;
+    }
+
+    private void pushVolume(IAudioEngine engine)
+    {
+        final float volume = mVolume * mGain;
+        if (volume != mEngineVolume)
+        {
+            engine.setSoundVolume(mSourceId, volume);
+            mEngineVolume = volume;
+        }
+    }
+
+    private void pushPosition(IAudioEngine engine, boolean force)
+    {
+        if (force ||
+            (mPosition[0] != mEnginePosition[0]) ||
+            (mPosition[1] != mEnginePosition[1]) ||
+            (mPosition[2] != mEnginePosition[2]))
+        {
+            engine.setSoundObjectPosition(mSourceId, mPosition[0], mPosition[1], mPosition[2]);
+            System.arraycopy(mPosition, 0, mEnginePosition, 0, 3);
+        }
+    }
+}
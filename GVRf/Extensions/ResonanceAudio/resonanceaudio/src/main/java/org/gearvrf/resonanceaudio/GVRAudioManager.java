@@ -16,8 +16,9 @@
 package org.gearvrf.resonanceaudio;
 
 import android.app.Activity;
-
-import com.google.vr.sdk.audio.GvrAudioEngine;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
 
 import org.gearvrf.GVRCameraRig;
 import org.gearvrf.GVRContext;
@@ -38,27 +39,99 @@ import java.util.List;
  * the audio source is attached to. The audio manager also
  * tracks the head transform so the sound will be spatially
  * correct.
+ * <p>
+ * Only the most audible sources are played by the audio engine.
+ * Each frame the rendering thread records where the head and the
+ * sources are. An audio thread then ranks the playing sources by
+ * their volume, priority and distance, gives real voices to the
+ * most audible ones, up to {@link #setMaxVoices(int)}, and makes
+ * the others virtual. Voices changing between real and virtual
+ * are faded in and out. The audio thread updates the engine at a
+ * fixed rate and stops while the application is paused.
+ * <p>
+ * The rendering thread never waits for the audio thread: it records
+ * the poses into a buffer of its own and swaps it with the last one
+ * recorded under a lock held for no longer than that. The audio
+ * thread takes the latest poses the same way before it updates the
+ * engine.
  */
 public class GVRAudioManager extends GVREventListeners.ActivityEvents
         implements GVRDrawFrameListener
 {
     private static final String TAG = GVRAudioManager.class.getSimpleName();
+    // A real voice keeps its place unless a virtual one is this much more audible
+    private static final float REAL_VOICE_BONUS = 1.25f;
 
     private final List<GVRAudioSource> mAudioSources;
+    private final List<AudioVoice> mVoices;
 
-    private final GvrAudioEngine mAudioEngine;
+    private final IAudioEngine mAudioEngine;
 
     private final GVRContext mContext;
 
     private boolean mEnabled = false;
 
+    private int mMaxVoices = 16;
+    private float mAudibilityThreshold = 0.001f;
+    private float mFadeTime = 0.25f;
+    private float mUpdateRate = 60;
+    private int mRealVoices = 0;
+    private int mVirtualVoices = 0;
+    private float[] mScores = new float[16];
+    private int[] mOrder = new int[16];
+
+    // Sources whose positions the rendering thread records
+    private volatile GVRAudioSource[] mSourceArray = new GVRAudioSource[0];
+    // Poses being recorded, last recorded and used by the audio thread, swapped under mPoseLock
+    private final Object mPoseLock = new Object();
+    private AudioPoses mCapturingPoses = new AudioPoses();
+    private AudioPoses mCapturedPoses = new AudioPoses();
+    private AudioPoses mUpdatePoses = new AudioPoses();
+    private boolean mNewPoses = false;
+
+    private HandlerThread mAudioThread = null;
+    private volatile Handler mAudioHandler = null;
+    private long mNextUpdate = 0;
+    private final Runnable mUpdateTask = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            final Handler handler = mAudioHandler;
+            if (handler == null)
+            {
+                return;
+            }
+            final long period = getUpdatePeriod();
+            updateVoices(period / 1000.0f);
+            mNextUpdate += period;
+            final long now = SystemClock.uptimeMillis();
+            if (mNextUpdate <= now)
+            {
+                // Fell behind, skip the missed updates
+                mNextUpdate = now + period;
+            }
+            handler.postAtTime(this, mNextUpdate);
+        }
+    };
+
 
     public GVRAudioManager(GVRContext context)
+    {
+        this(context, new GvrAudioEngineAdapter(context.getActivity()));
+    }
+
+    /**
+     * Makes an audio manager playing sound with a given engine.
+     * @param context   context of the application
+     * @param engine    spatial audio engine to use
+     */
+    public GVRAudioManager(GVRContext context, IAudioEngine engine)
     {
         mContext = context;
         mAudioSources = new ArrayList<>();
-        mAudioEngine = new GvrAudioEngine(context.getActivity(),
-                                          GvrAudioEngine.RenderingMode.BINAURAL_HIGH_QUALITY);
+        mVoices = new ArrayList<>();
+        mAudioEngine = engine;
         mAudioEngine.pause();
     }
 
@@ -80,9 +153,11 @@ public class GVRAudioManager extends GVREventListeners.ActivityEvents
             mContext.registerDrawFrameListener(this);
             mContext.getApplication().getEventReceiver().addListener(this);
             mAudioEngine.resume();
+            startAudioThread();
         }
         else
         {
+            stopAudioThread();
             mContext.unregisterDrawFrameListener(this);
             mContext.getApplication().getEventReceiver().removeListener(this);
             mAudioEngine.pause();
@@ -98,6 +173,98 @@ public class GVRAudioManager extends GVREventListeners.ActivityEvents
         return mEnabled;
     }
 
+    /**
+     * Sets the largest number of sources the audio engine plays at once.
+     * The other playing sources have virtual voices until they are among
+     * the most audible ones again.
+     * @param maxVoices maximum number of real voices, 16 by default
+     */
+    public void setMaxVoices(int maxVoices)
+    {
+        synchronized (mAudioSources)
+        {
+            mMaxVoices = Math.max(0, maxVoices);
+        }
+    }
+
+    public int getMaxVoices()
+    {
+        return mMaxVoices;
+    }
+
+    /**
+     * Sets how audible a source must be to get a real voice.
+     * Sources further away or quieter than this are virtual
+     * even if there are real voices left.
+     * @param threshold lowest audibility of a real voice
+     * @see GVRAudioSource#setReferenceDistance(float)
+     */
+    public void setAudibilityThreshold(float threshold)
+    {
+        synchronized (mAudioSources)
+        {
+            mAudibilityThreshold = Math.max(0, threshold);
+        }
+    }
+
+    public float getAudibilityThreshold()
+    {
+        return mAudibilityThreshold;
+    }
+
+    /**
+     * Sets how long a voice takes to fade in when it becomes real
+     * and to fade out when it becomes virtual.
+     * @param seconds fade time, 0.25 seconds by default
+     */
+    public void setFadeTime(float seconds)
+    {
+        synchronized (mAudioSources)
+        {
+            mFadeTime = Math.max(0, seconds);
+        }
+    }
+
+    public float getFadeTime()
+    {
+        return mFadeTime;
+    }
+
+    /**
+     * Sets how often the audio thread updates the voices and the engine.
+     * @param hertz updates per second, 60 by default
+     */
+    public void setUpdateRate(float hertz)
+    {
+        synchronized (mAudioSources)
+        {
+            mUpdateRate = Math.max(1, hertz);
+        }
+    }
+
+    public float getUpdateRate()
+    {
+        return mUpdateRate;
+    }
+
+    /**
+     * Gets the number of sources played by the audio engine
+     * after the last update.
+     */
+    public int getRealVoiceCount()
+    {
+        return mRealVoices;
+    }
+
+    /**
+     * Gets the number of playing sources which were not
+     * audible enough to be played after the last update.
+     */
+    public int getVirtualVoiceCount()
+    {
+        return mVirtualVoices;
+    }
+
     /**
      * Adds an audio source to the audio manager.
      * An audio source cannot be played unless it is
@@ -113,6 +280,8 @@ public class GVRAudioManager extends GVREventListeners.ActivityEvents
             {
                 audioSource.setListener(this);
                 mAudioSources.add(audioSource);
+                addVoice(audioSource.getAudioVoice());
+                updateSourceArray();
             }
         }
     }
@@ -126,7 +295,11 @@ public class GVRAudioManager extends GVREventListeners.ActivityEvents
         synchronized (mAudioSources)
         {
             audioSource.setListener(null);
-            mAudioSources.remove(audioSource);
+            if (mAudioSources.remove(audioSource))
+            {
+                removeVoice(audioSource.getAudioVoice());
+                updateSourceArray();
+            }
         }
     }
 
@@ -159,73 +332,293 @@ public class GVRAudioManager extends GVREventListeners.ActivityEvents
                 source.setListener(null);
             }
             mAudioSources.clear();
+            mVoices.clear();
+            updateSourceArray();
         }
     }
 
+    /*
+     * Copies the sources for the rendering thread.
+     * Called with the lock held.
+     */
+    private void updateSourceArray()
+    {
+        mSourceArray = mAudioSources.toArray(new GVRAudioSource[mAudioSources.size()]);
+    }
+
+    /*
+     * Adds the voice of a source to the voices updated.
+     * Called with the lock held.
+     */
+    void addVoice(AudioVoice voice)
+    {
+        mVoices.add(voice);
+    }
+
+    void removeVoice(AudioVoice voice)
+    {
+        mVoices.remove(voice);
+    }
+
     /**
-     * Gets the underlying GvrAudioEngine
-     * @return GvrAudioEngine for this audio manager
+     * Gets the underlying audio engine
+     * @return audio engine for this audio manager
      */
-    GvrAudioEngine getAudioEngine()
+    IAudioEngine getAudioEngine()
     {
         return mAudioEngine;
     }
 
-    private void pause()
+    /*
+     * Lock guarding the engine and the voice state of the sources.
+     */
+    Object getLock()
+    {
+        return mAudioSources;
+    }
+
+    /*
+     * Gives a source which starts playing a real voice at full volume
+     * right away if there is one left, otherwise it is virtual until
+     * the next update ranks it. Called with the lock held.
+     */
+    void startVoice(AudioVoice voice)
     {
-        mAudioEngine.pause();
+        int real = 0;
+
+        if (voice.getVoice() == AudioVoice.VOICE_REAL)
+        {
+            return;
+        }
+        for (int i = 0; i < mVoices.size(); ++i)
+        {
+            if (mVoices.get(i).getVoice() == AudioVoice.VOICE_REAL)
+            {
+                ++real;
+            }
+        }
+        if ((real >= mMaxVoices) || !voice.makeReal(mAudioEngine, 1))
+        {
+            voice.updateVoice(mAudioEngine, false, 1);
+        }
+    }
+
+    private long getUpdatePeriod()
+    {
+        return Math.max(1, Math.round(1000.0 / mUpdateRate));
+    }
+
+    private void startAudioThread()
+    {
+        mAudioThread = new HandlerThread("gvrf-audio");
+        mAudioThread.start();
+        mAudioHandler = new Handler(mAudioThread.getLooper());
+        mNextUpdate = SystemClock.uptimeMillis();
+        mAudioHandler.post(mUpdateTask);
     }
 
-    private void resume()
+    private void stopAudioThread()
     {
-        mAudioEngine.resume();
+        if (mAudioThread != null)
+        {
+            mAudioHandler.removeCallbacks(mUpdateTask);
+            mAudioThread.quitSafely();
+            mAudioThread = null;
+            mAudioHandler = null;
+        }
     }
 
-    private void updateHeadTransform()
+    /*
+     * Records the pose of the head and the positions of the playing
+     * sources for the audio thread. Runs on the rendering thread; it
+     * neither takes the lock of the sources nor calls the audio engine.
+     */
+    private void captureTransforms()
     {
         GVRCameraRig rig = mContext.getMainScene().getMainCameraRig();
         GVRTransform owner = rig.getOwnerObject().getTransform();
-        Quaternionf rotation = new Quaternionf(owner.getRotationX(),
-                                               owner.getRotationY(), owner.getRotationZ(),
-                                               owner.getRotationW());
-
         GVRTransform head = rig.getHeadTransform();
-        rotation.mul(head.getRotationX(),
-                     head.getRotationY(), head.getRotationZ(), head.getRotationW());
+        AudioPoses poses = getCapturePoses();
+        GVRAudioSource[] sources = mSourceArray;
 
-        mAudioEngine.setHeadPosition(owner.getPositionX(),
-                                     owner.getPositionY(), owner.getPositionZ());
-        mAudioEngine.setHeadRotation(rotation.x, rotation.y, rotation.z, rotation.w);
+        poses.mHeadRotation.set(owner.getRotationX(), owner.getRotationY(),
+                                owner.getRotationZ(), owner.getRotationW());
+        poses.mHeadRotation.mul(head.getRotationX(), head.getRotationY(),
+                                head.getRotationZ(), head.getRotationW());
+        poses.mHeadPosition[0] = owner.getPositionX();
+        poses.mHeadPosition[1] = owner.getPositionY();
+        poses.mHeadPosition[2] = owner.getPositionZ();
+        for (GVRAudioSource source : sources)
+        {
+            if (source.getAudioVoice().isActive())
+            {
+                source.capturePosition(poses);
+            }
+        }
+        publishCapturePoses();
     }
 
-    private void update()
+    /*
+     * Gets the poses the rendering thread records into, cleared.
+     */
+    AudioPoses getCapturePoses()
     {
-        if (isEnabled())
+        mCapturingPoses.clear();
+        return mCapturingPoses;
+    }
+
+    /*
+     * Hands the poses recorded to the audio thread, replacing the
+     * ones it has not taken yet.
+     */
+    void publishCapturePoses()
+    {
+        synchronized (mPoseLock)
+        {
+            final AudioPoses captured = mCapturingPoses;
+            mCapturingPoses = mCapturedPoses;
+            mCapturedPoses = captured;
+            mNewPoses = true;
+        }
+    }
+
+    /*
+     * Gets the latest poses recorded for the audio thread.
+     */
+    private AudioPoses takeCapturedPoses()
+    {
+        synchronized (mPoseLock)
+        {
+            if (mNewPoses)
+            {
+                final AudioPoses captured = mCapturedPoses;
+                mCapturedPoses = mUpdatePoses;
+                mUpdatePoses = captured;
+                mNewPoses = false;
+            }
+            return mUpdatePoses;
+        }
+    }
+
+    /**
+     * Advances the clock of the playing voices, ranks them by audibility,
+     * makes the most audible ones real and the others virtual, fades the
+     * voices by one step and updates the audio engine. This is called by
+     * the audio thread; it can be called directly to drive an engine
+     * without the audio thread. The rendering thread does not wait for it.
+     * @param elapsed time since the last update in seconds
+     */
+    void updateVoices(float elapsed)
+    {
+        final AudioPoses poses = takeCapturedPoses();
+        final float[] headPosition = poses.mHeadPosition;
+        final Quaternionf headRotation = poses.mHeadRotation;
+
+        synchronized (mAudioSources)
         {
-            updateHeadTransform();
-            synchronized (mAudioSources)
+            final int n = mVoices.size();
+            final float fadeStep = (mFadeTime > 0) ? (elapsed / mFadeTime) : 1;
+            int numActive = 0;
+
+            if (n > mScores.length)
+            {
+                mScores = new float[n * 2];
+                mOrder = new int[n * 2];
+            }
+            poses.apply();
+            for (int i = 0; i < n; ++i)
+            {
+                AudioVoice voice = mVoices.get(i);
+                if (!voice.isActive() || voice.advance(mAudioEngine, elapsed))
+                {
+                    continue;
+                }
+                float score = voice.getAudibility(headPosition[0], headPosition[1], headPosition[2]);
+                if (voice.getVoice() == AudioVoice.VOICE_REAL)
+                {
+                    score *= REAL_VOICE_BONUS;
+                }
+                // Insertion sort, most audible first; there are few sources
+                int k = numActive++;
+                while ((k > 0) && (mScores[k - 1] < score))
+                {
+                    mScores[k] = mScores[k - 1];
+                    mOrder[k] = mOrder[k - 1];
+                    --k;
+                }
+                mScores[k] = score;
+                mOrder[k] = i;
+            }
+            // Voices fading out still count, so promotions wait for them to finish
+            mRealVoices = 0;
+            for (int k = 0; k < numActive; ++k)
             {
-                for (GVRAudioSource audioSource : mAudioSources)
+                AudioVoice voice = mVoices.get(mOrder[k]);
+                boolean real = (k < mMaxVoices) && (mScores[k] >= mAudibilityThreshold);
+                if (voice.getVoice() == AudioVoice.VOICE_REAL)
                 {
-                    audioSource.updatePosition(mAudioEngine);
+                    voice.updateVoice(mAudioEngine, real, fadeStep);
+                }
+                else if (!real)
+                {
+                    voice.updateVoice(mAudioEngine, false, fadeStep);
+                }
+                if (voice.getVoice() == AudioVoice.VOICE_REAL)
+                {
+                    ++mRealVoices;
                 }
             }
-            // TODO: maybe the following method should not be called from rendering thread
+            for (int k = 0; (k < numActive) && (k < mMaxVoices); ++k)
+            {
+                AudioVoice voice = mVoices.get(mOrder[k]);
+                if ((voice.getVoice() != AudioVoice.VOICE_REAL) &&
+                    (mScores[k] >= mAudibilityThreshold) &&
+                    (mRealVoices < mMaxVoices))
+                {
+                    voice.updateVoice(mAudioEngine, true, fadeStep);
+                    if (voice.getVoice() == AudioVoice.VOICE_REAL)
+                    {
+                        ++mRealVoices;
+                    }
+                }
+            }
+            mVirtualVoices = numActive - mRealVoices;
+            mAudioEngine.setHeadPosition(headPosition[0], headPosition[1], headPosition[2]);
+            mAudioEngine.setHeadRotation(headRotation.x, headRotation.y, headRotation.z, headRotation.w);
             mAudioEngine.update();
+            for (int i = 0; i < n; ++i)
+            {
+                mVoices.get(i).onEngineUpdated();
+            }
         }
     }
 
     @Override
     public void onDrawFrame(float v)
     {
-        update();
+        if (isEnabled())
+        {
+            captureTransforms();
+        }
     }
 
     @Override
     public void onPause()
     {
         super.onPause();
-        pause();
+        stopAudioThread();
+        mAudioEngine.pause();
+    }
+
+    @Override
+    public void onResume()
+    {
+        super.onResume();
+        if (isEnabled() && (mAudioThread == null))
+        {
+            mAudioEngine.resume();
+            startAudioThread();
+        }
     }
 
     @Override
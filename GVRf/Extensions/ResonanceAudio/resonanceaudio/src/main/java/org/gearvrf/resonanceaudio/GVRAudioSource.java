@@ -15,8 +15,6 @@
 
 package org.gearvrf.resonanceaudio;
 
-import com.google.vr.sdk.audio.GvrAudioEngine;
-
 import org.gearvrf.GVRBehavior;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRSceneObject;
@@ -29,15 +27,21 @@ import org.gearvrf.utility.Log;
  * its position from the transform of the scene objects.
  * An audio source must be added to the {@link GVRAudioManager}
  * in order to play it.
+ * <p>
+ * A playing source has a voice, which is either real or virtual.
+ * A real voice is heard and updated by the audio engine. A virtual
+ * voice is paused in the engine, or not started yet, and costs
+ * nothing, but keeps time so that a sound which is not looped
+ * still ends. The audio manager gives the real voices to the most
+ * audible sources and fades voices in and out as they change.
+ * @see GVRAudioManager#setMaxVoices(int)
  */
 public class GVRAudioSource extends GVRBehavior
 {
     static private long TYPE_AUDIO = newComponentType(GVRAudioSource.class);
 
-    private String mSoundFile;
-    private volatile int mSourceId;
+    private final AudioVoice mVoice = new AudioVoice();
     private GVRAudioManager mAudioListener;
-    private float mVolume;
     private boolean mLoop = false;
 
     /**
@@ -51,9 +55,6 @@ public class GVRAudioSource extends GVRBehavior
         mHasFrameCallback = false;
         mType = getComponentType();
         mAudioListener = null;
-        mSoundFile = null;
-        mSourceId = GvrAudioEngine.INVALID_ID;
-        mVolume = 1f;
     }
 
     static public long getComponentType() { return TYPE_AUDIO; }
@@ -77,6 +78,14 @@ public class GVRAudioSource extends GVRBehavior
         mAudioListener = listener;
     }
 
+    /*
+     * Gets the playback state the audio manager updates.
+     */
+    AudioVoice getAudioVoice()
+    {
+        return mVoice;
+    }
+
     /**
      * Preloads a sound file.
      *
@@ -84,11 +93,11 @@ public class GVRAudioSource extends GVRBehavior
      */
     public void load(String soundFile)
     {
-        if (mSoundFile != null)
+        if (mVoice.getSoundFile() != null)
         {
             unload();
         }
-        mSoundFile = soundFile;
+        mVoice.setSoundFile(soundFile);
         if (mAudioListener != null)
         {
             mAudioListener.getAudioEngine().preloadSoundFile(soundFile);
@@ -104,10 +113,10 @@ public class GVRAudioSource extends GVRBehavior
         if (mAudioListener != null)
         {
             Log.d("SOUND", "unloading audio source %d %s", getSourceId(), getSoundFile());
+            stop();
             mAudioListener.getAudioEngine().unloadSoundFile(getSoundFile());
         }
-        mSoundFile = null;
-        mSourceId = GvrAudioEngine.INVALID_ID;
+        mVoice.setSoundFile(null);
     }
 
     /**
@@ -115,15 +124,11 @@ public class GVRAudioSource extends GVRBehavior
      * @return sound file name or null if none
      */
     public String getSoundFile() {
-        return mSoundFile;
+        return mVoice.getSoundFile();
     }
 
     int getSourceId() {
-        return mSourceId;
-    }
-
-    void setSourceId(int sourceId) {
-        mSourceId = sourceId;
+        return mVoice.getSourceId();
     }
 
     @Override
@@ -144,14 +149,73 @@ public class GVRAudioSource extends GVRBehavior
         stop();
     }
 
+    /**
+     * Determines whether the source is playing.
+     * A source with a virtual voice is playing but not heard.
+     * @return true if playing and not paused
+     * @see #isVirtual()
+     */
     public boolean isPlaying()
     {
-        if ((mAudioListener != null) &&
-            (getSourceId() != GvrAudioEngine.INVALID_ID))
+        GVRAudioManager listener = mAudioListener;
+        if (listener == null)
+        {
+            return false;
+        }
+        synchronized (listener.getLock())
         {
-            return mAudioListener.getAudioEngine().isSoundPlaying(getSourceId());
+            return mVoice.isPlaying();
         }
-        return false;
+    }
+
+    /**
+     * Determines whether the source is playing with a virtual voice,
+     * because it is not audible enough to get a real one.
+     * @return true if playing but not heard
+     * @see GVRAudioManager#setMaxVoices(int)
+     */
+    public boolean isVirtual()
+    {
+        GVRAudioManager listener = mAudioListener;
+        if (listener == null)
+        {
+            return false;
+        }
+        synchronized (listener.getLock())
+        {
+            return mVoice.isPlaying() && (mVoice.getVoice() != AudioVoice.VOICE_REAL);
+        }
+    }
+
+    /**
+     * Sets how important this source is compared to others
+     * when the audio manager hands out real voices.
+     * @param priority scale of the audibility of the source, 1 by default
+     */
+    public void setPriority(float priority)
+    {
+        mVoice.setPriority(priority);
+    }
+
+    public float getPriority()
+    {
+        return mVoice.getPriority();
+    }
+
+    /**
+     * Sets the distance within which the source is considered
+     * at full volume when the audio manager hands out real voices.
+     * Further away its audibility decreases with the distance.
+     * @param distance distance in world units, 1 by default
+     */
+    public void setReferenceDistance(float distance)
+    {
+        mVoice.setReferenceDistance(distance);
+    }
+
+    public float getReferenceDistance()
+    {
+        return mVoice.getReferenceDistance();
     }
 
     /**
@@ -182,7 +246,7 @@ public class GVRAudioSource extends GVRBehavior
      */
     public void play(String soundFile, boolean looped)
     {
-        mSoundFile = soundFile;
+        mVoice.setSoundFile(soundFile);
         play();
     }
 
@@ -193,30 +257,13 @@ public class GVRAudioSource extends GVRBehavior
         {
             return;
         }
-        GvrAudioEngine audioEngine = mAudioListener.getAudioEngine();
-        int sourceId = getSourceId();
-        if (sourceId == GvrAudioEngine.INVALID_ID)
-        {
-            sourceId = audioEngine.createSoundObject(fileName);
-        }
-        if (sourceId != GvrAudioEngine.INVALID_ID)
-        {
-            setSourceId(sourceId);
-            audioEngine.setSoundVolume(sourceId, getVolume());
-            updatePosition(audioEngine);
-            audioEngine.playSound(sourceId, mLoop);
-            Log.d("SOUND", "playing audio source %d %s", sourceId, fileName);
-        }
-    }
-
-    void updatePosition(GvrAudioEngine audioEngine)
-    {
-        int sourceId = getSourceId();
-        if (sourceId != GvrAudioEngine.INVALID_ID)
+        synchronized (mAudioListener.getLock())
         {
-            GVRTransform t = getTransform();
-            audioEngine.setSoundObjectPosition(sourceId, t.getPositionX(), t.getPositionY(), t.getPositionZ());
+            capturePosition();
+            mVoice.play(mAudioListener.getAudioEngine(), mLoop);
+            mAudioListener.startVoice(mVoice);
         }
+        Log.d("SOUND", "playing audio source %d %s", getSourceId(), fileName);
     }
 
     /**
@@ -226,10 +273,9 @@ public class GVRAudioSource extends GVRBehavior
     {
         if (mAudioListener != null)
         {
-            int sourceId = getSourceId();
-            if (sourceId != GvrAudioEngine.INVALID_ID)
+            synchronized (mAudioListener.getLock())
             {
-                mAudioListener.getAudioEngine().pauseSound(sourceId);
+                mVoice.pause(mAudioListener.getAudioEngine());
             }
         }
     }
@@ -247,13 +293,13 @@ public class GVRAudioSource extends GVRBehavior
 
     protected void onResume()
     {
-        GvrAudioEngine audioEngine = mAudioListener.getAudioEngine();
-        int sourceId = getSourceId();
-        if (sourceId != GvrAudioEngine.INVALID_ID)
+        synchronized (mAudioListener.getLock())
         {
-            audioEngine.setSoundVolume(sourceId, mVolume);
-            updatePosition(audioEngine);
-            audioEngine.resumeSound(sourceId);
+            if (mVoice.resume())
+            {
+                capturePosition();
+                mAudioListener.startVoice(mVoice);
+            }
         }
     }
 
@@ -265,7 +311,10 @@ public class GVRAudioSource extends GVRBehavior
         if (mAudioListener != null)
         {
             Log.d("SOUND", "stopping audio source %d %s", getSourceId(), getSoundFile());
-            mAudioListener.getAudioEngine().stopSound(getSourceId());
+            synchronized (mAudioListener.getLock())
+            {
+                mVoice.stop(mAudioListener.getAudioEngine());
+            }
         }
     }
 
@@ -275,12 +324,17 @@ public class GVRAudioSource extends GVRBehavior
      */
     public void setVolume(float volume)
     {
-        // Save this in case this audio source is not being played yet
-        mVolume = volume;
-        if (isPlaying() && (getSourceId() != GvrAudioEngine.INVALID_ID))
+        // Saved in case this audio source is not being played yet
+        if (mAudioListener != null)
         {
-            // This will actually work only if the sound file is being played
-            mAudioListener.getAudioEngine().setSoundVolume(getSourceId(), getVolume());
+            synchronized (mAudioListener.getLock())
+            {
+                mVoice.setVolume(mAudioListener.getAudioEngine(), volume);
+            }
+        }
+        else
+        {
+            mVoice.setVolume(null, volume);
         }
     }
 
@@ -290,6 +344,35 @@ public class GVRAudioSource extends GVRBehavior
      * @return 0 to mute and 1 to max.
      */
     public float getVolume() {
-        return mVolume;
+        return mVoice.getVolume();
+    }
+
+    /*
+     * Copies the position of the owner to the voice when it starts.
+     * Called with the lock of the audio manager held.
+     */
+    void capturePosition()
+    {
+        GVRSceneObject owner = getOwnerObject();
+        if (owner != null)
+        {
+            GVRTransform t = owner.getTransform();
+            mVoice.setPosition(t.getPositionX(), t.getPositionY(), t.getPositionZ());
+        }
+    }
+
+    /*
+     * Records the position of the owner for the audio update thread.
+     * Called by the audio manager on the rendering thread, without
+     * its lock.
+     */
+    void capturePosition(AudioPoses poses)
+    {
+        GVRSceneObject owner = getOwnerObject();
+        if (owner != null)
+        {
+            GVRTransform t = owner.getTransform();
+            poses.add(mVoice, t.getPositionX(), t.getPositionY(), t.getPositionZ());
+        }
     }
 }
@@ -0,0 +1,191 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.resonanceaudio;
+
+import android.app.Activity;
+import android.content.res.AssetFileDescriptor;
+import android.media.MediaMetadataRetriever;
+
+import com.google.vr.sdk.audio.GvrAudioEngine;
+
+import org.gearvrf.utility.Log;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Drives the GVR audio engine for the {@link GVRAudioManager}.
+ */
+final class GvrAudioEngineAdapter implements IAudioEngine
+{
+    private static final String TAG = GvrAudioEngineAdapter.class.getSimpleName();
+    private final GvrAudioEngine mEngine;
+    private final Activity mActivity;
+    private final Map<String, Float> mDurations = new HashMap<>();
+
+    GvrAudioEngineAdapter(Activity activity)
+    {
+        mActivity = activity;
+        mEngine = new GvrAudioEngine(activity, GvrAudioEngine.RenderingMode.BINAURAL_HIGH_QUALITY);
+    }
+
+    @Override
+    public boolean preloadSoundFile(String soundFile)
+    {
+        return mEngine.preloadSoundFile(soundFile);
+    }
+
+    @Override
+    public void unloadSoundFile(String soundFile)
+    {
+        mEngine.unloadSoundFile(soundFile);
+    }
+
+    /*
+     * The GVR audio engine does not report the length of a sound, so it is
+     * read from the file, which like for the engine is either an asset
+     * or a path on the device.
+     */
+    @Override
+    public float getSoundDuration(String soundFile)
+    {
+        Float duration = mDurations.get(soundFile);
+        if (duration != null)
+        {
+            return duration;
+        }
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        float seconds = 0;
+        try
+        {
+            AssetFileDescriptor fd = null;
+            try
+            {
+                fd = mActivity.getAssets().openFd(soundFile);
+            }
+            catch (IOException ex)
+            {
+                retriever.setDataSource(soundFile);
+            }
+            if (fd != null)
+            {
+                try
+                {
+                    retriever.setDataSource(fd.getFileDescriptor(), fd.getStartOffset(), fd.getLength());
+                }
+                finally
+                {
+                    fd.close();
+                }
+            }
+            String ms = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
+            if (ms != null)
+            {
+                seconds = Long.parseLong(ms) / 1000.0f;
+            }
+        }
+        catch (Exception ex)
+        {
+            Log.w(TAG, "cannot get the length of %s: %s", soundFile, ex.getMessage());
+        }
+        finally
+        {
+            retriever.release();
+        }
+        mDurations.put(soundFile, seconds);
+        return seconds;
+    }
+
+    @Override
+    public int createSoundObject(String soundFile)
+    {
+        int sourceId = mEngine.createSoundObject(soundFile);
+        return (sourceId == GvrAudioEngine.INVALID_ID) ? INVALID_ID : sourceId;
+    }
+
+    @Override
+    public void setSoundObjectPosition(int sourceId, float x, float y, float z)
+    {
+        mEngine.setSoundObjectPosition(sourceId, x, y, z);
+    }
+
+    @Override
+    public void setSoundVolume(int sourceId, float volume)
+    {
+        mEngine.setSoundVolume(sourceId, volume);
+    }
+
+    @Override
+    public void playSound(int sourceId, boolean looped)
+    {
+        mEngine.playSound(sourceId, looped);
+    }
+
+    @Override
+    public void pauseSound(int sourceId)
+    {
+        mEngine.pauseSound(sourceId);
+    }
+
+    @Override
+    public void resumeSound(int sourceId)
+    {
+        mEngine.resumeSound(sourceId);
+    }
+
+    @Override
+    public void stopSound(int sourceId)
+    {
+        mEngine.stopSound(sourceId);
+    }
+
+    @Override
+    public boolean isSoundPlaying(int sourceId)
+    {
+        return mEngine.isSoundPlaying(sourceId);
+    }
+
+    @Override
+    public void setHeadPosition(float x, float y, float z)
+    {
+        mEngine.setHeadPosition(x, y, z);
+    }
+
+    @Override
+    public void setHeadRotation(float x, float y, float z, float w)
+    {
+        mEngine.setHeadRotation(x, y, z, w);
+    }
+
+    @Override
+    public void update()
+    {
+        mEngine.update();
+    }
+
+    @Override
+    public void pause()
+    {
+        mEngine.pause();
+    }
+
+    @Override
+    public void resume()
+    {
+        mEngine.resume();
+    }
+}
@@ -0,0 +1,81 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.resonanceaudio;
+
+/**
+ * The operations of the spatial audio engine used by the
+ * {@link GVRAudioManager} and its {@link GVRAudioSource}s.
+ * <p>
+ * The audio manager normally drives the GVR audio engine. Another
+ * engine, such as one which only records the calls made to it,
+ * can be given to {@link GVRAudioManager#GVRAudioManager(org.gearvrf.GVRContext, IAudioEngine)}.
+ * The methods are called with the source list of the audio manager
+ * locked, from the application thread or the audio update thread.
+ */
+public interface IAudioEngine
+{
+    /**
+     * Identifier of a sound object that does not exist.
+     */
+    int INVALID_ID = -1;
+
+    boolean preloadSoundFile(String soundFile);
+
+    void unloadSoundFile(String soundFile);
+
+    /**
+     * Gets the length of a sound file, used to tell when a sound
+     * which is not heard would have ended.
+     * @return length in seconds, 0 if unknown
+     */
+    float getSoundDuration(String soundFile);
+
+    /**
+     * Creates a sound object playing a preloaded sound file.
+     * @return identifier of the sound object, {@link #INVALID_ID} on failure
+     */
+    int createSoundObject(String soundFile);
+
+    void setSoundObjectPosition(int sourceId, float x, float y, float z);
+
+    void setSoundVolume(int sourceId, float volume);
+
+    void playSound(int sourceId, boolean looped);
+
+    void pauseSound(int sourceId);
+
+    void resumeSound(int sourceId);
+
+    /**
+     * Stops a sound and destroys its sound object.
+     */
+    void stopSound(int sourceId);
+
+    boolean isSoundPlaying(int sourceId);
+
+    void setHeadPosition(float x, float y, float z);
+
+    void setHeadRotation(float x, float y, float z, float w);
+
+    /**
+     * Applies the changes made since the last update.
+     */
+    void update();
+
+    void pause();
+
+    void resume();
+}
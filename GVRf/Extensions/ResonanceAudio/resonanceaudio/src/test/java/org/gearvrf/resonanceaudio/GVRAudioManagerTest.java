@@ -0,0 +1,313 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.resonanceaudio;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GVRAudioManagerTest
+{
+    /*
+     * Records what the manager asks of the engine. Like the GVR audio
+     * engine, a sound only reports playing once update() applied it.
+     */
+    private static class StubEngine implements IAudioEngine
+    {
+        final Map<String, Float> durations = new HashMap<>();
+        final Map<Integer, Float> volumes = new HashMap<>();
+        final Set<Integer> started = new HashSet<>();
+        final Set<Integer> playing = new HashSet<>();
+        final Set<Integer> paused = new HashSet<>();
+        final Set<Integer> stopped = new HashSet<>();
+        int nextId = 1;
+        int updates = 0;
+
+        public boolean preloadSoundFile(String soundFile) { return true; }
+        public void unloadSoundFile(String soundFile) { }
+
+        public float getSoundDuration(String soundFile)
+        {
+            Float d = durations.get(soundFile);
+            return (d != null) ? d : 0;
+        }
+
+        public int createSoundObject(String soundFile) { return nextId++; }
+        public void setSoundObjectPosition(int sourceId, float x, float y, float z) { }
+        public void setSoundVolume(int sourceId, float volume) { volumes.put(sourceId, volume); }
+        public void playSound(int sourceId, boolean looped) { started.add(sourceId); }
+
+        public void pauseSound(int sourceId)
+        {
+            paused.add(sourceId);
+            playing.remove(sourceId);
+        }
+
+        public void resumeSound(int sourceId)
+        {
+            paused.remove(sourceId);
+            started.add(sourceId);
+        }
+
+        public void stopSound(int sourceId)
+        {
+            stopped.add(sourceId);
+            playing.remove(sourceId);
+        }
+
+        public boolean isSoundPlaying(int sourceId) { return playing.contains(sourceId); }
+        public void setHeadPosition(float x, float y, float z) { }
+        public void setHeadRotation(float x, float y, float z, float w) { }
+
+        public void update()
+        {
+            ++updates;
+            playing.addAll(started);
+            started.clear();
+        }
+
+        public void pause() { }
+        public void resume() { }
+    }
+
+    private StubEngine mEngine;
+    private GVRAudioManager mManager;
+
+    @Before
+    public void setUp()
+    {
+        mEngine = new StubEngine();
+        mManager = new GVRAudioManager(null, mEngine);
+    }
+
+    private AudioVoice play(String file, float x, boolean looped)
+    {
+        AudioVoice voice = new AudioVoice();
+
+        voice.setSoundFile(file);
+        voice.setPosition(x, 0, 0);
+        synchronized (mManager.getLock())
+        {
+            mManager.addVoice(voice);
+            voice.play(mEngine, looped);
+            mManager.startVoice(voice);
+        }
+        return voice;
+    }
+
+    @Test
+    public void mostAudibleVoicesAreReal()
+    {
+        mEngine.durations.put("a.wav", 10f);
+        mManager.setMaxVoices(2);
+        AudioVoice far = play("a.wav", 30, false);
+        AudioVoice near = play("a.wav", 1, false);
+        AudioVoice nearest = play("a.wav", 0.5f, false);
+
+        assertEquals(AudioVoice.VOICE_VIRTUAL, nearest.getVoice());
+        mManager.setFadeTime(0);
+        mManager.updateVoices(0.1f);
+        mManager.updateVoices(0.1f);
+        assertEquals(2, mManager.getRealVoiceCount());
+        assertEquals(1, mManager.getVirtualVoiceCount());
+        assertEquals(AudioVoice.VOICE_REAL, near.getVoice());
+        assertEquals(AudioVoice.VOICE_REAL, nearest.getVoice());
+        assertEquals(AudioVoice.VOICE_VIRTUAL, far.getVoice());
+        assertTrue(mEngine.paused.contains(far.getSourceId()));
+        assertTrue(far.isPlaying());
+    }
+
+    @Test
+    public void voiceFadesOut()
+    {
+        mEngine.durations.put("a.wav", 10f);
+        mManager.setMaxVoices(1);
+        mManager.setFadeTime(1);
+        AudioVoice first = play("a.wav", 20, true);
+        mManager.updateVoices(0.1f);
+        play("a.wav", 1, true);
+
+        mManager.updateVoices(0.25f);
+        assertEquals(AudioVoice.VOICE_REAL, first.getVoice());
+        assertEquals(0.75f, mEngine.volumes.get(first.getSourceId()), 0.0001f);
+        mManager.updateVoices(0.5f);
+        assertEquals(0.25f, mEngine.volumes.get(first.getSourceId()), 0.0001f);
+        mManager.updateVoices(0.5f);
+        assertEquals(AudioVoice.VOICE_VIRTUAL, first.getVoice());
+        assertEquals(1, mManager.getRealVoiceCount());
+    }
+
+    @Test
+    public void virtualVoiceEndsWithItsSound()
+    {
+        mEngine.durations.put("a.wav", 1f);
+        mManager.setMaxVoices(0);
+        AudioVoice voice = play("a.wav", 1, false);
+
+        assertEquals(AudioVoice.VOICE_VIRTUAL, voice.getVoice());
+        mManager.updateVoices(0.5f);
+        assertTrue(voice.isPlaying());
+        assertEquals(0.5f, voice.getTime(), 0.0001f);
+        mManager.updateVoices(0.6f);
+        assertFalse(voice.isPlaying());
+        assertEquals(AudioVoice.VOICE_NONE, voice.getVoice());
+        assertEquals(0, mManager.getVirtualVoiceCount());
+    }
+
+    @Test
+    public void loopedVirtualVoiceKeepsPlaying()
+    {
+        mManager.setMaxVoices(0);
+        AudioVoice voice = play("loop.wav", 1, true);
+
+        for (int i = 0; i < 100; ++i)
+        {
+            mManager.updateVoices(0.1f);
+        }
+        assertTrue(voice.isPlaying());
+        assertEquals(AudioVoice.VOICE_VIRTUAL, voice.getVoice());
+    }
+
+    @Test
+    public void soundIsNotEndedBeforeTheEngineStartsIt()
+    {
+        AudioVoice voice = play("a.wav", 1, false);
+        int id = voice.getSourceId();
+
+        assertEquals(AudioVoice.VOICE_REAL, voice.getVoice());
+        assertFalse(mEngine.isSoundPlaying(id));
+        mManager.updateVoices(0.1f);
+        assertTrue(voice.isPlaying());
+        mManager.updateVoices(0.1f);
+        assertTrue(voice.isPlaying());
+
+        // The engine reports the end of the sound
+        mEngine.playing.remove(id);
+        mManager.updateVoices(0.1f);
+        assertFalse(voice.isPlaying());
+    }
+
+    @Test
+    public void soundOfUnknownLengthStopsWhenVirtual()
+    {
+        mManager.setMaxVoices(1);
+        mManager.setFadeTime(0);
+        AudioVoice far = play("a.wav", 20, false);
+        int id = far.getSourceId();
+        mManager.updateVoices(0.1f);
+        play("a.wav", 1, true);
+
+        mManager.updateVoices(0.1f);
+        assertFalse(far.isPlaying());
+        assertTrue(mEngine.stopped.contains(id));
+        assertEquals(IAudioEngine.INVALID_ID, far.getSourceId());
+    }
+
+    @Test
+    public void pausedVoiceIsNotUpdated()
+    {
+        mEngine.durations.put("a.wav", 1f);
+        AudioVoice voice = play("a.wav", 1, false);
+        int id = voice.getSourceId();
+
+        mManager.updateVoices(0.1f);
+        synchronized (mManager.getLock())
+        {
+            voice.pause(mEngine);
+        }
+        assertTrue(mEngine.paused.contains(id));
+        mManager.updateVoices(2);
+        assertEquals(0.1f, voice.getTime(), 0.0001f);
+        synchronized (mManager.getLock())
+        {
+            assertTrue(voice.resume());
+            mManager.startVoice(voice);
+        }
+        assertEquals(AudioVoice.VOICE_REAL, voice.getVoice());
+        assertFalse(mEngine.paused.contains(id));
+        mManager.updateVoices(0.5f);
+        assertTrue(voice.isPlaying());
+    }
+
+    @Test
+    public void capturedPositionsReachTheVoices()
+    {
+        mEngine.durations.put("a.wav", 10f);
+        mManager.setMaxVoices(1);
+        mManager.setFadeTime(0);
+        AudioVoice near = play("a.wav", 1, false);
+        AudioVoice far = play("a.wav", 30, false);
+
+        mManager.updateVoices(0.1f);
+        assertEquals(AudioVoice.VOICE_REAL, near.getVoice());
+
+        AudioPoses poses = mManager.getCapturePoses();
+        poses.add(near, 40, 0, 0);
+        poses.add(far, 0.5f, 0, 0);
+        mManager.publishCapturePoses();
+        // A later capture replaces the one the audio thread has not taken
+        poses = mManager.getCapturePoses();
+        poses.add(near, 50, 0, 0);
+        poses.add(far, 0.2f, 0, 0);
+        mManager.publishCapturePoses();
+        mManager.updateVoices(0.1f);
+        mManager.updateVoices(0.1f);
+        assertEquals(AudioVoice.VOICE_VIRTUAL, near.getVoice());
+        assertEquals(AudioVoice.VOICE_REAL, far.getVoice());
+        assertEquals(1, far.getAudibility(0, 0, 0), 0);
+        assertEquals(1 / 50.0f, near.getAudibility(0, 0, 0), 0.0001f);
+    }
+
+    /*
+     * The rendering thread records poses while the audio thread
+     * holds the lock of the sources and updates the engine.
+     */
+    @Test(timeout = 10000)
+    public void captureDoesNotWaitForTheUpdate() throws InterruptedException
+    {
+        final AudioVoice voice = play("a.wav", 1, true);
+        final Thread renderThread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < 100; ++i)
+                {
+                    AudioPoses poses = mManager.getCapturePoses();
+                    poses.add(voice, 2, 0, 0);
+                    mManager.publishCapturePoses();
+                }
+            }
+        });
+
+        synchronized (mManager.getLock())
+        {
+            renderThread.start();
+            renderThread.join(5000);
+            assertFalse(renderThread.isAlive());
+        }
+        mManager.updateVoices(0.1f);
+        assertEquals(0.5f, voice.getAudibility(0, 0, 0), 0);
+    }
+}
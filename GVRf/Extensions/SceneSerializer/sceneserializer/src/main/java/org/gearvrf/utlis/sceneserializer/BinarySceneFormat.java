@@ -0,0 +1,51 @@
+package org.gearvrf.utlis.sceneserializer;
+
+/**
+ * Constants of the binary scene format, written by {@link BinarySceneWriter} and read by
+ * {@link BinarySceneReader}.
+ * <p>
+ * A file starts with the magic "GVRS" and the major and minor versions of the format, as two
+ * 16 bit integers. The rest of the file is a sequence of chunks, each made of a four character
+ * tag, the length of its payload as a 32 bit integer and the payload. All numbers are big-endian;
+ * counts, lengths and string indices inside payloads are unsigned LEB128 varints.
+ * <ul>
+ * <li>{@code STRS} adds strings to the string table: their count, then for each one its length
+ * in bytes and its UTF-8 bytes. Index 0 is null, the first string ever added is 1.</li>
+ * <li>{@code ENVR} is the environment: the index of its source and its scale as a float.</li>
+ * <li>{@code OBJS} is a batch of records: their count, then for each record its kind, the length
+ * of the rest of the record and the record. A scene object record has the indices of its name and
+ * of its source, then its components: their count, then for each one its kind, length and
+ * payload. The transform component is the floats of the model matrix, usually 16.</li>
+ * <li>{@code END } ends the file, and is always there unless the file is truncated.</li>
+ * </ul>
+ * Strings are always added before the first chunk which uses them, so a reader can decode every
+ * chunk as soon as it is read. Readers skip the chunks, records and components they don't know;
+ * new ones only bump the minor version. A file with another major version can't be read.
+ */
+final class BinarySceneFormat {
+    static final byte[] MAGIC = { 'G', 'V', 'R', 'S' };
+    static final int VERSION_MAJOR = 1;
+    static final int VERSION_MINOR = 0;
+
+    static final int CHUNK_STRINGS = tag("STRS");
+    static final int CHUNK_ENVIRONMENT = tag("ENVR");
+    static final int CHUNK_OBJECTS = tag("OBJS");
+    static final int CHUNK_END = tag("END ");
+
+    static final int RECORD_SCENE_OBJECT = 1;
+
+    static final int COMPONENT_TRANSFORM = 1;
+
+    private BinarySceneFormat() {
+    }
+
+    static int tag(String name) {
+        return (name.charAt(0) << 24) | (name.charAt(1) << 16) | (name.charAt(2) << 8)
+                | name.charAt(3);
+    }
+
+    static String tagName(int tag) {
+        return new String(new char[] { (char) (tag >>> 24), (char) ((tag >>> 16) & 0xFF),
+                (char) ((tag >>> 8) & 0xFF), (char) (tag & 0xFF) });
+    }
+}
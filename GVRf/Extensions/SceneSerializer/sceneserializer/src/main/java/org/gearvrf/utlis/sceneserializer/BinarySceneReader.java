@@ -0,0 +1,246 @@
+package org.gearvrf.utlis.sceneserializer;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a scene in the {@link BinarySceneFormat binary scene format}, one chunk at a time.
+ * <p>
+ * The environment and every scene object are handed to the {@link Handler} as soon as their
+ * chunk is read, so they can be instantiated while the rest of the file is still being parsed.
+ */
+public class BinarySceneReader implements Closeable {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Receives the content of the scene, in the order of the file.
+     */
+    public interface Handler {
+        void onEnvironment(EnvironmentData environmentData);
+        void onSceneObject(SceneObjectData sceneObjectData);
+    }
+
+    private final DataInputStream in;
+    private final List<String> stringTable = new ArrayList<String>();
+    private byte[] chunk = new byte[4096];
+    private int position;
+    private int limit;
+
+    public BinarySceneReader(InputStream stream) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(stream));
+        stringTable.add(null);
+        if (!hasMagic(in)) {
+            throw new IOException("Not a binary scene");
+        }
+        final int major = in.readUnsignedShort();
+        in.readUnsignedShort();
+        if (major != BinarySceneFormat.VERSION_MAJOR) {
+            throw new IOException("Unsupported binary scene version " + major);
+        }
+    }
+
+    /**
+     * Checks whether a stream starts with a binary scene, without consuming it.
+     *
+     * @param stream A stream which {@linkplain InputStream#markSupported() supports mark}.
+     */
+    public static boolean isBinaryScene(InputStream stream) throws IOException {
+        stream.mark(BinarySceneFormat.MAGIC.length);
+        try {
+            return hasMagic(stream);
+        } finally {
+            stream.reset();
+        }
+    }
+
+    /**
+     * Reads the whole scene.
+     *
+     * @throws EOFException if the file is truncated.
+     * @throws IOException if the file is corrupt.
+     */
+    public void read(Handler handler) throws IOException {
+        while (true) {
+            final int tag = in.readInt();
+            final int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Corrupt binary scene");
+            }
+            if (tag == BinarySceneFormat.CHUNK_END) {
+                return;
+            }
+            if (tag != BinarySceneFormat.CHUNK_STRINGS && tag != BinarySceneFormat.CHUNK_ENVIRONMENT
+                    && tag != BinarySceneFormat.CHUNK_OBJECTS) {
+                skipFully(length);
+                continue;
+            }
+            readChunk(length);
+            try {
+                if (tag == BinarySceneFormat.CHUNK_STRINGS) {
+                    readStrings();
+                } else if (tag == BinarySceneFormat.CHUNK_ENVIRONMENT) {
+                    final String src = getString();
+                    handler.onEnvironment(new EnvironmentData(src, getFloat()));
+                } else {
+                    readObjects(handler);
+                }
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt " + BinarySceneFormat.tagName(tag) + " chunk", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the whole scene into scene data.
+     */
+    public SceneData readScene() throws IOException {
+        final SceneData sceneData = new SceneData();
+        final List<SceneObjectData> sceneObjectDataList = new ArrayList<SceneObjectData>();
+        read(new Handler() {
+            @Override
+            public void onEnvironment(EnvironmentData environmentData) {
+                sceneData.setEnvironmentData(environmentData);
+            }
+
+            @Override
+            public void onSceneObject(SceneObjectData sceneObjectData) {
+                sceneObjectDataList.add(sceneObjectData);
+            }
+        });
+        sceneData.setSceneObjectDataList(sceneObjectDataList);
+        return sceneData;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readStrings() {
+        final int count = getVarint();
+        for (int i = 0; i < count; ++i) {
+            final int length = getVarint();
+            checkRemaining(length);
+            stringTable.add(new String(chunk, position, length, UTF8));
+            position += length;
+        }
+    }
+
+    private void readObjects(Handler handler) {
+        final int count = getVarint();
+        for (int i = 0; i < count; ++i) {
+            final int kind = getByte();
+            final int length = getVarint();
+            checkRemaining(length);
+            final int end = position + length;
+            if (kind == BinarySceneFormat.RECORD_SCENE_OBJECT) {
+                handler.onSceneObject(readSceneObject(end));
+            }
+            position = end;
+        }
+    }
+
+    private SceneObjectData readSceneObject(int end) {
+        final SceneObjectData sod = new SceneObjectData();
+        sod.setName(getString());
+        sod.setSrc(getString());
+        final int components = getVarint();
+        for (int i = 0; i < components; ++i) {
+            final int kind = getByte();
+            final int length = getVarint();
+            final int componentEnd = position + length;
+            if (length < 0 || componentEnd > end) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (kind == BinarySceneFormat.COMPONENT_TRANSFORM) {
+                final float[] matrix = new float[length / 4];
+                for (int j = 0; j < matrix.length; ++j) {
+                    matrix[j] = getFloat();
+                }
+                sod.setModelMatrix(matrix);
+            }
+            position = componentEnd;
+        }
+        return sod;
+    }
+
+    /*
+     * The buffer only grows as the payload is read, so a corrupt length can't make it allocate
+     * more than twice the size of the file.
+     */
+    private void readChunk(int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            if (read == chunk.length) {
+                chunk = Arrays.copyOf(chunk, (int) Math.min(length, 2L * chunk.length));
+            }
+            final int count = Math.min(length, chunk.length) - read;
+            in.readFully(chunk, read, count);
+            read += count;
+        }
+        position = 0;
+        limit = length;
+    }
+
+    private void skipFully(int length) throws IOException {
+        while (length > 0) {
+            final int skipped = in.skipBytes(length);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            length -= skipped;
+        }
+    }
+
+    private void checkRemaining(int length) {
+        if (length < 0 || position + length > limit) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private int getByte() {
+        checkRemaining(1);
+        return chunk[position++] & 0xFF;
+    }
+
+    private float getFloat() {
+        checkRemaining(4);
+        final int bits = ((chunk[position] & 0xFF) << 24) | ((chunk[position + 1] & 0xFF) << 16)
+                | ((chunk[position + 2] & 0xFF) << 8) | (chunk[position + 3] & 0xFF);
+        position += 4;
+        return Float.intBitsToFloat(bits);
+    }
+
+    private int getVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = getByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    private String getString() {
+        return stringTable.get(getVarint());
+    }
+
+    private static boolean hasMagic(InputStream stream) throws IOException {
+        for (byte b : BinarySceneFormat.MAGIC) {
+            if (stream.read() != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
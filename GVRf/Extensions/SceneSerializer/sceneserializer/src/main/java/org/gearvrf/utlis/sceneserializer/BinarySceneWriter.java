@@ -0,0 +1,208 @@
+package org.gearvrf.utlis.sceneserializer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a scene in the {@link BinarySceneFormat binary scene format}, one record at a time.
+ * <p>
+ * Scene objects are written in batches of {@link #OBJECTS_PER_CHUNK}, each one preceded by the
+ * strings it adds to the string table, so the memory used doesn't grow with the scene. The file
+ * is complete once the writer is {@linkplain #close() closed}.
+ */
+public class BinarySceneWriter implements Closeable {
+    static final int OBJECTS_PER_CHUNK = 256;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> stringTable = new HashMap<String, Integer>();
+    private final List<String> newStrings = new ArrayList<String>();
+    private final Buffer strings = new Buffer();
+    private final Buffer objects = new Buffer();
+    private final Buffer record = new Buffer();
+    private int objectCount;
+    private boolean closed;
+
+    public BinarySceneWriter(OutputStream stream) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.write(BinarySceneFormat.MAGIC);
+        out.writeShort(BinarySceneFormat.VERSION_MAJOR);
+        out.writeShort(BinarySceneFormat.VERSION_MINOR);
+    }
+
+    public void writeEnvironment(EnvironmentData environmentData) throws IOException {
+        final Buffer chunk = new Buffer();
+        chunk.putVarint(indexOf(environmentData.getSrc()));
+        chunk.putFloat(environmentData.getScale());
+        flushObjects();
+        writeChunk(BinarySceneFormat.CHUNK_ENVIRONMENT, chunk);
+    }
+
+    public void writeSceneObject(SceneObjectData sceneObjectData) throws IOException {
+        final float[] matrix = sceneObjectData.getModelMatrix();
+
+        record.clear();
+        record.putVarint(indexOf(sceneObjectData.getName()));
+        record.putVarint(indexOf(sceneObjectData.getSrc()));
+        record.putVarint(matrix != null ? 1 : 0);
+        if (matrix != null) {
+            record.putByte(BinarySceneFormat.COMPONENT_TRANSFORM);
+            record.putVarint(4 * matrix.length);
+            for (int i = 0; i < matrix.length; ++i) {
+                record.putFloat(matrix[i]);
+            }
+        }
+        objects.putByte(BinarySceneFormat.RECORD_SCENE_OBJECT);
+        objects.putVarint(record.size());
+        objects.putBytes(record.bytes(), 0, record.size());
+        if (++objectCount == OBJECTS_PER_CHUNK) {
+            flushObjects();
+        }
+    }
+
+    /**
+     * Writes everything the scene data has: the environment, then the scene objects.
+     */
+    public void writeScene(SceneData sceneData) throws IOException {
+        if (sceneData.getEnvironmentData() != null) {
+            writeEnvironment(sceneData.getEnvironmentData());
+        }
+        if (sceneData.getSceneObjectDataList() != null) {
+            for (SceneObjectData sod : sceneData.getSceneObjectDataList()) {
+                writeSceneObject(sod);
+            }
+        }
+    }
+
+    /**
+     * Writes the last objects and the end of the file, and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushObjects();
+            writeChunk(BinarySceneFormat.CHUNK_END, new Buffer());
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushObjects() throws IOException {
+        if (objectCount == 0) {
+            flushStrings();
+            return;
+        }
+        final Buffer chunk = new Buffer();
+        chunk.putVarint(objectCount);
+        chunk.putBytes(objects.bytes(), 0, objects.size());
+        flushStrings();
+        writeChunk(BinarySceneFormat.CHUNK_OBJECTS, chunk);
+        objects.clear();
+        objectCount = 0;
+    }
+
+    private void flushStrings() throws IOException {
+        if (newStrings.isEmpty()) {
+            return;
+        }
+        strings.clear();
+        strings.putVarint(newStrings.size());
+        for (String string : newStrings) {
+            final byte[] bytes = string.getBytes(UTF8);
+            strings.putVarint(bytes.length);
+            strings.putBytes(bytes, 0, bytes.length);
+        }
+        newStrings.clear();
+        writeChunk(BinarySceneFormat.CHUNK_STRINGS, strings);
+    }
+
+    private void writeChunk(int tag, Buffer payload) throws IOException {
+        out.writeInt(tag);
+        out.writeInt(payload.size());
+        out.write(payload.bytes(), 0, payload.size());
+    }
+
+    private int indexOf(String string) {
+        if (string == null) {
+            return 0;
+        }
+        Integer index = stringTable.get(string);
+        if (index == null) {
+            index = stringTable.size() + 1;
+            stringTable.put(string, index);
+            newStrings.add(string);
+        }
+        return index;
+    }
+
+    /*
+     * A growable big-endian byte buffer
+     */
+    private static final class Buffer {
+        private byte[] data = new byte[256];
+        private int size;
+
+        byte[] bytes() {
+            return data;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            data[size++] = (byte) (value >>> 24);
+            data[size++] = (byte) (value >>> 16);
+            data[size++] = (byte) (value >>> 8);
+            data[size++] = (byte) value;
+        }
+
+        void putFloat(float value) {
+            putInt(Float.floatToIntBits(value));
+        }
+
+        void putVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void putBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, data, size, length);
+            size += length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.gearvrf.utlis.sceneserializer;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Converts scenes between the JSON format and the {@link BinarySceneFormat binary format}, one
+ * scene object at a time. The JSON is the same as the one written by {@link SceneSerializer}.
+ * <p>
+ * From the command line, with Gson on the class path, the format of each file is given by its
+ * extension:
+ * <pre>
+ *   java org.gearvrf.utlis.sceneserializer.SceneFormatConverter scene.json scene.gvrscene
+ *   java org.gearvrf.utlis.sceneserializer.SceneFormatConverter scene.gvrscene scene.json
+ * </pre>
+ */
+public class SceneFormatConverter {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String ENVIRONMENT_DATA = "environmentData";
+    private static final String SCENE_OBJECT_DATA_LIST = "sceneObjectDataList";
+
+    private SceneFormatConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: SceneFormatConverter <input> <output>");
+            System.exit(1);
+        }
+        final boolean toBinary = args[1].endsWith(SceneSerializer.BINARY_EXTENSION);
+        final InputStream in = new FileInputStream(new File(args[0]));
+        try {
+            final OutputStream out = new FileOutputStream(new File(args[1]));
+            try {
+                if (toBinary) {
+                    jsonToBinary(new InputStreamReader(in, UTF8), out);
+                } else {
+                    binaryToJson(in, new OutputStreamWriter(out, UTF8));
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Converts a JSON scene to a binary scene, and closes the output.
+     */
+    public static void jsonToBinary(Reader json, OutputStream binary) throws IOException {
+        final Gson gson = new Gson();
+        final JsonReader reader = new JsonReader(new BufferedReader(json));
+        final BinarySceneWriter writer = new BinarySceneWriter(binary);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                } else if (name.equals(ENVIRONMENT_DATA)) {
+                    final EnvironmentData environmentData = gson.fromJson(reader,
+                            EnvironmentData.class);
+                    writer.writeEnvironment(environmentData);
+                } else if (name.equals(SCENE_OBJECT_DATA_LIST)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        final SceneObjectData sod = gson.fromJson(reader, SceneObjectData.class);
+                        writer.writeSceneObject(sod);
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Converts a binary scene to a JSON scene, and flushes the output.
+     */
+    public static void binaryToJson(InputStream binary, Writer json) throws IOException {
+        final JsonWriter writer = new JsonWriter(new BufferedWriter(json));
+        final JsonHandler handler = new JsonHandler(writer);
+
+        writer.beginObject();
+        new BinarySceneReader(binary).read(handler);
+        handler.finish();
+        writer.endObject();
+        writer.flush();
+    }
+
+    /*
+     * Writes the content of a binary scene as the members of a JSON object. The handler can't
+     * throw, so the first error is kept until the end.
+     */
+    private static final class JsonHandler implements BinarySceneReader.Handler {
+        private final Gson gson = new Gson();
+        private final JsonWriter writer;
+        private boolean inList;
+        private IOException error;
+
+        JsonHandler(JsonWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void onEnvironment(EnvironmentData environmentData) {
+            try {
+                endList();
+                writer.name(ENVIRONMENT_DATA);
+                gson.toJson(environmentData, EnvironmentData.class, writer);
+            } catch (IOException e) {
+                keep(e);
+            }
+        }
+
+        @Override
+        public void onSceneObject(SceneObjectData sceneObjectData) {
+            try {
+                if (!inList) {
+                    writer.name(SCENE_OBJECT_DATA_LIST);
+                    writer.beginArray();
+                    inList = true;
+                }
+                gson.toJson(sceneObjectData, SceneObjectData.class, writer);
+            } catch (IOException e) {
+                keep(e);
+            }
+        }
+
+        void finish() throws IOException {
+            if (error != null) {
+                throw error;
+            }
+            endList();
+        }
+
+        private void endList() throws IOException {
+            if (inList) {
+                writer.endArray();
+                inList = false;
+            }
+        }
+
+        private void keep(IOException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+    }
+}
@@ -19,18 +19,26 @@ import org.gearvrf.scene_objects.GVRCubeSceneObject;
 import org.gearvrf.scene_objects.GVRSphereSceneObject;
 import org.gearvrf.utility.Log;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Iterator;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Future;
 
 public class SceneSerializer {
+    /**
+     * Scenes exported to a file with this extension use the {@link BinarySceneFormat binary
+     * format} instead of JSON. Imports detect the format from the content of the file.
+     */
+    public static final String BINARY_EXTENSION = ".gvrscene";
     private static final String TAG = SceneSerializer.class.getSimpleName();
     private static final String DEFAULT_SCENE_NAME = "scene.json";
     private transient static final String CUBEMAP_EXTENSION = ".zip";
@@ -58,18 +66,73 @@ public class SceneSerializer {
     public void importScene(GVRContext gvrContext, GVRScene gvrScene, File location,
                             SceneLoaderListener sceneLoaderListener) {
         this.sceneLoaderListener = sceneLoaderListener;
-        JsonParser parser = new JsonParser();
-        JsonElement jsonElement = null;
+        InputStream stream = null;
         try {
-            jsonElement = parser.parse(new FileReader(location));
+            stream = new BufferedInputStream(new FileInputStream(location));
+            if (BinarySceneReader.isBinaryScene(stream)) {
+                importBinaryScene(gvrContext, gvrScene, stream);
+                return;
+            }
+            JsonParser parser = new JsonParser();
+            JsonElement jsonElement = parser.parse(new InputStreamReader(stream, "UTF-8"));
             sceneData = gson.fromJson(jsonElement,SceneData.class);
         } catch (FileNotFoundException e) {
             Log.d(TAG,"Could not load scene from file");
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read scene file:%s", e.getMessage());
+        } finally {
+            close(stream);
         }
         loadEnvironment(gvrContext, gvrScene);
         loadSceneObjects(gvrContext, gvrScene);
     }
 
+    /*
+     * The environment and the scene objects are loaded as soon as they are read, while the rest
+     * of the file is still being parsed. If the file is corrupt, what was read before stays.
+     */
+    private void importBinaryScene(final GVRContext gvrContext, final GVRScene gvrScene,
+                                   InputStream stream) {
+        sceneData = new SceneData();
+        sceneData.setSceneObjectDataList(new ArrayList<SceneObjectData>());
+        final AssetObserver assetObserver = new AssetObserver(sceneData.getSceneObjectDataList(),
+                gvrContext, gvrScene);
+        final boolean[] environmentLoaded = new boolean[1];
+        gvrContext.getEventReceiver().addListener(assetObserver);
+        assetObserver.startLoading();
+        try {
+            new BinarySceneReader(stream).read(new BinarySceneReader.Handler() {
+                @Override
+                public void onEnvironment(EnvironmentData environmentData) {
+                    sceneData.setEnvironmentData(environmentData);
+                    environmentLoaded[0] = true;
+                    loadEnvironment(gvrContext, gvrScene);
+                }
+
+                @Override
+                public void onSceneObject(SceneObjectData sceneObjectData) {
+                    assetObserver.add(sceneObjectData);
+                }
+            });
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read scene file:%s", e.getMessage());
+        } finally {
+            if (!environmentLoaded[0]) {
+                loadEnvironment(gvrContext, gvrScene);
+            }
+        }
+    }
+
+    private static void close(InputStream stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not close scene file:%s", e.getMessage());
+            }
+        }
+    }
+
     public void exportScene() throws IOException {
         File location = new File(Environment.getExternalStorageDirectory().getAbsolutePath() +
                 File.separator + DEFAULT_SCENE_NAME);
@@ -81,6 +144,15 @@ public class SceneSerializer {
             return;
         }
         sceneData.prepareForExport();
+        if (location.getName().endsWith(BINARY_EXTENSION)) {
+            BinarySceneWriter writer = new BinarySceneWriter(new FileOutputStream(location));
+            try {
+                writer.writeScene(sceneData);
+            } finally {
+                writer.close();
+            }
+            return;
+        }
         String scene = gson.toJson(sceneData);
 
         FileWriter fw = new FileWriter(location);
@@ -185,13 +257,13 @@ public class SceneSerializer {
     }
 
     private class AssetObserver implements IAssetEvents {
-        Collection<SceneObjectData> sceneObjectDatas;
+        List<SceneObjectData> sceneObjectDatas;
         GVRContext context;
         GVRScene scene;
-        Iterator<SceneObjectData> iterator;
+        int nextIndex;
         SceneObjectData currentSod;
 
-        AssetObserver(Collection<SceneObjectData> sceneObjectDatas, GVRContext context, GVRScene
+        AssetObserver(List<SceneObjectData> sceneObjectDatas, GVRContext context, GVRScene
                 scene) {
             this.sceneObjectDatas = sceneObjectDatas;
             this.scene = scene;
@@ -199,10 +271,21 @@ public class SceneSerializer {
         }
 
         void startLoading() {
-            iterator = sceneObjectDatas.iterator();
+            nextIndex = 0;
             loadNextAsset();
         }
 
+        /*
+         * Adds a scene object read after the loading started, and loads it right away if the
+         * previous ones are done.
+         */
+        void add(SceneObjectData sceneObjectData) {
+            sceneObjectDatas.add(sceneObjectData);
+            if (currentSod == null) {
+                loadNextAsset();
+            }
+        }
+
         @Override
         public void onAssetLoaded(GVRContext context, GVRSceneObject model, String filePath,
                                   String errors) {
@@ -243,7 +326,7 @@ public class SceneSerializer {
         public void onModelError(GVRContext context, String error, String filePath) {
             if (currentSod != null && currentSod.getSrc().endsWith(filePath)) {
                 Log.e(TAG, "Model Loading Error for %s", filePath);
-                iterator.remove();
+                sceneObjectDatas.remove(--nextIndex);
                 loadNextAsset();
             }
         }
@@ -257,8 +340,8 @@ public class SceneSerializer {
         }
 
         private void loadNextAsset() {
-            while (iterator.hasNext()) {
-                currentSod = iterator.next();
+            while (nextIndex < sceneObjectDatas.size()) {
+                currentSod = sceneObjectDatas.get(nextIndex++);
                 try {
                     context.getAssetLoader().loadModel(
                             "sd:" + currentSod.getSrc(), GVRImportSettings.getRecommendedSettings(),
@@ -267,7 +350,7 @@ public class SceneSerializer {
                 } catch (IOException e) {
                     Log.e(TAG, "Could not load model:%s from sdcard:%s", currentSod.getSrc(),
                             e.getMessage());
-                    iterator.remove();
+                    sceneObjectDatas.remove(--nextIndex);
                 }
             }
             currentSod = null;
@@ -0,0 +1,236 @@
+package org.gearvrf.utlis.sceneserializer;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the binary scene format against golden files: a small scene is written, read and
+ * converted to and from JSON, and the results must match the bytes and the text below exactly.
+ * A change of the format which makes them differ must bump its version.
+ */
+public class BinarySceneFormatTest {
+    private static final String GOLDEN_BINARY =
+            // magic and version 1.0
+            "4756525300010000"
+            // strings
+            + "535452530000001901172f7364636172642f656e7669726f6e6d656e742e7a69"
+            + "70"
+            // environment
+            + "454e5652000000050143480000"
+            // strings
+            + "535452530000004f060763686169725f30112f7364636172642f63686169722e"
+            + "6662780763686169725f310874c3a4626c655f30112f7364636172642f746162"
+            + "6c652e6f626a102f7364636172642f6c616d702e646165"
+            // objects
+            + "4f424a53000000db04014502030101403f800000000000000000000000000000"
+            + "000000003f800000000000000000000000000000000000003f80000000000000"
+            + "3fc000003f000000c04000003f800000014504030101403f8000000000000000"
+            + "00000000000000000000003f800000000000000000000000000000000000003f"
+            + "80000000000000c01000003f000000c04000003f800000014505060101403f80"
+            + "0000000000000000000000000000000000003f80000000000000000000000000"
+            + "0000000000003f80000000000000000000003f000000c04000003f8000000103"
+            + "000700"
+            // end
+            + "454e442000000000";
+
+    private static final String GOLDEN_JSON = "{\"environmentData\":"
+            + "{\"src\":\"/sdcard/environment.zip\",\"scale\":200.0},"
+            + "\"sceneObjectDataList\":["
+            + "{\"modelMatrix\":[1.0,0.0,0.0,0.0,0.0,1.0,0.0,0.0,0.0,0.0,1.0,0.0,1.5,0.5,-3.0,1.0],"
+            + "\"src\":\"/sdcard/chair.fbx\",\"name\":\"chair_0\"},"
+            + "{\"modelMatrix\":[1.0,0.0,0.0,0.0,0.0,1.0,0.0,0.0,0.0,0.0,1.0,0.0,-2.25,0.5,-3.0,1.0],"
+            + "\"src\":\"/sdcard/chair.fbx\",\"name\":\"chair_1\"},"
+            + "{\"modelMatrix\":[1.0,0.0,0.0,0.0,0.0,1.0,0.0,0.0,0.0,0.0,1.0,0.0,0.0,0.5,-3.0,1.0],"
+            + "\"src\":\"/sdcard/table.obj\",\"name\":\"t\u00e4ble_0\"},"
+            + "{\"src\":\"/sdcard/lamp.dae\"}]}";
+
+    /*
+     * An environment, objects sharing their source, an object without a matrix or a name and a
+     * name which isn't ASCII
+     */
+    private static SceneData createScene() {
+        final SceneData sceneData = new SceneData();
+        final List<SceneObjectData> list = new ArrayList<SceneObjectData>();
+        sceneData.setEnvironmentData(new EnvironmentData("/sdcard/environment.zip", 200.0f));
+        list.add(createSceneObject("chair_0", "/sdcard/chair.fbx", 1.5f));
+        list.add(createSceneObject("chair_1", "/sdcard/chair.fbx", -2.25f));
+        list.add(createSceneObject("t\u00e4ble_0", "/sdcard/table.obj", 0.0f));
+        final SceneObjectData empty = new SceneObjectData();
+        empty.setSrc("/sdcard/lamp.dae");
+        list.add(empty);
+        sceneData.setSceneObjectDataList(list);
+        return sceneData;
+    }
+
+    private static SceneObjectData createSceneObject(String name, String src, float x) {
+        final SceneObjectData sod = new SceneObjectData();
+        sod.setName(name);
+        sod.setSrc(src);
+        sod.setModelMatrix(new float[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, x, 0.5f, -3, 1 });
+        return sod;
+    }
+
+    @Test
+    public void writesTheGoldenBytes() throws IOException {
+        assertEquals(GOLDEN_BINARY, toHex(write(createScene())));
+    }
+
+    @Test
+    public void readsTheGoldenBytes() throws IOException {
+        assertSameScene(createScene(), read(fromHex(GOLDEN_BINARY)));
+    }
+
+    @Test
+    public void convertsToAndFromJson() throws IOException {
+        assertEquals(GOLDEN_JSON, new Gson().toJson(createScene()));
+
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        SceneFormatConverter.jsonToBinary(new StringReader(GOLDEN_JSON), binary);
+        assertEquals(GOLDEN_BINARY, toHex(binary.toByteArray()));
+
+        final StringWriter json = new StringWriter();
+        SceneFormatConverter.binaryToJson(new ByteArrayInputStream(fromHex(GOLDEN_BINARY)), json);
+        assertEquals(GOLDEN_JSON, json.toString());
+    }
+
+    /*
+     * Enough objects and strings for several chunks, and varints of more than one byte
+     */
+    @Test
+    public void readsManyObjects() throws IOException {
+        final SceneData sceneData = new SceneData();
+        final List<SceneObjectData> list = new ArrayList<SceneObjectData>();
+        for (int i = 0; i < 3 * BinarySceneWriter.OBJECTS_PER_CHUNK + 7; ++i) {
+            list.add(createSceneObject("model_" + i, "/sdcard/model" + (i % 300) + ".fbx", i));
+        }
+        sceneData.setSceneObjectDataList(list);
+        assertSameScene(sceneData, read(write(sceneData)));
+
+        final StringWriter json = new StringWriter();
+        SceneFormatConverter.binaryToJson(new ByteArrayInputStream(write(sceneData)), json);
+        assertEquals(new Gson().toJson(sceneData), json.toString());
+    }
+
+    @Test
+    public void truncatedFileFails() throws IOException {
+        final byte[] golden = fromHex(GOLDEN_BINARY);
+        for (int length = BinarySceneFormat.MAGIC.length + 4; length < golden.length; ++length) {
+            try {
+                read(Arrays.copyOf(golden, length));
+                fail("read " + length + " of " + golden.length + " bytes");
+            } catch (EOFException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void fileWithoutMagicFails() throws IOException {
+        read(Arrays.copyOf(fromHex(GOLDEN_BINARY), 2));
+    }
+
+    /*
+     * Every single bit changed in the payloads either fails with an IOException or reads
+     * something
+     */
+    @Test
+    public void corruptFileFailsWithIOException() throws IOException {
+        final byte[] golden = fromHex(GOLDEN_BINARY);
+        int errors = 0;
+        for (int i = 0; i < golden.length; ++i) {
+            for (int bit = 0; bit < 8; ++bit) {
+                final byte[] corrupt = golden.clone();
+                corrupt[i] ^= 1 << bit;
+                try {
+                    read(corrupt);
+                } catch (IOException e) {
+                    ++errors;
+                } catch (RuntimeException e) {
+                    fail("corrupt byte " + i + " threw " + e);
+                } catch (OutOfMemoryError e) {
+                    fail("corrupt byte " + i + " threw " + e);
+                }
+            }
+        }
+        assertTrue(errors > 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void newerMajorVersionFails() throws IOException {
+        final byte[] version = fromHex(GOLDEN_BINARY);
+        version[BinarySceneFormat.MAGIC.length + 1] = BinarySceneFormat.VERSION_MAJOR + 1;
+        read(version);
+    }
+
+    /*
+     * A newer minor version with a chunk, a record and a component this reader doesn't know
+     */
+    @Test
+    public void skipsUnknownChunks() throws IOException {
+        final byte[] golden = fromHex(GOLDEN_BINARY);
+        final ByteArrayOutputStream newer = new ByteArrayOutputStream();
+        newer.write(golden, 0, BinarySceneFormat.MAGIC.length + 2);
+        newer.write(0);
+        newer.write(BinarySceneFormat.VERSION_MINOR + 1);
+        newer.write(new byte[] { 'X', 'T', 'R', 'A', 0, 0, 0, 3, 1, 2, 3 });
+        newer.write(golden, BinarySceneFormat.MAGIC.length + 4,
+                golden.length - BinarySceneFormat.MAGIC.length - 4 - 8);
+        // One more chunk of objects: an unknown record, and an object with an unknown component
+        newer.write(new byte[] { 'O', 'B', 'J', 'S', 0, 0, 0, 13,
+                2, 9, 2, 0, 0, 1, 6, 0, 0, 1, 9, 1, 0 });
+        newer.write(golden, golden.length - 8, 8);
+
+        final SceneData expected = createScene();
+        final SceneObjectData extra = new SceneObjectData();
+        expected.getSceneObjectDataList().add(extra);
+        assertSameScene(expected, read(newer.toByteArray()));
+    }
+
+    private static byte[] write(SceneData sceneData) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinarySceneWriter writer = new BinarySceneWriter(out);
+        writer.writeScene(sceneData);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static SceneData read(byte[] bytes) throws IOException {
+        return new BinarySceneReader(new ByteArrayInputStream(bytes)).readScene();
+    }
+
+    private static void assertSameScene(SceneData expected, SceneData actual) {
+        final Gson gson = new Gson();
+        assertEquals(gson.toJson(expected), gson.toJson(actual));
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b & 0xFF));
+        }
+        return builder.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
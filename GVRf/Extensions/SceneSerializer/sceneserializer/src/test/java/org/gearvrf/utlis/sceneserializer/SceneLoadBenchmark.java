@@ -0,0 +1,152 @@
+package org.gearvrf.utlis.sceneserializer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Times the loading of a synthetic scene of 50000 objects from JSON, the way
+ * {@link SceneSerializer} parses it, and from the binary format. Besides the time to read the
+ * whole scene, it reports when the first object is available to be instantiated: after the whole
+ * file for JSON, after the first chunk for the binary format. It runs on a desktop JVM, with
+ * the unit tests on the class path:
+ * <pre>
+ *   java org.gearvrf.utlis.sceneserializer.SceneLoadBenchmark [objects]
+ * </pre>
+ */
+final class SceneLoadBenchmark {
+    static final int ROUNDS = 10;
+
+    private SceneLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final int objects = (args.length > 0) ? Integer.parseInt(args[0]) : 50000;
+        final SceneData sceneData = createScene(objects);
+        final File json = File.createTempFile("scene", ".json");
+        final File binary = File.createTempFile("scene", SceneSerializer.BINARY_EXTENSION);
+        json.deleteOnExit();
+        binary.deleteOnExit();
+
+        final Writer writer = new FileWriter(json);
+        try {
+            new Gson().toJson(sceneData, writer);
+        } finally {
+            writer.close();
+        }
+        final BinarySceneWriter binaryWriter = new BinarySceneWriter(new FileOutputStream(binary));
+        binaryWriter.writeScene(sceneData);
+        binaryWriter.close();
+
+        long jsonTotal = 0;
+        long binaryTotal = 0;
+        long binaryFirst = 0;
+        for (int round = 0; round < 2 * ROUNDS; ++round) {
+            final long jsonTime = loadJson(json, objects);
+            final long[] binaryTimes = loadBinary(binary, objects);
+            // The first half warms up
+            if (round >= ROUNDS) {
+                jsonTotal += jsonTime;
+                binaryTotal += binaryTimes[0];
+                binaryFirst += binaryTimes[1];
+            }
+        }
+        System.out.println(String.format(Locale.US,
+                "%d objects:%n"
+                + "  JSON   %8d bytes, loaded in %.1f ms, first object after %.1f ms%n"
+                + "  binary %8d bytes, loaded in %.1f ms, first object after %.2f ms",
+                objects, json.length(), jsonTotal / 1e6 / ROUNDS, jsonTotal / 1e6 / ROUNDS,
+                binary.length(), binaryTotal / 1e6 / ROUNDS, binaryFirst / 1e6 / ROUNDS));
+    }
+
+    /*
+     * Models from a few hundred files, placed at random with a random rotation around Y
+     */
+    static SceneData createScene(int objects) {
+        final Random random = new Random(1);
+        final SceneData sceneData = new SceneData();
+        final List<SceneObjectData> list = new ArrayList<SceneObjectData>(objects);
+        sceneData.setEnvironmentData(new EnvironmentData("/sdcard/environment.zip", 200.0f));
+        for (int i = 0; i < objects; ++i) {
+            final SceneObjectData sod = new SceneObjectData();
+            final double angle = random.nextDouble() * 2 * Math.PI;
+            final float cos = (float) Math.cos(angle);
+            final float sin = (float) Math.sin(angle);
+            sod.setName("model_" + i);
+            sod.setSrc("/sdcard/models/model" + random.nextInt(300) + ".fbx");
+            sod.setModelMatrix(new float[] { cos, 0, -sin, 0, 0, 1, 0, 0, sin, 0, cos, 0,
+                    random.nextFloat() * 100 - 50, random.nextFloat() * 5,
+                    random.nextFloat() * 100 - 50, 1 });
+            list.add(sod);
+        }
+        sceneData.setSceneObjectDataList(list);
+        return sceneData;
+    }
+
+    /*
+     * @return nanoseconds taken
+     */
+    private static long loadJson(File file, int objects) throws IOException {
+        final long start = System.nanoTime();
+        final FileReader reader = new FileReader(file);
+        try {
+            final JsonElement jsonElement = new JsonParser().parse(reader);
+            final SceneData sceneData = new Gson().fromJson(jsonElement, SceneData.class);
+            check(sceneData.getSceneObjectDataList().size(), objects);
+        } finally {
+            reader.close();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /*
+     * @return nanoseconds taken to read the whole scene, and to get the first object
+     */
+    private static long[] loadBinary(File file, int objects) throws IOException {
+        final long start = System.nanoTime();
+        final long[] first = new long[1];
+        final InputStream stream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            final SceneData sceneData = new SceneData();
+            final List<SceneObjectData> list = new ArrayList<SceneObjectData>();
+            new BinarySceneReader(stream).read(new BinarySceneReader.Handler() {
+                @Override
+                public void onEnvironment(EnvironmentData environmentData) {
+                    sceneData.setEnvironmentData(environmentData);
+                }
+
+                @Override
+                public void onSceneObject(SceneObjectData sceneObjectData) {
+                    if (first[0] == 0) {
+                        first[0] = System.nanoTime() - start;
+                    }
+                    list.add(sceneObjectData);
+                }
+            });
+            check(list.size(), objects);
+        } finally {
+            stream.close();
+        }
+        return new long[] { System.nanoTime() - start, first[0] };
+    }
+
+    private static void check(int loaded, int objects) {
+        if (loaded != objects) {
+            throw new IllegalStateException("Loaded " + loaded + " objects out of " + objects);
+        }
+    }
+}
@@ -15,8 +15,6 @@
 
 package org.gearvrf.particlesystem;
 
-import android.util.Pair;
-
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRTexture;
@@ -24,20 +22,18 @@ import org.gearvrf.GVRTransform;
 import org.joml.Vector3f;
 import org.joml.Vector4f;
 
-import java.util.ArrayList;
-
 
 /**
  * The base emitter class from which shape-specific emitter classes inherit.
  * This class is used to set up the the behaviour of the particle system in general.
  * Also, this is used to set the specific particle properties.
  *
- * Every emitter has a set of scene objects as its children. These scene
- * objects each have a mesh attached to them, with the number of vertices in the mesh
- * being equal to the emit rate of the emitter, i.e., every second a new scene object with a mesh
- * having an emitRate number of vertices is added to the emitter as a child.
- * These vertices act as the particles of the system. Consequently, all those
- * children objects which have exceeded their age limits are deleted every second.
+ * Every emitter has a single scene object as its child, with a mesh whose
+ * vertices act as the particles of the system. The particles are kept in a
+ * {@link ParticleStore} of fixed capacity: every second the emitter generates
+ * emitRate new particles and writes them over the oldest ones, so no objects
+ * are created or destroyed while the system runs. The capacity is
+ * emitRate * (age + 1) rounded up unless it is set with {@link #setMaxParticles(int)}.
  *
  */
 
@@ -50,9 +46,10 @@ class GVREmitter extends GVRSceneObject {
     protected GVRContext mGVRContext = null;
 
 
-    //list of active scene objects containing particle meshes,
-    // and their corresponding spawn times.
-    protected ArrayList<Pair<GVRSceneObject, Float>> meshInfo = null;
+    //mesh and material of the particles, created on the first emission.
+    private Particles mParticles = null;
+    private int mMaxParticles = 0;
+    private boolean mPropertiesChanged = true;
 
 
     //particle properties
@@ -67,125 +64,126 @@ class GVREmitter extends GVRSceneObject {
     private boolean mFadeWithAge = false;
     private GVRTexture mParticleTexture;
 
-    //attributes of the particles generated every second.
-    protected float[] mParticlePositions;
-    protected float[] mParticleVelocities;
-    protected float [] mParticleGenTimes;
-
     protected boolean burstMode = false;
     private boolean executeOnce = true;
 
-    //values corresponding to the particles which degine the bounding volume of the system.
+    //positions of the particles which define the bounding volume of the system.
     private float[] particleBoundingVolume;
-    private float[] BVSpawnTimes;
-    private float[] BVVelocities;
 
     private float currTime = 0;
-    ArrayList<Integer> idxsToDelete;
-    
+
     public GVREmitter(GVRContext gvrContext)
     {
         super(gvrContext);
         mGVRContext = gvrContext;
-        meshInfo = new ArrayList<Pair<GVRSceneObject, Float>>();
-        idxsToDelete = new ArrayList<Integer>();
         mEnvironmentAcceleration = new Vector3f(0.0f,0.0f,0.0f);
         mColor = new Vector4f(1.0f, 1.0f, 1.0f, 1.0f);
         setParticleVolume(100,100,100);
     }
 
     /**
-     * Iterate over the active meshes and delete the ones whose every particle
-     * has exceeded the maximum age limit.
+     * Copy the particles emitted during this frame to the particle mesh.
      * <p>
-     * Particle meshes are generated for upto one second in the future.
-     * Therefore the maximum time particle mesh should be allowed to remain
-     * in the scene is (maxAge of the particles + one second).
+     * Particles which exceeded their age are not removed: the vertex shader
+     * discards them and their slots are reused by the next emissions.
      * <p>
      */
 
     protected void onDrawFrame() {
 
-        int numActiveMeshes = meshInfo.size();
-        for (int i = 0; i < numActiveMeshes; i++)
+        if (mParticles != null)
         {
-            float currMeshSpawnTime = meshInfo.get(i).second;
-            if (currTime - currMeshSpawnTime > mMaxAge + 1) {
-                GVRSceneObject toDelete = meshInfo.get(i).first;
-                GVREmitter.this.removeChildObject(toDelete);
-                idxsToDelete.add(i);
-            }
-        }
-        for( int i = idxsToDelete.size() - 1; i >=0; i -- ) {
-            meshInfo.remove((int)idxsToDelete.get(i));
+            mParticles.update();
         }
-
-        idxsToDelete.clear();
     }
 
     /**
      * If the burst mode is on, emit the particles only once.
      *
-     * @param particlePositions
-     * @param particleVelocities
-     * @param particleTimeStamps
+     * @param totalTime time since the emitter started, in seconds
      */
 
-    protected  void emitWithBurstCheck(float[] particlePositions, float[] particleVelocities,
-                         float[] particleTimeStamps)
+    protected  void emitWithBurstCheck(float totalTime)
     {
         if ( burstMode )
         {
             if ( executeOnce )
             {
-                emit(particlePositions, particleVelocities, particleTimeStamps);
+                emit(totalTime);
                 executeOnce = false;
             }
         }
         else
         {
-            emit(particlePositions, particleVelocities, particleTimeStamps);
+            emit(totalTime);
         }
 
     }
 
     /**
-     * Append the bounding volume particle positions, times and velocities to the existing mesh
-     * before creating a new scene object with this mesh attached to it.
-     * Also, append every created scene object and its creation time to corresponding array lists.
+     * Make sure the particle store has the required capacity, creating the
+     * particle mesh on the first emission or when the capacity changed,
+     * then let the shape-specific emitter add the new particles.
      *
-     * @param particlePositions
-     * @param particleVelocities
-     * @param particleTimeStamps
+     * @param totalTime time since the emitter started, in seconds
      */
 
-    private void emit(float[] particlePositions, float[] particleVelocities,
-                      float[] particleTimeStamps)
+    private void emit(float totalTime)
     {
-        float[] allParticlePositions = new float[particlePositions.length + particleBoundingVolume.length];
-        System.arraycopy(particlePositions, 0, allParticlePositions, 0, particlePositions.length);
-        System.arraycopy(particleBoundingVolume, 0, allParticlePositions,
-                        particlePositions.length, particleBoundingVolume.length);
-
-        float[] allSpawnTimes = new float[particleTimeStamps.length + BVSpawnTimes.length];
-        System.arraycopy(particleTimeStamps, 0, allSpawnTimes, 0, particleTimeStamps.length);
-        System.arraycopy(BVSpawnTimes, 0, allSpawnTimes, particleTimeStamps.length, BVSpawnTimes.length);
-
-        float[] allParticleVelocities = new float[particleVelocities.length + BVVelocities.length];
-        System.arraycopy(particleVelocities, 0, allParticleVelocities, 0, particleVelocities.length);
-        System.arraycopy(BVVelocities, 0, allParticleVelocities, particleVelocities.length, BVVelocities.length);
+        final int capacity = (mMaxParticles > 0) ? mMaxParticles
+                : Math.max(1, mEmitRate * ((int) Math.ceil(mMaxAge) + 1));
 
+        if ((mParticles == null) || (mParticles.getStore().getCapacity() != capacity))
+        {
+            ParticleStore store = new ParticleStore(capacity);
 
-        Particles particleMesh = new Particles(mGVRContext, mMaxAge,
-                mParticleSize, mEnvironmentAcceleration, mParticleSizeRate, mFadeWithAge,
-                mParticleTexture, mColor, mNoiseFactor);
+            if (mParticles != null)
+            {
+                this.removeChildObject(mParticles.getSceneObject());
+            }
+            if (particleBoundingVolume != null)
+            {
+                store.setBoundingVolume(particleBoundingVolume);
+            }
+            mParticles = new Particles(mGVRContext, store);
+            mPropertiesChanged = true;
+            updateMaterial();
+            this.addChildObject(mParticles.getSceneObject());
+        }
+        generateParticles(totalTime);
+    }
 
+    /**
+     * Generate the particles of one emission with {@link #addParticle}.
+     * Implemented by the shape-specific emitters.
+     *
+     * @param totalTime time since the emitter started, in seconds
+     */
+    protected void generateParticles(float totalTime)
+    {
+    }
 
-        GVRSceneObject particleObject = particleMesh.makeParticleMesh(allParticlePositions,
-                allParticleVelocities, allSpawnTimes);
+    /**
+     * Add a particle over the oldest one.
+     *
+     * @param x, y, z     initial position
+     * @param vx, vy, vz  velocity
+     * @param spawnTime   time at which the particle appears
+     */
+    protected final void addParticle(float x, float y, float z,
+                                     float vx, float vy, float vz, float spawnTime)
+    {
+        mParticles.getStore().add(x, y, z, vx, vy, vz, spawnTime, mMaxAge);
+    }
 
-        this.addChildObject(particleObject);
-        meshInfo.add(Pair.create(particleObject, currTime));
+    private void updateMaterial()
+    {
+        if (mPropertiesChanged && (mParticles != null))
+        {
+            mPropertiesChanged = false;
+            mParticles.setProperties(mMaxAge, mParticleSize, mEnvironmentAcceleration,
+                    mParticleSizeRate, mFadeWithAge, mParticleTexture, mColor, mNoiseFactor);
+        }
     }
 
 
@@ -221,14 +219,10 @@ class GVREmitter extends GVRSceneObject {
                             center.x + width/2, center.y + height/2, center.z + depth/2,
                             center.x - width/2, center.y + height/2, center.z - depth/2};
 
-                    BVSpawnTimes = new float[]{Float.MAX_VALUE, 0, Float.MAX_VALUE, 0, Float.MAX_VALUE,
-                            0, Float.MAX_VALUE, 0, Float.MAX_VALUE, 0, Float.MAX_VALUE, 0,
-                            Float.MAX_VALUE, 0, Float.MAX_VALUE, 0};
-
-                    BVVelocities = new float[24];
-                    for ( int i = 0; i < 24; i ++ )
-                        BVVelocities[i] = 0;
-
+                    if (mParticles != null)
+                    {
+                        mParticles.getStore().setBoundingVolume(particleBoundingVolume);
+                    }
                 }
             });
         }
@@ -240,10 +234,10 @@ class GVREmitter extends GVRSceneObject {
     {
         currTime = time;
 
-        for (int i = 0; i < meshInfo.size(); i ++)
+        if (mParticles != null)
         {
-            GVRSceneObject obj = meshInfo.get(i).first;
-            obj.getRenderData().getMaterial().setFloat("u_time", time);
+            updateMaterial();
+            mParticles.setTime(time);
         }
     }
 
@@ -268,6 +262,42 @@ class GVREmitter extends GVRSceneObject {
         return mEmitRate;
     }
 
+    /**
+     * Limits the number of particles alive at the same time. When the limit is
+     * reached the oldest particles are replaced by the new ones before the end
+     * of their life.
+     * @param maxParticles maximum number of particles, or 0 to allow
+     *                     emitRate * (age + 1) rounded up, which never replaces
+     *                     live particles.
+     */
+    public void setMaxParticles(int maxParticles)
+    {
+        if (maxParticles < 0)
+        {
+            throw new IllegalArgumentException("Maximum particle count cannot be negative");
+        }
+        mMaxParticles = maxParticles;
+    }
+
+    /**
+     * @return the maximum number of particles alive at the same time,
+     *         0 if it depends on the emit rate and age.
+     */
+    public int getMaxParticles()
+    {
+        return mMaxParticles;
+    }
+
+    /**
+     * Counts the particles currently visible. This scans all the particles
+     * and is meant for statistics rather than per frame use.
+     * @return number of live particles
+     */
+    public int getLiveParticleCount()
+    {
+        return (mParticles != null) ? mParticles.getStore().getLiveCount(currTime, mMaxAge) : 0;
+    }
+
     /**
      * The ( emit rate * age ) decide the total number of particles in the scene.
      * @param age The time (in seconds) the particles from this emitter will remain active in the
@@ -276,6 +306,7 @@ class GVREmitter extends GVRSceneObject {
     public void setParticleAge ( float age )
     {
         mMaxAge = age;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -284,6 +315,7 @@ class GVREmitter extends GVRSceneObject {
     public void setParticleSize ( float size )
     {
         mParticleSize = size;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -312,6 +344,7 @@ class GVREmitter extends GVRSceneObject {
     public void setEnvironmentAcceleration( Vector3f acceleration )
     {
         mEnvironmentAcceleration = acceleration;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -324,6 +357,7 @@ class GVREmitter extends GVRSceneObject {
     public void setParticleSizeChangeRate( float rate )
     {
         mParticleSizeRate = rate;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -333,6 +367,7 @@ class GVREmitter extends GVRSceneObject {
     public void setFadeWithAge ( boolean fade )
     {
         mFadeWithAge = fade;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -350,6 +385,7 @@ class GVREmitter extends GVRSceneObject {
     public void setParticleTexture(GVRTexture tex)
     {
         mParticleTexture = tex;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -359,6 +395,7 @@ class GVREmitter extends GVRSceneObject {
     public void  setColorMultiplier( Vector4f color )
     {
         mColor = color;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -373,6 +410,7 @@ class GVREmitter extends GVRSceneObject {
             noise = 1;
 
         mNoiseFactor = noise;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -385,6 +423,7 @@ class GVREmitter extends GVRSceneObject {
         {
             this.removeChildObject(this.getChildByIndex(0));
         }
+        mParticles = null;
     }
 
 }
@@ -19,7 +19,6 @@ import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.scene_objects.GVRTextViewSceneObject;
 import org.gearvrf.utility.Log;
-import org.joml.Vector3f;
 
 import java.lang.ref.WeakReference;
 import java.util.Random;
@@ -45,74 +44,27 @@ public class GVRPlaneEmitter extends GVREmitter {
         mGVRContext.registerDrawFrameListener(mFrameListener);
     }
 
-    private Vector3f getNextPosition() {
-
-        float x = mRandom.nextFloat() * mWidth - mWidth/2;
-        float z = mRandom.nextFloat() * mHeight - mHeight/2;
-        return new Vector3f(x, 0, z);
-    }
-
-    private float[] generateParticlePositions()
-    {
-        float[] positions = new float[mEmitRate * 3];
-        for ( int i = 0; i < mEmitRate * 3; i += 3 ) {
-
-            Vector3f nextPos = getNextPosition();
-            positions[i] = nextPos.x;
-            positions[i+1] = nextPos.y;
-            positions[i+2] = nextPos.z;
-        }
-
-        return positions;
-    }
-
-    private Vector3f getNextVelocity() {
-        float velocityx = minVelocity.x;
-        float velocityy = minVelocity.y;
-        float velocityz = minVelocity.z;
-
-        velocityx += mRandom.nextFloat() * (maxVelocity.x - minVelocity.x);
-        velocityy += mRandom.nextFloat() * (maxVelocity.y - minVelocity.y);
-        velocityz += mRandom.nextFloat() * (maxVelocity.z - minVelocity.z);
-
-        return new Vector3f(velocityx, velocityy, velocityz);
-    }
-
-    /**
-     * generate random velocities in the given range
-     * @return
-     */
-
-    private float[] generateParticleVelocities()
-    {
-        float velocities[] = new float[mEmitRate * 3];
-        for ( int i = 0; i < mEmitRate * 3; i +=3 )
-        {
-            Vector3f nexVel = getNextVelocity();
-            velocities[i] = nexVel.x;
-            velocities[i+1] = nexVel.y;
-            velocities[i+2] = nexVel.z;
-        }
-        return velocities;
-    }
-
     /**
-     *  Generate random time stamps from the current time upto the next one second.
-     *  Passed as texture coordinates to the vertex shader, an unused field is present
-     *  with every pair passed.
+     * Generate the particles of one emission, with random positions on the plane,
+     * random velocities in the given range and random spawn times from the current
+     * time upto the next one second.
      *
-     * @param totalTime
-     * @return
+     * @param totalTime time since the emitter started, in seconds
      */
-    private float[] generateParticleTimeStamps(float totalTime)
+    @Override
+    protected void generateParticles(float totalTime)
     {
-        float timeStamps[] = new float[mEmitRate * 2];
-        for ( int i = 0; i < mEmitRate * 2; i +=2 )
+        for ( int i = 0; i < mEmitRate; i++ )
         {
-            timeStamps[i] = totalTime + mRandom.nextFloat();
-            timeStamps[i + 1] = 0;
+            float x = mRandom.nextFloat() * mWidth - mWidth/2;
+            float z = mRandom.nextFloat() * mHeight - mHeight/2;
+
+            float velocityx = minVelocity.x + mRandom.nextFloat() * (maxVelocity.x - minVelocity.x);
+            float velocityy = minVelocity.y + mRandom.nextFloat() * (maxVelocity.y - minVelocity.y);
+            float velocityz = minVelocity.z + mRandom.nextFloat() * (maxVelocity.z - minVelocity.z);
+
+            addParticle(x, 0, z, velocityx, velocityy, velocityz, totalTime + mRandom.nextFloat());
         }
-        return timeStamps;
     }
 
 
@@ -148,12 +100,7 @@ public class GVRPlaneEmitter extends GVREmitter {
                     if (mElapsedTime > 1.0f) {
                         mElapsedTime = 0;
 
-                        emitter.mParticlePositions = emitter.generateParticlePositions();
-                        emitter.mParticleVelocities = emitter.generateParticleVelocities();
-                        emitter.mParticleGenTimes = emitter.generateParticleTimeStamps(totalTime);
-
-                        emitter.emitWithBurstCheck(emitter.mParticlePositions, emitter.mParticleVelocities,
-                                emitter.mParticleGenTimes);
+                        emitter.emitWithBurstCheck(totalTime);
 
                         emitter.onDrawFrame();
                     }
@@ -18,7 +18,6 @@ package org.gearvrf.particlesystem;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.utility.Log;
-import org.joml.Vector3f;
 
 import java.lang.ref.WeakReference;
 import java.util.Random;
@@ -45,19 +44,24 @@ public class GVRSphericalEmitter extends GVREmitter{
     }
 
     /**
-     * Randomly generate coordinates from within the sphere. Works by generating
-     * a random point in a cube of diagonal of length 2 * r and then checking if it lies
-     * within sphere of radius r. Has some performance improvement over directly
-     * generating a random point within a sphere of radius r, due to less
-     * operations involved.
+     * Generate the particles of one emission. Positions are random coordinates
+     * from within the sphere, obtained by generating a random point in a cube of
+     * diagonal of length 2 * r and then checking if it lies within sphere of radius r.
+     * This has some performance improvement over directly generating a random point
+     * within a sphere of radius r, due to less operations involved.
+     * <p>
+     * The direction of the velocity is obtained by assuming the position of a particle
+     * as a vector. This normalised vector is scaled by a random speed in the speed range.
+     * <p>
+     * Spawn times are random from the current time upto the next one second, or
+     * the current time in burst mode.
      *
-     * @return
+     * @param totalTime time since the emitter started, in seconds
      */
-    private float[] generateParticlePositions()
+    @Override
+    protected void generateParticles(float totalTime)
     {
-        float[] positions = new float[mEmitRate * 3];
-
-        for ( int i = 0; i < mEmitRate * 3; i += 3 )
+        for ( int i = 0; i < mEmitRate; i++ )
         {
             float x = 0, y = 0, z = 0;
             do {
@@ -67,78 +71,19 @@ public class GVRSphericalEmitter extends GVREmitter{
             }
             while (x * x + y * y + z * z > mRadius * mRadius);
 
-            positions[i] = x;
-            positions[i+1] = y;
-            positions[i+2] = z;
-        }
-        return positions;
-    }
-
-    /**
-     *  Generate random time stamps from the current time upto the next one second.
-     *  Passed as texture coordinates to the vertex shader; an unused field is present
-     *  with every pair passed.
-     *
-     * @param totalTime
-     * @return
-     */
-
-    private float[] generateParticleTimeStamps(float totalTime)
-    {
-        float timeStamps[] = new float[mEmitRate * 2];
-
-        if ( burstMode ) {
-            for (int i = 0; i < mEmitRate * 2; i += 2) {
-                timeStamps[i] = totalTime;
-                timeStamps[i + 1] = 0;
-            }
-        }
-        else {
-            for (int i = 0; i < mEmitRate * 2; i += 2) {
-                timeStamps[i] = totalTime + mRandom.nextFloat();
-                timeStamps[i + 1] = 0;
-            }
-        }
-        return timeStamps;
-
-    }
-
-    /**
-     * Generate random velocities for every particle. The direction is obtained by assuming
-     * the position of a particle as a vector. This normalised vector is scaled by
-     * the speed range.
-     *
-     * @return
-     */
-    private float[] generateParticleVelocities()
-    {
-        float [] particleVelocities = new float[mEmitRate * 3];
-        Vector3f temp = new Vector3f(0,0,0);
-        for ( int i = 0; i < mEmitRate * 3 ; i +=3 )
-        {
-            temp.x = mParticlePositions[i];
-            temp.y = mParticlePositions[i+1];
-            temp.z = mParticlePositions[i+2];
-
-
             float velx = mRandom.nextFloat() * (maxVelocity.x- minVelocity.x)
                     + minVelocity.x;
-
             float vely = mRandom.nextFloat() * (maxVelocity.y - minVelocity.y)
-                                + minVelocity.y;
+                    + minVelocity.y;
             float velz = mRandom.nextFloat() * (maxVelocity.z - minVelocity.z)
                     + minVelocity.z;
+            float invLength = 1.0f / (float) Math.sqrt(x * x + y * y + z * z);
 
-            temp = temp.normalize();
-            temp.mul(velx, vely, velz, temp);
+            float spawnTime = burstMode ? totalTime : totalTime + mRandom.nextFloat();
 
-            particleVelocities[i] = temp.x;
-            particleVelocities[i+1] = temp.y;
-            particleVelocities[i+2] = temp.z;
+            addParticle(x, y, z, x * invLength * velx, y * invLength * vely,
+                    z * invLength * velz, spawnTime);
         }
-
-        return particleVelocities;
-
     }
 
     private static final class GVRDrawFrameListenerImpl implements GVRDrawFrameListener {
@@ -172,12 +117,7 @@ public class GVRSphericalEmitter extends GVREmitter{
                     if (mElapsedTime > 1.0f) {
                         mElapsedTime = 0;
 
-                        emitter.mParticlePositions = emitter.generateParticlePositions();
-                        emitter.mParticleVelocities = emitter.generateParticleVelocities();
-                        emitter.mParticleGenTimes = emitter.generateParticleTimeStamps(totalTime);
-
-                        emitter.emitWithBurstCheck(emitter.mParticlePositions, emitter.mParticleVelocities,
-                                emitter.mParticleGenTimes);
+                        emitter.emitWithBurstCheck(totalTime);
 
                         emitter.onDrawFrame();
                     }
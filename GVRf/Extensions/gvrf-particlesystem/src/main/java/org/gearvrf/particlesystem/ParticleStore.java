@@ -0,0 +1,198 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.particlesystem;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size ring of particles holding the vertex attributes of an
+ * emitter's particle mesh.
+ *
+ * The arrays are laid out exactly as the mesh expects them: positions
+ * and velocities have three floats per particle and spawn times two
+ * (the time and an unused zero), so they can be passed to the mesh as is.
+ * The last {@link #NUM_BOUNDING_PARTICLES} slots hold the particles
+ * which define the bounding volume of the system.
+ * <p>
+ * All particles of an emitter live equally long, so the oldest particle is
+ * always the next one to die and new particles are written over it.
+ * A slot which has never been used has a spawn time of
+ * {@link Float#MAX_VALUE} and is discarded by the vertex shader.
+ * Nothing is allocated after construction.
+ */
+class ParticleStore
+{
+    static final int NUM_BOUNDING_PARTICLES = 8;
+
+    private final int mCapacity;
+    private final float[] mPositions;
+    private final float[] mVelocities;
+    private final float[] mSpawnTimes;
+    private int mNext = 0;
+    private int mNumEmitted = 0;
+    private int mNumOverwritten = 0;
+    private boolean mDirty = true;
+
+    /**
+     * @param capacity maximum number of particles alive at the same time
+     */
+    ParticleStore(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Particle capacity must be positive");
+        }
+        final int numVertices = capacity + NUM_BOUNDING_PARTICLES;
+
+        mCapacity = capacity;
+        mPositions = new float[numVertices * 3];
+        mVelocities = new float[numVertices * 3];
+        mSpawnTimes = new float[numVertices * 2];
+        for (int i = 0; i < mSpawnTimes.length; i += 2)
+        {
+            mSpawnTimes[i] = Float.MAX_VALUE;
+        }
+    }
+
+    int getCapacity()
+    {
+        return mCapacity;
+    }
+
+    /**
+     * Number of vertices in the particle mesh, including the bounding volume.
+     */
+    int getVertexCount()
+    {
+        return mCapacity + NUM_BOUNDING_PARTICLES;
+    }
+
+    float[] getPositions()
+    {
+        return mPositions;
+    }
+
+    float[] getVelocities()
+    {
+        return mVelocities;
+    }
+
+    float[] getSpawnTimes()
+    {
+        return mSpawnTimes;
+    }
+
+    /**
+     * Sets the corners of the bounding volume.
+     * @param corners eight positions (x1, y1, z1, x2, ...)
+     */
+    void setBoundingVolume(float[] corners)
+    {
+        System.arraycopy(corners, 0, mPositions, mCapacity * 3, NUM_BOUNDING_PARTICLES * 3);
+        mDirty = true;
+    }
+
+    /**
+     * Adds a particle over the oldest one.
+     * @param maxAge    lifetime of the particles, used to count the
+     *                  live particles which had to be overwritten
+     */
+    void add(float x, float y, float z, float vx, float vy, float vz,
+             float spawnTime, float maxAge)
+    {
+        final int i3 = mNext * 3;
+        final int i2 = mNext * 2;
+
+        if ((mSpawnTimes[i2] != Float.MAX_VALUE) && (mSpawnTimes[i2] + maxAge > spawnTime))
+        {
+            ++mNumOverwritten;
+        }
+        mPositions[i3] = x;
+        mPositions[i3 + 1] = y;
+        mPositions[i3 + 2] = z;
+        mVelocities[i3] = vx;
+        mVelocities[i3 + 1] = vy;
+        mVelocities[i3 + 2] = vz;
+        mSpawnTimes[i2] = spawnTime;
+        mSpawnTimes[i2 + 1] = 0;
+        if (++mNext == mCapacity)
+        {
+            mNext = 0;
+        }
+        ++mNumEmitted;
+        mDirty = true;
+    }
+
+    /**
+     * Discards all the particles, keeping the bounding volume.
+     */
+    void clear()
+    {
+        for (int i = 0; i < mCapacity * 2; i += 2)
+        {
+            mSpawnTimes[i] = Float.MAX_VALUE;
+        }
+        Arrays.fill(mVelocities, 0, mCapacity * 3, 0);
+        mNext = 0;
+        mDirty = true;
+    }
+
+    /**
+     * Counts the particles which are visible at a given time.
+     */
+    int getLiveCount(float time, float maxAge)
+    {
+        int count = 0;
+
+        for (int i = 0; i < mCapacity * 2; i += 2)
+        {
+            final float delta = time - mSpawnTimes[i];
+            if ((delta >= 0) && (delta <= maxAge))
+            {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Total number of particles added.
+     */
+    int getEmittedCount()
+    {
+        return mNumEmitted;
+    }
+
+    /**
+     * Number of particles which were replaced before the end of their
+     * life because the store was full.
+     */
+    int getOverwrittenCount()
+    {
+        return mNumOverwritten;
+    }
+
+    /**
+     * Checks whether particles changed since the last call, and
+     * resets the flag.
+     */
+    boolean consumeDirty()
+    {
+        final boolean dirty = mDirty;
+        mDirty = false;
+        return dirty;
+    }
+}
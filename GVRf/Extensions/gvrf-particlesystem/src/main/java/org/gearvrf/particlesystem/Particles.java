@@ -28,85 +28,39 @@ import org.joml.Vector4f;
 import static android.opengl.GLES20.GL_POINTS;
 
 /**
- *  This class is responsible for instancing meshes, with vertices that act as
- *  the actual particles when rendered using GL_POINTS.
+ *  This class owns the mesh, with vertices that act as the actual particles
+ *  when rendered using GL_POINTS. An emitter keeps a single instance for as long
+ *  as the capacity of its {@link ParticleStore} does not change, and only
+ *  the vertex attributes and uniforms are updated.
  */
 
 class Particles {
 
-    private  GVRContext mGVRContext;
-    private GVRMaterial material;
-    private GVRMesh mParticleMesh;
-    private float mAge;
-    private float mSize;
-    private Vector3f mAcceleration;
-    private float mParticleSizeRate;
-    private float mFadeWithAge;
-    private GVRTexture mTexture;
-    private Vector4f mColorMultiplier;
-    private float mNoiseFactor;
-
-    private GVRShaderId particleID;
-
-    Particles(GVRContext gvrContext, float age, float particleSize,
-                     Vector3f acceleration, float particleSizeRate, boolean fadeWithAge,
-                     GVRTexture tex, Vector4f color, float noiseFactor) {
-
-        mGVRContext = gvrContext;
-        mAge = age;
-        mSize = particleSize;
-        mAcceleration = acceleration;
-        mParticleSizeRate = particleSizeRate;
-        mColorMultiplier = color;
-        if (fadeWithAge)
-            mFadeWithAge = 1.0f;
-        else
-            mFadeWithAge = 0.0f;
-        mTexture = tex;
-        mNoiseFactor = noiseFactor;
-    }
+    private final GVRMaterial material;
+    private final GVRMesh mParticleMesh;
+    private final GVRSceneObject mMeshObject;
+    private final ParticleStore mStore;
 
-    /**
-     * Creates and returns a GVRSceneObject with the specified mesh attributes.
-     *
-     * @param vertices the vertex positions of that make up the mesh. (x1, y1, z1, x2, y2, z2, ...)
-     * @param velocities the velocity attributes for each vertex. (vx1, vy1, vz1, vx2, vy2, vz2...)
-     * @param particleTimeStamps the spawning times of each vertex. (t1, 0,  t2, 0,  t3, 0 ..)
-     *
-     * @return The GVRSceneObject with this mesh.
-     */
+    Particles(GVRContext gvrContext, ParticleStore store) {
 
-    GVRSceneObject makeParticleMesh(float[] vertices, float[] velocities,
-                                           float[] particleTimeStamps )
-    {
-        mParticleMesh = new GVRMesh(mGVRContext);
+        mStore = store;
+        mParticleMesh = new GVRMesh(gvrContext);
+        material = new GVRMaterial(gvrContext, new GVRShaderId(ParticleShader.class));
+        material.setFloat("u_time", 0);
 
         //pass the particle positions as vertices, velocities as normals, and
         //spawning times as texture coordinates.
-        mParticleMesh.setVertices(vertices);
-        mParticleMesh.setNormals(velocities);
-        mParticleMesh.setTexCoords(particleTimeStamps);
-
-        particleID = new GVRShaderId(ParticleShader.class);
-        material = new GVRMaterial(mGVRContext, particleID);
-
-        material.setVec4("u_color", mColorMultiplier.x, mColorMultiplier.y,
-                mColorMultiplier.z, mColorMultiplier.w);
-        material.setFloat("u_particle_age", mAge);
-        material.setVec3("u_acceleration", mAcceleration.x, mAcceleration.y, mAcceleration.z);
-        material.setFloat("u_particle_size", mSize);
-        material.setFloat("u_size_change_rate", mParticleSizeRate);
-        material.setFloat("u_fade", mFadeWithAge);
-        material.setFloat("u_noise_factor", mNoiseFactor);
-
-        GVRRenderData renderData = new GVRRenderData(mGVRContext);
+        mParticleMesh.setVertices(store.getPositions());
+        mParticleMesh.setNormals(store.getVelocities());
+        mParticleMesh.setTexCoords(store.getSpawnTimes());
+        store.consumeDirty();
+
+        GVRRenderData renderData = new GVRRenderData(gvrContext);
         renderData.setMaterial(material);
         renderData.setMesh(mParticleMesh);
-        material.setMainTexture(mTexture);
 
-        GVRSceneObject meshObject = new GVRSceneObject(mGVRContext);
-        meshObject.attachRenderData(renderData);
-        meshObject.getRenderData().setMaterial(material);
+        mMeshObject = new GVRSceneObject(gvrContext);
+        mMeshObject.attachRenderData(renderData);
 
         // Set the draw mode to GL_POINTS, disable writing to depth buffer, enable depth testing
         // and set the rendering order to transparent.
@@ -114,11 +68,59 @@ class Particles {
         // and keeping the depth test on along with rendering them
         // after the geometry queue makes sure they occlude, and are occluded, correctly.
 
-        meshObject.getRenderData().setDrawMode(GL_POINTS);
-        meshObject.getRenderData().setDepthTest(true);
-        meshObject.getRenderData().setDepthMask(false);
-        meshObject.getRenderData().setRenderingOrder(GVRRenderData.GVRRenderingOrder.TRANSPARENT);
+        renderData.setDrawMode(GL_POINTS);
+        renderData.setDepthTest(true);
+        renderData.setDepthMask(false);
+        renderData.setRenderingOrder(GVRRenderData.GVRRenderingOrder.TRANSPARENT);
+    }
+
+    GVRSceneObject getSceneObject()
+    {
+        return mMeshObject;
+    }
+
+    ParticleStore getStore()
+    {
+        return mStore;
+    }
 
-        return meshObject;
+    /**
+     * Sets the particle properties shared by all the particles.
+     */
+    void setProperties(float age, float particleSize, Vector3f acceleration,
+                       float particleSizeRate, boolean fadeWithAge, GVRTexture tex,
+                       Vector4f color, float noiseFactor)
+    {
+        material.setVec4("u_color", color.x, color.y, color.z, color.w);
+        material.setFloat("u_particle_age", age);
+        material.setVec3("u_acceleration", acceleration.x, acceleration.y, acceleration.z);
+        material.setFloat("u_particle_size", particleSize);
+        material.setFloat("u_size_change_rate", particleSizeRate);
+        material.setFloat("u_fade", fadeWithAge ? 1.0f : 0.0f);
+        material.setFloat("u_noise_factor", noiseFactor);
+        if (tex != null)
+        {
+            material.setMainTexture(tex);
+        }
+    }
+
+    void setTime(float time)
+    {
+        material.setFloat("u_time", time);
+    }
+
+    /**
+     * Copies the particles written to the store since the last call to the mesh.
+     * The vertex buffer can only be updated as a whole, so this is done once
+     * per emission rather than once per particle.
+     */
+    void update()
+    {
+        if (mStore.consumeDirty())
+        {
+            mParticleMesh.setVertices(mStore.getPositions());
+            mParticleMesh.setNormals(mStore.getVelocities());
+            mParticleMesh.setTexCoords(mStore.getSpawnTimes());
+        }
     }
 }
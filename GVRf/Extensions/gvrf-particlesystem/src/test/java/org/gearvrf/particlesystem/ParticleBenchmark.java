@@ -0,0 +1,218 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.particlesystem;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * Measures the Java heap allocated per second by a particle system in steady state.
+ *
+ * The benchmark drives a {@link ParticleStore} the way an emitter does, at 60
+ * frames per second with 500 particles emitted every second living 19 seconds,
+ * which keeps 10000 particles alive. Each emission is copied to buffers standing
+ * for the vertex buffer of the mesh. For comparison it also runs the previous
+ * scheme, which allocated new attribute arrays for every emission; the scene
+ * objects, meshes and materials it created on top of that are not counted.
+ * <p>
+ * Allocation is counted per thread with the HotSpot ThreadMXBean. It lives
+ * with the unit tests and runs on a desktop JVM:
+ * <pre>
+ *     java org.gearvrf.particlesystem.ParticleBenchmark [seconds]
+ * </pre>
+ */
+final class ParticleBenchmark
+{
+    static final int PARTICLES = 10000;
+    static final int EMIT_RATE = 500;
+    static final float AGE = PARTICLES / EMIT_RATE - 1;
+    static final int FRAMES_PER_SECOND = 60;
+
+    private static final float FRAME_TIME = 1.0f / FRAMES_PER_SECOND;
+    private static final int WARMUP_SECONDS = 30;
+
+    private final Random mRandom = new Random(42);
+    private final FloatBuffer mGpuPositions;
+    private final FloatBuffer mGpuVelocities;
+    private final FloatBuffer mGpuTimes;
+
+    private ParticleBenchmark(int vertexCount)
+    {
+        mGpuPositions = newFloatBuffer(vertexCount * 3);
+        mGpuVelocities = newFloatBuffer(vertexCount * 3);
+        mGpuTimes = newFloatBuffer(vertexCount * 2);
+    }
+
+    /**
+     * Runs both schemes.
+     * @param seconds simulated seconds measured after the warm up
+     * @return bytes allocated per simulated second by the ring buffer store
+     *         and by the previous scheme, -1 if allocation cannot be counted
+     */
+    static long[] run(int seconds)
+    {
+        ParticleBenchmark benchmark = new ParticleBenchmark(PARTICLES + ParticleStore.NUM_BOUNDING_PARTICLES);
+        ParticleStore store = new ParticleStore(PARTICLES);
+        long pooled;
+        long legacy;
+
+        benchmark.runPooled(store, WARMUP_SECONDS);
+        pooled = allocatedBytes();
+        benchmark.runPooled(store, seconds);
+        pooled = allocatedBytes() - pooled;
+
+        benchmark.runLegacy(WARMUP_SECONDS);
+        legacy = allocatedBytes();
+        benchmark.runLegacy(seconds);
+        legacy = allocatedBytes() - legacy;
+
+        if (allocatedBytes() < 0)
+        {
+            return new long[] { -1, -1 };
+        }
+        return new long[] { pooled / seconds, legacy / seconds };
+    }
+
+    public static void main(String[] args)
+    {
+        final int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 600;
+        final long[] result = run(seconds);
+
+        System.out.println(PARTICLES + " particles, " + seconds + " s at " + FRAMES_PER_SECOND + " fps");
+        System.out.println("ring buffer store: " + result[0] + " bytes/s");
+        System.out.println("array per emission: " + result[1] + " bytes/s");
+    }
+
+    private void runPooled(ParticleStore store, int seconds)
+    {
+        float time = 0;
+        float elapsed = 0;
+
+        for (int frame = 0; frame < seconds * FRAMES_PER_SECOND; ++frame)
+        {
+            time += FRAME_TIME;
+            elapsed += FRAME_TIME;
+            if (elapsed > 1.0f)
+            {
+                elapsed = 0;
+                for (int i = 0; i < EMIT_RATE; ++i)
+                {
+                    store.add(mRandom.nextFloat(), 0, mRandom.nextFloat(),
+                              mRandom.nextFloat(), mRandom.nextFloat(), mRandom.nextFloat(),
+                              time + mRandom.nextFloat(), AGE);
+                }
+            }
+            if (store.consumeDirty())
+            {
+                upload(mGpuPositions, store.getPositions());
+                upload(mGpuVelocities, store.getVelocities());
+                upload(mGpuTimes, store.getSpawnTimes());
+            }
+        }
+    }
+
+    private float runLegacy(int seconds)
+    {
+        final float[] boundingVolume = new float[ParticleStore.NUM_BOUNDING_PARTICLES * 3];
+        float elapsed = 0;
+        float sum = 0;
+
+        for (int frame = 0; frame < seconds * FRAMES_PER_SECOND; ++frame)
+        {
+            elapsed += FRAME_TIME;
+            if (elapsed > 1.0f)
+            {
+                elapsed = 0;
+                float[] positions = new float[EMIT_RATE * 3];
+                float[] velocities = new float[EMIT_RATE * 3];
+                float[] times = new float[EMIT_RATE * 2];
+
+                for (int i = 0; i < positions.length; ++i)
+                {
+                    positions[i] = mRandom.nextFloat();
+                    velocities[i] = mRandom.nextFloat();
+                }
+                for (int i = 0; i < times.length; i += 2)
+                {
+                    times[i] = mRandom.nextFloat();
+                }
+                sum += concat(positions, boundingVolume)[0]
+                     + concat(velocities, boundingVolume)[0]
+                     + concat(times, boundingVolume)[0];
+            }
+        }
+        return sum;
+    }
+
+    private static float[] concat(float[] a, float[] b)
+    {
+        float[] result = new float[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static void upload(FloatBuffer dest, float[] src)
+    {
+        dest.clear();
+        dest.put(src);
+    }
+
+    private static FloatBuffer newFloatBuffer(int size)
+    {
+        return ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private static Object sThreadBean;
+    private static Method sAllocatedBytes;
+
+    static
+    {
+        try
+        {
+            sThreadBean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+            sAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+        }
+        catch (Exception e)
+        {
+            sAllocatedBytes = null;
+        }
+    }
+
+    /*
+     * Bytes allocated so far by the current thread, -1 if unknown.
+     */
+    private static long allocatedBytes()
+    {
+        if (sAllocatedBytes == null)
+        {
+            return -1;
+        }
+        try
+        {
+            return (Long) sAllocatedBytes.invoke(sThreadBean, Thread.currentThread().getId());
+        }
+        catch (Exception e)
+        {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.particlesystem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ParticleStoreTest
+{
+    @Test
+    public void unusedSlotsAreHidden()
+    {
+        final ParticleStore store = new ParticleStore(4);
+        final float[] times = store.getSpawnTimes();
+
+        assertEquals(4 + ParticleStore.NUM_BOUNDING_PARTICLES, store.getVertexCount());
+        assertEquals(store.getVertexCount() * 3, store.getPositions().length);
+        assertEquals(store.getVertexCount() * 2, times.length);
+        for (int i = 0; i < times.length; i += 2)
+        {
+            assertEquals(Float.MAX_VALUE, times[i], 0);
+        }
+        assertEquals(0, store.getLiveCount(0, 10));
+    }
+
+    @Test
+    public void addWritesTheAttributesOfOneSlot()
+    {
+        final ParticleStore store = new ParticleStore(4);
+
+        store.add(1, 2, 3, 4, 5, 6, 7, 10);
+        assertEquals(1, store.getPositions()[0], 0);
+        assertEquals(3, store.getPositions()[2], 0);
+        assertEquals(4, store.getVelocities()[0], 0);
+        assertEquals(6, store.getVelocities()[2], 0);
+        assertEquals(7, store.getSpawnTimes()[0], 0);
+        assertEquals(0, store.getSpawnTimes()[1], 0);
+        assertEquals(Float.MAX_VALUE, store.getSpawnTimes()[2], 0);
+        assertEquals(1, store.getEmittedCount());
+    }
+
+    @Test
+    public void newParticlesReplaceTheOldest()
+    {
+        final ParticleStore store = new ParticleStore(3);
+
+        for (int i = 0; i < 5; ++i)
+        {
+            store.add(i, 0, 0, 0, 0, 0, i, 1);
+        }
+        // slots hold particles 3, 4 and 2
+        assertEquals(3, store.getPositions()[0], 0);
+        assertEquals(4, store.getPositions()[3], 0);
+        assertEquals(2, store.getPositions()[6], 0);
+        assertEquals(5, store.getEmittedCount());
+        assertEquals(0, store.getOverwrittenCount());
+    }
+
+    @Test
+    public void countsLiveParticlesOverwritten()
+    {
+        final ParticleStore store = new ParticleStore(2);
+
+        store.add(0, 0, 0, 0, 0, 0, 0, 10);
+        store.add(0, 0, 0, 0, 0, 0, 1, 10);
+        store.add(0, 0, 0, 0, 0, 0, 2, 10);
+        assertEquals(1, store.getOverwrittenCount());
+        assertEquals(2, store.getLiveCount(2, 10));
+        assertEquals(1, store.getLiveCount(11.5f, 10));
+    }
+
+    @Test
+    public void clearKeepsTheBoundingVolume()
+    {
+        final ParticleStore store = new ParticleStore(2);
+        final float[] corners = new float[ParticleStore.NUM_BOUNDING_PARTICLES * 3];
+
+        for (int i = 0; i < corners.length; ++i)
+        {
+            corners[i] = i + 1;
+        }
+        store.setBoundingVolume(corners);
+        store.add(1, 1, 1, 1, 1, 1, 0, 10);
+        store.clear();
+        assertEquals(0, store.getLiveCount(0, 10));
+        assertEquals(0, store.getVelocities()[0], 0);
+        assertEquals(1, store.getPositions()[2 * 3], 0);
+        assertEquals(corners.length, store.getPositions()[store.getPositions().length - 1], 0);
+
+        store.add(5, 0, 0, 0, 0, 0, 1, 10);
+        assertEquals(5, store.getPositions()[0], 0);
+    }
+
+    @Test
+    public void dirtyUntilConsumed()
+    {
+        final ParticleStore store = new ParticleStore(2);
+        final float[] positions = store.getPositions();
+
+        assertTrue(store.consumeDirty());
+        assertFalse(store.consumeDirty());
+        store.add(0, 0, 0, 0, 0, 0, 0, 1);
+        assertTrue(store.consumeDirty());
+        assertFalse(store.consumeDirty());
+        assertSame(positions, store.getPositions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyStore()
+    {
+        new ParticleStore(0);
+    }
+}
@@ -0,0 +1,183 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.physics;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The clock of a world stepped with a fixed time step, and the lock of
+ * the states the rendering thread interpolates between.
+ * <p>
+ * The physics thread accumulates the time elapsed and makes as many
+ * steps as fit in it. After each step it saves the states of the bodies
+ * with the lock held. The rendering thread only tries the lock: when a
+ * step holds it the frame keeps the transforms of the previous frame
+ * instead of waiting for the physics thread.
+ */
+final class FixedTimeStep {
+    /**
+     * The simulation stepped by the clock.
+     */
+    interface Simulation {
+        /**
+         * Makes one step of the simulation.
+         * @param seconds duration of the step.
+         */
+        void step(float seconds);
+
+        /**
+         * Saves the states of the bodies after a step.
+         * Called from the physics thread with the lock held.
+         */
+        void commit();
+
+        /**
+         * Moves the bodies between their last two states.
+         * Called from the rendering thread with the lock held.
+         * @param alpha fraction of a step elapsed since the last state, from 0 to 1.
+         */
+        void interpolate(float alpha);
+    }
+
+    private final ReentrantLock mLock = new ReentrantLock();
+    private long mStepNanos = 0;
+    private int mMaxSteps = 1;
+    private long mAccumulator = 0;
+    private long mLastTime = 0;
+    private long mBaseTime = 0;
+
+    /**
+     * Changes the duration of the steps and starts accumulating time again.
+     * @param stepNanos duration of a step in nanoseconds, 0 for no fixed step.
+     * @param maxSteps  most steps made by one {@link #advance(long, Simulation)}.
+     * @param now       current time in nanoseconds.
+     */
+    void setStep(long stepNanos, int maxSteps, long now) {
+        mLock.lock();
+        try {
+            mStepNanos = stepNanos;
+            mMaxSteps = maxSteps;
+            mBaseTime = now;
+        } finally {
+            mLock.unlock();
+        }
+        reset(now);
+    }
+
+    /**
+     * Drops the time accumulated, the next step is due one step from now.
+     */
+    void reset(long now) {
+        mAccumulator = 0;
+        mLastTime = now;
+    }
+
+    boolean isEnabled() {
+        return mStepNanos > 0;
+    }
+
+    /**
+     * @return the nanoseconds left until the next step is due.
+     */
+    long getNanosUntilNextStep() {
+        return mStepNanos - mAccumulator;
+    }
+
+    /**
+     * Makes the steps which fit in the time elapsed since the last call.
+     * Time which cannot be caught up in the maximum number of steps is dropped.
+     * @param now  current time in nanoseconds.
+     * @param simulation simulation to step.
+     * @return the number of steps made.
+     */
+    int advance(long now, Simulation simulation) {
+        if (mStepNanos <= 0) {
+            return 0;
+        }
+        final float stepSeconds = mStepNanos / 1000000000.0f;
+        int steps;
+
+        mAccumulator += now - mLastTime;
+        mLastTime = now;
+        steps = (int) (mAccumulator / mStepNanos);
+        if (steps > mMaxSteps) {
+            // Drop the time which cannot be caught up
+            steps = mMaxSteps;
+            mAccumulator = steps * mStepNanos + mAccumulator % mStepNanos;
+        }
+        for (int i = 0; i < steps; ++i) {
+            mAccumulator -= mStepNanos;
+            simulation.step(stepSeconds);
+            mLock.lock();
+            try {
+                simulation.commit();
+                // The new state is rendered as is when the accumulator is full again
+                mBaseTime = now - mAccumulator;
+            } finally {
+                mLock.unlock();
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Interpolates the simulation to the given time, unless the physics
+     * thread holds the lock.
+     * @param time current time in nanoseconds.
+     * @param simulation simulation to interpolate.
+     * @return true if the simulation was interpolated, false if the lock
+     *         was busy or there is no fixed step.
+     */
+    boolean interpolate(long time, Simulation simulation) {
+        if (!mLock.tryLock()) {
+            return false;
+        }
+        try {
+            if (mStepNanos <= 0) {
+                return false;
+            }
+            simulation.interpolate(getAlpha(time));
+            return true;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * @return the fraction of a step elapsed at the given time since the
+     *         state of the last step is due, from 0 to 1.
+     */
+    float getAlpha(long time) {
+        if (mStepNanos <= 0) {
+            return 1;
+        }
+        final float alpha = (float) ((double) (time - mBaseTime) / mStepNanos);
+
+        return Math.min(Math.max(alpha, 0.0f), 1.0f);
+    }
+
+    /**
+     * Keeps the rendering thread from reading the states while the
+     * physics thread adds or removes bodies or changes the interpolation.
+     */
+    void lock() {
+        mLock.lock();
+    }
+
+    void unlock() {
+        mLock.unlock();
+    }
+}
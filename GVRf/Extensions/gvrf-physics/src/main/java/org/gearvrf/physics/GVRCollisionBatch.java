@@ -0,0 +1,307 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.physics;
+
+import android.util.LongSparseArray;
+
+import java.util.Arrays;
+
+/**
+ * The collisions found by one step of a {@link GVRWorld}, kept in parallel
+ * arrays which are reused from step to step.
+ * <p>
+ * The bodies touching after a step are compared with those touching after
+ * the step before. Every pair of touching bodies is reported once per step,
+ * as {@link #ENTER} if they have just started to touch or as {@link #STAY}
+ * if they were already touching. Pairs which stopped touching are reported
+ * once as {@link #EXIT}, with the normal and distance of their last contact.
+ * Pairs whose bodies left the world are dropped without an exit.
+ * <p>
+ * The batch is only valid during {@link GVRWorld.ICollisionListener#onCollisions},
+ * which is called from the physics thread.
+ */
+public final class GVRCollisionBatch {
+    public static final int ENTER = 0;
+    public static final int STAY = 1;
+    public static final int EXIT = 2;
+
+    // Normal and distance
+    static final int FLOATS_PER_CONTACT = 4;
+
+    // A sort key holds the ids of both bodies and the index of the contact
+    private static final int ID_BITS = 21;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    static final int MAX_BODIES = 1 << ID_BITS;
+    private static final int MAX_CONTACTS = 1 << ID_BITS;
+
+    private long[] mPointers = new long[16];
+    private float[] mRaw = new float[8 * FLOATS_PER_CONTACT];
+    private GVRRigidBody[] mResolved = new GVRRigidBody[16];
+    private long[] mKeys = new long[8];
+
+    private Contacts mCurrent = new Contacts();
+    private Contacts mPrevious = new Contacts();
+    private final Contacts mExits = new Contacts();
+    private int mEnterCount = 0;
+
+    GVRCollisionBatch() {
+    }
+
+    /**
+     * Gets the number of collisions reported, enters, stays and exits.
+     */
+    public int getCount() {
+        return mCurrent.count + mExits.count;
+    }
+
+    /**
+     * Gets the number of pairs of bodies touching after the step.
+     */
+    public int getContactCount() {
+        return mCurrent.count;
+    }
+
+    public int getEnterCount() {
+        return mEnterCount;
+    }
+
+    public int getStayCount() {
+        return mCurrent.count - mEnterCount;
+    }
+
+    public int getExitCount() {
+        return mExits.count;
+    }
+
+    /**
+     * Gets the kind of a collision.
+     * @param i index of the collision, less than {@link #getCount()}
+     * @return {@link #ENTER}, {@link #STAY} or {@link #EXIT}
+     */
+    public int getType(int i) {
+        return (i < mCurrent.count) ? mCurrent.types[i] : EXIT;
+    }
+
+    /**
+     * Gets the first body of a collision.
+     * @param i index of the collision, less than {@link #getCount()}
+     */
+    public GVRRigidBody getBodyA(int i) {
+        return (i < mCurrent.count) ? mCurrent.bodiesA[i] : mExits.bodiesA[i - mCurrent.count];
+    }
+
+    /**
+     * Gets the second body of a collision.
+     * @param i index of the collision, less than {@link #getCount()}
+     */
+    public GVRRigidBody getBodyB(int i) {
+        return (i < mCurrent.count) ? mCurrent.bodiesB[i] : mExits.bodiesB[i - mCurrent.count];
+    }
+
+    /**
+     * Gets the distance between the bodies of a collision, negative
+     * if they penetrate each other.
+     * @param i index of the collision, less than {@link #getCount()}
+     */
+    public float getDistance(int i) {
+        return getFloats(i)[offset(i) + 3];
+    }
+
+    /**
+     * Copies the contact normal of a collision, on the second body
+     * in world coordinates.
+     * @param i     index of the collision, less than {@link #getCount()}
+     * @param dest  receives x, y, z
+     */
+    public void getNormal(int i, float[] dest) {
+        System.arraycopy(getFloats(i), offset(i), dest, 0, 3);
+    }
+
+    /*
+     * Reads the contacts of the world after a step and compares them with
+     * the previous step. Must be called from the physics thread.
+     * @return number of pairs of bodies touching
+     */
+    int update(long nativeWorld, LongSparseArray<GVRPhysicsWorldObject> objects) {
+        int n = NativePhysics3DWorld.listContacts(nativeWorld, mPointers, mRaw);
+
+        if (n * 2 > mPointers.length) {
+            grow(n);
+            n = NativePhysics3DWorld.listContacts(nativeWorld, mPointers, mRaw);
+            if (n * 2 > mPointers.length) {
+                // Nothing was written
+                n = 0;
+            }
+        }
+        n = Math.min(n, MAX_CONTACTS);
+
+        int numKeys = 0;
+        for (int i = 0; i < n; ++i) {
+            final GVRRigidBody bodyA = findBody(objects, mPointers[i * 2]);
+            final GVRRigidBody bodyB = findBody(objects, mPointers[i * 2 + 1]);
+
+            mResolved[i * 2] = bodyA;
+            mResolved[i * 2 + 1] = bodyB;
+            if ((bodyA == null) || (bodyB == null)) {
+                continue;
+            }
+            mKeys[numKeys++] = (pairOf(bodyA.mContactId, bodyB.mContactId) << ID_BITS) | i;
+        }
+        Arrays.sort(mKeys, 0, numKeys);
+
+        final Contacts swap = mPrevious;
+        mPrevious = mCurrent;
+        mCurrent = swap;
+        mCurrent.reset(numKeys);
+        mExits.reset(mPrevious.count);
+
+        long lastPair = -1;
+        for (int k = 0; k < numKeys; ++k) {
+            final long pair = mKeys[k] >>> ID_BITS;
+            final int i = (int) (mKeys[k] & ID_MASK);
+
+            // Bodies made of several shapes may have more than one manifold
+            if (pair == lastPair) {
+                continue;
+            }
+            lastPair = pair;
+            final GVRRigidBody bodyA = mResolved[i * 2];
+            final GVRRigidBody bodyB = mResolved[i * 2 + 1];
+            if (bodyA.mContactId < bodyB.mContactId) {
+                mCurrent.add(pair, bodyA, bodyB, mRaw, i * FLOATS_PER_CONTACT, false);
+            } else {
+                mCurrent.add(pair, bodyB, bodyA, mRaw, i * FLOATS_PER_CONTACT, true);
+            }
+        }
+        Arrays.fill(mResolved, 0, n * 2, null);
+        diff();
+        return mCurrent.count;
+    }
+
+    /*
+     * Walks the sorted pairs of both steps together to find out which
+     * pairs are new, which go on and which ended.
+     */
+    private void diff() {
+        final Contacts cur = mCurrent;
+        final Contacts prev = mPrevious;
+        int c = 0;
+        int p = 0;
+
+        mEnterCount = 0;
+        while ((c < cur.count) || (p < prev.count)) {
+            if ((p == prev.count) || ((c < cur.count) && (cur.pairs[c] < prev.pairs[p]))) {
+                cur.types[c++] = ENTER;
+                ++mEnterCount;
+            } else if ((c == cur.count) || (prev.pairs[p] < cur.pairs[c])) {
+                addExit(prev, p++);
+            } else {
+                // The ids of a body which left are given to new bodies
+                if ((cur.bodiesA[c] == prev.bodiesA[p]) && (cur.bodiesB[c] == prev.bodiesB[p])) {
+                    cur.types[c] = STAY;
+                } else {
+                    cur.types[c] = ENTER;
+                    ++mEnterCount;
+                    addExit(prev, p);
+                }
+                ++c;
+                ++p;
+            }
+        }
+    }
+
+    private void addExit(Contacts prev, int p) {
+        final GVRRigidBody bodyA = prev.bodiesA[p];
+        final GVRRigidBody bodyB = prev.bodiesB[p];
+
+        if ((bodyA.mContactId >= 0) && (bodyB.mContactId >= 0)) {
+            mExits.add(prev.pairs[p], bodyA, bodyB, prev.floats, p * FLOATS_PER_CONTACT, false);
+            mExits.types[mExits.count - 1] = EXIT;
+        }
+    }
+
+    private float[] getFloats(int i) {
+        return (i < mCurrent.count) ? mCurrent.floats : mExits.floats;
+    }
+
+    private int offset(int i) {
+        return ((i < mCurrent.count) ? i : i - mCurrent.count) * FLOATS_PER_CONTACT;
+    }
+
+    private static long pairOf(int idA, int idB) {
+        return (idA < idB) ? (((long) idA << ID_BITS) | idB) : (((long) idB << ID_BITS) | idA);
+    }
+
+    private static GVRRigidBody findBody(LongSparseArray<GVRPhysicsWorldObject> objects, long ptr) {
+        final GVRPhysicsWorldObject object = objects.get(ptr);
+
+        if ((object instanceof GVRRigidBody) && (((GVRRigidBody) object).mContactId >= 0)) {
+            return (GVRRigidBody) object;
+        }
+        return null;
+    }
+
+    private void grow(int n) {
+        final int size = Math.max(n, mKeys.length * 2);
+
+        mPointers = new long[size * 2];
+        mRaw = new float[size * FLOATS_PER_CONTACT];
+        mResolved = new GVRRigidBody[size * 2];
+        mKeys = new long[size];
+    }
+
+    /*
+     * Pairs of bodies sorted by their pair key.
+     */
+    private static final class Contacts {
+        long[] pairs = new long[8];
+        GVRRigidBody[] bodiesA = new GVRRigidBody[8];
+        GVRRigidBody[] bodiesB = new GVRRigidBody[8];
+        float[] floats = new float[8 * FLOATS_PER_CONTACT];
+        int[] types = new int[8];
+        int count = 0;
+
+        void reset(int capacity) {
+            Arrays.fill(bodiesA, 0, count, null);
+            Arrays.fill(bodiesB, 0, count, null);
+            count = 0;
+            if (capacity > pairs.length) {
+                final int size = Math.max(capacity, pairs.length * 2);
+
+                pairs = new long[size];
+                bodiesA = new GVRRigidBody[size];
+                bodiesB = new GVRRigidBody[size];
+                floats = new float[size * FLOATS_PER_CONTACT];
+                types = new int[size];
+            }
+        }
+
+        void add(long pair, GVRRigidBody bodyA, GVRRigidBody bodyB,
+                 float[] src, int srcOffset, boolean flip) {
+            final int f = count * FLOATS_PER_CONTACT;
+            final float sign = flip ? -1.0f : 1.0f;
+
+            pairs[count] = pair;
+            bodiesA[count] = bodyA;
+            bodiesB[count] = bodyB;
+            floats[f] = sign * src[srcOffset];
+            floats[f + 1] = sign * src[srcOffset + 1];
+            floats[f + 2] = sign * src[srcOffset + 2];
+            floats[f + 3] = src[srcOffset + 3];
+            ++count;
+        }
+    }
+}
@@ -46,6 +46,10 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
     private final GVRPhysicsContext mPhysicsContext;
 
     private final boolean mLoaded;
+    private volatile boolean mCollisionEventsEnabled = true;
+
+    // Id given by the world the body is in, -1 when it is in no world
+    int mContactId = -1;
 
     /**
      * Constructs new instance to simulate a rigid body in {@link GVRWorld}.
@@ -497,6 +501,27 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
         return mCollisionGroup;
     }
 
+    /**
+     * Enables or disables the {@link ICollisionEvents} sent to the owner
+     * of this {@linkplain GVRRigidBody rigid body}. Bodies whose collisions
+     * are only needed by a {@link GVRWorld.ICollisionListener}, or not at
+     * all, can be disabled to save delivering events nobody handles.
+     * They are enabled by default.
+     *
+     * @param enabled true to send collision events for this body
+     */
+    public void setCollisionEventsEnabled(boolean enabled) {
+        mCollisionEventsEnabled = enabled;
+    }
+
+    /**
+     * Returns true if {@link ICollisionEvents} are sent for this
+     * {@linkplain GVRRigidBody rigid body}.
+     */
+    public boolean isCollisionEventsEnabled() {
+        return mCollisionEventsEnabled;
+    }
+
     @Override
     public void onAttach(GVRSceneObject newOwner) {
         if (!mLoaded && newOwner.getCollider() == null) {
@@ -21,6 +21,8 @@ import android.util.LongSparseArray;
 import org.gearvrf.GVRComponent;
 import org.gearvrf.GVRComponentGroup;
 import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVREventManager;
 import org.gearvrf.GVREventReceiver;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRSceneObject.ComponentVisitor;
@@ -28,9 +30,16 @@ import org.gearvrf.GVRTransform;
 import org.gearvrf.IEventReceiver;
 import org.gearvrf.IEvents;
 import org.gearvrf.ISceneObjectEvents;
+import org.gearvrf.debug.GVRLatencyHistogram;
+import org.gearvrf.debug.GVRTrace;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents a physics world where all {@link GVRSceneObject} with {@link GVRRigidBody} component
  * attached to are simulated.
@@ -57,6 +66,61 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
     private final PhysicsDragger mPhysicsDragger;
     private GVRRigidBody mRigidBodyDragMe = null;
 
+    private final GVRCollisionBatch mCollisions = new GVRCollisionBatch();
+    private final List<ICollisionListener> mCollisionListeners = new CopyOnWriteArrayList<ICollisionListener>();
+    private final CollisionDispatcher mCollisionDispatcher = new CollisionDispatcher();
+    private int[] mFreeContactIds = new int[16];
+    private int mFreeContactIdCount = 0;
+    private int mNextContactId = 0;
+    // Bodies in the world or queued to be added, each needs a contact id
+    private final AtomicInteger mBodyCount = new AtomicInteger(0);
+    private volatile int mContactCount = 0;
+    private volatile long mDispatchTime = 0;
+    private final GVRLatencyHistogram mStepTimes = new GVRLatencyHistogram();
+    private volatile int mFixedStepRate = 0;
+    private volatile boolean mInterpolation = false;
+    private volatile float mInterpolationThreshold = 0.1f;
+    private final FixedTimeStep mFixedStep = new FixedTimeStep();
+
+    private final FixedTimeStep.Simulation mSimulation = new FixedTimeStep.Simulation() {
+        @Override
+        public void step(float seconds) {
+            final long stepStart = System.nanoTime();
+            NativePhysics3DWorld.stepFixed(getNative(), seconds);
+            recordStepTime(System.nanoTime() - stepStart);
+        }
+
+        @Override
+        public void commit() {
+            NativePhysics3DWorld.commitStates(getNative());
+        }
+
+        @Override
+        public void interpolate(float alpha) {
+            NativePhysics3DWorld.interpolate(getNative(), alpha);
+        }
+    };
+
+    private final GVRDrawFrameListener mInterpolator = new GVRDrawFrameListener() {
+        @Override
+        public void onDrawFrame(float frameTime) {
+            mFixedStep.interpolate(System.nanoTime(), mSimulation);
+        }
+    };
+
+    private final GVREventManager.IEventDispatcher<IPhysicsEvents> mStepDispatcher =
+            new GVREventManager.IEventDispatcher<IPhysicsEvents>() {
+                @Override
+                public void dispatch(IPhysicsEvents handler) {
+                    handler.onStepPhysics(GVRWorld.this);
+                }
+
+                @Override
+                public Object[] getParams() {
+                    return new Object[] { GVRWorld.this };
+                }
+            };
+
     /**
      * Events generated during physics simulation.
      * These are called from the physics thread.
@@ -84,6 +148,24 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
         public void onStepPhysics(GVRWorld world);
     }
 
+    /**
+     * Receives the collisions of each step of the physics simulation
+     * at once. It is called from the physics thread, after the
+     * {@link ICollisionEvents} of the step were sent and before
+     * {@link IPhysicsEvents#onStepPhysics(GVRWorld)}, only for steps
+     * with at least one collision.
+     * @see #addCollisionListener(ICollisionListener)
+     */
+    public interface ICollisionListener
+    {
+        /**
+         * Called with the collisions of a step.
+         * @param world      physics world being simulated
+         * @param collisions the collisions, only valid during the call
+         */
+        public void onCollisions(GVRWorld world, GVRCollisionBatch collisions);
+    }
+
     /**
      * Constructs new instance to simulate the Physics World of the Scene.
      *
@@ -137,6 +219,160 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
 
     public GVREventReceiver getEventReceiver() { return mListeners; }
 
+    /**
+     * Adds a listener which gets the enter, stay and exit collisions of
+     * all the bodies in this world once per step.
+     *
+     * @param listener The {@link ICollisionListener} to add.
+     */
+    public void addCollisionListener(ICollisionListener listener) {
+        if (!mCollisionListeners.contains(listener)) {
+            mCollisionListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a listener added with {@link #addCollisionListener(ICollisionListener)}.
+     *
+     * @param listener The {@link ICollisionListener} to remove.
+     */
+    public void removeCollisionListener(ICollisionListener listener) {
+        mCollisionListeners.remove(listener);
+    }
+
+    /**
+     * Returns the number of pairs of bodies touching after the last step.
+     */
+    public int getContactCount() {
+        return mContactCount;
+    }
+
+    /**
+     * Returns the time in nanoseconds the last step took to find its
+     * collisions and deliver them and {@link IPhysicsEvents#onStepPhysics(GVRWorld)}.
+     */
+    public long getCollisionDispatchTime() {
+        return mDispatchTime;
+    }
+
+    /**
+     * Steps the simulation with a fixed time step instead of the time
+     * elapsed since the previous update. The time elapsed is accumulated
+     * and as many steps as fit in it are made, so the simulation advances
+     * at the same rate whatever the cost of a step.
+     *
+     * @param stepsPerSecond Number of steps per second of simulated time,
+     *                       0 to go back to a variable time step.
+     * @param maxSteps Most steps made in one update to catch up. The time
+     *                 left over is dropped, so the simulation slows down
+     *                 instead of falling further behind when steps take
+     *                 longer than the time they simulate.
+     */
+    public void setFixedTimeStep(final int stepsPerSecond, final int maxSteps) {
+        if (stepsPerSecond < 0 || maxSteps < 1) {
+            throw new IllegalArgumentException("Invalid fixed time step");
+        }
+        mFixedStepRate = stepsPerSecond;
+        mPhysicsContext.runOnPhysicsThread(new Runnable() {
+            @Override
+            public void run() {
+                mWorldTask.setFixedTimeStep(stepsPerSecond, maxSteps);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of fixed steps per second, 0 if the simulation
+     * is stepped with a variable time step.
+     */
+    public int getFixedTimeStepRate() {
+        return mFixedStepRate;
+    }
+
+    /**
+     * Enables the interpolation of the dynamic bodies. With a fixed time
+     * step, the rendering thread moves each dynamic body between the last
+     * two states of the simulation every frame, so bodies move smoothly
+     * whatever the rates of the simulation and the display. Bodies are
+     * rendered one step behind the simulation. The rendering thread never
+     * waits for the physics thread: a frame which comes while a step is
+     * saving its states keeps the transforms of the previous frame.
+     * <p>
+     * Moving the scene object of an interpolated body by the interpolation
+     * threshold or more along an axis moves the body at the next step.
+     *
+     * @param enabled true to interpolate, it only takes effect with a fixed time step.
+     * @see #setFixedTimeStep(int, int)
+     * @see #setInterpolationThreshold(float)
+     */
+    public void setInterpolation(boolean enabled) {
+        mInterpolation = enabled;
+        mPhysicsContext.runOnPhysicsThread(new Runnable() {
+            @Override
+            public void run() {
+                mWorldTask.updateInterpolation();
+            }
+        });
+    }
+
+    public boolean isInterpolationEnabled() {
+        return mInterpolation;
+    }
+
+    /**
+     * Sets how far the scene object of an interpolated body must be moved
+     * along an axis, between two frames, for the body to be moved to it at
+     * the next step. Smaller moves are taken for the interpolation itself
+     * and are overwritten. The default is 0.1.
+     *
+     * @param distance distance in world units, greater than 0.
+     * @see #setInterpolation(boolean)
+     */
+    public void setInterpolationThreshold(final float distance) {
+        if (!(distance > 0)) {
+            throw new IllegalArgumentException("Interpolation threshold must be greater than 0");
+        }
+        mInterpolationThreshold = distance;
+        mPhysicsContext.runOnPhysicsThread(new Runnable() {
+            @Override
+            public void run() {
+                mFixedStep.lock();
+                try {
+                    NativePhysics3DWorld.setInterpolationThreshold(getNative(), distance);
+                } finally {
+                    mFixedStep.unlock();
+                }
+            }
+        });
+    }
+
+    public float getInterpolationThreshold() {
+        return mInterpolationThreshold;
+    }
+
+    /**
+     * Copies the times taken by the steps of the simulation, in nanoseconds.
+     * With a fixed time step there is a sample for each step, otherwise
+     * one for each update.
+     *
+     * @param histogram receives the samples recorded since the last reset.
+     */
+    public void getStepTimes(GVRLatencyHistogram histogram) {
+        synchronized (mStepTimes) {
+            histogram.reset();
+            histogram.add(mStepTimes);
+        }
+    }
+
+    /**
+     * Removes the step times recorded so far.
+     */
+    public void resetStepTimes() {
+        synchronized (mStepTimes) {
+            mStepTimes.reset();
+        }
+    }
+
     /**
      * Add a {@link GVRConstraint} to this physics world.
      *
@@ -247,22 +483,35 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
      * Add a {@link GVRRigidBody} to this physics world.
      *
      * @param gvrBody The {@link GVRRigidBody} to add.
+     * @throws IllegalStateException if the world already has as many rigid bodies
+     *                               as collisions can be reported for.
      */
     public void addBody(final GVRRigidBody gvrBody) {
+        if (mBodyCount.incrementAndGet() > GVRCollisionBatch.MAX_BODIES) {
+            mBodyCount.decrementAndGet();
+            throw new IllegalStateException("Too many rigid bodies in the physics world.");
+        }
         mPhysicsContext.runOnPhysicsThread(new Runnable() {
             @Override
             public void run() {
                 if (contains(gvrBody)) {
+                    mBodyCount.decrementAndGet();
                     return;
                 }
 
-                if (gvrBody.getCollisionGroup() < 0 || gvrBody.getCollisionGroup() > 15
-                        || mCollisionMatrix == null) {
-                    NativePhysics3DWorld.addRigidBody(getNative(), gvrBody.getNative());
-                } else {
-                    NativePhysics3DWorld.addRigidBodyWithMask(getNative(), gvrBody.getNative(),
-                            mCollisionMatrix.getCollisionFilterGroup(gvrBody.getCollisionGroup()),
-                            mCollisionMatrix.getCollisionFilterMask(gvrBody.getCollisionGroup()));
+                gvrBody.mContactId = allocateContactId();
+                mFixedStep.lock();
+                try {
+                    if (gvrBody.getCollisionGroup() < 0 || gvrBody.getCollisionGroup() > 15
+                            || mCollisionMatrix == null) {
+                        NativePhysics3DWorld.addRigidBody(getNative(), gvrBody.getNative());
+                    } else {
+                        NativePhysics3DWorld.addRigidBodyWithMask(getNative(), gvrBody.getNative(),
+                                mCollisionMatrix.getCollisionFilterGroup(gvrBody.getCollisionGroup()),
+                                mCollisionMatrix.getCollisionFilterMask(gvrBody.getCollisionGroup()));
+                    }
+                } finally {
+                    mFixedStep.unlock();
                 }
 
                 mPhysicsObject.put(gvrBody.getNative(), gvrBody);
@@ -281,8 +530,16 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
             @Override
             public void run() {
                 if (contains(gvrBody)) {
-                    NativePhysics3DWorld.removeRigidBody(getNative(), gvrBody.getNative());
+                    mFixedStep.lock();
+                    try {
+                        NativePhysics3DWorld.removeRigidBody(getNative(), gvrBody.getNative());
+                    } finally {
+                        mFixedStep.unlock();
+                    }
                     mPhysicsObject.remove(gvrBody.getNative());
+                    freeContactId(gvrBody.mContactId);
+                    gvrBody.mContactId = -1;
+                    mBodyCount.decrementAndGet();
                     getGVRContext().getEventManager().sendEvent(GVRWorld.this, IPhysicsEvents.class, "onRemoveRigidBody", GVRWorld.this, gvrBody);
                 }
             }
@@ -297,33 +554,89 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
         mWorldTask.stop();
     }
 
+    /*
+     * addBody has checked there is an id left for the body.
+     */
+    private int allocateContactId() {
+        if (mFreeContactIdCount > 0) {
+            return mFreeContactIds[--mFreeContactIdCount];
+        }
+        return mNextContactId++;
+    }
+
+    private void freeContactId(int id) {
+        if (mFreeContactIdCount == mFreeContactIds.length) {
+            mFreeContactIds = Arrays.copyOf(mFreeContactIds, mFreeContactIds.length * 2);
+        }
+        mFreeContactIds[mFreeContactIdCount++] = id;
+    }
+
     private void generateCollisionEvents() {
-        GVRCollisionInfo collisionInfos[] = NativePhysics3DWorld.listCollisions(getNative());
-
-        String onEnter = "onEnter";
-        String onExit = "onExit";
-
-        for (GVRCollisionInfo info : collisionInfos) {
-            if (info.isHit) {
-                sendCollisionEvent(info, onEnter);
-            } else if (mPhysicsObject.get(info.bodyA) != null
-                    && mPhysicsObject.get(info.bodyB) != null) {
-                // If both bodies are in the scene.
-                sendCollisionEvent(info, onExit);
+        final GVRCollisionBatch collisions = mCollisions;
+
+        mContactCount = collisions.update(getNative(), mPhysicsObject);
+
+        for (int i = 0; i < collisions.getCount(); ++i) {
+            final int type = collisions.getType(i);
+
+            if (type != GVRCollisionBatch.STAY) {
+                sendCollisionEvent(collisions, i, type == GVRCollisionBatch.ENTER);
             }
         }
 
+        if (collisions.getCount() > 0) {
+            // Indexing avoids making an iterator for every step
+            for (int i = 0; i < mCollisionListeners.size(); ++i) {
+                ICollisionListener listener;
+                try {
+                    listener = mCollisionListeners.get(i);
+                } catch (IndexOutOfBoundsException e) {
+                    break;
+                }
+                listener.onCollisions(this, collisions);
+            }
+        }
     }
 
-    private void sendCollisionEvent(GVRCollisionInfo info, String eventName) {
-        GVRSceneObject bodyA = mPhysicsObject.get(info.bodyA).getOwnerObject();
-        GVRSceneObject bodyB = mPhysicsObject.get(info.bodyB).getOwnerObject();
+    private void sendCollisionEvent(GVRCollisionBatch collisions, int i, boolean enter) {
+        final GVRRigidBody bodyA = collisions.getBodyA(i);
+        final GVRRigidBody bodyB = collisions.getBodyB(i);
+        final boolean sendA = bodyA.isCollisionEventsEnabled();
+        final boolean sendB = bodyB.isCollisionEventsEnabled();
+
+        if (!sendA && !sendB) {
+            return;
+        }
+
+        final GVRSceneObject ownerA = bodyA.getOwnerObject();
+        final GVRSceneObject ownerB = bodyB.getOwnerObject();
 
-        getGVRContext().getEventManager().sendEvent(bodyA, ICollisionEvents.class, eventName,
-                bodyA, bodyB, info.normal, info.distance);
+        if (ownerA == null || ownerB == null) {
+            return;
+        }
 
-        getGVRContext().getEventManager().sendEvent(bodyB, ICollisionEvents.class, eventName,
-                bodyB, bodyA, info.normal, info.distance);
+        final CollisionDispatcher dispatcher = mCollisionDispatcher;
+        final GVREventManager eventManager = getGVRContext().getEventManager();
+        final String eventName = enter ? "onEnter" : "onExit";
+
+        dispatcher.mEnter = enter;
+        dispatcher.mDistance = collisions.getDistance(i);
+        if (sendA) {
+            collisions.getNormal(i, dispatcher.mNormal);
+            dispatcher.mSelf = ownerA;
+            dispatcher.mOther = ownerB;
+            eventManager.dispatchEvent(GVREventManager.SEND_MASK_ALL, ownerA,
+                    ICollisionEvents.class, eventName, dispatcher);
+        }
+        if (sendB) {
+            collisions.getNormal(i, dispatcher.mNormal);
+            dispatcher.mSelf = ownerB;
+            dispatcher.mOther = ownerA;
+            eventManager.dispatchEvent(GVREventManager.SEND_MASK_ALL, ownerB,
+                    ICollisionEvents.class, eventName, dispatcher);
+        }
+        dispatcher.mSelf = null;
+        dispatcher.mOther = null;
     }
 
     private void doPhysicsAttach(GVRSceneObject rootSceneObject) {
@@ -397,6 +710,12 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
         NativePhysics3DWorld.getGravity(getNative(), gravity);
     }
 
+    private void recordStepTime(long nanos) {
+        synchronized (mStepTimes) {
+            mStepTimes.record(nanos);
+        }
+    }
+
     private class GVRWorldTask implements Runnable {
         private boolean running = false;
         private final long intervalMillis;
@@ -404,6 +723,7 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
         private int maxSubSteps;
         private long simulationTime;
         private long lastSimulTime;
+        private boolean interpolating = false;
 
 
         public GVRWorldTask(long milliseconds) {
@@ -424,28 +744,90 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
                 Log.v("GVRPhysicsWorld", "onStep " + timeStep + "ms" + ", subSteps " + maxSubSteps);
             }*/
 
-            timeStep  = simulationTime - lastSimulTime;
-            maxSubSteps = (int) (timeStep * 60) / 1000 + 1;
-
-            NativePhysics3DWorld.step(getNative(), timeStep, maxSubSteps);
+            long traceStart = GVRTrace.begin();
+            int steps = 1;
+            if (mFixedStep.isEnabled()) {
+                steps = mFixedStep.advance(System.nanoTime(), mSimulation);
+            } else {
+                timeStep  = simulationTime - lastSimulTime;
+                maxSubSteps = (int) (timeStep * 60) / 1000 + 1;
 
-            generateCollisionEvents();
-            getGVRContext().getEventManager().sendEvent(GVRWorld.this, IPhysicsEvents.class, "onStepPhysics", GVRWorld.this);
+                final long stepStart = System.nanoTime();
+                NativePhysics3DWorld.step(getNative(), timeStep, maxSubSteps);
+                recordStepTime(System.nanoTime() - stepStart);
+            }
+            GVRTrace.end(GVRTrace.CATEGORY_PHYSICS, "step", traceStart);
+
+            if (steps > 0) {
+                traceStart = GVRTrace.begin();
+                final long dispatchStart = System.nanoTime();
+                generateCollisionEvents();
+                getGVRContext().getEventManager().dispatchEvent(GVREventManager.SEND_MASK_ALL,
+                        GVRWorld.this, IPhysicsEvents.class, "onStepPhysics", mStepDispatcher);
+                mDispatchTime = System.nanoTime() - dispatchStart;
+                GVRTrace.end(GVRTrace.CATEGORY_PHYSICS, "events", traceStart);
+            }
 
             lastSimulTime = simulationTime;
 
-            simulationTime = intervalMillis + simulationTime - SystemClock.uptimeMillis();
-            if (simulationTime < 0) {
-                simulationTime += intervalMillis;
+            if (mFixedStep.isEnabled()) {
+                // Wake up when the next step is due
+                final long untilNextStep = (mFixedStep.getNanosUntilNextStep() + 999999) / 1000000;
+                simulationTime = SystemClock.uptimeMillis() + Math.max(untilNextStep, 1);
+            } else {
+                simulationTime = intervalMillis + simulationTime - SystemClock.uptimeMillis();
+                if (simulationTime < 0) {
+                    simulationTime += intervalMillis;
+                }
+                // Time of the next simulation;
+                simulationTime = simulationTime + SystemClock.uptimeMillis();
             }
-            // Time of the next simulation;
-            simulationTime = simulationTime + SystemClock.uptimeMillis();
 
             mPhysicsContext.runAtTimeOnPhysicsThread(this, simulationTime);
 
 
         }
 
+        void setFixedTimeStep(int stepsPerSecond, int maxSteps) {
+            final long stepNanos = (stepsPerSecond > 0) ? 1000000000L / stepsPerSecond : 0;
+
+            mFixedStep.setStep(stepNanos, maxSteps, System.nanoTime());
+            lastSimulTime = SystemClock.uptimeMillis();
+            if (interpolating && stepNanos > 0) {
+                // Restart the interpolation with the new step
+                setNativeInterpolation(true);
+            }
+            updateInterpolation();
+        }
+
+        /*
+         * Starts or stops the interpolation of the rendering thread
+         * to match the settings of the world.
+         */
+        void updateInterpolation() {
+            final boolean interpolate = running && mInterpolation && mFixedStep.isEnabled();
+
+            if (interpolate == interpolating) {
+                return;
+            }
+            interpolating = interpolate;
+            setNativeInterpolation(interpolate);
+            if (interpolate) {
+                getGVRContext().registerDrawFrameListener(mInterpolator);
+            } else {
+                getGVRContext().unregisterDrawFrameListener(mInterpolator);
+            }
+        }
+
+        private void setNativeInterpolation(boolean enabled) {
+            mFixedStep.lock();
+            try {
+                NativePhysics3DWorld.setInterpolation(getNative(), enabled);
+            } finally {
+                mFixedStep.unlock();
+            }
+        }
+
         public void start() {
             // To avoid concurrency
             mPhysicsContext.runOnPhysicsThread(new Runnable() {
@@ -454,6 +836,8 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
                     if (!running) {
                         running = true;
                         lastSimulTime = SystemClock.uptimeMillis();
+                        mFixedStep.reset(System.nanoTime());
+                        updateInterpolation();
                         mPhysicsContext.runDelayedOnPhysicsThread(GVRWorldTask.this,
                                 intervalMillis);
                     }
@@ -469,6 +853,7 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
                     if (running) {
                         running = false;
                         mPhysicsContext.removeTask(GVRWorldTask.this);
+                        updateInterpolation();
                     }
                 }
             });
@@ -500,6 +885,33 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
         public void onStep() {}
     };
 
+    /*
+     * Calls the collision handlers of one scene object. It is reused for
+     * every event, so the normal is only valid during the call.
+     */
+    private static final class CollisionDispatcher
+            implements GVREventManager.IEventDispatcher<ICollisionEvents> {
+        boolean mEnter;
+        GVRSceneObject mSelf;
+        GVRSceneObject mOther;
+        final float[] mNormal = new float[3];
+        float mDistance;
+
+        @Override
+        public void dispatch(ICollisionEvents handler) {
+            if (mEnter) {
+                handler.onEnter(mSelf, mOther, mNormal, mDistance);
+            } else {
+                handler.onExit(mSelf, mOther, mNormal, mDistance);
+            }
+        }
+
+        @Override
+        public Object[] getParams() {
+            return new Object[] { mSelf, mOther, mNormal.clone(), mDistance };
+        }
+    }
+
     private ComponentVisitor mRigidBodiesVisitor = new ComponentVisitor() {
 
         @Override
@@ -568,9 +980,19 @@ class NativePhysics3DWorld {
 
     static native void step(long jphysics_world, float jtime_step, int maxSubSteps);
 
+    static native void stepFixed(long jphysics_world, float jtime_step);
+
+    static native void commitStates(long jphysics_world);
+
+    static native void setInterpolation(long jphysics_world, boolean enabled);
+
+    static native void setInterpolationThreshold(long jphysics_world, float distance);
+
+    static native void interpolate(long jphysics_world, float alpha);
+
     static native void getGravity(long jworld, float[] array);
 
     static native void setGravity(long jworld, float x, float y, float z);
 
-    static native GVRCollisionInfo[] listCollisions(long jphysics_world);
+    static native int listContacts(long jphysics_world, long[] bodies, float[] data);
 }
@@ -32,7 +32,12 @@ BulletRigidBody::BulletRigidBody()
           mRigidBody(new btRigidBody(mConstructionInfo)),
           m_centerOfMassOffset(btTransform::getIdentity()),
           mScale(1.0f, 1.0f, 1.0f),
-          mSimType(SimulationType::DYNAMIC)
+          mSimType(SimulationType::DYNAMIC),
+          mInterpolated(false),
+          mStateValid(false),
+          mHasNextState(false),
+          mTeleport(false),
+          mTeleportThreshold(0.1f)
 {
     mRigidBody->setUserPointer(this);
 }
@@ -42,7 +47,12 @@ BulletRigidBody::BulletRigidBody(btRigidBody *rigidBody)
           mRigidBody(rigidBody),
           m_centerOfMassOffset(btTransform::getIdentity()),
           mScale(1.0f, 1.0f, 1.0f),
-          mSimType(SimulationType::DYNAMIC)
+          mSimType(SimulationType::DYNAMIC),
+          mInterpolated(false),
+          mStateValid(false),
+          mHasNextState(false),
+          mTeleport(false),
+          mTeleportThreshold(0.1f)
 {
     mRigidBody->setUserPointer(this);
     mConstructionInfo.m_mass = rigidBody->isStaticObject() ? 0.f : 1.f / rigidBody->getInvMass();
@@ -187,6 +197,13 @@ void BulletRigidBody::getWorldTransform(btTransform &centerOfMassWorldTrans) con
 }
 
 void BulletRigidBody::setWorldTransform(const btTransform &centerOfMassWorldTrans) {
+    if (mInterpolated) {
+        // Kept for commitState, the scene object is moved by interpolate
+        mNextState = centerOfMassWorldTrans * m_centerOfMassOffset;
+        mHasNextState = true;
+        return;
+    }
+
     Transform* trans = owner_object()->transform();
     btTransform aux; getWorldTransform(aux);
 
@@ -207,6 +224,81 @@ void BulletRigidBody::setWorldTransform(const btTransform &centerOfMassWorldTran
     //convertBtTransform2Transform(centerOfMassWorldTrans * m_centerOfMassOffset, trans);
 }
 
+void BulletRigidBody::setInterpolated(bool interpolated) {
+    mInterpolated = interpolated;
+    mStateValid = false;
+    mHasNextState = false;
+    mTeleport = false;
+}
+
+/*
+ * Called from the physics thread after each step.
+ */
+void BulletRigidBody::commitState() {
+    if (mSimType != SimulationType::DYNAMIC) {
+        mStateValid = false;
+        mHasNextState = false;
+        mTeleport = false;
+        return;
+    }
+    if (mTeleport) {
+        // The scene object was moved by the application
+        btTransform com = mTeleportTo * m_centerOfMassOffset.inverse();
+
+        mRigidBody->setWorldTransform(com);
+        mRigidBody->setInterpolationWorldTransform(com);
+        mCurrState = mTeleportTo;
+        mPrevState = mTeleportTo;
+        mRendered = mTeleportTo;
+        mTeleport = false;
+        mHasNextState = false;
+        mStateValid = true;
+        return;
+    }
+    if (!mStateValid) {
+        mCurrState = mRigidBody->getWorldTransform() * m_centerOfMassOffset;
+        mPrevState = mCurrState;
+        mRendered = mCurrState;
+        mHasNextState = false;
+        mStateValid = true;
+        return;
+    }
+    mPrevState = mCurrState;
+    if (mHasNextState) {
+        mCurrState = mNextState;
+        mHasNextState = false;
+    }
+}
+
+/*
+ * Called from the rendering thread with the fraction of a step
+ * elapsed since the last state.
+ */
+void BulletRigidBody::interpolate(float alpha) {
+    if (!mStateValid || mTeleport || owner_object() == nullptr) {
+        return;
+    }
+
+    Transform* trans = owner_object()->transform();
+    btTransform current = convertTransform2btTransform(trans);
+    btVector3 moved = current.getOrigin() - mRendered.getOrigin();
+
+    if (std::abs(moved.getX()) >= mTeleportThreshold ||
+        std::abs(moved.getY()) >= mTeleportThreshold ||
+        std::abs(moved.getZ()) >= mTeleportThreshold)
+    {
+        mTeleportTo = current;
+        mTeleport = true;
+        return;
+    }
+
+    btTransform state;
+    state.setOrigin(mPrevState.getOrigin().lerp(mCurrState.getOrigin(), alpha));
+    state.setRotation(mPrevState.getRotation().slerp(mCurrState.getRotation(), alpha));
+    convertBtTransform2Transform(state, trans);
+    mRendered = state;
+}
+
 void BulletRigidBody::applyCentralForce(float x, float y, float z) {
     mRigidBody->applyCentralForce(btVector3(x, y, z));
     if (!mRigidBody->isActive()) {
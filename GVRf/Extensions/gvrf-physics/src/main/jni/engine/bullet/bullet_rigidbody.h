@@ -150,6 +150,25 @@ class BulletRigidBody : public PhysicsRigidBody,
 
     void updateConstructionInfo();
 
+    /*
+     * Interpolation between the last two physics states. When it is on
+     * the physics thread keeps the states and the rendering thread moves
+     * the scene object, both with the lock of the world held.
+     */
+    void setInterpolated(bool interpolated);
+
+    bool isInterpolated() const {
+        return mInterpolated;
+    }
+
+    void setTeleportThreshold(float distance) {
+        mTeleportThreshold = distance;
+    }
+
+    void commitState();
+
+    void interpolate(float alpha);
+
 private:
 
     void finalize();
@@ -162,6 +181,16 @@ private:
     btRigidBody *mRigidBody;
     btTransform m_centerOfMassOffset;
     btTransform prevPos;
+    btTransform mPrevState;
+    btTransform mCurrState;
+    btTransform mNextState;
+    btTransform mRendered;
+    btTransform mTeleportTo;
+    bool mInterpolated;
+    bool mStateValid;
+    bool mHasNextState;
+    bool mTeleport;
+    float mTeleportThreshold;
     btVector3 mScale;
     SimulationType mSimType;
 };
@@ -54,6 +54,8 @@ void BulletWorld::initialize() {
     mPhysicsWorld->setGravity(btVector3(0, -10, 0));
 
     mDraggingConstraint = nullptr;
+    mInterpolating = false;
+    mTeleportThreshold = 0.1f;
 }
 
 void BulletWorld::finalize() {
@@ -122,16 +124,21 @@ void BulletWorld::stopDrag() {
 void BulletWorld::addRigidBody(PhysicsRigidBody *body) {
     btRigidBody *b = (static_cast<BulletRigidBody *>(body))->getRigidBody();
     body->updateConstructionInfo();
+    static_cast<BulletRigidBody *>(body)->setInterpolated(mInterpolating);
+    static_cast<BulletRigidBody *>(body)->setTeleportThreshold(mTeleportThreshold);
     mPhysicsWorld->addRigidBody(b);
 }
 
 void BulletWorld::addRigidBody(PhysicsRigidBody *body, int collisiontype, int collidesWith) {
     body->updateConstructionInfo();
+    static_cast<BulletRigidBody *>(body)->setInterpolated(mInterpolating);
+    static_cast<BulletRigidBody *>(body)->setTeleportThreshold(mTeleportThreshold);
     mPhysicsWorld->addRigidBody((static_cast<BulletRigidBody *>(body))->getRigidBody(),
                                 collidesWith, collisiontype);
 }
 
 void BulletWorld::removeRigidBody(PhysicsRigidBody *body) {
+    static_cast<BulletRigidBody *>(body)->setInterpolated(false);
     mPhysicsWorld->removeRigidBody((static_cast<BulletRigidBody *>(body))->getRigidBody());
 }
 
@@ -145,69 +152,97 @@ void BulletWorld::step(float timeStep, int maxSubSteps) {
     mPhysicsWorld->stepSimulation(timeStep, maxSubSteps);
 }
 
-/**
- * Returns by reference the list of new and ceased collisions
- *  that will be the objects of ONENTER and ONEXIT events.
- */
-void BulletWorld::listCollisions(std::list <ContactPoint> &contactPoints) {
+void BulletWorld::stepFixed(float timeStep) {
+    // No sub steps, the simulation advances by exactly timeStep
+    step(timeStep, 0);
+}
 
-/*
- * Creates a list of all the current collisions on the World
- * */
-    std::map<std::pair<long,long>, ContactPoint> currCollisions;
-    int numManifolds = mPhysicsWorld->getDispatcher()->getNumManifolds();
-    btPersistentManifold *contactManifold;
+void BulletWorld::commitStates() {
+    if (!mInterpolating) {
+        return;
+    }
+    btCollisionObjectArray& objects = mPhysicsWorld->getCollisionObjectArray();
 
-    for (int i = 0; i < numManifolds; i++) {
-        ContactPoint contactPt;
+    for (int i = 0; i < objects.size(); ++i) {
+        BulletRigidBody *body = static_cast<BulletRigidBody *>(objects[i]->getUserPointer());
+        if (body != nullptr && body->isInterpolated()) {
+            body->commitState();
+        }
+    }
+}
 
-        contactManifold = mPhysicsWorld->getDispatcher()->
-                getManifoldByIndexInternal(i);
+void BulletWorld::setInterpolation(bool enabled) {
+    btCollisionObjectArray& objects = mPhysicsWorld->getCollisionObjectArray();
 
-        contactPt.body0 = (BulletRigidBody *) (contactManifold->getBody0()->getUserPointer());
-        contactPt.body1 = (BulletRigidBody *) (contactManifold->getBody1()->getUserPointer());
-        contactPt.normal[0] = contactManifold->getContactPoint(0).m_normalWorldOnB.getX();
-        contactPt.normal[1] = contactManifold->getContactPoint(0).m_normalWorldOnB.getY();
-        contactPt.normal[2] = contactManifold->getContactPoint(0).m_normalWorldOnB.getZ();
-        contactPt.distance = contactManifold->getContactPoint(0).getDistance();
-        contactPt.isHit = true;
-
-        std::pair<long, long> collisionPair((long)contactPt.body0, (long)contactPt.body1);
-        std::pair<std::pair<long, long>, ContactPoint> newPair(collisionPair, contactPt);
-        currCollisions.insert(newPair);
-
-        /*
-         * If one of these current collisions is not on the list with all the previous
-         * collision, then it should be on the return list, because it is an onEnter event
-         * */
-        auto it = prevCollisions.find(collisionPair);
-        if ( it == prevCollisions.end()) {
-            contactPoints.push_front(contactPt);
-        } 
-        contactManifold = 0;
+    mInterpolating = enabled;
+    for (int i = 0; i < objects.size(); ++i) {
+        BulletRigidBody *body = static_cast<BulletRigidBody *>(objects[i]->getUserPointer());
+        if (body != nullptr) {
+            body->setInterpolated(enabled);
+        }
     }
+}
+
+void BulletWorld::setInterpolationThreshold(float distance) {
+    btCollisionObjectArray& objects = mPhysicsWorld->getCollisionObjectArray();
 
-    /*
-     * After going through all the current list, go through all the previous collisions list,
-     * if one of its collisions is not on the current collision list, then it should be
-     * on the return list, because it is an onExit event
-     * */
-    for (auto it = prevCollisions.begin(); it != prevCollisions.end(); ++it) {
-        if (currCollisions.find(it->first) == currCollisions.end()) {
-            ContactPoint cp = it->second;
-            cp.isHit = false;
-            contactPoints.push_front(cp);
+    mTeleportThreshold = distance;
+    for (int i = 0; i < objects.size(); ++i) {
+        BulletRigidBody *body = static_cast<BulletRigidBody *>(objects[i]->getUserPointer());
+        if (body != nullptr) {
+            body->setTeleportThreshold(distance);
         }
     }
+}
 
-/*
- * Save all the current collisions on the previous collisions list for the next iteration
- * */
-    prevCollisions.clear();
-    prevCollisions.swap(currCollisions);
+void BulletWorld::interpolate(float alpha) {
+    if (!mInterpolating) {
+        return;
+    }
+    btCollisionObjectArray& objects = mPhysicsWorld->getCollisionObjectArray();
 
+    for (int i = 0; i < objects.size(); ++i) {
+        BulletRigidBody *body = static_cast<BulletRigidBody *>(objects[i]->getUserPointer());
+        if (body != nullptr && body->isInterpolated()) {
+            body->interpolate(alpha);
+        }
+    }
 }
 
+/**
+ * Returns the pairs of bodies which have at least one contact point.
+ * The Java side compares them with the previous step to find out which
+ * collisions start, go on and end.
+ */
+const std::vector<ContactPoint>& BulletWorld::listContacts() {
+    btDispatcher *dispatcher = mPhysicsWorld->getDispatcher();
+    int numManifolds = dispatcher->getNumManifolds();
+
+    mContacts.clear();
+    for (int i = 0; i < numManifolds; i++) {
+        btPersistentManifold *contactManifold = dispatcher->getManifoldByIndexInternal(i);
+
+        // Overlapping bounding boxes make a manifold before the bodies touch
+        if (contactManifold->getNumContacts() <= 0) {
+            continue;
+        }
+
+        ContactPoint contactPt;
+        const btManifoldPoint& pt = contactManifold->getContactPoint(0);
+
+        contactPt.body0 = (BulletRigidBody *) (contactManifold->getBody0()->getUserPointer());
+        contactPt.body1 = (BulletRigidBody *) (contactManifold->getBody1()->getUserPointer());
+        if (contactPt.body0 == 0 || contactPt.body1 == 0) {
+            continue;
+        }
+        contactPt.normal[0] = pt.m_normalWorldOnB.getX();
+        contactPt.normal[1] = pt.m_normalWorldOnB.getY();
+        contactPt.normal[2] = pt.m_normalWorldOnB.getZ();
+        contactPt.distance = pt.getDistance();
+        mContacts.push_back(contactPt);
+    }
+    return mContacts;
+}
 
 void BulletWorld::setGravity(float x, float y, float z) {
     mPhysicsWorld->setGravity(btVector3(x, y, z));
@@ -24,7 +24,7 @@
 #include "../physics_world.h"
 
 #include <utility>
-#include <map>
+#include <vector>
 #include <BulletDynamics/ConstraintSolver/btPoint2PointConstraint.h>
 
 class btDynamicsWorld;
@@ -61,7 +61,17 @@ class BulletWorld : public PhysicsWorld {
 
     void step(float timeStep, int maxSubSteps);
 
-    void listCollisions(std::list <ContactPoint> &contactPoints);
+    void stepFixed(float timeStep);
+
+    void commitStates();
+
+    void setInterpolation(bool enabled);
+
+    void setInterpolationThreshold(float distance);
+
+    void interpolate(float alpha);
+
+    const std::vector<ContactPoint>& listContacts();
 
     void setGravity(float x, float y, float z);
 
@@ -75,7 +85,9 @@ class BulletWorld : public PhysicsWorld {
     void finalize();
 
  private:
-    std::map<std::pair <long,long>, ContactPoint> prevCollisions;
+    std::vector<ContactPoint> mContacts;
+    bool mInterpolating;
+    float mTeleportThreshold;
     btDynamicsWorld *mPhysicsWorld;
     btCollisionConfiguration *mCollisionConfiguration;
     btCollisionDispatcher *mDispatcher;
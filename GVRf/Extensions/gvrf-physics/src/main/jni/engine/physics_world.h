@@ -24,7 +24,7 @@
 #include "physics_rigidbody.h"
 #include "physics_constraint.h"
 #include "../objects/scene_object.h"
-#include <list>
+#include <vector>
 
 namespace gvr {
 
@@ -33,7 +33,6 @@ struct ContactPoint {
 	PhysicsRigidBody* body1 = 0;
 	float normal[3] = {0.0f, 0.0f, 0.0f};
 	float distance = 0.0f;
-	bool isHit = true;
 };
 
 class PhysicsWorld : public Component {
@@ -63,7 +62,41 @@ public:
 
     virtual void step(float timeStep, int maxSubSteps) = 0;
 
-    virtual void listCollisions(std::list<ContactPoint>& contactPoints) = 0;
+    /**
+     * Steps the simulation by exactly timeStep seconds.
+     */
+    virtual void stepFixed(float timeStep) = 0;
+
+    /**
+     * Saves the states of the interpolated bodies after a fixed step.
+     * The states, the interpolation settings and the list of bodies are
+     * guarded by the lock of the Java world, which the caller holds.
+     */
+    virtual void commitStates() = 0;
+
+    /**
+     * Makes the rendering thread interpolate the dynamic bodies between
+     * the states of the last two fixed steps.
+     */
+    virtual void setInterpolation(bool enabled) = 0;
+
+    /**
+     * Sets how far the scene object of an interpolated body must be moved
+     * along an axis for the body to be moved to it at the next step.
+     */
+    virtual void setInterpolationThreshold(float distance) = 0;
+
+    /**
+     * Moves the interpolated bodies between their last two states.
+     * @param alpha fraction of a step elapsed since the last state, from 0 to 1.
+     */
+    virtual void interpolate(float alpha) = 0;
+
+    /**
+     * Returns the pairs of bodies touching after the last step.
+     * The list is reused and only valid until the next step.
+     */
+    virtual const std::vector<ContactPoint>& listContacts() = 0;
 
     virtual void setGravity(float gx, float gy, float gz) = 0;
 
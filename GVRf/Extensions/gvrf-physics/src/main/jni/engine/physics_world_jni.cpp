@@ -71,9 +71,29 @@ extern "C" {
     Java_org_gearvrf_physics_NativePhysics3DWorld_step(JNIEnv * env, jobject obj,
             jlong jworld, jfloat jtime_step, int maxSubSteps);
 
-    JNIEXPORT jobjectArray JNICALL
-    Java_org_gearvrf_physics_NativePhysics3DWorld_listCollisions(JNIEnv * env, jobject obj,
-                                                                    jlong jworld);
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_stepFixed(JNIEnv * env, jobject obj,
+            jlong jworld, jfloat jtime_step);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_commitStates(JNIEnv * env, jobject obj,
+            jlong jworld);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_setInterpolation(JNIEnv * env, jobject obj,
+            jlong jworld, jboolean enabled);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_setInterpolationThreshold(JNIEnv * env,
+            jobject obj, jlong jworld, jfloat jdistance);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_interpolate(JNIEnv * env, jobject obj,
+            jlong jworld, jfloat jalpha);
+
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_listContacts(JNIEnv * env, jobject obj,
+            jlong jworld, jlongArray jbodies, jfloatArray jdata);
 
     JNIEXPORT void JNICALL
     Java_org_gearvrf_physics_NativePhysics3DWorld_setGravity(JNIEnv* env, jobject obj,
@@ -166,39 +186,81 @@ Java_org_gearvrf_physics_NativePhysics3DWorld_step(JNIEnv * env, jobject obj,
     world->step((float)jtime_step, maxSubSteps);
 }
 
-JNIEXPORT jobjectArray JNICALL
-Java_org_gearvrf_physics_NativePhysics3DWorld_listCollisions(JNIEnv * env, jobject obj, jlong jworld) {
+JNIEXPORT void JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_stepFixed(JNIEnv * env, jobject obj,
+        jlong jworld, jfloat jtime_step) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
 
-    jclass collisionInfoClass = env->FindClass("org/gearvrf/physics/GVRCollisionInfo");
-    jmethodID collisionInfoConstructor = env->GetMethodID(collisionInfoClass, "<init>", "(JJ[FFZ)V");
+    world->stepFixed((float)jtime_step);
+}
 
-    PhysicsWorld *world = reinterpret_cast <PhysicsWorld*> (jworld);
-    std::list <ContactPoint> contactPoints;
+JNIEXPORT void JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_commitStates(JNIEnv * env, jobject obj,
+        jlong jworld) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
 
-    world->listCollisions(contactPoints);
+    world->commitStates();
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_setInterpolation(JNIEnv * env, jobject obj,
+        jlong jworld, jboolean enabled) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
+
+    world->setInterpolation(enabled);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_setInterpolationThreshold(JNIEnv * env,
+        jobject obj, jlong jworld, jfloat jdistance) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
 
-    int size = contactPoints.size();
-    jobjectArray jNewList = env->NewObjectArray(size, collisionInfoClass, NULL);
+    world->setInterpolationThreshold((float)jdistance);
+}
 
-    int i = 0;
-    for (auto it = contactPoints.begin(); it != contactPoints.end(); ++it) {
-        const ContactPoint& data = *it;
+JNIEXPORT void JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_interpolate(JNIEnv * env, jobject obj,
+        jlong jworld, jfloat jalpha) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
 
-        jfloatArray normal = env->NewFloatArray(3);
-        env->SetFloatArrayRegion(normal, 0, 3, data.normal);
+    world->interpolate((float)jalpha);
+}
 
-        jobject contactObject = env->NewObject(collisionInfoClass, collisionInfoConstructor,
-                                               (jlong)data.body0, (jlong)data.body1,
-                                               (jfloatArray)normal, (jfloat)data.distance,
-                                               (jboolean)data.isHit);
+/*
+ * Copies the contacts into arrays owned by the Java world, two bodies
+ * and four floats (normal and distance) per contact. Nothing is written
+ * if the arrays are too small, the Java side grows them and asks again.
+ */
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_listContacts(JNIEnv * env, jobject obj,
+        jlong jworld, jlongArray jbodies, jfloatArray jdata) {
+    PhysicsWorld *world = reinterpret_cast <PhysicsWorld*> (jworld);
+    const std::vector<ContactPoint>& contacts = world->listContacts();
+    int n = static_cast<int>(contacts.size());
 
-        env->SetObjectArrayElement(jNewList, i++, contactObject);
-        env->DeleteLocalRef(contactObject);
-        env->DeleteLocalRef(normal);
+    if ((n == 0) ||
+        (env->GetArrayLength(jbodies) < n * 2) ||
+        (env->GetArrayLength(jdata) < n * 4)) {
+        return n;
     }
 
-    env->DeleteLocalRef(collisionInfoClass);
-    return jNewList;
+    jlong* bodies = env->GetLongArrayElements(jbodies, 0);
+    jfloat* data = env->GetFloatArrayElements(jdata, 0);
+
+    for (int i = 0; i < n; ++i) {
+        const ContactPoint& contact = contacts[i];
+        jfloat* f = data + i * 4;
+
+        bodies[i * 2] = reinterpret_cast<jlong>(contact.body0);
+        bodies[i * 2 + 1] = reinterpret_cast<jlong>(contact.body1);
+        f[0] = contact.normal[0];
+        f[1] = contact.normal[1];
+        f[2] = contact.normal[2];
+        f[3] = contact.distance;
+    }
+    env->ReleaseFloatArrayElements(jdata, data, 0);
+    env->ReleaseLongArrayElements(jbodies, bodies, 0);
+    return n;
 }
 
 JNIEXPORT void JNICALL
@@ -0,0 +1,194 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.physics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FixedTimeStepTest {
+    private static final long MS = 1000000L;
+    private static final long STEP = 10 * MS;
+
+    /*
+     * Records the calls made by the clock, 's' for a step and 'c' for a commit.
+     */
+    private static class TestSimulation implements FixedTimeStep.Simulation {
+        final StringBuilder mCalls = new StringBuilder();
+        float mStepSeconds;
+        float mAlpha = -1;
+        int mInterpolations;
+        Runnable mOnCommit;
+
+        @Override
+        public void step(float seconds) {
+            mStepSeconds = seconds;
+            mCalls.append('s');
+        }
+
+        @Override
+        public void commit() {
+            mCalls.append('c');
+            if (mOnCommit != null) {
+                mOnCommit.run();
+            }
+        }
+
+        @Override
+        public void interpolate(float alpha) {
+            mAlpha = alpha;
+            ++mInterpolations;
+        }
+    }
+
+    private FixedTimeStep mClock;
+    private TestSimulation mSimulation;
+
+    @Before
+    public void setUp() {
+        mClock = new FixedTimeStep();
+        mSimulation = new TestSimulation();
+        mClock.setStep(STEP, 3, 0);
+    }
+
+    @Test
+    public void makesTheStepsWhichFitInTheElapsedTime() {
+        assertEquals(0, mClock.advance(5 * MS, mSimulation));
+        assertEquals(5 * MS, mClock.getNanosUntilNextStep());
+
+        assertEquals(2, mClock.advance(25 * MS, mSimulation));
+        assertEquals("scsc", mSimulation.mCalls.toString());
+        assertEquals(0.01f, mSimulation.mStepSeconds, 0);
+        assertEquals(5 * MS, mClock.getNanosUntilNextStep());
+
+        assertEquals(1, mClock.advance(30 * MS, mSimulation));
+        assertEquals(STEP, mClock.getNanosUntilNextStep());
+    }
+
+    @Test
+    public void dropsTheTimeWhichCannotBeCaughtUp() {
+        assertEquals(3, mClock.advance(105 * MS, mSimulation));
+        assertEquals(5 * MS, mClock.getNanosUntilNextStep());
+
+        assertEquals(1, mClock.advance(110 * MS, mSimulation));
+        assertEquals(STEP, mClock.getNanosUntilNextStep());
+    }
+
+    @Test
+    public void resetDropsTheAccumulatedTime() {
+        mClock.advance(8 * MS, mSimulation);
+        mClock.reset(50 * MS);
+        assertEquals(STEP, mClock.getNanosUntilNextStep());
+        assertEquals(0, mClock.advance(58 * MS, mSimulation));
+        assertEquals(1, mClock.advance(60 * MS, mSimulation));
+    }
+
+    @Test
+    public void noStepWithoutAFixedStep() {
+        mClock.setStep(0, 3, 0);
+        assertFalse(mClock.isEnabled());
+        assertEquals(0, mClock.advance(100 * MS, mSimulation));
+        assertFalse(mClock.interpolate(100 * MS, mSimulation));
+        assertEquals("", mSimulation.mCalls.toString());
+        assertEquals(0, mSimulation.mInterpolations);
+    }
+
+    /*
+     * The state of the last step is rendered as is when the accumulator
+     * would be full again, so the bodies are one step behind.
+     */
+    @Test
+    public void alphaGoesFromTheLastStateToTheNext() {
+        mClock.advance(25 * MS, mSimulation);
+        assertEquals(0, mClock.getAlpha(15 * MS), 0);
+        assertEquals(0, mClock.getAlpha(20 * MS), 0);
+        assertEquals(0.5f, mClock.getAlpha(25 * MS), 1e-6f);
+        assertEquals(1, mClock.getAlpha(30 * MS), 0);
+        assertEquals(1, mClock.getAlpha(45 * MS), 0);
+
+        assertTrue(mClock.interpolate(27 * MS, mSimulation));
+        assertEquals(0.7f, mSimulation.mAlpha, 1e-6f);
+    }
+
+    @Test
+    public void alphaStartsOverAfterEachStep() {
+        mClock.advance(10 * MS, mSimulation);
+        assertEquals(0.5f, mClock.getAlpha(15 * MS), 1e-6f);
+        mClock.advance(20 * MS, mSimulation);
+        assertEquals(0.5f, mClock.getAlpha(25 * MS), 1e-6f);
+        mClock.advance(32 * MS, mSimulation);
+        assertEquals(0.2f, mClock.getAlpha(32 * MS), 1e-6f);
+        assertEquals(0.5f, mClock.getAlpha(35 * MS), 1e-6f);
+    }
+
+    /*
+     * A frame rendered while a step saves its states keeps the previous
+     * transforms instead of waiting for the physics thread.
+     */
+    @Test
+    public void frameDuringACommitIsSkipped() {
+        final boolean[] interpolated = { true };
+
+        mSimulation.mOnCommit = new Runnable() {
+            @Override
+            public void run() {
+                interpolated[0] = interpolateOnAnotherThread(15 * MS);
+            }
+        };
+        assertEquals(1, mClock.advance(10 * MS, mSimulation));
+        assertFalse(interpolated[0]);
+        assertEquals(0, mSimulation.mInterpolations);
+
+        mSimulation.mOnCommit = null;
+        assertTrue(interpolateOnAnotherThread(15 * MS));
+        assertEquals(1, mSimulation.mInterpolations);
+        assertEquals(0.5f, mSimulation.mAlpha, 1e-6f);
+    }
+
+    @Test
+    public void frameWhileBodiesChangeIsSkipped() {
+        mClock.lock();
+        try {
+            assertFalse(interpolateOnAnotherThread(5 * MS));
+        } finally {
+            mClock.unlock();
+        }
+        assertEquals(0, mSimulation.mInterpolations);
+        assertTrue(interpolateOnAnotherThread(5 * MS));
+    }
+
+    private boolean interpolateOnAnotherThread(final long time) {
+        final boolean[] result = new boolean[1];
+        final Thread renderer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = mClock.interpolate(time, mSimulation);
+            }
+        });
+
+        renderer.start();
+        try {
+            renderer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertFalse("the rendering thread waited for the lock", renderer.isAlive());
+        return result[0];
+    }
+}
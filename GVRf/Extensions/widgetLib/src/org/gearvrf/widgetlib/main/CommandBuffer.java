@@ -2,58 +2,50 @@ package org.gearvrf.widgetlib.main;
 
 import android.support.annotation.NonNull;
 
-import org.gearvrf.widgetlib.thread.ConcurrentListPool;
-import org.gearvrf.widgetlib.thread.ConcurrentObjectPool;
 import org.gearvrf.widgetlib.thread.MainThread;
 import org.gearvrf.widgetlib.widget.Widget;
 
 import org.gearvrf.GVRContext;
-import org.gearvrf.utility.Log;
-
-import java.util.List;
 
 /**
  * A utility class for buffering {@link Runnable} "commands" for batch execution on the {@linkplain
  * GVRContext#runOnGlThread(Runnable) GL thread}.
  * <p>
- * Although instances of {@link Runnable} can be directly {@linkplain CommandBuffer#add(Runnable)
- * added to the buffer}, the {@link Command} class makes management of command instances a bit
- * easier and reduces memory fragmentation and usage by {@linkplain ConcurrentObjectPool pooling}
- * instances.
- * <p>
- * The typical implementation pattern for a command using {@link Command} looks like this:
+ * The commands are recorded in a {@link CommandRing} and each flushed buffer is posted to the GL
+ * thread as one {@linkplain CommandRing.Batch batch}. Typed commands are recorded with an opcode
+ * {@linkplain CommandRing#register(CommandRing.Executor) registered} with the ring and the
+ * {@code add(int, ...)} methods, which record their parameters without boxing or allocating:
  * <pre>
  *     static final class MyCommand {
- *         // MyCommand provides its own buffer() method to
- *         // ensure type correctness and proper ordering
- *         // of its parameters
- *         static void buffer(Foo foo, Bar bar) {
- *             Command.buffer(foo, bar);
+ *         static void buffer(Foo foo, float bar) {
+ *             WidgetLib.getCommandBuffer().add(OPCODE, foo, bar);
  *         }
  *
- *         private static final Executor sExecutor = new Executor() {
- *             public void exec(Object... params) {
- *                 // Unpack the command's parameters
- *                 final Foo foo = (Foo) args[0];
- *                 final Bar bar = (Bar) args[1];
+ *         private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
+ *             public void exec(CommandRing.Batch batch) {
+ *                 final Foo foo = batch.nextObject();
+ *                 final float bar = batch.nextFloat();
  *
  *                 foo.qux(bar);
  *             }
- *         }
+ *         });
  *     }
  * </pre>
  * The typical usage pattern looks like this:
  * <pre>
  *     MyCommand.buffer(aFoo, aBar);
  * </pre>
+ * Instances of {@link Runnable} can also be directly {@linkplain CommandBuffer#add(Runnable) added
+ * to the buffer}, and {@link Command} records commands with {@link Object} parameters.
  */
 public class CommandBuffer {
 
     /**
-     * An extension of {@link Runnable} that manages the boiler-plate of releasing back to a
-     * {@linkplain ConcurrentObjectPool pool} after running.
+     * Records a command whose parameters are passed as {@link Object Objects}. The parameters of
+     * primitive types are boxed; prefer the typed {@code add(int, ...)} methods of
+     * {@link CommandBuffer} for commands recorded often.
      */
-    static public final class Command implements Runnable {
+    static public final class Command {
         /**
          * Interface for the execution of the command, encapsulating the command's logic.
          */
@@ -70,8 +62,8 @@ public class CommandBuffer {
         }
 
         /**
-         * Packages the {@link Executor} and its parameters into an instance of {@link Command}, and
-         * {@linkplain CommandBuffer#add(Runnable) adds} it to the current {@link CommandBuffer}.
+         * {@linkplain CommandBuffer#add(int, Object, Object) Adds} the {@link Executor} and its
+         * parameters to the current {@link CommandBuffer}.
          *
          * @param executor An implementation of {@link Executor}
          * @param params   The parameters used by {@code executor}.  Since these are raw {@link Object}
@@ -80,9 +72,7 @@ public class CommandBuffer {
          *                 CommandBuffer}.
          */
         public static void buffer(Executor executor, Object... params) {
-            Command command = sPool.acquire();
-            command.setup(executor, params);
-            WidgetLib.getCommandBuffer().add(command);
+            WidgetLib.getCommandBuffer().add(OPCODE, executor, params);
         }
 
         /**
@@ -91,30 +81,14 @@ public class CommandBuffer {
         private Command() {
         }
 
-        /**
-         * {@link Executor#exec(Object...) Executes} the command's logic and releases this instance
-         * back to the {@link ConcurrentObjectPool pool}.
-         */
-        @Override
-        public void run() {
-            mExecutor.exec(mArgs);
-            sPool.release(this);
-        }
-
-        private void setup(Executor executor, Object... args) {
-            mExecutor = executor;
-            mArgs = args;
-        }
-
-        private Executor mExecutor;
-        private Object[] mArgs;
-
-        private static final ConcurrentObjectPool<Command> sPool = new ConcurrentObjectPool<Command>(Command.class.getSimpleName()) {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            protected Command create() {
-                return new Command();
+            public void exec(CommandRing.Batch batch) {
+                final Executor executor = batch.nextObject();
+                final Object[] params = batch.nextObject();
+                executor.exec(params);
             }
-        };
+        });
     }
 
     /**
@@ -125,9 +99,6 @@ public class CommandBuffer {
      */
     public void start() {
         synchronized (mBufferLock) {
-            if (mCurrentBuffer == null) {
-                mCurrentBuffer = mBuffers.acquire();
-            }
             ++mBufferDepth;
         }
     }
@@ -141,11 +112,105 @@ public class CommandBuffer {
      */
     public void add(@NonNull Runnable command) {
         synchronized (mBufferLock) {
-            if (mCurrentBuffer == null) {
-                mContext.runOnGlThread(command);
-            } else {
-                mCurrentBuffer.add(command);
-            }
+            mRing.add(RUNNABLE_OPCODE).putObject(command);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * Add a typed command to the current buffer.  If no buffer has been {@linkplain #start()
+     * started}, the command will be {@linkplain GVRContext#runOnGlThread(Runnable) posted}
+     * directly to the GL thread to be executed in the next frame.
+     *
+     * @param opcode An opcode {@linkplain CommandRing#register(CommandRing.Executor) registered}
+     *               with the ring; its executor reads the parameters in the order given here.
+     */
+    public void add(int opcode, Object target) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * See {@link #add(int, Object)}.
+     */
+    public void add(int opcode, Object target, Object value) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target).putObject(value);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * See {@link #add(int, Object)}.
+     */
+    public void add(int opcode, Object target, Object value0, Object value1) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target).putObject(value0).putObject(value1);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * See {@link #add(int, Object)}.
+     */
+    public void add(int opcode, Object target, Object value0, Object value1, Object value2,
+                    Object value3) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target).putObject(value0).putObject(value1)
+                    .putObject(value2).putObject(value3);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * See {@link #add(int, Object)}.
+     */
+    public void add(int opcode, Object target, int value) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target).putInt(value);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * See {@link #add(int, Object)}.
+     */
+    public void add(int opcode, Object target, int value0, int value1, int value2) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target).putInt(value0).putInt(value1).putInt(value2);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * See {@link #add(int, Object)}.
+     */
+    public void add(int opcode, Object target, boolean value) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target).putBoolean(value);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * See {@link #add(int, Object)}.
+     */
+    public void add(int opcode, Object target, float value) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target).putFloat(value);
+            postIfNotBuffered();
+        }
+    }
+
+    /**
+     * See {@link #add(int, Object)}.
+     */
+    public void add(int opcode, Object target, float value0, float value1, float value2) {
+        synchronized (mBufferLock) {
+            mRing.add(opcode).putObject(target).putFloat(value0).putFloat(value1).putFloat(value2);
+            postIfNotBuffered();
         }
     }
 
@@ -158,16 +223,11 @@ public class CommandBuffer {
      */
     public void flush() {
         synchronized (mBufferLock) {
-            if (mCurrentBuffer == null) {
+            if (mBufferDepth == 0) {
                 throw new IllegalStateException("No buffer to flush!");
             }
             --mBufferDepth;
-            if (mBufferDepth == 0) {
-                final GLRunnable r = mRunnablePool.acquire();
-                r.set(mCurrentBuffer);
-                mCurrentBuffer = null;
-                mContext.runOnGlThread(r);
-            }
+            postIfNotBuffered();
         }
     }
 
@@ -176,35 +236,25 @@ public class CommandBuffer {
         mContext = context;
     }
 
-    private final class GLRunnable implements Runnable {
-        @Override
-        public void run() {
-            for (Runnable c : mBuffer) {
-                c.run();
+    private void postIfNotBuffered() {
+        if (mBufferDepth == 0) {
+            final CommandRing.Batch batch = mRing.close();
+            if (batch != null) {
+                mContext.runOnGlThread(batch);
             }
-            mBuffers.release(mBuffer);
-            mBuffer = null;
-            mRunnablePool.release(this);
         }
-
-        public void set(List<Runnable> buffer) {
-            mBuffer = buffer;
-        }
-
-        private List<Runnable> mBuffer;
     }
 
     private final GVRContext mContext;
-    private final ConcurrentListPool<Runnable> mBuffers = new ConcurrentListPool<>(TAG) ;
+    private final CommandRing mRing = new CommandRing();
     private int mBufferDepth;
     private final Object[] mBufferLock = new Object[0];
-    private List<Runnable> mCurrentBuffer;
-    private final ConcurrentObjectPool<GLRunnable> mRunnablePool = new ConcurrentObjectPool<GLRunnable>("GLRunnable Pool") {
+
+    private static final int RUNNABLE_OPCODE = CommandRing.register(new CommandRing.Executor() {
         @Override
-        protected GLRunnable create() {
-            return new GLRunnable();
+        public void exec(CommandRing.Batch batch) {
+            final Runnable command = batch.nextObject();
+            command.run();
         }
-    };
-
-    private static final String TAG = Log.tag(CommandBuffer.class);
+    });
 }
@@ -0,0 +1,318 @@
+package org.gearvrf.widgetlib.main;
+
+import java.util.Arrays;
+
+/**
+ * A ring of typed commands, recorded on one thread and replayed on another without boxing their
+ * parameters or allocating per command.
+ * <p>
+ * Each command is an opcode followed by its parameters. The opcodes go to an {@code int} lane and
+ * the parameters to {@code int}, {@code float} and {@link Object} lanes, each a circular array.
+ * Recorded commands are {@linkplain #close() closed} into a {@link Batch}, a {@link Runnable} that
+ * replays them by calling the {@link Executor} {@linkplain #register(Executor) registered} for each
+ * opcode. The executor reads the parameters of its command in the order they were recorded.
+ * <p>
+ * The batches must be run in the order they were closed. Recording is not thread-safe, the
+ * recording thread must serialize its calls; running a batch can be done concurrently with
+ * recording. When a lane is full, it is replaced with a larger one; the batches already closed
+ * keep replaying from the old lanes. Once the lanes are large enough, recording and replaying do
+ * not allocate.
+ * <p>
+ * The typical implementation pattern for a command looks like this:
+ * <pre>
+ *     static final class MyCommand {
+ *         static void buffer(CommandRing ring, Foo foo, float bar) {
+ *             ring.add(OPCODE).putObject(foo).putFloat(bar);
+ *         }
+ *
+ *         private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
+ *             public void exec(CommandRing.Batch batch) {
+ *                 final Foo foo = batch.nextObject();
+ *                 final float bar = batch.nextFloat();
+ *
+ *                 foo.qux(bar);
+ *             }
+ *         });
+ *     }
+ * </pre>
+ */
+public final class CommandRing {
+    /**
+     * Replays the commands of one opcode.
+     */
+    public interface Executor {
+        /**
+         * Reads the parameters of the command from {@code batch}, in the order they were recorded,
+         * and executes the command. All of them have to be read.
+         *
+         * @param batch The batch being replayed.
+         */
+        void exec(Batch batch);
+    }
+
+    /**
+     * Registers an {@link Executor} for a new opcode. Typically called once per command, from a
+     * static initializer.
+     *
+     * @param executor Replays the commands recorded with the opcode.
+     * @return The opcode to {@linkplain #add(int) record} the commands with.
+     */
+    public static int register(Executor executor) {
+        synchronized (sExecutorLock) {
+            final int opcode = sExecutors.length;
+            final Executor[] executors = Arrays.copyOf(sExecutors, opcode + 1);
+            executors[opcode] = executor;
+            sExecutors = executors;
+            return opcode;
+        }
+    }
+
+    /**
+     * Starts recording a command. Its parameters are recorded with the {@code put} methods.
+     *
+     * @param opcode An opcode returned by {@link #register(Executor)}.
+     * @return This ring, to record the parameters.
+     */
+    public CommandRing add(int opcode) {
+        if (opcode < 0 || opcode >= sExecutors.length) {
+            throw new IllegalArgumentException("Unknown opcode: " + opcode);
+        }
+        Lanes lanes = mLanes;
+        if (lanes.opTail - lanes.opHead == lanes.ops.length) {
+            lanes = grow(Lanes.OPS);
+        }
+        lanes.ops[lanes.opTail++ & (lanes.ops.length - 1)] = opcode;
+        return this;
+    }
+
+    public CommandRing putInt(int value) {
+        Lanes lanes = mLanes;
+        if (lanes.intTail - lanes.intHead == lanes.ints.length) {
+            lanes = grow(Lanes.INTS);
+        }
+        lanes.ints[lanes.intTail++ & (lanes.ints.length - 1)] = value;
+        return this;
+    }
+
+    public CommandRing putBoolean(boolean value) {
+        return putInt(value ? 1 : 0);
+    }
+
+    public CommandRing putFloat(float value) {
+        Lanes lanes = mLanes;
+        if (lanes.floatTail - lanes.floatHead == lanes.floats.length) {
+            lanes = grow(Lanes.FLOATS);
+        }
+        lanes.floats[lanes.floatTail++ & (lanes.floats.length - 1)] = value;
+        return this;
+    }
+
+    public CommandRing putObject(Object value) {
+        Lanes lanes = mLanes;
+        if (lanes.objectTail - lanes.objectHead == lanes.objects.length) {
+            lanes = grow(Lanes.OBJECTS);
+        }
+        lanes.objects[lanes.objectTail++ & (lanes.objects.length - 1)] = value;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if no command has been recorded since the last {@link #close()}.
+     */
+    public boolean isEmpty() {
+        return mLanes.opTail == mOpStart;
+    }
+
+    /**
+     * Closes the commands recorded since the last call into a batch.
+     *
+     * @return The batch to {@linkplain Batch#run() run}, or {@code null} if no command has been
+     * recorded.
+     */
+    public Batch close() {
+        if (isEmpty()) {
+            return null;
+        }
+        final Lanes lanes = mLanes;
+        final Batch batch;
+        synchronized (mLock) {
+            batch = mFreeCount > 0 ? mFreeBatches[--mFreeCount] : new Batch();
+        }
+        batch.set(lanes, mOpStart, mIntStart, mFloatStart, mObjectStart);
+        mOpStart = lanes.opTail;
+        mIntStart = lanes.intTail;
+        mFloatStart = lanes.floatTail;
+        mObjectStart = lanes.objectTail;
+        return batch;
+    }
+
+    /**
+     * The commands recorded between two calls to {@link CommandRing#close()}.
+     */
+    public final class Batch implements Runnable {
+        /**
+         * Replays the commands, then gives their space in the ring back for recording. Must only
+         * be called once.
+         */
+        @Override
+        public void run() {
+            final Executor[] executors = sExecutors;
+            final int[] ops = mRunLanes.ops;
+            final int opMask = ops.length - 1;
+
+            try {
+                for (int op = mOpStart; op != mOpEnd; ++op) {
+                    executors[ops[op & opMask]].exec(this);
+                }
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            final Object[] objects = mRunLanes.objects;
+            final int objectMask = objects.length - 1;
+            for (int i = mObjectStart; i != mObjectEnd; ++i) {
+                objects[i & objectMask] = null;
+            }
+
+            synchronized (mLock) {
+                mRunLanes.opHead = mOpEnd;
+                mRunLanes.intHead = mIntEnd;
+                mRunLanes.floatHead = mFloatEnd;
+                mRunLanes.objectHead = mObjectEnd;
+                mRunLanes = null;
+                if (mFreeCount == mFreeBatches.length) {
+                    mFreeBatches = Arrays.copyOf(mFreeBatches, mFreeCount * 2);
+                }
+                mFreeBatches[mFreeCount++] = this;
+            }
+        }
+
+        public int nextInt() {
+            return mRunLanes.ints[mInt++ & (mRunLanes.ints.length - 1)];
+        }
+
+        public boolean nextBoolean() {
+            return nextInt() != 0;
+        }
+
+        public float nextFloat() {
+            return mRunLanes.floats[mFloat++ & (mRunLanes.floats.length - 1)];
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T nextObject() {
+            return (T) mRunLanes.objects[mObject++ & (mRunLanes.objects.length - 1)];
+        }
+
+        private void set(Lanes lanes, int opStart, int intStart, int floatStart, int objectStart) {
+            mRunLanes = lanes;
+            mOpStart = opStart;
+            mOpEnd = lanes.opTail;
+            mInt = intStart;
+            mIntEnd = lanes.intTail;
+            mFloat = floatStart;
+            mFloatEnd = lanes.floatTail;
+            mObject = objectStart;
+            mObjectStart = objectStart;
+            mObjectEnd = lanes.objectTail;
+        }
+
+        private Lanes mRunLanes;
+        private int mOpStart;
+        private int mOpEnd;
+        // read cursors
+        private int mInt;
+        private int mFloat;
+        private int mObject;
+        private int mIntEnd;
+        private int mFloatEnd;
+        private int mObjectStart;
+        private int mObjectEnd;
+    }
+
+    /*
+     * Replaces the lanes with new ones, doubling the full lane, and moves the commands
+     * recorded since the last close() to them. The closed batches keep the old lanes.
+     */
+    private Lanes grow(int fullLane) {
+        final Lanes old = mLanes;
+        final Lanes lanes = new Lanes(
+                old.ops.length * (fullLane == Lanes.OPS ? 2 : 1),
+                old.ints.length * (fullLane == Lanes.INTS ? 2 : 1),
+                old.floats.length * (fullLane == Lanes.FLOATS ? 2 : 1),
+                old.objects.length * (fullLane == Lanes.OBJECTS ? 2 : 1));
+
+        for (int i = mOpStart; i != old.opTail; ++i) {
+            lanes.ops[lanes.opTail++] = old.ops[i & (old.ops.length - 1)];
+        }
+        for (int i = mIntStart; i != old.intTail; ++i) {
+            lanes.ints[lanes.intTail++] = old.ints[i & (old.ints.length - 1)];
+        }
+        for (int i = mFloatStart; i != old.floatTail; ++i) {
+            lanes.floats[lanes.floatTail++] = old.floats[i & (old.floats.length - 1)];
+        }
+        for (int i = mObjectStart; i != old.objectTail; ++i) {
+            final int index = i & (old.objects.length - 1);
+            lanes.objects[lanes.objectTail++] = old.objects[index];
+            old.objects[index] = null;
+        }
+
+        mOpStart = 0;
+        mIntStart = 0;
+        mFloatStart = 0;
+        mObjectStart = 0;
+        mLanes = lanes;
+        return lanes;
+    }
+
+    /*
+     * The lanes, with a head and a tail per lane. The heads are moved by the batches once they
+     * have replayed, under mLock; the tails only by the recording thread. The indices grow
+     * without bound and are masked with the length of the lane, which is a power of two.
+     */
+    private static final class Lanes {
+        static final int OPS = 0;
+        static final int INTS = 1;
+        static final int FLOATS = 2;
+        static final int OBJECTS = 3;
+
+        Lanes(int opCapacity, int intCapacity, int floatCapacity, int objectCapacity) {
+            ops = new int[opCapacity];
+            ints = new int[intCapacity];
+            floats = new float[floatCapacity];
+            objects = new Object[objectCapacity];
+        }
+
+        final int[] ops;
+        final int[] ints;
+        final float[] floats;
+        final Object[] objects;
+        volatile int opHead;
+        volatile int intHead;
+        volatile int floatHead;
+        volatile int objectHead;
+        int opTail;
+        int intTail;
+        int floatTail;
+        int objectTail;
+    }
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private Lanes mLanes = new Lanes(INITIAL_CAPACITY, INITIAL_CAPACITY, INITIAL_CAPACITY,
+            INITIAL_CAPACITY);
+    // start of the commands recorded since the last close()
+    private int mOpStart;
+    private int mIntStart;
+    private int mFloatStart;
+    private int mObjectStart;
+
+    private final Object[] mLock = new Object[0];
+    private Batch[] mFreeBatches = new Batch[8];
+    private int mFreeCount;
+
+    private static final Object[] sExecutorLock = new Object[0];
+    private static volatile Executor[] sExecutors = new Executor[0];
+}
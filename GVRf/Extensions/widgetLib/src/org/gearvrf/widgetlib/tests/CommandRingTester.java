@@ -0,0 +1,196 @@
+package org.gearvrf.widgetlib.tests;
+
+import java.lang.reflect.Method;
+
+import org.gearvrf.widgetlib.log.Log;
+import org.gearvrf.widgetlib.main.CommandRing;
+
+/**
+ * Checks that {@link CommandRing} replays the commands in order with their parameters, and that
+ * recording and replaying do not allocate once the lanes have grown. The allocation check needs
+ * a VM which counts the bytes allocated per thread and is skipped otherwise.
+ */
+public class CommandRingTester {
+
+    static final String TAG = CommandRingTester.class.getSimpleName();
+
+    static final int BATCHES            = 64;
+    static final int COMMANDS           = 1000;
+    static final int PENDING_BATCHES    = 4;
+
+    public void test() {
+        Log.d(TAG, "test starting");
+
+        caseOrder();
+        caseGrowWhilePending();
+        caseNoAllocation();
+
+        Log.d(TAG, "test finished");
+    }
+
+    /*
+     * The parameters of each command come back in the order they were recorded
+     */
+    private void caseOrder() {
+        CommandRing ring = new CommandRing();
+        mSum = 0;
+        for (int i = 0; i < COMMANDS; ++i) {
+            record(ring, i);
+        }
+        CommandRing.Batch batch = ring.close();
+        if (ring.close() != null) {
+            throw new RuntimeException("test failed: empty batch");
+        }
+        batch.run();
+        check(expectedSum(0, COMMANDS));
+    }
+
+    /*
+     * Batches closed before the lanes grow still replay from the old lanes
+     */
+    private void caseGrowWhilePending() {
+        CommandRing ring = new CommandRing();
+        CommandRing.Batch[] batches = new CommandRing.Batch[PENDING_BATCHES];
+        mSum = 0;
+        int next = 0;
+        for (int b = 0; b < PENDING_BATCHES; ++b) {
+            for (int i = 0; i < COMMANDS * (b + 1); ++i) {
+                record(ring, next++);
+            }
+            batches[b] = ring.close();
+        }
+        for (CommandRing.Batch batch : batches) {
+            batch.run();
+        }
+        check(expectedSum(0, next));
+    }
+
+    private void caseNoAllocation() {
+        CommandRing ring = new CommandRing();
+        CommandRing.Batch[] batches = new CommandRing.Batch[PENDING_BATCHES];
+
+        // grow the lanes and warm up
+        for (int i = 0; i < BATCHES; ++i) {
+            cycle(ring, batches);
+        }
+
+        Method allocatedBytes = getAllocatedBytesMethod();
+        if (allocatedBytes == null) {
+            Log.d(TAG, "allocation check skipped: allocated bytes are not counted");
+            return;
+        }
+        // bytes allocated by reading the count itself
+        long overhead = -allocatedBytes(allocatedBytes) + allocatedBytes(allocatedBytes);
+
+        long before = allocatedBytes(allocatedBytes);
+        for (int i = 0; i < BATCHES; ++i) {
+            cycle(ring, batches);
+        }
+        long allocated = allocatedBytes(allocatedBytes) - before - overhead;
+        long commands = (long) BATCHES * PENDING_BATCHES * COMMANDS;
+
+        Log.d(TAG, "%d commands recorded and replayed, %d bytes allocated", commands, allocated);
+        if (allocated > 0) {
+            throw new RuntimeException("test failed: " + allocated + " bytes allocated");
+        }
+    }
+
+    /*
+     * Records several batches before replaying them, as when the GL thread lags behind
+     */
+    private void cycle(CommandRing ring, CommandRing.Batch[] batches) {
+        for (int b = 0; b < batches.length; ++b) {
+            for (int i = 0; i < COMMANDS; ++i) {
+                record(ring, i);
+            }
+            batches[b] = ring.close();
+        }
+        for (int b = 0; b < batches.length; ++b) {
+            batches[b].run();
+            batches[b] = null;
+        }
+    }
+
+    private void record(CommandRing ring, int i) {
+        switch (i % 3) {
+            case 0:
+                ring.add(ADD_INT).putObject(this).putInt(i);
+                break;
+            case 1:
+                ring.add(ADD_FLOAT).putObject(this).putFloat(i).putBoolean(true);
+                break;
+            default:
+                ring.add(ADD_NOTHING).putObject(this);
+                break;
+        }
+    }
+
+    private static long expectedSum(int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; ++i) {
+            sum = sum * 31 + (i % 3 == 2 ? -1 : i);
+        }
+        return sum;
+    }
+
+    private void check(long expected) {
+        if (mSum != expected) {
+            throw new RuntimeException("test failed: " + mSum + " != " + expected);
+        }
+    }
+
+    private static Method getAllocatedBytesMethod() {
+        try {
+            Object bean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+            Method method = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+            sThreadBean = bean;
+            // warm up the reflective call so that it does not allocate while measuring
+            for (int i = 0; i < 100; ++i) {
+                allocatedBytes(method);
+            }
+            return method;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static long allocatedBytes(Method method) {
+        try {
+            return (Long) method.invoke(sThreadBean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private long mSum;
+    private static Object sThreadBean;
+
+    private static final int ADD_INT = CommandRing.register(new CommandRing.Executor() {
+        @Override
+        public void exec(CommandRing.Batch batch) {
+            final CommandRingTester tester = batch.nextObject();
+            tester.mSum = tester.mSum * 31 + batch.nextInt();
+        }
+    });
+
+    private static final int ADD_FLOAT = CommandRing.register(new CommandRing.Executor() {
+        @Override
+        public void exec(CommandRing.Batch batch) {
+            final CommandRingTester tester = batch.nextObject();
+            final float value = batch.nextFloat();
+            if (batch.nextBoolean()) {
+                tester.mSum = tester.mSum * 31 + (long) value;
+            }
+        }
+    });
+
+    private static final int ADD_NOTHING = CommandRing.register(new CommandRing.Executor() {
+        @Override
+        public void exec(CommandRing.Batch batch) {
+            final CommandRingTester tester = batch.nextObject();
+            tester.mSum = tester.mSum * 31 - 1;
+        }
+    });
+}
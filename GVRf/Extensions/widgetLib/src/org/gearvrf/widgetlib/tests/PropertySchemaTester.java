@@ -0,0 +1,254 @@
+package org.gearvrf.widgetlib.tests;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import android.content.Context;
+
+import org.gearvrf.widgetlib.log.Log;
+import org.gearvrf.widgetlib.widget.properties.CompiledProperties;
+import org.gearvrf.widgetlib.widget.properties.JSONHelpers;
+import org.gearvrf.widgetlib.widget.properties.PropertySchemaCompiler;
+import org.gearvrf.widgetlib.widget.properties.UnmodifiableJSONObject;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Checks that the {@link PropertySchemaCompiler} resolves the same properties as merging the
+ * class metadata up the class hierarchy for every widget, the way PropertyManager used to.
+ * <p>
+ * The entries of each metadata file are assigned to the classes of a small hierarchy and to an
+ * instance name, in every combination, and the compiled properties are compared with the merged
+ * JSON, both as JSON and through the typed accessors.
+ */
+public class PropertySchemaTester {
+
+    static final String TAG = PropertySchemaTester.class.getSimpleName();
+
+    static final String DEFAULT_METADATA = "default_metadata.json";
+    static final String INSTANCE_NAME    = "instance";
+
+    static class Base {
+    }
+
+    static class Middle extends Base {
+    }
+
+    static class Leaf extends Middle {
+    }
+
+    /**
+     * Checks the metadata bundled with widgetLib
+     * @param context to read the assets
+     */
+    public void test(Context context) throws JSONException {
+        test(JSONHelpers.loadJSONAsset(context, DEFAULT_METADATA));
+    }
+
+    /**
+     * Checks the entries of the metadata
+     * @param metadata widget metadata with the entries under "objects"
+     */
+    public void test(JSONObject metadata) throws JSONException {
+        Log.d(TAG, "test starting");
+
+        final JSONObject objects = metadata.optJSONObject("objects");
+        if (objects == null) {
+            throw new RuntimeException("test failed: no objects in the metadata");
+        }
+
+        // null stands for no metadata
+        final List<JSONObject> entries = new ArrayList<>();
+        entries.add(null);
+        final Iterator<String> keys = objects.keys();
+        while (keys.hasNext()) {
+            entries.add(objects.getJSONObject(keys.next()));
+        }
+
+        int cases = 0;
+        for (JSONObject base : entries) {
+            for (JSONObject middle : entries) {
+                for (JSONObject leaf : entries) {
+                    for (JSONObject instance : entries) {
+                        testCase(base, middle, leaf, instance);
+                        ++cases;
+                    }
+                }
+            }
+        }
+        Log.d(TAG, "%d entries, %d cases", entries.size() - 1, cases);
+        Log.d(TAG, "test finished");
+    }
+
+    private void testCase(JSONObject base, JSONObject middle, JSONObject leaf, JSONObject instance)
+            throws JSONException {
+        final JSONObject classJson = new JSONObject();
+        putOpt(classJson, Base.class.getCanonicalName(), base);
+        putOpt(classJson, Middle.class.getCanonicalName(), middle);
+        putOpt(classJson, Leaf.class.getCanonicalName(), leaf);
+        final JSONObject instanceJson = new JSONObject();
+        putOpt(instanceJson, INSTANCE_NAME, instance);
+
+        final PropertySchemaCompiler compiler = new PropertySchemaCompiler(classJson, instanceJson);
+        for (Class<?> clazz : new Class<?>[] { Leaf.class, Middle.class, Base.class }) {
+            for (String name : new String[] { INSTANCE_NAME, null, "other" }) {
+                final JSONObject expected = buildInstanceProperties(classJson, instanceJson,
+                        name, clazz);
+                final CompiledProperties compiled = compiler.getProperties(clazz, name);
+
+                if (!same(expected, compiled.getJSONObject())) {
+                    throw new RuntimeException("test failed for " + clazz.getSimpleName() + "/" +
+                            name + ": " + compiled + " != " + expected);
+                }
+                checkAccessors(compiled, expected, new ArrayList<String>());
+                if (countEntries(expected) != compiled.size()) {
+                    throw new RuntimeException("test failed: " + compiled.size() + " entries");
+                }
+                if (compiler.getProperties(clazz, name) != compiled) {
+                    throw new RuntimeException("test failed: properties compiled twice");
+                }
+            }
+        }
+    }
+
+    /*
+     * Reads every value of the merged JSON back through the typed accessors
+     */
+    private void checkAccessors(CompiledProperties compiled, Object expected, List<String> path) {
+        final int key = CompiledProperties.key(path.toArray(new String[path.size()]));
+        if (expected instanceof JSONObject) {
+            final JSONObject object = (JSONObject) expected;
+            check(compiled.getType(key) == CompiledProperties.TYPE_OBJECT, path);
+            check(compiled.getLength(key) == object.length(), path);
+            final Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                final String name = keys.next();
+                path.add(name);
+                checkAccessors(compiled, object.opt(name), path);
+                path.remove(path.size() - 1);
+            }
+        } else if (expected instanceof JSONArray) {
+            final JSONArray array = (JSONArray) expected;
+            check(compiled.getType(key) == CompiledProperties.TYPE_ARRAY, path);
+            check(compiled.getLength(key) == array.length(), path);
+            for (int i = 0; i < array.length(); ++i) {
+                path.add(Integer.toString(i));
+                checkAccessors(compiled, array.opt(i), path);
+                path.remove(path.size() - 1);
+            }
+        } else if (expected instanceof Boolean) {
+            check(compiled.getBoolean(key, !(Boolean) expected) == (Boolean) expected, path);
+        } else if (expected instanceof Number) {
+            final Number number = (Number) expected;
+            check(compiled.getDouble(key, Double.NaN) == number.doubleValue(), path);
+            check(compiled.getInt(key, ~number.intValue()) == number.intValue(), path);
+        } else if (expected instanceof String) {
+            check(expected.equals(compiled.getString(key, null)), path);
+        } else {
+            check(compiled.getType(key) == CompiledProperties.TYPE_NULL, path);
+        }
+    }
+
+    private static void check(boolean condition, List<String> path) {
+        if (!condition) {
+            throw new RuntimeException("test failed at " + path);
+        }
+    }
+
+    private static int countEntries(Object value) {
+        int count = 1;
+        if (value instanceof JSONObject) {
+            final Iterator<String> keys = ((JSONObject) value).keys();
+            while (keys.hasNext()) {
+                count += countEntries(((JSONObject) value).opt(keys.next()));
+            }
+        } else if (value instanceof JSONArray) {
+            for (int i = 0; i < ((JSONArray) value).length(); ++i) {
+                count += countEntries(((JSONArray) value).opt(i));
+            }
+        }
+        return count;
+    }
+
+    private static boolean same(Object a, Object b) {
+        if (a instanceof JSONObject && b instanceof JSONObject) {
+            final JSONObject objectA = (JSONObject) a;
+            final JSONObject objectB = (JSONObject) b;
+            if (objectA.length() != objectB.length()) {
+                return false;
+            }
+            final Iterator<String> keys = objectA.keys();
+            while (keys.hasNext()) {
+                final String name = keys.next();
+                if (!objectB.has(name) || !same(objectA.opt(name), objectB.opt(name))) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (a instanceof JSONArray && b instanceof JSONArray) {
+            final JSONArray arrayA = (JSONArray) a;
+            final JSONArray arrayB = (JSONArray) b;
+            if (arrayA.length() != arrayB.length()) {
+                return false;
+            }
+            for (int i = 0; i < arrayA.length(); ++i) {
+                if (!same(arrayA.opt(i), arrayB.opt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (a instanceof Number && b instanceof Number) {
+            return ((Number) a).doubleValue() == ((Number) b).doubleValue();
+        }
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static void putOpt(JSONObject json, String name, JSONObject value)
+            throws JSONException {
+        if (value != null) {
+            json.put(name, value);
+        }
+    }
+
+    /*
+     * The merge PropertyManager did for every widget, walking up the class hierarchy
+     */
+    private static JSONObject buildInstanceProperties(JSONObject classJson,
+                                                      JSONObject instanceJson, String name,
+                                                      Class<?> clazz) {
+        final JSONObject properties = name == null ? null :
+                new UnmodifiableJSONObject(instanceJson).optJSONObject(name);
+        final UnmodifiableJSONObject defaultMetadata = buildClassProperties(
+                new UnmodifiableJSONObject(classJson), clazz, name);
+
+        if (properties == null) {
+            return defaultMetadata;
+        }
+        return JSONHelpers.merge(properties, defaultMetadata);
+    }
+
+    private static UnmodifiableJSONObject buildClassProperties(UnmodifiableJSONObject classJson,
+                                                               Class<?> clazz, String name) {
+        if (name == null || name.isEmpty()) {
+            name = clazz.getSimpleName();
+        }
+        final UnmodifiableJSONObject superProperties;
+        final Class<?> superclass = clazz.getSuperclass();
+        if (superclass != null) {
+            superProperties = buildClassProperties(classJson, superclass, name);
+        } else {
+            superProperties = new UnmodifiableJSONObject();
+        }
+
+        UnmodifiableJSONObject classProperties = classJson.optJSONObject(clazz.getCanonicalName());
+        if (classProperties == null) {
+            classProperties = new UnmodifiableJSONObject();
+        } else {
+            classProperties = new UnmodifiableJSONObject(JSONHelpers.copy(classProperties));
+        }
+
+        return new UnmodifiableJSONObject(JSONHelpers.merge(classProperties, superProperties, name));
+    }
+}
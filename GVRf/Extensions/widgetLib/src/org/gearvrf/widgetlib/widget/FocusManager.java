@@ -10,8 +10,7 @@ import org.gearvrf.GVRPicker;
 import org.gearvrf.GVRPicker.GVRPickedObject;
 import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
-import org.gearvrf.widgetlib.widget.properties.JSONHelpers;
-import org.json.JSONObject;
+import org.gearvrf.widgetlib.widget.properties.CompiledProperties;
 
 import java.lang.ref.WeakReference;
 import java.util.LinkedHashSet;
@@ -109,13 +108,16 @@ public class FocusManager {
         enabled
     }
 
+    private static final int ENABLED = CompiledProperties.key(Properties.enabled);
+
     /**
      * Creates FocusManager
      */
     public FocusManager(GVRContext gvrContext) {
-        final JSONObject properties = WidgetLib.getPropertyManager().getInstanceProperties(getClass(), TAG);
+        final CompiledProperties properties = WidgetLib.getPropertyManager()
+                .getCompiledProperties(getClass(), TAG);
         Log.d(TAG, "FocusManager(): properties: %s", properties);
-        mEnabled = JSONHelpers.optBoolean(properties, Properties.enabled, false);
+        mEnabled = properties.getBoolean(ENABLED, false);
         Log.d(TAG, "FocusManager(): mEnabled: %b", mEnabled);
         init(gvrContext);
     }
@@ -1,7 +1,7 @@
 package org.gearvrf.widgetlib.widget;
 
-import org.gearvrf.widgetlib.main.CommandBuffer;
-import org.gearvrf.widgetlib.main.CommandBuffer.Command;
+import org.gearvrf.widgetlib.main.CommandRing;
+import org.gearvrf.widgetlib.main.WidgetLib;
 
 import org.gearvrf.GVRMaterial;
 import org.gearvrf.GVRMesh;
@@ -165,169 +165,169 @@ class RenderDataCache {
 
     private static final class SET_MESH {
         static void buffer(GVRRenderData renderData, GVRMesh mesh) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, mesh);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, mesh);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final GVRMesh mesh = (GVRMesh) params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final GVRMesh mesh = batch.nextObject();
                 renderData.setMesh(mesh);
             }
-        };
+        });
     }
 
     private static final class SET_OFFSET {
         static void buffer(GVRRenderData renderData, boolean offset) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, offset);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, offset);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final boolean offset = (boolean) params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final boolean offset = batch.nextBoolean();
                 renderData.setOffset(offset);
             }
-        };
+        });
     }
 
     private static final class SET_OFFSET_FACTOR {
         static void buffer(GVRRenderData renderData, float offsetFactor) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, offsetFactor);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, offsetFactor);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final float offsetFactor = (float) params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final float offsetFactor = batch.nextFloat();
                 renderData.setOffsetFactor(offsetFactor);
             }
-        };
+        });
     }
 
     private static final class SET_RENDERING_ORDER {
         static void buffer(GVRRenderData renderData, int renderingOrder) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, renderingOrder);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, renderingOrder);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final int renderingOrder = (int) params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final int renderingOrder = batch.nextInt();
                 renderData.setRenderingOrder(renderingOrder);
             }
-        };
+        });
     }
 
     private static final class SET_CULL_FACE {
         static void buffer(GVRRenderData renderData, GVRRenderPass.GVRCullFaceEnum cullFace) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, cullFace);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, cullFace);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final GVRRenderPass.GVRCullFaceEnum cullFace = (GVRRenderPass.GVRCullFaceEnum)params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final GVRRenderPass.GVRCullFaceEnum cullFace = batch.nextObject();
                 renderData.setCullFace(cullFace);
             }
-        };
+        });
     }
 
     private static final class SET_OFFSET_UNITS {
         static void buffer(GVRRenderData renderData, float offsetUnits) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, offsetUnits);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, offsetUnits);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final float offsetUnits = (float) params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final float offsetUnits = batch.nextFloat();
                 renderData.setOffsetUnits(offsetUnits);
             }
-        };
+        });
     }
 
     private static final class SET_DEPTH_TEST {
         static void buffer(GVRRenderData renderData, boolean depthTest) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, depthTest);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, depthTest);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final boolean depthTest = (boolean) params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final boolean depthTest = batch.nextBoolean();
                 renderData.setDepthTest(depthTest);
             }
-        };
+        });
     }
 
     private static final class SET_STENCIL_TEST {
         static void buffer(GVRRenderData renderData) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, true);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, true);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final boolean flag = (boolean) params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final boolean flag = batch.nextBoolean();
                 renderData.setStencilTest(flag);
             }
-        };
+        });
     }
 
     private static final class SET_STENCIL_FUNC {
         static void buffer(GVRRenderData renderData, int func) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, func, 1, 0xFF);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, func, 1, 0xFF);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final int func = (int) params[1];
-                final int ref = (int) params[2];
-                final int mask = (int) params[3];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final int func = batch.nextInt();
+                final int ref = batch.nextInt();
+                final int mask = batch.nextInt();
                 renderData.setStencilFunc(func, ref, mask);
             }
-        };
+        });
     }
 
     private static final class SET_STENCIL_MASK {
         static void buffer(GVRRenderData renderData) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, 0x00);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, 0x00);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRRenderData renderData = (GVRRenderData) params[0];
-                final int mask = (int) params[1];
+            public void exec(CommandRing.Batch batch) {
+                final GVRRenderData renderData = batch.nextObject();
+                final int mask = batch.nextInt();
                 renderData.setStencilMask(mask);
             }
-        };
+        });
     }
 
     private static final class SET_MATERIAL {
         public static void buffer(GVRRenderData renderData, GVRMaterial material) {
-            CommandBuffer.Command.buffer(sExecutor, renderData, material);
+            WidgetLib.getCommandBuffer().add(OPCODE, renderData, material);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                GVRRenderData renderData = (GVRRenderData) params[0];
-                GVRMaterial material = (GVRMaterial) params[1];
+            public void exec(CommandRing.Batch batch) {
+                GVRRenderData renderData = batch.nextObject();
+                GVRMaterial material = batch.nextObject();
                 renderData.setMaterial(material);
             }
-        };
+        });
     }
 
     static class MaterialCache {
@@ -418,81 +418,81 @@ class RenderDataCache {
 
         private static final class SET_COLOR {
             public static void buffer(GVRMaterial material, int color) {
-                CommandBuffer.Command.buffer(sExecutor, material, color);
+                WidgetLib.getCommandBuffer().add(OPCODE, material, color);
             }
 
-            private static final Command.Executor sExecutor = new Command.Executor() {
+            private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
                 @Override
-                public void exec(Object... params) {
-                    final GVRMaterial material = (GVRMaterial) params[0];
-                    final int color = (int) params[1];
+                public void exec(CommandRing.Batch batch) {
+                    final GVRMaterial material = batch.nextObject();
+                    final int color = batch.nextInt();
                     material.setColor(color);
                 }
-            };
+            });
         }
 
         private static final class SET_COLOR_RGB {
             public static void buffer(GVRMaterial material, float r, float g, float b) {
-                CommandBuffer.Command.buffer(sExecutor, material, r, g, b);
+                WidgetLib.getCommandBuffer().add(OPCODE, material, r, g, b);
             }
 
-            private static final Command.Executor sExecutor = new Command.Executor() {
+            private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
                 @Override
-                public void exec(Object... params) {
-                    final GVRMaterial material = (GVRMaterial) params[0];
-                    final float r = (float) params[1];
-                    final float g = (float) params[2];
-                    final float b = (float) params[3];
+                public void exec(CommandRing.Batch batch) {
+                    final GVRMaterial material = batch.nextObject();
+                    final float r = batch.nextFloat();
+                    final float g = batch.nextFloat();
+                    final float b = batch.nextFloat();
                     material.setColor(r, g, b);
                 }
-            };
+            });
         }
 
         private static final class SET_OPACITY {
             public static void buffer(GVRMaterial material, float opacity) {
-                CommandBuffer.Command.buffer(sExecutor, material, opacity);
+                WidgetLib.getCommandBuffer().add(OPCODE, material, opacity);
             }
 
-            private static final Command.Executor sExecutor = new Command.Executor() {
+            private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
                 @Override
-                public void exec(Object... params) {
-                    final GVRMaterial material = (GVRMaterial) params[0];
-                    final float opacity = (float) params[1];
+                public void exec(CommandRing.Batch batch) {
+                    final GVRMaterial material = batch.nextObject();
+                    final float opacity = batch.nextFloat();
                     material.setOpacity(opacity);
                 }
-            };
+            });
         }
 
         private static final class SET_TEXTURE {
             public static void buffer(GVRMaterial material, GVRTexture texture) {
-                CommandBuffer.Command.buffer(sExecutor, material, texture);
+                WidgetLib.getCommandBuffer().add(OPCODE, material, texture);
             }
 
-            private static Command.Executor sExecutor = new Command.Executor() {
+            private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
                 @Override
-                public void exec(Object... params) {
-                    final GVRMaterial material = (GVRMaterial) params[0];
-                    final GVRTexture texture = (GVRTexture) params[1];
+                public void exec(CommandRing.Batch batch) {
+                    final GVRMaterial material = batch.nextObject();
+                    final GVRTexture texture = batch.nextObject();
                     material.setMainTexture(texture);
                     material.setTexture(MATERIAL_DIFFUSE_TEXTURE, texture);
                 }
-            };
+            });
         }
 
         private static final class SET_NAMED_TEXTURE {
             public static void buffer(GVRMaterial material, String key, GVRTexture texture) {
-                CommandBuffer.Command.buffer(sExecutor, material, key, texture);
+                WidgetLib.getCommandBuffer().add(OPCODE, material, key, texture);
             }
 
-            private static final Command.Executor sExecutor = new Command.Executor() {
+            private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
                 @Override
-                public void exec(Object... params) {
-                    final GVRMaterial material = (GVRMaterial) params[0];
-                    final String name = (String) params[1];
-                    final GVRTexture texture = (GVRTexture) params[2];
+                public void exec(CommandRing.Batch batch) {
+                    final GVRMaterial material = batch.nextObject();
+                    final String name = batch.nextObject();
+                    final GVRTexture texture = batch.nextObject();
                     material.setTexture(name, texture);
                 }
-            };
+            });
         }
 
         private GVRMaterial mExternalMaterial;
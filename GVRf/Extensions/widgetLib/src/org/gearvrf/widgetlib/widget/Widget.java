@@ -10,7 +10,7 @@ import android.view.MotionEvent;
 
 import org.gearvrf.GVRRenderPass;
 import org.gearvrf.widgetlib.log.Log;
-import org.gearvrf.widgetlib.main.CommandBuffer.Command;
+import org.gearvrf.widgetlib.main.CommandRing;
 import org.gearvrf.widgetlib.main.GVRBitmapTexture;
 import org.gearvrf.widgetlib.main.WidgetLib;
 
@@ -3933,21 +3933,21 @@ public class Widget implements Layout.WidgetContainer {
     private static class UPDATE_VISIBILITY {
         static void buffer(Widget widget, Visibility currentVisibility, Visibility newVisibility,
                            ViewPortVisibility viewPortVisibility) {
-            Command.buffer(sExecutor, widget.getSceneObject(),
+            WidgetLib.getCommandBuffer().add(OPCODE, widget.getSceneObject(),
                     widget.getParent().getSceneObject(),
                     currentVisibility,
                     newVisibility,
                     viewPortVisibility);
         }
 
-        private static final Command.Executor sExecutor = new Command.Executor() {
+        private static final int OPCODE = CommandRing.register(new CommandRing.Executor() {
             @Override
-            public void exec(Object... params) {
-                final GVRSceneObject mSceneObject = (GVRSceneObject) params[0];
-                final GVRSceneObject parentSceneObject = (GVRSceneObject) params[1];
-                final Visibility currentVisibility = (Visibility) params[2];
-                final Visibility newVisibility = (Visibility) params[3];
-                final ViewPortVisibility viewPortVisibility = (ViewPortVisibility) params[4];
+            public void exec(CommandRing.Batch batch) {
+                final GVRSceneObject mSceneObject = batch.nextObject();
+                final GVRSceneObject parentSceneObject = batch.nextObject();
+                final Visibility currentVisibility = batch.nextObject();
+                final Visibility newVisibility = batch.nextObject();
+                final ViewPortVisibility viewPortVisibility = batch.nextObject();
 
                 GVRContext gvrContext = mSceneObject.getGVRContext();
                 GVRSceneObject sceneObjectParent = mSceneObject.getParent();
@@ -3972,6 +3972,6 @@ public class Widget implements Layout.WidgetContainer {
                         break;
                 }
             }
-        };
+        });
     }
 }
@@ -5,6 +5,9 @@ import org.gearvrf.GVRRenderData;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRTexture;
 import org.gearvrf.GVRTextureParameters;
+import org.gearvrf.scene_objects.GVRGlyphAtlas;
+import org.gearvrf.scene_objects.GVRGlyphLayout;
+import org.gearvrf.scene_objects.GVRTextMeshSceneObject;
 import org.gearvrf.scene_objects.GVRTextViewSceneObject;
 import org.gearvrf.scene_objects.GVRTextViewSceneObject.IntervalFrequency;
 import org.json.JSONObject;
@@ -25,16 +28,31 @@ import org.gearvrf.widgetlib.main.GVRBitmapTexture;
 import org.gearvrf.widgetlib.widget.Widget;
 import org.gearvrf.widgetlib.widget.NodeEntry;
 
+import static org.gearvrf.widgetlib.widget.properties.JSONHelpers.optBoolean;
+
 /**
  * Lightweight version of TextWidget.
  * Standard {@link TextWidget} uses {@link GVRTextViewSceneObject} to display the text, making
  * TextWidget a quite heavy object. Using many of them in the same scene might affect UI performance.
  * LightTextWidget implementation uses canvas.drawText to display the text.
+ * <p>
+ * If the {@code glyph_atlas} property is set, or {@link #setUseGlyphAtlas(boolean)} is
+ * called, the text is instead rendered by a {@link GVRTextMeshSceneObject} using a
+ * {@link GVRGlyphAtlas} shared by all the widgets with the same typeface. Changing the
+ * text then only updates a mesh instead of drawing and uploading a new bitmap.
  */
 
 @SuppressWarnings("deprecation")
 public class LightTextWidget extends Widget implements TextContainer {
     private static final String ELLIPSIS = "\u2026";
+
+    /**
+     * Specific properties for LightTextWidget
+     */
+    public enum Properties {
+        glyph_atlas
+    }
+
     /**
      * Construct LightTextWidget wrapper for an existing {@link GVRSceneObject}.
      *
@@ -240,6 +258,25 @@ public class LightTextWidget extends Widget implements TextContainer {
         LightTextWidget.copy(textInfo, this);
     }
 
+    /**
+     * Switches between drawing the text into a bitmap and rendering it from a shared
+     * glyph atlas.
+     * @param use true to render the text with a {@link GVRTextMeshSceneObject}
+     */
+    public void setUseGlyphAtlas(boolean use) {
+        if (use != mUseGlyphAtlas) {
+            mUseGlyphAtlas = use;
+            apply();
+        }
+    }
+
+    /**
+     * @return true if the text is rendered from a shared glyph atlas
+     */
+    public boolean isUsingGlyphAtlas() {
+        return mUseGlyphAtlas;
+    }
+
     @Override
     public String toString() {
         return params.toString();
@@ -251,6 +288,7 @@ public class LightTextWidget extends Widget implements TextContainer {
         try {
             JSONObject properties = getObjectMetadata();
             params.setFromJSON(getGVRContext().getContext(), properties);
+            mUseGlyphAtlas = optBoolean(properties, Properties.glyph_atlas, false);
         } finally {
             mNoApply = false;
         }
@@ -258,6 +296,8 @@ public class LightTextWidget extends Widget implements TextContainer {
     }
 
     private boolean mNoApply = false;
+    private boolean mUseGlyphAtlas = false;
+    private GVRTextMeshSceneObject mTextMesh;
 
     private final Paint mTextPaint = new Paint(Paint.LINEAR_TEXT_FLAG
             | Paint.SUBPIXEL_TEXT_FLAG);
@@ -299,31 +339,7 @@ public class LightTextWidget extends Widget implements TextContainer {
         }
     }
 
-    private void apply() {
-        Log.d(TAG, "apply(%s): apply...", getName());
-        if (mNoApply) {
-            Log.d(TAG, "apply(%s): apply is blocked", getName());
-            return;
-        }
-
-        int bWidth = (int) (getWidth() * 100);
-        int bHeight = (int) (getHeight() * 100);
-        Log.d(TAG, "apply(%s): size [%d, %d]", getName(), bWidth, bHeight);
-
-        Bitmap bitmap = Bitmap.createBitmap(bWidth, bHeight
-                , Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-
-        // draw bg color
-        int bgColor = params.getBackgroundColor();
-        if (bgColor == Color.TRANSPARENT) {
-            setRenderingOrder(GVRRenderData.GVRRenderingOrder.TRANSPARENT);
-        }
-        Log.d(TAG, "apply(%s): bgColor = %d", getName(), bgColor);
-
-        canvas.drawColor(bgColor);
-
-        // draw bg bitmap
+    private void drawBackground(Canvas canvas, int bWidth, int bHeight) {
         Drawable bg = params.getBackGround();
         if (bg != null) {
             Log.d(TAG, "apply(%s): bg = %s", getName(), bg);
@@ -350,6 +366,40 @@ public class LightTextWidget extends Widget implements TextContainer {
                 canvas.drawBitmap(bgBitmap, source, dist, null);
             }
         }
+    }
+
+    private void apply() {
+        Log.d(TAG, "apply(%s): apply...", getName());
+        if (mNoApply) {
+            Log.d(TAG, "apply(%s): apply is blocked", getName());
+            return;
+        }
+
+        if (mUseGlyphAtlas) {
+            applyGlyphAtlas();
+            return;
+        }
+        removeTextMesh();
+
+        int bWidth = (int) (getWidth() * BITMAP_SCALE);
+        int bHeight = (int) (getHeight() * BITMAP_SCALE);
+        Log.d(TAG, "apply(%s): size [%d, %d]", getName(), bWidth, bHeight);
+
+        Bitmap bitmap = Bitmap.createBitmap(bWidth, bHeight
+                , Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        // draw bg color
+        int bgColor = params.getBackgroundColor();
+        if (bgColor == Color.TRANSPARENT) {
+            setRenderingOrder(GVRRenderData.GVRRenderingOrder.TRANSPARENT);
+        }
+        Log.d(TAG, "apply(%s): bgColor = %d", getName(), bgColor);
+
+        canvas.drawColor(bgColor);
+
+        // draw bg bitmap
+        drawBackground(canvas, bWidth, bHeight);
 
         // apply text color
         int textColor = getTextColor();
@@ -425,7 +475,107 @@ public class LightTextWidget extends Widget implements TextContainer {
         setTexture(texture);
     }
 
+    /*
+     * Renders the background, if there is one, into the widget's own texture
+     * and the text with a GVRTextMeshSceneObject child using the shared atlas.
+     */
+    private void applyGlyphAtlas() {
+        final GVRContext gvrContext = getGVRContext();
+        final GVRSceneObject sceneObject = getSceneObject();
+        final int bgColor = params.getBackgroundColor();
+        final boolean hasBackground = bgColor != Color.TRANSPARENT || params.getBackGround() != null;
+
+        setRenderingOrder(GVRRenderData.GVRRenderingOrder.TRANSPARENT);
+        if (sceneObject.getRenderData() != null) {
+            sceneObject.getRenderData().setEnable(hasBackground);
+        }
+        if (hasBackground) {
+            int bWidth = (int) (getWidth() * BITMAP_SCALE);
+            int bHeight = (int) (getHeight() * BITMAP_SCALE);
+            Bitmap bitmap = Bitmap.createBitmap(bWidth, bHeight, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+
+            canvas.drawColor(bgColor);
+            drawBackground(canvas, bWidth, bHeight);
+            setTexture(new GVRBitmapTexture(gvrContext, bitmap));
+        }
+
+        final GVRGlyphAtlas atlas = GVRGlyphAtlas.getShared(gvrContext, params.getTypeface());
+        if (mTextMesh != null && mTextMesh.getAtlas() != atlas) {
+            removeTextMesh();
+        }
+        if (mTextMesh == null) {
+            mTextMesh = new GVRTextMeshSceneObject(gvrContext, atlas, null);
+            sceneObject.addChildObject(mTextMesh);
+        }
+
+        // match the size of the text drawn by the bitmap path
+        final float emSize = TEXT_SCALE * getTextSize() / BITMAP_SCALE;
+        final GVRGlyphLayout layout = mTextMesh.getLayout();
+        layout.setLineHeight(emSize * atlas.getGlyphSet().getLineHeight() / atlas.getGlyphSize());
+
+        String text = getTextString();
+        if (text == null) {
+            text = "";
+        }
+        final float width = getWidth();
+        final float height = getHeight();
+        if (layout.measureText(text, 0, text.length()) > width) {
+            final float available = width - layout.measureText(ELLIPSIS, 0, ELLIPSIS.length());
+            float textWidth = 0;
+            int end = 0;
+            while (end < text.length()) {
+                final float charWidth = layout.measureText(text, end, end + 1);
+                if (textWidth + charWidth > available) {
+                    break;
+                }
+                textWidth += charWidth;
+                ++end;
+            }
+            text = text.substring(0, end).concat(ELLIPSIS);
+        }
+
+        final int textGravity = getGravity();
+        float x, y;
+        int gravity = textGravity & Gravity.HORIZONTAL_GRAVITY_MASK;
+        if (gravity == Gravity.LEFT) {
+            layout.setAlignment(GVRGlyphLayout.Alignment.BEGIN);
+            x = -width / 2;
+        } else if (gravity == Gravity.RIGHT) {
+            layout.setAlignment(GVRGlyphLayout.Alignment.END);
+            x = width / 2;
+        } else {
+            layout.setAlignment(GVRGlyphLayout.Alignment.MIDDLE);
+            x = 0;
+        }
+        mTextMesh.setTextColor(getTextColor());
+        mTextMesh.setText(text);
+
+        final float textHeight = mTextMesh.getTextHeight();
+        gravity = textGravity & Gravity.VERTICAL_GRAVITY_MASK;
+        if (gravity == Gravity.TOP) {
+            y = height / 2;
+        } else if (gravity == Gravity.BOTTOM) {
+            y = -height / 2 + textHeight;
+        } else {
+            y = textHeight / 2;
+        }
+        mTextMesh.getTransform().setPosition(x, y, TEXT_MESH_OFFSET);
+    }
+
+    private void removeTextMesh() {
+        if (mTextMesh != null) {
+            getSceneObject().removeChildObject(mTextMesh);
+            mTextMesh = null;
+            if (getSceneObject().getRenderData() != null) {
+                getSceneObject().getRenderData().setEnable(true);
+            }
+        }
+    }
+
     private final TextParams params = new TextParams();
     private static final float TEXT_SCALE = 5;
+    private static final float BITMAP_SCALE = 100;
+    private static final float TEXT_MESH_OFFSET = 0.001f;
 
 }
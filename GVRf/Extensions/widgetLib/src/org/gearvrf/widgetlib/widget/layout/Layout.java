@@ -15,7 +15,6 @@ import org.gearvrf.utility.RuntimeAssertion;
 
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -131,7 +130,9 @@ abstract public class Layout {
     public void invalidate(final int dataIndex) {
         synchronized (mMeasuredChildren) {
             Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "invalidate [%d]", dataIndex);
-            mMeasuredChildren.remove(dataIndex);
+            if (dataIndex >= 0) {
+                mMeasuredChildren.remove(dataIndex);
+            }
         }
     }
 
@@ -238,6 +239,28 @@ abstract public class Layout {
         }
     }
 
+    /**
+     * Set the distance beyond the view port the children are measured in ahead of scrolling.
+     * The children in the margin are laid out but stay invisible until they scroll in.
+     * Only applied if the view port clipping is enabled. The margin is 0 by default.
+     * @param margin distance along the scrolling axis
+     */
+    public void setPrefetchMargin(float margin) {
+        if (!equal(mPrefetchMargin, margin)) {
+            mPrefetchMargin = margin;
+            if (mContainer != null) {
+                mContainer.onLayoutChanged(this);
+            }
+        }
+    }
+
+    /**
+     * @return the distance beyond the view port the children are measured in
+     */
+    public float getPrefetchMargin() {
+        return mPrefetchMargin;
+    }
+
     /**
      * Calculate the child size along the axis and measure the offset inside the
      * layout container
@@ -372,7 +395,7 @@ abstract public class Layout {
                     postMeasurement();
                 }
             } else {
-                inBounds = inViewPort(i);
+                inBounds = inPrefetchWindow(i);
                 if (!inBounds) {
                     if (childChanged) {
                         invalidate(i);
@@ -421,13 +444,17 @@ abstract public class Layout {
      */
     public void layoutChildren() {
 
-        Set<Integer> copySet;
+        int[] measured;
         synchronized (mMeasuredChildren) {
             Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "layoutChildren [%d] layout = %s",
                     mMeasuredChildren.size(), this);
-            copySet = new HashSet<>(mMeasuredChildren);
+            measured = new int[mMeasuredChildren.size()];
+            int i = 0;
+            for (int next: mMeasuredChildren) {
+                measured[i++] = next;
+            }
         }
-        for (int nextMeasured: copySet) {
+        for (int nextMeasured: measured) {
             Widget child = mContainer.get(nextMeasured);
             if (child != null) {
                 child.preventTransformChanged(true);
@@ -474,6 +501,16 @@ abstract public class Layout {
      */
     abstract public boolean inViewPort(final int dataIndex);
 
+    /**
+     * Check if the item is at least partially in the view port extended by
+     * {@link #getPrefetchMargin()}. Used to measure the children until the layout is full.
+     * @param dataIndex data index
+     * @return true is the item has to be measured, false - otherwise
+     */
+    protected boolean inPrefetchWindow(final int dataIndex) {
+        return inViewPort(dataIndex);
+    }
+
     /**
      * Interface to access the widgets the layout is applied to.
      * This is the communication chanel between the {@link Widget} and {@link Layout}
@@ -705,6 +742,7 @@ abstract public class Layout {
     protected Vector3Axis mOffset = new Vector3Axis();
     protected WidgetContainer mContainer;
     protected Set<Integer> mMeasuredChildren = new LinkedHashSet<>();
+    protected float mPrefetchMargin;
 
     protected Layout() {
     }
@@ -714,6 +752,7 @@ abstract public class Layout {
         mViewPort = rhs.mViewPort;
         mDividerPadding = rhs.mDividerPadding;
         mOffset = rhs.mOffset;
+        mPrefetchMargin = rhs.mPrefetchMargin;
     }
 
     protected float getSizeImpl(final Axis axis) {
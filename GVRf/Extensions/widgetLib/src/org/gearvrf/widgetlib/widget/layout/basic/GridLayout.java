@@ -149,7 +149,7 @@ public class GridLayout extends OrientedLayout {
             int cacheId = mChunkBreaker.getChunkIndex(dataIndex);
             CacheDataSet cache = mCaches.get(cacheId);
             if (cache == null) {
-                cache = new LinearCacheDataSet(mOuterPaddingEnabled);
+                cache = new PrefixSumCacheDataSet(mOuterPaddingEnabled);
                 mCaches.put(cacheId, cache);
             }
             Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "measureChild [%d] orientation = %s cacheId = %d cache.count = %d",
@@ -262,6 +262,12 @@ public class GridLayout extends OrientedLayout {
             return visible;
         }
 
+        @Override
+        protected boolean inPrefetchWindow(final int dataIndex) {
+            CacheDataSet cache = getCache(dataIndex);
+            return cache != null && inViewPort(dataIndex, cache, getPrefetchMargin());
+        }
+
         @Override
         protected float getDataOffset(final int dataIndex) {
             float offset = Float.NaN;
@@ -390,6 +396,11 @@ public class GridLayout extends OrientedLayout {
         return mColumnLayout.inViewPort(dataIndex) && mRowLayout.inViewPort(dataIndex);
     }
 
+    @Override
+    protected boolean inPrefetchWindow(final int dataIndex) {
+        return mColumnLayout.inPrefetchWindow(dataIndex) && mRowLayout.inPrefetchWindow(dataIndex);
+    }
+
     /**
      * When set to true, all items in layout will be considered having the size of the largest child. If false, all items are
      * measured normally. Disabled by default.
@@ -498,6 +509,13 @@ public class GridLayout extends OrientedLayout {
         super.enableOuterPadding(enable);
     }
 
+    @Override
+    public void setPrefetchMargin(float margin) {
+        mColumnLayout.setPrefetchMargin(margin);
+        mRowLayout.setPrefetchMargin(margin);
+        super.setPrefetchMargin(margin);
+    }
+
     @Override
     public void setOrientation(Orientation orientation) {
         if (init(orientation) && isValidLayout(orientation)) {
@@ -243,6 +243,11 @@ public class LinearLayout extends OrientedLayout {
         return inViewPort(dataIndex, mCache);
     }
 
+    @Override
+    protected boolean inPrefetchWindow(final int dataIndex) {
+        return inViewPort(dataIndex, mCache, getPrefetchMargin());
+    }
+
     @Override
     public void invalidate() {
         super.invalidate();
@@ -534,6 +539,13 @@ public class LinearLayout extends OrientedLayout {
                 id = cache.getId(cache.count() - 1);
                 break;
             case CENTER:
+                if (cache instanceof PrefixSumCacheDataSet) {
+                    int pos = ((PrefixSumCacheDataSet) cache).getPosAt(0);
+                    if (pos >= 0) {
+                        id = cache.getId(pos);
+                        break;
+                    }
+                }
                 int i = cache.count() / 2;
                 while (i < cache.count() && i >= 0) {
                     id =  cache.getId(i);
@@ -673,10 +685,18 @@ public class LinearLayout extends OrientedLayout {
     }
 
     protected boolean inViewPort(final int dataIndex, CacheDataSet cache) {
+        return inViewPort(dataIndex, cache, 0);
+    }
+
+    /**
+     * Checks if the item is in the view port extended by the margin at both ends
+     * @param margin distance the view port is extended by along the orientation axis
+     */
+    protected boolean inViewPort(final int dataIndex, CacheDataSet cache, final float margin) {
         float startData = cache.getStartDataOffset(dataIndex) + cache.getStartPadding(dataIndex);
         float endData = cache.getEndDataOffset(dataIndex) - cache.getEndPadding(dataIndex);
 
-        float layoutOffset = getLayoutOffset();
+        float layoutOffset = getLayoutOffset() - margin;
 
 
         boolean inViewport = (endData > layoutOffset &&
@@ -737,10 +757,10 @@ public class LinearLayout extends OrientedLayout {
      * Initialize cache data set
      */
     protected void initCache() {
-        mCache = new LinearCacheDataSet(mOuterPaddingEnabled);
+        mCache = new PrefixSumCacheDataSet(mOuterPaddingEnabled);
     }
 
-    protected LinearCacheDataSet mCache;
+    protected PrefixSumCacheDataSet mCache;
     protected boolean mUniformSize;
     private Gravity mGravity = Gravity.CENTER;
     protected static final String TAG = LinearLayout.class.getSimpleName();
@@ -0,0 +1,571 @@
+package org.gearvrf.widgetlib.widget.layout.basic;
+
+import org.gearvrf.widgetlib.log.Log;
+import org.gearvrf.widgetlib.widget.layout.CacheDataSet;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of CacheDataSet for LinearLayout backed by primitive arrays.
+ *
+ * The records are kept in slots ordered by position. Free slots are left at both ends of the
+ * slot arrays, so the records added in front of or after all the others, as scrolling does,
+ * take O(log n). Two Fenwick trees over the slots hold the number of records and the space
+ * taken by the records with padding. They give the position of a record, the record at a
+ * position and the offset of a record in O(log n).
+ *
+ * The offsets are not stored per record. The offset of each record is the offset of the slots
+ * plus the space taken by the records before it, so shifting or setting the offset of one record
+ * moves all of them.
+ */
+public class PrefixSumCacheDataSet implements CacheDataSet {
+    private static final String TAG = "CacheDataSet";
+    private static final int MIN_CAPACITY = 16;
+
+    protected float mTotalSize;
+    protected float mTotalPadding;
+    private boolean mOuterPaddingEnabled;
+
+    private int mCapacity;
+    private int mHead;
+    private int mTail;
+    private int mCount;
+
+    // slot per id, -1 if the id is not in the set
+    private int[] mSlots = new int[MIN_CAPACITY];
+
+    private int[] mIds;
+    private float[] mSizes;
+    private float[] mStartPaddings;
+    private float[] mEndPaddings;
+    private int[] mCountTree;
+    private double[] mWidthTree;
+
+    // offset of the slots, NaN if the offsets are not valid
+    private double mBase = Double.NaN;
+
+    public PrefixSumCacheDataSet(boolean outerPaddingEnabled) {
+        mOuterPaddingEnabled = outerPaddingEnabled;
+        Arrays.fill(mSlots, -1);
+        allocate(MIN_CAPACITY);
+    }
+
+    @Override
+    synchronized public void copyTo(CacheDataSet to) {
+        if (to != null && to instanceof PrefixSumCacheDataSet) {
+            PrefixSumCacheDataSet copy = (PrefixSumCacheDataSet) to;
+            synchronized (copy) {
+                copy.mTotalPadding = mTotalPadding;
+                copy.mTotalSize = mTotalSize;
+                copy.mOuterPaddingEnabled = mOuterPaddingEnabled;
+                copy.mCapacity = mCapacity;
+                copy.mHead = mHead;
+                copy.mTail = mTail;
+                copy.mCount = mCount;
+                copy.mSlots = mSlots.clone();
+                copy.mIds = mIds.clone();
+                copy.mSizes = mSizes.clone();
+                copy.mStartPaddings = mStartPaddings.clone();
+                copy.mEndPaddings = mEndPaddings.clone();
+                copy.mCountTree = mCountTree.clone();
+                copy.mWidthTree = mWidthTree.clone();
+                copy.mBase = mBase;
+            }
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                to.dump();
+            }
+
+        } else {
+            Log.w(TAG, "Cannot copy the data set to %s", to);
+        }
+    }
+
+    @Override
+    synchronized public void dump() {
+        Log.d(TAG, "\n==== DUMP CACHE start ======\nCache size = %d " +
+                        "totalSize = %f totalPadding = %f mOuterPaddingEnabled = %b",
+                count(), mTotalSize, mTotalPadding, mOuterPaddingEnabled);
+
+        int pos = 0;
+        for (int slot = mHead; slot < mTail; ++slot) {
+            int id = mIds[slot];
+            if (id >= 0) {
+                Log.d(TAG, "data[%d, %d]: size = %f padding [%f, %f] offset = %f", id, pos++,
+                        mSizes[slot], mStartPaddings[slot], mEndPaddings[slot], getDataOffset(id));
+            }
+        }
+
+        Log.d(TAG, "\n==== DUMP CACHE end ======\n");
+    }
+
+    @Override
+    synchronized public boolean contains(final int id) {
+        return getSlot(id) >= 0;
+    }
+
+    @Override
+    synchronized public float addData(final int id, final int pos,
+                                      final float size, final float startPadding, final float endPadding) {
+        if (id < 0) {
+            Log.w(TAG, "addData: invalid id %d", id);
+            return 0;
+        }
+        if (contains(id)) {
+            removeData(id);
+        }
+
+        int actualPos = pos;
+        if (actualPos < 0) {
+            actualPos = 0;
+        } else if (actualPos > mCount) {
+            actualPos = mCount;
+        }
+
+        int slot;
+        if (actualPos == 0 && mHead > 0) {
+            slot = --mHead;
+        } else if (actualPos == mCount && mTail < mCapacity) {
+            slot = mTail++;
+        } else {
+            slot = rebuild(actualPos);
+        }
+
+        if (id >= mSlots.length) {
+            int length = mSlots.length;
+            mSlots = Arrays.copyOf(mSlots, Math.max(id + 1, length * 2));
+            Arrays.fill(mSlots, length, mSlots.length, -1);
+        }
+        mSlots[id] = slot;
+        mIds[slot] = id;
+        mSizes[slot] = size;
+        mStartPaddings[slot] = startPadding;
+        mEndPaddings[slot] = endPadding;
+        ++mCount;
+        addCount(slot, 1);
+        addWidth(slot, getWidth(slot));
+
+        // keep the offsets of the records after the new one
+        if (actualPos == 0) {
+            mBase -= getWidth(slot);
+        }
+
+        mTotalSize += size;
+
+        // update total padding
+        float paddingSpace = updateTotalPadding(actualPos, slot, true);
+
+        return paddingSpace + size;
+    }
+
+    @Override
+    synchronized public int getId(final int pos) {
+        return pos < 0 || pos >= mCount ? -1 : mIds[findSlot(pos)];
+    }
+
+    @Override
+    synchronized public int getPos(final int id) {
+        int slot = getSlot(id);
+        return slot < 0 ? -1 : countBefore(slot);
+    }
+
+    @Override
+    synchronized public float getDataOffset(final int id) {
+        int slot = getSlot(id);
+        return slot < 0 ? Float.NaN : (float) getCenter(slot);
+    }
+
+    @Override
+    synchronized public float getSizeWithPadding(final int id) {
+        float sizeWithPadding = Float.NaN;
+        int slot = getSlot(id);
+        if (slot >= 0) {
+            int pos = countBefore(slot);
+            sizeWithPadding = getStartPadding(pos, slot) + mSizes[slot] + getEndPadding(pos, slot);
+        }
+        return sizeWithPadding;
+    }
+
+    @Override
+    synchronized public float getStartDataOffset(final int id) {
+        float offset = Float.NaN;
+        int slot = getSlot(id);
+        if (slot >= 0) {
+            int pos = countBefore(slot);
+            offset = (float) (getCenter(slot) - getStartPadding(pos, slot) - mSizes[slot] / 2);
+        }
+        return offset;
+    }
+
+    @Override
+    synchronized public float getEndDataOffset(final int id) {
+        float offset = Float.NaN;
+        int slot = getSlot(id);
+        if (slot >= 0) {
+            int pos = countBefore(slot);
+            offset = (float) (getCenter(slot) + mSizes[slot] / 2 + getEndPadding(pos, slot));
+        }
+        return offset;
+    }
+
+    @Override
+    synchronized public void removeData(final int id) {
+        int slot = getSlot(id);
+        if (slot >= 0) {
+            int pos = countBefore(slot);
+            mTotalSize -= mSizes[slot];
+            updateTotalPadding(pos, slot, false);
+
+            float width = getWidth(slot);
+            addCount(slot, -1);
+            addWidth(slot, -width);
+            // keep the offsets of the records after the removed one
+            if (pos == 0) {
+                mBase += width;
+            }
+
+            mSlots[id] = -1;
+            mIds[slot] = -1;
+            if (--mCount == 0) {
+                clear();
+            } else if (slot == mHead) {
+                while (mIds[mHead] < 0) {
+                    ++mHead;
+                }
+            } else if (slot == mTail - 1) {
+                while (mIds[mTail - 1] < 0) {
+                    --mTail;
+                }
+            }
+        }
+    }
+
+    @Override
+    synchronized public void invalidate() {
+        invalidate(InvalidateOp.ALL);
+    }
+
+    @Override
+    synchronized public void invalidate(InvalidateOp op) {
+        switch (op) {
+            case ALL:
+                clear();
+                mTotalSize = 0;
+                mTotalPadding = 0;
+                break;
+            case OFFSET:
+                mBase = Double.NaN;
+                break;
+            case SIZE:
+                mTotalSize = 0;
+                mTotalPadding = 0;
+                for (int slot = mHead; slot < mTail; ++slot) {
+                    mSizes[slot] = 0;
+                }
+                buildTrees();
+                mBase = Double.NaN;
+                break;
+            case PADDING:
+                mTotalSize = 0;
+                mTotalPadding = 0;
+                mBase = Double.NaN;
+                break;
+            case POSITION:
+            default:
+                break;
+        }
+    }
+
+    @Override
+    synchronized public float uniformSize() {
+        float maxSize = 0;
+        for (int slot = mHead; slot < mTail; ++slot) {
+            if (mIds[slot] >= 0) {
+                maxSize = Math.max(maxSize, mSizes[slot]);
+            }
+        }
+
+        for (int slot = mHead; slot < mTail; ++slot) {
+            if (mIds[slot] >= 0) {
+                mSizes[slot] = maxSize;
+            }
+        }
+        buildTrees();
+        mTotalSize = mCount * maxSize;
+        invalidate(InvalidateOp.OFFSET);
+
+        return maxSize;
+    }
+
+    synchronized public void enableOuterPadding(final boolean enable) {
+        mOuterPaddingEnabled = enable;
+    }
+
+    @Override
+    synchronized public float uniformPadding(final float uniformPadding) {
+        for (int slot = mHead; slot < mTail; ++slot) {
+            if (mIds[slot] >= 0) {
+                mStartPaddings[slot] = uniformPadding / 2;
+                mEndPaddings[slot] = uniformPadding / 2;
+            }
+        }
+        buildTrees();
+        mTotalPadding = (mCount - 1) * uniformPadding;
+        invalidate(InvalidateOp.OFFSET);
+
+        return uniformPadding;
+    }
+
+    @Override
+    synchronized public float setDataAfter(final int id, float alignment) {
+        int slot = getSlot(id);
+        if (slot >= 0) {
+            int pos = countBefore(slot);
+            float startPadding = getStartPadding(pos, slot);
+            setCenter(slot, alignment + (startPadding + mSizes[slot] / 2));
+
+            float endPadding = getEndPadding(pos, slot);
+            return alignment + (startPadding + mSizes[slot] + endPadding);
+        }
+        return Float.NaN;
+    }
+
+    @Override
+    synchronized public float setDataBefore(final int id, float alignment) {
+        int slot = getSlot(id);
+        if (slot >= 0) {
+            int pos = countBefore(slot);
+            float endPadding = getEndPadding(pos, slot);
+            setCenter(slot, alignment - (endPadding + mSizes[slot] / 2));
+
+            float startPadding = getStartPadding(pos, slot);
+            return alignment - (startPadding + mSizes[slot] + endPadding);
+        }
+        return Float.NaN;
+    }
+
+    @Override
+    synchronized public float getStartPadding(final int id) {
+        int slot = getSlot(id);
+        return slot < 0 ? Float.NaN : getStartPadding(countBefore(slot), slot);
+    }
+
+    @Override
+    synchronized public float getEndPadding(final int id) {
+        int slot = getSlot(id);
+        return slot < 0 ? Float.NaN : getEndPadding(countBefore(slot), slot);
+    }
+
+    @Override
+    synchronized public void shiftBy(final float amount) {
+        mBase += amount;
+    }
+
+    @Override
+    synchronized public float getTotalSizeWithPadding() {
+        return mTotalPadding + mTotalSize;
+    }
+
+    @Override
+    synchronized public float getTotalSize() {
+        return mTotalSize;
+    }
+
+    @Override
+    synchronized public int count() {
+        return mCount;
+    }
+
+    /**
+     * Gets the position of the record at the offset. The records before the first one
+     * or after the last one are taken as the first or the last one.
+     * @param offset offset along the layout axis
+     * @return position of the record or -1 if the set is empty or the offsets are not valid
+     */
+    synchronized public int getPosAt(final float offset) {
+        if (mCount == 0 || Double.isNaN(mBase)) {
+            return -1;
+        }
+
+        // the slot after the last one whose records end before the offset
+        double remaining = offset - mBase;
+        int slot = 0;
+        for (int bit = Integer.highestOneBit(mCapacity); bit > 0; bit >>= 1) {
+            int next = slot + bit;
+            if (next <= mCapacity && mWidthTree[next] <= remaining) {
+                slot = next;
+                remaining -= mWidthTree[next];
+            }
+        }
+        return Math.min(countBefore(slot), mCount - 1);
+    }
+
+    private float updateTotalPadding(final int pos, final int slot, final boolean addPadding) {
+
+        // update total padding
+        float paddingSpace = getStartPadding(pos, slot) + getEndPadding(pos, slot);
+
+        // exclude the start padding for new first item and end padding for new last item
+        if (mCount > 1) {
+            // first item updated
+            if (pos == 0 && !mOuterPaddingEnabled) {
+                paddingSpace += mStartPaddings[findSlot(pos + 1)];
+            }
+            // last item updated
+            if (pos == mCount - 1 && !mOuterPaddingEnabled) {
+                paddingSpace += mEndPaddings[findSlot(pos - 1)];
+            }
+        }
+        mTotalPadding += (addPadding ? 1 : -1) * paddingSpace;
+        return paddingSpace;
+    }
+
+    private float getStartPadding(final int pos, final int slot) {
+        return pos > 0 || mOuterPaddingEnabled ? mStartPaddings[slot] : 0;
+    }
+
+    private float getEndPadding(final int pos, final int slot) {
+        return pos < mCount - 1 || mOuterPaddingEnabled ? mEndPaddings[slot] : 0;
+    }
+
+    private int getSlot(final int id) {
+        return id < 0 || id >= mSlots.length ? -1 : mSlots[id];
+    }
+
+    private float getWidth(final int slot) {
+        return mStartPaddings[slot] + mSizes[slot] + mEndPaddings[slot];
+    }
+
+    private double getCenter(final int slot) {
+        return mBase + widthBefore(slot) + mStartPaddings[slot] + mSizes[slot] / 2;
+    }
+
+    private void setCenter(final int slot, final double center) {
+        mBase = center - widthBefore(slot) - mStartPaddings[slot] - mSizes[slot] / 2;
+    }
+
+    // number of records in the slots before the slot
+    private int countBefore(final int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += mCountTree[i];
+        }
+        return count;
+    }
+
+    // space taken by the records in the slots before the slot
+    private double widthBefore(final int slot) {
+        double width = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            width += mWidthTree[i];
+        }
+        return width;
+    }
+
+    // slot of the record at the position
+    private int findSlot(final int pos) {
+        int remaining = pos;
+        int slot = 0;
+        for (int bit = Integer.highestOneBit(mCapacity); bit > 0; bit >>= 1) {
+            int next = slot + bit;
+            if (next <= mCapacity && mCountTree[next] <= remaining) {
+                slot = next;
+                remaining -= mCountTree[next];
+            }
+        }
+        return slot;
+    }
+
+    private void addCount(final int slot, final int delta) {
+        for (int i = slot + 1; i <= mCapacity; i += i & -i) {
+            mCountTree[i] += delta;
+        }
+    }
+
+    private void addWidth(final int slot, final double delta) {
+        for (int i = slot + 1; i <= mCapacity; i += i & -i) {
+            mWidthTree[i] += delta;
+        }
+    }
+
+    private void buildTrees() {
+        Arrays.fill(mCountTree, 0);
+        Arrays.fill(mWidthTree, 0);
+        for (int slot = mHead; slot < mTail; ++slot) {
+            if (mIds[slot] >= 0) {
+                mCountTree[slot + 1] = 1;
+                mWidthTree[slot + 1] = getWidth(slot);
+            }
+        }
+        for (int i = 1; i <= mCapacity; ++i) {
+            int parent = i + (i & -i);
+            if (parent <= mCapacity) {
+                mCountTree[parent] += mCountTree[i];
+                mWidthTree[parent] += mWidthTree[i];
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        mCapacity = capacity;
+        mIds = new int[capacity];
+        mSizes = new float[capacity];
+        mStartPaddings = new float[capacity];
+        mEndPaddings = new float[capacity];
+        mCountTree = new int[capacity + 1];
+        mWidthTree = new double[capacity + 1];
+        Arrays.fill(mIds, -1);
+        mHead = capacity / 2;
+        mTail = mHead;
+    }
+
+    /*
+     * Moves the records to new slot arrays with free slots at both ends, leaving
+     * a free slot at the position. Takes O(n), only done when the slots at the
+     * end are used up or a record is added in between two others.
+     * @return the free slot
+     */
+    private int rebuild(final int pos) {
+        int[] ids = mIds;
+        float[] sizes = mSizes;
+        float[] startPaddings = mStartPaddings;
+        float[] endPaddings = mEndPaddings;
+        int head = mHead;
+        int tail = mTail;
+        int count = mCount + 1;
+
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(count) * 4));
+        mHead = (mCapacity - count) / 2;
+        mTail = mHead + count;
+
+        int free = -1;
+        int slot = mHead;
+        for (int i = head; i < tail; ++i) {
+            if (ids[i] >= 0) {
+                if (slot - mHead == pos) {
+                    free = slot++;
+                }
+                mIds[slot] = ids[i];
+                mSizes[slot] = sizes[i];
+                mStartPaddings[slot] = startPaddings[i];
+                mEndPaddings[slot] = endPaddings[i];
+                mSlots[ids[i]] = slot++;
+            }
+        }
+        if (free < 0) {
+            free = slot;
+        }
+        buildTrees();
+        return free;
+    }
+
+    private void clear() {
+        for (int slot = mHead; slot < mTail; ++slot) {
+            if (mIds[slot] >= 0) {
+                mSlots[mIds[slot]] = -1;
+            }
+        }
+        mCount = 0;
+        mBase = Double.NaN;
+        allocate(MIN_CAPACITY);
+    }
+}
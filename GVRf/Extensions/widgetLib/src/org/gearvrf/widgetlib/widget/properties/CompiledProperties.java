@@ -0,0 +1,402 @@
+package org.gearvrf.widgetlib.widget.properties;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The effective properties of a widget class and name, resolved once by the
+ * {@link PropertySchemaCompiler} into an immutable, flat table.
+ * <p>
+ * Every object, array and value of the resolved properties is an entry of the table, keyed by
+ * its path from the root. The paths are registered once, typically in a static initializer, and
+ * the values are then read by key without walking or copying JSON:
+ * <pre>
+ *     private static final int ENABLED = CompiledProperties.key(Properties.enabled);
+ *     ...
+ *     mEnabled = properties.getBoolean(ENABLED, false);
+ * </pre>
+ * The values are converted the same way {@link JSONObject} converts them: numbers may be read
+ * from strings and booleans from "true" and "false" strings.
+ * <p>
+ * For code which still needs JSON, {@link #getJSONObject()} returns the same properties as an
+ * {@link UnmodifiableJSONObject}.
+ */
+public final class CompiledProperties {
+    public static final int TYPE_NONE = -1;
+    public static final int TYPE_OBJECT = 0;
+    public static final int TYPE_ARRAY = 1;
+    public static final int TYPE_BOOLEAN = 2;
+    public static final int TYPE_NUMBER = 3;
+    public static final int TYPE_STRING = 4;
+    public static final int TYPE_NULL = 5;
+
+    /**
+     * Registers the path of a property. Array elements are addressed by their index.
+     *
+     * @param segments The names of the properties from the root, e.g. {@code "states", "normal"}.
+     * @return The key to read the property with. The same path always gets the same key.
+     */
+    public static int key(String... segments) {
+        final StringBuilder path = new StringBuilder();
+        for (String segment : segments) {
+            appendSegment(path, segment);
+        }
+        return keyOf(path.toString());
+    }
+
+    /**
+     * Registers the path of a property named by enum constants, like the properties read with
+     * {@link JSONHelpers}.
+     */
+    public static int key(Enum<?>... segments) {
+        final StringBuilder path = new StringBuilder();
+        for (Enum<?> segment : segments) {
+            appendSegment(path, segment.name());
+        }
+        return keyOf(path.toString());
+    }
+
+    /**
+     * @return The path of {@code key}, with the segments separated by '/'; '~' and '/' in the
+     * names are escaped as "~0" and "~1".
+     */
+    public static String path(int key) {
+        synchronized (sKeyLock) {
+            return sPaths.get(key);
+        }
+    }
+
+    /**
+     * @return The number of entries: objects, arrays and values.
+     */
+    public int size() {
+        return mKeys.length;
+    }
+
+    /**
+     * @return The index of the entry for {@code key}, or -1 if the properties don't have it.
+     */
+    public int indexOf(int key) {
+        return key >= 0 && key < mSlots.length ? mSlots[key] : -1;
+    }
+
+    public boolean has(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return The key of the entry at {@code index}.
+     */
+    public int getKey(int index) {
+        return mKeys[index];
+    }
+
+    /**
+     * @return One of the {@code TYPE_} constants; {@link #TYPE_NONE} if the properties don't have
+     * {@code key}.
+     */
+    public int getType(int key) {
+        final int index = indexOf(key);
+        return index < 0 ? TYPE_NONE : mTypes[index];
+    }
+
+    public boolean getBoolean(int key, boolean fallback) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            switch (mTypes[index]) {
+                case TYPE_BOOLEAN:
+                    return mNumbers[index] != 0;
+                case TYPE_STRING:
+                    final String value = (String) mValues[index];
+                    if ("true".equalsIgnoreCase(value)) {
+                        return true;
+                    } else if ("false".equalsIgnoreCase(value)) {
+                        return false;
+                    }
+                    break;
+            }
+        }
+        return fallback;
+    }
+
+    public int getInt(int key, int fallback) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            switch (mTypes[index]) {
+                case TYPE_NUMBER:
+                    return ((Number) mValues[index]).intValue();
+                case TYPE_STRING:
+                    return (int) parseDouble((String) mValues[index], fallback);
+            }
+        }
+        return fallback;
+    }
+
+    public long getLong(int key, long fallback) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            switch (mTypes[index]) {
+                case TYPE_NUMBER:
+                    return ((Number) mValues[index]).longValue();
+                case TYPE_STRING:
+                    return (long) parseDouble((String) mValues[index], fallback);
+            }
+        }
+        return fallback;
+    }
+
+    public float getFloat(int key, float fallback) {
+        return (float) getDouble(key, fallback);
+    }
+
+    public double getDouble(int key, double fallback) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            switch (mTypes[index]) {
+                case TYPE_NUMBER:
+                    return mNumbers[index];
+                case TYPE_STRING:
+                    return parseDouble((String) mValues[index], fallback);
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * @return The value of {@code key} as a string, or {@code fallback} if the properties don't
+     * have it or it is null.
+     */
+    public String getString(int key, String fallback) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            switch (mTypes[index]) {
+                case TYPE_BOOLEAN:
+                case TYPE_NUMBER:
+                case TYPE_STRING:
+                    return mValues[index].toString();
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * @return The number of elements of an array or of properties of an object, 0 otherwise.
+     */
+    public int getLength(int key) {
+        final int index = indexOf(key);
+        if (index >= 0 && (mTypes[index] == TYPE_OBJECT || mTypes[index] == TYPE_ARRAY)) {
+            return (int) mNumbers[index];
+        }
+        return 0;
+    }
+
+    /**
+     * @return The object at {@code key}, or {@code null} if the properties don't have one.
+     */
+    public UnmodifiableJSONObject getJSONObject(int key) {
+        final int index = indexOf(key);
+        if (index >= 0 && mTypes[index] == TYPE_OBJECT) {
+            return (UnmodifiableJSONObject) mValues[index];
+        }
+        return null;
+    }
+
+    /**
+     * @return All of the properties.
+     */
+    public UnmodifiableJSONObject getJSONObject() {
+        return (UnmodifiableJSONObject) mValues[0];
+    }
+
+    @Override
+    public String toString() {
+        return getJSONObject().toString();
+    }
+
+    /* package */
+    static CompiledProperties compile(JSONObject properties) {
+        final Builder builder = new Builder();
+        builder.addObject(properties, "", -1);
+        return new CompiledProperties(builder);
+    }
+
+    private CompiledProperties(Builder builder) {
+        final int count = builder.mKeys.size();
+        mKeys = new int[count];
+        mTypes = new byte[count];
+        mNumbers = new double[count];
+        mValues = builder.mValues.toArray();
+
+        int maxKey = -1;
+        for (int i = 0; i < count; ++i) {
+            mKeys[i] = builder.mKeys.get(i);
+            mTypes[i] = builder.mTypes.get(i);
+            maxKey = Math.max(maxKey, mKeys[i]);
+        }
+        mSlots = new int[maxKey + 1];
+        for (int i = 0; i < mSlots.length; ++i) {
+            mSlots[i] = -1;
+        }
+        for (int i = 0; i < count; ++i) {
+            mSlots[mKeys[i]] = i;
+        }
+
+        // Rebuild the JSON from the table, children first, so that it can't share anything with
+        // the JSON the properties were resolved from
+        final int[] parents = builder.mParents;
+        for (int i = count - 1; i >= 0; --i) {
+            if (mTypes[i] == TYPE_OBJECT || mTypes[i] == TYPE_ARRAY) {
+                mNumbers[i] = builder.mLengths[i];
+                mValues[i] = mTypes[i] == TYPE_OBJECT ? new JSONObject() : new JSONArray();
+            } else if (mTypes[i] == TYPE_NUMBER) {
+                mNumbers[i] = ((Number) mValues[i]).doubleValue();
+            } else if (mTypes[i] == TYPE_BOOLEAN) {
+                mNumbers[i] = (Boolean) mValues[i] ? 1 : 0;
+            }
+        }
+        for (int i = 1; i < count; ++i) {
+            final Object parent = mValues[parents[i]];
+            final Object value = mValues[i];
+            try {
+                if (parent instanceof JSONObject) {
+                    ((JSONObject) parent).put(builder.mNames.get(i), value);
+                } else {
+                    ((JSONArray) parent).put(value);
+                }
+            } catch (JSONException e) {
+                throw new RuntimeException("This should not be able to happen!", e);
+            }
+        }
+        for (int i = 0; i < count; ++i) {
+            if (mTypes[i] == TYPE_OBJECT) {
+                mValues[i] = new UnmodifiableJSONObject((JSONObject) mValues[i]);
+            } else if (mTypes[i] == TYPE_ARRAY) {
+                mValues[i] = new UnmodifiableJSONArray((JSONArray) mValues[i]);
+            }
+        }
+    }
+
+    /*
+     * Walks the JSON in pre-order, so that parents always come before their children and the
+     * properties of an object keep their order
+     */
+    private static final class Builder {
+        void addObject(JSONObject object, String path, int parent) {
+            final int index = add(path, TYPE_OBJECT, null, parent);
+            int length = 0;
+            final Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                final String name = keys.next();
+                final int child = addValue(object.opt(name), child(path, name), index);
+                mNames.set(child, name);
+                ++length;
+            }
+            mLengths[index] = length;
+        }
+
+        void addArray(JSONArray array, String path, int parent) {
+            final int index = add(path, TYPE_ARRAY, null, parent);
+            final int length = array.length();
+            for (int i = 0; i < length; ++i) {
+                addValue(array.opt(i), child(path, Integer.toString(i)), index);
+            }
+            mLengths[index] = length;
+        }
+
+        int addValue(Object value, String path, int parent) {
+            final int index = mKeys.size();
+            if (value instanceof JSONObject) {
+                addObject((JSONObject) value, path, parent);
+            } else if (value instanceof JSONArray) {
+                addArray((JSONArray) value, path, parent);
+            } else if (value instanceof Boolean) {
+                add(path, TYPE_BOOLEAN, value, parent);
+            } else if (value instanceof Number) {
+                add(path, TYPE_NUMBER, value, parent);
+            } else if (value == null || value == JSONObject.NULL) {
+                add(path, TYPE_NULL, JSONObject.NULL, parent);
+            } else {
+                add(path, TYPE_STRING, value.toString(), parent);
+            }
+            return index;
+        }
+
+        private int add(String path, int type, Object value, int parent) {
+            final int index = mKeys.size();
+            mKeys.add(keyOf(path));
+            mTypes.add((byte) type);
+            mValues.add(value);
+            mNames.add(null);
+            if (index == mParents.length) {
+                mParents = Arrays.copyOf(mParents, index * 2);
+                mLengths = Arrays.copyOf(mLengths, index * 2);
+            }
+            mParents[index] = parent;
+            return index;
+        }
+
+        private static String child(String path, String name) {
+            final StringBuilder builder = new StringBuilder(path);
+            appendSegment(builder, name);
+            return builder.toString();
+        }
+
+        final List<Integer> mKeys = new ArrayList<>();
+        final List<Byte> mTypes = new ArrayList<>();
+        final List<Object> mValues = new ArrayList<>();
+        final List<String> mNames = new ArrayList<>();
+        int[] mParents = new int[16];
+        int[] mLengths = new int[16];
+    }
+
+    private static void appendSegment(StringBuilder path, String segment) {
+        path.append('/');
+        if (segment.indexOf('~') < 0 && segment.indexOf('/') < 0) {
+            path.append(segment);
+        } else {
+            path.append(segment.replace("~", "~0").replace("/", "~1"));
+        }
+    }
+
+    private static int keyOf(String path) {
+        synchronized (sKeyLock) {
+            Integer key = sKeys.get(path);
+            if (key == null) {
+                key = sPaths.size();
+                sKeys.put(path, key);
+                sPaths.add(path);
+            }
+            return key;
+        }
+    }
+
+    private static double parseDouble(String value, double fallback) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // per entry, in pre-order; the root is the first entry
+    private final int[] mKeys;
+    private final byte[] mTypes;
+    // numeric and boolean values, lengths of objects and arrays
+    private final double[] mNumbers;
+    // boxed values, unmodifiable objects and arrays
+    private final Object[] mValues;
+    // entry of each key, -1 if none
+    private final int[] mSlots;
+
+    private static final Object[] sKeyLock = new Object[0];
+    private static final Map<String, Integer> sKeys = new HashMap<>();
+    private static final List<String> sPaths = new ArrayList<>();
+}
@@ -0,0 +1,106 @@
+package org.gearvrf.widgetlib.widget.properties;
+
+import android.support.annotation.NonNull;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the properties of widget classes into {@link CompiledProperties}, once per class and
+ * name.
+ * <p>
+ * The properties of a class are those of its superclass, overwritten by the ones declared for
+ * the class itself in the class metadata, keyed by its canonical name. The properties of a named
+ * instance are the properties of its class, overwritten by the ones declared for the name in the
+ * instance metadata. The merging is done by {@link JSONHelpers#merge(JSONObject, JSONObject)}.
+ * <p>
+ * The resolved properties of each class are kept and reused for its subclasses. Names without
+ * instance metadata share the table of their class.
+ */
+public class PropertySchemaCompiler {
+    /**
+     * @param classJson     Properties by canonical class name.
+     * @param instanceJson  Properties by instance name; may be {@code null}.
+     */
+    public PropertySchemaCompiler(@NonNull JSONObject classJson, JSONObject instanceJson) {
+        mClassJson = new UnmodifiableJSONObject(classJson);
+        mInstanceJson = new UnmodifiableJSONObject(instanceJson);
+    }
+
+    /**
+     * @param clazz The class of the widget.
+     * @param name  The name of the widget; may be {@code null}.
+     * @return The properties of {@code clazz}, overwritten by the instance properties of
+     * {@code name}.
+     */
+    @NonNull
+    public CompiledProperties getProperties(Class<?> clazz, String name) {
+        final CompiledProperties classProperties = getClassProperties(clazz);
+        final UnmodifiableJSONObject instanceJson = name == null ? null :
+                mInstanceJson.optJSONObject(name);
+        if (instanceJson == null) {
+            return classProperties;
+        }
+
+        Map<String, CompiledProperties> instances = mInstanceProperties.get(clazz);
+        if (instances == null) {
+            instances = new ConcurrentHashMap<>();
+            final Map<String, CompiledProperties> raced =
+                    mInstanceProperties.putIfAbsent(clazz, instances);
+            if (raced != null) {
+                instances = raced;
+            }
+        }
+
+        CompiledProperties properties = instances.get(name);
+        if (properties == null) {
+            // Overwrite class properties for this widget type with instance-specific properties
+            properties = CompiledProperties.compile(
+                    JSONHelpers.merge(instanceJson, classProperties.getJSONObject(), name));
+            final CompiledProperties raced = instances.putIfAbsent(name, properties);
+            if (raced != null) {
+                properties = raced;
+            }
+        }
+        return properties;
+    }
+
+    private CompiledProperties getClassProperties(Class<?> clazz) {
+        CompiledProperties properties = mClassProperties.get(clazz);
+        if (properties == null) {
+            properties = CompiledProperties.compile(resolveClass(clazz));
+            final CompiledProperties raced = mClassProperties.putIfAbsent(clazz, properties);
+            if (raced != null) {
+                properties = raced;
+            }
+        }
+        return properties;
+    }
+
+    /*
+     * Recursively merges the class properties down the class hierarchy, starting from the
+     * resolved properties of the superclass
+     */
+    private JSONObject resolveClass(Class<?> clazz) {
+        final Class<?> superclass = clazz.getSuperclass();
+        final UnmodifiableJSONObject superProperties = superclass == null ?
+                new UnmodifiableJSONObject() : getClassProperties(superclass).getJSONObject();
+
+        final String canonicalName = clazz.getCanonicalName();
+        UnmodifiableJSONObject classProperties = canonicalName == null ? null :
+                mClassJson.optJSONObject(canonicalName);
+        if (classProperties == null) {
+            classProperties = new UnmodifiableJSONObject();
+        }
+        return JSONHelpers.merge(classProperties, superProperties, clazz.getSimpleName());
+    }
+
+    private final UnmodifiableJSONObject mClassJson;
+    private final UnmodifiableJSONObject mInstanceJson;
+    private final ConcurrentHashMap<Class<?>, CompiledProperties> mClassProperties =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, Map<String, CompiledProperties>> mInstanceProperties =
+            new ConcurrentHashMap<>();
+}
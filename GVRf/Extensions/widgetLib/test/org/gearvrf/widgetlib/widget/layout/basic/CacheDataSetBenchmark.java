@@ -0,0 +1,177 @@
+package org.gearvrf.widgetlib.widget.layout.basic;
+
+import java.util.Random;
+
+import org.gearvrf.widgetlib.widget.layout.CacheDataSet;
+
+/**
+ * Scrolls a list of variable-size items through a {@link PrefixSumCacheDataSet} the way
+ * LinearLayout drives it. Does not depend on Android, run it on any JVM with the
+ * unit tests on the class path:
+ *
+ *   java org.gearvrf.widgetlib.widget.layout.basic.CacheDataSetBenchmark [items]
+ *
+ * The window case keeps only the items in the view port plus the prefetch margin in the
+ * cache, adding and removing them at both ends while scrolling. The full case keeps all
+ * the items in the cache, as when the view port clipping is disabled.
+ */
+final class CacheDataSetBenchmark {
+
+    static final int ITEMS              = 100000;
+    static final float MIN_SIZE         = 0.5f;
+    static final float MAX_SIZE         = 3.0f;
+    static final float DIVIDER          = 0.1f;
+    static final float VIEW_PORT        = 20.0f;
+    static final float PREFETCH_MARGIN  = 5.0f;
+    static final float SCROLL_STEP      = 0.75f;
+    static final float EPSILON          = 0.01f;
+
+    private final float[] mSizes;
+    private long mWorstFrame;
+
+    CacheDataSetBenchmark(int items) {
+        Random random = new Random(42);
+        mSizes = new float[items];
+        for (int i = 0; i < items; ++i) {
+            mSizes[i] = MIN_SIZE + random.nextFloat() * (MAX_SIZE - MIN_SIZE);
+        }
+    }
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : ITEMS;
+        CacheDataSetBenchmark benchmark = new CacheDataSetBenchmark(items);
+
+        // first runs warm up the JIT
+        benchmark.window();
+        benchmark.full();
+        benchmark.window();
+        benchmark.full();
+    }
+
+    void window() {
+        PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(false);
+        final float low = -VIEW_PORT / 2 - PREFETCH_MARGIN;
+        final float high = VIEW_PORT / 2 + PREFETCH_MARGIN;
+
+        mWorstFrame = 0;
+        long start = System.nanoTime();
+
+        add(cache, 0, 0);
+        cache.setDataAfter(0, -VIEW_PORT / 2);
+        fill(cache, low, high);
+
+        int frames = 0;
+        int maxCount = 0;
+        while (cache.getId(cache.count() - 1) < mSizes.length - 1 ||
+                cache.getEndDataOffset(cache.getId(cache.count() - 1)) > VIEW_PORT / 2) {
+            long frame = System.nanoTime();
+            cache.shiftBy(-SCROLL_STEP);
+            fill(cache, low, high);
+            endFrame(frame);
+            maxCount = Math.max(maxCount, cache.count());
+            ++frames;
+        }
+        check(cache);
+
+        while (cache.getId(0) > 0 || cache.getStartDataOffset(cache.getId(0)) < -VIEW_PORT / 2) {
+            long frame = System.nanoTime();
+            cache.shiftBy(SCROLL_STEP);
+            fill(cache, low, high);
+            endFrame(frame);
+            maxCount = Math.max(maxCount, cache.count());
+            ++frames;
+        }
+        check(cache);
+
+        report("window", frames, System.nanoTime() - start,
+                String.format("max cached %d", maxCount));
+    }
+
+    void full() {
+        PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(false);
+
+        mWorstFrame = 0;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < mSizes.length; ++i) {
+            add(cache, i, cache.count());
+        }
+        cache.setDataAfter(cache.getId(0), -VIEW_PORT / 2);
+        long measured = System.nanoTime() - start;
+
+        int frames = 0;
+        int visible = 0;
+        float total = cache.getTotalSizeWithPadding();
+        for (float scrolled = 0; scrolled < total - VIEW_PORT; scrolled += SCROLL_STEP) {
+            long frame = System.nanoTime();
+            cache.shiftBy(-SCROLL_STEP);
+            int first = cache.getPosAt(-VIEW_PORT / 2);
+            int last = cache.getPosAt(VIEW_PORT / 2);
+            for (int pos = first; pos <= last; ++pos) {
+                cache.getDataOffset(cache.getId(pos));
+            }
+            visible = Math.max(visible, last - first + 1);
+            endFrame(frame);
+            ++frames;
+        }
+        check(cache);
+
+        report("full", frames, System.nanoTime() - start,
+                String.format("measured all in %.2f ms, max visible %d", measured / 1e6, visible));
+    }
+
+    /*
+     * Removes the items which left the window and adds the ones which came in,
+     * at both ends of the cache
+     */
+    private void fill(CacheDataSet cache, float low, float high) {
+        while (cache.count() > 1 && cache.getEndDataOffset(cache.getId(0)) < low) {
+            cache.removeData(cache.getId(0));
+        }
+        while (cache.count() > 1 && cache.getStartDataOffset(cache.getId(cache.count() - 1)) > high) {
+            cache.removeData(cache.getId(cache.count() - 1));
+        }
+
+        int last = cache.getId(cache.count() - 1);
+        while (last < mSizes.length - 1 && cache.getEndDataOffset(last) < high) {
+            float end = cache.getEndDataOffset(last);
+            add(cache, ++last, cache.count());
+            cache.setDataAfter(last, end);
+        }
+
+        int first = cache.getId(0);
+        while (first > 0 && cache.getStartDataOffset(first) > low) {
+            float start = cache.getStartDataOffset(first);
+            add(cache, --first, 0);
+            cache.setDataBefore(first, start);
+        }
+    }
+
+    private void add(CacheDataSet cache, int id, int pos) {
+        cache.addData(id, pos, mSizes[id], DIVIDER / 2, DIVIDER / 2);
+    }
+
+    /*
+     * The items have to follow each other without gaps
+     */
+    private void check(CacheDataSet cache) {
+        for (int pos = 1; pos < cache.count(); ++pos) {
+            int prev = cache.getId(pos - 1);
+            int next = cache.getId(pos);
+            if (next != prev + 1 || cache.getPos(next) != pos ||
+                    Math.abs(cache.getEndDataOffset(prev) - cache.getStartDataOffset(next)) > EPSILON) {
+                throw new RuntimeException("test failed at " + pos);
+            }
+        }
+    }
+
+    private void endFrame(long frameStart) {
+        mWorstFrame = Math.max(mWorstFrame, System.nanoTime() - frameStart);
+    }
+
+    private void report(String name, int frames, long elapsed, String details) {
+        System.out.printf("%s: %d items, %d frames, %.2f ms, %.2f us/frame, worst %.2f us, %s%n",
+                name, mSizes.length, frames, elapsed / 1e6, elapsed / 1e3 / frames,
+                mWorstFrame / 1e3, details);
+    }
+}
@@ -0,0 +1,410 @@
+package org.gearvrf.widgetlib.widget.layout.basic;
+
+import org.gearvrf.widgetlib.widget.layout.CacheDataSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link PrefixSumCacheDataSet} against {@link LinearReference}, the records of
+ * the list based LinearCacheDataSet it replaced. Sizes and paddings are multiples of
+ * 1/8, so the offsets of both are exact and can be compared at the item boundaries.
+ */
+public class PrefixSumCacheDataSetTest {
+    private static final float EPSILON = 1e-4f;
+
+    @Test
+    public void recordsKeepTheirPositions() {
+        PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(false);
+        LinearReference reference = new LinearReference(false);
+
+        add(cache, reference, 5, 0, 2, 0.5f, 0.5f);
+        add(cache, reference, 6, 1, 1, 0.25f, 0.25f);
+        add(cache, reference, 4, 0, 3, 0.125f, 0.375f);
+        add(cache, reference, 9, 1, 1.5f, 0, 1);
+        compare(cache, reference);
+
+        assertEquals(4, cache.count());
+        assertEquals(4, cache.getId(0));
+        assertEquals(9, cache.getId(1));
+        assertEquals(-1, cache.getId(4));
+        assertEquals(-1, cache.getPos(7));
+        assertFalse(cache.contains(7));
+    }
+
+    @Test
+    public void outerPaddingIsOnlyCountedWhenEnabled() {
+        for (boolean outer : new boolean[] { false, true }) {
+            PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(outer);
+            LinearReference reference = new LinearReference(outer);
+
+            add(cache, reference, 0, 0, 2, 0.5f, 0.25f);
+            compare(cache, reference);
+            add(cache, reference, 1, 1, 1, 0.125f, 0.75f);
+            compare(cache, reference);
+            add(cache, reference, 2, 2, 3, 0.375f, 0.5f);
+            layout(cache, reference, -1);
+            compare(cache, reference);
+
+            assertEquals(outer ? 0.5f : 0, cache.getStartPadding(0), 0);
+            assertEquals(outer ? 0.5f : 0, cache.getEndPadding(2), 0);
+        }
+    }
+
+    @Test
+    public void removingTheEndsMovesTheOuterPadding() {
+        PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(false);
+        LinearReference reference = new LinearReference(false);
+
+        for (int id = 0; id < 6; ++id) {
+            add(cache, reference, id, id, 1 + id * 0.25f, 0.125f * id, 0.5f - 0.0625f * id);
+        }
+        layout(cache, reference, 2);
+
+        remove(cache, reference, 0);
+        compare(cache, reference);
+        remove(cache, reference, 5);
+        compare(cache, reference);
+        remove(cache, reference, 3);
+        // the records after a removed one move back, the list keeps their offsets
+        layout(cache, reference, 2);
+        compare(cache, reference);
+        remove(cache, reference, 1);
+        remove(cache, reference, 2);
+        compare(cache, reference);
+        remove(cache, reference, 4);
+        compare(cache, reference);
+        assertEquals(0, cache.count());
+        assertEquals(-1, cache.getPosAt(0));
+    }
+
+    @Test
+    public void positionAtAnOffset() {
+        PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(false);
+        LinearReference reference = new LinearReference(false);
+
+        add(cache, reference, 0, 0, 2, 0.25f, 0.25f);
+        add(cache, reference, 1, 1, 1, 0.25f, 0.25f);
+        add(cache, reference, 2, 2, 4, 0.25f, 0.25f);
+        layout(cache, reference, 0);
+
+        // 0 takes [0, 2.25), 1 takes [2.25, 3.75), 2 takes [3.75, 8]
+        assertEquals(0, cache.getPosAt(-5));
+        assertEquals(0, cache.getPosAt(0));
+        assertEquals(0, cache.getPosAt(2.125f));
+        assertEquals(1, cache.getPosAt(2.25f));
+        assertEquals(1, cache.getPosAt(3.5f));
+        assertEquals(2, cache.getPosAt(3.75f));
+        assertEquals(2, cache.getPosAt(100));
+        checkPosAt(cache, reference);
+
+        cache.invalidate(CacheDataSet.InvalidateOp.OFFSET);
+        assertEquals(-1, cache.getPosAt(0));
+    }
+
+    @Test
+    public void shiftMovesAllTheRecords() {
+        PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(true);
+        LinearReference reference = new LinearReference(true);
+
+        for (int id = 0; id < 20; ++id) {
+            add(cache, reference, id, id, 0.5f + (id % 3), 0.125f, 0.25f);
+        }
+        layout(cache, reference, -10);
+        cache.shiftBy(-3.5f);
+        reference.shiftBy(-3.5f);
+        compare(cache, reference);
+        checkPosAt(cache, reference);
+    }
+
+    @Test
+    public void uniformSizeAndPadding() {
+        PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(false);
+        LinearReference reference = new LinearReference(false);
+
+        for (int id = 0; id < 5; ++id) {
+            add(cache, reference, id, id, 1 + id, 0.25f, 0.5f);
+        }
+        assertEquals(reference.uniformSize(), cache.uniformSize(), 0);
+        assertEquals(reference.uniformPadding(0.75f), cache.uniformPadding(0.75f), 0);
+        layout(cache, reference, 0);
+        compare(cache, reference);
+    }
+
+    /*
+     * Adds and removes records at both ends and in between, as scrolling
+     * and data set changes do, and checks every record after each change.
+     */
+    @Test
+    public void randomChangesMatchTheListImplementation() {
+        Random random = new Random(7);
+
+        for (boolean outer : new boolean[] { false, true }) {
+            PrefixSumCacheDataSet cache = new PrefixSumCacheDataSet(outer);
+            LinearReference reference = new LinearReference(outer);
+            int nextId = 0;
+
+            for (int i = 0; i < 2000; ++i) {
+                int count = reference.count();
+                if (count > 0 && random.nextInt(5) < 2) {
+                    int pos = random.nextInt(4) == 0 ? random.nextInt(count) :
+                            (random.nextBoolean() ? 0 : count - 1);
+                    remove(cache, reference, reference.getId(pos));
+                } else {
+                    int pos = random.nextInt(4) == 0 ? random.nextInt(count + 1) :
+                            (random.nextBoolean() ? 0 : count);
+                    add(cache, reference, nextId++, pos, 0.125f * (1 + random.nextInt(32)),
+                            0.125f * random.nextInt(4), 0.125f * random.nextInt(4));
+                }
+                if (reference.count() > 0) {
+                    layout(cache, reference, 0.125f * (random.nextInt(64) - 32));
+                }
+                compare(cache, reference);
+                checkPosAt(cache, reference);
+            }
+        }
+    }
+
+    private static void add(PrefixSumCacheDataSet cache, LinearReference reference, int id,
+                            int pos, float size, float startPadding, float endPadding) {
+        assertEquals(reference.addData(id, pos, size, startPadding, endPadding),
+                cache.addData(id, pos, size, startPadding, endPadding), EPSILON);
+    }
+
+    private static void remove(PrefixSumCacheDataSet cache, LinearReference reference, int id) {
+        reference.removeData(id);
+        cache.removeData(id);
+    }
+
+    /*
+     * Sets the offsets the way LinearLayout does, one record after the other
+     */
+    private static void layout(PrefixSumCacheDataSet cache, LinearReference reference,
+                               float start) {
+        float alignment = start;
+        float check = start;
+        for (int pos = 0; pos < reference.count(); ++pos) {
+            int id = reference.getId(pos);
+            alignment = reference.setDataAfter(id, alignment);
+            check = cache.setDataAfter(id, check);
+            assertEquals(alignment, check, EPSILON);
+        }
+    }
+
+    private static void compare(PrefixSumCacheDataSet cache, LinearReference reference) {
+        assertEquals(reference.count(), cache.count());
+        assertEquals(reference.getTotalSize(), cache.getTotalSize(), EPSILON);
+        assertEquals(reference.getTotalSizeWithPadding(), cache.getTotalSizeWithPadding(),
+                EPSILON);
+        for (int pos = 0; pos < reference.count(); ++pos) {
+            int id = reference.getId(pos);
+            assertEquals(id, cache.getId(pos));
+            assertEquals(pos, cache.getPos(id));
+            assertTrue(cache.contains(id));
+            assertEquals(reference.getStartPadding(id), cache.getStartPadding(id), 0);
+            assertEquals(reference.getEndPadding(id), cache.getEndPadding(id), 0);
+            assertEquals(reference.getSizeWithPadding(id), cache.getSizeWithPadding(id), 0);
+            if (!Float.isNaN(reference.getDataOffset(id))) {
+                assertEquals(reference.getDataOffset(id), cache.getDataOffset(id), EPSILON);
+                assertEquals(reference.getStartDataOffset(id), cache.getStartDataOffset(id),
+                        EPSILON);
+                assertEquals(reference.getEndDataOffset(id), cache.getEndDataOffset(id),
+                        EPSILON);
+            }
+        }
+    }
+
+    /*
+     * The record at an offset is the first one ending after it, at the
+     * boundaries and in between
+     */
+    private static void checkPosAt(PrefixSumCacheDataSet cache, LinearReference reference) {
+        int count = reference.count();
+        if (count == 0 || Float.isNaN(reference.getDataOffset(reference.getId(0)))) {
+            return;
+        }
+        for (int pos = 0; pos < count; ++pos) {
+            int id = reference.getId(pos);
+            float start = reference.getStartDataOffset(id);
+            float end = reference.getEndDataOffset(id);
+            for (float offset : new float[] { start, start + 0.0625f, end - 0.0625f, end }) {
+                assertEquals("at " + offset, reference.getPosAt(offset), cache.getPosAt(offset));
+            }
+        }
+    }
+
+    /**
+     * The records of LinearCacheDataSet: an offset per record and a list of ids in
+     * position order, scanned for the positions.
+     */
+    private static class LinearReference {
+        private static class Data {
+            float size;
+            float offset = Float.NaN;
+            float startPadding;
+            float endPadding;
+        }
+
+        private final Map<Integer, Data> mData = new HashMap<>();
+        private final List<Integer> mIds = new ArrayList<>();
+        private final boolean mOuterPaddingEnabled;
+        private float mTotalSize;
+        private float mTotalPadding;
+
+        LinearReference(boolean outerPaddingEnabled) {
+            mOuterPaddingEnabled = outerPaddingEnabled;
+        }
+
+        int count() {
+            return mIds.size();
+        }
+
+        float addData(int id, int pos, float size, float startPadding, float endPadding) {
+            Data data = new Data();
+            data.size = size;
+            data.startPadding = startPadding;
+            data.endPadding = endPadding;
+            mData.put(id, data);
+            mTotalSize += size;
+
+            int actualPos = Math.max(0, Math.min(pos, mIds.size()));
+            mIds.add(actualPos, id);
+            return updateTotalPadding(actualPos, data, true) + size;
+        }
+
+        void removeData(int id) {
+            Data data = mData.get(id);
+            int pos = getPos(id);
+            if (data != null && pos >= 0) {
+                mTotalSize -= data.size;
+                updateTotalPadding(pos, data, false);
+                mData.remove(id);
+                mIds.remove(pos);
+            }
+        }
+
+        int getId(int pos) {
+            return pos < 0 || pos >= mIds.size() ? -1 : mIds.get(pos);
+        }
+
+        int getPos(int id) {
+            return mIds.indexOf(id);
+        }
+
+        float getTotalSize() {
+            return mTotalSize;
+        }
+
+        float getTotalSizeWithPadding() {
+            return mTotalSize + mTotalPadding;
+        }
+
+        float getDataOffset(int id) {
+            return mData.get(id).offset;
+        }
+
+        float getStartPadding(int id) {
+            return getStartPadding(getPos(id), mData.get(id));
+        }
+
+        float getEndPadding(int id) {
+            return getEndPadding(getPos(id), mData.get(id));
+        }
+
+        float getSizeWithPadding(int id) {
+            Data data = mData.get(id);
+            int pos = getPos(id);
+            return getStartPadding(pos, data) + data.size + getEndPadding(pos, data);
+        }
+
+        float getStartDataOffset(int id) {
+            Data data = mData.get(id);
+            return data.offset - getStartPadding(getPos(id), data) - data.size / 2;
+        }
+
+        float getEndDataOffset(int id) {
+            Data data = mData.get(id);
+            return data.offset + data.size / 2 + getEndPadding(getPos(id), data);
+        }
+
+        float setDataAfter(int id, float alignment) {
+            Data data = mData.get(id);
+            int pos = getPos(id);
+            float startPadding = getStartPadding(pos, data);
+            data.offset = alignment + (startPadding + data.size / 2);
+            return alignment + (startPadding + data.size + getEndPadding(pos, data));
+        }
+
+        void shiftBy(float amount) {
+            for (Data data : mData.values()) {
+                data.offset += amount;
+            }
+        }
+
+        float uniformSize() {
+            float maxSize = 0;
+            for (Data data : mData.values()) {
+                maxSize = Math.max(maxSize, data.size);
+            }
+            for (Data data : mData.values()) {
+                data.size = maxSize;
+                data.offset = Float.NaN;
+            }
+            mTotalSize = mData.size() * maxSize;
+            return maxSize;
+        }
+
+        float uniformPadding(float uniformPadding) {
+            for (Data data : mData.values()) {
+                data.startPadding = uniformPadding / 2;
+                data.endPadding = uniformPadding / 2;
+                data.offset = Float.NaN;
+            }
+            mTotalPadding = (mData.size() - 1) * uniformPadding;
+            return uniformPadding;
+        }
+
+        /*
+         * Scans the records for the first one ending after the offset
+         */
+        int getPosAt(float offset) {
+            for (int pos = 0; pos < mIds.size() - 1; ++pos) {
+                if (getEndDataOffset(mIds.get(pos)) > offset) {
+                    return pos;
+                }
+            }
+            return mIds.size() - 1;
+        }
+
+        private float updateTotalPadding(int pos, Data data, boolean addPadding) {
+            float paddingSpace = getStartPadding(pos, data) + getEndPadding(pos, data);
+
+            if (count() > 1) {
+                if (pos == 0 && !mOuterPaddingEnabled) {
+                    paddingSpace += mData.get(mIds.get(pos + 1)).startPadding;
+                }
+                if (pos == count() - 1 && !mOuterPaddingEnabled) {
+                    paddingSpace += mData.get(mIds.get(pos - 1)).endPadding;
+                }
+            }
+            mTotalPadding += (addPadding ? 1 : -1) * paddingSpace;
+            return paddingSpace;
+        }
+
+        private float getStartPadding(int pos, Data data) {
+            return pos > 0 || mOuterPaddingEnabled ? data.startPadding : 0;
+        }
+
+        private float getEndPadding(int pos, Data data) {
+            return pos < count() - 1 || mOuterPaddingEnabled ? data.endPadding : 0;
+        }
+    }
+}
@@ -18,6 +18,8 @@ import android.opengl.GLES30;
 import android.opengl.GLSurfaceView;
 import android.util.Log;
 
+import org.gearvrf.debug.GVRFrameProfiler;
+
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
@@ -63,7 +65,10 @@ class DaydreamRenderer implements GLSurfaceView.Renderer {
         GLES30.glGetBooleanv(GLES30.GL_BLEND, mBlendEnabled, 0);
         GLES30.glDisable(GLES30.GL_BLEND);
         mViewManager.beforeDrawEyes();
+        final GVRFrameProfiler profiler = mViewManager.getFrameProfiler();
+        final long startTime = profiler.begin();
         nativeDrawFrame(nativeDaydreamRenderer);
+        profiler.end(GVRFrameProfiler.Phase.CULL_RENDER, startTime);
 
         mViewManager.afterDrawEyes();
         if (mBlendEnabled[0]) {
@@ -20,9 +20,7 @@ import android.util.DisplayMetrics;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
-import org.gearvrf.debug.GVRFPSTracer;
-import org.gearvrf.debug.GVRMethodCallTracer;
-import org.gearvrf.debug.GVRStatsLine;
+import org.gearvrf.debug.GVRFrameProfiler;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.VrAppSettings;
 
@@ -72,17 +70,6 @@ class MonoscopicViewManager extends GVRViewManager implements MonoscopicRotation
     private static final String TAG = Log.tag(MonoscopicViewManager.class);
     protected MonoscopicRotationSensor mRotationSensor;
 
-    // Statistic debug info
-    private GVRStatsLine mStatsLine;
-    private GVRFPSTracer mFPSTracer;
-    private GVRMethodCallTracer mTracerBeforeDrawEyes;
-    private GVRMethodCallTracer mTracerAfterDrawEyes;
-    private GVRMethodCallTracer mTracerDrawEyes;
-    private GVRMethodCallTracer mTracerDrawEyes1;
-    private GVRMethodCallTracer mTracerDrawEyes2;
-    private GVRMethodCallTracer mTracerDrawFrame;
-    private GVRMethodCallTracer mTracerDrawFrameGap;
-
     private MonoscopicSurfaceView mView;
     private int mViewportWidth, mViewportHeight, sampleCount;
     private GVRRenderTarget mRenderTarget[] = new GVRRenderTarget[3];
@@ -110,12 +97,7 @@ class MonoscopicViewManager extends GVRViewManager implements MonoscopicRotation
         GVRPreference prefs = GVRPreference.get();
         DEBUG_STATS = prefs.getBooleanProperty(GVRPreference.KEY_DEBUG_STATS, false);
         DEBUG_STATS_PERIOD_MS = prefs.getIntegerProperty(GVRPreference.KEY_DEBUG_STATS_PERIOD_MS, 1000);
-        try {
-            GVRStatsLine.sFormat = GVRStatsLine.FORMAT
-                    .valueOf(prefs.getProperty(GVRPreference.KEY_STATS_FORMAT, GVRStatsLine.FORMAT.DEFAULT.toString()));
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-        }
+        getFrameProfiler().setEnabled(DEBUG_STATS);
 
         /*
          * Starts listening to the sensor.
@@ -152,27 +134,6 @@ class MonoscopicViewManager extends GVRViewManager implements MonoscopicRotation
 
         sampleCount = eyeBufferParams.getMultiSamples();
 
-        // Debug statistics
-        mStatsLine = new GVRStatsLine("gvrf-stats");
-
-        mFPSTracer = new GVRFPSTracer("DrawFPS");
-        mTracerDrawFrame = new GVRMethodCallTracer("drawFrame");
-        mTracerDrawFrameGap = new GVRMethodCallTracer("drawFrameGap");
-        mTracerBeforeDrawEyes = new GVRMethodCallTracer("beforeDrawEyes");
-        mTracerDrawEyes = new GVRMethodCallTracer("drawEyes");
-        mTracerDrawEyes1 = new GVRMethodCallTracer("drawEyes1");
-        mTracerDrawEyes2 = new GVRMethodCallTracer("drawEyes2");
-        mTracerAfterDrawEyes = new GVRMethodCallTracer("afterDrawEyes");
-
-        mStatsLine.addColumn(mFPSTracer.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawFrame.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawFrameGap.getStatColumn());
-        mStatsLine.addColumn(mTracerBeforeDrawEyes.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawEyes.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawEyes1.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawEyes2.getStatColumn());
-        mStatsLine.addColumn(mTracerAfterDrawEyes.getStatColumn());
-
         if(NativeVulkanCore.getVulkanPropValue() > 0){
             isVulkanInstance = true;
             mRenderTarget[0] = null;
@@ -311,25 +272,6 @@ class MonoscopicViewManager extends GVRViewManager implements MonoscopicRotation
         mRotationSensor.onResume();
     }
 
-    @Override
-    protected void beforeDrawEyes() {
-        if (DEBUG_STATS) {
-            mStatsLine.startLine();
-
-            mTracerDrawFrame.enter();
-            mTracerDrawFrameGap.leave();
-
-            mTracerBeforeDrawEyes.enter();
-        }
-
-        super.beforeDrawEyes();
-
-        if (DEBUG_STATS) {
-            mTracerBeforeDrawEyes.leave();
-        }
-    }
-
-
     GVRRenderTarget getRenderTarget(){
         if(mRenderTarget[0] == null) {
             if(isVulkanInstance) {
@@ -374,28 +316,6 @@ class MonoscopicViewManager extends GVRViewManager implements MonoscopicRotation
         }
     }
 
-    @Override
-    protected void afterDrawEyes() {
-        if (DEBUG_STATS) {
-            // Time afterDrawEyes from here
-            mTracerAfterDrawEyes.enter();
-        }
-
-        super.afterDrawEyes();
-
-        if (DEBUG_STATS) {
-            mTracerAfterDrawEyes.leave();
-
-            mTracerDrawFrame.leave();
-            mTracerDrawFrameGap.enter();
-
-            mFPSTracer.tick();
-            mStatsLine.printLine(DEBUG_STATS_PERIOD_MS);
-
-            mMainScene.addStatMessage(System.lineSeparator() + mStatsLine.getStats(GVRStatsLine.FORMAT.MULTILINE));
-        }
-    }
-
     @Override
     void onSurfaceCreated() {
         super.onSurfaceCreated();
@@ -403,6 +323,8 @@ class MonoscopicViewManager extends GVRViewManager implements MonoscopicRotation
     }
 
     private void drawEyes() {
+        final GVRFrameProfiler profiler = getFrameProfiler();
+        final long startTime = profiler.begin();
         mMainScene.getMainCameraRig().updateRotation();
         GVRRenderTarget renderTarget = getRenderTarget();
         renderTarget.cullFromCamera(mMainScene, mMainScene.getMainCameraRig().getCenterCamera(), mRenderBundle.getShaderManager());
@@ -411,7 +333,7 @@ class MonoscopicViewManager extends GVRViewManager implements MonoscopicRotation
                         .getMainCameraRig().getCenterCamera(), mRenderBundle.getShaderManager(), mRenderBundle.getPostEffectRenderTextureA(),
                 mRenderBundle.getPostEffectRenderTextureB());
         captureLeftEye(renderTarget, false);
-
+        profiler.end(GVRFrameProfiler.Phase.CULL_RENDER, startTime);
     }
 
     /**
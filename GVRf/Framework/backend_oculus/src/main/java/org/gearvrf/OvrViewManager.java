@@ -18,9 +18,7 @@ package org.gearvrf;
 import android.app.Activity;
 import android.util.DisplayMetrics;
 
-import org.gearvrf.debug.GVRFPSTracer;
-import org.gearvrf.debug.GVRMethodCallTracer;
-import org.gearvrf.debug.GVRStatsLine;
+import org.gearvrf.debug.GVRFrameProfiler;
 import org.gearvrf.io.GVRGearCursorController;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.VrAppSettings;
@@ -64,17 +62,7 @@ class OvrViewManager extends GVRViewManager {
 
     protected OvrLensInfo mLensInfo;
     protected int mCurrentEye;
-
-    // Statistic debug info
-    private GVRStatsLine mStatsLine;
-    private GVRFPSTracer mFPSTracer;
-    private GVRMethodCallTracer mTracerBeforeDrawEyes;
-    private GVRMethodCallTracer mTracerAfterDrawEyes;
-    private GVRMethodCallTracer mTracerDrawEyes;
-    private GVRMethodCallTracer mTracerDrawEyes1;
-    private GVRMethodCallTracer mTracerDrawEyes2;
-    private GVRMethodCallTracer mTracerDrawFrame;
-    private GVRMethodCallTracer mTracerDrawFrameGap;
+    private long mRenderTime;
 
     /**
      * Constructs OvrViewManager object with GVRMain which controls GL
@@ -92,12 +80,7 @@ class OvrViewManager extends GVRViewManager {
         GVRPreference prefs = GVRPreference.get();
         DEBUG_STATS = prefs.getBooleanProperty(GVRPreference.KEY_DEBUG_STATS, false);
         DEBUG_STATS_PERIOD_MS = prefs.getIntegerProperty(GVRPreference.KEY_DEBUG_STATS_PERIOD_MS, 1000);
-        try {
-            GVRStatsLine.sFormat = GVRStatsLine.FORMAT
-                    .valueOf(prefs.getProperty(GVRPreference.KEY_STATS_FORMAT, GVRStatsLine.FORMAT.DEFAULT.toString()));
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-        }
+        getFrameProfiler().setEnabled(DEBUG_STATS);
 
         /*
          * Sets things with the numbers in the xml.
@@ -114,27 +97,6 @@ class OvrViewManager extends GVRViewManager {
         mLensInfo = new OvrLensInfo(screenWidthPixels, screenHeightPixels, screenWidthMeters, screenHeightMeters,
                 vrAppSettings);
 
-        // Debug statistics
-        mStatsLine = new GVRStatsLine("gvrf-stats");
-
-        mFPSTracer = new GVRFPSTracer("DrawFPS");
-        mTracerDrawFrame = new GVRMethodCallTracer("drawFrame");
-        mTracerDrawFrameGap = new GVRMethodCallTracer("drawFrameGap");
-        mTracerBeforeDrawEyes = new GVRMethodCallTracer("beforeDrawEyes");
-        mTracerDrawEyes = new GVRMethodCallTracer("drawEyes");
-        mTracerDrawEyes1 = new GVRMethodCallTracer("drawEyes1");
-        mTracerDrawEyes2 = new GVRMethodCallTracer("drawEyes2");
-        mTracerAfterDrawEyes = new GVRMethodCallTracer("afterDrawEyes");
-
-        mStatsLine.addColumn(mFPSTracer.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawFrame.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawFrameGap.getStatColumn());
-        mStatsLine.addColumn(mTracerBeforeDrawEyes.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawEyes.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawEyes1.getStatColumn());
-        mStatsLine.addColumn(mTracerDrawEyes2.getStatColumn());
-        mStatsLine.addColumn(mTracerAfterDrawEyes.getStatColumn());
-
         mControllerReader = new OvrControllerReader(mApplication.getActivityNative().getNative());
     }
 
@@ -149,39 +111,18 @@ class OvrViewManager extends GVRViewManager {
         mApplication.getConfigurationManager().configureRendering(VrAppSettings.EyeBufferParams.DepthFormat.DEPTH_24_STENCIL_8 == depthFormat);
     }
 
-    @Override
-    protected void beforeDrawEyes() {
-        if (DEBUG_STATS) {
-            mStatsLine.startLine();
-
-            mTracerDrawFrame.enter();
-            mTracerDrawFrameGap.leave();
-
-            mTracerBeforeDrawEyes.enter();
-        }
-
-        super.beforeDrawEyes();
-
-        if (DEBUG_STATS) {
-            mTracerBeforeDrawEyes.leave();
-        }
-    }
-
     /**
      * Called from the native side
      * @param eye
      */
     void onDrawEye(int eye, int swapChainIndex, boolean use_multiview) {
+        final long startTime = getFrameProfiler().begin();
         mCurrentEye = eye;
         if (!(mSensoredScene == null || !mMainScene.equals(mSensoredScene))) {
             GVRCameraRig mainCameraRig = mMainScene.getMainCameraRig();
 
             if (use_multiview) {
 
-                if (DEBUG_STATS) {
-                    mTracerDrawEyes1.enter(); // this eye is drawn first
-                    mTracerDrawEyes2.enter();
-                }
                  GVRRenderTarget renderTarget = mRenderBundle.getRenderTarget(EYE.MULTIVIEW, swapChainIndex);
                  GVRCamera camera = mMainScene.getMainCameraRig().getCenterCamera();
                  GVRCamera left_camera = mMainScene.getMainCameraRig().getLeftCamera();
@@ -197,20 +138,9 @@ class OvrViewManager extends GVRViewManager {
                 captureLeftEye(renderTarget, true);
 
                 captureFinish();
-
-                if (DEBUG_STATS) {
-                    mTracerDrawEyes1.leave();
-                    mTracerDrawEyes2.leave();
-                }
-
-
             } else {
 
                 if (eye == 1) {
-                    if (DEBUG_STATS) {
-                        mTracerDrawEyes1.enter();
-                    }
-
                      GVRCamera rightCamera = mainCameraRig.getRightCamera();
                      GVRRenderTarget renderTarget = mRenderBundle.getRenderTarget(EYE.RIGHT, swapChainIndex);
                      renderTarget.render(mMainScene, rightCamera, mRenderBundle.getShaderManager(), mRenderBundle.getPostEffectRenderTextureA(),
@@ -218,17 +148,7 @@ class OvrViewManager extends GVRViewManager {
                     captureRightEye(renderTarget, false);
 
                     captureFinish();
-                    if (DEBUG_STATS) {
-                        mTracerDrawEyes1.leave();
-                        mTracerDrawEyes.leave();
-                    }
                 } else {
-                    if (DEBUG_STATS) {
-                        mTracerDrawEyes1.leave();
-                        mTracerDrawEyes.leave();
-                    }
-
-
                     GVRRenderTarget renderTarget = mRenderBundle.getRenderTarget(EYE.LEFT, swapChainIndex);
                     GVRCamera leftCamera = mainCameraRig.getLeftCamera();
 
@@ -239,42 +159,25 @@ class OvrViewManager extends GVRViewManager {
                     renderTarget.render(mMainScene, leftCamera, mRenderBundle.getShaderManager(), mRenderBundle.getPostEffectRenderTextureA(), mRenderBundle.getPostEffectRenderTextureB());
 
                     captureLeftEye(renderTarget, false);
-
-                    if (DEBUG_STATS) {
-                        mTracerDrawEyes2.leave();
-                    }
                 }
              }
         }
+        if (startTime != 0) {
+            mRenderTime += System.nanoTime() - startTime;
+        }
     }
 
 
     /** Called once per frame */
     protected void onDrawFrame() {
+        final GVRFrameProfiler profiler = getFrameProfiler();
+        mRenderTime = 0;
         drawEyes(mApplication.getActivityNative().getNative());
-        afterDrawEyes();
-    }
-
-    @Override
-    protected void afterDrawEyes() {
-        if (DEBUG_STATS) {
-            // Time afterDrawEyes from here
-            mTracerAfterDrawEyes.enter();
-        }
-
-        super.afterDrawEyes();
-
-        if (DEBUG_STATS) {
-            mTracerAfterDrawEyes.leave();
-
-            mTracerDrawFrame.leave();
-            mTracerDrawFrameGap.enter();
-
-            mFPSTracer.tick();
-            mStatsLine.printLine(DEBUG_STATS_PERIOD_MS);
-
-            mMainScene.addStatMessage(System.lineSeparator() + mStatsLine.getStats(GVRStatsLine.FORMAT.MULTILINE));
+        if (profiler.isEnabled()) {
+            // beforeDrawEyes() is called from drawEyes() so only the eyes are timed
+            profiler.record(GVRFrameProfiler.Phase.CULL_RENDER, mRenderTime);
         }
+        afterDrawEyes();
     }
 
     @Override
@@ -0,0 +1,396 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+/**
+ * Bounding volume hierarchy over axis aligned boxes, built with the
+ * surface area heuristic.
+ *
+ * The heuristic is evaluated over a fixed number of bins on each axis.
+ * Nodes are stored in flat arrays: a box is six floats, minimum x, y, z
+ * then maximum x, y, z. A leaf has a positive count of primitives,
+ * starting at {@link #getFirst(int)} in {@link #getOrder()}; an inner
+ * node has a count of zero and its children are {@link #getFirst(int)}
+ * and the node after it. Children always come after their parent, so
+ * walking the nodes backwards visits children before parents, which is
+ * how {@link #refit(int)} is used.
+ *
+ * @see TriangleBVH
+ * @see GVRColliderBVH
+ */
+final class BVHTree
+{
+    private static final int NUM_BINS = 12;
+    private static final float TRAVERSAL_COST = 1.0f;
+
+    private final int mMaxLeafSize;
+    private final int[] mOrder;
+    private final float[] mBounds;
+    private final int[] mFirst;
+    private final int[] mCount;
+    private int mNumNodes = 0;
+    private int mMaxDepth = 0;
+
+    // Only used while building
+    private float[] mPrimBounds;
+    private float[] mCentroids;
+    private final int[] mBinCount = new int[NUM_BINS];
+    private final float[] mBinBounds = new float[NUM_BINS * 6];
+    private final float[] mRightArea = new float[NUM_BINS];
+    private final int[] mRightCount = new int[NUM_BINS];
+    private final float[] mSweep = new float[6];
+
+    /**
+     * Builds the tree.
+     * @param primBounds    six floats per primitive
+     * @param numPrims      number of primitives
+     * @param maxLeafSize   largest number of primitives in a leaf
+     *                      which is not forced by the heuristic
+     */
+    BVHTree(float[] primBounds, int numPrims, int maxLeafSize)
+    {
+        final int maxNodes = Math.max(1, 2 * numPrims - 1);
+
+        mMaxLeafSize = maxLeafSize;
+        mOrder = new int[numPrims];
+        mBounds = new float[maxNodes * 6];
+        mFirst = new int[maxNodes];
+        mCount = new int[maxNodes];
+        mPrimBounds = primBounds;
+        mCentroids = new float[numPrims * 3];
+        for (int p = 0; p < numPrims; ++p)
+        {
+            mOrder[p] = p;
+            for (int a = 0; a < 3; ++a)
+            {
+                mCentroids[p * 3 + a] = (primBounds[p * 6 + a] + primBounds[p * 6 + 3 + a]) * 0.5f;
+            }
+        }
+        mNumNodes = 1;
+        if (numPrims > 0)
+        {
+            subdivide(0, 0, numPrims, 1);
+        }
+        else
+        {
+            setEmpty(mBounds, 0);
+        }
+        mPrimBounds = null;
+        mCentroids = null;
+    }
+
+    int getNodeCount()
+    {
+        return mNumNodes;
+    }
+
+    /**
+     * Gets the depth of the deepest leaf, the root being at depth one.
+     */
+    int getMaxDepth()
+    {
+        return mMaxDepth;
+    }
+
+    /**
+     * Gets the primitive indices in leaf order.
+     */
+    int[] getOrder()
+    {
+        return mOrder;
+    }
+
+    /**
+     * Gets the node boxes, six floats per node.
+     */
+    float[] getBounds()
+    {
+        return mBounds;
+    }
+
+    int getFirst(int node)
+    {
+        return mFirst[node];
+    }
+
+    int getCount(int node)
+    {
+        return mCount[node];
+    }
+
+    /**
+     * Recomputes the box of an inner node from those of its children.
+     * Leaf boxes are updated by the owner of the tree.
+     */
+    void refit(int node)
+    {
+        final int b = node * 6;
+        final int c = mFirst[node] * 6;
+
+        for (int a = 0; a < 3; ++a)
+        {
+            mBounds[b + a] = Math.min(mBounds[c + a], mBounds[c + 6 + a]);
+            mBounds[b + 3 + a] = Math.max(mBounds[c + 3 + a], mBounds[c + 9 + a]);
+        }
+    }
+
+    /**
+     * Computes the expected cost of a ray query relative to testing
+     * every primitive, with the surface area heuristic. Comparing it
+     * with the cost just after building tells how much refitting has
+     * degraded the tree.
+     */
+    float getCost()
+    {
+        final float rootArea = area(mBounds, 0);
+        float cost = 0;
+
+        if (rootArea <= 0)
+        {
+            return 0;
+        }
+        for (int n = 0; n < mNumNodes; ++n)
+        {
+            final float a = area(mBounds, n * 6) / rootArea;
+            cost += (mCount[n] > 0) ? a * mCount[n] : a * TRAVERSAL_COST;
+        }
+        return cost;
+    }
+
+    private void subdivide(int node, int first, int count, int depth)
+    {
+        final int b = node * 6;
+
+        mMaxDepth = Math.max(mMaxDepth, depth);
+        setEmpty(mBounds, b);
+        for (int i = first; i < first + count; ++i)
+        {
+            union(mBounds, b, mPrimBounds, mOrder[i] * 6);
+        }
+        mFirst[node] = first;
+        mCount[node] = count;
+        if (count <= mMaxLeafSize)
+        {
+            return;
+        }
+        final int split = findSplit(first, count, area(mBounds, b));
+        if (split < 0)
+        {
+            return;
+        }
+        final int left = mNumNodes;
+        mNumNodes += 2;
+        mFirst[node] = left;
+        mCount[node] = 0;
+        subdivide(left, first, split - first, depth + 1);
+        subdivide(left + 1, split, first + count - split, depth + 1);
+    }
+
+    /*
+     * Partitions the primitives of a node along the cheapest binned
+     * split. Returns the index of the first primitive of the right
+     * child, or -1 if the node is cheaper as a leaf.
+     */
+    private int findSplit(int first, int count, float parentArea)
+    {
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = 0;
+        float bestMin = 0;
+        float bestScale = 0;
+
+        for (int axis = 0; axis < 3; ++axis)
+        {
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int i = first; i < first + count; ++i)
+            {
+                final float c = mCentroids[mOrder[i] * 3 + axis];
+                min = Math.min(min, c);
+                max = Math.max(max, c);
+            }
+            if (max <= min)
+            {
+                continue;
+            }
+            final float scale = NUM_BINS / (max - min);
+            for (int bin = 0; bin < NUM_BINS; ++bin)
+            {
+                mBinCount[bin] = 0;
+                setEmpty(mBinBounds, bin * 6);
+            }
+            for (int i = first; i < first + count; ++i)
+            {
+                final int p = mOrder[i];
+                final int bin = Math.min(NUM_BINS - 1, (int) ((mCentroids[p * 3 + axis] - min) * scale));
+                ++mBinCount[bin];
+                union(mBinBounds, bin * 6, mPrimBounds, p * 6);
+            }
+            // Sweep from the right to get the cost of every right side
+            int n = 0;
+            setEmpty(mSweep, 0);
+            for (int bin = NUM_BINS - 1; bin > 0; --bin)
+            {
+                n += mBinCount[bin];
+                union(mSweep, 0, mBinBounds, bin * 6);
+                mRightCount[bin] = n;
+                mRightArea[bin] = area(mSweep, 0);
+            }
+            n = 0;
+            setEmpty(mSweep, 0);
+            for (int bin = 0; bin < NUM_BINS - 1; ++bin)
+            {
+                n += mBinCount[bin];
+                union(mSweep, 0, mBinBounds, bin * 6);
+                final int right = mRightCount[bin + 1];
+                if ((n == 0) || (right == 0))
+                {
+                    continue;
+                }
+                final float cost = area(mSweep, 0) * n + mRightArea[bin + 1] * right;
+                if (cost < bestCost)
+                {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = bin;
+                    bestMin = min;
+                    bestScale = scale;
+                }
+            }
+        }
+        if (bestAxis < 0)
+        {
+            // All centroids coincide: split in the middle
+            return first + count / 2;
+        }
+        if ((count <= mMaxLeafSize * 4) && (parentArea > 0) &&
+            (TRAVERSAL_COST + bestCost / parentArea >= count))
+        {
+            return -1;
+        }
+        int i = first;
+        int j = first + count - 1;
+        while (i <= j)
+        {
+            final int p = mOrder[i];
+            final int bin = Math.min(NUM_BINS - 1, (int) ((mCentroids[p * 3 + bestAxis] - bestMin) * bestScale));
+            if (bin <= bestBin)
+            {
+                ++i;
+            }
+            else
+            {
+                mOrder[i] = mOrder[j];
+                mOrder[j--] = p;
+            }
+        }
+        return i;
+    }
+
+    static void setEmpty(float[] bounds, int b)
+    {
+        bounds[b] = bounds[b + 1] = bounds[b + 2] = Float.POSITIVE_INFINITY;
+        bounds[b + 3] = bounds[b + 4] = bounds[b + 5] = Float.NEGATIVE_INFINITY;
+    }
+
+    static void grow(float[] bounds, int b, float x, float y, float z)
+    {
+        bounds[b] = Math.min(bounds[b], x);
+        bounds[b + 1] = Math.min(bounds[b + 1], y);
+        bounds[b + 2] = Math.min(bounds[b + 2], z);
+        bounds[b + 3] = Math.max(bounds[b + 3], x);
+        bounds[b + 4] = Math.max(bounds[b + 4], y);
+        bounds[b + 5] = Math.max(bounds[b + 5], z);
+    }
+
+    static void union(float[] dest, int d, float[] src, int s)
+    {
+        for (int a = 0; a < 3; ++a)
+        {
+            dest[d + a] = Math.min(dest[d + a], src[s + a]);
+            dest[d + 3 + a] = Math.max(dest[d + 3 + a], src[s + 3 + a]);
+        }
+    }
+
+    static float area(float[] bounds, int b)
+    {
+        final float x = bounds[b + 3] - bounds[b];
+        final float y = bounds[b + 4] - bounds[b + 1];
+        final float z = bounds[b + 5] - bounds[b + 2];
+        if ((x < 0) || (y < 0) || (z < 0))
+        {
+            return 0;
+        }
+        return 2 * (x * y + y * z + z * x);
+    }
+
+    /**
+     * Slab test of a ray against the box at offset b.
+     * @param idx inverse of the x component of the ray direction
+     * @param idy inverse of the y component of the ray direction
+     * @param idz inverse of the z component of the ray direction
+     * @return ray parameter where the ray enters the box,
+     *         zero or negative if the origin is inside,
+     *         positive infinity if the ray misses
+     */
+    static float hitBox(float[] bounds, int b, float ox, float oy, float oz,
+                        float idx, float idy, float idz)
+    {
+        float t1 = (bounds[b] - ox) * idx;
+        float t2 = (bounds[b + 3] - ox) * idx;
+        float near = (t1 < t2) ? t1 : t2;
+        float far = (t1 < t2) ? t2 : t1;
+
+        t1 = (bounds[b + 1] - oy) * idy;
+        t2 = (bounds[b + 4] - oy) * idy;
+        near = Math.max(near, (t1 < t2) ? t1 : t2);
+        far = Math.min(far, (t1 < t2) ? t2 : t1);
+
+        t1 = (bounds[b + 2] - oz) * idz;
+        t2 = (bounds[b + 5] - oz) * idz;
+        near = Math.max(near, (t1 < t2) ? t1 : t2);
+        far = Math.min(far, (t1 < t2) ? t2 : t1);
+
+        if ((far < 0) || (near > far))
+        {
+            return Float.POSITIVE_INFINITY;
+        }
+        return near;
+    }
+
+    /**
+     * Transforms a box by a column major affine matrix and
+     * stores the box enclosing the result.
+     */
+    static void transform(float[] m, float[] src, int s, float[] dest, int d)
+    {
+        for (int r = 0; r < 3; ++r)
+        {
+            float min = m[12 + r];
+            float max = min;
+            for (int c = 0; c < 3; ++c)
+            {
+                final float e = m[c * 4 + r];
+                final float a = e * src[s + c];
+                final float b = e * src[s + 3 + c];
+                min += Math.min(a, b);
+                max += Math.max(a, b);
+            }
+            dest[d + r] = min;
+            dest[d + 3 + r] = max;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the pairs of colliders and collidables which may collide for
+ * a {@link GVRBoundsPicker}, so that only those go to the exact test.
+ *
+ * Each frame the native side reports, for every collider of the scene,
+ * a sphere in world coordinates outside of which the exact bounds test
+ * cannot succeed. These spheres are kept in a {@link SpatialHashGrid},
+ * which only changes for colliders which moved to other cells. The
+ * bounding sphere of each collidable is then looked up in the grid and
+ * the pairs found are tested exactly by the native picker, in the same
+ * order as {@link GVRBoundsPicker#pickBounds(GVRScene, List)} visits them,
+ * so both return the same hits in the same order.
+ * <p>
+ * Colliders whose exact test does not depend on the distance to the
+ * collidable, such as box colliders, are paired with every collidable.
+ * Disabled colliders are never paired with anything.
+ */
+final class BoundsBroadphase
+{
+    // Floats per collider: center, radius, scale of collidable radius
+    static final int COLLIDER_FLOATS = 5;
+    // Floats per collidable: center, radius
+    static final int COLLIDABLE_FLOATS = 4;
+    // Margin for the rounding of the native test
+    private static final float RELATIVE_SLACK = 1.001f;
+    private static final float ABSOLUTE_SLACK = 0.0001f;
+    private static final float MIN_CELL_SIZE = 0.001f;
+
+    private float mCellSize = 0;
+    private SpatialHashGrid mGrid = null;
+    private long[] mColliders = new long[64];
+    private float[] mColliderBounds = new float[64 * COLLIDER_FLOATS];
+    private int mNumColliders = 0;
+    private long[] mCollidables = new long[8];
+    private float[] mCollidableBounds = new float[8 * COLLIDABLE_FLOATS];
+    private long[] mPairKeys = new long[64];
+    private int[] mPairs = new int[128];
+    private int mNumPairs = 0;
+    private long mPossiblePairs = 0;
+    private long mBroadphaseTime = 0;
+
+    /**
+     * Sets the size of the grid cells in world units.
+     * Zero picks a size from the colliders of the next frame.
+     * @param size  cell size, zero or positive
+     */
+    void setCellSize(float size)
+    {
+        mCellSize = Math.max(0, size);
+        mGrid = null;
+    }
+
+    /**
+     * Gets the size of the grid cells in world units,
+     * zero if it has not been chosen yet.
+     */
+    float getCellSize()
+    {
+        return (mGrid != null) ? mGrid.getCellSize() : mCellSize;
+    }
+
+    /**
+     * Gets the number of pairs sent to the exact test by the last pick.
+     */
+    int getCandidatePairCount()
+    {
+        return mNumPairs;
+    }
+
+    /**
+     * Gets the number of pairs the last pick would have tested
+     * without a broadphase: colliders times collidables.
+     */
+    long getPossiblePairCount()
+    {
+        return mPossiblePairs;
+    }
+
+    /**
+     * Gets the time the last pick spent finding candidate pairs,
+     * not counting the exact tests, in nanoseconds.
+     */
+    long getBroadphaseTime()
+    {
+        return mBroadphaseTime;
+    }
+
+    /**
+     * Tests the collidables against the colliders of a scene.
+     * The caller must hold the picker lock and keep the collidables
+     * from changing.
+     * @return the same hits as {@link GVRBoundsPicker#pickBounds(GVRScene, List)},
+     *         null if there are none
+     */
+    GVRPicker.GVRPickedObject[] pick(GVRScene scene, List<GVRSceneObject> collidables)
+    {
+        final long start = System.nanoTime();
+        final long scenePtr = scene.getNative();
+        final int numCollidables = collidables.size();
+
+        if (numCollidables > mCollidables.length)
+        {
+            mCollidables = new long[numCollidables * 2];
+            mCollidableBounds = new float[numCollidables * 2 * COLLIDABLE_FLOATS];
+        }
+        for (int j = 0; j < numCollidables; ++j)
+        {
+            final GVRSceneObject collidable = collidables.get(j);
+            mCollidables[j] = (collidable != null) ? collidable.getNative() : 0;
+        }
+        NativePicker.getCollidableBounds(mCollidables, numCollidables, mCollidableBounds);
+
+        int numColliders = NativePicker.getColliderBounds(scenePtr, mColliders, mColliderBounds);
+        while (numColliders > mColliders.length)
+        {
+            mColliders = new long[numColliders * 2];
+            mColliderBounds = new float[numColliders * 2 * COLLIDER_FLOATS];
+            numColliders = NativePicker.getColliderBounds(scenePtr, mColliders, mColliderBounds);
+        }
+        final float maxScale = updateGrid(numColliders);
+        findPairs(numCollidables, maxScale);
+        mPossiblePairs = (long) numColliders * numCollidables;
+        mBroadphaseTime = System.nanoTime() - start;
+
+        return NativePicker.pickBoundsPairs(scenePtr, mCollidables, numCollidables,
+                                            mColliders, numColliders, mPairs, mNumPairs);
+    }
+
+    /*
+     * Moves the colliders in the grid and returns the largest
+     * scale of the radius of a collidable.
+     */
+    private float updateGrid(int numColliders)
+    {
+        final float[] b = mColliderBounds;
+        float maxScale = 0;
+
+        if (mGrid == null)
+        {
+            if (numColliders == 0)
+            {
+                return 0;
+            }
+            mGrid = new SpatialHashGrid(chooseCellSize(numColliders));
+            mNumColliders = 0;
+        }
+        for (int i = 0; i < numColliders; ++i)
+        {
+            final int o = i * COLLIDER_FLOATS;
+            final float r = b[o + 3];
+            if (r < 0)
+            {
+                mGrid.remove(i);
+                continue;
+            }
+            final float pad = paddedRadius(o);
+            if (r < Float.POSITIVE_INFINITY)
+            {
+                maxScale = Math.max(maxScale, b[o + 4]);
+            }
+            mGrid.update(i, b[o] - pad, b[o + 1] - pad, b[o + 2] - pad, b[o] + pad, b[o + 1] + pad, b[o + 2] + pad);
+        }
+        for (int i = numColliders; i < mNumColliders; ++i)
+        {
+            mGrid.remove(i);
+        }
+        mNumColliders = numColliders;
+        return maxScale;
+    }
+
+    /*
+     * Radius of a collider sphere with a margin for rounding, which
+     * grows with the distance from the origin like the rounding does.
+     */
+    private float paddedRadius(int o)
+    {
+        final float[] b = mColliderBounds;
+        return b[o + 3] * RELATIVE_SLACK +
+               ABSOLUTE_SLACK * (1 + Math.abs(b[o]) + Math.abs(b[o + 1]) + Math.abs(b[o + 2]));
+    }
+
+    private float chooseCellSize(int numColliders)
+    {
+        if (mCellSize > 0)
+        {
+            return mCellSize;
+        }
+        // Twice the average collider diameter keeps most colliders in a few cells
+        double sum = 0;
+        int n = 0;
+        for (int i = 0; i < numColliders; ++i)
+        {
+            final float r = mColliderBounds[i * COLLIDER_FLOATS + 3];
+            if ((r >= 0) && (r < Float.POSITIVE_INFINITY))
+            {
+                sum += r;
+                ++n;
+            }
+        }
+        return (n > 0) ? Math.max(MIN_CELL_SIZE, (float) (4 * sum / n)) : 1.0f;
+    }
+
+    /*
+     * Looks up every collidable in the grid and keeps the colliders
+     * close enough for the exact test to succeed. The pairs are sorted
+     * by collider then collidable, the order of the native picker.
+     */
+    private void findPairs(int numCollidables, float maxScale)
+    {
+        final float[] b = mColliderBounds;
+        int numKeys = 0;
+
+        if (mGrid == null)
+        {
+            mNumPairs = 0;
+            return;
+        }
+        for (int j = 0; j < numCollidables; ++j)
+        {
+            final int s = j * COLLIDABLE_FLOATS;
+            final float r = mCollidableBounds[s + 3];
+            if (r < 0)
+            {
+                continue;
+            }
+            final float x = mCollidableBounds[s];
+            final float y = mCollidableBounds[s + 1];
+            final float z = mCollidableBounds[s + 2];
+            final float reach = maxScale * r * RELATIVE_SLACK;
+            final int n = mGrid.query(x - reach, y - reach, z - reach, x + reach, y + reach, z + reach);
+            final int[] found = mGrid.getResults();
+
+            for (int k = 0; k < n; ++k)
+            {
+                final int i = found[k];
+                final int o = i * COLLIDER_FLOATS;
+                if (b[o + 3] < Float.POSITIVE_INFINITY)
+                {
+                    final float dx = x - b[o], dy = y - b[o + 1], dz = z - b[o + 2];
+                    final float limit = paddedRadius(o) + b[o + 4] * r * RELATIVE_SLACK;
+                    if (dx * dx + dy * dy + dz * dz > limit * limit)
+                    {
+                        continue;
+                    }
+                }
+                if (numKeys == mPairKeys.length)
+                {
+                    mPairKeys = Arrays.copyOf(mPairKeys, numKeys * 2);
+                }
+                mPairKeys[numKeys++] = ((long) i << 32) | j;
+            }
+        }
+        Arrays.sort(mPairKeys, 0, numKeys);
+        if (numKeys * 2 > mPairs.length)
+        {
+            mPairs = new int[numKeys * 4];
+        }
+        for (int p = 0; p < numKeys; ++p)
+        {
+            mPairs[p * 2] = (int) (mPairKeys[p] >>> 32);
+            mPairs[p * 2 + 1] = (int) mPairKeys[p];
+        }
+        mNumPairs = numKeys;
+    }
+}
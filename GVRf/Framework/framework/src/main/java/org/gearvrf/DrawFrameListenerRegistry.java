@@ -0,0 +1,178 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The set of {@link GVRDrawFrameListener}s called on every frame.
+ *
+ * Registering and unregistering a listener take constant time and can be
+ * done from any thread: the request is queued and applied by
+ * {@link #beginFrame()} on the GL thread, so changes made while the
+ * listeners are being called take effect on the next frame.
+ * <p>
+ * Listeners are kept in a dense array in registration order, indexed by
+ * identity. Unregistering only clears the slot of the listener; the
+ * array is compacted at most once per frame, keeping the order.
+ */
+final class DrawFrameListenerRegistry {
+    private static final class Entry {
+        final GVRDrawFrameListener mListener;
+        int mIndex;
+
+        Entry(GVRDrawFrameListener listener, int index) {
+            mListener = listener;
+            mIndex = index;
+        }
+    }
+
+    // Requests from any thread, guarded by mPendingListeners
+    private final List<GVRDrawFrameListener> mPendingListeners = new ArrayList<GVRDrawFrameListener>();
+    private final List<Boolean> mPendingAdds = new ArrayList<Boolean>();
+
+    // Only used on the GL thread
+    private final IdentityHashMap<GVRDrawFrameListener, Entry> mIndex = new IdentityHashMap<GVRDrawFrameListener, Entry>();
+    private Entry[] mEntries = new Entry[64];
+    private int mSize = 0;
+    private int mNumRemoved = 0;
+    private volatile boolean mHasPending = false;
+
+    /**
+     * Adds a listener after the ones already registered.
+     * Does nothing if the listener is registered.
+     */
+    void add(GVRDrawFrameListener listener) {
+        request(listener, Boolean.TRUE);
+    }
+
+    /**
+     * Removes a listener.
+     * Does nothing if the listener is not registered.
+     */
+    void remove(GVRDrawFrameListener listener) {
+        request(listener, Boolean.FALSE);
+    }
+
+    /**
+     * Removes all the listeners, including pending registrations.
+     */
+    void clear() {
+        synchronized (mPendingListeners) {
+            mPendingListeners.clear();
+            mPendingAdds.clear();
+            mHasPending = false;
+            Arrays.fill(mEntries, 0, mSize, null);
+            mIndex.clear();
+            mSize = 0;
+            mNumRemoved = 0;
+        }
+    }
+
+    private void request(GVRDrawFrameListener listener, Boolean add) {
+        synchronized (mPendingListeners) {
+            mPendingListeners.add(listener);
+            mPendingAdds.add(add);
+            mHasPending = true;
+        }
+    }
+
+    /**
+     * Applies the pending requests, in the order they were made,
+     * and compacts the listener array. Called on the GL thread
+     * before the listeners are called.
+     * @return number of slots to pass to {@link #get(int)}
+     */
+    int beginFrame() {
+        if (mHasPending) {
+            synchronized (mPendingListeners) {
+                final int count = mPendingListeners.size();
+                for (int i = 0; i < count; ++i) {
+                    if (mPendingAdds.get(i)) {
+                        applyAdd(mPendingListeners.get(i));
+                    } else {
+                        applyRemove(mPendingListeners.get(i));
+                    }
+                }
+                mPendingListeners.clear();
+                mPendingAdds.clear();
+                mHasPending = false;
+            }
+        }
+        if (mNumRemoved > 0) {
+            compact();
+        }
+        return mSize;
+    }
+
+    /**
+     * Gets the listener in a slot.
+     * @param index slot between 0 and the value returned by {@link #beginFrame()}
+     * @return the listener, null if it was removed
+     */
+    GVRDrawFrameListener get(int index) {
+        final Entry e = mEntries[index];
+        return (e != null) ? e.mListener : null;
+    }
+
+    /**
+     * Gets the number of registered listeners, as of the last {@link #beginFrame()}.
+     */
+    int size() {
+        return mSize - mNumRemoved;
+    }
+
+    private void applyAdd(GVRDrawFrameListener listener) {
+        if (mIndex.containsKey(listener)) {
+            return;
+        }
+        if (mSize == mEntries.length) {
+            if (mNumRemoved > 0) {
+                compact();
+            } else {
+                mEntries = Arrays.copyOf(mEntries, mSize * 2);
+            }
+        }
+        final Entry e = new Entry(listener, mSize);
+        mEntries[mSize++] = e;
+        mIndex.put(listener, e);
+    }
+
+    private void applyRemove(GVRDrawFrameListener listener) {
+        final Entry e = mIndex.remove(listener);
+        if (e != null) {
+            mEntries[e.mIndex] = null;
+            ++mNumRemoved;
+        }
+    }
+
+    private void compact() {
+        int dst = 0;
+        for (int src = 0; src < mSize; ++src) {
+            final Entry e = mEntries[src];
+            if (e != null) {
+                e.mIndex = dst;
+                mEntries[dst++] = e;
+            }
+        }
+        Arrays.fill(mEntries, dst, mSize, null);
+        mSize = dst;
+        mNumRemoved = 0;
+    }
+}
@@ -24,6 +24,7 @@ import org.gearvrf.GVRAndroidResource.TextureCallback;
 import org.gearvrf.animation.GVRAnimator;
 import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader;
 import org.gearvrf.asynchronous.GVRCompressedTextureLoader;
+import org.gearvrf.debug.GVRTrace;
 import org.gearvrf.jassimp.AiIOStream;
 import org.gearvrf.jassimp.AiIOSystem;
 import org.gearvrf.jassimp.AiTexture;
@@ -35,14 +36,12 @@ import org.gearvrf.utility.ResourceCache;
 import org.gearvrf.utility.ResourceCacheBase;
 import org.gearvrf.utility.Threads;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
@@ -52,7 +51,6 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * {@link GVRAssetLoader} provides methods for importing 3D models and textures.
@@ -165,6 +163,7 @@ public final class GVRAssetLoader {
                 try
                 {
                     resource = mVolume.openResource(request.TextureFile);
+                    GVRTrace.instant(GVRTrace.CATEGORY_ASSET, "requestTexture", request.TextureFile);
                     GVRAsynchronousResourceLoader.loadTexture(mContext, mCacheEnabled ? mTextureCache : null,
                                                               request, resource, DEFAULT_PRIORITY, GVRCompressedImage.BALANCED);
                 }
@@ -438,6 +437,7 @@ public final class GVRAssetLoader {
                  */
                 mNumTextures = -1;
             }
+            GVRTrace.instant(GVRTrace.CATEGORY_ASSET, "assetLoaded", mFileName);
             onAssetLoaded(mContext, mModel, mFileName, errors);
         }
     }
@@ -1818,11 +1818,13 @@ public final class GVRAssetLoader {
 
         model.setName(filePath);
         ResourceVolumeIO jassimpIO = new ResourceVolumeIO(request.getVolume());
+        long traceStart = GVRTrace.begin();
         try
         {
             assimpScene = Jassimp.importFile(FileNameUtils.getFilename(filePath),
                                              jassimpAdapter.toJassimpSettings(request.getImportSettings()),
                                              jassimpIO);
+            GVRTrace.end(GVRTrace.CATEGORY_ASSET, "import", filePath, traceStart);
         }
         catch (IOException ex)
         {
@@ -1836,7 +1838,9 @@ public final class GVRAssetLoader {
             request.onModelError(mContext, errmsg, filePath);
             throw new IOException(errmsg);
         }
+        traceStart = GVRTrace.begin();
         jassimpAdapter.processScene(request, model, assimpScene);
+        GVRTrace.end(GVRTrace.CATEGORY_ASSET, "process", filePath, traceStart);
         request.onModelLoaded(mContext, model, filePath);
         mContext.runOnTheFrameworkThread(new Runnable() {
             public void run() {
@@ -1866,9 +1870,12 @@ public final class GVRAssetLoader {
         {
             throw new IOException("X3D extension not available; can't load X3D models! " + e);
         }
+        final long traceStart = GVRTrace.begin();
         try
         {
-            return (GVRSceneObject) loadMethod.invoke(null, mContext, assetRequest, root);
+            GVRSceneObject model = (GVRSceneObject) loadMethod.invoke(null, mContext, assetRequest, root);
+            GVRTrace.end(GVRTrace.CATEGORY_ASSET, "loadX3D", assetRequest.getFileName(), traceStart);
+            return model;
         }
         catch (InvocationTargetException te)
         {
@@ -1882,63 +1889,77 @@ public final class GVRAssetLoader {
         }
     }
 
+    /**
+     * Prefetches the resources listed in a manifest into the cache of
+     * downloaded files, several at a time, before a scene which depends
+     * on them is loaded. Resources from a {@link GVRResourceVolume} or a
+     * {@link GVRAndroidResource} with the local cache enabled are then
+     * read from the cache.
+     * <p>
+     * This method blocks until all the resources are cached, it should
+     * not be called from the GL thread.
+     *
+     * @param manifestUrl
+     *            URL of the manifest, in the format described by
+     *            {@link GVRUrlCache.Manifest}. The resources are relative
+     *            to it.
+     * @throws IOException if the manifest or one of the resources can't
+     *            be downloaded
+     * @see #getUrlCache(Context)
+     */
+    public void prefetch(URL manifestUrl) throws IOException
+    {
+        final GVRUrlCache cache = getUrlCache(mContext.getContext());
+        final InputStream stream = new FileInputStream(cache.get(manifestUrl));
+        final GVRUrlCache.Manifest manifest;
+
+        try
+        {
+            manifest = GVRUrlCache.Manifest.read(stream, manifestUrl);
+        }
+        finally
+        {
+            stream.close();
+        }
+        final long traceStart = GVRTrace.begin();
+        cache.prefetch(manifest, PREFETCH_THREADS);
+        GVRTrace.end(GVRTrace.CATEGORY_ASSET, "prefetch", manifestUrl.toString(), traceStart);
+    }
+
+    /**
+     * Gets the cache of downloaded files of the application, in its
+     * cache directory.
+     */
+    public static synchronized GVRUrlCache getUrlCache(Context context)
+    {
+        if (sUrlCache == null)
+        {
+            sUrlCache = new GVRUrlCache(new File(context.getCacheDir(), URL_CACHE_DIR), URL_CACHE_SIZE);
+        }
+        return sUrlCache;
+    }
+
+    /**
+     * Gets the cached copy of a URL, downloading or revalidating it as
+     * needed.
+     * @return the file, or null if it can't be downloaded
+     * @see GVRUrlCache#get(URL)
+     */
     public static File downloadFile(Context context, String urlString) {
         URL url = null;
         try {
             url = new URL(urlString);
-        } catch (IOException e) {
+        } catch (MalformedURLException e) {
             Log.e(TAG, "URL error: ", urlString);
             return null;
         }
 
-        String directoryPath = context.getCacheDir().getAbsolutePath();
-        // add a uuid value for the url to prevent aliasing from files sharing
-        // same name inside one given app
-        String outputFilename = directoryPath + File.separator
-                + UUID.nameUUIDFromBytes(urlString.getBytes()).toString()
-                + FileNameUtils.getURLFilename(urlString);
-
-        Log.d(TAG, "URL filename: %s", outputFilename);
-
-        File localCopy = new File(outputFilename);
-        if (localCopy.exists()) {
-            return localCopy;
-        }
-
-        InputStream input = null;
-        // Output stream to write file
-        OutputStream output = null;
-
         try {
-            input = new BufferedInputStream(url.openStream(), 8192);
-            output = new FileOutputStream(outputFilename);
-
-            byte data[] = new byte[1024];
-            int count;
-            while ((count = input.read(data)) != -1) {
-                // writing data to file
-                output.write(data, 0, count);
-            }
+            return getUrlCache(context).get(url);
         } catch (IOException e) {
             Log.e(TAG, "Failed to download: ", urlString);
             return null;
-        } finally {
-            if (input != null) {
-                try {
-                    input.close();
-                } catch (IOException e) {
-                }
-            }
-
-            if (output != null) {
-                try {
-                    output.close();
-                } catch (IOException e) {
-                }
-            }
         }
-
-        return new File(outputFilename);
     }
 
     public GVRTextureParameters getDefaultTextureParameters() {
@@ -1946,5 +1967,9 @@ public final class GVRAssetLoader {
     }
 
     private final static String TAG = "GVRAssetLoader";
+    private final static String URL_CACHE_DIR = "gvrf_url_cache";
+    private final static long URL_CACHE_SIZE = 128L * 1024 * 1024;
+    private final static int PREFETCH_THREADS = 4;
+    private static GVRUrlCache sUrlCache;
 
 }
@@ -36,6 +36,8 @@ public class GVRBehavior extends GVRComponent implements GVRDrawFrameListener
 {
     protected boolean mIsListening;
     protected boolean mHasFrameCallback;
+    private GVRBehaviorGroup<?> mGroup = null;
+    int mGroupIndex = -1;
     static private long TYPE_BEHAVIOR = newComponentType(GVRBehavior.class);
 
     /**
@@ -119,9 +121,31 @@ public class GVRBehavior extends GVRComponent implements GVRDrawFrameListener
      */
     public void onDrawFrame(float frameTime) { }
     
+    /**
+     * Gets the group which updates this behavior together with the other
+     * behaviors of its type. If there is one, the behavior is added to the
+     * group instead of receiving {@link #onDrawFrame(float)} calls.
+     * @return null unless overridden
+     * @see GVRBehaviorGroup
+     */
+    protected GVRBehaviorGroup<?> getBehaviorGroup()
+    {
+        return null;
+    }
+
     protected void startListening()
     {
-        if (mHasFrameCallback && !mIsListening)
+        if (mIsListening)
+        {
+            return;
+        }
+        mGroup = getBehaviorGroup();
+        if (mGroup != null)
+        {
+            mGroup.add(this);
+            mIsListening = true;
+        }
+        else if (mHasFrameCallback)
         {
             getGVRContext().registerDrawFrameListener(this);
             mIsListening = true;            
@@ -132,7 +156,15 @@ public class GVRBehavior extends GVRComponent implements GVRDrawFrameListener
     {
         if (mIsListening)
         {
-            getGVRContext().unregisterDrawFrameListener(this);
+            if (mGroup != null)
+            {
+                mGroup.remove(this);
+                mGroup = null;
+            }
+            else
+            {
+                getGVRContext().unregisterDrawFrameListener(this);
+            }
             mIsListening = false;
         }        
     }
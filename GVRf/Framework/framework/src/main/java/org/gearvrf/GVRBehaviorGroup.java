@@ -0,0 +1,293 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates all the behaviors of one type together, once per frame.
+ *
+ * A behavior normally gets its own {@link GVRBehavior#onDrawFrame(float)}
+ * call. When there are many behaviors of the same type, it is cheaper to
+ * make one call which updates all of them: data shared by all instances,
+ * like the camera position, is fetched once in {@link #beginFrame(float)}
+ * and {@link #updateAll} then runs a tight loop over the instances.
+ * <p>
+ * A behavior joins a group by returning it from
+ * {@link GVRBehavior#getBehaviorGroup()}; it is then added to the group
+ * when it starts listening and removed when it stops, instead of being
+ * registered as a frame listener itself. There is one group of each class
+ * per {@link GVRContext}, obtained with {@link #get(GVRContext, Class)}.
+ * The group class must have a constructor taking the {@link GVRContext}.
+ * <pre>
+ *     public class MyBehavior extends GVRBehavior {
+ *         static class Group extends GVRBehaviorGroup&lt;MyBehavior&gt; {
+ *             public Group(GVRContext ctx) { super(ctx, MyBehavior.class); }
+ *
+ *             protected void updateAll(float frameTime, MyBehavior[] instances, int start, int end) {
+ *                 for (int i = start; i &lt; end; ++i) { ... }
+ *             }
+ *         }
+ *
+ *         protected GVRBehaviorGroup&lt;?&gt; getBehaviorGroup() {
+ *             return GVRBehaviorGroup.get(getGVRContext(), Group.class);
+ *         }
+ *     }
+ * </pre>
+ * Behaviors added or removed during a frame are taken into account on
+ * the next frame. The order in which instances are updated is not defined.
+ * <p>
+ * If {@link #isThreadSafe()} returns true and there are at least
+ * {@link #getParallelThreshold()} instances, the instances are split in
+ * ranges which are updated in parallel on a fork-join pool while the GL
+ * thread waits. This is only safe if updating an instance does not touch
+ * state shared with the other instances.
+ *
+ * @param <T> type of the behaviors in the group
+ * @see GVRBillboard
+ * @see GVRLODGroup
+ * @see GVRSwitch
+ */
+public abstract class GVRBehaviorGroup<T extends GVRBehavior> implements GVRDrawFrameListener
+{
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+    private static ForkJoinPool sPool = null;
+
+    private final GVRContext mContext;
+    private final Class<T> mType;
+    private T[] mInstances;
+    private int mCount = 0;
+
+    // Requests from any thread, guarded by mPending
+    private final List<T> mPending = new ArrayList<T>();
+    private final List<Boolean> mPendingAdds = new ArrayList<Boolean>();
+    private volatile boolean mHasPending = false;
+
+    /**
+     * Constructs an empty group and registers it as a frame listener.
+     * @param gvrContext    context the group belongs to
+     * @param type          class of the behaviors in the group
+     */
+    @SuppressWarnings("unchecked")
+    protected GVRBehaviorGroup(GVRContext gvrContext, Class<T> type)
+    {
+        mContext = gvrContext;
+        mType = type;
+        mInstances = (T[]) Array.newInstance(type, 16);
+        gvrContext.registerDrawFrameListener(this);
+    }
+
+    /**
+     * Gets the group of a given class for a context, creating it the first time.
+     * @param gvrContext    context the group belongs to
+     * @param groupClass    class of the group
+     * @return the group
+     * @throws IllegalArgumentException if the group cannot be constructed
+     */
+    public static <G extends GVRBehaviorGroup<?>> G get(GVRContext gvrContext, Class<G> groupClass)
+    {
+        synchronized (gvrContext.mBehaviorGroups)
+        {
+            GVRBehaviorGroup<?> group = gvrContext.mBehaviorGroups.get(groupClass);
+            if (group == null)
+            {
+                try
+                {
+                    Constructor<G> ctor = groupClass.getDeclaredConstructor(GVRContext.class);
+                    ctor.setAccessible(true);
+                    group = ctor.newInstance(gvrContext);
+                }
+                catch (Exception e)
+                {
+                    throw new IllegalArgumentException("Cannot construct behavior group " + groupClass.getName(), e);
+                }
+                gvrContext.mBehaviorGroups.put(groupClass, group);
+            }
+            return groupClass.cast(group);
+        }
+    }
+
+    public GVRContext getGVRContext()
+    {
+        return mContext;
+    }
+
+    /**
+     * Gets the number of behaviors updated on the last frame.
+     */
+    public int getCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * Checks whether ranges of instances can be updated concurrently.
+     * @return false unless overridden
+     */
+    public boolean isThreadSafe()
+    {
+        return false;
+    }
+
+    /**
+     * Gets the number of instances from which a thread safe group is
+     * updated in parallel.
+     */
+    public int getParallelThreshold()
+    {
+        return DEFAULT_PARALLEL_THRESHOLD;
+    }
+
+    /**
+     * Called on the GL thread once per frame before {@link #updateAll},
+     * if the group is not empty. Fetch the data shared by all the
+     * instances here.
+     * @param frameTime seconds since the previous frame
+     */
+    protected void beginFrame(float frameTime)
+    {
+    }
+
+    /**
+     * Updates a range of instances.
+     * @param frameTime seconds since the previous frame
+     * @param instances behaviors of the group; only those between
+     *                  {@code start} and {@code end} may be used
+     * @param start     index of the first instance to update
+     * @param end       index after the last instance to update
+     */
+    protected abstract void updateAll(float frameTime, T[] instances, int start, int end);
+
+    void add(GVRBehavior behavior)
+    {
+        request(mType.cast(behavior), Boolean.TRUE);
+    }
+
+    void remove(GVRBehavior behavior)
+    {
+        request(mType.cast(behavior), Boolean.FALSE);
+    }
+
+    private void request(T behavior, Boolean add)
+    {
+        synchronized (mPending)
+        {
+            mPending.add(behavior);
+            mPendingAdds.add(add);
+            mHasPending = true;
+        }
+    }
+
+    @Override
+    public void onDrawFrame(float frameTime)
+    {
+        if (mHasPending)
+        {
+            applyPending();
+        }
+        if (mCount == 0)
+        {
+            return;
+        }
+        beginFrame(frameTime);
+        if (isThreadSafe() && (mCount >= getParallelThreshold()))
+        {
+            getPool().invoke(new RangeUpdate(frameTime, 0, mCount));
+        }
+        else
+        {
+            updateAll(frameTime, mInstances, 0, mCount);
+        }
+    }
+
+    private void applyPending()
+    {
+        synchronized (mPending)
+        {
+            final int n = mPending.size();
+            for (int i = 0; i < n; ++i)
+            {
+                final T behavior = mPending.get(i);
+                if (mPendingAdds.get(i))
+                {
+                    if (behavior.mGroupIndex < 0)
+                    {
+                        if (mCount == mInstances.length)
+                        {
+                            mInstances = Arrays.copyOf(mInstances, mCount * 2);
+                        }
+                        behavior.mGroupIndex = mCount;
+                        mInstances[mCount++] = behavior;
+                    }
+                }
+                else if (behavior.mGroupIndex >= 0)
+                {
+                    final int index = behavior.mGroupIndex;
+                    final T last = mInstances[--mCount];
+                    mInstances[index] = last;
+                    last.mGroupIndex = index;
+                    mInstances[mCount] = null;
+                    behavior.mGroupIndex = -1;
+                }
+            }
+            mPending.clear();
+            mPendingAdds.clear();
+            mHasPending = false;
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool()
+    {
+        if (sPool == null)
+        {
+            sPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        return sPool;
+    }
+
+    private final class RangeUpdate extends RecursiveAction
+    {
+        private final float mFrameTime;
+        private final int mStart;
+        private final int mEnd;
+
+        RangeUpdate(float frameTime, int start, int end)
+        {
+            mFrameTime = frameTime;
+            mStart = start;
+            mEnd = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (mEnd - mStart <= getParallelThreshold() / 2)
+            {
+                updateAll(mFrameTime, mInstances, mStart, mEnd);
+                return;
+            }
+            final int middle = (mStart + mEnd) >>> 1;
+            invokeAll(new RangeUpdate(mFrameTime, mStart, middle),
+                      new RangeUpdate(mFrameTime, middle, mEnd));
+        }
+    }
+}
@@ -13,15 +13,55 @@ public class GVRBillboard extends GVRBehavior
     static private long TYPE_BILLBOARD = newComponentType(GVRBillboard.class);
     private GVRCameraRig mMainCameraRig;
 
-    private Vector3f up = new Vector3f(0, 1, 0);
-    private Vector3f lookat = new Vector3f(0, 0, 0);
-    private Vector3f ownerXaxis = new Vector3f(0, 0, 0);
-    private Vector3f ownerYaxis = new Vector3f(0, 0, 0);
-    private Vector3f ownerZaxis = new Vector3f(0, 0, 0);
-
+    private final float[] mModelMatrix = new float[16];
     private boolean isCustomUpPresent = false;
     private Vector3f customUp;
 
+    /**
+     * Turns all the billboards of a context to face their camera rig,
+     * fetching the position of each camera rig once per frame.
+     */
+    static final class Group extends GVRBehaviorGroup<GVRBillboard>
+    {
+        private GVRCameraRig mRig;
+        private float mCamX;
+        private float mCamY;
+        private float mCamZ;
+
+        Group(GVRContext gvrContext)
+        {
+            super(gvrContext, GVRBillboard.class);
+        }
+
+        @Override
+        protected void beginFrame(float frameTime)
+        {
+            mRig = null;
+        }
+
+        @Override
+        protected void updateAll(float frameTime, GVRBillboard[] instances, int start, int end)
+        {
+            for (int i = start; i < end; ++i)
+            {
+                final GVRBillboard billboard = instances[i];
+                if (!billboard.isEnabled() || (billboard.getOwnerObject() == null))
+                {
+                    continue;
+                }
+                if (billboard.mMainCameraRig != mRig)
+                {
+                    final GVRTransform camTrans = billboard.mMainCameraRig.getTransform();
+                    mRig = billboard.mMainCameraRig;
+                    mCamX = camTrans.getPositionX();
+                    mCamY = camTrans.getPositionY();
+                    mCamZ = camTrans.getPositionZ();
+                }
+                billboard.faceCamera(mCamX, mCamY, mCamZ);
+            }
+        }
+    }
+
     /**
      *  Constructor
      *  @param gvrContext    The current GVRF context
@@ -41,100 +81,101 @@ public class GVRBillboard extends GVRBehavior
     {
         super(gvrContext);
         mMainCameraRig = gvrContext.getMainScene().getMainCameraRig();
-        customUp = up;
+        customUp = new Vector3f(up).normalize();
         isCustomUpPresent = true;
     }
 
     static public long getComponentType() { return TYPE_BILLBOARD; }
 
     /**
-     * Should not be used from the application.
+     * Billboards are updated together by a {@link GVRBehaviorGroup}.
      */
-
-    public void onDrawFrame(float frameTime)
+    @Override
+    protected GVRBehaviorGroup<?> getBehaviorGroup()
     {
-        if ( isEnabled() ) {
-
-            if (!isCustomUpPresent) {
-                faceObjectToCamera();
-            }
-            else {
-                faceObjectToCameraWithCustomUp();
-            }
-        }
+        return GVRBehaviorGroup.get(getGVRContext(), Group.class);
     }
 
     /**
-     * Set the model matrix of the owner object to face the main camera rig.
-     * Does two cross products: First, between the world up vector and the camera
-     * to object vector. This gives one of the axis of the local rotation of the
-     * object. A second cross product between the object to camera
-     * vector and this axis gives the up vector of the object. Together,
-     * with the object position, this yields the desired model matrix
+     * Should not be used from the application.
      */
 
-    private void faceObjectToCamera()
+    public void onDrawFrame(float frameTime)
     {
-        GVRSceneObject ownerObject = getOwnerObject();
-        GVRTransform ownerTrans = ownerObject.getTransform();
-        float camX = mMainCameraRig.getTransform().getPositionX();
-        float camY = mMainCameraRig.getTransform().getPositionY();
-        float camZ = mMainCameraRig.getTransform().getPositionZ();
-        float ownerX = ownerTrans.getPositionX();
-        float ownerY = ownerTrans.getPositionY();
-        float ownerZ = ownerTrans.getPositionZ();
-        float scaleX = ownerTrans.getScaleX();
-        float scaleY = ownerTrans.getScaleY();
-        float scaleZ = ownerTrans.getScaleZ();
-
-        lookat.set(camX - ownerX, camY - ownerY, camZ - ownerZ);
-        lookat = lookat.normalize();
-
-        up.cross(lookat.x, lookat.y, lookat.z, ownerXaxis);
-        ownerXaxis = ownerXaxis.normalize();
-
-        lookat.cross(ownerXaxis.x, ownerXaxis.y, ownerXaxis.z, ownerYaxis);
-        ownerYaxis = ownerYaxis.normalize();
-
-        ownerTrans.setModelMatrix(new float[]{ownerXaxis.x, ownerXaxis.y, ownerXaxis.z, 0.0f,
-                ownerYaxis.x, ownerYaxis.y, ownerYaxis.z, 0.0f,
-                lookat.x, lookat.y, lookat.z, 0.0f,
-                ownerX, ownerY, ownerZ, 1.0f});
-        ownerTrans.setScale(scaleX, scaleY, scaleZ);
+        if ( isEnabled() && (getOwnerObject() != null)) {
+            final GVRTransform camTrans = mMainCameraRig.getTransform();
+            faceCamera(camTrans.getPositionX(), camTrans.getPositionY(), camTrans.getPositionZ());
+        }
     }
 
     /**
-     * Set the model matrix of the owner object to face the camera when the up vector of the
-     * owner object is provided. This constraints the owner object to rotate only about that
-     * up vector.
+     * Set the model matrix of the owner object to face the camera.
+     * <p>
+     * Without a custom up vector, does two cross products: First, between the
+     * world up vector and the camera to object vector. This gives one of the axis
+     * of the local rotation of the object. A second cross product between the
+     * object to camera vector and this axis gives the up vector of the object.
+     * <p>
+     * When the up vector of the owner object is provided, the object is
+     * constrained to rotate only about that up vector: the third axis is the
+     * cross product of the first axis and the up vector.
+     * <p>
+     * Together with the object position and scale, this yields the desired
+     * model matrix, which is set with a single call.
      */
 
-    private void faceObjectToCameraWithCustomUp()
+    private void faceCamera(float camX, float camY, float camZ)
     {
-        GVRSceneObject ownerObject = getOwnerObject();
-        GVRTransform ownerTrans = ownerObject.getTransform();
-        float camX = mMainCameraRig.getTransform().getPositionX();
-        float camY = mMainCameraRig.getTransform().getPositionY();
-        float camZ = mMainCameraRig.getTransform().getPositionZ();
-        float ownerX = ownerTrans.getPositionX();
-        float ownerY = ownerTrans.getPositionY();
-        float ownerZ = ownerTrans.getPositionZ();
-        float scaleX = ownerTrans.getScaleX();
-        float scaleY = ownerTrans.getScaleY();
-        float scaleZ = ownerTrans.getScaleZ();
-
-        lookat.set(camX - ownerX, camY - ownerY, camZ - ownerZ);
-        lookat = lookat.normalize();
-        customUp = customUp.normalize();
-        customUp.cross(lookat.x, lookat.y, lookat.z, ownerXaxis);
-        ownerXaxis = ownerXaxis.normalize();
-        ownerXaxis.cross(customUp.x, customUp.y, customUp.z, ownerZaxis);
-
-        ownerTrans.setModelMatrix(new float[]{ownerXaxis.x, ownerXaxis.y, ownerXaxis.z, 0.0f,
-                customUp.x, customUp.y, customUp.z, 0.0f,
-                ownerZaxis.x, ownerZaxis.y, ownerZaxis.z, 0.0f,
-                ownerX, ownerY, ownerZ, 1.0f});
-        ownerTrans.setScale(scaleX, scaleY, scaleZ);
+        final GVRTransform ownerTrans = getOwnerObject().getTransform();
+        final float ownerX = ownerTrans.getPositionX();
+        final float ownerY = ownerTrans.getPositionY();
+        final float ownerZ = ownerTrans.getPositionZ();
+        final float scaleX = ownerTrans.getScaleX();
+        final float scaleY = ownerTrans.getScaleY();
+        final float scaleZ = ownerTrans.getScaleZ();
+        final float upX = isCustomUpPresent ? customUp.x : 0;
+        final float upY = isCustomUpPresent ? customUp.y : 1;
+        final float upZ = isCustomUpPresent ? customUp.z : 0;
+
+        // lookat = normalize(camera - owner)
+        float lx = camX - ownerX;
+        float ly = camY - ownerY;
+        float lz = camZ - ownerZ;
+        float len = (float) Math.sqrt(lx * lx + ly * ly + lz * lz);
+        lx /= len; ly /= len; lz /= len;
+
+        // x axis = normalize(up x lookat)
+        float xx = upY * lz - upZ * ly;
+        float xy = upZ * lx - upX * lz;
+        float xz = upX * ly - upY * lx;
+        len = (float) Math.sqrt(xx * xx + xy * xy + xz * xz);
+        xx /= len; xy /= len; xz /= len;
+
+        float yx, yy, yz, zx, zy, zz;
+        if (isCustomUpPresent)
+        {
+            // y axis = up, z axis = x axis x up
+            yx = upX; yy = upY; yz = upZ;
+            zx = xy * upZ - xz * upY;
+            zy = xz * upX - xx * upZ;
+            zz = xx * upY - xy * upX;
+        }
+        else
+        {
+            // y axis = normalize(lookat x x axis), z axis = lookat
+            yx = ly * xz - lz * xy;
+            yy = lz * xx - lx * xz;
+            yz = lx * xy - ly * xx;
+            len = (float) Math.sqrt(yx * yx + yy * yy + yz * yz);
+            yx /= len; yy /= len; yz /= len;
+            zx = lx; zy = ly; zz = lz;
+        }
+
+        final float[] m = mModelMatrix;
+        m[0] = xx * scaleX;  m[1] = xy * scaleX;  m[2] = xz * scaleX;  m[3] = 0.0f;
+        m[4] = yx * scaleY;  m[5] = yy * scaleY;  m[6] = yz * scaleY;  m[7] = 0.0f;
+        m[8] = zx * scaleZ;  m[9] = zy * scaleZ;  m[10] = zz * scaleZ; m[11] = 0.0f;
+        m[12] = ownerX;      m[13] = ownerY;      m[14] = ownerZ;      m[15] = 1.0f;
+        ownerTrans.setModelMatrix(m);
     }
 }
-
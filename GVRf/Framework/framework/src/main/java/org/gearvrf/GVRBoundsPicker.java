@@ -53,6 +53,11 @@ import org.gearvrf.utility.Log;
  * <li>onPick           called every frame if a collision occured.</li>
  * <li>onNoPick         called every frame if no collisions occurred.</li>
  * </ul>
+ * Each frame the colliders are first sorted into a uniform grid by their
+ * world bounds, so that only the colliders near a collidable are tested
+ * against it. The picks and events are the same as without the grid.
+ * The grid can be turned off with {@link #setBroadphaseEnabled(boolean)},
+ * and {@link #getCandidatePairCount()} tells how many pairs it kept.
  * @see IPickEvents
  * @see ITouchEvents
  * @see GVRSceneObject#attachCollider(GVRCollider)
@@ -65,6 +70,8 @@ public class GVRBoundsPicker extends GVRPicker
 {
     final ArrayList<GVRSceneObject>   mCollidables = new ArrayList<GVRSceneObject>();
     static private GVRPickedObject[] sEmptyList = new GVRPickedObject[0];
+    private final BoundsBroadphase mBroadphase = new BoundsBroadphase();
+    private boolean mUseBroadphase = true;
 
     protected GVRCursorController.IControllerEvent listener = new GVRCursorController.IControllerEvent()
     {
@@ -186,6 +193,82 @@ public class GVRBoundsPicker extends GVRPicker
         }
     }
 
+    /**
+     * Enables or disables the broadphase grid.
+     * When disabled, every collidable is tested against every
+     * collider in the scene as {@link #pickBounds(GVRScene, List)} does.
+     * The picks are the same either way.
+     * @param enable true to use the grid (the default)
+     */
+    public void setBroadphaseEnabled(boolean enable)
+    {
+        synchronized (mCollidables)
+        {
+            mUseBroadphase = enable;
+        }
+    }
+
+    public boolean isBroadphaseEnabled()
+    {
+        return mUseBroadphase;
+    }
+
+    /**
+     * Sets the size of the broadphase grid cells in world units.
+     * Cells about twice the size of the colliders work best.
+     * @param size cell size, 0 to choose it from the colliders
+     *             of the next frame (the default)
+     */
+    public void setBroadphaseCellSize(float size)
+    {
+        synchronized (mCollidables)
+        {
+            mBroadphase.setCellSize(size);
+        }
+    }
+
+    /**
+     * Gets the size of the broadphase grid cells in world units.
+     * @return cell size, 0 if it has not been chosen yet
+     */
+    public float getBroadphaseCellSize()
+    {
+        synchronized (mCollidables)
+        {
+            return mBroadphase.getCellSize();
+        }
+    }
+
+    /**
+     * Gets the number of collider and collidable pairs
+     * the broadphase sent to the exact test on the last frame.
+     * @see #getPossiblePairCount()
+     */
+    public int getCandidatePairCount()
+    {
+        return mBroadphase.getCandidatePairCount();
+    }
+
+    /**
+     * Gets the number of collider and collidable pairs
+     * there were on the last frame the broadphase was used:
+     * the number of pairs tested without it.
+     */
+    public long getPossiblePairCount()
+    {
+        return mBroadphase.getPossiblePairCount();
+    }
+
+    /**
+     * Gets the time the broadphase took on the last frame it was used,
+     * not counting the exact tests of the pairs it found.
+     * @return time in nanoseconds
+     */
+    public long getBroadphaseTime()
+    {
+        return mBroadphase.getBroadphaseTime();
+    }
+
     /**
      * Scans the scene graph to collect picked items
      * and generates appropriate pick events.
@@ -204,7 +287,7 @@ public class GVRBoundsPicker extends GVRPicker
 
             synchronized (mCollidables)
             {
-                picked = pickBounds(mScene, mCollidables);
+                picked = mUseBroadphase ? pickBroadphase() : pickBounds(mScene, mCollidables);
             }
             if (mPickClosest && (picked.length > 0))
             {
@@ -231,6 +314,20 @@ public class GVRBoundsPicker extends GVRPicker
         }
     }
 
+    private GVRPickedObject[] pickBroadphase()
+    {
+        sFindObjectsLock.lock();
+        try
+        {
+            final GVRPickedObject[] result = mBroadphase.pick(mScene, mCollidables);
+            return (result != null) ? result : sEmptyList;
+        }
+        finally
+        {
+            sFindObjectsLock.unlock();
+        }
+    }
+
     /**
      * Tests the bounding volumes of a set of scene objects against
      * all the colliders the scene and returns a list of collisions.
@@ -16,13 +16,26 @@
 package org.gearvrf;
 
 public class GVRBoxCollider extends GVRCollider {
+    private final float[] mHalfExtents = new float[3];
+
     public GVRBoxCollider(GVRContext context) {
         super(context, NativeBoxCollider.ctor());
     }
 
     public void setHalfExtents(float x, float y, float z) {
+        mHalfExtents[0] = x;
+        mHalfExtents[1] = y;
+        mHalfExtents[2] = z;
         NativeBoxCollider.setHalfExtents(getNative(), x, y, z);
     }
+
+    /**
+     * Copies the half extents of the box.
+     * @param halfExtents receives the half extents in X, Y and Z
+     */
+    void getHalfExtents(float[] halfExtents) {
+        System.arraycopy(mHalfExtents, 0, halfExtents, 0, 3);
+    }
 }
 
 class NativeBoxCollider {
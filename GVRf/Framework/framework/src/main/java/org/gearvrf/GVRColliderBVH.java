@@ -0,0 +1,752 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.gearvrf.GVRPicker.GVRPickedObject;
+import org.gearvrf.utility.Log;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Bounding volume hierarchy over the colliders of a scene, which finds
+ * what a pick ray hits without testing every collider.
+ *
+ * The hierarchy has two levels. The top level is built over the world
+ * space bounding boxes of the colliders. Each {@link GVRMeshCollider}
+ * that tests triangles has a second level built over the triangles of
+ * its mesh, in mesh coordinates, shared by all the colliders using the
+ * same mesh; these are hit tested in Java. Other colliders are hit
+ * tested natively, one at a time, once their box is hit. Colliders whose
+ * bounds are not known, like {@link GVRColliderGroup}, are always tested.
+ * <p>
+ * The picks return the same {@link GVRPickedObject} data as
+ * {@link GVRPicker#pickClosest(GVRScene, GVRTransform, float, float, float, float, float, float)}
+ * and {@link GVRPicker#pickObjects(GVRScene, GVRTransform, float, float, float, float, float, float)},
+ * including the face, barycentric, texture and normal coordinates of
+ * mesh colliders constructed to pick coordinates. As with the native
+ * picker, hit locations and distances are in the coordinate system of
+ * the collider. Hits are ordered by their distance in world coordinates,
+ * which is the same order unless colliders are scaled differently.
+ * <p>
+ * The hierarchy is a snapshot of the scene: {@link #build()} collects
+ * the colliders and must be called again when colliders are added or
+ * removed, or when a mesh collider gets its mesh. {@link #refit()} reads
+ * the transforms of the colliders and updates the boxes of the ones that
+ * moved and of their ancestors only; the top level is rebuilt when
+ * refitting has made it much slower to traverse. Register the hierarchy
+ * with {@link GVRContext#registerDrawFrameListener(GVRDrawFrameListener)}
+ * to refit it every frame, and give it to a picker with
+ * {@link GVRPicker#setColliderBVH(GVRColliderBVH)}.
+ * When the vertices of a mesh change, call {@link #updateMesh(GVRMesh)}.
+ *
+ * @see GVRPicker
+ * @see GVRMeshCollider
+ */
+public class GVRColliderBVH implements GVRDrawFrameListener
+{
+    private static final String TAG = Log.tag(GVRColliderBVH.class);
+    private static final float REBUILD_COST_RATIO = 2.0f;
+
+    /*
+     * Triangle hierarchy of a mesh, with the attributes
+     * interpolated for pick coordinates.
+     */
+    private static final class MeshShape
+    {
+        final TriangleBVH mTree;
+        final float[] mTexCoords;
+        final float[] mNormals;
+        final float[] mBounds = new float[6];
+
+        MeshShape(GVRMesh mesh)
+        {
+            final GVRIndexBuffer ibuf = mesh.getIndexBuffer();
+            int[] indices = null;
+
+            if (ibuf != null)
+            {
+                if (ibuf.getIndexSize() == 2)
+                {
+                    final char[] shorts = ibuf.asCharArray();
+                    indices = new int[shorts.length];
+                    for (int i = 0; i < shorts.length; ++i)
+                    {
+                        indices[i] = shorts[i];
+                    }
+                }
+                else
+                {
+                    indices = ibuf.asIntArray();
+                }
+            }
+            mTree = new TriangleBVH(mesh.getVertices(), indices);
+            mTexCoords = mesh.hasAttribute("a_texcoord") ? mesh.getTexCoords() : null;
+            mNormals = mesh.hasAttribute("a_normal") ? mesh.getNormals() : null;
+            mTree.getBounds(mBounds);
+        }
+
+        void refit(float[] positions)
+        {
+            mTree.refit(positions);
+            mTree.getBounds(mBounds);
+        }
+    }
+
+    private static final class Entry
+    {
+        final GVRCollider mCollider;
+        final GVRSceneObject mOwner;
+        final MeshShape mShape;
+        final boolean mPickCoordinates;
+        final float[] mLocalBounds;
+        final float[] mMatrix = new float[16];
+        final Matrix4f mInverse = new Matrix4f();
+
+        Entry(GVRCollider collider, GVRSceneObject owner, MeshShape shape,
+              boolean pickCoordinates, float[] localBounds)
+        {
+            mCollider = collider;
+            mOwner = owner;
+            mShape = shape;
+            mPickCoordinates = pickCoordinates;
+            mLocalBounds = localBounds;
+            mMatrix[0] = Float.NaN;
+        }
+
+        /*
+         * Reads the transform of the owner, returns true if it changed.
+         */
+        boolean updateMatrix()
+        {
+            final float[] m = mOwner.getTransform().getModelMatrix();
+            if (Arrays.equals(m, mMatrix))
+            {
+                return false;
+            }
+            System.arraycopy(m, 0, mMatrix, 0, 16);
+            if (mShape != null)
+            {
+                mInverse.set(m).invertAffine();
+            }
+            return true;
+        }
+
+        boolean isPickable()
+        {
+            return mCollider.isEnabled() && (mCollider.getOwnerObject() == mOwner) && mOwner.isEnabled();
+        }
+    }
+
+    private final GVRScene mScene;
+    private final WeakHashMap<GVRMesh, MeshShape> mMeshShapes = new WeakHashMap<GVRMesh, MeshShape>();
+    private final List<Entry> mUnbounded = new ArrayList<Entry>();
+    private Entry[] mEntries = new Entry[0];
+    private BVHTree mTree = null;
+    private int[] mLeafNode;
+    private int[] mParent;
+    private boolean[] mDirty;
+    private int[] mStack;
+    private float mBuildCost;
+    private boolean mNeedsBuild = true;
+    private int mVersion = 0;
+
+    // Query state, guarded by this
+    private final float[] mRay = new float[6];
+    private final float[] mTriangleHit = new float[4];
+    private final Vector3f mTemp = new Vector3f();
+    private final Vector3f mTempDir = new Vector3f();
+    private final List<GVRPickedObject> mHits = new ArrayList<GVRPickedObject>();
+    private float[] mHitDistances = new float[16];
+    private GVRPickedObject mClosest;
+    private float mClosestT;
+    private float mHitT;            // world distance of the last hit tested
+    private boolean mAllHits;
+
+    /**
+     * Constructs an empty hierarchy for a scene.
+     * The colliders are collected by the first {@link #build()}
+     * or {@link #refit()}.
+     * @param scene scene whose colliders are picked
+     */
+    public GVRColliderBVH(GVRScene scene)
+    {
+        mScene = scene;
+    }
+
+    public GVRScene getScene()
+    {
+        return mScene;
+    }
+
+    /**
+     * Gets the number of colliders in the hierarchy.
+     */
+    public synchronized int getColliderCount()
+    {
+        return mEntries.length + mUnbounded.size();
+    }
+
+    /*
+     * Gets a number which changes whenever picks could give
+     * a different result because the hierarchy was updated.
+     */
+    synchronized int getVersion()
+    {
+        return mVersion;
+    }
+
+    /**
+     * Collects the colliders of the scene and builds both levels
+     * of the hierarchy. Triangle hierarchies of meshes already
+     * known are reused.
+     */
+    public synchronized void build()
+    {
+        final long start = System.nanoTime();
+        final List<Entry> entries = new ArrayList<Entry>();
+
+        mUnbounded.clear();
+        collect(mScene.getRoot(), entries);
+        mEntries = entries.toArray(new Entry[entries.size()]);
+
+        final float[] bounds = new float[mEntries.length * 6];
+        for (int i = 0; i < mEntries.length; ++i)
+        {
+            final Entry e = mEntries[i];
+            e.updateMatrix();
+            BVHTree.transform(e.mMatrix, e.mLocalBounds, 0, bounds, i * 6);
+        }
+        for (Entry e : mUnbounded)
+        {
+            e.updateMatrix();
+        }
+        buildTree(bounds);
+        mNeedsBuild = false;
+        ++mVersion;
+        Log.d(TAG, "built for %d colliders in %d ms", getColliderCount(),
+              (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Updates the hierarchy after colliders moved.
+     * The transform of every collider is read but only the
+     * boxes of those which moved, and of their ancestors,
+     * are recomputed. Builds the hierarchy if it was never built.
+     * @return number of colliders which moved
+     */
+    public synchronized int refit()
+    {
+        if (mNeedsBuild)
+        {
+            build();
+            return mEntries.length;
+        }
+        final float[] nodeBounds = mTree.getBounds();
+        int moved = 0;
+
+        for (int i = 0; i < mEntries.length; ++i)
+        {
+            final Entry e = mEntries[i];
+            if (e.updateMatrix())
+            {
+                final int node = mLeafNode[i];
+                BVHTree.transform(e.mMatrix, e.mLocalBounds, 0, nodeBounds, node * 6);
+                for (int p = mParent[node]; (p >= 0) && !mDirty[p]; p = mParent[p])
+                {
+                    mDirty[p] = true;
+                }
+                ++moved;
+            }
+        }
+        for (Entry e : mUnbounded)
+        {
+            e.updateMatrix();
+        }
+        if (moved > 0)
+        {
+            ++mVersion;
+            for (int n = mTree.getNodeCount() - 1; n >= 0; --n)
+            {
+                if (mDirty[n])
+                {
+                    mTree.refit(n);
+                    mDirty[n] = false;
+                }
+            }
+            if (mTree.getCost() > mBuildCost * REBUILD_COST_RATIO)
+            {
+                rebuildTree();
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Updates the triangle hierarchy of a mesh whose vertices moved,
+     * keeping its structure. The triangles must be the same; if they
+     * changed, call {@link #build()} instead. The colliders using the
+     * mesh are updated by the next {@link #refit()}.
+     * @param mesh mesh whose vertices changed
+     */
+    public synchronized void updateMesh(GVRMesh mesh)
+    {
+        final MeshShape shape = mMeshShapes.get(mesh);
+
+        if (shape == null)
+        {
+            return;
+        }
+        shape.refit(mesh.getVertices());
+        ++mVersion;
+        for (Entry e : mEntries)
+        {
+            if (e.mShape == shape)
+            {
+                System.arraycopy(shape.mBounds, 0, e.mLocalBounds, 0, 6);
+                e.mMatrix[0] = Float.NaN;       // refit this one next time
+            }
+        }
+    }
+
+    @Override
+    public void onDrawFrame(float frameTime)
+    {
+        refit();
+    }
+
+    /**
+     * Casts a ray into the scene and returns the closest collider hit.
+     * The arguments are those of
+     * {@link GVRPicker#pickClosest(GVRScene, GVRTransform, float, float, float, float, float, float)}.
+     * @param trans transform establishing the coordinate system of the ray,
+     *              null for the head of the main camera rig
+     * @return the closest {@link GVRPickedObject} or null if nothing was hit
+     */
+    public synchronized GVRPickedObject pickClosest(GVRTransform trans,
+                                                    float ox, float oy, float oz,
+                                                    float dx, float dy, float dz)
+    {
+        mAllHits = false;
+        mClosest = null;
+        mClosestT = Float.POSITIVE_INFINITY;
+        pick(trans, ox, oy, oz, dx, dy, dz);
+        final GVRPickedObject closest = mClosest;
+        mClosest = null;
+        return closest;
+    }
+
+    /**
+     * Casts a ray into the scene and returns all the colliders hit.
+     * The arguments are those of
+     * {@link GVRPicker#pickObjects(GVRScene, GVRTransform, float, float, float, float, float, float)}.
+     * @param trans transform establishing the coordinate system of the ray,
+     *              null for the head of the main camera rig
+     * @return the {@link GVRPickedObject}s, sorted by distance from the ray origin
+     */
+    public synchronized GVRPickedObject[] pickObjects(GVRTransform trans,
+                                                      float ox, float oy, float oz,
+                                                      float dx, float dy, float dz)
+    {
+        mAllHits = true;
+        mClosestT = Float.POSITIVE_INFINITY;
+        mHits.clear();
+        pick(trans, ox, oy, oz, dx, dy, dz);
+
+        // Insertion sort, there are few hits
+        final int n = mHits.size();
+        final GVRPickedObject[] result = mHits.toArray(new GVRPickedObject[n]);
+        for (int i = 1; i < n; ++i)
+        {
+            final GVRPickedObject hit = result[i];
+            final float t = mHitDistances[i];
+            int j = i - 1;
+            while ((j >= 0) && (mHitDistances[j] > t))
+            {
+                result[j + 1] = result[j];
+                mHitDistances[j + 1] = mHitDistances[j];
+                --j;
+            }
+            result[j + 1] = hit;
+            mHitDistances[j + 1] = t;
+        }
+        mHits.clear();
+        return result;
+    }
+
+    private void pick(GVRTransform trans, float ox, float oy, float oz,
+                      float dx, float dy, float dz)
+    {
+        if (mNeedsBuild)
+        {
+            build();
+        }
+        if (trans == null)
+        {
+            trans = mScene.getMainCameraRig().getHeadTransform();
+        }
+        toWorld(trans.getModelMatrix(), ox, oy, oz, dx, dy, dz);
+        if (mEntries.length > 0)
+        {
+            traverse();
+        }
+        for (Entry e : mUnbounded)
+        {
+            test(e);
+        }
+    }
+
+    /*
+     * Puts the ray in world coordinates in mRay, with a
+     * normalized direction like the native picker does.
+     */
+    private void toWorld(float[] m, float ox, float oy, float oz, float dx, float dy, float dz)
+    {
+        final float sx = m[0] * ox + m[4] * oy + m[8] * oz + m[12];
+        final float sy = m[1] * ox + m[5] * oy + m[9] * oz + m[13];
+        final float sz = m[2] * ox + m[6] * oy + m[10] * oz + m[14];
+        float wx = m[0] * dx + m[4] * dy + m[8] * dz;
+        float wy = m[1] * dx + m[5] * dy + m[9] * dz;
+        float wz = m[2] * dx + m[6] * dy + m[10] * dz;
+        final float len = (float) Math.sqrt(wx * wx + wy * wy + wz * wz);
+
+        if (len > 0)
+        {
+            wx /= len;
+            wy /= len;
+            wz /= len;
+        }
+        mRay[0] = sx;
+        mRay[1] = sy;
+        mRay[2] = sz;
+        mRay[3] = wx;
+        mRay[4] = wy;
+        mRay[5] = wz;
+    }
+
+    private void traverse()
+    {
+        final float[] bounds = mTree.getBounds();
+        final int[] order = mTree.getOrder();
+        final float ox = mRay[0], oy = mRay[1], oz = mRay[2];
+        final float idx = 1.0f / mRay[3];
+        final float idy = 1.0f / mRay[4];
+        final float idz = 1.0f / mRay[5];
+        int top = 0;
+        int node = 0;
+
+        if (!(BVHTree.hitBox(bounds, 0, ox, oy, oz, idx, idy, idz) < mClosestT))
+        {
+            return;
+        }
+        while (true)
+        {
+            final int count = mTree.getCount(node);
+            final int first = mTree.getFirst(node);
+            if (count > 0)
+            {
+                for (int i = first; i < first + count; ++i)
+                {
+                    test(mEntries[order[i]]);
+                }
+            }
+            else
+            {
+                final float tLeft = BVHTree.hitBox(bounds, first * 6, ox, oy, oz, idx, idy, idz);
+                final float tRight = BVHTree.hitBox(bounds, first * 6 + 6, ox, oy, oz, idx, idy, idz);
+                final boolean hitLeft = tLeft < mClosestT;
+                final boolean hitRight = tRight < mClosestT;
+
+                if (hitLeft && hitRight)
+                {
+                    mStack[top++] = (tLeft <= tRight) ? first + 1 : first;
+                    node = (tLeft <= tRight) ? first : first + 1;
+                    continue;
+                }
+                else if (hitLeft || hitRight)
+                {
+                    node = hitLeft ? first : first + 1;
+                    continue;
+                }
+            }
+            // Skip the nodes on the stack which are now behind a closer hit
+            node = -1;
+            while (top > 0)
+            {
+                final int next = mStack[--top];
+                if (BVHTree.hitBox(bounds, next * 6, ox, oy, oz, idx, idy, idz) < mClosestT)
+                {
+                    node = next;
+                    break;
+                }
+            }
+            if (node < 0)
+            {
+                break;
+            }
+        }
+    }
+
+    private void test(Entry e)
+    {
+        if (!e.isPickable())
+        {
+            return;
+        }
+        final GVRPickedObject hit = (e.mShape != null) ? hitMesh(e) : hitNative(e);
+        if (hit == null)
+        {
+            return;
+        }
+        final float pickDistance = e.mCollider.getPickDistance();
+        if ((pickDistance > 0) && (pickDistance < hit.hitDistance))
+        {
+            return;
+        }
+        if (mAllHits)
+        {
+            final int n = mHits.size();
+            if (n == mHitDistances.length)
+            {
+                mHitDistances = Arrays.copyOf(mHitDistances, n * 2);
+            }
+            mHitDistances[n] = mHitT;
+            mHits.add(hit);
+        }
+        else if (mHitT < mClosestT)
+        {
+            mClosest = hit;
+            mClosestT = mHitT;
+        }
+    }
+
+    /*
+     * Hit tests the triangles of a mesh collider in mesh coordinates.
+     */
+    private GVRPickedObject hitMesh(Entry e)
+    {
+        final Vector3f origin = mTemp.set(mRay[0], mRay[1], mRay[2]);
+        final Vector3f dir = mTempDir.set(mRay[3], mRay[4], mRay[5]);
+
+        e.mInverse.transformPosition(origin);
+        e.mInverse.transformDirection(dir);
+        final float scale = dir.length();
+        if (scale <= 0)
+        {
+            return null;
+        }
+        dir.div(scale);
+
+        final MeshShape shape = e.mShape;
+        final float[] hit = mTriangleHit;
+        final int face = shape.mTree.intersect(origin.x, origin.y, origin.z, dir.x, dir.y, dir.z,
+                                               mAllHits ? Float.POSITIVE_INFINITY : mClosestT * scale, hit);
+        if (face < 0)
+        {
+            return null;
+        }
+        final float distance = hit[0];
+        final float[] location = new float[] {
+                origin.x + dir.x * distance,
+                origin.y + dir.y * distance,
+                origin.z + dir.z * distance };
+
+        mHitT = distance / scale;
+        if (!e.mPickCoordinates)
+        {
+            return new GVRPickedObject(e.mCollider, location, distance);
+        }
+        final int[] indices = shape.mTree.getIndices();
+        final int i0 = indices[face * 3], i1 = indices[face * 3 + 1], i2 = indices[face * 3 + 2];
+        final float b0 = hit[1], b1 = hit[2], b2 = hit[3];
+        final float[] texCoords = new float[] { -1.0f, -1.0f };
+        final float[] normal = new float[] { 0, 0, 0 };
+
+        if (shape.mTexCoords != null)
+        {
+            for (int k = 0; k < 2; ++k)
+            {
+                texCoords[k] = shape.mTexCoords[i0 * 2 + k] * b0
+                             + shape.mTexCoords[i1 * 2 + k] * b1
+                             + shape.mTexCoords[i2 * 2 + k] * b2;
+            }
+        }
+        if (shape.mNormals != null)
+        {
+            for (int k = 0; k < 3; ++k)
+            {
+                normal[k] = shape.mNormals[i0 * 3 + k] * b0
+                          + shape.mNormals[i1 * 3 + k] * b1
+                          + shape.mNormals[i2 * 3 + k] * b2;
+            }
+        }
+        return new GVRPickedObject(e.mCollider, location, distance, face,
+                                   new float[] { b0, b1, b2 }, texCoords, normal);
+    }
+
+    /*
+     * Hit tests any other collider natively, with the world ray.
+     */
+    private GVRPickedObject hitNative(Entry e)
+    {
+        final GVRPickedObject hit = NativePicker.pickSceneObject(e.mOwner.getNative(),
+                mRay[0], mRay[1], mRay[2], mRay[3], mRay[4], mRay[5]);
+
+        if ((hit == null) || (hit.hitCollider == null) || Float.isInfinite(hit.hitDistance))
+        {
+            return null;
+        }
+        final float[] m = e.mMatrix;
+        final float[] p = hit.hitLocation;
+        final float wx = m[0] * p[0] + m[4] * p[1] + m[8] * p[2] + m[12] - mRay[0];
+        final float wy = m[1] * p[0] + m[5] * p[1] + m[9] * p[2] + m[13] - mRay[1];
+        final float wz = m[2] * p[0] + m[6] * p[1] + m[10] * p[2] + m[14] - mRay[2];
+
+        mHitT = wx * mRay[3] + wy * mRay[4] + wz * mRay[5];
+        return hit;
+    }
+
+    private void collect(GVRSceneObject sceneObj, List<Entry> entries)
+    {
+        final GVRComponent comp = sceneObj.getComponent(GVRCollider.getComponentType());
+
+        if (comp instanceof GVRCollider)
+        {
+            final Entry e = makeEntry((GVRCollider) comp, sceneObj);
+            if (e != null)
+            {
+                if (e.mLocalBounds != null)
+                {
+                    entries.add(e);
+                }
+                else
+                {
+                    mUnbounded.add(e);
+                }
+            }
+        }
+        for (GVRSceneObject child : sceneObj.getChildren())
+        {
+            collect(child, entries);
+        }
+    }
+
+    /*
+     * Makes the entry of a collider with its bounds in the coordinate
+     * system of its owner, computed like the native colliders do.
+     */
+    private Entry makeEntry(GVRCollider collider, GVRSceneObject owner)
+    {
+        final GVRRenderData rdata = owner.getRenderData();
+        final GVRMesh ownerMesh = (rdata != null) ? rdata.getMesh() : null;
+
+        if (collider instanceof GVRMeshCollider)
+        {
+            final GVRMeshCollider meshCollider = (GVRMeshCollider) collider;
+            final GVRMesh mesh = (meshCollider.getMesh() != null) ? meshCollider.getMesh() : ownerMesh;
+            if (mesh == null)
+            {
+                return null;
+            }
+            if (meshCollider.usesMeshBounds())
+            {
+                final float[] bounds = new float[6];
+                mesh.getBoxBound(bounds);
+                return new Entry(collider, owner, null, false, bounds);
+            }
+            MeshShape shape = mMeshShapes.get(mesh);
+            if (shape == null)
+            {
+                shape = new MeshShape(mesh);
+                mMeshShapes.put(mesh, shape);
+            }
+            return new Entry(collider, owner, shape, meshCollider.picksCoordinates(), shape.mBounds.clone());
+        }
+        else if (collider instanceof GVRSphereCollider)
+        {
+            final float[] sphere = new float[] { 0, 0, 0, ((GVRSphereCollider) collider).getRadius() };
+            if (ownerMesh != null)
+            {
+                final float radius = sphere[3];
+                ownerMesh.getSphereBound(sphere);
+                if (radius > 0)
+                {
+                    sphere[3] = radius;
+                }
+            }
+            if (sphere[3] <= 0)
+            {
+                sphere[3] = 1;
+            }
+            return new Entry(collider, owner, null, false, new float[] {
+                    sphere[0] - sphere[3], sphere[1] - sphere[3], sphere[2] - sphere[3],
+                    sphere[0] + sphere[3], sphere[1] + sphere[3], sphere[2] + sphere[3] });
+        }
+        else if (collider instanceof GVRBoxCollider)
+        {
+            final float[] half = new float[3];
+            ((GVRBoxCollider) collider).getHalfExtents(half);
+            return new Entry(collider, owner, null, false, new float[] {
+                    -half[0], -half[1], -half[2], half[0], half[1], half[2] });
+        }
+        return new Entry(collider, owner, null, false, null);
+    }
+
+    private void buildTree(float[] bounds)
+    {
+        mTree = new BVHTree(bounds, mEntries.length, 1);
+        final int numNodes = mTree.getNodeCount();
+
+        mLeafNode = new int[mEntries.length];
+        mParent = new int[numNodes];
+        mDirty = new boolean[numNodes];
+        mStack = new int[mTree.getMaxDepth() + 1];
+        mParent[0] = -1;
+        for (int n = 0; n < numNodes; ++n)
+        {
+            final int first = mTree.getFirst(n);
+            if (mTree.getCount(n) > 0)
+            {
+                mLeafNode[mTree.getOrder()[first]] = n;
+            }
+            else
+            {
+                mParent[first] = n;
+                mParent[first + 1] = n;
+            }
+        }
+        mBuildCost = mTree.getCost();
+    }
+
+    /*
+     * Rebuilds the top level from the current boxes of the colliders.
+     */
+    private void rebuildTree()
+    {
+        final float[] nodeBounds = mTree.getBounds();
+        final float[] bounds = new float[mEntries.length * 6];
+
+        for (int i = 0; i < mEntries.length; ++i)
+        {
+            System.arraycopy(nodeBounds, mLeafNode[i] * 6, bounds, i * 6, 6);
+        }
+        buildTree(bounds);
+    }
+}
@@ -28,6 +28,7 @@ import org.gearvrf.animation.GVRAnimationEngine;
 import org.gearvrf.animation.GVRMaterialAnimation;
 import org.gearvrf.animation.GVROnFinish;
 import org.gearvrf.debug.DebugServer;
+import org.gearvrf.debug.GVRFrameProfiler;
 import org.gearvrf.io.GVRInputManager;
 import org.gearvrf.periodic.GVRPeriodicEngine;
 import org.gearvrf.scene_objects.GVRTextViewSceneObject;
@@ -38,8 +39,10 @@ import org.gearvrf.utility.Threads;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -168,6 +171,9 @@ public abstract class GVRContext implements IEventReceiver {
     // Debug server
     protected DebugServer mDebugServer;
 
+    private final GVRFrameProfiler mFrameProfiler = new GVRFrameProfiler();
+    final Map<Class<?>, GVRBehaviorGroup<?>> mBehaviorGroups = new HashMap<Class<?>, GVRBehaviorGroup<?>>();
+
     protected GVRAssetLoader mImporter = new GVRAssetLoader(this);
     /*
      * Methods
@@ -339,6 +345,16 @@ public abstract class GVRContext implements IEventReceiver {
         return mDebugServer;
     }
 
+    /**
+     * Get the profiler which times the phases of each frame.
+     * It is disabled unless the {@code debug_stats} preference is set.
+     *
+     * @return The {@link GVRFrameProfiler} of this context.
+     */
+    public GVRFrameProfiler getFrameProfiler() {
+        return mFrameProfiler;
+    }
+
     /**
      * Logs an error by sending an error event to all listeners.
      * 
@@ -438,6 +454,10 @@ public abstract class GVRContext implements IEventReceiver {
      * Each frame listener is called, once per frame, after any pending
      * {@linkplain #runOnGlThread(Runnable) GL callbacks} and before
      * {@link GVRMain#onStep()}.
+     * Listeners are called in the order they were subscribed; subscribing
+     * a listener twice has no effect. The listener is first called on the
+     * frame after this call, or on the current frame if it is made from the
+     * GL thread before the listeners run.
      * 
      * @param frameListener
      *            A callback that will fire once per frame, until it is
@@ -453,7 +473,8 @@ public abstract class GVRContext implements IEventReceiver {
      * @param frameListener
      *            An instance of a {@link GVRDrawFrameListener} implementation.
      *            Unsubscribing a listener which is not actually subscribed will
-     *            not throw an exception.
+     *            not throw an exception. A listener removed while the frame
+     *            listeners are running is still called on that frame.
      */
     public abstract void unregisterDrawFrameListener(
             GVRDrawFrameListener frameListener);
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.WeakHashMap;
 
+import org.gearvrf.debug.GVRTrace;
 import org.gearvrf.script.IScriptManager;
 import org.gearvrf.script.IScriptFile;
 import org.gearvrf.script.IScriptable;
@@ -67,6 +68,28 @@ public class GVREventManager {
     protected static final int SEND_MASK_SCRIPTS = 0x4;
     public static final int SEND_MASK_ALL = SEND_MASK_OBJECT | SEND_MASK_LISTENERS | SEND_MASK_SCRIPTS;
 
+    /**
+     * Calls the handler of one event on objects implementing its
+     * interface, so the event can be delivered without reflection and
+     * without making a parameter array. An instance usually keeps the
+     * parameters in fields which are set before each event, and is
+     * reused for every event of its kind.
+     * @see #dispatchEvent(int, Object, Class, String, IEventDispatcher)
+     */
+    public interface IEventDispatcher<T extends IEvents> {
+        /**
+         * Calls the event handler of one object.
+         * @param handler object implementing the events interface
+         */
+        void dispatch(T handler);
+
+        /**
+         * Gets the parameters of the event for a script handler.
+         * This is only called if the target has a script attached.
+         */
+        Object[] getParams();
+    }
+
     GVREventManager(GVRContext gvrContext) {
         mGvrContext = gvrContext;
         mHandlerMethodCache = new WeakHashMap<Object, Map<String, Method>>();
@@ -115,6 +138,75 @@ public class GVREventManager {
 
     protected boolean sendEventWithMaskParamArray(int sendMask, Object target, Class<? extends IEvents> eventsClass,
             String eventName, Object[] params) {
+        final long traceStart = GVRTrace.begin();
+        try {
+            return deliverEvent(sendMask, target, eventsClass, eventName, params);
+        } finally {
+            GVRTrace.end(GVRTrace.CATEGORY_EVENT, eventName, traceStart);
+        }
+    }
+
+    /**
+     * Delivers an event like {@link #sendEventWithMask(int, Object, Class, String, Object...)}
+     * but calls Java handlers directly through a dispatcher. Nothing is
+     * allocated unless the target has a script, which gets the
+     * parameters from {@link IEventDispatcher#getParams()}.
+     *
+     * @param sendMask
+     *     Which of the target, its listeners and its scripts get the event.
+     * @param target
+     *     The object which handles the event.
+     * @param eventsClass
+     *     The interface class object representing the event group.
+     * @param eventName
+     *     The name of the event, used for scripts and tracing.
+     * @param dispatcher
+     *     Calls the event method on each handler.
+     * @return
+     *     {@code true} if the event is handled, {@code false} if not.
+     */
+    public <T extends IEvents> boolean dispatchEvent(int sendMask, Object target, Class<T> eventsClass,
+            String eventName, IEventDispatcher<T> dispatcher) {
+        final long traceStart = GVRTrace.begin();
+        boolean handledSuccessful = false;
+        try {
+            if (((sendMask & SEND_MASK_OBJECT) != 0) && eventsClass.isInstance(target)) {
+                dispatcher.dispatch(eventsClass.cast(target));
+                handledSuccessful = true;
+            }
+            if (((sendMask & SEND_MASK_LISTENERS) != 0) && (target instanceof IEventReceiver)) {
+                GVREventReceiver receiver = ((IEventReceiver) target).getEventReceiver();
+                List<IEvents> listeners = receiver.getListeners();
+
+                // Indexing avoids making an iterator for every event
+                for (int i = 0; i < listeners.size(); ++i) {
+                    IEvents listener;
+                    try {
+                        listener = listeners.get(i);
+                    } catch (IndexOutOfBoundsException e) {
+                        // Removed by another thread
+                        break;
+                    }
+                    if (!eventsClass.isInstance(listener) || receiver.getOwner() != target)
+                        continue;
+                    dispatcher.dispatch(eventsClass.cast(listener));
+                    handledSuccessful = true;
+                }
+            }
+            if (((sendMask & SEND_MASK_SCRIPTS) != 0) && (target instanceof IScriptable)) {
+                IScriptFile script = findScript((IScriptable) target);
+                if (script != null) {
+                    handledSuccessful |= script.invokeFunction(eventName, dispatcher.getParams());
+                }
+            }
+            return handledSuccessful;
+        } finally {
+            GVRTrace.end(GVRTrace.CATEGORY_EVENT, eventName, traceStart);
+        }
+    }
+
+    private boolean deliverEvent(int sendMask, Object target, Class<? extends IEvents> eventsClass,
+            String eventName, Object[] params) {
         // Set to true if an event is handled.
         boolean handledSuccessful = false;
 
@@ -295,18 +387,21 @@ public class GVREventManager {
 
     private boolean tryInvokeScript(IScriptable target, String eventName,
             Object[] params) {
-        IScriptManager sm = mGvrContext.getScriptManager();
-        if (sm == null) {
-            return false;
-        }
-
-        IScriptFile script = sm.getScriptFile(target);
+        IScriptFile script = findScript(target);
         if (script == null)
             return false;
 
         return script.invokeFunction(eventName, params);
     }
 
+    private IScriptFile findScript(IScriptable target) {
+        IScriptManager sm = mGvrContext.getScriptManager();
+        if (sm == null) {
+            return null;
+        }
+        return sm.getScriptFile(target);
+    }
+
     private void invokeMethod(Object target, Method method, Object[] params) {
         try {
             method.invoke(target, params);
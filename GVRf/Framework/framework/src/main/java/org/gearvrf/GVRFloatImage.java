@@ -99,8 +99,45 @@ public class GVRFloatImage extends GVRImage
         }
         NativeFloatImage.update(getNative(), width, height, 0, data);
     }
+
+    /**
+     * Copy some rows of new data to an existing floating-point texture.
+     * <p>
+     * Only the rows from {@code firstRow} to {@code firstRow + numRows}
+     * are uploaded to the GPU. The other rows must be unchanged since the
+     * last update, which must have had the same {@code width} and
+     * {@code height}; otherwise the whole texture is uploaded.
+     * Updates made before the texture is uploaded are combined.
+     *
+     * @param width
+     *            Texture width, in pixels
+     * @param height
+     *            Texture height, in pixels
+     * @param firstRow
+     *            First row which changed
+     * @param numRows
+     *            Number of rows which changed
+     * @param data
+     *            A linear array with all the rows of the texture
+     * @throws IllegalArgumentException
+     *             If {@code width} or {@code height} is {@literal <= 0,} or if
+     *             {@code data} is {@code null}, or if {@code data} is too
+     *             short, or if the rows are not in the texture
+     */
+    public void updateRows(int width, int height, int firstRow, int numRows, float[] data)
+            throws IllegalArgumentException
+    {
+        if ((width <= 0) || (height <= 0) ||
+            (data == null) || (data.length < height * width * mFloatsPerPixel) ||
+            (firstRow < 0) || (numRows <= 0) || (firstRow + numRows > height))
+        {
+            throw new IllegalArgumentException();
+        }
+        NativeFloatImage.updateRows(getNative(), width, height, firstRow, numRows, data);
+    }
 }
 
 class NativeFloatImage {
     static native void update(long pointer, int width, int height, int pixelFormat, float[] data);
+    static native void updateRows(long pointer, int width, int height, int firstRow, int numRows, float[] data);
 }
@@ -15,8 +15,13 @@
 
 package org.gearvrf;
 
+import android.graphics.Bitmap;
+
 import java.util.List;
 
+import static android.opengl.GLES20.GL_RGB;
+import static android.opengl.GLES20.GL_RGBA;
+
 
 /**
  * Describes an atlas of 2D images.
@@ -35,6 +40,22 @@ public class GVRImageAtlas extends GVRImage
         super(gvrContext, 0);
     }
 
+    /**
+     * Constructs an atlas from a bitmap containing all the sub-images.
+     *
+     * @param gvrContext Current {@link GVRContext}
+     * @param bitmap     A non-null {@link Bitmap} in ARGB_8888 or RGB_565 format;
+     *                   do *not* call recycle on the bitmap
+     * @param atlasInformation Location of each sub-image in the bitmap.
+     * @see GVRTextureAtlasBuilder
+     */
+    public GVRImageAtlas(GVRContext gvrContext, Bitmap bitmap, List<GVRAtlasInformation> atlasInformation)
+    {
+        super(gvrContext, NativeBitmapImage.constructor(ImageType.BITMAP.Value, bitmap.hasAlpha() ? GL_RGBA : GL_RGB));
+        NativeBitmapImage.updateFromBitmap(getNative(), bitmap, bitmap.hasAlpha(), bitmap.getConfig().name());
+        mAtlasInformation = atlasInformation;
+    }
+
     /**
      * Returns the list of atlas information necessary to map
      * the texture atlas to each scene object.
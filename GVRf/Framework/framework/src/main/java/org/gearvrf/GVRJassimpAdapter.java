@@ -263,6 +263,29 @@ class  GVRJassimpAdapter
         return mesh;
     }
 
+    /*
+     * Sparse blend shapes are only worth it when each shape
+     * moves a small part of the mesh, like the shapes of a face.
+     */
+    private boolean hasSparseBlendShapes(GVRMesh mesh, AiMesh aiMesh)
+    {
+        float[] base = mesh.getVertices();
+        long moved = 0;
+        long total = 0;
+
+        for (AiAnimMesh animMesh : aiMesh.getAnimationMeshes())
+        {
+            FloatBuffer positions = animMesh.getPositionBuffer();
+            if (positions == null)
+            {
+                continue;
+            }
+            moved += SparseBlendShapes.countMovedVertices(base, positions);
+            total += base.length / 3;
+        }
+        return (total > 0) && (moved <= SparseBlendShapes.MAX_SPARSE_FRACTION * total);
+    }
+
     public void setMeshMorphComponent(GVRMesh mesh, GVRSceneObject sceneObject, AiMesh aiMesh)
     {
         int nAnimationMeshes = aiMesh.getAnimationMeshes().size();
@@ -270,7 +293,8 @@ class  GVRJassimpAdapter
             return;
         try
         {
-            GVRMeshMorph morph = new GVRMeshMorph(mContext, nAnimationMeshes);
+            GVRMeshMorph morph = new GVRMeshMorph(mContext, nAnimationMeshes,
+                                                  hasSparseBlendShapes(mesh, aiMesh));
             sceneObject.attachComponent(morph);
             int blendShapeNum = 0;
 
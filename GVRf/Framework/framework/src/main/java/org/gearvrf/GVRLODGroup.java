@@ -18,7 +18,7 @@ package org.gearvrf;
 import org.gearvrf.utility.Log;
 import org.joml.Vector4f;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 
 /**
@@ -51,7 +51,7 @@ public final class GVRLODGroup extends GVRBehavior {
 
     private final Vector4f mCenter = new Vector4f();
     private final Vector4f mVector = new Vector4f();
-    private final LinkedList<Object[]> mRanges = new LinkedList<>();
+    private final ArrayList<Object[]> mRanges = new ArrayList<>();
 
     /**
      * Add a range to this LOD group. Specify the scene object that should be displayed in this
@@ -93,21 +93,58 @@ public final class GVRLODGroup extends GVRBehavior {
         }
     }
 
+    /**
+     * Selects the level of detail of all the LOD groups of a context,
+     * fetching the camera position once per frame.
+     */
+    static final class Group extends GVRBehaviorGroup<GVRLODGroup> {
+        private final Vector4f mCamera = new Vector4f();
+
+        Group(GVRContext gvrContext) {
+            super(gvrContext, GVRLODGroup.class);
+        }
+
+        @Override
+        protected void beginFrame(float frameTime) {
+            final GVRTransform t = getGVRContext().getMainScene().getMainCameraRig().getCenterCamera().getTransform();
+            mCamera.set(t.getPositionX(), t.getPositionY(), t.getPositionZ(), 1.0f);
+        }
+
+        @Override
+        protected void updateAll(float frameTime, GVRLODGroup[] instances, int start, int end) {
+            for (int i = start; i < end; ++i) {
+                instances[i].selectRange(mCamera.x, mCamera.y, mCamera.z);
+            }
+        }
+    }
+
+    /**
+     * LOD groups are updated together by a {@link GVRBehaviorGroup}.
+     */
+    @Override
+    protected GVRBehaviorGroup<?> getBehaviorGroup() {
+        return GVRBehaviorGroup.get(getGVRContext(), Group.class);
+    }
+
     /**
      * Do not call directly.
      * @deprecated
      */
     public void onDrawFrame(float frameTime) {
+        final GVRTransform t = getGVRContext().getMainScene().getMainCameraRig().getCenterCamera().getTransform();
+        selectRange(t.getPositionX(), t.getPositionY(), t.getPositionZ());
+    }
+
+    private void selectRange(float cameraX, float cameraY, float cameraZ) {
         final GVRSceneObject owner = getOwnerObject();
         if (owner == null) {
             return;
         }
 
         final int size = mRanges.size();
-        final GVRTransform t = getGVRContext().getMainScene().getMainCameraRig().getCenterCamera().getTransform();
 
-        for (final Object[] range : mRanges) {
-            ((GVRSceneObject)range[1]).setEnable(false);
+        for (int i = 0; i < size; ++i) {
+            ((GVRSceneObject)mRanges.get(i)[1]).setEnable(false);
         }
 
         for (int i = size - 1; i >= 0; --i) {
@@ -120,7 +157,7 @@ public final class GVRLODGroup extends GVRBehavior {
 
             final float[] values = child.getBoundingVolumeRawValues();
             mCenter.set(values[0], values[1], values[2], 1.0f);
-            mVector.set(t.getPositionX(), t.getPositionY(), t.getPositionZ(), 1.0f);
+            mVector.set(cameraX, cameraY, cameraZ, 1.0f);
 
             mVector.sub(mCenter);
             mVector.negate();
@@ -19,6 +19,7 @@ import org.gearvrf.shaders.GVRColorBlendShader;
 import org.gearvrf.shaders.GVRColorShader;
 import org.gearvrf.shaders.GVRCubemapReflectionShader;
 import org.gearvrf.shaders.GVRCubemapShader;
+import org.gearvrf.shaders.GVRDistanceFieldTextShader;
 import org.gearvrf.shaders.GVRHorizontalFlipShader;
 import org.gearvrf.shaders.GVRLightmapShader;
 import org.gearvrf.shaders.GVROESHorizontalStereoShader;
@@ -144,6 +145,10 @@ public class GVRMaterial extends  GVRShaderData
             public static final GVRShaderId ID = new GVRShaderId(GVRColorBlendShader.class);
         }
 
+        public abstract static class DistanceFieldText {
+            public static final GVRShaderId ID = new GVRShaderId(GVRDistanceFieldTextShader.class);
+        }
+
     };
 
     /**
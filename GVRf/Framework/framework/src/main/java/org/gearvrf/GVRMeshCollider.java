@@ -34,6 +34,8 @@ package org.gearvrf;
  */
 public class GVRMeshCollider extends GVRCollider {
     private GVRMesh mMesh;
+    private final boolean mUseMeshBounds;
+    private final boolean mPickCoordinates;
 
     /**
      * Constructor to make mesh collider and attach a mesh.
@@ -50,6 +52,8 @@ public class GVRMeshCollider extends GVRCollider {
     public GVRMeshCollider(GVRContext gvrContext, GVRMesh mesh) {
         super(gvrContext, NativeMeshCollider.ctorMesh(mesh.getNative()));
         mMesh = mesh;
+        mUseMeshBounds = false;
+        mPickCoordinates = false;
     }
 
     /**
@@ -68,6 +72,8 @@ public class GVRMeshCollider extends GVRCollider {
     public GVRMeshCollider(GVRContext gvrContext, GVRMesh mesh, boolean pickCoordinates) {
         super(gvrContext, NativeMeshCollider.ctorMeshPicking((mesh != null) ? mesh.getNative() : 0L, pickCoordinates));
         mMesh = mesh;
+        mUseMeshBounds = false;
+        mPickCoordinates = pickCoordinates;
     }
 
     /**
@@ -88,6 +94,8 @@ public class GVRMeshCollider extends GVRCollider {
      */
     public GVRMeshCollider(GVRContext gvrContext, boolean useMeshBounds) {
         super(gvrContext, NativeMeshCollider.ctor(useMeshBounds));
+        mUseMeshBounds = useMeshBounds;
+        mPickCoordinates = false;
     }
 
     /**
@@ -124,6 +132,22 @@ public class GVRMeshCollider extends GVRCollider {
         mMesh = mesh;
         NativeMeshCollider.setMesh(getNative(), mesh.getNative());
     }
+
+    /**
+     * Determine whether the bounding box of the mesh is hit
+     * instead of its triangles.
+     */
+    boolean usesMeshBounds() {
+        return mUseMeshBounds;
+    }
+
+    /**
+     * Determine whether hits on this collider report the face,
+     * barycentric, texture and normal coordinates.
+     */
+    boolean picksCoordinates() {
+        return mPickCoordinates;
+    }
 }
 
 class NativeMeshCollider {
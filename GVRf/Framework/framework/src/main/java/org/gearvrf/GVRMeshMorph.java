@@ -58,6 +58,13 @@ import static android.opengl.GLES30.GL_RGB32F;
  * The blend shape texture is put in the <b>blendShapeTexture</b> sampler
  * in the vertex shader. The blend weights are in the <b>u_blendweights</b> uniform.
  * </p>
+ * A sparse morph keeps only the vertices each blend shape moves and
+ * sums the shapes with a weight which is not zero on the CPU.
+ * Its texture has a single blend shape, the weighted sum, with a
+ * weight of one. When weights change, only the rows of the vertices
+ * moved by those shapes are computed again and uploaded. This suits
+ * rigs with many shapes which each move a small part of the mesh,
+ * like faces, and has no limit on the number of blend shapes.
  */
 public class GVRMeshMorph extends GVRBehavior
 {
@@ -77,6 +84,9 @@ public class GVRMeshMorph extends GVRBehavior
     protected String[] descriptors = new String[2];
     protected float[] mBaseBlendShape;
     protected GVRVertexBuffer mbaseShape;
+    final protected boolean mSparse;
+    private SparseBlendShapes mSparseShapes;
+    private final float[] mSparseWeights = { 1.0f };
 
     /**
      * Construct a morph to a scene object with a base mesh.
@@ -84,6 +94,18 @@ public class GVRMeshMorph extends GVRBehavior
      * @param numBlendShapes number of blend shapes to be set.
      */
     public GVRMeshMorph(GVRContext ctx, int numBlendShapes)
+    {
+        this(ctx, numBlendShapes, false);
+    }
+
+    /**
+     * Construct a morph to a scene object with a base mesh.
+     * @param ctx  The current GVRF context.
+     * @param numBlendShapes number of blend shapes to be set.
+     * @param sparse true to store the blend shapes sparsely and
+     *               sum them on the CPU, false to sum them in the shader.
+     */
+    public GVRMeshMorph(GVRContext ctx, int numBlendShapes, boolean sparse)
     {
         super(ctx, 0);
 
@@ -93,6 +115,7 @@ public class GVRMeshMorph extends GVRBehavior
         {
             throw new IllegalArgumentException("Number of blend shapes must be positive");
         }
+        mSparse = sparse;
         mFloatsPerVertex = 0;
         mTexWidth = 0; // 3 floats for position
     }
@@ -130,17 +153,35 @@ public class GVRMeshMorph extends GVRBehavior
             throw new IllegalStateException("Scene object shader does not support morphing");
         }
         copyBaseShape(mesh.getVertexBuffer());
-        mtl.setInt("u_numblendshapes", mNumBlendShapes);
-        mtl.setFloatArray("u_blendweights", mWeights);
+        if (mSparse)
+        {
+            mtl.setInt("u_numblendshapes", 1);
+            mtl.setFloatArray("u_blendweights", mSparseWeights);
+        }
+        else
+        {
+            mtl.setInt("u_numblendshapes", mNumBlendShapes);
+            mtl.setFloatArray("u_blendweights", mWeights);
+        }
     }
 
     public void onDetach(GVRSceneObject sceneObj)
     {
         mBlendShapeDiffs = null;
+        mSparseShapes = null;
         mBaseBlendShape = null;
         mNumVerts = 0;
     }
 
+    /**
+     * Determine whether the blend shapes are stored sparsely
+     * and summed on the CPU.
+     */
+    public boolean isSparse()
+    {
+        return mSparse;
+    }
+
     protected void copyBaseShape(GVRVertexBuffer baseShape)
     {
         String baseDescriptor = baseShape.getDescriptor();
@@ -162,10 +203,18 @@ public class GVRMeshMorph extends GVRBehavior
         {
             throw new IllegalArgumentException("Base shape has no vertices");
         }
-        mTexWidth = mFloatsPerVertex*mNumBlendShapes;
         mBaseBlendShape = new float[mFloatsPerVertex * mNumVerts];
         mWeights = new float[mNumBlendShapes];
-        mBlendShapeDiffs = new float[mTexWidth * mNumVerts];
+        if (mSparse)
+        {
+            mTexWidth = mFloatsPerVertex;
+            mSparseShapes = new SparseBlendShapes(mNumBlendShapes, mNumVerts, mFloatsPerVertex);
+        }
+        else
+        {
+            mTexWidth = mFloatsPerVertex*mNumBlendShapes;
+            mBlendShapeDiffs = new float[mTexWidth * mNumVerts];
+        }
 
         copyBaseAttribute(baseShape, "a_position", 0);
         if ((mDescriptorFlags & HAS_NORMAL) != 0)
@@ -193,6 +242,11 @@ public class GVRMeshMorph extends GVRBehavior
     }
 
     protected void copyBlendShape(int shapeofs, int baseofs, float[] vec3data)
+    {
+        copyBlendShape(mBlendShapeDiffs, mTexWidth, shapeofs, baseofs, vec3data);
+    }
+
+    private void copyBlendShape(float[] diffs, int stride, int shapeofs, int baseofs, float[] vec3data)
     {
         if (mBaseBlendShape == null)
         {
@@ -205,10 +259,10 @@ public class GVRMeshMorph extends GVRBehavior
         for (int i = 0; i < mNumVerts; ++i)
         {
             int b = i * mFloatsPerVertex + baseofs;
-            int s = i * mTexWidth + shapeofs;
-            mBlendShapeDiffs[s] = (vec3data[i * 3] - mBaseBlendShape[b]);
-            mBlendShapeDiffs[s + 1] = (vec3data[i * 3 + 1] - mBaseBlendShape[b + 1]);
-            mBlendShapeDiffs[s + 2] = (vec3data[i * 3 + 2] - mBaseBlendShape[b + 2]);
+            int s = i * stride + shapeofs;
+            diffs[s] = (vec3data[i * 3] - mBaseBlendShape[b]);
+            diffs[s + 1] = (vec3data[i * 3 + 1] - mBaseBlendShape[b + 1]);
+            diffs[s + 2] = (vec3data[i * 3 + 2] - mBaseBlendShape[b + 2]);
         }
     }
 
@@ -222,11 +276,25 @@ public class GVRMeshMorph extends GVRBehavior
         return mWeights;
     }
 
+    /**
+     * Set the blend weights.
+     * <p>
+     * A sparse morph sums the shapes whose weight changed again
+     * and uploads the rows they move right away.
+     * @param weights one weight per blend shape
+     */
     public void setWeights(float[] weights)
     {
         GVRMaterial mtl = getMaterial();
         System.arraycopy(weights, 0, mWeights, 0, mWeights.length);
-        if (mtl != null)
+        if (mSparseShapes != null)
+        {
+            if (mSparseShapes.setWeights(mWeights))
+            {
+                update();
+            }
+        }
+        else if (mtl != null)
         {
             mtl.setFloatArray("u_blendweights", mWeights);
         }
@@ -251,8 +319,16 @@ public class GVRMeshMorph extends GVRBehavior
     {
         int shapeDescriptorFlags = 0;
         String shapeDescriptor = vbuf.getDescriptor();
+        float[] diffs = mBlendShapeDiffs;
+        int shapeofs = index * mFloatsPerVertex;
 
-        copyBlendShape(index * mFloatsPerVertex, 0, vbuf.getFloatArray("a_position"));
+        if (mSparse)
+        {
+            // Copy the shape densely, then keep only what it moves
+            diffs = new float[mTexWidth * mNumVerts];
+            shapeofs = 0;
+        }
+        copyBlendShape(diffs, mTexWidth, shapeofs, 0, vbuf.getFloatArray("a_position"));
         if (shapeDescriptor.contains("a_normal"))
         {
             shapeDescriptorFlags |= HAS_NORMAL;
@@ -267,11 +343,15 @@ public class GVRMeshMorph extends GVRBehavior
         }
         if ((shapeDescriptorFlags & HAS_NORMAL) != 0)
         {
-            copyBlendShape(index * mFloatsPerVertex + 3, 3, vbuf.getFloatArray("a_normal"));
+            copyBlendShape(diffs, mTexWidth, shapeofs + 3, 3, vbuf.getFloatArray("a_normal"));
         }
         if ((shapeDescriptorFlags & HAS_TANGENT) != 0)
         {
-            copyBlendShape(index * mFloatsPerVertex + 6, 6, vbuf.getFloatArray("a_tangent"));
+            copyBlendShape(diffs, mTexWidth, shapeofs + 6, 6, vbuf.getFloatArray("a_tangent"));
+        }
+        if (mSparse)
+        {
+            mSparseShapes.setShape(index, diffs);
         }
     }
 
@@ -291,13 +371,20 @@ public class GVRMeshMorph extends GVRBehavior
         return mNumBlendShapes;
     }
 
+    /**
+     * Upload the blend shapes to the blend shape texture.
+     * <p>
+     * A sparse morph only uploads the rows which changed since
+     * its last update.
+     * @return false if the morph is not attached to a mesh with a material
+     */
     public boolean update()
     {
         GVRTexture blendshapeTex;
         GVRFloatImage blendshapeImage;
         GVRMaterial mtl = getMaterial();
 
-        if ((mBlendShapeDiffs == null) || (mtl == null))
+        if (((mBlendShapeDiffs == null) && (mSparseShapes == null)) || (mtl == null))
         {
             return false;
         }
@@ -305,6 +392,18 @@ public class GVRMeshMorph extends GVRBehavior
         {
             blendshapeTex = mtl.getTexture("blendshapeTexture");
             blendshapeImage = (GVRFloatImage) blendshapeTex.getImage();
+            if (mSparseShapes != null)
+            {
+                mSparseShapes.accumulate();
+                int first = mSparseShapes.getDirtyBegin();
+                int numRows = mSparseShapes.getDirtyEnd() - first;
+                if (numRows > 0)
+                {
+                    blendshapeImage.updateRows(mTexWidth / 3, mNumVerts, first, numRows,
+                                               mSparseShapes.getAccumulated());
+                }
+                return true;
+            }
         }
         else
         {
@@ -316,7 +415,16 @@ public class GVRMeshMorph extends GVRBehavior
             blendshapeTex.setImage(blendshapeImage);
             mtl.setTexture("blendshapeTexture", blendshapeTex);
         }
-        blendshapeImage.update(mTexWidth / 3, mNumVerts, mBlendShapeDiffs);
+        if (mSparseShapes != null)
+        {
+            mSparseShapes.markAll();
+            mSparseShapes.accumulate();
+            blendshapeImage.update(mTexWidth / 3, mNumVerts, mSparseShapes.getAccumulated());
+        }
+        else
+        {
+            blendshapeImage.update(mTexWidth / 3, mNumVerts, mBlendShapeDiffs);
+        }
         return true;
     }
 
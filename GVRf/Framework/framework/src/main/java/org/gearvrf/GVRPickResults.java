@@ -0,0 +1,315 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.Arrays;
+
+/**
+ * The hits of one pick kept in parallel arrays, which are reused
+ * from pick to pick and can be read without making a
+ * {@link GVRPicker.GVRPickedObject} and its arrays for every hit.
+ * <p>
+ * A picker with pooled results owns one of these and fills it every
+ * time it queries the scene. Its contents are only valid until the
+ * next pick of that picker, which happens on the rendering thread.
+ * Read it from a pick or touch event handler, or copy what is needed.
+ * The hits are sorted by increasing distance from the ray origin.
+ * <p>
+ * The picked objects the picker gives its pick events are reused
+ * in the same way, see {@link GVRPicker#setPooledResults(boolean)}.
+ * @see GVRPicker#setPooledResults(boolean)
+ * @see GVRPicker#getPickResults()
+ */
+public final class GVRPickResults
+{
+    // Distance, hit position, barycentric, texture and normal coordinates
+    static final int FLOATS_PER_HIT = 12;
+    // Face index, 1 if the mesh coordinates were computed
+    static final int INTS_PER_HIT = 2;
+
+    private int mCount = 0;
+    private int mUsed = 0;
+    private long[] mPointers = new long[4];
+    private long[] mResolved = new long[4];
+    private GVRCollider[] mColliders = new GVRCollider[4];
+    private float[] mFloats = new float[4 * FLOATS_PER_HIT];
+    private int[] mInts = new int[4 * INTS_PER_HIT];
+    private final PickedObjectPool mPool = new PickedObjectPool();
+    private GVRPicker.GVRPickedObject[] mPicked = null;
+
+    /**
+     * Gets the number of hits.
+     */
+    public int getCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * Gets the collider of a hit.
+     * @param i index of the hit, less than {@link #getCount()}
+     */
+    public GVRCollider getCollider(int i)
+    {
+        return mColliders[i];
+    }
+
+    /**
+     * Gets the scene object which owns the collider of a hit.
+     * @param i index of the hit, less than {@link #getCount()}
+     */
+    public GVRSceneObject getHitObject(int i)
+    {
+        return mColliders[i].getOwnerObject();
+    }
+
+    /**
+     * Gets the distance from the origin of the pick ray to a hit.
+     * @param i index of the hit, less than {@link #getCount()}
+     */
+    public float getDistance(int i)
+    {
+        return mFloats[i * FLOATS_PER_HIT];
+    }
+
+    /**
+     * Copies the location of a hit in the coordinates of the collider.
+     * @param i     index of the hit, less than {@link #getCount()}
+     * @param dest  receives x, y, z
+     */
+    public void getHitLocation(int i, float[] dest)
+    {
+        System.arraycopy(mFloats, i * FLOATS_PER_HIT + 1, dest, 0, 3);
+    }
+
+    /**
+     * Determines whether the face index and the barycentric, texture
+     * and normal coordinates of a hit were computed, which only
+     * happens for a {@link GVRMeshCollider} picking coordinates.
+     * @param i index of the hit, less than {@link #getCount()}
+     */
+    public boolean hasMeshCoords(int i)
+    {
+        return mInts[i * INTS_PER_HIT + 1] != 0;
+    }
+
+    /**
+     * Gets the index of the face hit, -1 if it was not computed.
+     * @param i index of the hit, less than {@link #getCount()}
+     */
+    public int getFaceIndex(int i)
+    {
+        return mInts[i * INTS_PER_HIT];
+    }
+
+    /**
+     * Copies the barycentric coordinates of a hit on the face hit.
+     * @param i     index of the hit, less than {@link #getCount()}
+     * @param dest  receives three coordinates
+     * @see #hasMeshCoords(int)
+     */
+    public void getBarycentricCoords(int i, float[] dest)
+    {
+        System.arraycopy(mFloats, i * FLOATS_PER_HIT + 4, dest, 0, 3);
+    }
+
+    /**
+     * Copies the texture coordinates of a hit.
+     * @param i     index of the hit, less than {@link #getCount()}
+     * @param dest  receives u, v
+     * @see #hasMeshCoords(int)
+     */
+    public void getTextureCoords(int i, float[] dest)
+    {
+        System.arraycopy(mFloats, i * FLOATS_PER_HIT + 7, dest, 0, 2);
+    }
+
+    /**
+     * Copies the surface normal at a hit, in the coordinates of the mesh.
+     * @param i     index of the hit, less than {@link #getCount()}
+     * @param dest  receives x, y, z
+     * @see #hasMeshCoords(int)
+     */
+    public void getNormalCoords(int i, float[] dest)
+    {
+        System.arraycopy(mFloats, i * FLOATS_PER_HIT + 9, dest, 0, 3);
+    }
+
+    /*
+     * Picks the scene natively into the arrays. The caller must hold
+     * the picker lock. Hits whose collider has no Java object are dropped,
+     * as the picker does when it makes picked objects.
+     */
+    void pick(GVRScene scene, GVRTransform trans, float ox, float oy, float oz,
+              float dx, float dy, float dz, boolean closest)
+    {
+        final long scenePtr = scene.getNative();
+        final long transPtr = (trans != null) ? trans.getNative() : 0L;
+        int n = NativePicker.pickInto(scenePtr, transPtr, ox, oy, oz, dx, dy, dz,
+                                      closest, mPointers, mFloats, mInts);
+
+        if (n > mPointers.length)
+        {
+            grow(n);
+            n = NativePicker.pickInto(scenePtr, transPtr, ox, oy, oz, dx, dy, dz,
+                                      closest, mPointers, mFloats, mInts);
+            if (n > mPointers.length)
+            {
+                // Nothing was written, the scene changed in between
+                n = 0;
+            }
+        }
+        mCount = 0;
+        mPicked = null;
+        for (int i = 0; i < n; ++i)
+        {
+            final GVRCollider collider = resolve(i);
+            if (collider == null)
+            {
+                continue;
+            }
+            if (mCount != i)
+            {
+                mPointers[mCount] = mPointers[i];
+                mResolved[mCount] = mPointers[i];
+                mColliders[mCount] = collider;
+                System.arraycopy(mFloats, i * FLOATS_PER_HIT, mFloats, mCount * FLOATS_PER_HIT, FLOATS_PER_HIT);
+                System.arraycopy(mInts, i * INTS_PER_HIT, mInts, mCount * INTS_PER_HIT, INTS_PER_HIT);
+            }
+            ++mCount;
+        }
+        mUsed = Math.max(mUsed, n);
+        clearColliders(mCount);
+    }
+
+    /*
+     * Copies picked objects made by another picker, such as a
+     * collider hierarchy, into the arrays.
+     */
+    void set(GVRPicker.GVRPickedObject[] picked)
+    {
+        final int n = (picked != null) ? picked.length : 0;
+
+        mCount = 0;
+        mPicked = null;
+        if (n > mPointers.length)
+        {
+            grow(n);
+        }
+        for (int i = 0; i < n; ++i)
+        {
+            final GVRPicker.GVRPickedObject hit = picked[i];
+            if ((hit == null) || (hit.hitCollider == null))
+            {
+                continue;
+            }
+            final int f = mCount * FLOATS_PER_HIT;
+            final int k = mCount * INTS_PER_HIT;
+            final boolean hasCoords = hit.barycentricCoords != null;
+
+            mPointers[mCount] = hit.hitCollider.getNative();
+            mResolved[mCount] = mPointers[mCount];
+            mColliders[mCount] = hit.hitCollider;
+            Arrays.fill(mFloats, f, f + FLOATS_PER_HIT, -1.0f);
+            mFloats[f] = hit.hitDistance;
+            System.arraycopy(hit.hitLocation, 0, mFloats, f + 1, 3);
+            if (hasCoords)
+            {
+                System.arraycopy(hit.barycentricCoords, 0, mFloats, f + 4, 3);
+                System.arraycopy(hit.textureCoords, 0, mFloats, f + 7, 2);
+                System.arraycopy(hit.normalCoords, 0, mFloats, f + 9, 3);
+            }
+            mInts[k] = hasCoords ? hit.faceIndex : -1;
+            mInts[k + 1] = hasCoords ? 1 : 0;
+            ++mCount;
+        }
+        mUsed = Math.max(mUsed, n);
+        clearColliders(mCount);
+    }
+
+    /*
+     * Describes the hits with reusable picked objects for the pick
+     * events. They are only filled in once per pick: until the next
+     * pick the same array is returned.
+     * @see PickedObjectPool
+     */
+    GVRPicker.GVRPickedObject[] getPickedObjects()
+    {
+        if (mPicked == null)
+        {
+            final GVRPicker.GVRPickedObject[] picked = mPool.next(mCount);
+
+            for (int i = 0; i < mCount; ++i)
+            {
+                picked[i].set(mColliders[i], mFloats, i * FLOATS_PER_HIT,
+                              getFaceIndex(i), hasMeshCoords(i));
+            }
+            mPicked = picked;
+        }
+        return mPicked;
+    }
+
+    void clear()
+    {
+        mCount = 0;
+        mPicked = null;
+        clearColliders(0);
+    }
+
+    /*
+     * Finds the Java collider of a hit. The collider found for the same
+     * slot by the previous pick is kept, which saves looking it up in the
+     * collider table for hits that stay the same from frame to frame.
+     * Holding the collider keeps its native object and pointer alive.
+     */
+    private GVRCollider resolve(int i)
+    {
+        final long ptr = mPointers[i];
+
+        if ((mColliders[i] != null) && (mResolved[i] == ptr))
+        {
+            return mColliders[i];
+        }
+        final GVRCollider collider = GVRCollider.lookup(ptr);
+        mResolved[i] = ptr;
+        mColliders[i] = collider;
+        return collider;
+    }
+
+    /*
+     * Drops the colliders past the hits so they can be collected.
+     */
+    private void clearColliders(int from)
+    {
+        for (int i = from; i < mUsed; ++i)
+        {
+            mColliders[i] = null;
+            mResolved[i] = 0;
+        }
+        mUsed = from;
+    }
+
+    private void grow(int n)
+    {
+        final int size = Math.max(n, mPointers.length * 2);
+
+        mPointers = Arrays.copyOf(mPointers, size);
+        mResolved = Arrays.copyOf(mResolved, size);
+        mColliders = Arrays.copyOf(mColliders, size);
+        mFloats = Arrays.copyOf(mFloats, size * FLOATS_PER_HIT);
+        mInts = Arrays.copyOf(mInts, size * INTS_PER_HIT);
+    }
+}
@@ -88,6 +88,28 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     protected GVREventReceiver mListeners = null;
     protected Lock mPickEventLock = new ReentrantLock();
     protected boolean mPickListChanged = false;
+    protected GVRColliderBVH mColliderBVH = null;
+
+    // Result of the last scene query and what it depended on
+    private boolean mPickCacheEnabled = true;
+    private float mPickCacheThreshold = 0;
+    private volatile int mPickCacheInvalidations = 0;
+    private int mPickCacheSeen = -1;
+    private long mPickCacheState = 0;
+    private GVRScene mPickCacheScene = null;
+    private GVRColliderBVH mPickCacheBVH = null;
+    private int mPickCacheBVHVersion = 0;
+    private boolean mPickCacheClosest = false;
+    private GVRPickedObject[] mPickCache = null;
+    private final float[] mPickCacheRay = new float[6];
+    private final float[] mWorldRay = new float[6];
+    private int mPicksSkipped = 0;
+    private int mPicksPerformed = 0;
+    private boolean mPickCacheFilled = false;
+    private volatile boolean mPooledResults = false;
+    private GVRPickResults mResults = null;
+    private final TouchDispatcher mTouchDispatcher = new TouchDispatcher(this);
+    private final PickDispatcher mPickDispatcher = new PickDispatcher();
     protected EnumSet<EventOptions> mEventOptions = EnumSet.of(
             EventOptions.SEND_PICK_EVENTS,
             EventOptions.SEND_TO_SCENE,
@@ -301,6 +323,7 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     public void setScene(GVRScene scene)
     {
         mScene = scene;
+        invalidatePickCache();
     }
 
     /**
@@ -479,6 +502,172 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         mPickClosest = flag;
     }
 
+    /**
+     * Get the collider hierarchy the picker picks against.
+     * @return {@link GVRColliderBVH} or null if the picker
+     *         tests the colliders natively.
+     * @see #setColliderBVH(GVRColliderBVH)
+     */
+    public GVRColliderBVH getColliderBVH() { return mColliderBVH; }
+
+    /**
+     * Pick against a bounding volume hierarchy of the colliders
+     * instead of testing every collider in the scene natively.
+     * <p>
+     * The hierarchy is only used while it is built for the scene
+     * of the picker. It is not refitted by the picker; register it
+     * as a frame listener to keep it up to date with the scene.
+     * @param bvh collider hierarchy, null to test colliders natively
+     * @see GVRColliderBVH
+     */
+    public void setColliderBVH(GVRColliderBVH bvh)
+    {
+        mColliderBVH = bvh;
+    }
+
+    /**
+     * Enables or disables reusing the last pick result.
+     * <p>
+     * Before picking, the picker checks whether anything the pick
+     * depends on has changed since the last pick: the pick ray in world
+     * coordinates, and the colliders in the scene with their enable
+     * state, owner, shape, mesh, vertices and transform. Changes are
+     * tracked per scene as they are made, and only changes to scene
+     * objects which own a collider or to their ancestors count, so the
+     * check does not depend on the number of colliders and a moving
+     * camera does not defeat it. If nothing changed, the last result
+     * is used again without querying the scene. Pick and touch events
+     * are generated every frame as usual, with the same
+     * {@link GVRPickedObject} instances as the last pick.
+     * <p>
+     * Changes the scene cannot see, such as the bounds of a mesh whose
+     * vertices were edited, are not detected. Call
+     * {@link #invalidatePickCache()} after making them.
+     * @param enable true to reuse pick results (the default)
+     * @see #setPickCacheThreshold(float)
+     * @see #getSkippedPickCount()
+     */
+    public void setPickCacheEnabled(boolean enable)
+    {
+        mPickCacheEnabled = enable;
+        invalidatePickCache();
+    }
+
+    public boolean isPickCacheEnabled()
+    {
+        return mPickCacheEnabled;
+    }
+
+    /**
+     * Sets how far the pick ray may move before the scene is
+     * queried again, if nothing else changed. The origin of the
+     * ray may move this distance in world units and each component
+     * of its direction may change by this much. With a threshold
+     * of zero (the default) only an identical ray reuses the last result;
+     * a small threshold ignores the jitter of a tracked controller,
+     * at the expense of hits that lag behind slightly.
+     * @param threshold largest change ignored, zero or more
+     */
+    public void setPickCacheThreshold(float threshold)
+    {
+        mPickCacheThreshold = Math.max(0, threshold);
+    }
+
+    public float getPickCacheThreshold()
+    {
+        return mPickCacheThreshold;
+    }
+
+    /**
+     * Forces the next pick to query the scene.
+     * @see #setPickCacheEnabled(boolean)
+     */
+    public synchronized void invalidatePickCache()
+    {
+        ++mPickCacheInvalidations;
+    }
+
+    /**
+     * Gets the number of picks which reused the previous result
+     * since the counters were reset.
+     * @see #getPerformedPickCount()
+     * @see #resetPickCounts()
+     */
+    public int getSkippedPickCount()
+    {
+        return mPicksSkipped;
+    }
+
+    /**
+     * Gets the number of picks which queried the scene
+     * since the counters were reset.
+     * @see #getSkippedPickCount()
+     * @see #resetPickCounts()
+     */
+    public int getPerformedPickCount()
+    {
+        return mPicksPerformed;
+    }
+
+    public void resetPickCounts()
+    {
+        mPicksSkipped = 0;
+        mPicksPerformed = 0;
+    }
+
+    /**
+     * Sets whether the picker reuses its pick results instead of
+     * making new ones every frame.
+     * <p>
+     * With pooled results the picker picks natively into a
+     * {@link GVRPickResults} owned by it, whose arrays are reused
+     * from pick to pick, instead of making every hit in the native
+     * code and calling back into Java for it. The pick and touch events
+     * get a {@link GVRPickedObject} for each hit which the picker fills
+     * in again later: the objects of one scene query are reused by the
+     * query after next. While the hits stay the same, picking and
+     * delivering the events does not allocate.
+     * <p>
+     * A handler which keeps a picked object after the event, as an
+     * {@link ITouchEvents} handler may do between the start and end of
+     * a touch, must copy it with
+     * {@link GVRPickedObject#GVRPickedObject(GVRPickedObject)}.
+     * This is why pooling is off by default. A picker using a
+     * {@link GVRColliderBVH} still allocates inside the hierarchy.
+     * @param pooled true to reuse pick results
+     * @see #getPickResults()
+     */
+    public void setPooledResults(boolean pooled)
+    {
+        synchronized (this)
+        {
+            if (pooled && (mResults == null))
+            {
+                mResults = new GVRPickResults();
+            }
+            mPooledResults = pooled;
+        }
+        invalidatePickCache();
+    }
+
+    public boolean isPooledResults()
+    {
+        return mPooledResults;
+    }
+
+    /**
+     * Gets the hits of the last pick as arrays, which can be read
+     * without allocating. The result is owned by the picker and
+     * changes with every pick, so it should only be read from pick
+     * and touch event handlers or on the rendering thread.
+     * @return hits of the last pick, null unless pooled results are enabled
+     * @see #setPooledResults(boolean)
+     */
+    public GVRPickResults getPickResults()
+    {
+        return mPooledResults ? mResults : null;
+    }
+
     /**
      * Called every frame if the picker is enabled
      * to generate pick events.
@@ -513,30 +702,154 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     {
         GVRSceneObject owner = getOwnerObject();
         GVRTransform trans = (owner != null) ? owner.getTransform() : null;
-        GVRPickedObject[] picked;
+        GVRColliderBVH bvh = mColliderBVH;
+        boolean cached;
 
+        if ((bvh != null) && (bvh.getScene() != mScene))
+        {
+            bvh = null;
+        }
+        cached = mPickCacheEnabled && isPickCacheValid(trans, bvh);
+        if (cached)
+        {
+            ++mPicksSkipped;
+        }
+        else
+        {
+            ++mPicksPerformed;
+        }
+        if (mPooledResults)
+        {
+            if (!cached)
+            {
+                pickResults(trans, bvh);
+            }
+            mPickCacheFilled = mPickCacheEnabled;
+            generatePickEvents(mResults.getPickedObjects());
+        }
+        else if (cached)
+        {
+            generatePickEvents(mPickCache);
+        }
+        else
+        {
+            GVRPickedObject[] picked = pickObjects(trans, bvh);
+            if (mPickCacheEnabled)
+            {
+                mPickCache = picked;
+                mPickCacheFilled = true;
+            }
+            generatePickEvents(picked);
+        }
+        mMotionEvent = null;
+    }
+
+    private GVRPickedObject[] pickObjects(GVRTransform trans, GVRColliderBVH bvh)
+    {
         if (mPickClosest)
         {
-            GVRPickedObject closest = pickClosest(mScene, trans,
-                mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
-                mRayDirection.x, mRayDirection.y, mRayDirection.z);
-            if (closest != null)
+            GVRPickedObject closest;
+            if (bvh != null)
             {
-                picked = new GVRPickedObject[] { closest };
+                closest = bvh.pickClosest(trans,
+                    mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                    mRayDirection.x, mRayDirection.y, mRayDirection.z);
             }
             else
             {
-                picked = new GVRPickedObject[0];
+                closest = pickClosest(mScene, trans,
+                    mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                    mRayDirection.x, mRayDirection.y, mRayDirection.z);
+            }
+            if (closest != null)
+            {
+                return new GVRPickedObject[] { closest };
             }
+            return new GVRPickedObject[0];
         }
-        else
+        else if (bvh != null)
         {
-            picked = pickObjects(mScene, trans,
+            return bvh.pickObjects(trans,
                     mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
                     mRayDirection.x, mRayDirection.y, mRayDirection.z);
         }
-        generatePickEvents(picked);
-        mMotionEvent = null;
+        return pickObjects(mScene, trans,
+                mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                mRayDirection.x, mRayDirection.y, mRayDirection.z);
+    }
+
+    /*
+     * Picks into the result arrays of the picker.
+     */
+    private void pickResults(GVRTransform trans, GVRColliderBVH bvh)
+    {
+        if (bvh != null)
+        {
+            mResults.set(pickObjects(trans, bvh));
+            return;
+        }
+        sFindObjectsLock.lock();
+        try
+        {
+            mResults.pick(mScene, trans,
+                    mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                    mRayDirection.x, mRayDirection.y, mRayDirection.z, mPickClosest);
+        }
+        finally
+        {
+            sFindObjectsLock.unlock();
+        }
+    }
+
+    /*
+     * Determines whether the last pick result can be used again because
+     * nothing it depends on has changed. Otherwise remembers the current
+     * state and returns false. The ray of the last scene query is kept
+     * rather than the ray of the last frame, so that a ray moving slowly
+     * is picked again once it has moved past the threshold.
+     */
+    private boolean isPickCacheValid(GVRTransform trans, GVRColliderBVH bvh)
+    {
+        final int invalidations = mPickCacheInvalidations;
+        final int bvhVersion = (bvh != null) ? bvh.getVersion() : 0;
+        final long state;
+
+        sFindObjectsLock.lock();
+        try
+        {
+            state = NativePicker.getPickState(mScene.getNative(), (trans != null) ? trans.getNative() : 0L,
+                    mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                    mRayDirection.x, mRayDirection.y, mRayDirection.z, mWorldRay);
+        }
+        finally
+        {
+            sFindObjectsLock.unlock();
+        }
+        if ((state != 0) && (state == mPickCacheState) && mPickCacheFilled &&
+            (mPickCacheSeen == invalidations) &&
+            (mPickCacheScene == mScene) && (mPickCacheBVH == bvh) && (mPickCacheBVHVersion == bvhVersion) &&
+            (mPickCacheClosest == mPickClosest))
+        {
+            boolean same = true;
+            for (int i = 0; same && (i < 6); ++i)
+            {
+                same = Math.abs(mWorldRay[i] - mPickCacheRay[i]) <= mPickCacheThreshold;
+            }
+            if (same)
+            {
+                return true;
+            }
+        }
+        System.arraycopy(mWorldRay, 0, mPickCacheRay, 0, 6);
+        mPickCacheState = state;
+        mPickCacheScene = mScene;
+        mPickCacheBVH = bvh;
+        mPickCacheBVHVersion = bvhVersion;
+        mPickCacheClosest = mPickClosest;
+        mPickCacheSeen = invalidations;
+        mPickCache = null;
+        mPickCacheFilled = false;
+        return false;
     }
 
     /**
@@ -604,6 +917,8 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
             pickedCount++;
             GVRCollider collider = collision.hitCollider;
             GVRPickedObject prevHit = findCollider(mPicked, collider);
+            // a reused pick result may hold the previous hit itself
+            boolean prevTouched = (prevHit != null) && prevHit.touched;
 
             collision.picker = this;
             collision.touched = mTouched;
@@ -620,13 +935,13 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
             else
             {
                 propagateOnInside(collision);
-                if (prevHit.touched && !mTouched)
+                if (prevTouched && !mTouched)
 
                 {
                     mPickListChanged = true;
                     propagateOnNoTouch(collision);
                 }
-                else if (!prevHit.touched && mTouched)
+                else if (!prevTouched && mTouched)
                 {
                     mPickListChanged = true;
                     propagateOnTouch(collision);
@@ -669,11 +984,11 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                getGVRContext().getEventManager().sendEvent(this, IPickEvents.class, "onNoPick", picker);
+                sendPickEvent(this, PickDispatcher.NO_PICK, picker, null, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                getGVRContext().getEventManager().sendEvent(mScene, IPickEvents.class, "onNoPick", picker);
+                sendPickEvent(mScene, PickDispatcher.NO_PICK, picker, null, null);
             }
         }
     }
@@ -688,11 +1003,11 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                getGVRContext().getEventManager().sendEvent(this, IPickEvents.class, "onPick", picker);
+                sendPickEvent(this, PickDispatcher.PICK, picker, null, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                getGVRContext().getEventManager().sendEvent(mScene, IPickEvents.class, "onPick", picker);
+                sendPickEvent(mScene, PickDispatcher.PICK, picker, null, null);
             }
         }
     }
@@ -707,11 +1022,11 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                getGVRContext().getEventManager().sendEvent(this, ITouchEvents.class, "onMotionOutside", this, event);
+                sendTouchEvent(this, TouchDispatcher.MOTION_OUTSIDE, null, null, event);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                getGVRContext().getEventManager().sendEvent(mScene, ITouchEvents.class, "onMotionOutside", this, event);
+                sendTouchEvent(mScene, TouchDispatcher.MOTION_OUTSIDE, null, null, event);
             }
         }
     }
@@ -723,35 +1038,34 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     protected void propagateOnEnter(GVRPickedObject hit)
     {
         GVRSceneObject hitObject = hit.getHitObject();
-        GVREventManager eventManager = getGVRContext().getEventManager();
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onEnter", hitObject, hit);
+                sendTouchEvent(this, TouchDispatcher.ENTER, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
-                eventManager.sendEvent(hitObject, ITouchEvents.class, "onEnter", hitObject, hit);
+                sendTouchEvent(hitObject, TouchDispatcher.ENTER, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                eventManager.sendEvent(mScene, ITouchEvents.class, "onEnter", hitObject, hit);
+                sendTouchEvent(mScene, TouchDispatcher.ENTER, hitObject, hit, null);
             }
         }
         if (mEventOptions.contains(EventOptions.SEND_PICK_EVENTS))
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                eventManager.sendEvent(this, IPickEvents.class, "onEnter", hitObject, hit);
+                sendPickEvent(this, PickDispatcher.ENTER, this, hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
-                eventManager.sendEvent(hitObject, IPickEvents.class, "onEnter", hitObject, hit);
+                sendPickEvent(hitObject, PickDispatcher.ENTER, this, hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                eventManager.sendEvent(mScene, IPickEvents.class, "onEnter", hitObject, hit);
+                sendPickEvent(mScene, PickDispatcher.ENTER, this, hitObject, hit);
             }
         }
     }
@@ -764,19 +1078,18 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     {
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
-            GVREventManager eventManager = getGVRContext().getEventManager();
             GVRSceneObject hitObject = hit.getHitObject();
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onTouchStart", hitObject, hit);
+                sendTouchEvent(this, TouchDispatcher.TOUCH_START, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
-                eventManager.sendEvent(hitObject, ITouchEvents.class, "onTouchStart", hitObject, hit);
+                sendTouchEvent(hitObject, TouchDispatcher.TOUCH_START, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                eventManager.sendEvent(mScene, ITouchEvents.class, "onTouchStart", hitObject, hit);
+                sendTouchEvent(mScene, TouchDispatcher.TOUCH_START, hitObject, hit, null);
             }
         }
     }
@@ -789,19 +1102,18 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     {
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
-            GVREventManager eventManager = getGVRContext().getEventManager();
             GVRSceneObject hitObject = hit.getHitObject();
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onTouchEnd", hitObject, hit);
+                sendTouchEvent(this, TouchDispatcher.TOUCH_END, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
-                eventManager.sendEvent(hitObject, ITouchEvents.class, "onTouchEnd", hitObject, hit);
+                sendTouchEvent(hitObject, TouchDispatcher.TOUCH_END, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                eventManager.sendEvent(mScene, ITouchEvents.class, "onTouchEnd", hitObject, hit);
+                sendTouchEvent(mScene, TouchDispatcher.TOUCH_END, hitObject, hit, null);
             }
         }
     }
@@ -813,35 +1125,34 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     protected void propagateOnInside(GVRPickedObject hit)
     {
         GVRSceneObject hitObject = hit.getHitObject();
-        GVREventManager eventManager = getGVRContext().getEventManager();
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onInside", hitObject, hit);
+                sendTouchEvent(this, TouchDispatcher.INSIDE, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
-                eventManager.sendEvent(hitObject, ITouchEvents.class, "onInside", hitObject, hit);
+                sendTouchEvent(hitObject, TouchDispatcher.INSIDE, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                eventManager.sendEvent(mScene, ITouchEvents.class, "onInside", hitObject, hit);
+                sendTouchEvent(mScene, TouchDispatcher.INSIDE, hitObject, hit, null);
             }
         }
         if (mEventOptions.contains(EventOptions.SEND_PICK_EVENTS))
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                eventManager.sendEvent(this, IPickEvents.class, "onInside", hitObject, hit);
+                sendPickEvent(this, PickDispatcher.INSIDE, this, hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
-                eventManager.sendEvent(hitObject, IPickEvents.class, "onInside", hitObject, hit);
+                sendPickEvent(hitObject, PickDispatcher.INSIDE, this, hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                eventManager.sendEvent(mScene, IPickEvents.class, "onInside", hitObject, hit);
+                sendPickEvent(mScene, PickDispatcher.INSIDE, this, hitObject, hit);
             }
         }
     }
@@ -852,35 +1163,34 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
      */
     protected void propagateOnExit(GVRSceneObject hitObject, GVRPickedObject hit)
     {
-        GVREventManager eventManager = getGVRContext().getEventManager();
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onExit", hitObject, hit);
+                sendTouchEvent(this, TouchDispatcher.EXIT, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
-                eventManager.sendEvent(hitObject, ITouchEvents.class, "onExit", hitObject, hit);
+                sendTouchEvent(hitObject, TouchDispatcher.EXIT, hitObject, hit, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                eventManager.sendEvent(mScene, ITouchEvents.class, "onExit", hitObject, hit);
+                sendTouchEvent(mScene, TouchDispatcher.EXIT, hitObject, hit, null);
             }
         }
         if (mEventOptions.contains(EventOptions.SEND_PICK_EVENTS))
         {
             if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
             {
-                eventManager.sendEvent(this, IPickEvents.class, "onExit", hitObject);
+                sendPickEvent(this, PickDispatcher.EXIT, this, hitObject, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
-                eventManager.sendEvent(hitObject, IPickEvents.class, "onExit", hitObject);
+                sendPickEvent(hitObject, PickDispatcher.EXIT, this, hitObject, null);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
-                eventManager.sendEvent(mScene, IPickEvents.class, "onExit", hitObject);
+                sendPickEvent(mScene, PickDispatcher.EXIT, this, hitObject, null);
             }
         }
     }
@@ -907,6 +1217,162 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         return null;
     }
 
+    /*
+     * Sends a touch event without reflection. The fields of the
+     * dispatcher are restored afterwards in case a handler makes
+     * this picker send events of its own.
+     */
+    private void sendTouchEvent(Object target, int event, GVRSceneObject sceneObj,
+                                GVRPickedObject hit, MotionEvent motionEvent)
+    {
+        final TouchDispatcher d = mTouchDispatcher;
+        final int oldEvent = d.mEvent;
+        final GVRSceneObject oldSceneObj = d.mSceneObj;
+        final GVRPickedObject oldHit = d.mHit;
+        final MotionEvent oldMotionEvent = d.mMotionEvent;
+
+        d.mEvent = event;
+        d.mSceneObj = sceneObj;
+        d.mHit = hit;
+        d.mMotionEvent = motionEvent;
+        try
+        {
+            getGVRContext().getEventManager().dispatchEvent(GVREventManager.SEND_MASK_ALL, target,
+                    ITouchEvents.class, TouchDispatcher.NAMES[event], d);
+        }
+        finally
+        {
+            d.mEvent = oldEvent;
+            d.mSceneObj = oldSceneObj;
+            d.mHit = oldHit;
+            d.mMotionEvent = oldMotionEvent;
+        }
+    }
+
+    /*
+     * Sends a pick event without reflection.
+     * @see #sendTouchEvent(Object, int, GVRSceneObject, GVRPickedObject, MotionEvent)
+     */
+    private void sendPickEvent(Object target, int event, GVRPicker picker,
+                               GVRSceneObject sceneObj, GVRPickedObject hit)
+    {
+        final PickDispatcher d = mPickDispatcher;
+        final int oldEvent = d.mEvent;
+        final GVRPicker oldPicker = d.mPicker;
+        final GVRSceneObject oldSceneObj = d.mSceneObj;
+        final GVRPickedObject oldHit = d.mHit;
+
+        d.mEvent = event;
+        d.mPicker = picker;
+        d.mSceneObj = sceneObj;
+        d.mHit = hit;
+        try
+        {
+            getGVRContext().getEventManager().dispatchEvent(GVREventManager.SEND_MASK_ALL, target,
+                    IPickEvents.class, PickDispatcher.NAMES[event], d);
+        }
+        finally
+        {
+            d.mEvent = oldEvent;
+            d.mPicker = oldPicker;
+            d.mSceneObj = oldSceneObj;
+            d.mHit = oldHit;
+        }
+    }
+
+    /*
+     * Calls an ITouchEvents handler with the parameters of the current event.
+     */
+    private static final class TouchDispatcher implements GVREventManager.IEventDispatcher<ITouchEvents>
+    {
+        static final int ENTER = 0;
+        static final int EXIT = 1;
+        static final int TOUCH_START = 2;
+        static final int TOUCH_END = 3;
+        static final int INSIDE = 4;
+        static final int MOTION_OUTSIDE = 5;
+        static final String[] NAMES = {
+                "onEnter", "onExit", "onTouchStart", "onTouchEnd", "onInside", "onMotionOutside" };
+
+        final GVRPicker mPicker;
+        int mEvent;
+        GVRSceneObject mSceneObj;
+        GVRPickedObject mHit;
+        MotionEvent mMotionEvent;
+
+        TouchDispatcher(GVRPicker picker)
+        {
+            mPicker = picker;
+        }
+
+        @Override
+        public void dispatch(ITouchEvents handler)
+        {
+            switch (mEvent)
+            {
+                case ENTER: handler.onEnter(mSceneObj, mHit); break;
+                case EXIT: handler.onExit(mSceneObj, mHit); break;
+                case TOUCH_START: handler.onTouchStart(mSceneObj, mHit); break;
+                case TOUCH_END: handler.onTouchEnd(mSceneObj, mHit); break;
+                case INSIDE: handler.onInside(mSceneObj, mHit); break;
+                case MOTION_OUTSIDE: handler.onMotionOutside(mPicker, mMotionEvent); break;
+            }
+        }
+
+        @Override
+        public Object[] getParams()
+        {
+            if (mEvent == MOTION_OUTSIDE)
+            {
+                return new Object[] { mPicker, mMotionEvent };
+            }
+            return new Object[] { mSceneObj, mHit };
+        }
+    }
+
+    /*
+     * Calls an IPickEvents handler with the parameters of the current event.
+     */
+    private static final class PickDispatcher implements GVREventManager.IEventDispatcher<IPickEvents>
+    {
+        static final int PICK = 0;
+        static final int NO_PICK = 1;
+        static final int ENTER = 2;
+        static final int EXIT = 3;
+        static final int INSIDE = 4;
+        static final String[] NAMES = { "onPick", "onNoPick", "onEnter", "onExit", "onInside" };
+
+        int mEvent;
+        GVRPicker mPicker;
+        GVRSceneObject mSceneObj;
+        GVRPickedObject mHit;
+
+        @Override
+        public void dispatch(IPickEvents handler)
+        {
+            switch (mEvent)
+            {
+                case PICK: handler.onPick(mPicker); break;
+                case NO_PICK: handler.onNoPick(mPicker); break;
+                case ENTER: handler.onEnter(mSceneObj, mHit); break;
+                case EXIT: handler.onExit(mSceneObj); break;
+                case INSIDE: handler.onInside(mSceneObj, mHit); break;
+            }
+        }
+
+        @Override
+        public Object[] getParams()
+        {
+            switch (mEvent)
+            {
+                case PICK:
+                case NO_PICK: return new Object[] { mPicker };
+                case EXIT: return new Object[] { mSceneObj };
+                default: return new Object[] { mSceneObj, mHit };
+            }
+        }
+    }
+
     /**
      * Tests the {@link GVRSceneObject} against the ray information passed to the function.
      *
@@ -1256,18 +1722,21 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
      * @see GVRPicker#pickObjects(GVRScene, float, float, float, float, float, float)
      */
     public static final class GVRPickedObject {
-        public final GVRSceneObject hitObject;
-        public final GVRCollider hitCollider;
+        public GVRSceneObject hitObject;
+        public GVRCollider hitCollider;
         public GVRPicker picker;
         public final float[] hitLocation;
-        public final float hitDistance;
+        public float hitDistance;
         public boolean touched;
         public MotionEvent motionEvent;
         public int collidableIndex;
-        public final int faceIndex;
-        public final float[] barycentricCoords;
-        public final float[] textureCoords;
-        public final float[] normalCoords;
+        public int faceIndex;
+        public float[] barycentricCoords;
+        public float[] textureCoords;
+        public float[] normalCoords;
+        private float[] mBarycentricCoords;
+        private float[] mTextureCoords;
+        private float[] mNormalCoords;
 
         /**
          * Creates a new instance of {@link GVRPickedObject}.
@@ -1322,6 +1791,86 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
             this.motionEvent = null;
         }
 
+        /**
+         * Copies a picked object, including its arrays.
+         * @param other picked object to copy
+         */
+        public GVRPickedObject(GVRPickedObject other) {
+            hitObject = other.hitObject;
+            hitDistance = other.hitDistance;
+            hitCollider = other.hitCollider;
+            hitLocation = copyOf(other.hitLocation);
+            faceIndex = other.faceIndex;
+            barycentricCoords = copyOf(other.barycentricCoords);
+            textureCoords = copyOf(other.textureCoords);
+            normalCoords = copyOf(other.normalCoords);
+            collidableIndex = other.collidableIndex;
+            picker = other.picker;
+            touched = other.touched;
+            motionEvent = other.motionEvent;
+        }
+
+        private static float[] copyOf(float[] array) {
+            return (array != null) ? Arrays.copyOf(array, array.length) : null;
+        }
+
+        /*
+         * Makes a picked object which is filled in again for every
+         * pick with pooled results.
+         * @see PickedObjectPool
+         */
+        GVRPickedObject() {
+            hitLocation = new float[3];
+            faceIndex = -1;
+            collidableIndex = -1;
+        }
+
+        /*
+         * Fills in a reusable picked object from the arrays of
+         * GVRPickResults. The coordinate arrays are made on the
+         * first hit with mesh coordinates and kept afterwards.
+         */
+        void set(GVRCollider collider, float[] floats, int offset, int face, boolean hasCoords) {
+            hitCollider = collider;
+            hitObject = collider.getOwnerObject();
+            hitDistance = floats[offset];
+            System.arraycopy(floats, offset + 1, hitLocation, 0, 3);
+            picker = null;
+            touched = false;
+            motionEvent = null;
+            collidableIndex = -1;
+            if (!hasCoords) {
+                faceIndex = -1;
+                barycentricCoords = null;
+                textureCoords = null;
+                normalCoords = null;
+                return;
+            }
+            if (mBarycentricCoords == null) {
+                mBarycentricCoords = new float[3];
+                mTextureCoords = new float[2];
+                mNormalCoords = new float[3];
+            }
+            faceIndex = face;
+            System.arraycopy(floats, offset + 4, mBarycentricCoords, 0, 3);
+            System.arraycopy(floats, offset + 7, mTextureCoords, 0, 2);
+            System.arraycopy(floats, offset + 9, mNormalCoords, 0, 3);
+            barycentricCoords = mBarycentricCoords;
+            textureCoords = mTextureCoords;
+            normalCoords = mNormalCoords;
+        }
+
+        /*
+         * Drops the references of a reusable picked object.
+         */
+        void clear() {
+            hitCollider = null;
+            hitObject = null;
+            picker = null;
+            touched = false;
+            motionEvent = null;
+        }
+
         public GVRPickedObject(GVRSceneObject hitObject, float[] hitLocation) {
             this.hitObject = hitObject;
             this.hitLocation = hitLocation;
@@ -1444,8 +1993,23 @@ final class NativePicker {
     static native GVRPicker.GVRPickedObject[] pickObjects(long scene, long transform, float ox, float oy, float oz,
                                                           float dx, float dy, float dz);
 
+    static native int pickInto(long scene, long transform, float ox, float oy, float oz,
+                               float dx, float dy, float dz, boolean closest,
+                               long[] colliders, float[] floats, int[] ints);
+
     static native GVRPicker.GVRPickedObject[] pickBounds(long scene, List<GVRSceneObject> collidables);
 
+    static native GVRPicker.GVRPickedObject[] pickBoundsPairs(long scene, long[] collidables, int numCollidables,
+                                                              long[] colliders, int numColliders,
+                                                              int[] pairs, int numPairs);
+
+    static native int getColliderBounds(long scene, long[] colliders, float[] bounds);
+
+    static native long getPickState(long scene, long transform, float ox, float oy, float oz,
+                                    float dx, float dy, float dz, float[] worldRay);
+
+    static native void getCollidableBounds(long[] collidables, int numCollidables, float[] spheres);
+
     static native GVRPicker.GVRPickedObject pickSceneObject(long sceneObject, float ox, float oy, float oz,
                                                             float dx, float dy, float dz);
 
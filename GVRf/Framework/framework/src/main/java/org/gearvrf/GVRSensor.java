@@ -190,7 +190,8 @@ public class GVRSensor extends GVRBehavior
         event.setActive(collision.touched);
         event.setPickedObject(collision);
         event.setOver(over);
-        getGVRContext().getEventManager().sendEvent(ownerCopy, ISensorEvents.class, "onSensorEvent", event);
+        getGVRContext().getEventManager().dispatchEvent(GVREventManager.SEND_MASK_ALL, ownerCopy,
+                ISensorEvents.class, "onSensorEvent", event.dispatcher);
         event.recycle();
     }
 }
\ No newline at end of file
@@ -15,7 +15,6 @@
 
 package org.gearvrf;
 
-import java.lang.reflect.Method;
 import java.util.List;
 
 
@@ -35,6 +34,28 @@ public class GVRSwitch extends GVRBehavior
     static private long TYPE_SWITCH = newComponentType(GVRSwitch.class);
     protected int mSwitchIndex = 0;
 
+    /**
+     * Updates all the switches of a context on the GL thread.
+     * Each switch gets its {@link GVRSwitch#onDrawFrame(float)} call
+     * from the group, so subclasses may still override it.
+     */
+    static final class Group extends GVRBehaviorGroup<GVRSwitch>
+    {
+        Group(GVRContext gvrContext)
+        {
+            super(gvrContext, GVRSwitch.class);
+        }
+
+        @Override
+        protected void updateAll(float frameTime, GVRSwitch[] instances, int start, int end)
+        {
+            for (int i = start; i < end; ++i)
+            {
+                instances[i].onDrawFrame(frameTime);
+            }
+        }
+    }
+
     public GVRSwitch(GVRContext gvrContext)
     {
         this(gvrContext, 0);
@@ -53,6 +74,15 @@ public class GVRSwitch extends GVRBehavior
     }    
 
     static public long getComponentType() { return TYPE_SWITCH; }   
+
+    /**
+     * Switches are updated together by a {@link GVRBehaviorGroup}.
+     */
+    @Override
+    protected GVRBehaviorGroup<?> getBehaviorGroup()
+    {
+        return GVRBehaviorGroup.get(getGVRContext(), Group.class);
+    }
     
     /**
      * Gets the current switch index that selects what object to display.
@@ -118,6 +148,11 @@ public class GVRSwitch extends GVRBehavior
      * to a {@link GVRSceneObject}.
      */
     public void onDrawFrame(float frameTime)
+    {
+        selectChild();
+    }
+
+    private void selectChild()
     {
         GVRSceneObject owner = getOwnerObject();
         if (owner == null)
@@ -0,0 +1,286 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.TextureAtlasLayout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges a set of small images into one texture atlas.
+ * <p>
+ * UI icons, cursor graphics and the textures of imported models are often
+ * small images which each need their own texture and material. Merging
+ * them into one atlas lets the scene objects share a single texture and
+ * material, so the renderer can batch them and bind textures less often.
+ * <p>
+ * The builder lays out the images with a {@link TextureAtlasLayout}, draws
+ * them into one bitmap with their edges extended into the padding and
+ * produces a {@link GVRTexture} whose image is a {@link GVRImageAtlas}
+ * carrying one {@link GVRAtlasInformation} per image. The atlas information
+ * can be used as is with {@link GVRScene#applyTextureAtlas}, or
+ * {@link #apply(GVRSceneObject, GVRMaterial)} can rewrite the texture
+ * coordinates of the meshes so that all the objects share one material.
+ * <p>
+ * Texture coordinates outside [0, 1] cannot be remapped, so images which
+ * rely on repeat wrapping should not be put in an atlas.
+ * <pre>
+ *     GVRTextureAtlasBuilder builder = new GVRTextureAtlasBuilder(gvrContext);
+ *     builder.addResource("play", new GVRAndroidResource(gvrContext, "icons/play.png"));
+ *     builder.addResource("stop", new GVRAndroidResource(gvrContext, "icons/stop.png"));
+ *     GVRTexture atlas = builder.build();
+ *     GVRMaterial material = new GVRMaterial(gvrContext, GVRMaterial.GVRShaderType.Texture.ID);
+ *     material.setMainTexture(atlas);
+ *     builder.apply(scene.getRoot(), material);
+ * </pre>
+ */
+public class GVRTextureAtlasBuilder
+{
+    private static final String TAG = GVRTextureAtlasBuilder.class.getSimpleName();
+    public static final int DEFAULT_MAX_SIZE = 2048;
+    public static final int DEFAULT_PADDING = 2;
+
+    private final GVRContext mContext;
+    private final TextureAtlasLayout mLayout;
+    private final List<Bitmap> mBitmaps = new ArrayList<Bitmap>();
+    private Bitmap mAtlasBitmap = null;
+    private List<GVRAtlasInformation> mAtlasInfo = null;
+
+    /**
+     * Constructs a builder for atlases up to {@link #DEFAULT_MAX_SIZE} pixels square.
+     * @param gvrContext current {@link GVRContext}
+     */
+    public GVRTextureAtlasBuilder(GVRContext gvrContext)
+    {
+        this(gvrContext, DEFAULT_MAX_SIZE, DEFAULT_PADDING);
+    }
+
+    /**
+     * Constructs a builder.
+     * @param gvrContext current {@link GVRContext}
+     * @param maxSize    maximum width and height of the atlas in pixels
+     * @param padding    pixels reserved around each image to avoid filtering across images
+     */
+    public GVRTextureAtlasBuilder(GVRContext gvrContext, int maxSize, int padding)
+    {
+        mContext = gvrContext;
+        mLayout = new TextureAtlasLayout(maxSize, padding);
+    }
+
+    /**
+     * Adds a bitmap to the atlas.
+     * @param name   name of the scene object(s) the image is mapped to
+     * @param bitmap image to add, must not be recycled before {@link #build()}
+     */
+    public void addBitmap(String name, Bitmap bitmap)
+    {
+        mLayout.add(name, bitmap.getWidth(), bitmap.getHeight());
+        mBitmaps.add(bitmap);
+        mAtlasBitmap = null;
+        mAtlasInfo = null;
+    }
+
+    /**
+     * Decodes an image resource and adds it to the atlas.
+     * @param name     name of the scene object(s) the image is mapped to
+     * @param resource PNG or JPEG image; the stream is closed
+     * @throws IOException if the image cannot be read or decoded
+     */
+    public void addResource(String name, GVRAndroidResource resource) throws IOException
+    {
+        Bitmap bitmap;
+        try
+        {
+            bitmap = BitmapFactory.decodeStream(resource.getStream());
+        }
+        finally
+        {
+            resource.closeStream();
+        }
+        if (bitmap == null)
+        {
+            throw new IOException("Cannot decode " + resource);
+        }
+        addBitmap(name, bitmap);
+    }
+
+    /**
+     * Lays out the images and draws the atlas.
+     * @return texture with a {@link GVRImageAtlas} image
+     * @throws IllegalStateException if the images do not fit in an atlas of the maximum size
+     */
+    public GVRTexture build()
+    {
+        if (!mLayout.layout())
+        {
+            throw new IllegalStateException("Images do not fit in the texture atlas");
+        }
+        final int count = mLayout.getCount();
+        final int pad = mLayout.getPadding();
+        final Rect src = new Rect();
+        final Rect dst = new Rect();
+        Canvas canvas;
+
+        mAtlasBitmap = Bitmap.createBitmap(mLayout.getWidth(), mLayout.getHeight(), Bitmap.Config.ARGB_8888);
+        mAtlasInfo = new ArrayList<GVRAtlasInformation>(count);
+        canvas = new Canvas(mAtlasBitmap);
+        for (int i = 0; i < count; ++i)
+        {
+            final Bitmap bitmap = mBitmaps.get(i);
+            final int x = mLayout.getX(i);
+            final int y = mLayout.getY(i);
+            final int w = bitmap.getWidth();
+            final int h = bitmap.getHeight();
+
+            canvas.drawBitmap(bitmap, x, y, null);
+            if (pad > 0)
+            {
+                // extend the edges into the padding
+                src.set(0, 0, w, 1);            dst.set(x, y - pad, x + w, y);
+                canvas.drawBitmap(bitmap, src, dst, null);
+                src.set(0, h - 1, w, h);        dst.set(x, y + h, x + w, y + h + pad);
+                canvas.drawBitmap(bitmap, src, dst, null);
+                src.set(0, 0, 1, h);            dst.set(x - pad, y, x, y + h);
+                canvas.drawBitmap(bitmap, src, dst, null);
+                src.set(w - 1, 0, w, h);        dst.set(x + w, y, x + w + pad, y + h);
+                canvas.drawBitmap(bitmap, src, dst, null);
+                // and the corner pixels into the padding corners
+                src.set(0, 0, 1, 1);            dst.set(x - pad, y - pad, x, y);
+                canvas.drawBitmap(bitmap, src, dst, null);
+                src.set(w - 1, 0, w, 1);        dst.set(x + w, y - pad, x + w + pad, y);
+                canvas.drawBitmap(bitmap, src, dst, null);
+                src.set(0, h - 1, 1, h);        dst.set(x - pad, y + h, x, y + h + pad);
+                canvas.drawBitmap(bitmap, src, dst, null);
+                src.set(w - 1, h - 1, w, h);    dst.set(x + w, y + h, x + w + pad, y + h + pad);
+                canvas.drawBitmap(bitmap, src, dst, null);
+            }
+            mAtlasInfo.add(new GVRAtlasInformation(mLayout.getName(i), mLayout.getOffset(i), mLayout.getScale(i)));
+        }
+        Log.d(TAG, "packed %d images into a %dx%d atlas", count, mLayout.getWidth(), mLayout.getHeight());
+        return new GVRTexture(new GVRImageAtlas(mContext, mAtlasBitmap, mAtlasInfo));
+    }
+
+    /**
+     * Gets the atlas bitmap drawn by the last {@link #build()}.
+     * This can be saved to produce an atlas offline.
+     */
+    public Bitmap getAtlasBitmap()
+    {
+        return mAtlasBitmap;
+    }
+
+    /**
+     * Gets the location of each image in the atlas built by the last {@link #build()}.
+     */
+    public List<GVRAtlasInformation> getAtlasInformation()
+    {
+        return mAtlasInfo;
+    }
+
+    /**
+     * Gets the location of each image as JSON that
+     * {@link GVRAssetLoader#loadTextureAtlasInformation} can read.
+     */
+    public String getAtlasInformationJSON()
+    {
+        return mLayout.toJSON();
+    }
+
+    /**
+     * Maps the texture coordinates of a mesh into the area of the atlas
+     * its image occupies.
+     * @param mesh  mesh to update, must have texture coordinates in [0, 1]
+     * @param info  location of the mesh's image in the atlas
+     */
+    public static void remapTexCoords(GVRMesh mesh, GVRAtlasInformation info)
+    {
+        final float[] uv = mesh.getTexCoords();
+        final float[] offset = info.getOffset();
+        final float[] scale = info.getScale();
+
+        if (uv == null)
+        {
+            return;
+        }
+        for (int i = 0; i < uv.length; i += 2)
+        {
+            uv[i] = offset[0] + uv[i] * scale[0];
+            uv[i + 1] = offset[1] + uv[i + 1] * scale[1];
+        }
+        mesh.setTexCoords(uv);
+    }
+
+    /**
+     * Makes the scene objects named in the atlas render from it.
+     * <p>
+     * Every descendant of {@code root} whose name matches an image in the
+     * atlas gets its mesh texture coordinates remapped and {@code material}
+     * as its material. Meshes shared by several objects are remapped once.
+     * Must be called after {@link #build()}.
+     * @param root      root of the hierarchy to search
+     * @param material  material using the atlas texture, shared by all the objects
+     * @return number of scene objects changed
+     */
+    public int apply(GVRSceneObject root, final GVRMaterial material)
+    {
+        final Map<String, GVRAtlasInformation> byName = new HashMap<String, GVRAtlasInformation>();
+        final Map<GVRMesh, Boolean> remapped = new IdentityHashMap<GVRMesh, Boolean>();
+        final int[] count = { 0 };
+
+        if (mAtlasInfo == null)
+        {
+            throw new IllegalStateException("build() must be called before apply()");
+        }
+        for (GVRAtlasInformation info : mAtlasInfo)
+        {
+            byName.put(info.getName(), info);
+        }
+        root.forAllDescendants(new GVRSceneObject.SceneVisitor()
+        {
+            public boolean visit(GVRSceneObject obj)
+            {
+                GVRAtlasInformation info = byName.get(obj.getName());
+                GVRRenderData rdata = obj.getRenderData();
+
+                if ((info == null) || (rdata == null) || (rdata.getMesh() == null))
+                {
+                    return true;
+                }
+                GVRMesh mesh = rdata.getMesh();
+                if (!remapped.containsKey(mesh))
+                {
+                    remapTexCoords(mesh, info);
+                    remapped.put(mesh, Boolean.TRUE);
+                }
+                rdata.setMaterial(material);
+                ++count[0];
+                return true;
+            }
+        });
+        return count[0];
+    }
+}
@@ -0,0 +1,1003 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A disk cache for resources downloaded from URLs.
+ *
+ * The content of each download is stored once, in a file named by its
+ * SHA-256 hash. Every URL has a small index file, named by the SHA-1 of
+ * the URL, with the hash of its content and the ETag, Last-Modified and
+ * max-age sent by the server. Files are downloaded to a temporary file
+ * first and renamed into place when complete, so a crash or a failed
+ * download never leaves a partial file in the cache.
+ *
+ * A cached URL is used as is while its max-age lasts, and once it has
+ * been revalidated by this cache. Otherwise it is revalidated with a
+ * conditional request, which downloads the content again only if it
+ * changed on the server. If the server can't be reached the cached copy
+ * is used.
+ *
+ * The total size of the cached content is bounded: when it grows past
+ * the maximum size, the least recently used URLs are evicted. The time
+ * of use is kept as the modification time of the index files, so the
+ * order survives restarts. The files of evicted or replaced content
+ * stay on disk until the cache is opened again, so a file returned by
+ * {@link #get(URL)} can be read for as long as the cache is in use.
+ *
+ * The content of a file is checked against its hash the first time it
+ * is used, and the index files when the cache is opened. Corrupt or
+ * missing files are removed and downloaded again.
+ *
+ * {@link GVRAssetLoader#getUrlCache(android.content.Context)} gets the
+ * cache of the application, in its cache directory.
+ *
+ * @see Manifest
+ */
+public final class GVRUrlCache
+{
+    private static final String BLOB_DIR = "blobs";
+    private static final String URL_DIR = "urls";
+    private static final String TEMP_DIR = "tmp";
+    private static final int BUFFER_SIZE = 8192;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String KEY_URL = "url";
+    private static final String KEY_HASH = "sha256";
+    private static final String KEY_LENGTH = "length";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+    private static final String KEY_EXPIRES = "expires";
+
+    private final File mBlobDir;
+    private final File mUrlDir;
+    private final File mTempDir;
+    private final long mMaxBytes;
+
+    // Guarded by mEntries; in order of use, least recently used first
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final Map<String, Integer> mBlobRefs = new HashMap<String, Integer>();
+    private final Set<String> mVerified = new HashSet<String>();
+    private final Set<String> mValidated = new HashSet<String>();
+    private long mTotalBytes;
+    private boolean mLoaded;
+
+    // One lock per URL, held while it is checked or downloaded
+    private final ConcurrentHashMap<String, Object> mLocks = new ConcurrentHashMap<String, Object>();
+
+    private static final class Entry
+    {
+        String key;
+        String url;
+        String hash;
+        long length;
+        String etag;
+        String lastModified;
+        long expires;
+        long lastUsed;
+    }
+
+    /**
+     * A list of the resources a scene depends on, to download them
+     * all before the scene loads with {@link #prefetch(Manifest, int)}.
+     *
+     * A manifest is a text file with one resource per line, relative
+     * to the URL of the manifest. A resource may be preceded by the
+     * SHA-256 hash of its content in hexadecimal and white space, which
+     * is the output of {@code sha256sum}:
+     * <pre>
+     * # scene.manifest
+     * 6f1ed002ab5595859014ebf0951522d9e5e2d73f1c9b1b0c6f9d3c1dc4a9ed5d  scene.fbx
+     * 0a4d55a8d778e5022fab701977c5d840bbc486d0e2e76a2c4b3c2a1c79d4e0b2  textures/wood.png
+     * textures/sky.jpg
+     * </pre>
+     * Blank lines and lines starting with '#' are ignored. The content of
+     * a resource with a hash must have that hash. It is not revalidated
+     * with the server if the cache has it, even under another URL.
+     */
+    public static final class Manifest
+    {
+        private final List<URL> mUrls = new ArrayList<URL>();
+        private final List<String> mHashes = new ArrayList<String>();
+
+        public Manifest()
+        {
+        }
+
+        /**
+         * Reads a manifest.
+         * @param stream    the text of the manifest, in UTF-8
+         * @param base      URL the resources are relative to, usually the
+         *                  URL of the manifest
+         */
+        public static Manifest read(InputStream stream, URL base) throws IOException
+        {
+            final Manifest manifest = new Manifest();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, UTF8));
+            String line;
+
+            while ((line = reader.readLine()) != null)
+            {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                {
+                    continue;
+                }
+                String hash = null;
+                String path = line;
+                final int space = indexOfSpace(line);
+                if ((space == 64) && isHex(line, 64))
+                {
+                    hash = line.substring(0, 64).toLowerCase();
+                    path = line.substring(space).trim();
+                    if (path.startsWith("*"))
+                    {
+                        path = path.substring(1);
+                    }
+                }
+                try
+                {
+                    manifest.add(new URL(base, path.replace(" ", "%20")), hash);
+                }
+                catch (MalformedURLException ex)
+                {
+                    throw new IOException("Bad resource in manifest: " + line, ex);
+                }
+            }
+            return manifest;
+        }
+
+        /**
+         * Adds a resource.
+         * @param url   URL of the resource
+         * @param hash  SHA-256 of its content in hexadecimal, null if unknown
+         */
+        public void add(URL url, String hash)
+        {
+            mUrls.add(url);
+            mHashes.add((hash != null) ? hash.toLowerCase() : null);
+        }
+
+        public int size()
+        {
+            return mUrls.size();
+        }
+
+        public URL getUrl(int index)
+        {
+            return mUrls.get(index);
+        }
+
+        public String getHash(int index)
+        {
+            return mHashes.get(index);
+        }
+
+        private static int indexOfSpace(String line)
+        {
+            for (int i = 0; i < line.length(); ++i)
+            {
+                if (Character.isWhitespace(line.charAt(i)))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * @param directory directory of the cache, created if needed
+     * @param maxBytes  maximum size of the cached content
+     */
+    public GVRUrlCache(File directory, long maxBytes)
+    {
+        mBlobDir = new File(directory, BLOB_DIR);
+        mUrlDir = new File(directory, URL_DIR);
+        mTempDir = new File(directory, TEMP_DIR);
+        mMaxBytes = maxBytes;
+    }
+
+    public long getMaxSize()
+    {
+        return mMaxBytes;
+    }
+
+    /**
+     * Gets the size of the cached content.
+     */
+    public long getSize()
+    {
+        synchronized (mEntries)
+        {
+            load();
+            return mTotalBytes;
+        }
+    }
+
+    /**
+     * Gets the cached copy of a URL, downloading or revalidating it as needed.
+     * @return the file with the content of the URL; it must not be modified.
+     * @throws FileNotFoundException if the server doesn't have the URL
+     * @throws IOException if the URL can't be downloaded and isn't cached
+     */
+    public File get(URL url) throws IOException
+    {
+        return get(url, null);
+    }
+
+    /**
+     * Gets the cached copy of a URL whose content has a known hash. The
+     * cached copy is used without revalidation if it has the hash, and
+     * a download with another hash fails.
+     * @param hash  SHA-256 of the content in hexadecimal, null if unknown
+     */
+    public File get(URL url, String hash) throws IOException
+    {
+        final String key = toHex(digest("SHA-1", url.toString().getBytes(UTF8)));
+        final Object lock = new Object();
+        final Object raced = mLocks.putIfAbsent(key, lock);
+
+        if (hash != null)
+        {
+            hash = hash.toLowerCase();
+        }
+        synchronized ((raced != null) ? raced : lock)
+        {
+            Entry entry = getEntry(key);
+
+            if ((entry != null) && !checkBlob(entry))
+            {
+                remove(entry);
+                entry = null;
+            }
+            if ((entry == null) && (hash != null))
+            {
+                entry = adoptBlob(key, url, hash);
+            }
+            if ((entry != null) && isFresh(entry, hash))
+            {
+                touch(entry);
+                return getBlobFile(entry.hash);
+            }
+            return fetch(key, url, hash, entry);
+        }
+    }
+
+    /**
+     * Downloads all the resources of a manifest in parallel, those not
+     * already in the cache or which changed. Returns when they are all
+     * in the cache.
+     * @param parallelism   number of resources to download at once
+     * @throws IOException the error of the first resource which failed,
+     * after the others are done
+     */
+    public void prefetch(Manifest manifest, int parallelism) throws IOException
+    {
+        final int count = manifest.size();
+        if (count == 0)
+        {
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, count)));
+        final List<Future<File>> futures = new ArrayList<Future<File>>(count);
+        IOException error = null;
+
+        try
+        {
+            for (int i = 0; i < count; ++i)
+            {
+                final URL url = manifest.getUrl(i);
+                final String hash = manifest.getHash(i);
+                futures.add(executor.submit(new Callable<File>()
+                {
+                    public File call() throws IOException
+                    {
+                        return get(url, hash);
+                    }
+                }));
+            }
+            for (Future<File> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException ex)
+                {
+                    if (error == null)
+                    {
+                        final Throwable cause = ex.getCause();
+                        error = (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+                    }
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Prefetch interrupted", ex);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        if (error != null)
+        {
+            throw error;
+        }
+    }
+
+    private boolean isFresh(Entry entry, String hash)
+    {
+        if (hash != null)
+        {
+            return hash.equals(entry.hash);
+        }
+        synchronized (mEntries)
+        {
+            return mValidated.contains(entry.key) || (entry.expires > System.currentTimeMillis());
+        }
+    }
+
+    /*
+     * Downloads the URL, conditionally if it is cached. The cached copy
+     * is used when the server can't be reached or fails.
+     */
+    private File fetch(String key, URL url, String hash, Entry entry) throws IOException
+    {
+        final URLConnection connection;
+        final HttpURLConnection http;
+        final int status;
+
+        try
+        {
+            connection = url.openConnection();
+            connection.setUseCaches(false);
+            http = (connection instanceof HttpURLConnection) ? (HttpURLConnection) connection : null;
+            if ((http != null) && (entry != null) && (hash == null))
+            {
+                if (entry.etag != null)
+                {
+                    http.setRequestProperty("If-None-Match", entry.etag);
+                }
+                if (entry.lastModified != null)
+                {
+                    http.setRequestProperty("If-Modified-Since", entry.lastModified);
+                }
+            }
+            status = (http != null) ? http.getResponseCode() : HttpURLConnection.HTTP_OK;
+        }
+        catch (IOException ex)
+        {
+            return useStale(entry, hash, ex);
+        }
+
+        try
+        {
+            if ((status == HttpURLConnection.HTTP_NOT_MODIFIED) && (entry != null) && (hash == null))
+            {
+                revalidated(entry, getExpires(connection));
+                return getBlobFile(entry.hash);
+            }
+            if (status >= HttpURLConnection.HTTP_INTERNAL_ERROR)
+            {
+                return useStale(entry, hash, new IOException(url + ": HTTP " + status));
+            }
+            if (status != HttpURLConnection.HTTP_OK)
+            {
+                if (entry != null)
+                {
+                    remove(entry);
+                }
+                throw new FileNotFoundException(url + ": HTTP " + status);
+            }
+            return download(key, url, hash, connection);
+        }
+        finally
+        {
+            if (http != null)
+            {
+                http.disconnect();
+            }
+        }
+    }
+
+    private File useStale(Entry entry, String hash, IOException ex) throws IOException
+    {
+        if ((entry == null) || ((hash != null) && !hash.equals(entry.hash)))
+        {
+            throw ex;
+        }
+        touch(entry);
+        return getBlobFile(entry.hash);
+    }
+
+    private File download(String key, URL url, String hash, URLConnection connection) throws IOException
+    {
+        final MessageDigest digest = newDigest("SHA-256");
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long length = 0;
+
+        mTempDir.mkdirs();
+        final File temp = File.createTempFile("download", null, mTempDir);
+        try
+        {
+            final InputStream input = connection.getInputStream();
+            try
+            {
+                final OutputStream output = new FileOutputStream(temp);
+                try
+                {
+                    int count;
+                    while ((count = input.read(buffer)) != -1)
+                    {
+                        output.write(buffer, 0, count);
+                        digest.update(buffer, 0, count);
+                        length += count;
+                    }
+                }
+                finally
+                {
+                    output.close();
+                }
+            }
+            finally
+            {
+                input.close();
+            }
+
+            final Entry entry = new Entry();
+            entry.key = key;
+            entry.url = url.toString();
+            entry.hash = toHex(digest.digest());
+            entry.length = length;
+            entry.etag = connection.getHeaderField("ETag");
+            entry.lastModified = connection.getHeaderField("Last-Modified");
+            entry.expires = getExpires(connection);
+            if ((hash != null) && !hash.equals(entry.hash))
+            {
+                throw new IOException(url + " does not have the expected content");
+            }
+            add(entry, temp);
+            return getBlobFile(entry.hash);
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /*
+     * Uses content already in the cache under another URL
+     */
+    private Entry adoptBlob(String key, URL url, String hash)
+    {
+        final Entry entry = new Entry();
+        entry.key = key;
+        entry.url = url.toString();
+        entry.hash = hash;
+        synchronized (mEntries)
+        {
+            if (!mBlobRefs.containsKey(hash))
+            {
+                return null;
+            }
+            entry.length = getBlobFile(hash).length();
+        }
+        if (!checkBlob(entry))
+        {
+            return null;
+        }
+        try
+        {
+            add(entry, null);
+            return entry;
+        }
+        catch (IOException ex)
+        {
+            return null;
+        }
+    }
+
+    /*
+     * Moves the downloaded content into place, unless the cache has it
+     * already, and writes the index file of the URL.
+     */
+    private void add(Entry entry, File temp) throws IOException
+    {
+        final Properties properties = new Properties();
+        properties.setProperty(KEY_URL, entry.url);
+        properties.setProperty(KEY_HASH, entry.hash);
+        properties.setProperty(KEY_LENGTH, Long.toString(entry.length));
+        properties.setProperty(KEY_EXPIRES, Long.toString(entry.expires));
+        if (entry.etag != null)
+        {
+            properties.setProperty(KEY_ETAG, entry.etag);
+        }
+        if (entry.lastModified != null)
+        {
+            properties.setProperty(KEY_LAST_MODIFIED, entry.lastModified);
+        }
+
+        synchronized (mEntries)
+        {
+            final File blob = getBlobFile(entry.hash);
+            if (!mBlobRefs.containsKey(entry.hash) || (blob.length() != entry.length))
+            {
+                if (temp == null)
+                {
+                    throw new IOException("Missing cached content " + entry.hash);
+                }
+                mBlobDir.mkdirs();
+                if (!temp.renameTo(blob))
+                {
+                    throw new IOException("Cannot write cached content " + entry.hash);
+                }
+            }
+            writeIndex(entry.key, properties);
+
+            // Retained first, the old entry may have the same content
+            retain(entry.hash, entry.length);
+            final Entry old = mEntries.remove(entry.key);
+            if (old != null)
+            {
+                release(old.hash, old.length);
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            mEntries.put(entry.key, entry);
+            mVerified.add(entry.hash);
+            mValidated.add(entry.key);
+            evict();
+        }
+    }
+
+    private void revalidated(Entry entry, long expires)
+    {
+        final File index = getIndexFile(entry.key);
+        synchronized (mEntries)
+        {
+            mValidated.add(entry.key);
+            if (entry.expires != expires)
+            {
+                entry.expires = expires;
+                try
+                {
+                    final Properties properties = readIndex(index);
+                    properties.setProperty(KEY_EXPIRES, Long.toString(expires));
+                    writeIndex(entry.key, properties);
+                }
+                catch (IOException ex)
+                {
+                    // Only the expiry is lost, the entry is revalidated next time
+                }
+            }
+        }
+        touch(entry);
+    }
+
+    private void touch(Entry entry)
+    {
+        synchronized (mEntries)
+        {
+            entry.lastUsed = System.currentTimeMillis();
+            mEntries.get(entry.key);
+            getIndexFile(entry.key).setLastModified(entry.lastUsed);
+        }
+    }
+
+    private Entry getEntry(String key)
+    {
+        synchronized (mEntries)
+        {
+            load();
+            return mEntries.get(key);
+        }
+    }
+
+    private void remove(Entry entry)
+    {
+        synchronized (mEntries)
+        {
+            if (mEntries.get(entry.key) == entry)
+            {
+                mEntries.remove(entry.key);
+                release(entry.hash, entry.length);
+            }
+            getIndexFile(entry.key).delete();
+            mValidated.remove(entry.key);
+        }
+    }
+
+    /*
+     * Checks that the content of the entry is there, and has the right
+     * hash the first time it is used. Corrupt content is deleted, the
+     * entries which use it are removed when they are used.
+     */
+    private boolean checkBlob(Entry entry)
+    {
+        final File blob = getBlobFile(entry.hash);
+        synchronized (mEntries)
+        {
+            if (blob.length() != entry.length)
+            {
+                return false;
+            }
+            if (mVerified.contains(entry.hash))
+            {
+                return true;
+            }
+        }
+
+        String hash;
+        try
+        {
+            hash = hashFile(blob);
+        }
+        catch (IOException ex)
+        {
+            hash = null;
+        }
+        synchronized (mEntries)
+        {
+            if (entry.hash.equals(hash))
+            {
+                mVerified.add(hash);
+                return true;
+            }
+            blob.delete();
+            return false;
+        }
+    }
+
+    private void retain(String hash, long length)
+    {
+        final Integer refs = mBlobRefs.get(hash);
+        if (refs == null)
+        {
+            mBlobRefs.put(hash, 1);
+            mTotalBytes += length;
+        }
+        else
+        {
+            mBlobRefs.put(hash, refs + 1);
+        }
+    }
+
+    /*
+     * The content file is left on disk, it may have been returned by
+     * get and still be read. load() deletes it when the cache is opened.
+     */
+    private void release(String hash, long length)
+    {
+        final Integer refs = mBlobRefs.get(hash);
+        if (refs == null)
+        {
+            return;
+        }
+        if (refs > 1)
+        {
+            mBlobRefs.put(hash, refs - 1);
+            return;
+        }
+        mBlobRefs.remove(hash);
+        mVerified.remove(hash);
+        mTotalBytes -= length;
+    }
+
+    /*
+     * Removes the least recently used entries until the content fits,
+     * always keeping the most recent one.
+     */
+    private void evict()
+    {
+        final Iterator<Entry> iter = mEntries.values().iterator();
+        while ((mTotalBytes > mMaxBytes) && (mEntries.size() > 1) && iter.hasNext())
+        {
+            final Entry entry = iter.next();
+            iter.remove();
+            release(entry.hash, entry.length);
+            getIndexFile(entry.key).delete();
+            mValidated.remove(entry.key);
+        }
+    }
+
+    /*
+     * Reads the index files, in order of use, evicts what doesn't fit
+     * and deletes the files left by an interrupted download, unreadable
+     * index files and content no index file refers to, including content
+     * released while the cache was last used.
+     */
+    private void load()
+    {
+        if (mLoaded)
+        {
+            return;
+        }
+        mLoaded = true;
+        mUrlDir.mkdirs();
+        mBlobDir.mkdirs();
+        deleteFiles(mTempDir.listFiles());
+
+        final List<Entry> entries = new ArrayList<Entry>();
+        final File[] indexFiles = mUrlDir.listFiles();
+        for (File file : (indexFiles != null) ? indexFiles : new File[0])
+        {
+            final Entry entry = readEntry(file);
+            if (entry == null)
+            {
+                file.delete();
+            }
+            else
+            {
+                entries.add(entry);
+            }
+        }
+        Collections.sort(entries, new Comparator<Entry>()
+        {
+            public int compare(Entry a, Entry b)
+            {
+                return (a.lastUsed < b.lastUsed) ? -1 : ((a.lastUsed == b.lastUsed) ? 0 : 1);
+            }
+        });
+        for (Entry entry : entries)
+        {
+            mEntries.put(entry.key, entry);
+            retain(entry.hash, entry.length);
+        }
+        evict();
+
+        final File[] blobs = mBlobDir.listFiles();
+        for (File blob : (blobs != null) ? blobs : new File[0])
+        {
+            if (!mBlobRefs.containsKey(blob.getName()))
+            {
+                blob.delete();
+            }
+        }
+    }
+
+    private Entry readEntry(File file)
+    {
+        try
+        {
+            final Properties properties = readIndex(file);
+            final Entry entry = new Entry();
+            entry.key = file.getName();
+            entry.url = properties.getProperty(KEY_URL);
+            entry.hash = properties.getProperty(KEY_HASH);
+            entry.length = Long.parseLong(properties.getProperty(KEY_LENGTH));
+            entry.expires = Long.parseLong(properties.getProperty(KEY_EXPIRES, "0"));
+            entry.etag = properties.getProperty(KEY_ETAG);
+            entry.lastModified = properties.getProperty(KEY_LAST_MODIFIED);
+            entry.lastUsed = file.lastModified();
+            if ((entry.url == null) || (entry.hash == null)
+                || !entry.key.equals(toHex(digest("SHA-1", entry.url.getBytes(UTF8))))
+                || (getBlobFile(entry.hash).length() != entry.length))
+            {
+                return null;
+            }
+            return entry;
+        }
+        catch (IOException ex)
+        {
+            return null;
+        }
+        catch (NumberFormatException ex)
+        {
+            return null;
+        }
+    }
+
+    private static Properties readIndex(File file) throws IOException
+    {
+        final Properties properties = new Properties();
+        final InputStream stream = new FileInputStream(file);
+        try
+        {
+            properties.load(new InputStreamReader(stream, UTF8));
+        }
+        finally
+        {
+            stream.close();
+        }
+        return properties;
+    }
+
+    /*
+     * Writes the index file next to it and renames it into place
+     */
+    private void writeIndex(String key, Properties properties) throws IOException
+    {
+        mTempDir.mkdirs();
+        final File temp = File.createTempFile("index", null, mTempDir);
+        try
+        {
+            final FileOutputStream stream = new FileOutputStream(temp);
+            try
+            {
+                final Writer writer = new OutputStreamWriter(stream, UTF8);
+                properties.store(writer, null);
+                writer.flush();
+                stream.getFD().sync();
+            }
+            finally
+            {
+                stream.close();
+            }
+            if (!temp.renameTo(getIndexFile(key)))
+            {
+                throw new IOException("Cannot write cache index " + key);
+            }
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    private File getBlobFile(String hash)
+    {
+        return new File(mBlobDir, hash);
+    }
+
+    private File getIndexFile(String key)
+    {
+        return new File(mUrlDir, key);
+    }
+
+    /*
+     * Time until which the response may be used without revalidation,
+     * from the max-age of its Cache-Control header.
+     */
+    private static long getExpires(URLConnection connection)
+    {
+        final String control = connection.getHeaderField("Cache-Control");
+        if (control == null)
+        {
+            return 0;
+        }
+        long maxAge = 0;
+        for (String directive : control.split(","))
+        {
+            directive = directive.trim().toLowerCase();
+            if (directive.equals("no-cache") || directive.equals("no-store"))
+            {
+                return 0;
+            }
+            if (directive.startsWith("max-age="))
+            {
+                try
+                {
+                    maxAge = Long.parseLong(directive.substring(8).trim());
+                }
+                catch (NumberFormatException ex)
+                {
+                    return 0;
+                }
+            }
+        }
+        return (maxAge > 0) ? System.currentTimeMillis() + maxAge * 1000 : 0;
+    }
+
+    private static void deleteFiles(File[] files)
+    {
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+    }
+
+    static String hashFile(File file) throws IOException
+    {
+        final MessageDigest digest = newDigest("SHA-256");
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final InputStream stream = new FileInputStream(file);
+        try
+        {
+            int count;
+            while ((count = stream.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, count);
+            }
+        }
+        finally
+        {
+            stream.close();
+        }
+        return toHex(digest.digest());
+    }
+
+    private static byte[] digest(String algorithm, byte[] data)
+    {
+        return newDigest(algorithm).digest(data);
+    }
+
+    private static MessageDigest newDigest(String algorithm)
+    {
+        try
+        {
+            return MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new IllegalStateException(algorithm + " is not available", ex);
+        }
+    }
+
+    static String toHex(byte[] bytes)
+    {
+        final char[] digits = "0123456789abcdef".toCharArray();
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i)
+        {
+            hex[2 * i] = digits[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = digits[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static boolean isHex(String text, int length)
+    {
+        for (int i = 0; i < length; ++i)
+        {
+            if (Character.digit(text.charAt(i), 16) < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
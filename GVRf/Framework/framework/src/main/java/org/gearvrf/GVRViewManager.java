@@ -23,6 +23,9 @@ import org.gearvrf.animation.GVRAnimation;
 import org.gearvrf.animation.GVROnFinish;
 import org.gearvrf.animation.GVROpacityAnimation;
 import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader;
+import org.gearvrf.debug.GVRFrameProfiler;
+import org.gearvrf.debug.GVRFrameProfiler.Phase;
+import org.gearvrf.debug.GVRTrace;
 import org.gearvrf.io.GVRGearCursorController;
 import org.gearvrf.io.GVRInputManager;
 import org.gearvrf.script.IScriptManager;
@@ -37,10 +40,8 @@ import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -175,16 +176,12 @@ abstract class GVRViewManager extends GVRContext {
 
     @Override
     public void registerDrawFrameListener(GVRDrawFrameListener frameListener) {
-        if (!mFrameListeners.contains(frameListener)) {
-            mFrameListeners.add(frameListener);
-        }
+        mFrameListeners.add(frameListener);
     }
 
     @Override
     public void unregisterDrawFrameListener(GVRDrawFrameListener frameListener) {
-        if (mFrameListeners.contains(frameListener)) {
-            mFrameListeners.remove(frameListener);
-        }
+        mFrameListeners.remove(frameListener);
     }
 
     /**
@@ -264,6 +261,8 @@ abstract class GVRViewManager extends GVRContext {
          * Without the sensor data, can't draw a scene properly.
          */
         if (!(mSensoredScene == null || !mMainScene.equals(mSensoredScene))) {
+            final GVRFrameProfiler profiler = getFrameProfiler();
+            long startTime = profiler.begin();
             Runnable runnable;
             while ((runnable = mRunnables.poll()) != null) {
                 try {
@@ -273,9 +272,16 @@ abstract class GVRViewManager extends GVRContext {
                     exc.printStackTrace();
                 }
             }
-
-            final List<GVRDrawFrameListener> frameListeners = mFrameListeners;
-            for (GVRDrawFrameListener listener : frameListeners) {
+            profiler.end(Phase.GL_RUNNABLES, startTime);
+
+            startTime = profiler.begin();
+            final DrawFrameListenerRegistry frameListeners = mFrameListeners;
+            final int numListeners = frameListeners.beginFrame();
+            for (int i = 0; i < numListeners; ++i) {
+                final GVRDrawFrameListener listener = frameListeners.get(i);
+                if (listener == null) {
+                    continue;
+                }
                 try {
                     listener.onDrawFrame(mFrameTime);
                 } catch (final Exception exc) {
@@ -283,6 +289,7 @@ abstract class GVRViewManager extends GVRContext {
                     exc.printStackTrace();
                 }
             }
+            profiler.end(Phase.FRAME_LISTENERS, startTime);
         }
 
         return currentTime;
@@ -465,7 +472,10 @@ abstract class GVRViewManager extends GVRContext {
                 }
             });
 
+            final GVRFrameProfiler profiler = getFrameProfiler();
+            final long startTime = profiler.begin();
             getInputManager().updateGearControllers();
+            profiler.end(Phase.INPUT, startTime);
         }
 
         @Override
@@ -510,13 +520,23 @@ abstract class GVRViewManager extends GVRContext {
     }
 
     protected void beforeDrawEyes() {
+        final GVRFrameProfiler profiler = getFrameProfiler();
+        profiler.markFrame();
+        mFrameTraceStart = GVRTrace.begin();
+
         GVRNotifications.notifyBeforeStep();
         mFrameHandler.beforeDrawEyes();
+
+        final long startTime = profiler.begin();
         makeShadowMaps(mMainScene.getNative(), getMainScene(), mRenderBundle.getShaderManager().getNative(),
                        mRenderBundle.getPostEffectRenderTextureA().getWidth(), mRenderBundle.getPostEffectRenderTextureA().getHeight());
+        profiler.end(Phase.SHADOW_MAPS, startTime);
     }
 
     protected void afterDrawEyes() {
+        final GVRFrameProfiler profiler = getFrameProfiler();
+        final long startTime = profiler.begin();
+
         // Execute post-rendering tasks (after drawing eyes, but
         // before afterDrawEyes handlers)
         synchronized (mRunnablesPostRender) {
@@ -534,7 +554,35 @@ abstract class GVRViewManager extends GVRContext {
 
         mFrameHandler.afterDrawEyes();
         finalizeUnreachableObjects();
+        profiler.end(Phase.FINALIZE, startTime);
         GVRNotifications.notifyAfterStep();
+        GVRTrace.end(GVRTrace.CATEGORY_FRAME, "frame", mFrameTraceStart);
+
+        if (profiler.isEnabled()) {
+            reportFrameProfile(profiler);
+        }
+    }
+
+    /*
+     * Logs the frame phase timings and shows them with the scene
+     * statistics every DEBUG_STATS_PERIOD_MS. The samples are only
+     * discarded if the profiler was asked to reset after each report.
+     */
+    private void reportFrameProfile(GVRFrameProfiler profiler) {
+        final long now = GVRTime.getMilliTime();
+
+        if (mLastProfileReportTime == 0) {
+            mLastProfileReportTime = now;
+        } else if (now - mLastProfileReportTime >= DEBUG_STATS_PERIOD_MS) {
+            mLastProfileReportTime = now;
+            profiler.logReport();
+            if (mMainScene != null) {
+                mMainScene.addStatMessage(System.lineSeparator() + profiler.getReport());
+            }
+            if (profiler.isResetAfterReport()) {
+                profiler.reset();
+            }
+        }
     }
 
     void cullAndRender(GVRRenderTarget renderTarget, GVRScene scene)
@@ -829,9 +877,11 @@ abstract class GVRViewManager extends GVRContext {
 
     protected FrameHandler mFrameHandler = firstFrame;
 
-    protected List<GVRDrawFrameListener> mFrameListeners = new CopyOnWriteArrayList<GVRDrawFrameListener>();
+    protected final DrawFrameListenerRegistry mFrameListeners = new DrawFrameListenerRegistry();
     protected final Queue<Runnable> mRunnables = new LinkedBlockingQueue<Runnable>();
     protected final Map<Runnable, Integer> mRunnablesPostRender = new HashMap<Runnable, Integer>();
+    private long mLastProfileReportTime = 0;
+    private long mFrameTraceStart = 0;
 
     protected GVRScene mMainScene;
     protected GVRScene mPendingMainScene;
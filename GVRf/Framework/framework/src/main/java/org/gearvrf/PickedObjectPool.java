@@ -0,0 +1,76 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.Arrays;
+
+/**
+ * Two sets of reusable picked objects, used in turn by
+ * {@link GVRPickResults} to describe its hits to the pick events.
+ * <p>
+ * The picker compares the hits of a pick with those of the previous
+ * one, so the objects of the previous pick must stay intact while the
+ * new ones are filled in. The objects of a set are reused two picks
+ * later. The array of a set is reused as long as the number of hits
+ * does not change, which makes a steady pick free of allocations.
+ */
+final class PickedObjectPool
+{
+    private static final GVRPicker.GVRPickedObject[] sEmpty = new GVRPicker.GVRPickedObject[0];
+
+    private final GVRPicker.GVRPickedObject[][] mObjects = { sEmpty, sEmpty };
+    private final GVRPicker.GVRPickedObject[][] mArrays = { sEmpty, sEmpty };
+    private int mSet = 0;
+
+    /**
+     * Switches to the other set and gets an array holding the
+     * given number of its picked objects. The objects past
+     * the ones returned are cleared so they do not keep scene
+     * objects alive.
+     * @param count number of picked objects needed
+     * @return array of exactly count picked objects, to be filled in
+     */
+    GVRPicker.GVRPickedObject[] next(int count)
+    {
+        mSet ^= 1;
+        GVRPicker.GVRPickedObject[] objects = mObjects[mSet];
+        GVRPicker.GVRPickedObject[] picked = mArrays[mSet];
+
+        if (objects.length < count)
+        {
+            objects = Arrays.copyOf(objects, Math.max(count, objects.length * 2));
+            mObjects[mSet] = objects;
+        }
+        if (picked.length != count)
+        {
+            picked = (count > 0) ? new GVRPicker.GVRPickedObject[count] : sEmpty;
+            mArrays[mSet] = picked;
+        }
+        for (int i = 0; i < count; ++i)
+        {
+            if (objects[i] == null)
+            {
+                objects[i] = new GVRPicker.GVRPickedObject();
+            }
+            picked[i] = objects[i];
+        }
+        for (int i = count; (i < objects.length) && (objects[i] != null); ++i)
+        {
+            objects[i].clear();
+        }
+        return picked;
+    }
+}
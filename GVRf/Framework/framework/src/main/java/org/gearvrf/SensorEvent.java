@@ -45,6 +45,20 @@ public class SensorEvent {
     private static SensorEvent recyclerTop;
     private SensorEvent next;
 
+    // Delivers this event without reflection; kept with the recycled event
+    final GVREventManager.IEventDispatcher<ISensorEvents> dispatcher =
+            new GVREventManager.IEventDispatcher<ISensorEvents>() {
+                @Override
+                public void dispatch(ISensorEvents handler) {
+                    handler.onSensorEvent(SensorEvent.this);
+                }
+
+                @Override
+                public Object[] getParams() {
+                    return new Object[] { SensorEvent.this };
+                }
+            };
+
     SensorEvent(){
 
     }
@@ -0,0 +1,352 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Blend shapes stored as runs of the vertices they move, with the
+ * weighted sum of the active shapes accumulated on the CPU.
+ *
+ * Each shape keeps only the vertices where at least one of its deltas
+ * is not zero, as runs of consecutive vertices: the first vertex and
+ * the number of vertices of each run, and the deltas of those vertices
+ * packed one after the other. A vertex has {@code floatsPerVertex}
+ * deltas, laid out as a row of the morph texture.
+ *
+ * The accumulated deltas have one row per vertex. When a weight
+ * changes, only the rows of the vertices moved by that shape are
+ * recomputed, from all the shapes with a weight which is not zero,
+ * in the order of the shapes. The result is the same as summing the
+ * dense deltas of every shape multiplied by its weight, in the same
+ * order. {@link #getDirtyBegin()} and {@link #getDirtyEnd()} give the
+ * range of rows to upload after {@link #accumulate()}.
+ *
+ * @see GVRMeshMorph
+ */
+final class SparseBlendShapes
+{
+    /**
+     * Largest fraction of the vertices the shapes may move, on average,
+     * for sparse shapes to be smaller and cheaper to update than a
+     * dense morph texture.
+     */
+    static final float MAX_SPARSE_FRACTION = 0.25f;
+
+    private final int mNumVerts;
+    private final int mFloatsPerVertex;
+    private final float[] mWeights;
+    private final float[] mAccumulated;
+
+    // Per shape
+    private final int[][] mRunStarts;
+    private final int[][] mRunLengths;
+    private final int[] mRunCount;
+    private final float[][] mDeltas;
+
+    // Rows to recompute, and the range they span
+    private final boolean[] mDirty;
+    private int mDirtyBegin;
+    private int mDirtyEnd;
+    private boolean mMarked;
+
+    /**
+     * @param numShapes         number of blend shapes
+     * @param numVerts          number of vertices of the base shape
+     * @param floatsPerVertex   number of deltas per vertex
+     */
+    SparseBlendShapes(int numShapes, int numVerts, int floatsPerVertex)
+    {
+        mNumVerts = numVerts;
+        mFloatsPerVertex = floatsPerVertex;
+        mWeights = new float[numShapes];
+        mAccumulated = new float[numVerts * floatsPerVertex];
+        mRunStarts = new int[numShapes][];
+        mRunLengths = new int[numShapes][];
+        mRunCount = new int[numShapes];
+        mDeltas = new float[numShapes][];
+        mDirty = new boolean[numVerts];
+        for (int i = 0; i < numShapes; ++i)
+        {
+            mRunStarts[i] = new int[0];
+            mRunLengths[i] = new int[0];
+            mDeltas[i] = new float[0];
+        }
+        markAll();
+    }
+
+    /**
+     * Counts the vertices whose position differs in a blend shape.
+     * @param base      positions of the base shape, 3 floats per vertex
+     * @param target    positions of the blend shape, 3 floats per vertex
+     */
+    static int countMovedVertices(float[] base, FloatBuffer target)
+    {
+        final int n = Math.min(base.length, target.limit());
+        int moved = 0;
+
+        for (int i = 0; i + 2 < n; i += 3)
+        {
+            if ((base[i] != target.get(i)) ||
+                (base[i + 1] != target.get(i + 1)) ||
+                (base[i + 2] != target.get(i + 2)))
+            {
+                ++moved;
+            }
+        }
+        return moved;
+    }
+
+    int getShapeCount()
+    {
+        return mWeights.length;
+    }
+
+    /**
+     * Gets the accumulated deltas, {@code floatsPerVertex} per vertex.
+     * The array is updated in place by {@link #accumulate()}.
+     */
+    float[] getAccumulated()
+    {
+        return mAccumulated;
+    }
+
+    /**
+     * Gets the number of vertices a shape moves.
+     */
+    int getVertexCount(int shape)
+    {
+        return mDeltas[shape].length / mFloatsPerVertex;
+    }
+
+    /**
+     * Gets the first row changed by the last {@link #accumulate()}.
+     */
+    int getDirtyBegin()
+    {
+        return mDirtyBegin;
+    }
+
+    /**
+     * Gets the row after the last one changed by the last
+     * {@link #accumulate()}, equal to {@link #getDirtyBegin()}
+     * if nothing changed.
+     */
+    int getDirtyEnd()
+    {
+        return mDirtyEnd;
+    }
+
+    /**
+     * Replaces the deltas of a shape.
+     * @param shape index of the shape
+     * @param diffs {@code floatsPerVertex} deltas for every vertex,
+     *              the vertices which don't move are all zero
+     */
+    void setShape(int shape, float[] diffs)
+    {
+        if (diffs.length < mNumVerts * mFloatsPerVertex)
+        {
+            throw new IllegalArgumentException("All blend shapes must have the same number of vertices");
+        }
+        if (mWeights[shape] != 0)
+        {
+            markShape(shape);
+        }
+
+        int numRuns = 0;
+        int numMoved = 0;
+        boolean inRun = false;
+        for (int v = 0; v < mNumVerts; ++v)
+        {
+            final boolean moved = isMoved(diffs, v);
+            if (moved)
+            {
+                ++numMoved;
+                if (!inRun)
+                {
+                    ++numRuns;
+                }
+            }
+            inRun = moved;
+        }
+
+        final int[] starts = new int[numRuns];
+        final int[] lengths = new int[numRuns];
+        final float[] deltas = new float[numMoved * mFloatsPerVertex];
+        int run = -1;
+        int d = 0;
+        inRun = false;
+        for (int v = 0; v < mNumVerts; ++v)
+        {
+            final boolean moved = isMoved(diffs, v);
+            if (moved)
+            {
+                if (!inRun)
+                {
+                    starts[++run] = v;
+                }
+                ++lengths[run];
+                System.arraycopy(diffs, v * mFloatsPerVertex, deltas, d, mFloatsPerVertex);
+                d += mFloatsPerVertex;
+            }
+            inRun = moved;
+        }
+        mRunStarts[shape] = starts;
+        mRunLengths[shape] = lengths;
+        mRunCount[shape] = numRuns;
+        mDeltas[shape] = deltas;
+
+        if (mWeights[shape] != 0)
+        {
+            markShape(shape);
+        }
+    }
+
+    /**
+     * Sets the weights of the shapes and marks the rows of the shapes
+     * whose weight changed.
+     * @return true if any weight changed
+     */
+    boolean setWeights(float[] weights)
+    {
+        boolean changed = false;
+        for (int i = 0; i < mWeights.length; ++i)
+        {
+            if (Float.floatToIntBits(weights[i]) != Float.floatToIntBits(mWeights[i]))
+            {
+                mWeights[i] = weights[i];
+                markShape(i);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Marks every row, to accumulate all of them again.
+     */
+    void markAll()
+    {
+        Arrays.fill(mDirty, true);
+        mDirtyBegin = 0;
+        mDirtyEnd = mNumVerts;
+        mMarked = true;
+    }
+
+    /**
+     * Recomputes the marked rows. Afterwards, {@link #getDirtyBegin()}
+     * and {@link #getDirtyEnd()} give the range of rows which changed,
+     * and no row is marked.
+     */
+    void accumulate()
+    {
+        if (!mMarked)
+        {
+            mDirtyBegin = mDirtyEnd = 0;
+            return;
+        }
+        final int begin = mDirtyBegin;
+        final int end = mDirtyEnd;
+        final int fpv = mFloatsPerVertex;
+
+        for (int v = begin; v < end; ++v)
+        {
+            if (mDirty[v])
+            {
+                Arrays.fill(mAccumulated, v * fpv, (v + 1) * fpv, 0.0f);
+            }
+        }
+        for (int shape = 0; shape < mWeights.length; ++shape)
+        {
+            final float w = mWeights[shape];
+            if (w == 0)
+            {
+                continue;
+            }
+            final int[] starts = mRunStarts[shape];
+            final int[] lengths = mRunLengths[shape];
+            final float[] deltas = mDeltas[shape];
+            int d = 0;
+            for (int r = 0; r < mRunCount[shape]; ++r)
+            {
+                final int first = starts[r];
+                final int last = first + lengths[r];
+                if ((last <= begin) || (first >= end))
+                {
+                    d += lengths[r] * fpv;
+                    continue;
+                }
+                for (int v = first; v < last; ++v, d += fpv)
+                {
+                    if (mDirty[v])
+                    {
+                        final int a = v * fpv;
+                        for (int j = 0; j < fpv; ++j)
+                        {
+                            mAccumulated[a + j] += w * deltas[d + j];
+                        }
+                    }
+                }
+            }
+        }
+        Arrays.fill(mDirty, begin, end, false);
+        // The range stays for the caller, the next mark starts a new one
+        mMarked = false;
+    }
+
+    private void markShape(int shape)
+    {
+        final int numRuns = mRunCount[shape];
+        if (numRuns == 0)
+        {
+            return;
+        }
+        final int[] starts = mRunStarts[shape];
+        final int[] lengths = mRunLengths[shape];
+        final int first = starts[0];
+        final int last = starts[numRuns - 1] + lengths[numRuns - 1];
+
+        for (int r = 0; r < numRuns; ++r)
+        {
+            Arrays.fill(mDirty, starts[r], starts[r] + lengths[r], true);
+        }
+        if (!mMarked)
+        {
+            mDirtyBegin = first;
+            mDirtyEnd = last;
+            mMarked = true;
+        }
+        else
+        {
+            mDirtyBegin = Math.min(mDirtyBegin, first);
+            mDirtyEnd = Math.max(mDirtyEnd, last);
+        }
+    }
+
+    private boolean isMoved(float[] diffs, int v)
+    {
+        for (int j = v * mFloatsPerVertex, end = j + mFloatsPerVertex; j < end; ++j)
+        {
+            if (diffs[j] != 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
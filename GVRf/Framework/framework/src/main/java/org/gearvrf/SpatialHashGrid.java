@@ -0,0 +1,511 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid of cubic cells over axis aligned boxes, hashed so that
+ * only the cells which contain something take memory.
+ *
+ * Each box has an integer id chosen by the owner of the grid, and is
+ * stored in every cell it overlaps. Moving a box only touches the grid
+ * if the range of cells it overlaps changes, so boxes which stay still
+ * or move within their cells cost nothing. Boxes which overlap too many
+ * cells, or are infinite, are kept in a separate list which every query
+ * returns.
+ * <p>
+ * A query returns each id overlapping the query box once, in no
+ * particular order. A grid is not thread safe.
+ *
+ * @see BoundsBroadphase
+ */
+final class SpatialHashGrid
+{
+    /** Largest number of cells a box is stored in before it is treated as large */
+    static final int MAX_CELLS = 64;
+
+    private static final int ABSENT = 0;
+    private static final int IN_CELLS = 1;
+    private static final int LARGE = 2;
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final int COORD_BITS = 21;
+    private static final int COORD_MASK = (1 << COORD_BITS) - 1;
+    private static final int MAX_COORD = (1 << (COORD_BITS - 1)) - 1;
+
+    private final float mCellSize;
+    private final float mInvCellSize;
+
+    // Open addressing table from cell key to cell
+    private long[] mKeys;
+    private int[] mCellOf;
+    private int mNumCells = 0;
+
+    // Members of each cell
+    private int[][] mMembers = new int[16][];
+    private int[] mMemberCount = new int[16];
+
+    // Per id state: where it is stored and the cell range it covers
+    private int[] mState = new int[16];
+    private int[] mRange = new int[16 * 6];
+    private int[] mLargeIndex = new int[16];
+    private int[] mStamp = new int[16];
+    private int mNumStored = 0;
+
+    private int[] mLarge = new int[16];
+    private int mNumLarge = 0;
+
+    private int mQueryStamp = 0;
+    private int[] mResults = new int[64];
+    private final int[] mQueryRange = new int[6];
+
+    /**
+     * Constructs an empty grid.
+     * @param cellSize length of the side of a cell in world units
+     */
+    SpatialHashGrid(float cellSize)
+    {
+        if (!(cellSize > 0) || Float.isInfinite(cellSize))
+        {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        mCellSize = cellSize;
+        mInvCellSize = 1.0f / cellSize;
+        mKeys = new long[64];
+        mCellOf = new int[64];
+        Arrays.fill(mKeys, EMPTY_KEY);
+    }
+
+    float getCellSize()
+    {
+        return mCellSize;
+    }
+
+    /**
+     * Gets the number of cells which have been allocated.
+     */
+    int getCellCount()
+    {
+        return mNumCells;
+    }
+
+    /**
+     * Gets the number of boxes in the grid.
+     */
+    int getSize()
+    {
+        return mNumStored;
+    }
+
+    /**
+     * Adds a box or moves it if it is already in the grid.
+     * Infinite or NaN bounds make a box which every query returns.
+     * @param id    non negative id of the box
+     */
+    void update(int id, float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+    {
+        ensureId(id);
+        final int[] range = mQueryRange;
+        final boolean bounded = cellRange(minX, minY, minZ, maxX, maxY, maxZ, range);
+        final long cells = bounded ? (long) (range[3] - range[0] + 1) * (range[4] - range[1] + 1) * (range[5] - range[2] + 1)
+                                   : Long.MAX_VALUE;
+        final int state = mState[id];
+
+        if (cells > MAX_CELLS)
+        {
+            if (state == LARGE)
+            {
+                return;
+            }
+            remove(id);
+            addLarge(id);
+            return;
+        }
+        if (state == IN_CELLS)
+        {
+            final int r = id * 6;
+            if ((mRange[r] == range[0]) && (mRange[r + 1] == range[1]) && (mRange[r + 2] == range[2]) &&
+                (mRange[r + 3] == range[3]) && (mRange[r + 4] == range[4]) && (mRange[r + 5] == range[5]))
+            {
+                return;
+            }
+        }
+        remove(id);
+        System.arraycopy(range, 0, mRange, id * 6, 6);
+        mState[id] = IN_CELLS;
+        ++mNumStored;
+        forRange(id, true);
+        if (mNumCells > 4 * MAX_CELLS * Math.max(mNumStored, 16))
+        {
+            compact();
+        }
+    }
+
+    /**
+     * Removes a box from the grid. Ids which are not in the grid are ignored.
+     */
+    void remove(int id)
+    {
+        if (id >= mState.length)
+        {
+            return;
+        }
+        final int state = mState[id];
+        if (state == IN_CELLS)
+        {
+            forRange(id, false);
+        }
+        else if (state == LARGE)
+        {
+            final int index = mLargeIndex[id];
+            final int last = mLarge[--mNumLarge];
+            mLarge[index] = last;
+            mLargeIndex[last] = index;
+        }
+        else
+        {
+            return;
+        }
+        mState[id] = ABSENT;
+        --mNumStored;
+    }
+
+    /**
+     * Removes all the boxes, keeping the allocated memory.
+     */
+    void clear()
+    {
+        Arrays.fill(mKeys, EMPTY_KEY);
+        Arrays.fill(mMemberCount, 0, mNumCells, 0);
+        Arrays.fill(mState, ABSENT);
+        mNumCells = 0;
+        mNumLarge = 0;
+        mNumStored = 0;
+    }
+
+    /**
+     * Finds the boxes which may overlap a query box. The ids found
+     * are in {@link #getResults()}; the array is reused by the next query.
+     * @return number of ids found
+     */
+    int query(float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+    {
+        int n = 0;
+
+        if (++mQueryStamp == 0)
+        {
+            Arrays.fill(mStamp, 0);
+            mQueryStamp = 1;
+        }
+        for (int i = 0; i < mNumLarge; ++i)
+        {
+            n = addResult(mLarge[i], n);
+        }
+        final int[] range = mQueryRange;
+        if (!cellRange(minX, minY, minZ, maxX, maxY, maxZ, range) ||
+            ((long) (range[3] - range[0] + 1) * (range[4] - range[1] + 1) * (range[5] - range[2] + 1) > mNumCells))
+        {
+            // Cheaper to visit every allocated cell than every cell of the query
+            for (int slot = 0; slot < mKeys.length; ++slot)
+            {
+                final long key = mKeys[slot];
+                if ((key != EMPTY_KEY) && (!isBounded(range) || inRange(key, range)))
+                {
+                    n = addMembers(mCellOf[slot], n);
+                }
+            }
+            return n;
+        }
+        for (int x = range[0]; x <= range[3]; ++x)
+        {
+            for (int y = range[1]; y <= range[4]; ++y)
+            {
+                for (int z = range[2]; z <= range[5]; ++z)
+                {
+                    final int cell = findCell(makeKey(x, y, z));
+                    if (cell >= 0)
+                    {
+                        n = addMembers(cell, n);
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    int[] getResults()
+    {
+        return mResults;
+    }
+
+    private int addMembers(int cell, int n)
+    {
+        final int[] members = mMembers[cell];
+        final int count = mMemberCount[cell];
+
+        for (int i = 0; i < count; ++i)
+        {
+            n = addResult(members[i], n);
+        }
+        return n;
+    }
+
+    private int addResult(int id, int n)
+    {
+        if (mStamp[id] != mQueryStamp)
+        {
+            mStamp[id] = mQueryStamp;
+            if (n == mResults.length)
+            {
+                mResults = Arrays.copyOf(mResults, n * 2);
+            }
+            mResults[n++] = id;
+        }
+        return n;
+    }
+
+    /*
+     * Computes the range of cells a box overlaps, clamped to the
+     * coordinates a key can hold. Returns false if the box is not finite.
+     */
+    private boolean cellRange(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] range)
+    {
+        range[0] = cellCoord(minX);
+        range[1] = cellCoord(minY);
+        range[2] = cellCoord(minZ);
+        range[3] = cellCoord(maxX);
+        range[4] = cellCoord(maxY);
+        range[5] = cellCoord(maxZ);
+        return isBounded(range);
+    }
+
+    private static boolean isBounded(int[] range)
+    {
+        for (int a = 0; a < 3; ++a)
+        {
+            if ((range[a] > range[a + 3]) || (range[a] == Integer.MIN_VALUE) || (range[a + 3] == Integer.MIN_VALUE))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int cellCoord(float v)
+    {
+        final float c = (float) Math.floor(v * mInvCellSize);
+        if (Float.isNaN(c) || Float.isInfinite(c))
+        {
+            return Integer.MIN_VALUE;
+        }
+        return (int) Math.max(-MAX_COORD, Math.min(MAX_COORD, c));
+    }
+
+    private static long makeKey(int x, int y, int z)
+    {
+        return ((long) (x & COORD_MASK) << (2 * COORD_BITS)) | ((long) (y & COORD_MASK) << COORD_BITS) | (z & COORD_MASK);
+    }
+
+    private static boolean inRange(long key, int[] range)
+    {
+        final int x = ((int) (key >>> (2 * COORD_BITS)) << (32 - COORD_BITS)) >> (32 - COORD_BITS);
+        final int y = ((int) (key >>> COORD_BITS) << (32 - COORD_BITS)) >> (32 - COORD_BITS);
+        final int z = ((int) key << (32 - COORD_BITS)) >> (32 - COORD_BITS);
+        return (x >= range[0]) && (x <= range[3]) && (y >= range[1]) && (y <= range[4]) &&
+               (z >= range[2]) && (z <= range[5]);
+    }
+
+    private static int hash(long key, int mask)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int findCell(long key)
+    {
+        final int mask = mKeys.length - 1;
+
+        for (int slot = hash(key, mask); ; slot = (slot + 1) & mask)
+        {
+            final long k = mKeys[slot];
+            if (k == key)
+            {
+                return mCellOf[slot];
+            }
+            if (k == EMPTY_KEY)
+            {
+                return -1;
+            }
+        }
+    }
+
+    private int findOrAddCell(long key)
+    {
+        if ((mNumCells + 1) * 2 > mKeys.length)
+        {
+            growTable();
+        }
+        final int mask = mKeys.length - 1;
+        int slot = hash(key, mask);
+
+        while (true)
+        {
+            final long k = mKeys[slot];
+            if (k == key)
+            {
+                return mCellOf[slot];
+            }
+            if (k == EMPTY_KEY)
+            {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        final int cell = mNumCells++;
+        if (cell == mMembers.length)
+        {
+            mMembers = Arrays.copyOf(mMembers, cell * 2);
+            mMemberCount = Arrays.copyOf(mMemberCount, cell * 2);
+        }
+        if (mMembers[cell] == null)
+        {
+            mMembers[cell] = new int[4];
+        }
+        mMemberCount[cell] = 0;
+        mKeys[slot] = key;
+        mCellOf[slot] = cell;
+        return cell;
+    }
+
+    private void growTable()
+    {
+        final long[] oldKeys = mKeys;
+        final int[] oldCells = mCellOf;
+        final int mask = oldKeys.length * 2 - 1;
+
+        mKeys = new long[oldKeys.length * 2];
+        mCellOf = new int[oldKeys.length * 2];
+        Arrays.fill(mKeys, EMPTY_KEY);
+        for (int i = 0; i < oldKeys.length; ++i)
+        {
+            final long key = oldKeys[i];
+            if (key != EMPTY_KEY)
+            {
+                int slot = hash(key, mask);
+                while (mKeys[slot] != EMPTY_KEY)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                mKeys[slot] = key;
+                mCellOf[slot] = oldCells[i];
+            }
+        }
+    }
+
+    /*
+     * Adds an id to or removes it from all the cells of its range.
+     */
+    private void forRange(int id, boolean add)
+    {
+        final int r = id * 6;
+
+        for (int x = mRange[r]; x <= mRange[r + 3]; ++x)
+        {
+            for (int y = mRange[r + 1]; y <= mRange[r + 4]; ++y)
+            {
+                for (int z = mRange[r + 2]; z <= mRange[r + 5]; ++z)
+                {
+                    final long key = makeKey(x, y, z);
+                    if (add)
+                    {
+                        final int cell = findOrAddCell(key);
+                        final int count = mMemberCount[cell];
+                        if (count == mMembers[cell].length)
+                        {
+                            mMembers[cell] = Arrays.copyOf(mMembers[cell], count * 2);
+                        }
+                        mMembers[cell][count] = id;
+                        mMemberCount[cell] = count + 1;
+                    }
+                    else
+                    {
+                        removeMember(findCell(key), id);
+                    }
+                }
+            }
+        }
+    }
+
+    private void removeMember(int cell, int id)
+    {
+        final int[] members = mMembers[cell];
+        final int count = mMemberCount[cell];
+
+        for (int i = 0; i < count; ++i)
+        {
+            if (members[i] == id)
+            {
+                members[i] = members[count - 1];
+                mMemberCount[cell] = count - 1;
+                return;
+            }
+        }
+    }
+
+    private void addLarge(int id)
+    {
+        if (mNumLarge == mLarge.length)
+        {
+            mLarge = Arrays.copyOf(mLarge, mNumLarge * 2);
+        }
+        mLargeIndex[id] = mNumLarge;
+        mLarge[mNumLarge++] = id;
+        mState[id] = LARGE;
+        ++mNumStored;
+    }
+
+    /*
+     * Cells are never freed when they empty, so boxes wandering through
+     * the world leave empty cells behind. Drop them all and put the boxes
+     * back in the cells they overlap now.
+     */
+    private void compact()
+    {
+        Arrays.fill(mKeys, EMPTY_KEY);
+        Arrays.fill(mMemberCount, 0, mNumCells, 0);
+        mNumCells = 0;
+        for (int id = 0; id < mState.length; ++id)
+        {
+            if (mState[id] == IN_CELLS)
+            {
+                forRange(id, true);
+            }
+        }
+    }
+
+    private void ensureId(int id)
+    {
+        if (id < mState.length)
+        {
+            return;
+        }
+        final int size = Math.max(id + 1, mState.length * 2);
+        mState = Arrays.copyOf(mState, size);
+        mRange = Arrays.copyOf(mRange, size * 6);
+        mLargeIndex = Arrays.copyOf(mLargeIndex, size);
+        mStamp = Arrays.copyOf(mStamp, size);
+    }
+}
@@ -0,0 +1,279 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+/**
+ * Bounding volume hierarchy over the triangles of a mesh, used to find
+ * the triangle hit by a ray without testing all of them.
+ *
+ * The vertices of the triangles are copied in the order of the leaves
+ * so a leaf reads contiguous memory. When the vertices move but the
+ * triangles stay the same the tree can be refitted instead of rebuilt.
+ * <p>
+ * The ray test is the same as the one of the native mesh collider:
+ * triangles are two sided and the closest hit with a ray parameter
+ * greater than a small epsilon is returned. A tree is not thread safe.
+ */
+final class TriangleBVH
+{
+    static final int MAX_LEAF_SIZE = 4;
+    private static final float EPSILON = 0.00001f;
+
+    private final int[] mIndices;
+    private final int mNumTriangles;
+    private final BVHTree mTree;
+    private final float[] mVertices;
+    private final int[] mStack;
+
+    /**
+     * Builds the tree.
+     * @param positions three floats per vertex
+     * @param indices   three vertex indices per triangle, or null if
+     *                  consecutive vertices make triangles
+     */
+    TriangleBVH(float[] positions, int[] indices)
+    {
+        if (indices == null)
+        {
+            indices = new int[(positions.length / 9) * 3];
+            for (int i = 0; i < indices.length; ++i)
+            {
+                indices[i] = i;
+            }
+        }
+        mIndices = indices;
+        mNumTriangles = indices.length / 3;
+
+        final float[] triBounds = new float[mNumTriangles * 6];
+        for (int t = 0; t < mNumTriangles; ++t)
+        {
+            BVHTree.setEmpty(triBounds, t * 6);
+            for (int k = 0; k < 3; ++k)
+            {
+                final int v = indices[t * 3 + k] * 3;
+                BVHTree.grow(triBounds, t * 6, positions[v], positions[v + 1], positions[v + 2]);
+            }
+        }
+        mTree = new BVHTree(triBounds, mNumTriangles, MAX_LEAF_SIZE);
+        mVertices = new float[mNumTriangles * 9];
+        mStack = new int[mTree.getMaxDepth() + 1];
+        copyVertices(positions);
+    }
+
+    int getTriangleCount()
+    {
+        return mNumTriangles;
+    }
+
+    /**
+     * Gets the vertex indices of the triangles, three per triangle.
+     */
+    int[] getIndices()
+    {
+        return mIndices;
+    }
+
+    /**
+     * Copies the box enclosing all the triangles.
+     * @param bounds receives minimum x, y, z then maximum x, y, z
+     */
+    void getBounds(float[] bounds)
+    {
+        System.arraycopy(mTree.getBounds(), 0, bounds, 0, 6);
+    }
+
+    /**
+     * Updates the tree after vertices moved, keeping its structure.
+     * The tree gets slower to traverse as the triangles move away
+     * from where they were when it was built.
+     * @param positions new positions, same layout as when built
+     */
+    void refit(float[] positions)
+    {
+        final float[] bounds = mTree.getBounds();
+
+        copyVertices(positions);
+        for (int n = mTree.getNodeCount() - 1; n >= 0; --n)
+        {
+            final int count = mTree.getCount(n);
+            if (count > 0)
+            {
+                final int first = mTree.getFirst(n);
+                BVHTree.setEmpty(bounds, n * 6);
+                for (int v = first * 9; v < (first + count) * 9; v += 3)
+                {
+                    BVHTree.grow(bounds, n * 6, mVertices[v], mVertices[v + 1], mVertices[v + 2]);
+                }
+            }
+            else
+            {
+                mTree.refit(n);
+            }
+        }
+    }
+
+    /**
+     * Finds the closest triangle hit by a ray.
+     * @param maxT      hits with a ray parameter of this or more are ignored
+     * @param result    receives the ray parameter of the hit and the
+     *                  barycentric coordinates of the hit point with
+     *                  respect to the three vertices of the triangle
+     * @return index of the triangle hit, -1 if none
+     */
+    int intersect(float ox, float oy, float oz, float dx, float dy, float dz,
+                  float maxT, float[] result)
+    {
+        if (mNumTriangles == 0)
+        {
+            return -1;
+        }
+        final float[] bounds = mTree.getBounds();
+        final float idx = 1.0f / dx;
+        final float idy = 1.0f / dy;
+        final float idz = 1.0f / dz;
+        final int[] stack = mStack;
+        int top = 0;
+        int node = 0;
+        int hit = -1;
+        float closest = maxT;
+
+        if (!(BVHTree.hitBox(bounds, 0, ox, oy, oz, idx, idy, idz) < closest))
+        {
+            return -1;
+        }
+        while (true)
+        {
+            final int count = mTree.getCount(node);
+            final int first = mTree.getFirst(node);
+            if (count > 0)
+            {
+                for (int i = first; i < first + count; ++i)
+                {
+                    final float t = hitTriangle(i * 9, ox, oy, oz, dx, dy, dz, closest, result);
+                    if (t > 0)
+                    {
+                        closest = t;
+                        hit = i;
+                    }
+                }
+            }
+            else
+            {
+                final float tLeft = BVHTree.hitBox(bounds, first * 6, ox, oy, oz, idx, idy, idz);
+                final float tRight = BVHTree.hitBox(bounds, first * 6 + 6, ox, oy, oz, idx, idy, idz);
+                final boolean hitLeft = tLeft < closest;
+                final boolean hitRight = tRight < closest;
+
+                if (hitLeft && hitRight)
+                {
+                    // Visit the nearer child first, the other may be culled later
+                    stack[top++] = (tLeft <= tRight) ? first + 1 : first;
+                    node = (tLeft <= tRight) ? first : first + 1;
+                    continue;
+                }
+                else if (hitLeft || hitRight)
+                {
+                    node = hitLeft ? first : first + 1;
+                    continue;
+                }
+            }
+            // Skip the nodes on the stack which are now behind a closer hit
+            node = -1;
+            while (top > 0)
+            {
+                final int next = stack[--top];
+                if (BVHTree.hitBox(bounds, next * 6, ox, oy, oz, idx, idy, idz) < closest)
+                {
+                    node = next;
+                    break;
+                }
+            }
+            if (node < 0)
+            {
+                break;
+            }
+        }
+        // Only closer hits update the result, so it holds the closest
+        return (hit >= 0) ? mTree.getOrder()[hit] : -1;
+    }
+
+    /*
+     * Moller-Trumbore test of the triangle whose vertices start at v.
+     * Returns the ray parameter of the hit, -1 if there is no hit
+     * closer than maxT.
+     */
+    private float hitTriangle(int v, float ox, float oy, float oz, float dx, float dy, float dz,
+                              float maxT, float[] result)
+    {
+        final float[] p = mVertices;
+        final float e1x = p[v + 3] - p[v], e1y = p[v + 4] - p[v + 1], e1z = p[v + 5] - p[v + 2];
+        final float e2x = p[v + 6] - p[v], e2y = p[v + 7] - p[v + 1], e2z = p[v + 8] - p[v + 2];
+        final float px = dy * e2z - dz * e2y;
+        final float py = dz * e2x - dx * e2z;
+        final float pz = dx * e2y - dy * e2x;
+        final float det = e1x * px + e1y * py + e1z * pz;
+
+        if ((det > -EPSILON) && (det < EPSILON))
+        {
+            return -1;
+        }
+        final float invDet = 1.0f / det;
+        final float tx = ox - p[v], ty = oy - p[v + 1], tz = oz - p[v + 2];
+        final float u = (tx * px + ty * py + tz * pz) * invDet;
+
+        if ((u < 0.0f) || (u > 1.0f))
+        {
+            return -1;
+        }
+        final float qx = ty * e1z - tz * e1y;
+        final float qy = tz * e1x - tx * e1z;
+        final float qz = tx * e1y - ty * e1x;
+        final float w = (dx * qx + dy * qy + dz * qz) * invDet;
+
+        if ((w < 0.0f) || (u + w > 1.0f))
+        {
+            return -1;
+        }
+        final float t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+        if ((t <= EPSILON) || (t >= maxT))
+        {
+            return -1;
+        }
+        result[0] = t;
+        result[1] = 1.0f - u - w;
+        result[2] = u;
+        result[3] = w;
+        return t;
+    }
+
+    private void copyVertices(float[] positions)
+    {
+        final int[] order = mTree.getOrder();
+
+        for (int i = 0; i < mNumTriangles; ++i)
+        {
+            final int t = order[i] * 3;
+            for (int k = 0; k < 3; ++k)
+            {
+                final int v = mIndices[t + k] * 3;
+                final int d = i * 9 + k * 3;
+                mVertices[d] = positions[v];
+                mVertices[d + 1] = positions[v + 1];
+                mVertices[d + 2] = positions[v + 2];
+            }
+        }
+    }
+}
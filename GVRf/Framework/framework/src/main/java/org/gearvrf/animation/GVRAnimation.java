@@ -122,6 +122,9 @@ public abstract class GVRAnimation {
 
     protected boolean isFinished = false;
 
+    // Index in the active animations of the engine, -1 when not running
+    int mEngineSlot = -1;
+
     /**
      * Base constructor.
      * 
@@ -15,12 +15,14 @@
 
 package org.gearvrf.animation;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.GVRSceneObject;
+import org.gearvrf.debug.GVRFrameProfiler;
 
 /**
  * This class runs {@linkplain GVRAnimation animations}.
@@ -44,6 +46,14 @@ import org.gearvrf.GVRSceneObject;
  * {@linkplain GVROnRepeat callback,} which allows you to terminate the
  * animation before the next loop.
  * </ul>
+ *
+ * <p>
+ * {@link #start(GVRAnimation)} and {@link #stop(GVRAnimation)} can be called
+ * from any thread, including from animation callbacks: they are queued and
+ * take effect at the start of the next animation frame. Running animations
+ * are kept in an array where each one knows its slot, so starting, stopping
+ * and finishing an animation take constant time. The order in which running
+ * animations are updated is not defined.
  */
 public class GVRAnimationEngine {
 
@@ -59,13 +69,35 @@ public class GVRAnimationEngine {
         });
     }
 
-    private final List<GVRAnimation> mAnimations = new CopyOnWriteArrayList<GVRAnimation>();
-    private final GVRDrawFrameListener mOnDrawFrame = new DrawFrame();
+    private GVRAnimation[] mAnimations = new GVRAnimation[64];
+    private int mNumAnimations = 0;
+    final GVRDrawFrameListener mOnDrawFrame = new DrawFrame();
+    private final GVRFrameProfiler mProfiler;
+
+    // Start and stop requests, guarded by mPending
+    private final List<GVRAnimation> mPending = new ArrayList<GVRAnimation>();
+    private final List<Boolean> mPendingStarts = new ArrayList<Boolean>();
+    private volatile boolean mHasPending = false;
+
+    // Counters of the last frame
+    private volatile int mActiveCount = 0;
+    private volatile int mStartedCount = 0;
+    private volatile int mFinishedCount = 0;
+    private int mFrameFinished = 0;
 
     protected GVRAnimationEngine(GVRContext gvrContext) {
+        this(gvrContext.getFrameProfiler());
         gvrContext.registerDrawFrameListener(mOnDrawFrame);
     }
 
+    /*
+     * Makes an engine which is not attached to the frame loop: frames
+     * are only run by calling runFrame().
+     */
+    GVRAnimationEngine(GVRFrameProfiler profiler) {
+        mProfiler = profiler;
+    }
+
     /**
      * The animation engine is an optional part of GVRF: You do have to call
      * {@code getInstance()} to lazy-create the singleton.
@@ -83,7 +115,7 @@ public class GVRAnimationEngine {
 
     /**
      * Registers an animation with the engine: It will start running
-     * immediately.
+     * on the next animation frame.
      * 
      * You will usually use {@link GVRAnimation#start(GVRAnimationEngine)}
      * instead of this method:
@@ -112,7 +144,7 @@ public class GVRAnimationEngine {
     public GVRAnimation start(GVRAnimation animation) {
         if (animation.getRepeatCount() != 0) {
             animation.reset();
-            mAnimations.add(animation);
+            request(animation, Boolean.TRUE);
         }
         animation.onStart();
         return animation;
@@ -139,18 +171,117 @@ public class GVRAnimationEngine {
      *            an animation
      */
     public void stop(GVRAnimation animation) {
-        mAnimations.remove(animation);
+        request(animation, Boolean.FALSE);
+    }
+
+    /**
+     * Gets the number of animations which ran on the last frame.
+     */
+    public int getActiveCount() {
+        return mActiveCount;
+    }
+
+    /**
+     * Gets the number of animations which started running on the last frame.
+     * Restarting an animation which is running does not count.
+     */
+    public int getStartedCount() {
+        return mStartedCount;
+    }
+
+    /**
+     * Gets the number of animations which finished or were stopped
+     * on the last frame.
+     */
+    public int getFinishedCount() {
+        return mFinishedCount;
+    }
+
+    private void request(GVRAnimation animation, Boolean start) {
+        synchronized (mPending) {
+            mPending.add(animation);
+            mPendingStarts.add(start);
+            mHasPending = true;
+        }
+    }
+
+    /*
+     * Applies the queued requests in order. Starting a running animation
+     * and stopping one which is not running have no effect.
+     */
+    private int applyPending() {
+        int started = 0;
+
+        synchronized (mPending) {
+            final int count = mPending.size();
+            for (int i = 0; i < count; ++i) {
+                final GVRAnimation animation = mPending.get(i);
+                if (mPendingStarts.get(i)) {
+                    if (animation.mEngineSlot < 0) {
+                        if (mNumAnimations == mAnimations.length) {
+                            mAnimations = Arrays.copyOf(mAnimations, mNumAnimations * 2);
+                        }
+                        animation.mEngineSlot = mNumAnimations;
+                        mAnimations[mNumAnimations++] = animation;
+                        ++started;
+                    }
+                } else if (animation.mEngineSlot >= 0) {
+                    removeAt(animation.mEngineSlot);
+                }
+            }
+            mPending.clear();
+            mPendingStarts.clear();
+            mHasPending = false;
+        }
+        return started;
+    }
+
+    /*
+     * Moves the last animation into the slot.
+     */
+    private void removeAt(int slot) {
+        final int lastSlot = --mNumAnimations;
+        final GVRAnimation removed = mAnimations[slot];
+
+        if (slot != lastSlot) {
+            final GVRAnimation last = mAnimations[lastSlot];
+            mAnimations[slot] = last;
+            last.mEngineSlot = slot;
+        }
+        mAnimations[lastSlot] = null;
+        removed.mEngineSlot = -1;
+        ++mFrameFinished;
+    }
+
+    /**
+     * Runs one animation frame. Called by the frame listener of the engine.
+     * @param frameTime seconds since the previous frame
+     */
+    void runFrame(float frameTime) {
+        mFrameFinished = 0;
+        final int started = mHasPending ? applyPending() : 0;
+        int i = 0;
+
+        mActiveCount = mNumAnimations;
+        while (i < mNumAnimations) {
+            if (mAnimations[i].onDrawFrame(frameTime)) {
+                ++i;
+            } else {
+                // the animation moved here from the end is updated next
+                removeAt(i);
+            }
+        }
+        mStartedCount = started;
+        mFinishedCount = mFrameFinished;
     }
 
     private final class DrawFrame implements GVRDrawFrameListener {
 
         @Override
         public void onDrawFrame(float frameTime) {
-            for (GVRAnimation animation : mAnimations) {
-                if (animation.onDrawFrame(frameTime) == false) {
-                    mAnimations.remove(animation);
-                }
-            }
+            final long startTime = mProfiler.begin();
+            runFrame(frameTime);
+            mProfiler.end(GVRFrameProfiler.Phase.ANIMATIONS, startTime);
         }
     }
 }
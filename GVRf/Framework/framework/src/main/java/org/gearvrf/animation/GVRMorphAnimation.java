@@ -21,6 +21,9 @@ import org.gearvrf.utility.Log;
  * point values for the N blend weights. Each frame the blend
  * weights given to the {@link GVRMeshMorph} are calculated
  * by interpolating between the key frames.
+ * With a sparse {@link GVRMeshMorph}, only the blend shapes
+ * whose weight changed since the last frame are summed again
+ * and uploaded.
  * @see GVRMeshMorph
  * @see GVRAnimation
  */
@@ -31,6 +31,7 @@ import org.gearvrf.GVRAndroidResource.CancelableCallback;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRHybridObject;
 import org.gearvrf.GVRMesh;
+import org.gearvrf.debug.GVRTrace;
 import org.gearvrf.utility.Exceptions;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.RuntimeAssertion;
@@ -180,8 +181,10 @@ class Throttler implements Scheduler {
         @Override
         public void run() {
             INTERMEDIATE async = null;
+            long traceStart = GVRTrace.begin();
             try {
                 async = loadResource(); // load resource, on background thread
+                GVRTrace.end(GVRTrace.CATEGORY_TEXTURE, "decode", resource.getResourcePath(), traceStart);
             } catch (Throwable t) {
                 t.printStackTrace();
                 async = null;
@@ -190,8 +193,10 @@ class Throttler implements Scheduler {
                 if (async != null) {
                     final INTERMEDIATE loadedResource = async;
                     try {
+                        traceStart = GVRTrace.begin();
                         OUTPUT gvrfResource = converter.convert(gvrContext,
                                 loadedResource);
+                        GVRTrace.end(GVRTrace.CATEGORY_TEXTURE, "upload", resource.getResourcePath(), traceStart);
                         Log.v("ASSET", "Texture: loaded resource %s", resource.getResourcePath());
                         callback.loaded(gvrfResource, resource);
                     } catch (Throwable t) {
@@ -18,6 +18,13 @@ package org.gearvrf.debug;
 import org.gearvrf.utility.Log;
 import org.gearvrf.GVRTime;
 
+/**
+ * Logs how often and how long a piece of code runs.
+ *
+ * @deprecated Use {@link GVRFrameProfiler}, which records percentiles
+ *             without allocating or locking.
+ */
+@Deprecated
 public class GVRCollectStats {
 
     private String mName;
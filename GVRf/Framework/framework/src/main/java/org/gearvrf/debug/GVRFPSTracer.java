@@ -24,7 +24,10 @@ import org.gearvrf.GVRTime;
 /**
  * FPS tracer with smoothing. It accumulates frames in latest T seconds, and compute the frames per second in this
  * time window.
+ *
+ * @deprecated Use {@link GVRFrameProfiler.Phase#FRAME} from {@link GVRFrameProfiler}.
  */
+@Deprecated
 public class GVRFPSTracer {
     protected GVRStatsLine.GVRStandardColumn<Float> mStatColumn;
     protected List<Long> mTimestamps;
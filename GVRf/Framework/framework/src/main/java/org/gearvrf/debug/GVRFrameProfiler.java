@@ -0,0 +1,264 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.debug;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gearvrf.utility.Log;
+
+/**
+ * Measures how long each phase of a frame takes.
+ *
+ * The framework times the phases listed in {@link Phase} on every frame
+ * while the profiler is enabled. The durations go into per-thread
+ * {@link GVRLatencyHistogram}s, so the report shows the median, the tail
+ * (99th percentile) and the worst case of each phase rather than only
+ * an average.
+ * <p>
+ * Timing a phase costs two {@link System#nanoTime()} calls and a bucket
+ * increment, and nothing is allocated. When the profiler is disabled
+ * {@link #begin()} returns 0 and {@link #end} returns immediately.
+ * <pre>
+ *     final GVRFrameProfiler profiler = gvrContext.getFrameProfiler();
+ *     final long start = profiler.begin();
+ *     ...
+ *     profiler.end(GVRFrameProfiler.Phase.ANIMATIONS, start);
+ * </pre>
+ * The profiler can be switched on with the {@code debug_stats} preference,
+ * from the {@link DebugServer} shell with the {@code profile} command,
+ * or with {@link #setEnabled(boolean)}. Use {@link #writeTo(GVRConsole)}
+ * to show the report in VR.
+ */
+public class GVRFrameProfiler {
+    private static final String TAG = "gvrf-stats";
+    private static final double NANO_TO_MILLIS = 1000000.0;
+
+    /**
+     * The timed parts of a frame. Some phases contain others:
+     * {@link #ANIMATIONS} run inside {@link #FRAME_LISTENERS} and
+     * {@link #FRAME} is the time from the start of one frame to the start
+     * of the next.
+     */
+    public enum Phase {
+        FRAME,
+        INPUT,
+        GL_RUNNABLES,
+        FRAME_LISTENERS,
+        ANIMATIONS,
+        SHADOW_MAPS,
+        CULL_RENDER,
+        FINALIZE,
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /*
+     * Histograms written by one thread. They are only cleared by
+     * their own thread, when it sees that the generation changed.
+     */
+    private static class ThreadHistograms {
+        final GVRLatencyHistogram[] mHistograms = new GVRLatencyHistogram[PHASES.length];
+        volatile int mGeneration;
+
+        ThreadHistograms(int generation) {
+            for (int i = 0; i < mHistograms.length; ++i) {
+                mHistograms[i] = new GVRLatencyHistogram();
+            }
+            mGeneration = generation;
+        }
+
+        void reset(int generation) {
+            for (GVRLatencyHistogram h : mHistograms) {
+                h.reset();
+            }
+            mGeneration = generation;
+        }
+    }
+
+    private final List<ThreadHistograms> mAllThreads = new ArrayList<ThreadHistograms>();
+    private final ThreadLocal<ThreadHistograms> mThreadHistograms = new ThreadLocal<ThreadHistograms>() {
+        @Override
+        protected ThreadHistograms initialValue() {
+            ThreadHistograms histograms = new ThreadHistograms(mGeneration);
+            synchronized (mAllThreads) {
+                mAllThreads.add(histograms);
+            }
+            return histograms;
+        }
+    };
+
+    private volatile boolean mEnabled = false;
+    private volatile boolean mResetAfterReport = false;
+    private volatile int mGeneration = 0;
+    private long mFrameStart = 0;
+
+    /**
+     * Checks whether phases are being timed.
+     */
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Starts or stops timing the frame phases.
+     * Samples already recorded are kept until {@link #reset()}.
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    /**
+     * Checks whether the periodic report of the view manager discards the
+     * samples after it is written.
+     */
+    public boolean isResetAfterReport() {
+        return mResetAfterReport;
+    }
+
+    /**
+     * Makes the periodic report of the view manager discard the samples
+     * after it is written, so that each report only covers the frames since
+     * the previous one. By default the samples accumulate until
+     * {@link #reset()}.
+     */
+    public void setResetAfterReport(boolean resetAfterReport) {
+        mResetAfterReport = resetAfterReport;
+    }
+
+    /**
+     * Discards all the samples.
+     * Can be called from any thread.
+     */
+    public void reset() {
+        ++mGeneration;
+    }
+
+    /**
+     * Starts timing a phase.
+     * @return start time to pass to {@link #end}, 0 if the profiler is disabled
+     */
+    public long begin() {
+        return mEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Finishes timing a phase.
+     * @param phase     phase being timed
+     * @param startTime value returned by {@link #begin()}
+     */
+    public void end(Phase phase, long startTime) {
+        if (startTime != 0) {
+            record(phase, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Records a duration measured elsewhere.
+     * @param phase phase the duration belongs to
+     * @param nanos duration in nanoseconds
+     */
+    public void record(Phase phase, long nanos) {
+        final ThreadHistograms histograms = mThreadHistograms.get();
+        final int generation = mGeneration;
+
+        if (histograms.mGeneration != generation) {
+            histograms.reset(generation);
+        }
+        histograms.mHistograms[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Marks the start of a frame and records the time since the
+     * previous one as {@link Phase#FRAME}.
+     * Called by the framework on the GL thread.
+     */
+    public void markFrame() {
+        if (!mEnabled) {
+            mFrameStart = 0;
+            return;
+        }
+        final long now = System.nanoTime();
+        if (mFrameStart != 0) {
+            record(Phase.FRAME, now - mFrameStart);
+        }
+        mFrameStart = now;
+    }
+
+    /**
+     * Gets the samples of a phase recorded by all threads.
+     * Samples recorded while this is called may or may not be included.
+     * @param phase phase to get
+     * @return a new histogram holding a copy of the samples
+     */
+    public GVRLatencyHistogram getHistogram(Phase phase) {
+        final GVRLatencyHistogram merged = new GVRLatencyHistogram();
+        final int generation = mGeneration;
+
+        synchronized (mAllThreads) {
+            for (ThreadHistograms histograms : mAllThreads) {
+                if (histograms.mGeneration == generation) {
+                    merged.add(histograms.mHistograms[phase.ordinal()]);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Gets a summary of the phases which have samples, one line per phase
+     * with the number of samples and the median, 99th percentile and
+     * maximum durations in milliseconds.
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+
+        for (Phase phase : PHASES) {
+            GVRLatencyHistogram h = getHistogram(phase);
+            if (h.getCount() == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(System.lineSeparator());
+            }
+            sb.append(String.format("%s: n=%d p50=%.3f p99=%.3f max=%.3f ms",
+                    phase.name().toLowerCase(), h.getCount(),
+                    h.getPercentile(50) / NANO_TO_MILLIS,
+                    h.getPercentile(99) / NANO_TO_MILLIS,
+                    h.getMax() / NANO_TO_MILLIS));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Logs the report.
+     */
+    public void logReport() {
+        for (String line : getReport().split(System.lineSeparator())) {
+            Log.d(TAG, "%s", line);
+        }
+    }
+
+    /**
+     * Writes the report on a console.
+     * @param console console to write to
+     */
+    public void writeTo(GVRConsole console) {
+        for (String line : getReport().split(System.lineSeparator())) {
+            console.writeLine("%s", line);
+        }
+    }
+}
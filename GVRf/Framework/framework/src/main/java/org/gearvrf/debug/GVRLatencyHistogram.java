@@ -0,0 +1,168 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.debug;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of durations in nanoseconds.
+ *
+ * Every power of two range is split into {@link #SUB_BUCKETS} equal
+ * buckets, so recorded values are kept with a relative error below
+ * 1/{@link #SUB_BUCKETS} over the whole range while using a fixed
+ * amount of memory. Recording a value does not allocate.
+ * <p>
+ * This class is not thread safe: {@link GVRFrameProfiler} keeps one
+ * histogram per thread and merges them with {@link #add} for reports.
+ */
+public class GVRLatencyHistogram {
+    /**
+     * Number of buckets in each power of two range.
+     */
+    public static final int SUB_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /*
+     * Values of 2^MAX_EXPONENT ns (about 18 minutes) and above
+     * are counted in the last bucket.
+     */
+    private static final int MAX_EXPONENT = 40;
+    private static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long[] mCounts = new long[NUM_BUCKETS];
+    private long mCount;
+    private long mSum;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax = 0;
+
+    /**
+     * Adds a sample.
+     * @param nanos duration in nanoseconds, negative values are counted as zero
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        ++mCounts[bucketOf(nanos)];
+        ++mCount;
+        mSum += nanos;
+        if (nanos < mMin) {
+            mMin = nanos;
+        }
+        if (nanos > mMax) {
+            mMax = nanos;
+        }
+    }
+
+    /**
+     * Removes all the samples.
+     */
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mSum = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = 0;
+    }
+
+    /**
+     * Adds all the samples of another histogram to this one.
+     * @param other histogram to merge in
+     */
+    public void add(GVRLatencyHistogram other) {
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            mCounts[i] += other.mCounts[i];
+        }
+        mCount += other.mCount;
+        mSum += other.mSum;
+        mMin = Math.min(mMin, other.mMin);
+        mMax = Math.max(mMax, other.mMax);
+    }
+
+    /**
+     * Gets the number of samples.
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Gets the smallest sample in nanoseconds, 0 if there are none.
+     */
+    public long getMin() {
+        return (mCount > 0) ? mMin : 0;
+    }
+
+    /**
+     * Gets the largest sample in nanoseconds, 0 if there are none.
+     */
+    public long getMax() {
+        return mMax;
+    }
+
+    /**
+     * Gets the mean of the samples in nanoseconds, 0 if there are none.
+     */
+    public double getMean() {
+        return (mCount > 0) ? (double) mSum / mCount : 0;
+    }
+
+    /**
+     * Gets the value below which a percentage of the samples fall.
+     * @param percentile percentage between 0 and 100
+     * @return upper bound in nanoseconds of the bucket holding the percentile,
+     *         never more than {@link #getMax()}; 0 if there are no samples
+     */
+    public long getPercentile(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(mCount * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        long seen = 0;
+
+        if (target < 1) {
+            target = 1;
+        }
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            seen += mCounts[i];
+            if (seen >= target) {
+                return Math.max(mMin, Math.min(mMax, upperBoundOf(i)));
+            }
+        }
+        return mMax;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return NUM_BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
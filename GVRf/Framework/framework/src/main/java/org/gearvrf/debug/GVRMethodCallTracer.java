@@ -17,6 +17,12 @@ package org.gearvrf.debug;
 
 import org.gearvrf.GVRTime;
 
+/**
+ * Times a method and adds the durations to a {@link GVRStatsLine} column.
+ *
+ * @deprecated Use {@link GVRFrameProfiler#begin()} and {@link GVRFrameProfiler#end}.
+ */
+@Deprecated
 public class GVRMethodCallTracer {
     protected GVRStatsLine.GVRStandardColumn<Float> mStatColumn;
 
@@ -26,7 +26,11 @@ import org.gearvrf.utility.Log;
 /**
  * This class generates statistic lines for an application for
  * debugging purposes.
+ *
+ * @deprecated Use {@link GVRFrameProfiler}, which records percentiles
+ *             without allocating or locking.
  */
+@Deprecated
 public class GVRStatsLine {
     protected String mLineTag;
     protected long mLastPrintTimeMS;
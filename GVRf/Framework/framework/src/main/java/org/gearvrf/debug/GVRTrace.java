@@ -0,0 +1,345 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.debug;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Records a timeline of framework activity on every thread, which can be
+ * saved in the Chrome Trace Event format and opened in
+ * {@code chrome://tracing} or any compatible trace viewer.
+ *
+ * Each thread writes its events into its own ring buffer, so recording
+ * takes no lock and allocates nothing once the buffer of the thread
+ * exists. When a buffer is full the oldest events are overwritten: the
+ * trace always holds the latest {@link #getEventsPerThread()} events of
+ * each thread, for at most {@link #MAX_THREADS} threads, which bounds the
+ * memory used. Events from further threads are discarded.
+ * <p>
+ * The framework records frames, asset loading stages, texture decoding
+ * and uploading, events sent through the {@link org.gearvrf.GVREventManager}
+ * and physics steps. Applications can add their own:
+ * <pre>
+ *     final long start = GVRTrace.begin();
+ *     ...
+ *     GVRTrace.end("app", "updateScores", start);
+ * </pre>
+ * Names and details should be existing strings, like literals or file
+ * names, so that recording does not allocate.
+ * <p>
+ * Recording is off until {@link #setEnabled(boolean)} is called or the
+ * {@code trace on} command is given in the {@link DebugServer} shell;
+ * {@code trace dump} then writes the trace to a file.
+ */
+public final class GVRTrace {
+    public static final String CATEGORY_FRAME = "frame";
+    public static final String CATEGORY_ASSET = "asset";
+    public static final String CATEGORY_TEXTURE = "texture";
+    public static final String CATEGORY_EVENT = "event";
+    public static final String CATEGORY_PHYSICS = "physics";
+
+    public static final int DEFAULT_EVENTS_PER_THREAD = 4096;
+    public static final int MAX_THREADS = 32;
+
+    private static final long INSTANT = -1;
+
+    /*
+     * Events of one thread. Only the owning thread writes; the event at
+     * index i is in slot i % capacity and is complete once mWritten > i.
+     */
+    private static final class ThreadBuffer {
+        final String mThreadName;
+        final long mThreadId;
+        final int mGeneration;
+        final long[] mStart;
+        final long[] mDuration;
+        final String[] mCategory;
+        final String[] mName;
+        final String[] mDetail;
+        volatile long mWritten = 0;
+
+        ThreadBuffer(Thread thread, int capacity, int generation) {
+            mThreadName = thread.getName();
+            mThreadId = thread.getId();
+            mGeneration = generation;
+            mStart = new long[capacity];
+            mDuration = new long[capacity];
+            mCategory = new String[capacity];
+            mName = new String[capacity];
+            mDetail = new String[capacity];
+        }
+
+        void add(String category, String name, String detail, long start, long duration) {
+            final long written = mWritten;
+            final int slot = (int) (written % mStart.length);
+
+            mStart[slot] = start;
+            mDuration[slot] = duration;
+            mCategory[slot] = category;
+            mName[slot] = name;
+            mDetail[slot] = detail;
+            mWritten = written + 1;
+        }
+    }
+
+    private static final ThreadBuffer[] sBuffers = new ThreadBuffer[MAX_THREADS];
+    private static final ThreadLocal<ThreadBuffer> sThreadBuffer = new ThreadLocal<ThreadBuffer>();
+    private static volatile boolean sEnabled = false;
+    private static volatile int sGeneration = 0;
+    private static volatile int sEventsPerThread = DEFAULT_EVENTS_PER_THREAD;
+    private static int sNumBuffers = 0;
+
+    private GVRTrace() {
+    }
+
+    /**
+     * Checks whether events are being recorded.
+     */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Starts or stops recording events.
+     * Events already recorded are kept until {@link #clear()}.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * Gets the number of events kept for each thread.
+     */
+    public static int getEventsPerThread() {
+        return sEventsPerThread;
+    }
+
+    /**
+     * Sets the number of events kept for each thread and clears the trace.
+     * @param count events per thread; each takes about 40 bytes
+     */
+    public static void setEventsPerThread(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Event count must be positive");
+        }
+        sEventsPerThread = count;
+        clear();
+    }
+
+    /**
+     * Discards all the events and frees the buffers.
+     */
+    public static void clear() {
+        synchronized (sBuffers) {
+            ++sGeneration;
+            for (int i = 0; i < sNumBuffers; ++i) {
+                sBuffers[i] = null;
+            }
+            sNumBuffers = 0;
+        }
+    }
+
+    /**
+     * Starts timing an event.
+     * @return start time to pass to {@link #end}, 0 if recording is off
+     */
+    public static long begin() {
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records an event which started at {@code startTime} and ends now.
+     * @param category  category of the event, like {@link #CATEGORY_ASSET}
+     * @param name      name of the event
+     * @param startTime value returned by {@link #begin()}
+     */
+    public static void end(String category, String name, long startTime) {
+        end(category, name, null, startTime);
+    }
+
+    /**
+     * Records an event which started at {@code startTime} and ends now.
+     * @param category  category of the event, like {@link #CATEGORY_ASSET}
+     * @param name      name of the event
+     * @param detail    shown with the event in the viewer, may be null
+     * @param startTime value returned by {@link #begin()}
+     */
+    public static void end(String category, String name, String detail, long startTime) {
+        if (startTime == 0) {
+            return;
+        }
+        final long now = System.nanoTime();
+        final ThreadBuffer buffer = getThreadBuffer();
+        if (buffer != null) {
+            buffer.add(category, name, detail, startTime, now - startTime);
+        }
+    }
+
+    /**
+     * Records an event without duration.
+     * @param category  category of the event
+     * @param name      name of the event
+     * @param detail    shown with the event in the viewer, may be null
+     */
+    public static void instant(String category, String name, String detail) {
+        if (!sEnabled) {
+            return;
+        }
+        final ThreadBuffer buffer = getThreadBuffer();
+        if (buffer != null) {
+            buffer.add(category, name, detail, System.nanoTime(), INSTANT);
+        }
+    }
+
+    private static ThreadBuffer getThreadBuffer() {
+        ThreadBuffer buffer = sThreadBuffer.get();
+        final int generation = sGeneration;
+
+        if ((buffer == null) || (buffer.mGeneration != generation)) {
+            buffer = null;
+            synchronized (sBuffers) {
+                if ((sNumBuffers < MAX_THREADS) && (generation == sGeneration)) {
+                    buffer = new ThreadBuffer(Thread.currentThread(), sEventsPerThread, generation);
+                    sBuffers[sNumBuffers++] = buffer;
+                }
+            }
+            if (buffer == null) {
+                return null;
+            }
+            sThreadBuffer.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes the trace in the Chrome Trace Event JSON format.
+     * Recording may continue while the trace is written.
+     * @param writer destination
+     * @throws IOException if the writer fails
+     */
+    public static void writeJSON(Writer writer) throws IOException {
+        final ThreadBuffer[] buffers;
+        long origin = Long.MAX_VALUE;
+        boolean first = true;
+
+        synchronized (sBuffers) {
+            buffers = new ThreadBuffer[sNumBuffers];
+            System.arraycopy(sBuffers, 0, buffers, 0, sNumBuffers);
+        }
+        for (ThreadBuffer b : buffers) {
+            final long written = b.mWritten;
+            final int capacity = b.mStart.length;
+            if (written > 0) {
+                origin = Math.min(origin, b.mStart[(int) (Math.max(0, written - capacity) % capacity)]);
+            }
+        }
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        for (ThreadBuffer b : buffers) {
+            first = writeThread(writer, b, origin, first);
+        }
+        writer.write("\n]}\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes the trace to a file.
+     * @param file  file to write, replaced if it exists
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    public static File dump(File file) throws IOException {
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            writeJSON(writer);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private static boolean writeThread(Writer writer, ThreadBuffer b, long origin, boolean first)
+            throws IOException {
+        final int capacity = b.mStart.length;
+        final long end = b.mWritten;
+        final StringBuilder sb = new StringBuilder(256);
+
+        sb.append(first ? "\n" : ",\n");
+        sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(b.mThreadId)
+          .append(",\"args\":{\"name\":");
+        appendString(sb, b.mThreadName);
+        sb.append("}}");
+        writer.write(sb.toString());
+
+        for (long i = Math.max(0, end - capacity); i < end; ++i) {
+            final int slot = (int) (i % capacity);
+            final long start = b.mStart[slot];
+            final long duration = b.mDuration[slot];
+            final String category = b.mCategory[slot];
+            final String name = b.mName[slot];
+            final String detail = b.mDetail[slot];
+
+            /*
+             * The thread may have overwritten this slot while it was read;
+             * the slot being written now is that of index mWritten - capacity.
+             */
+            if (i <= b.mWritten - capacity) {
+                continue;
+            }
+            sb.setLength(0);
+            sb.append(",\n{\"name\":");
+            appendString(sb, name);
+            sb.append(",\"cat\":");
+            appendString(sb, category);
+            sb.append(",\"pid\":1,\"tid\":").append(b.mThreadId)
+              .append(",\"ts\":").append(String.format(Locale.US, "%.3f", (start - origin) / 1000.0));
+            if (duration == INSTANT) {
+                sb.append(",\"ph\":\"i\",\"s\":\"t\"");
+            } else {
+                sb.append(",\"ph\":\"X\",\"dur\":").append(String.format(Locale.US, "%.3f", duration / 1000.0));
+            }
+            if (detail != null) {
+                sb.append(",\"args\":{\"detail\":");
+                appendString(sb, detail);
+                sb.append('}');
+            }
+            sb.append('}');
+            writer.write(sb.toString());
+        }
+        return false;
+    }
+
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        if (s != null) {
+            for (int i = 0; i < s.length(); ++i) {
+                char c = s.charAt(i);
+                if ((c == '"') || (c == '\\')) {
+                    sb.append('\\').append(c);
+                } else if (c < ' ') {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
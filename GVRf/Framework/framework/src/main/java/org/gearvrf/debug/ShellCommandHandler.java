@@ -15,6 +15,8 @@
 
 package org.gearvrf.debug;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import javax.script.ScriptEngine;
@@ -23,6 +25,7 @@ import org.gearvrf.GVRContext;
 import org.gearvrf.GVRVersion;
 import org.gearvrf.debug.cli.Command;
 import org.gearvrf.debug.cli.HelpCommandHandler;
+import org.gearvrf.debug.cli.Param;
 import org.gearvrf.debug.cli.Shell;
 import org.gearvrf.debug.cli.ShellDependent;
 import org.gearvrf.script.IScriptManager;
@@ -64,6 +67,53 @@ public class ShellCommandHandler implements ShellDependent {
         return null;
     }
 
+    @Command(description="Frame phase profiler: on, off, reset or report")
+    public String profile(
+            @Param(name="action", description="on, off, reset or report")
+                String action) {
+        GVRFrameProfiler profiler = mGVRContext.getFrameProfiler();
+
+        if ("on".equals(action)) {
+            profiler.reset();
+            profiler.setEnabled(true);
+            return "Profiler enabled";
+        } else if ("off".equals(action)) {
+            profiler.setEnabled(false);
+            return "Profiler disabled";
+        } else if ("reset".equals(action)) {
+            profiler.reset();
+            return null;
+        } else if ("report".equals(action)) {
+            String report = profiler.getReport();
+            return report.isEmpty() ? "No samples" : report;
+        }
+        return "Unknown action " + action;
+    }
+
+    @Command(description="Timeline trace: on, off, clear or dump")
+    public String trace(
+            @Param(name="action", description="on, off, clear or dump")
+                String action) throws IOException {
+        if ("on".equals(action)) {
+            GVRTrace.setEnabled(true);
+            return "Tracing enabled";
+        } else if ("off".equals(action)) {
+            GVRTrace.setEnabled(false);
+            return "Tracing disabled";
+        } else if ("clear".equals(action)) {
+            GVRTrace.clear();
+            return null;
+        } else if ("dump".equals(action)) {
+            File dir = mGVRContext.getContext().getExternalFilesDir(null);
+            if (dir == null) {
+                dir = mGVRContext.getContext().getCacheDir();
+            }
+            File file = new File(dir, "gvrf-trace-" + System.currentTimeMillis() + ".json");
+            return "Trace written to " + GVRTrace.dump(file).getAbsolutePath();
+        }
+        return "Unknown action " + action;
+    }
+
     @Command
     public String version() {
         return GVRVersion.CURRENT;
@@ -195,6 +195,7 @@ public abstract class GVRCursorController implements IEventReceiver
     protected volatile boolean mConnected = false;
     protected int mTouchButtons = MotionEvent.BUTTON_SECONDARY | MotionEvent.BUTTON_PRIMARY;
     protected Vector3f pickDir = new Vector3f(0, 0, -1);
+    private volatile GVRInputRecorder mRecorder;
 
     /**
      * Create an instance of {@link GVRCursorController} only using the
@@ -1111,6 +1112,47 @@ public abstract class GVRCursorController implements IEventReceiver
         }
     }
 
+    /*
+     * Called by the recorder when it starts and stops recording this
+     * controller.
+     */
+    void setInputRecorder(GVRInputRecorder recorder)
+    {
+        mRecorder = recorder;
+    }
+
+    /*
+     * Gets the ray the picker uses in world coordinates, as it will be once
+     * the pending update is picked.
+     */
+    void getWorldRay(Vector3f origin, Vector3f direction)
+    {
+        GVRSceneObject owner = mPicker.getOwnerObject();
+        float[] ray = mPicker.getPickRay();
+
+        if ((owner == null) && (scene != null))
+        {
+            owner = scene.getMainCameraRig().getHeadTransformObject();
+        }
+        if (position.length() > 0.00001f)
+        {
+            origin.zero();
+            direction.set(pickDir);
+        }
+        else
+        {
+            origin.set(ray[0], ray[1], ray[2]);
+            direction.set(ray[3], ray[4], ray[5]);
+        }
+        if (owner != null)
+        {
+            Matrix4f mtx = owner.getTransform().getModelMatrix4f();
+            origin.mulPosition(mtx);
+            direction.mulDirection(mtx);
+        }
+        direction.normalize();
+    }
+
     /**
      * Update the state of the picker. If it has an owner, the picker
      * will use that object to derive its position and orientation.
@@ -1138,6 +1180,11 @@ public abstract class GVRCursorController implements IEventReceiver
             keyEvent.clear();
             processedMotionEvent.addAll(motionEvent);
             motionEvent.clear();
+            final GVRInputRecorder recorder = mRecorder;
+            if (recorder != null)
+            {
+                recorder.record(this, processedKeyEvent, processedMotionEvent, active);
+            }
         }
         previousActive = active;
         if ((scene != null) && (mPicker != null))
@@ -0,0 +1,175 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io;
+
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVRTime;
+import org.gearvrf.utility.Log;
+import org.joml.Vector3f;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Records the input of a {@link GVRCursorController} so it can be played back
+ * later by a {@link GVRReplayCursorController}.
+ * <p>
+ * Every update of the controller is written with the index of the frame it
+ * happened in: its pick ray, cursor depth, active flag and the key and motion
+ * events it processed. See {@link GVRInputRecording} for the format.
+ * <pre>
+ *     GVRInputRecorder recorder = new GVRInputRecorder(context, stream);
+ *     recorder.start(controller);
+ *     ...
+ *     recorder.stop();
+ * </pre>
+ */
+public class GVRInputRecorder implements GVRDrawFrameListener
+{
+    private static final String TAG = GVRInputRecorder.class.getSimpleName();
+    private final GVRContext mContext;
+    private final OutputStream mStream;
+    private final GVRInputRecording.Frame mFrame = new GVRInputRecording.Frame();
+    private final Vector3f mOrigin = new Vector3f();
+    private final Vector3f mDirection = new Vector3f();
+    private GVRInputRecording.Writer mWriter;
+    private GVRCursorController mController;
+    private volatile long mFrameIndex;
+    private long mStartTime;
+
+    /**
+     * @param context context whose frames are counted
+     * @param stream  receives the recording; it is closed when the recording stops.
+     */
+    public GVRInputRecorder(GVRContext context, OutputStream stream)
+    {
+        mContext = context;
+        mStream = stream;
+    }
+
+    /**
+     * Starts recording the updates of a controller.
+     * A recorder only records once.
+     */
+    public synchronized void start(GVRCursorController controller) throws IOException
+    {
+        if (mWriter != null)
+        {
+            throw new IllegalStateException("The recorder has already started");
+        }
+        mWriter = new GVRInputRecording.Writer(mStream, controller.getControllerType());
+        mController = controller;
+        mStartTime = GVRTime.getNanoTime();
+        mFrameIndex = 0;
+        mContext.registerDrawFrameListener(this);
+        controller.setInputRecorder(this);
+    }
+
+    /**
+     * Stops recording and closes the stream.
+     */
+    public void stop() throws IOException
+    {
+        final GVRInputRecording.Writer writer;
+        synchronized (this)
+        {
+            if (mController == null)
+            {
+                return;
+            }
+            mController.setInputRecorder(null);
+            mController = null;
+            writer = mWriter;
+        }
+        mContext.unregisterDrawFrameListener(this);
+        writer.close();
+    }
+
+    /**
+     * Checks whether the recorder is recording a controller.
+     */
+    public synchronized boolean isRecording()
+    {
+        return mController != null;
+    }
+
+    @Override
+    public void onDrawFrame(float frameTime)
+    {
+        ++mFrameIndex;
+    }
+
+    /*
+     * Called by the controller each time it updates, with the events it
+     * processes.
+     */
+    synchronized void record(GVRCursorController controller, List<KeyEvent> keyEvents,
+                             List<MotionEvent> motionEvents, boolean active)
+    {
+        if (controller != mController)
+        {
+            return;
+        }
+        final GVRInputRecording.Frame frame = mFrame;
+
+        frame.frame = mFrameIndex;
+        frame.time = GVRTime.getNanoTime() - mStartTime;
+        frame.active = active;
+        frame.cursorDepth = controller.getCursorDepth();
+        controller.getWorldRay(mOrigin, mDirection);
+        frame.origin[0] = mOrigin.x;
+        frame.origin[1] = mOrigin.y;
+        frame.origin[2] = mOrigin.z;
+        frame.direction[0] = mDirection.x;
+        frame.direction[1] = mDirection.y;
+        frame.direction[2] = mDirection.z;
+        frame.clearEvents();
+        for (int i = 0; i < keyEvents.size(); ++i)
+        {
+            final KeyEvent e = keyEvents.get(i);
+            frame.addKey(e.getAction(), e.getKeyCode(), e.getRepeatCount());
+        }
+        for (int i = 0; i < motionEvents.size(); ++i)
+        {
+            final MotionEvent e = motionEvents.get(i);
+            frame.addMotion(e.getAction(), e.getButtonState(), e.getSource(), e.getX(), e.getY(),
+                            (int) (e.getEventTime() - e.getDownTime()));
+        }
+        try
+        {
+            mWriter.write(frame);
+        }
+        catch (IOException e)
+        {
+            Log.e(TAG, "Cannot write input recording, recording stopped: %s", e.getMessage());
+            controller.setInputRecorder(null);
+            mController = null;
+            mContext.unregisterDrawFrameListener(this);
+            try
+            {
+                mWriter.close();
+            }
+            catch (IOException ignored)
+            {
+            }
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The file format of the input sessions recorded by {@link GVRInputRecorder}
+ * and played back by {@link GVRReplayCursorController}.
+ * <p>
+ * A recording is the sequence of the updates of one {@link GVRCursorController}:
+ * each one has the index of the frame it happened in, its time, the pick ray in
+ * world coordinates, the cursor depth, the active flag and the key and motion
+ * events the controller processed. Replaying the updates in the same frames
+ * makes the picker see the same rays and the same events, so the pick and
+ * touch events come in the same order as when the session was recorded.
+ * <p>
+ * The file starts with "GVRI", the version and the controller type. Each
+ * update follows as a tag byte, the frame and time as deltas from the previous
+ * update, then the floats and the events. Integers are unsigned LEB128
+ * varints, floats are 32 bits big-endian. A zero tag ends the recording.
+ * Only the first pointer of motion events is recorded.
+ */
+public final class GVRInputRecording
+{
+    static final byte[] MAGIC = { 'G', 'V', 'R', 'I' };
+    static final int VERSION = 1;
+    static final int TAG_END = 0;
+    static final int TAG_UPDATE = 1;
+
+    private GVRInputRecording()
+    {
+    }
+
+    /**
+     * One update of a controller. The arrays of events grow as needed, and
+     * only their first {@link #keyCount} or {@link #motionCount} entries are
+     * valid, so the same frame can be read over and over without allocating.
+     */
+    public static final class Frame
+    {
+        /** Index of the frame since the start of the recording */
+        public long frame;
+        /** Nanoseconds since the start of the recording */
+        public long time;
+        public boolean active;
+        public float cursorDepth;
+        public final float[] origin = new float[3];
+        public final float[] direction = new float[3];
+
+        public int keyCount;
+        public int[] keyActions = new int[2];
+        public int[] keyCodes = new int[2];
+        public int[] keyRepeats = new int[2];
+
+        public int motionCount;
+        public int[] motionActions = new int[2];
+        public int[] motionButtons = new int[2];
+        public int[] motionSources = new int[2];
+        public float[] motionX = new float[2];
+        public float[] motionY = new float[2];
+        /** Milliseconds between the down event of the gesture and the event */
+        public int[] motionDurations = new int[2];
+
+        public void clearEvents()
+        {
+            keyCount = 0;
+            motionCount = 0;
+        }
+
+        public void addKey(int action, int keyCode, int repeat)
+        {
+            if (keyCount == keyActions.length)
+            {
+                final int size = keyCount * 2;
+                keyActions = Arrays.copyOf(keyActions, size);
+                keyCodes = Arrays.copyOf(keyCodes, size);
+                keyRepeats = Arrays.copyOf(keyRepeats, size);
+            }
+            keyActions[keyCount] = action;
+            keyCodes[keyCount] = keyCode;
+            keyRepeats[keyCount] = repeat;
+            ++keyCount;
+        }
+
+        public void addMotion(int action, int buttons, int source, float x, float y, int duration)
+        {
+            if (motionCount == motionActions.length)
+            {
+                final int size = motionCount * 2;
+                motionActions = Arrays.copyOf(motionActions, size);
+                motionButtons = Arrays.copyOf(motionButtons, size);
+                motionSources = Arrays.copyOf(motionSources, size);
+                motionX = Arrays.copyOf(motionX, size);
+                motionY = Arrays.copyOf(motionY, size);
+                motionDurations = Arrays.copyOf(motionDurations, size);
+            }
+            motionActions[motionCount] = action;
+            motionButtons[motionCount] = buttons;
+            motionSources[motionCount] = source;
+            motionX[motionCount] = x;
+            motionY[motionCount] = y;
+            motionDurations[motionCount] = duration;
+            ++motionCount;
+        }
+    }
+
+    /**
+     * Writes the updates of a controller as they happen. The recording is
+     * complete once the writer is closed.
+     */
+    public static final class Writer implements Closeable
+    {
+        private final DataOutputStream mOut;
+        private long mFrame;
+        private long mTime;
+        private boolean mClosed;
+
+        public Writer(OutputStream stream, GVRControllerType type) throws IOException
+        {
+            mOut = new DataOutputStream(new BufferedOutputStream(stream));
+            mOut.write(MAGIC);
+            mOut.writeShort(VERSION);
+            mOut.writeUTF(type.name());
+        }
+
+        /**
+         * @param frame update to write; its frame and time can't be before
+         *              those of the previous one.
+         */
+        public synchronized void write(Frame frame) throws IOException
+        {
+            if (mClosed)
+            {
+                throw new IOException("The recording is closed");
+            }
+            if ((frame.frame < mFrame) || (frame.time < mTime))
+            {
+                throw new IllegalArgumentException("Updates must be written in order");
+            }
+            mOut.writeByte(TAG_UPDATE);
+            writeVarint(frame.frame - mFrame);
+            writeVarint(frame.time - mTime);
+            mFrame = frame.frame;
+            mTime = frame.time;
+            mOut.writeBoolean(frame.active);
+            mOut.writeFloat(frame.cursorDepth);
+            for (int i = 0; i < 3; ++i)
+            {
+                mOut.writeFloat(frame.origin[i]);
+            }
+            for (int i = 0; i < 3; ++i)
+            {
+                mOut.writeFloat(frame.direction[i]);
+            }
+            writeVarint(frame.keyCount);
+            for (int i = 0; i < frame.keyCount; ++i)
+            {
+                writeInt(frame.keyActions[i]);
+                writeInt(frame.keyCodes[i]);
+                writeInt(frame.keyRepeats[i]);
+            }
+            writeVarint(frame.motionCount);
+            for (int i = 0; i < frame.motionCount; ++i)
+            {
+                writeInt(frame.motionActions[i]);
+                writeInt(frame.motionButtons[i]);
+                writeInt(frame.motionSources[i]);
+                mOut.writeFloat(frame.motionX[i]);
+                mOut.writeFloat(frame.motionY[i]);
+                writeInt(frame.motionDurations[i]);
+            }
+        }
+
+        public synchronized void flush() throws IOException
+        {
+            mOut.flush();
+        }
+
+        /**
+         * Ends the recording and closes the stream.
+         */
+        @Override
+        public synchronized void close() throws IOException
+        {
+            if (mClosed)
+            {
+                return;
+            }
+            mClosed = true;
+            try
+            {
+                mOut.writeByte(TAG_END);
+            }
+            finally
+            {
+                mOut.close();
+            }
+        }
+
+        private void writeInt(int value) throws IOException
+        {
+            writeVarint(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarint(long value) throws IOException
+        {
+            while ((value & ~0x7FL) != 0)
+            {
+                mOut.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            mOut.writeByte((int) value);
+        }
+    }
+
+    /**
+     * Reads the updates of a recording in order.
+     */
+    public static final class Reader implements Closeable
+    {
+        private final DataInputStream mIn;
+        private final GVRControllerType mType;
+        private long mFrame;
+        private long mTime;
+        private boolean mEnded;
+
+        public Reader(InputStream stream) throws IOException
+        {
+            mIn = new DataInputStream(new BufferedInputStream(stream));
+            for (byte b : MAGIC)
+            {
+                if (mIn.readByte() != b)
+                {
+                    throw new IOException("Not an input recording");
+                }
+            }
+            final int version = mIn.readUnsignedShort();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported input recording version " + version);
+            }
+            try
+            {
+                mType = GVRControllerType.valueOf(mIn.readUTF());
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException("Unknown controller type", e);
+            }
+        }
+
+        /**
+         * Gets the type of the controller which was recorded.
+         */
+        public GVRControllerType getControllerType()
+        {
+            return mType;
+        }
+
+        /**
+         * Reads the next update.
+         *
+         * @param frame receives the update; its arrays are reused.
+         * @return false at the end of the recording
+         * @throws EOFException if the recording is truncated
+         */
+        public boolean read(Frame frame) throws IOException
+        {
+            if (mEnded)
+            {
+                return false;
+            }
+            final int tag = mIn.readUnsignedByte();
+            if (tag == TAG_END)
+            {
+                mEnded = true;
+                return false;
+            }
+            if (tag != TAG_UPDATE)
+            {
+                throw new IOException("Corrupt input recording");
+            }
+            mFrame += readVarint();
+            mTime += readVarint();
+            frame.frame = mFrame;
+            frame.time = mTime;
+            frame.active = mIn.readBoolean();
+            frame.cursorDepth = mIn.readFloat();
+            for (int i = 0; i < 3; ++i)
+            {
+                frame.origin[i] = mIn.readFloat();
+            }
+            for (int i = 0; i < 3; ++i)
+            {
+                frame.direction[i] = mIn.readFloat();
+            }
+            frame.clearEvents();
+            final int keys = readCount();
+            for (int i = 0; i < keys; ++i)
+            {
+                frame.addKey(readInt(), readInt(), readInt());
+            }
+            final int motions = readCount();
+            for (int i = 0; i < motions; ++i)
+            {
+                final int action = readInt();
+                final int buttons = readInt();
+                final int source = readInt();
+                final float x = mIn.readFloat();
+                final float y = mIn.readFloat();
+                frame.addMotion(action, buttons, source, x, y, readInt());
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            mIn.close();
+        }
+
+        private int readCount() throws IOException
+        {
+            final long count = readVarint();
+            if (count > 0xFFFF)
+            {
+                throw new IOException("Corrupt input recording");
+            }
+            return (int) count;
+        }
+
+        private int readInt() throws IOException
+        {
+            final long value = readVarint();
+            if (value > 0xFFFFFFFFL)
+            {
+                throw new IOException("Corrupt input recording");
+            }
+            return (int) value;
+        }
+
+        private long readVarint() throws IOException
+        {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7)
+            {
+                final int b = mIn.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt input recording");
+        }
+    }
+
+    /**
+     * Plays the updates of a recording back frame by frame: the updates of
+     * the first frame of the recording on the first call of
+     * {@link #playFrame(Listener)}, those of the second on the second call
+     * and so on.
+     */
+    public static final class Player implements Closeable
+    {
+        public interface Listener
+        {
+            void onUpdate(Frame frame);
+        }
+
+        private final Reader mReader;
+        private final Frame mNext = new Frame();
+        private boolean mHasNext;
+        private long mFrameIndex;
+
+        public Player(Reader reader) throws IOException
+        {
+            mReader = reader;
+            mHasNext = reader.read(mNext);
+        }
+
+        /**
+         * Plays the updates of the next frame, in the order they were
+         * recorded. The frame passed to the listener is only valid during
+         * the call.
+         *
+         * @return false once all the updates were played
+         */
+        public boolean playFrame(Listener listener) throws IOException
+        {
+            while (mHasNext && (mNext.frame <= mFrameIndex))
+            {
+                listener.onUpdate(mNext);
+                mHasNext = mReader.read(mNext);
+            }
+            ++mFrameIndex;
+            return mHasNext;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            mHasNext = false;
+            mReader.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io;
+
+import android.os.SystemClock;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.utility.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link GVRCursorController} which plays back a session recorded by
+ * {@link GVRInputRecorder}.
+ * <p>
+ * Each recorded update is replayed in the same frame, counted from
+ * {@link #start()}, as it was recorded in: the picker gets the same ray in
+ * world coordinates and the controller the same active flag, cursor depth
+ * and key and motion events. Pick, touch and controller events are generated
+ * from them as for a live controller, so a session can be replayed to test or
+ * to profile the pick and event pipeline.
+ * <p>
+ * The replay controller is an {@link GVRControllerType#EXTERNAL} controller.
+ * Add it with {@link GVRInputManager#addCursorController(GVRCursorController)},
+ * enable it, then call {@link #start()}.
+ */
+public class GVRReplayCursorController extends GVRCursorController
+        implements GVRDrawFrameListener, GVRInputRecording.Player.Listener
+{
+    private static final String TAG = GVRReplayCursorController.class.getSimpleName();
+    private final GVRControllerType mRecordedType;
+    private final GVRInputRecording.Player mPlayer;
+    private final GVRSceneObject mRayRoot;
+    private final MotionEvent.PointerProperties[] mPointerProperties;
+    private final MotionEvent.PointerCoords[] mPointerCoords;
+    private volatile boolean mFinished;
+
+    private final ReplayInput.Target mTarget = new ReplayInput.Target()
+    {
+        /*
+         * The ray root only moves to the origin of the ray, so the picker
+         * gets the recorded world direction.
+         */
+        @Override
+        public void setRay(float ox, float oy, float oz, float dx, float dy, float dz)
+        {
+            mRayRoot.getTransform().setPosition(ox, oy, oz);
+            position.set(dx, dy, dz);
+            pickDir.set(position);
+        }
+
+        @Override
+        public void setCursorDepth(float depth)
+        {
+            GVRReplayCursorController.this.setCursorDepth(depth);
+        }
+
+        @Override
+        public void setActive(boolean active)
+        {
+            GVRReplayCursorController.this.setActive(active);
+        }
+
+        @Override
+        public void onKeyEvent(int action, int keyCode, int repeat, long time)
+        {
+            setKeyEvent(new KeyEvent(time, time, action, keyCode, repeat));
+        }
+
+        @Override
+        public void onMotionEvent(int action, int buttons, int source, float x, float y,
+                                  long downTime, long time)
+        {
+            mPointerCoords[0].x = x;
+            mPointerCoords[0].y = y;
+            setMotionEvent(MotionEvent.obtain(downTime, time, action, 1,
+                                              mPointerProperties, mPointerCoords,
+                                              0, buttons, 1f, 1f, 0, 0, source, 0));
+        }
+
+        @Override
+        public void pick()
+        {
+            invalidate();
+        }
+    };
+
+    /**
+     * @param context context to replay in
+     * @param stream  the recording; it is closed at the end of the replay.
+     * @throws IOException if the stream isn't a recording
+     */
+    public GVRReplayCursorController(GVRContext context, InputStream stream) throws IOException
+    {
+        this(context, new GVRInputRecording.Reader(stream));
+    }
+
+    private GVRReplayCursorController(GVRContext context, GVRInputRecording.Reader reader)
+            throws IOException
+    {
+        super(context, GVRControllerType.EXTERNAL, "Replay of " + reader.getControllerType());
+        mRecordedType = reader.getControllerType();
+        mPlayer = new GVRInputRecording.Player(reader);
+        mRayRoot = new GVRSceneObject(context);
+        mRayRoot.setName("ReplayCursorController_RayRoot");
+        mRayRoot.addChildObject(mDragRoot);
+        mRayRoot.attachComponent(mPicker);
+
+        MotionEvent.PointerProperties properties = new MotionEvent.PointerProperties();
+        properties.id = 0;
+        properties.toolType = MotionEvent.TOOL_TYPE_FINGER;
+        mPointerProperties = new MotionEvent.PointerProperties[] { properties };
+        mPointerCoords = new MotionEvent.PointerCoords[] { new MotionEvent.PointerCoords() };
+        mConnected = true;
+    }
+
+    /**
+     * Gets the type of the controller which was recorded.
+     */
+    public GVRControllerType getRecordedControllerType()
+    {
+        return mRecordedType;
+    }
+
+    /**
+     * Starts the replay at the next frame.
+     */
+    public void start()
+    {
+        context.registerDrawFrameListener(this);
+    }
+
+    /**
+     * Stops the replay before its end.
+     */
+    public void stop()
+    {
+        context.unregisterDrawFrameListener(this);
+        finish();
+    }
+
+    /**
+     * Checks whether all the updates were replayed, or the replay was stopped.
+     */
+    public boolean isFinished()
+    {
+        return mFinished;
+    }
+
+    @Override
+    public void setScene(GVRScene scene)
+    {
+        synchronized (mCursorLock)
+        {
+            GVRSceneObject parent = mRayRoot.getParent();
+
+            mPicker.setScene(scene);
+            this.scene = scene;
+            if (parent != null)
+            {
+                parent.removeChildObject(mRayRoot);
+            }
+            if (scene != null)
+            {
+                scene.addSceneObject(mRayRoot);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean dispatchKeyEvent(KeyEvent event)
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized boolean dispatchMotionEvent(MotionEvent event)
+    {
+        return false;
+    }
+
+    @Override
+    public void onDrawFrame(float frameTime)
+    {
+        boolean more = false;
+        try
+        {
+            more = !mFinished && mPlayer.playFrame(this);
+        }
+        catch (IOException e)
+        {
+            Log.e(TAG, "Cannot read input recording, replay stopped: %s", e.getMessage());
+        }
+        if (!more)
+        {
+            context.unregisterDrawFrameListener(this);
+            finish();
+        }
+    }
+
+    /*
+     * Replays one recorded update.
+     */
+    @Override
+    public void onUpdate(GVRInputRecording.Frame frame)
+    {
+        ReplayInput.replay(frame, SystemClock.uptimeMillis(), mTarget);
+    }
+
+    private void finish()
+    {
+        if (mFinished)
+        {
+            return;
+        }
+        mFinished = true;
+        try
+        {
+            mPlayer.close();
+        }
+        catch (IOException e)
+        {
+            Log.e(TAG, "Cannot close input recording: %s", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io;
+
+/**
+ * Turns a recorded update into the calls a live controller makes when it
+ * updates: the pick ray, the cursor depth, the active flag, the key and
+ * motion events in the order they were recorded, then the pick.
+ * <p>
+ * {@link GVRReplayCursorController} replays its recording through this,
+ * the Android events being made by its {@link Target}.
+ */
+final class ReplayInput
+{
+    /**
+     * Receives the input of a replayed update.
+     */
+    interface Target
+    {
+        /**
+         * Sets the pick ray in world coordinates.
+         */
+        void setRay(float ox, float oy, float oz, float dx, float dy, float dz);
+
+        void setCursorDepth(float depth);
+
+        void setActive(boolean active);
+
+        /**
+         * @param time uptime of the event in milliseconds
+         */
+        void onKeyEvent(int action, int keyCode, int repeat, long time);
+
+        /**
+         * @param downTime uptime of the down event of the gesture in milliseconds
+         * @param time     uptime of the event in milliseconds
+         */
+        void onMotionEvent(int action, int buttons, int source, float x, float y,
+                           long downTime, long time);
+
+        /**
+         * Picks with the input set since the last pick.
+         */
+        void pick();
+    }
+
+    private ReplayInput()
+    {
+    }
+
+    /**
+     * Replays one recorded update.
+     * @param frame  update to replay
+     * @param now    uptime in milliseconds the events are stamped with
+     * @param target receives the input of the update
+     */
+    static void replay(GVRInputRecording.Frame frame, long now, Target target)
+    {
+        target.setRay(frame.origin[0], frame.origin[1], frame.origin[2],
+                      frame.direction[0], frame.direction[1], frame.direction[2]);
+        target.setCursorDepth(frame.cursorDepth);
+        target.setActive(frame.active);
+        for (int i = 0; i < frame.keyCount; ++i)
+        {
+            target.onKeyEvent(frame.keyActions[i], frame.keyCodes[i], frame.keyRepeats[i], now);
+        }
+        for (int i = 0; i < frame.motionCount; ++i)
+        {
+            target.onMotionEvent(frame.motionActions[i], frame.motionButtons[i],
+                                 frame.motionSources[i], frame.motionX[i], frame.motionY[i],
+                                 now - frame.motionDurations[i], now);
+        }
+        target.pick();
+    }
+}
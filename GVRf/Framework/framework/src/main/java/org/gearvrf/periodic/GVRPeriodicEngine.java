@@ -15,8 +15,6 @@
 
 package org.gearvrf.periodic;
 
-import java.util.PriorityQueue;
-
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 
@@ -54,8 +52,12 @@ import org.gearvrf.GVRDrawFrameListener;
  * something like a notification.
  * 
  * <p>
- * The engine maintains a priority queue of events, which it checks in a
- * {@linkplain GVRDrawFrameListener frame listener}; events run as
+ * The engine keeps the events in a {@linkplain TimingWheel timing wheel,}
+ * so scheduling, rescheduling and canceling take constant time whatever the
+ * number of events. Events can be scheduled from any thread without
+ * locking: the requests are queued and applied by a
+ * {@linkplain GVRDrawFrameListener frame listener,} which then takes the
+ * events which are due, with a resolution of a millisecond; events run as
  * {@linkplain GVRContext#runOnGlThread(Runnable) run-once events.} Every frame,
  * GVRF runs any run-once events; then any frame listeners (including
  * animations); then your {@linkplain org.gearvrf.GVRMain#onStep() method;} and
@@ -85,7 +87,10 @@ public class GVRPeriodicEngine {
 
     private final GVRContext mContext;
     private final DrawFrameListener mDrawFrameListener = new DrawFrameListener();
-    private final PriorityQueue<EventImplementation> mQueue = new PriorityQueue<EventImplementation>();
+    private final TimingWheel mWheel = new TimingWheel(TICK_NANOS, nanoTime());
+
+    private static final long TICK_NANOS = 1000000;
+    private static final long UNSCHEDULED_NANOS = TimingWheel.UNSCHEDULED;
 
     protected GVRPeriodicEngine(GVRContext context) {
         mContext = context;
@@ -328,40 +333,29 @@ public class GVRPeriodicEngine {
         void runEvery(float delay, float period, KeepRunning callback);
     }
 
-    private interface EventImplementation extends PeriodicEvent,
-            Comparable<EventImplementation>, Runnable {
-        float getScheduledTime();
-    }
-
     /**
      * The periodic engine's time base.
      * 
-     * Unit is seconds.
+     * Unit is nanoseconds.
      */
-    private static float now() {
-        return System.nanoTime() / 1e9f;
+    private static long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private static long toNanos(float seconds) {
+        return (long) (seconds * 1e9);
     }
 
     private class DrawFrameListener implements GVRDrawFrameListener {
 
         @Override
         public void onDrawFrame(float frameTime) {
-            float now = GVRPeriodicEngine.now();
-            synchronized (mQueue) {
-                for (EventImplementation //
-                first = mQueue.peek(); //
-                first != null && first.getScheduledTime() <= now; //
-                first = mQueue.peek() //
-                ) {
-
-                    mContext.runOnGlThread(mQueue.poll());
-
-                }
-            }
+            mWheel.advance(nanoTime());
         }
     }
 
-    private class Event implements EventImplementation {
+    private class Event extends TimingWheel.Timer implements PeriodicEvent,
+            Runnable {
 
         /*
          * Task, and run-count
@@ -378,107 +372,55 @@ public class GVRPeriodicEngine {
         private boolean mRunning = false;
 
         /*
-         * Queue management
+         * Scheduling fields, guarded by this.
+         * 
+         * A run-once event has an mPeriod == 0.
+         * 
+         * We allow the user to change the scheduling at any time, from any
+         * thread. To assure consistency, neither constructors nor the
+         * rescheduling methods set these fields directly: both go through
+         * setDelay() or setRepeat(), which hand the event to the wheel.
          */
 
+        private long mScheduledTime = UNSCHEDULED_NANOS;
+        private long mPeriod;
+        private KeepRunning mCallback;
+
         /**
          * Set by {@link #cancel()} to assure that events canceled from non-GL
-         * thread during execution are not rescheduled.
+         * thread after they are due are not run.
          */
         private boolean mCanceled = false;
 
-        private void lockedEnqueue() {
-            if (mCanceled != true) {
-                mQueue.add(this);
-            }
-        }
-
-        private void lockedDequeue() {
-            mQueue.remove(this);
-        }
-
-        private void enqueue() {
-            synchronized (mQueue) {
-                lockedEnqueue();
-            }
-        }
-
-        @SuppressWarnings("unused")
-        private void dequeue() {
-            synchronized (mQueue) {
-                lockedDequeue();
-            }
-        }
-
-        /*
-         * Scheduling fields.
-         * 
-         * A run-once event has an mPeriod == UNSCHEDULED.
-         * 
-         * We allow the user to change the scheduling at any time. To assure
-         * consistency, neither constructors nor the rescheduling methods set
-         * these fields directly: both go through setDelay() or setRepeat().
+        /**
+         * Incremented by every change of scheduling, so that an event which
+         * reschedules itself (using the PeriodicEvent returned when it was
+         * created) or is canceled while it runs is not rescheduled again.
          */
+        private int mGeneration = 0;
 
-        private float mTimeBase;
-        private float mScheduledTime;
-        private float mPeriod;
-        private KeepRunning mCallback;
-
-        private void setDelay(float delay) {
-            mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = UNSCHEDULED;
+        private synchronized void setDelay(float delay) {
+            schedule(nanoTime() + toNanos(delay));
+            mPeriod = 0;
             mCallback = null;
         }
 
-        private void setRepeat(float delay, float period, KeepRunning callback) {
-            mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = period;
+        private synchronized void setRepeat(float delay, float period,
+                KeepRunning callback) {
+            schedule(nanoTime() + toNanos(delay));
+            mPeriod = toNanos(period);
             mCallback = callback;
         }
 
-        private void schedule(float time) {
+        private void schedule(long time) {
             mScheduledTime = time;
             mCanceled = false;
-        }
-
-        private void deschedule() {
-            mScheduledTime = UNSCHEDULED;
-        }
-
-        private void reschedule() {
-            if (repeats()) {
-                if (mCallback != null && mCallback.keepRunning(this) != true) {
-                    return; // Do NOT reschedule
-                }
-
-                float next = mTimeBase + (((now() - mTimeBase) / mPeriod) + 1)
-                        * mPeriod;
-                schedule(next);
-                enqueue();
-            }
-        }
-
-        private boolean enqueued() {
-            synchronized (mQueue) {
-                for (EventImplementation event : mQueue) {
-                    if (this == event) {
-                        return true;
-                    }
-                }
-            }
-            // else
-            return false;
+            mGeneration += 1;
+            mWheel.schedule(this, time);
         }
 
         private boolean scheduled() {
-            return mScheduledTime != UNSCHEDULED;
-        }
-
-        private boolean repeats() {
-            return mPeriod != UNSCHEDULED;
+            return mScheduledTime != UNSCHEDULED_NANOS;
         }
 
         /*
@@ -488,16 +430,12 @@ public class GVRPeriodicEngine {
         private Event(Runnable task, float delay) {
             mTask = task;
             setDelay(delay);
-
-            enqueue();
         }
 
         private Event(Runnable task, float delay, float period,
                 KeepRunning callback) {
             mTask = task;
             setRepeat(delay, period, callback);
-
-            enqueue();
         }
 
         /*
@@ -510,28 +448,23 @@ public class GVRPeriodicEngine {
         }
 
         @Override
-        public float getCurrentWait() {
-            return scheduled() ? mScheduledTime - now() : UNSCHEDULED;
+        public synchronized float getCurrentWait() {
+            return scheduled() ? (mScheduledTime - nanoTime()) / 1e9f
+                    : UNSCHEDULED;
         }
 
         @Override
-        public void cancel() {
-            synchronized (mQueue) {
-                deschedule();
-                lockedDequeue();
-                mCanceled = true;
-            }
+        public synchronized void cancel() {
+            mScheduledTime = UNSCHEDULED_NANOS;
+            mCanceled = true;
+            mGeneration += 1;
+            mWheel.cancel(this);
         }
 
         @Override
         public void runAfter(float delay) {
             validateDelay(delay);
-
-            synchronized (mQueue) {
-                lockedDequeue();
-                setDelay(delay);
-                lockedEnqueue();
-            }
+            setDelay(delay);
         }
 
         @Override
@@ -549,31 +482,16 @@ public class GVRPeriodicEngine {
         public void runEvery(float delay, float period, KeepRunning callback) {
             validateDelay(delay);
             validatePeriod(period);
-
-            synchronized (mQueue) {
-                lockedDequeue();
-                setRepeat(delay, period, callback);
-                lockedEnqueue();
-            }
-        }
-
-        /*
-         * EventImplementation
-         */
-
-        @Override
-        public float getScheduledTime() {
-            return mScheduledTime;
+            setRepeat(delay, period, callback);
         }
 
         /*
-         * Comparable<EventImplementation>
+         * TimingWheel.Timer
          */
 
         @Override
-        public int compareTo(EventImplementation other) {
-            final float delta = getScheduledTime() - other.getScheduledTime();
-            return delta < 0 ? -1 : (delta == 0 ? 0 : 1);
+        protected void expired() {
+            mContext.runOnGlThread(this);
         }
 
         /*
@@ -582,23 +500,45 @@ public class GVRPeriodicEngine {
 
         @Override
         public void run() {
+            final int generation;
+            synchronized (this) {
+                if (mCanceled) {
+                    return;
+                }
+                generation = mGeneration;
+            }
+
             mRunning = true;
             mTask.run();
             mRunning = false;
             mRunCount += 1;
 
             /*
-             * Normally, the event will NOT be enqueued at this point. But, if
+             * Normally, the event will NOT be scheduled at this point. But, if
              * the event has rescheduled itself (using the PeriodicEvent
-             * returned when it was created) then it WILL be enqueued, and we
-             * shouldn't re-enqueue it.
+             * returned when it was created) or was canceled, then we
+             * shouldn't reschedule it.
              */
-            if (enqueued() != true) {
-                deschedule();
-                reschedule();
+            final KeepRunning callback;
+            synchronized (this) {
+                if (mGeneration != generation) {
+                    return;
+                }
+                mScheduledTime = UNSCHEDULED_NANOS;
+                if (mPeriod == 0) {
+                    return;
+                }
+                callback = mCallback;
+            }
+            if (callback != null && callback.keepRunning(this) != true) {
+                return; // Do NOT reschedule
+            }
+            synchronized (this) {
+                if (mGeneration == generation) {
+                    schedule(nanoTime() + mPeriod);
+                }
             }
         }
-
     }
 
     private static class RunFor implements KeepRunning {
@@ -0,0 +1,316 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.periodic;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A hierarchical timing wheel, which schedules and cancels timers in
+ * constant time.
+ *
+ * Time is counted in ticks. The wheel has {@link #LEVELS} levels of 64
+ * slots: a timer due in the current block of 64 ticks is kept in the slot
+ * of its tick at level 0, a timer due in the current block of 64 * 64
+ * ticks in the slot of its block of 64 ticks at level 1, and so on. When
+ * the time reaches the start of a block, the timers of its slot at the
+ * level above are moved down. Timers further away than the top level are
+ * kept in the top level and moved down when they get close. The slots are
+ * intrusive linked lists of {@link Timer timers}, so scheduling,
+ * rescheduling and canceling a timer allocates nothing.
+ *
+ * Timers are scheduled from any thread by {@link #schedule(Timer, long)}
+ * and {@link #cancel(Timer)}, which only record the request and push the
+ * timer on a lock-free stack. The wheel itself is owned by the thread
+ * which calls {@link #advance(long)}: it applies the last request of every
+ * pushed timer, then {@linkplain Timer#expired() expires} the timers which
+ * are due, in the order of their ticks.
+ *
+ * A timer expires on the first {@link #advance(long)} whose time is at or
+ * after its deadline rounded up to a tick; it never expires early.
+ */
+final class TimingWheel {
+    static final int LEVELS = 5;
+    static final long UNSCHEDULED = Long.MIN_VALUE;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final long SLOT_MASK = SLOTS - 1;
+
+    /**
+     * An entry of the wheel. Subclasses do the work in {@link #expired()}.
+     */
+    static abstract class Timer {
+        /*
+         * Submission: the last requested deadline, and the link of the
+         * stack of pushed timers
+         */
+        private volatile long mRequested = UNSCHEDULED;
+        private final AtomicBoolean mPending = new AtomicBoolean();
+        private Timer mNextPending;
+
+        /*
+         * Wheel: owned by the thread which advances it
+         */
+        private Timer mPrev;
+        private Timer mNext;
+        private int mSlot = -1;
+        private long mTick;
+
+        /**
+         * Called by {@link TimingWheel#advance(long)} when the timer is
+         * due; the timer is no longer in the wheel.
+         */
+        protected abstract void expired();
+    }
+
+    private final long mStart;
+    private final long mTickNanos;
+    private final Timer[] mSlots = new Timer[LEVELS * SLOTS];
+    private final long[] mOccupied = new long[LEVELS];
+    private final AtomicReference<Timer> mSubmitted = new AtomicReference<Timer>();
+    private Timer mOverdue;
+    private long mCurrent;
+    private int mSize;
+
+    /**
+     * @param tickNanos duration of a tick
+     * @param startNanos time of the first tick
+     */
+    TimingWheel(long tickNanos, long startNanos) {
+        mTickNanos = tickNanos;
+        mStart = startNanos;
+    }
+
+    /**
+     * Number of timers in the wheel, not counting pending requests.
+     */
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Schedules a timer, replacing any previous schedule. Safe from any
+     * thread; takes effect on the next {@link #advance(long)}.
+     *
+     * @param deadlineNanos time at which the timer is due
+     */
+    void schedule(Timer timer, long deadlineNanos) {
+        timer.mRequested = deadlineNanos;
+        if (timer.mPending.compareAndSet(false, true)) {
+            Timer head;
+            do {
+                head = mSubmitted.get();
+                timer.mNextPending = head;
+            } while (!mSubmitted.compareAndSet(head, timer));
+        }
+    }
+
+    /**
+     * Cancels a timer. Safe from any thread; takes effect on the next
+     * {@link #advance(long)}.
+     */
+    void cancel(Timer timer) {
+        schedule(timer, UNSCHEDULED);
+    }
+
+    /**
+     * Applies the pending requests and expires the timers due at
+     * {@code nowNanos}. Must always be called from the same thread, or
+     * with external synchronization. A timer rescheduled from
+     * {@link Timer#expired()} at or before {@code nowNanos} expires again
+     * in the same call.
+     */
+    void advance(long nowNanos) {
+        final long target = floorDiv(nowNanos - mStart, mTickNanos);
+
+        expire(null);
+        while (mCurrent <= target) {
+            final int index = (int) (mCurrent & SLOT_MASK);
+            if (index == 0) {
+                cascade();
+            } else if ((mOccupied[0] >>> index) == 0) {
+                // Nothing left in this block of level 0
+                mCurrent = Math.min(target, mCurrent | SLOT_MASK) + 1;
+                continue;
+            }
+            final Timer due = detach(index);
+            ++mCurrent;
+            if (due != null) {
+                expire(due);
+            }
+        }
+    }
+
+    /*
+     * Moves the timers of the slots of the blocks which start at the
+     * current tick down, the highest level first.
+     */
+    private void cascade() {
+        for (int level = LEVELS - 1; level > 0; --level) {
+            final int shift = level * SLOT_BITS;
+            if ((mCurrent & ((1L << shift) - 1)) == 0) {
+                final int slot = level * SLOTS + (int) ((mCurrent >>> shift) & SLOT_MASK);
+                Timer timer = detach(slot);
+                while (timer != null) {
+                    final Timer next = timer.mNext;
+                    timer.mNext = null;
+                    insert(timer, timer.mTick);
+                    timer = next;
+                }
+            }
+        }
+    }
+
+    /*
+     * Expires a list of timers, then applies what they requested. A timer
+     * requested for a tick which is already past is overdue, and expires
+     * right away.
+     */
+    private void expire(Timer due) {
+        for (;;) {
+            while (due != null) {
+                final Timer next = due.mNext;
+                due.mNext = null;
+                due.mSlot = -1;
+                --mSize;
+                due.expired();
+                due = next;
+            }
+            drain();
+            if (mOverdue == null) {
+                return;
+            }
+            due = mOverdue;
+            mOverdue = null;
+        }
+    }
+
+    /*
+     * Applies the last request of every pushed timer
+     */
+    private void drain() {
+        Timer timer = mSubmitted.getAndSet(null);
+        while (timer != null) {
+            final Timer next = timer.mNextPending;
+            timer.mNextPending = null;
+            timer.mPending.set(false);
+
+            remove(timer);
+            final long deadline = timer.mRequested;
+            if (deadline != UNSCHEDULED) {
+                final long tick = -floorDiv(mStart - deadline, mTickNanos);
+                ++mSize;
+                if (tick < mCurrent) {
+                    timer.mTick = tick;
+                    timer.mSlot = -2;
+                    timer.mNext = mOverdue;
+                    mOverdue = timer;
+                } else {
+                    insert(timer, tick);
+                }
+            }
+            timer = next;
+        }
+    }
+
+    private void insert(Timer timer, long tick) {
+        int level = 0;
+        while ((level < LEVELS - 1) && (((tick ^ mCurrent) >>> ((level + 1) * SLOT_BITS)) != 0)) {
+            ++level;
+        }
+        final int index = (int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK);
+        final int slot = level * SLOTS + index;
+        final Timer head = mSlots[slot];
+
+        timer.mTick = tick;
+        timer.mSlot = slot;
+        timer.mPrev = null;
+        timer.mNext = head;
+        if (head != null) {
+            head.mPrev = timer;
+        }
+        mSlots[slot] = timer;
+        mOccupied[level] |= 1L << index;
+    }
+
+    private void remove(Timer timer) {
+        final int slot = timer.mSlot;
+        if (slot == -1) {
+            return;
+        }
+        if (slot == -2) {
+            removeOverdue(timer);
+            return;
+        }
+        if (timer.mPrev != null) {
+            timer.mPrev.mNext = timer.mNext;
+        } else {
+            mSlots[slot] = timer.mNext;
+            if (timer.mNext == null) {
+                mOccupied[slot / SLOTS] &= ~(1L << (slot % SLOTS));
+            }
+        }
+        if (timer.mNext != null) {
+            timer.mNext.mPrev = timer.mPrev;
+        }
+        timer.mPrev = timer.mNext = null;
+        timer.mSlot = -1;
+        --mSize;
+    }
+
+    private static long floorDiv(long x, long y) {
+        final long q = x / y;
+        return ((x % y != 0) && ((x < 0) != (y < 0))) ? q - 1 : q;
+    }
+
+    /*
+     * Overdue timers are rare, and only wait until the end of the drain
+     */
+    private void removeOverdue(Timer timer) {
+        Timer prev = null;
+        for (Timer t = mOverdue; t != null; prev = t, t = t.mNext) {
+            if (t == timer) {
+                if (prev == null) {
+                    mOverdue = t.mNext;
+                } else {
+                    prev.mNext = t.mNext;
+                }
+                break;
+            }
+        }
+        timer.mNext = null;
+        timer.mSlot = -1;
+        --mSize;
+    }
+
+    /*
+     * Takes the whole list of a slot; the timers are no longer in the
+     * wheel but keep their next links.
+     */
+    private Timer detach(int slot) {
+        final Timer head = mSlots[slot];
+        if (head != null) {
+            mSlots[slot] = null;
+            mOccupied[slot / SLOTS] &= ~(1L << (slot % SLOTS));
+            for (Timer timer = head; timer != null; timer = timer.mNext) {
+                timer.mSlot = -1;
+                timer.mPrev = null;
+            }
+        }
+        return head;
+    }
+}
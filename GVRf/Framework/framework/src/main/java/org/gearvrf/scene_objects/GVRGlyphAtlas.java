@@ -0,0 +1,277 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.scene_objects;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import org.gearvrf.GVRBitmapImage;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.GVRTextureParameters;
+import org.gearvrf.GVRTextureParameters.TextureFilterType;
+import org.gearvrf.utility.DistanceField;
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.SkylinePacker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A signed distance field font atlas shared by any number of
+ * {@link GVRTextMeshSceneObject}s.
+ * <p>
+ * The atlas rasterizes every character of a character set once with
+ * Android's {@link Paint}, converts each glyph into a distance field and
+ * packs them all into a single grayscale texture. Text drawn with the atlas
+ * stays sharp at any size and all labels using the same atlas share one
+ * texture, so they can be rendered without per-label canvas draws or
+ * texture uploads.
+ * @see GVRGlyphSet
+ * @see GVRTextMeshSceneObject
+ */
+public class GVRGlyphAtlas
+{
+    private static final String TAG = GVRGlyphAtlas.class.getSimpleName();
+
+    /**
+     * Printable ASCII, Latin-1 and the ellipsis character.
+     */
+    public static final String DEFAULT_CHARACTERS;
+    public static final int DEFAULT_GLYPH_SIZE = 48;
+    public static final int DEFAULT_SPREAD = 6;
+    private static final int MAX_ATLAS_SIZE = 2048;
+
+    static
+    {
+        StringBuilder chars = new StringBuilder();
+        for (char c = 32; c < 127; ++c)
+        {
+            chars.append(c);
+        }
+        for (char c = 161; c <= 255; ++c)
+        {
+            chars.append(c);
+        }
+        chars.append('\u2026');
+        DEFAULT_CHARACTERS = chars.toString();
+    }
+
+    private static final Map<GVRContext, Map<Typeface, GVRGlyphAtlas>> sShared =
+            new WeakHashMap<GVRContext, Map<Typeface, GVRGlyphAtlas>>();
+
+    private final GVRGlyphSet mGlyphs;
+    private final GVRTexture mTexture;
+    private final Typeface mTypeface;
+    private final int mGlyphSize;
+
+    /**
+     * Builds an atlas with the default character set and glyph size.
+     * @param gvrContext    current {@link GVRContext}
+     * @param typeface      typeface to rasterize, null for {@link Typeface#DEFAULT}
+     */
+    public GVRGlyphAtlas(GVRContext gvrContext, Typeface typeface)
+    {
+        this(gvrContext, typeface, DEFAULT_CHARACTERS, DEFAULT_GLYPH_SIZE, DEFAULT_SPREAD);
+    }
+
+    /**
+     * Builds an atlas.
+     * @param gvrContext    current {@link GVRContext}
+     * @param typeface      typeface to rasterize, null for {@link Typeface#DEFAULT}
+     * @param characters    characters to put in the atlas
+     * @param glyphSize     text size in pixels the glyphs are rasterized at
+     * @param spread        distance in pixels covered by the distance field
+     *                      on either side of the glyph edges
+     */
+    public GVRGlyphAtlas(GVRContext gvrContext, Typeface typeface, CharSequence characters,
+                         int glyphSize, int spread)
+    {
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        final Paint.FontMetrics metrics;
+
+        mTypeface = (typeface != null) ? typeface : Typeface.DEFAULT;
+        mGlyphSize = glyphSize;
+        paint.setTypeface(mTypeface);
+        paint.setTextSize(glyphSize);
+        paint.setColor(Color.WHITE);
+        metrics = paint.getFontMetrics();
+        mGlyphs = new GVRGlyphSet(metrics.ascent, metrics.descent, metrics.leading, spread);
+
+        int width = 256;
+        int height = 256;
+        byte[] pixels = null;
+        while (pixels == null)
+        {
+            pixels = rasterize(paint, characters, spread, width, height);
+            if (pixels == null)
+            {
+                if ((width >= MAX_ATLAS_SIZE) && (height >= MAX_ATLAS_SIZE))
+                {
+                    throw new IllegalArgumentException("Glyphs do not fit in a "
+                            + MAX_ATLAS_SIZE + "x" + MAX_ATLAS_SIZE + " atlas");
+                }
+                if (width > height)
+                {
+                    height *= 2;
+                }
+                else
+                {
+                    width *= 2;
+                }
+            }
+        }
+        mGlyphs.setFallback('?');
+
+        GVRTextureParameters params = new GVRTextureParameters(gvrContext);
+        params.setMinFilterType(TextureFilterType.GL_LINEAR);
+        params.setMagFilterType(TextureFilterType.GL_LINEAR);
+        mTexture = new GVRTexture(gvrContext, params);
+        mTexture.setImage(new GVRBitmapImage(gvrContext, width, height, pixels));
+        Log.d(TAG, "built %dx%d atlas with %d glyphs", width, height, characters.length());
+    }
+
+    /**
+     * Gets an atlas with the default character set for a typeface,
+     * building it the first time it is requested for a context.
+     * @param gvrContext    current {@link GVRContext}
+     * @param typeface      typeface to rasterize, null for {@link Typeface#DEFAULT}
+     * @return atlas shared by all callers with the same context and typeface
+     */
+    public static GVRGlyphAtlas getShared(GVRContext gvrContext, Typeface typeface)
+    {
+        final Typeface key = (typeface != null) ? typeface : Typeface.DEFAULT;
+
+        synchronized (sShared)
+        {
+            Map<Typeface, GVRGlyphAtlas> atlases = sShared.get(gvrContext);
+            if (atlases == null)
+            {
+                atlases = new HashMap<Typeface, GVRGlyphAtlas>();
+                sShared.put(gvrContext, atlases);
+            }
+            GVRGlyphAtlas atlas = atlases.get(key);
+            if (atlas == null)
+            {
+                atlas = new GVRGlyphAtlas(gvrContext, key);
+                atlases.put(key, atlas);
+            }
+            return atlas;
+        }
+    }
+
+    /**
+     * Gets the glyph metrics and atlas locations.
+     */
+    public GVRGlyphSet getGlyphSet()
+    {
+        return mGlyphs;
+    }
+
+    /**
+     * Gets the distance field texture.
+     */
+    public GVRTexture getTexture()
+    {
+        return mTexture;
+    }
+
+    /**
+     * Gets the text size in pixels the glyphs were rasterized at.
+     * The metrics in the glyph set are relative to this size.
+     */
+    public int getGlyphSize()
+    {
+        return mGlyphSize;
+    }
+
+    /**
+     * Gets the typeface the atlas was built from.
+     */
+    public Typeface getTypeface()
+    {
+        return mTypeface;
+    }
+
+    /*
+     * Rasterizes and packs all the glyphs into a width x height
+     * distance field. Returns null if they do not all fit.
+     */
+    private byte[] rasterize(Paint paint, CharSequence characters, int spread, int width, int height)
+    {
+        final SkylinePacker packer = new SkylinePacker(width, height, 1);
+        final byte[] atlas = new byte[width * height];
+        final Rect bounds = new Rect();
+        final int[] xy = new int[2];
+        final char[] chars = new char[1];
+        Bitmap bitmap = null;
+        Canvas canvas = null;
+        int[] argb = null;
+        byte[] mask = null;
+
+        for (int i = 0; i < characters.length(); ++i)
+        {
+            final char c = characters.charAt(i);
+
+            chars[0] = c;
+            paint.getTextBounds(chars, 0, 1, bounds);
+            final float advance = paint.measureText(chars, 0, 1);
+            if (bounds.isEmpty())
+            {
+                mGlyphs.add(new GVRGlyphSet.Glyph(c, 0, 0, 0, 0, advance, 0, 0, 0, 0));
+                continue;
+            }
+            final int w = bounds.width() + 2 * spread;
+            final int h = bounds.height() + 2 * spread;
+
+            if (!packer.pack(w, h, xy))
+            {
+                return null;
+            }
+            if ((bitmap == null) || (bitmap.getWidth() < w) || (bitmap.getHeight() < h))
+            {
+                int bw = Math.max(w, (bitmap != null) ? bitmap.getWidth() : 0);
+                int bh = Math.max(h, (bitmap != null) ? bitmap.getHeight() : 0);
+                bitmap = Bitmap.createBitmap(bw, bh, Bitmap.Config.ARGB_8888);
+                canvas = new Canvas(bitmap);
+                argb = new int[bw * bh];
+                mask = new byte[bw * bh];
+            }
+            bitmap.eraseColor(Color.TRANSPARENT);
+            canvas.drawText(chars, 0, 1, spread - bounds.left, spread - bounds.top, paint);
+            bitmap.getPixels(argb, 0, w, 0, 0, w, h);
+            for (int p = 0; p < w * h; ++p)
+            {
+                mask[p] = (byte) (argb[p] >>> 24);
+            }
+            DistanceField.compute(mask, w, h, spread, mask);
+            for (int row = 0; row < h; ++row)
+            {
+                System.arraycopy(mask, row * w, atlas, (xy[1] + row) * width + xy[0], w);
+            }
+            mGlyphs.add(new GVRGlyphSet.Glyph(c,
+                    bounds.left - spread, bounds.top - spread, w, h, advance,
+                    (float) xy[0] / width, (float) xy[1] / height,
+                    (float) (xy[0] + w) / width, (float) (xy[1] + h) / height));
+        }
+        return atlas;
+    }
+}
@@ -0,0 +1,560 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.scene_objects;
+
+/**
+ * Lays out text as a list of textured quads, one per visible glyph.
+ * <p>
+ * The layout produces vertex positions, texture coordinates and triangle
+ * indices in the format of a {@code "float3 a_position float2 a_texcoord"}
+ * mesh. The top left corner of the first line is at the origin, x increases
+ * to the right and y increases upwards, so the text extends into negative y.
+ * Lines are broken at '\n' and, if a maximum width is set, at the last space
+ * that keeps the line within it.
+ * <p>
+ * When the text changes, only the lines from the first changed character
+ * onwards are laid out again; the quads before them keep their vertices.
+ * {@link #getFirstChangedQuad()} tells the caller which part of the
+ * vertex arrays was touched.
+ * <p>
+ * This class is pure Java and does not depend on Android or the GL thread.
+ * @see GVRGlyphSet
+ * @see GVRTextMeshSceneObject
+ */
+public class GVRGlyphLayout
+{
+    /**
+     * Horizontal alignment of the lines.
+     */
+    public enum Alignment { BEGIN, MIDDLE, END }
+
+    public static final int FLOATS_PER_POSITION = 3;
+    public static final int FLOATS_PER_TEXCOORD = 2;
+    public static final int VERTICES_PER_QUAD = 4;
+    public static final int INDICES_PER_QUAD = 6;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final GVRGlyphSet mGlyphs;
+    private Alignment mAlignment = Alignment.BEGIN;
+    private float mScale = 1.0f;
+    private float mMaxWidth = 0;
+    private float mLineSpacing = 1.0f;
+    private boolean mSettingsChanged = true;
+
+    private char[] mText = new char[INITIAL_CAPACITY];
+    private int mTextLength = 0;
+    private int[] mQuadBefore = new int[INITIAL_CAPACITY + 1];
+    private int[] mLineOfChar = new int[INITIAL_CAPACITY];
+    private int[] mLineStart = new int[INITIAL_CAPACITY];
+    private float[] mLineWidth = new float[INITIAL_CAPACITY];
+    private int mLineCount = 0;
+
+    private float[] mPositions = new float[INITIAL_CAPACITY * VERTICES_PER_QUAD * FLOATS_PER_POSITION];
+    private float[] mTexCoords = new float[INITIAL_CAPACITY * VERTICES_PER_QUAD * FLOATS_PER_TEXCOORD];
+    private int mQuadCount = 0;
+    private int mFirstChangedQuad = 0;
+
+    /**
+     * Constructs an empty layout for a glyph set.
+     * @param glyphs metrics of the glyphs in the font atlas
+     */
+    public GVRGlyphLayout(GVRGlyphSet glyphs)
+    {
+        mGlyphs = glyphs;
+    }
+
+    /**
+     * Gets the glyph set this layout uses.
+     */
+    public GVRGlyphSet getGlyphSet()
+    {
+        return mGlyphs;
+    }
+
+    /**
+     * Sets the height of a line of text in scene units.
+     * This determines the scale of all the glyphs.
+     * @param height line height in scene units
+     */
+    public void setLineHeight(float height)
+    {
+        float scale = height / mGlyphs.getLineHeight();
+        if (scale != mScale)
+        {
+            mScale = scale;
+            mSettingsChanged = true;
+        }
+    }
+
+    /**
+     * Gets the height of a line of text in scene units.
+     */
+    public float getLineHeight()
+    {
+        return mGlyphs.getLineHeight() * mScale;
+    }
+
+    /**
+     * Sets the maximum width of a line, in scene units.
+     * Longer lines are wrapped at the last space before the limit,
+     * or at the limit itself if there is no space.
+     * @param width maximum width, zero or less disables wrapping
+     */
+    public void setMaxWidth(float width)
+    {
+        if (width != mMaxWidth)
+        {
+            mMaxWidth = width;
+            mSettingsChanged = true;
+        }
+    }
+
+    /**
+     * Gets the maximum width of a line in scene units,
+     * zero if wrapping is disabled.
+     */
+    public float getMaxWidth()
+    {
+        return mMaxWidth;
+    }
+
+    /**
+     * Sets the horizontal alignment of the lines.
+     */
+    public void setAlignment(Alignment alignment)
+    {
+        if (alignment != mAlignment)
+        {
+            mAlignment = alignment;
+            mSettingsChanged = true;
+        }
+    }
+
+    /**
+     * Gets the horizontal alignment of the lines.
+     */
+    public Alignment getAlignment()
+    {
+        return mAlignment;
+    }
+
+    /**
+     * Sets the distance between lines as a multiple of the line height.
+     * @param spacing line spacing, 1 is single spaced
+     */
+    public void setLineSpacing(float spacing)
+    {
+        if (spacing != mLineSpacing)
+        {
+            mLineSpacing = spacing;
+            mSettingsChanged = true;
+        }
+    }
+
+    /**
+     * Lays out new text.
+     * <p>
+     * The text is compared with the previous text and only the lines
+     * from the first difference onwards are laid out again.
+     * @param text text to lay out
+     * @return true if any quads changed, false if the layout is unchanged
+     */
+    public boolean layout(CharSequence text)
+    {
+        final int newLength = (text != null) ? text.length() : 0;
+        int firstDiff = 0;
+
+        if (!mSettingsChanged)
+        {
+            int common = Math.min(newLength, mTextLength);
+            while ((firstDiff < common) && (mText[firstDiff] == text.charAt(firstDiff)))
+            {
+                ++firstDiff;
+            }
+            if ((firstDiff == common) && (newLength == mTextLength))
+            {
+                mFirstChangedQuad = mQuadCount;
+                return false;
+            }
+        }
+        mSettingsChanged = false;
+
+        /*
+         * Find the first line which may change. With wrapping enabled
+         * the break at the end of the previous line depends on the
+         * characters at the start of this one so start one line earlier.
+         */
+        int line = 0;
+        if ((firstDiff > 0) && (mLineCount > 0))
+        {
+            line = mLineOfChar[Math.min(firstDiff, mTextLength) - 1];
+            if ((firstDiff < mTextLength) && (mLineOfChar[firstDiff] > line))
+            {
+                line = mLineOfChar[firstDiff];
+            }
+            if ((mMaxWidth > 0) && (line > 0))
+            {
+                --line;
+            }
+        }
+        int start = (line < mLineCount) ? mLineStart[line] : mTextLength;
+        if (start > firstDiff)
+        {
+            start = 0;
+            line = 0;
+        }
+
+        ensureTextCapacity(newLength);
+        for (int i = start; i < newLength; ++i)
+        {
+            mText[i] = text.charAt(i);
+        }
+        mTextLength = newLength;
+        layoutFrom(start, line);
+        return true;
+    }
+
+    /**
+     * Gets the number of glyph quads in the layout.
+     */
+    public int getQuadCount()
+    {
+        return mQuadCount;
+    }
+
+    /**
+     * Gets the index of the first quad the last call to {@link #layout(CharSequence)}
+     * changed. Quads before it have the same vertices as before.
+     */
+    public int getFirstChangedQuad()
+    {
+        return mFirstChangedQuad;
+    }
+
+    /**
+     * Gets the number of lines in the layout.
+     */
+    public int getLineCount()
+    {
+        return mLineCount;
+    }
+
+    /**
+     * Gets the width of the widest line in scene units.
+     */
+    public float getWidth()
+    {
+        float width = 0;
+        for (int i = 0; i < mLineCount; ++i)
+        {
+            width = Math.max(width, mLineWidth[i]);
+        }
+        return width;
+    }
+
+    /**
+     * Gets the height of the text block in scene units.
+     */
+    public float getHeight()
+    {
+        if (mLineCount == 0)
+        {
+            return 0;
+        }
+        return (mLineCount - 1) * getLineHeight() * mLineSpacing + getLineHeight();
+    }
+
+    /**
+     * Gets the vertex positions, three floats per vertex and four vertices per quad.
+     * The array may be larger than needed; only the first
+     * {@code getQuadCount() * 12} entries are valid.
+     * The array is owned by the layout and reused by subsequent calls.
+     */
+    public float[] getPositions()
+    {
+        return mPositions;
+    }
+
+    /**
+     * Gets the texture coordinates, two floats per vertex and four vertices per quad.
+     * The array may be larger than needed; only the first
+     * {@code getQuadCount() * 8} entries are valid.
+     * The array is owned by the layout and reused by subsequent calls.
+     */
+    public float[] getTexCoords()
+    {
+        return mTexCoords;
+    }
+
+    /**
+     * Fills an array with the triangle indices for a number of quads.
+     * The indices only depend on the quad count so they can be
+     * generated once for the capacity of a mesh.
+     * @param indices   array with at least {@code quadCount * 6} entries
+     * @param quadCount number of quads
+     */
+    public static void fillIndices(char[] indices, int quadCount)
+    {
+        for (int q = 0, i = 0; q < quadCount; ++q)
+        {
+            char v = (char) (q * VERTICES_PER_QUAD);
+            indices[i++] = v;
+            indices[i++] = (char) (v + 1);
+            indices[i++] = (char) (v + 2);
+            indices[i++] = (char) (v + 1);
+            indices[i++] = (char) (v + 3);
+            indices[i++] = (char) (v + 2);
+        }
+    }
+
+    /**
+     * Fills an array with 32 bit triangle indices for a number of quads,
+     * for meshes with more than 16383 quads.
+     * @param indices   array with at least {@code quadCount * 6} entries
+     * @param quadCount number of quads
+     */
+    public static void fillIndices(int[] indices, int quadCount)
+    {
+        for (int q = 0, i = 0; q < quadCount; ++q)
+        {
+            int v = q * VERTICES_PER_QUAD;
+            indices[i++] = v;
+            indices[i++] = v + 1;
+            indices[i++] = v + 2;
+            indices[i++] = v + 1;
+            indices[i++] = v + 3;
+            indices[i++] = v + 2;
+        }
+    }
+
+    private void layoutFrom(int start, int line)
+    {
+        final float lineAdvance = getLineHeight() * mLineSpacing;
+        final float ascent = mGlyphs.getAscent() * mScale;
+        int quad = (start > 0) ? mQuadBefore[start] : 0;
+        int lineStartQuad = quad;
+        int lastBreak = -1;
+        int i = start;
+        float x = 0;
+        float baseline = -line * lineAdvance + ascent;
+
+        mFirstChangedQuad = quad;
+        mLineCount = line;
+        beginLine(line, start);
+        while (i < mTextLength)
+        {
+            final char c = mText[i];
+
+            mLineOfChar[i] = line;
+            mQuadBefore[i] = quad;
+            if (c == '\n')
+            {
+                endLine(line, lineStartQuad, quad, x);
+                ++line;
+                ++i;
+                beginLine(line, i);
+                baseline -= lineAdvance;
+                lineStartQuad = quad;
+                lastBreak = -1;
+                x = 0;
+                continue;
+            }
+            GVRGlyphSet.Glyph g = mGlyphs.get(c);
+            if (g == null)
+            {
+                ++i;
+                continue;
+            }
+            float advance = g.advance * mScale;
+            if ((mMaxWidth > 0) && (x + advance > mMaxWidth) && (i > mLineStart[line]))
+            {
+                /*
+                 * Wrap at this space or at the last one on this line,
+                 * otherwise break in the middle of the word.
+                 */
+                int next = i;
+                if (c == ' ')
+                {
+                    next = i + 1;
+                }
+                else if (lastBreak >= 0)
+                {
+                    next = lastBreak + 1;
+                    quad = mQuadBefore[next];
+                    x = measure(mLineStart[line], lastBreak);
+                }
+                endLine(line, lineStartQuad, quad, x);
+                ++line;
+                baseline -= lineAdvance;
+                beginLine(line, next);
+                lineStartQuad = quad;
+                lastBreak = -1;
+                x = 0;
+                i = next;
+                continue;
+            }
+            if (c == ' ')
+            {
+                lastBreak = i;
+            }
+            if (!g.isEmpty())
+            {
+                ensureQuadCapacity(quad + 1);
+                writeQuad(quad, g, x, baseline);
+                ++quad;
+            }
+            x += advance;
+            ++i;
+        }
+        mQuadBefore[mTextLength] = quad;
+        endLine(line, lineStartQuad, quad, x);
+        mQuadCount = quad;
+    }
+
+    /**
+     * Measures the width of part of a string with the current settings,
+     * without changing the layout.
+     * @param text  text to measure
+     * @param start index of the first character
+     * @param end   index after the last character
+     * @return width of the characters in scene units
+     */
+    public float measureText(CharSequence text, int start, int end)
+    {
+        float x = 0;
+        for (int i = start; i < end; ++i)
+        {
+            GVRGlyphSet.Glyph g = mGlyphs.get(text.charAt(i));
+            if (g != null)
+            {
+                x += g.advance * mScale;
+            }
+        }
+        return x;
+    }
+
+    /*
+     * Width of the characters from start up to but not including end.
+     */
+    private float measure(int start, int end)
+    {
+        float x = 0;
+        for (int i = start; i < end; ++i)
+        {
+            GVRGlyphSet.Glyph g = mGlyphs.get(mText[i]);
+            if (g != null)
+            {
+                x += g.advance * mScale;
+            }
+        }
+        return x;
+    }
+
+    private void beginLine(int line, int start)
+    {
+        if (line >= mLineStart.length)
+        {
+            int size = Math.max(line + 1, mLineStart.length * 2);
+            int[] starts = new int[size];
+            float[] widths = new float[size];
+            System.arraycopy(mLineStart, 0, starts, 0, mLineStart.length);
+            System.arraycopy(mLineWidth, 0, widths, 0, mLineWidth.length);
+            mLineStart = starts;
+            mLineWidth = widths;
+        }
+        mLineStart[line] = start;
+        mLineCount = line + 1;
+    }
+
+    private void endLine(int line, int firstQuad, int endQuad, float width)
+    {
+        float offset = 0;
+
+        mLineWidth[line] = width;
+        if (mAlignment == Alignment.MIDDLE)
+        {
+            offset = -width / 2;
+        }
+        else if (mAlignment == Alignment.END)
+        {
+            offset = -width;
+        }
+        if (offset != 0)
+        {
+            final int end = endQuad * VERTICES_PER_QUAD * FLOATS_PER_POSITION;
+            for (int p = firstQuad * VERTICES_PER_QUAD * FLOATS_PER_POSITION; p < end; p += FLOATS_PER_POSITION)
+            {
+                mPositions[p] += offset;
+            }
+        }
+    }
+
+    private void writeQuad(int quad, GVRGlyphSet.Glyph g, float penX, float baseline)
+    {
+        final float x0 = penX + g.left * mScale;
+        final float x1 = x0 + g.width * mScale;
+        final float y0 = baseline - g.top * mScale;
+        final float y1 = y0 - g.height * mScale;
+        int p = quad * VERTICES_PER_QUAD * FLOATS_PER_POSITION;
+        int t = quad * VERTICES_PER_QUAD * FLOATS_PER_TEXCOORD;
+
+        // top left, bottom left, top right, bottom right like GVRMesh.createQuad
+        mPositions[p++] = x0; mPositions[p++] = y0; mPositions[p++] = 0;
+        mPositions[p++] = x0; mPositions[p++] = y1; mPositions[p++] = 0;
+        mPositions[p++] = x1; mPositions[p++] = y0; mPositions[p++] = 0;
+        mPositions[p++] = x1; mPositions[p++] = y1; mPositions[p] = 0;
+
+        mTexCoords[t++] = g.u0; mTexCoords[t++] = g.v0;
+        mTexCoords[t++] = g.u0; mTexCoords[t++] = g.v1;
+        mTexCoords[t++] = g.u1; mTexCoords[t++] = g.v0;
+        mTexCoords[t++] = g.u1; mTexCoords[t] = g.v1;
+    }
+
+    private void ensureTextCapacity(int length)
+    {
+        if (length > mText.length)
+        {
+            int size = Math.max(length, mText.length * 2);
+            char[] text = new char[size];
+            int[] quads = new int[size + 1];
+            int[] lines = new int[size];
+
+            System.arraycopy(mText, 0, text, 0, mTextLength);
+            System.arraycopy(mQuadBefore, 0, quads, 0, mTextLength + 1);
+            System.arraycopy(mLineOfChar, 0, lines, 0, mTextLength);
+            mText = text;
+            mQuadBefore = quads;
+            mLineOfChar = lines;
+        }
+    }
+
+    private void ensureQuadCapacity(int quads)
+    {
+        final int capacity = mPositions.length / (VERTICES_PER_QUAD * FLOATS_PER_POSITION);
+        if (quads > capacity)
+        {
+            int size = Math.max(quads, capacity * 2);
+            float[] positions = new float[size * VERTICES_PER_QUAD * FLOATS_PER_POSITION];
+            float[] texcoords = new float[size * VERTICES_PER_QUAD * FLOATS_PER_TEXCOORD];
+
+            System.arraycopy(mPositions, 0, positions, 0, mPositions.length);
+            System.arraycopy(mTexCoords, 0, texcoords, 0, mTexCoords.length);
+            mPositions = positions;
+            mTexCoords = texcoords;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.scene_objects;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metrics and atlas locations of the glyphs in a font atlas.
+ * <p>
+ * All metrics are in atlas pixels and use a y-down coordinate system
+ * relative to the pen position on the baseline, the same as Android's
+ * {@code Paint} font metrics. Texture coordinates are normalized to the
+ * atlas size with v = 0 at the top of the atlas.
+ * <p>
+ * This class is pure Java so that text layout can run and be tested
+ * without a device. {@link GVRGlyphAtlas} fills it in when it rasterizes
+ * a typeface.
+ * @see GVRGlyphLayout
+ */
+public class GVRGlyphSet
+{
+    private static final int DIRECT_GLYPHS = 256;
+
+    /**
+     * Location and metrics of a single glyph.
+     */
+    public static class Glyph
+    {
+        /** Unicode code point of the glyph. */
+        public final int codePoint;
+        /** Horizontal distance from the pen position to the left of the glyph quad. */
+        public final float left;
+        /** Vertical distance from the baseline to the top of the glyph quad (usually negative). */
+        public final float top;
+        /** Width of the glyph quad. */
+        public final float width;
+        /** Height of the glyph quad. */
+        public final float height;
+        /** Distance the pen moves after this glyph. */
+        public final float advance;
+        /** Normalized texture coordinates of the glyph quad in the atlas. */
+        public final float u0, v0, u1, v1;
+
+        public Glyph(int codePoint, float left, float top, float width, float height, float advance,
+                     float u0, float v0, float u1, float v1)
+        {
+            this.codePoint = codePoint;
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+            this.advance = advance;
+            this.u0 = u0;
+            this.v0 = v0;
+            this.u1 = u1;
+            this.v1 = v1;
+        }
+
+        /**
+         * Returns true if the glyph has no visible pixels, like a space.
+         */
+        public boolean isEmpty()
+        {
+            return (width <= 0) || (height <= 0);
+        }
+    }
+
+    private final Glyph[] mDirect = new Glyph[DIRECT_GLYPHS];
+    private final Map<Integer, Glyph> mOther = new HashMap<Integer, Glyph>();
+    private final float mAscent;
+    private final float mDescent;
+    private final float mLeading;
+    private final float mSpread;
+    private Glyph mFallback;
+
+    /**
+     * Constructs an empty glyph set.
+     * @param ascent    distance from the baseline to the top of the tallest glyph (negative)
+     * @param descent   distance from the baseline to the bottom of the lowest glyph (positive)
+     * @param leading   extra space between lines
+     * @param spread    distance field spread in pixels the atlas was generated with
+     */
+    public GVRGlyphSet(float ascent, float descent, float leading, float spread)
+    {
+        mAscent = ascent;
+        mDescent = descent;
+        mLeading = leading;
+        mSpread = spread;
+    }
+
+    /**
+     * Adds a glyph to the set, replacing any glyph with the same code point.
+     * @param glyph glyph to add
+     */
+    public void add(Glyph glyph)
+    {
+        if ((glyph.codePoint >= 0) && (glyph.codePoint < DIRECT_GLYPHS))
+        {
+            mDirect[glyph.codePoint] = glyph;
+        }
+        else
+        {
+            mOther.put(glyph.codePoint, glyph);
+        }
+    }
+
+    /**
+     * Designates the glyph used for code points not in the set.
+     * If no fallback is set, missing characters are skipped.
+     * @param codePoint code point of a glyph already in the set
+     */
+    public void setFallback(int codePoint)
+    {
+        mFallback = find(codePoint);
+    }
+
+    /**
+     * Finds the glyph for a code point.
+     * @param codePoint Unicode code point
+     * @return glyph, the fallback glyph or null if there is neither
+     */
+    public Glyph get(int codePoint)
+    {
+        Glyph g = find(codePoint);
+        return (g != null) ? g : mFallback;
+    }
+
+    /**
+     * Returns true if the set has a glyph for the code point.
+     */
+    public boolean contains(int codePoint)
+    {
+        return find(codePoint) != null;
+    }
+
+    /**
+     * Gets the distance from the baseline to the top of the line (negative).
+     */
+    public float getAscent()
+    {
+        return mAscent;
+    }
+
+    /**
+     * Gets the distance from the baseline to the bottom of the line (positive).
+     */
+    public float getDescent()
+    {
+        return mDescent;
+    }
+
+    /**
+     * Gets the distance between the baselines of consecutive lines.
+     */
+    public float getLineHeight()
+    {
+        return mDescent - mAscent + mLeading;
+    }
+
+    /**
+     * Gets the spread in pixels the distance field was generated with.
+     */
+    public float getSpread()
+    {
+        return mSpread;
+    }
+
+    private Glyph find(int codePoint)
+    {
+        if ((codePoint >= 0) && (codePoint < DIRECT_GLYPHS))
+        {
+            return mDirect[codePoint];
+        }
+        return mOther.get(codePoint);
+    }
+}
@@ -0,0 +1,268 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.scene_objects;
+
+import android.graphics.Color;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRMaterial.GVRShaderType;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRRenderData;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.scene_objects.GVRGlyphLayout.Alignment;
+
+import java.util.Arrays;
+
+import static org.gearvrf.scene_objects.GVRGlyphLayout.FLOATS_PER_POSITION;
+import static org.gearvrf.scene_objects.GVRGlyphLayout.FLOATS_PER_TEXCOORD;
+import static org.gearvrf.scene_objects.GVRGlyphLayout.INDICES_PER_QUAD;
+import static org.gearvrf.scene_objects.GVRGlyphLayout.VERTICES_PER_QUAD;
+
+/**
+ * Displays text as a single mesh of glyph quads textured from a shared
+ * {@link GVRGlyphAtlas}.
+ * <p>
+ * Unlike {@link GVRTextViewSceneObject}, this scene object does not own an
+ * Android view, a surface or a texture. Changing the text lays out only the
+ * lines that changed and updates the vertices of the mesh; no canvas
+ * drawing or texture upload is involved. All the labels which use the same
+ * atlas share one texture and shader.
+ * <p>
+ * The top left corner of the text is at the origin of the scene object.
+ * Must be updated from the GL thread, like other scene objects.
+ * @see GVRGlyphLayout
+ */
+public class GVRTextMeshSceneObject extends GVRSceneObject
+{
+    private static final String VERTEX_DESCRIPTOR = "float3 a_position float2 a_texcoord";
+    private static final float DEFAULT_LINE_HEIGHT = 0.1f;
+    private static final int MIN_CAPACITY = 16;
+
+    private final GVRGlyphAtlas mAtlas;
+    private final GVRGlyphLayout mLayout;
+    private CharSequence mText = "";
+    private float[] mPositions;
+    private float[] mTexCoords;
+    private int mCapacity = 0;
+    private int mQuadsInMesh = 0;
+
+    /**
+     * Constructs a text scene object with the default line height.
+     * @param gvrContext    current {@link GVRContext}
+     * @param atlas         glyph atlas to render with
+     * @param text          text to display
+     */
+    public GVRTextMeshSceneObject(GVRContext gvrContext, GVRGlyphAtlas atlas, CharSequence text)
+    {
+        this(gvrContext, atlas, text, DEFAULT_LINE_HEIGHT);
+    }
+
+    /**
+     * Constructs a text scene object.
+     * @param gvrContext    current {@link GVRContext}
+     * @param atlas         glyph atlas to render with
+     * @param text          text to display
+     * @param lineHeight    height of a line of text in scene units
+     */
+    public GVRTextMeshSceneObject(GVRContext gvrContext, GVRGlyphAtlas atlas, CharSequence text,
+                                  float lineHeight)
+    {
+        super(gvrContext);
+        mAtlas = atlas;
+        mLayout = new GVRGlyphLayout(atlas.getGlyphSet());
+        mLayout.setLineHeight(lineHeight);
+
+        GVRMaterial material = new GVRMaterial(gvrContext, GVRShaderType.DistanceFieldText.ID);
+        material.setMainTexture(atlas.getTexture());
+        GVRRenderData renderData = new GVRRenderData(gvrContext, material);
+        renderData.setAlphaBlend(true);
+        renderData.setRenderingOrder(GVRRenderData.GVRRenderingOrder.TRANSPARENT);
+        attachRenderData(renderData);
+        allocateMesh(MIN_CAPACITY);
+        setText(text);
+    }
+
+    /**
+     * Gets the atlas this text is rendered with.
+     */
+    public GVRGlyphAtlas getAtlas()
+    {
+        return mAtlas;
+    }
+
+    /**
+     * Gets the layout of the text.
+     * Call {@link #refresh()} after changing layout settings directly.
+     */
+    public GVRGlyphLayout getLayout()
+    {
+        return mLayout;
+    }
+
+    /**
+     * Set the text to be displayed.
+     * Only the lines from the first changed character onwards are laid out again.
+     * @param text the new text to be displayed.
+     */
+    public void setText(CharSequence text)
+    {
+        mText = (text != null) ? text : "";
+        refresh();
+    }
+
+    /**
+     * Get the current text.
+     * @return The text that is currently displayed.
+     */
+    public CharSequence getText()
+    {
+        return mText;
+    }
+
+    /**
+     * Set the text color.
+     * @param color text color, in Android {@link Color} format including alpha
+     */
+    public void setTextColor(int color)
+    {
+        getRenderData().getMaterial().setVec4("u_color",
+                Color.red(color) / 255.0f, Color.green(color) / 255.0f,
+                Color.blue(color) / 255.0f, Color.alpha(color) / 255.0f);
+    }
+
+    /**
+     * Set the height of a line of text in scene units.
+     */
+    public void setLineHeight(float height)
+    {
+        mLayout.setLineHeight(height);
+        refresh();
+    }
+
+    /**
+     * Set the maximum width of a line, in scene units.
+     * @param width maximum width, zero or less disables wrapping
+     */
+    public void setMaxWidth(float width)
+    {
+        mLayout.setMaxWidth(width);
+        refresh();
+    }
+
+    /**
+     * Set the horizontal alignment of the lines relative to the origin.
+     */
+    public void setAlignment(Alignment alignment)
+    {
+        mLayout.setAlignment(alignment);
+        refresh();
+    }
+
+    /**
+     * Set the distance between lines as a multiple of the line height.
+     */
+    public void setLineSpacing(float spacing)
+    {
+        mLayout.setLineSpacing(spacing);
+        refresh();
+    }
+
+    /**
+     * Get the width of the widest line in scene units.
+     */
+    public float getTextWidth()
+    {
+        return mLayout.getWidth();
+    }
+
+    /**
+     * Get the height of the text in scene units.
+     */
+    public float getTextHeight()
+    {
+        return mLayout.getHeight();
+    }
+
+    /**
+     * Lays out the text again if it or the layout settings changed
+     * and updates the mesh.
+     */
+    public void refresh()
+    {
+        if (!mLayout.layout(mText))
+        {
+            return;
+        }
+        final int quads = mLayout.getQuadCount();
+        final int first = mLayout.getFirstChangedQuad();
+
+        if (quads > mCapacity)
+        {
+            allocateMesh(Math.max(quads, Math.max(MIN_CAPACITY, mCapacity * 2)));
+        }
+        System.arraycopy(mLayout.getPositions(), first * VERTICES_PER_QUAD * FLOATS_PER_POSITION,
+                         mPositions, first * VERTICES_PER_QUAD * FLOATS_PER_POSITION,
+                         (quads - first) * VERTICES_PER_QUAD * FLOATS_PER_POSITION);
+        System.arraycopy(mLayout.getTexCoords(), first * VERTICES_PER_QUAD * FLOATS_PER_TEXCOORD,
+                         mTexCoords, first * VERTICES_PER_QUAD * FLOATS_PER_TEXCOORD,
+                         (quads - first) * VERTICES_PER_QUAD * FLOATS_PER_TEXCOORD);
+        if (mQuadsInMesh > quads)
+        {
+            // collapse the quads no longer used so they are not rasterized
+            Arrays.fill(mPositions, quads * VERTICES_PER_QUAD * FLOATS_PER_POSITION,
+                        mQuadsInMesh * VERTICES_PER_QUAD * FLOATS_PER_POSITION, 0.0f);
+        }
+        mQuadsInMesh = quads;
+
+        GVRMesh mesh = getRenderData().getMesh();
+        mesh.setVertices(mPositions);
+        mesh.setTexCoords(mTexCoords);
+    }
+
+    /*
+     * The vertex and index buffers cannot be resized so the mesh
+     * is replaced when the text outgrows it.
+     */
+    private void allocateMesh(int capacity)
+    {
+        final GVRMesh mesh = new GVRMesh(getGVRContext(), VERTEX_DESCRIPTOR);
+        float[] positions = new float[capacity * VERTICES_PER_QUAD * FLOATS_PER_POSITION];
+        float[] texcoords = new float[capacity * VERTICES_PER_QUAD * FLOATS_PER_TEXCOORD];
+
+        if (mPositions != null)
+        {
+            System.arraycopy(mPositions, 0, positions, 0, mPositions.length);
+            System.arraycopy(mTexCoords, 0, texcoords, 0, mTexCoords.length);
+        }
+        mPositions = positions;
+        mTexCoords = texcoords;
+        mCapacity = capacity;
+        if (capacity * VERTICES_PER_QUAD > Character.MAX_VALUE)
+        {
+            final int[] indices = new int[capacity * INDICES_PER_QUAD];
+            GVRGlyphLayout.fillIndices(indices, capacity);
+            mesh.setIndices(indices);
+        }
+        else
+        {
+            final char[] indices = new char[capacity * INDICES_PER_QUAD];
+            GVRGlyphLayout.fillIndices(indices, capacity);
+            mesh.setIndices(indices);
+        }
+        getRenderData().setMesh(mesh);
+    }
+}
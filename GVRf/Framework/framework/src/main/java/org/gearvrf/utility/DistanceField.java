@@ -0,0 +1,138 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+/**
+ * Converts coverage masks into signed distance fields.
+ * <p>
+ * A signed distance field stores, for every pixel, the distance to the
+ * nearest edge of the shape, remapped so that 0.5 (128) is the edge, larger
+ * values are inside and smaller values are outside. Sampled with bilinear
+ * filtering and thresholded in the fragment shader, it renders sharp glyph
+ * and icon edges at any scale from a small texture.
+ * <p>
+ * The distances are computed exactly with the linear time
+ * Felzenszwalb-Huttenlocher transform. This class is pure Java
+ * and does not depend on Android.
+ */
+public final class DistanceField
+{
+    private static final float INF = 1e20f;
+
+    private DistanceField() { }
+
+    /**
+     * Computes the signed distance field of a coverage mask.
+     * @param mask      {@code width * height} bytes of coverage,
+     *                  pixels with coverage of 128 or more are inside
+     * @param width     width of the mask in pixels
+     * @param height    height of the mask in pixels
+     * @param spread    distance in pixels which maps to the full output range
+     * @param out       {@code width * height} bytes which receive the distance field,
+     *                  may be the same array as {@code mask}
+     */
+    public static void compute(byte[] mask, int width, int height, float spread, byte[] out)
+    {
+        final int n = width * height;
+        final float[] inside = new float[n];
+        final float[] outside = new float[n];
+        final int maxDim = Math.max(width, height);
+        final float[] f = new float[maxDim];
+        final float[] d = new float[maxDim];
+        final float[] z = new float[maxDim + 1];
+        final int[] v = new int[maxDim];
+
+        if ((mask.length < n) || (out.length < n))
+        {
+            throw new IllegalArgumentException("Mask and output must have " + n + " entries");
+        }
+        for (int i = 0; i < n; ++i)
+        {
+            boolean in = (mask[i] & 0xFF) >= 128;
+            inside[i] = in ? INF : 0;
+            outside[i] = in ? 0 : INF;
+        }
+        transform(outside, width, height, f, d, z, v);
+        transform(inside, width, height, f, d, z, v);
+        for (int i = 0; i < n; ++i)
+        {
+            float dist = (float) (Math.sqrt(outside[i]) - Math.sqrt(inside[i]));
+            int value = Math.round(128.0f - 127.0f * dist / spread);
+
+            out[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+    }
+
+    /*
+     * Squared euclidean distance transform in place,
+     * one column pass followed by one row pass.
+     */
+    private static void transform(float[] grid, int width, int height,
+                                  float[] f, float[] d, float[] z, int[] v)
+    {
+        for (int x = 0; x < width; ++x)
+        {
+            for (int y = 0; y < height; ++y)
+            {
+                f[y] = grid[y * width + x];
+            }
+            transform1D(f, d, z, v, height);
+            for (int y = 0; y < height; ++y)
+            {
+                grid[y * width + x] = d[y];
+            }
+        }
+        for (int y = 0; y < height; ++y)
+        {
+            int row = y * width;
+            System.arraycopy(grid, row, f, 0, width);
+            transform1D(f, d, z, v, width);
+            System.arraycopy(d, 0, grid, row, width);
+        }
+    }
+
+    private static void transform1D(float[] f, float[] d, float[] z, int[] v, int n)
+    {
+        int k = 0;
+
+        v[0] = 0;
+        z[0] = -INF;
+        z[1] = INF;
+        for (int q = 1; q < n; ++q)
+        {
+            float s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+            while (s <= z[k])
+            {
+                --k;
+                s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+            }
+            ++k;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = INF;
+        }
+        k = 0;
+        for (int q = 0; q < n; ++q)
+        {
+            while (z[k + 1] < q)
+            {
+                ++k;
+            }
+            float dq = q - v[k];
+            d[q] = dq * dq + f[v[k]];
+        }
+    }
+}
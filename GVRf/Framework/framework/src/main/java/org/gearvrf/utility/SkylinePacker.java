@@ -0,0 +1,263 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+/**
+ * Packs rectangles into a fixed size bin using the skyline bottom-left
+ * heuristic.
+ * <p>
+ * The skyline is the upper outline of all the rectangles placed so far,
+ * stored as a list of horizontal segments. Each new rectangle is placed on
+ * the segment which results in the lowest top edge; ties are broken by the
+ * narrowest segment. The packer keeps all of its state in primitive arrays
+ * and does not depend on Android, so it can be used from build tools as well
+ * as at runtime.
+ * <p>
+ * Coordinates have their origin in the top left corner of the bin with
+ * y increasing downwards, like Android bitmaps.
+ */
+public class SkylinePacker
+{
+    private final int mWidth;
+    private final int mHeight;
+    private final int mPadding;
+    private int[] mNodeX = new int[16];
+    private int[] mNodeY = new int[16];
+    private int[] mNodeWidth = new int[16];
+    private int mNodeCount;
+    private int mUsedHeight;
+    private long mUsedArea;
+
+    /**
+     * Constructs an empty packer.
+     * @param width     width of the bin in pixels
+     * @param height    height of the bin in pixels
+     * @param padding   number of empty pixels to leave to the right and below
+     *                  each rectangle, to avoid filtering across neighbours
+     * @throws IllegalArgumentException if the bin size is not positive or the padding is negative
+     */
+    public SkylinePacker(int width, int height, int padding)
+    {
+        if ((width <= 0) || (height <= 0) || (padding < 0))
+        {
+            throw new IllegalArgumentException("Invalid bin size " + width + "x" + height + " padding " + padding);
+        }
+        mWidth = width;
+        mHeight = height;
+        mPadding = padding;
+        reset();
+    }
+
+    /**
+     * Removes all the rectangles from the bin.
+     */
+    public void reset()
+    {
+        mNodeCount = 1;
+        mNodeX[0] = 0;
+        mNodeY[0] = 0;
+        mNodeWidth[0] = mWidth;
+        mUsedHeight = 0;
+        mUsedArea = 0;
+    }
+
+    /**
+     * Finds a place for a rectangle and marks it as used.
+     * @param width     width of the rectangle in pixels
+     * @param height    height of the rectangle in pixels
+     * @param outXY     array of at least two ints which gets the
+     *                  top left corner of the rectangle in the bin
+     * @return true if the rectangle was placed, false if it does not fit
+     */
+    public boolean pack(int width, int height, int[] outXY)
+    {
+        final int w = width + mPadding;
+        final int h = height + mPadding;
+        int bestIndex = -1;
+        int bestTop = Integer.MAX_VALUE;
+        int bestWidth = Integer.MAX_VALUE;
+        int bestY = 0;
+
+        if ((width <= 0) || (height <= 0))
+        {
+            throw new IllegalArgumentException("Invalid rectangle size " + width + "x" + height);
+        }
+        for (int i = 0; i < mNodeCount; ++i)
+        {
+            int y = fit(i, w, h);
+
+            if (y < 0)
+            {
+                continue;
+            }
+            int top = y + h;
+            if ((top < bestTop) || ((top == bestTop) && (mNodeWidth[i] < bestWidth)))
+            {
+                bestIndex = i;
+                bestTop = top;
+                bestWidth = mNodeWidth[i];
+                bestY = y;
+            }
+        }
+        if (bestIndex < 0)
+        {
+            return false;
+        }
+        outXY[0] = mNodeX[bestIndex];
+        outXY[1] = bestY;
+        addNode(bestIndex, mNodeX[bestIndex], bestY + h, Math.min(w, mWidth - mNodeX[bestIndex]));
+        mUsedHeight = Math.max(mUsedHeight, Math.min(bestY + h, mHeight));
+        mUsedArea += (long) width * height;
+        return true;
+    }
+
+    /**
+     * Gets the width of the bin in pixels.
+     */
+    public int getWidth()
+    {
+        return mWidth;
+    }
+
+    /**
+     * Gets the height of the bin in pixels.
+     */
+    public int getHeight()
+    {
+        return mHeight;
+    }
+
+    /**
+     * Gets the lowest row touched by any rectangle packed so far.
+     * This can be used to trim the bin before it is uploaded.
+     */
+    public int getUsedHeight()
+    {
+        return mUsedHeight;
+    }
+
+    /**
+     * Gets the fraction of the bin covered by packed rectangles,
+     * not counting padding.
+     */
+    public float getOccupancy()
+    {
+        return (float) mUsedArea / ((float) mWidth * mHeight);
+    }
+
+    /*
+     * Returns the y coordinate a w x h rectangle would get
+     * if its left edge was at the start of the given node,
+     * or -1 if it does not fit there.
+     */
+    private int fit(int index, int w, int h)
+    {
+        int x = mNodeX[index];
+        int y = mNodeY[index];
+        int remaining = w;
+
+        if (x + w - mPadding > mWidth)
+        {
+            return -1;
+        }
+        while ((remaining > 0) && (index < mNodeCount))
+        {
+            y = Math.max(y, mNodeY[index]);
+            if (y + h - mPadding > mHeight)
+            {
+                return -1;
+            }
+            remaining -= mNodeWidth[index];
+            ++index;
+        }
+        return y;
+    }
+
+    private void addNode(int index, int x, int y, int w)
+    {
+        ensureCapacity(mNodeCount + 1);
+        System.arraycopy(mNodeX, index, mNodeX, index + 1, mNodeCount - index);
+        System.arraycopy(mNodeY, index, mNodeY, index + 1, mNodeCount - index);
+        System.arraycopy(mNodeWidth, index, mNodeWidth, index + 1, mNodeCount - index);
+        mNodeX[index] = x;
+        mNodeY[index] = y;
+        mNodeWidth[index] = w;
+        ++mNodeCount;
+
+        /*
+         * Shrink or remove the segments now covered by the new one.
+         */
+        int i = index + 1;
+        while (i < mNodeCount)
+        {
+            int prevRight = mNodeX[i - 1] + mNodeWidth[i - 1];
+            if (mNodeX[i] >= prevRight)
+            {
+                break;
+            }
+            int shrink = prevRight - mNodeX[i];
+            mNodeX[i] += shrink;
+            mNodeWidth[i] -= shrink;
+            if (mNodeWidth[i] > 0)
+            {
+                break;
+            }
+            removeNode(i);
+        }
+        /*
+         * Merge neighbouring segments at the same height.
+         */
+        i = 0;
+        while (i < mNodeCount - 1)
+        {
+            if (mNodeY[i] == mNodeY[i + 1])
+            {
+                mNodeWidth[i] += mNodeWidth[i + 1];
+                removeNode(i + 1);
+            }
+            else
+            {
+                ++i;
+            }
+        }
+    }
+
+    private void removeNode(int index)
+    {
+        int n = mNodeCount - index - 1;
+        System.arraycopy(mNodeX, index + 1, mNodeX, index, n);
+        System.arraycopy(mNodeY, index + 1, mNodeY, index, n);
+        System.arraycopy(mNodeWidth, index + 1, mNodeWidth, index, n);
+        --mNodeCount;
+    }
+
+    private void ensureCapacity(int n)
+    {
+        if (n > mNodeX.length)
+        {
+            int size = Math.max(n, mNodeX.length * 2);
+            int[] x = new int[size];
+            int[] y = new int[size];
+            int[] w = new int[size];
+            System.arraycopy(mNodeX, 0, x, 0, mNodeCount);
+            System.arraycopy(mNodeY, 0, y, 0, mNodeCount);
+            System.arraycopy(mNodeWidth, 0, w, 0, mNodeCount);
+            mNodeX = x;
+            mNodeY = y;
+            mNodeWidth = w;
+        }
+    }
+}
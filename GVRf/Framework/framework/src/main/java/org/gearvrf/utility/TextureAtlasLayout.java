@@ -0,0 +1,292 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Computes the placement of a set of named images in a texture atlas.
+ * <p>
+ * Images are packed with a {@link SkylinePacker}, tallest first, into the
+ * smallest power of two atlas which holds them all. The result is
+ * expressed as the UV offset and scale which map each image's own
+ * texture coordinates into the atlas, the same convention used by
+ * {@link org.gearvrf.GVRAtlasInformation}, and can be written as the JSON
+ * read by {@link org.gearvrf.GVRAssetLoader#loadTextureAtlasInformation}.
+ * <p>
+ * This class does not depend on Android and does not touch pixels, so it
+ * can be used by build tools to produce an atlas offline as well as by
+ * {@link org.gearvrf.GVRTextureAtlasBuilder} at runtime.
+ */
+public class TextureAtlasLayout
+{
+    private static final int MIN_SIZE = 64;
+
+    private static class Entry
+    {
+        final String name;
+        final int width;
+        final int height;
+        int x;
+        int y;
+
+        Entry(String name, int width, int height)
+        {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final List<Entry> mEntries = new ArrayList<Entry>();
+    private final int mMaxSize;
+    private final int mPadding;
+    private int mWidth = 0;
+    private int mHeight = 0;
+
+    /**
+     * Constructs an empty layout.
+     * @param maxSize   largest width and height the atlas may have
+     * @param padding   pixels reserved around each image. The atlas builder
+     *                  fills them by extending the edges of the image so that
+     *                  bilinear filtering does not bleed between images.
+     */
+    public TextureAtlasLayout(int maxSize, int padding)
+    {
+        mMaxSize = maxSize;
+        mPadding = padding;
+    }
+
+    /**
+     * Adds an image to the layout.
+     * @param name      name of the image, usually the name of the
+     *                  scene object it is mapped to
+     * @param width     image width in pixels
+     * @param height    image height in pixels
+     * @return index of the image in the layout
+     */
+    public int add(String name, int width, int height)
+    {
+        if ((width <= 0) || (height <= 0)
+            || (width + 2 * mPadding > mMaxSize) || (height + 2 * mPadding > mMaxSize))
+        {
+            throw new IllegalArgumentException("Image " + name + " has invalid size " + width + "x" + height);
+        }
+        mEntries.add(new Entry(name, width, height));
+        mWidth = mHeight = 0;
+        return mEntries.size() - 1;
+    }
+
+    /**
+     * Places all the images in the smallest atlas that holds them.
+     * @return true if they all fit in an atlas of the maximum size
+     */
+    public boolean layout()
+    {
+        final Entry[] sorted = mEntries.toArray(new Entry[mEntries.size()]);
+        final int[] xy = new int[2];
+        long area = 0;
+
+        Arrays.sort(sorted, new Comparator<Entry>()
+        {
+            public int compare(Entry a, Entry b)
+            {
+                if (a.height != b.height)
+                {
+                    return b.height - a.height;
+                }
+                return b.width - a.width;
+            }
+        });
+        final int border = 2 * mPadding;
+
+        for (Entry e : sorted)
+        {
+            area += (long) (e.width + border) * (e.height + border);
+        }
+        int width = MIN_SIZE;
+        int height = MIN_SIZE;
+        while ((long) width * height < area)
+        {
+            if (width <= height)
+            {
+                width *= 2;
+            }
+            else
+            {
+                height *= 2;
+            }
+        }
+        while ((width <= mMaxSize) && (height <= mMaxSize))
+        {
+            SkylinePacker packer = new SkylinePacker(width, height, 0);
+            boolean fits = true;
+
+            for (Entry e : sorted)
+            {
+                if (!packer.pack(e.width + border, e.height + border, xy))
+                {
+                    fits = false;
+                    break;
+                }
+                e.x = xy[0] + mPadding;
+                e.y = xy[1] + mPadding;
+            }
+            if (fits)
+            {
+                mWidth = width;
+                mHeight = height;
+                return true;
+            }
+            if (width <= height)
+            {
+                width *= 2;
+            }
+            else
+            {
+                height *= 2;
+            }
+        }
+        mWidth = mHeight = 0;
+        return false;
+    }
+
+    /**
+     * Gets the width of the atlas, zero before a successful {@link #layout()}.
+     */
+    public int getWidth()
+    {
+        return mWidth;
+    }
+
+    /**
+     * Gets the height of the atlas, zero before a successful {@link #layout()}.
+     */
+    public int getHeight()
+    {
+        return mHeight;
+    }
+
+    /**
+     * Gets the number of pixels reserved around each image.
+     */
+    public int getPadding()
+    {
+        return mPadding;
+    }
+
+    /**
+     * Gets the number of images in the layout.
+     */
+    public int getCount()
+    {
+        return mEntries.size();
+    }
+
+    public String getName(int index)
+    {
+        return mEntries.get(index).name;
+    }
+
+    public int getX(int index)
+    {
+        return mEntries.get(index).x;
+    }
+
+    public int getY(int index)
+    {
+        return mEntries.get(index).y;
+    }
+
+    public int getImageWidth(int index)
+    {
+        return mEntries.get(index).width;
+    }
+
+    public int getImageHeight(int index)
+    {
+        return mEntries.get(index).height;
+    }
+
+    /**
+     * Gets the UV offset of an image in the atlas.
+     * @param index index of the image
+     * @return U and V of the top left corner of the image
+     */
+    public float[] getOffset(int index)
+    {
+        final Entry e = mEntries.get(index);
+        return new float[] { (float) e.x / mWidth, (float) e.y / mHeight };
+    }
+
+    /**
+     * Gets the UV scale of an image in the atlas.
+     * @param index index of the image
+     * @return size of the image in atlas UV units
+     */
+    public float[] getScale(int index)
+    {
+        final Entry e = mEntries.get(index);
+        return new float[] { (float) e.width / mWidth, (float) e.height / mHeight };
+    }
+
+    /**
+     * Writes the placement of the images as a JSON array in the format read by
+     * {@link org.gearvrf.GVRAssetLoader#loadTextureAtlasInformation}.
+     */
+    public String toJSON()
+    {
+        StringBuilder sb = new StringBuilder("[\n");
+
+        for (int i = 0; i < mEntries.size(); ++i)
+        {
+            final float[] offset = getOffset(i);
+            final float[] scale = getScale(i);
+
+            sb.append("  { \"name\": \"");
+            appendEscaped(sb, getName(i));
+            sb.append("\", \"offset.x\": ").append(offset[0])
+              .append(", \"offset.y\": ").append(offset[1])
+              .append(", \"scale.x\": ").append(scale[0])
+              .append(", \"scale.y\": ").append(scale[1])
+              .append(i < mEntries.size() - 1 ? " },\n" : " }\n");
+        }
+        return sb.append("]\n").toString();
+    }
+
+    private static void appendEscaped(StringBuilder sb, String s)
+    {
+        for (int i = 0; i < s.length(); ++i)
+        {
+            char c = s.charAt(i);
+            if ((c == '"') || (c == '\\'))
+            {
+                sb.append('\\').append(c);
+            }
+            else if (c < ' ')
+            {
+                sb.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                sb.append(c);
+            }
+        }
+    }
+}
@@ -20,6 +20,8 @@
 #include "picker.h"
 
 #include <limits>
+#include <cmath>
+#include <algorithm>
 #include "glm/glm.hpp"
 #include "glm/gtc/matrix_inverse.hpp"
 
@@ -29,6 +31,7 @@
 #include "objects/components/perspective_camera.h"
 #include "objects/components/render_data.h"
 #include "objects/components/mesh_collider.h"
+#include "objects/components/sphere_collider.h"
 
 namespace gvr {
 
@@ -102,6 +105,24 @@ void Picker::pickClosest(Scene* scene,
     scene->unlockColliders();
 }
 
+/*
+ * Gets the version of everything a ray pick of the scene depends on
+ * besides the ray (see Scene::getPickStateVersion) without visiting
+ * the colliders. If it is the same on two frames, a ray pick with the
+ * same ray gives the same result.
+ * The ray is transformed into world coordinates by the model matrix
+ * of the transform. Returns zero if there is no transform.
+ */
+uint64_t Picker::getPickState(Scene* scene, Transform* t, glm::vec3& ray_start, glm::vec3& ray_dir)
+{
+    if (t == NULL)
+    {
+        return 0;
+    }
+    Collider::transformRay(t->getModelMatrix(), ray_start, ray_dir);
+    return scene->getPickStateVersion();
+}
+
 /*
  * Intersects all the colliders in the scene with the set of
  * input scene objects (collidables) and returns the list of collisions.
@@ -119,31 +140,13 @@ void Picker::pickBounds(Scene* scene,
         int cursorID = 0;
         for (auto it2 = collidables.begin(); it2 != collidables.end(); ++it2)
         {
-            SceneObject* collidable = *it2;
-            if ((collidable == NULL) || !collidable->enabled())
-            {
-                ++cursorID;
-                continue;
-            }
-            BoundingVolume& bv = collidable->getBoundingVolume();
-            glm::vec3 center(bv.center());
-            float bsphere[4] = { center.x, center.y, center.z, bv.radius()};
             Collider* collider = reinterpret_cast<Collider*>(*it);
-            SceneObject* owner = collider->owner_object();
+            ColliderData data;
 
-            if (collider->enabled() &&
-                (owner != NULL) &&
-                owner->enabled() &&
-                (bsphere[3] > 0) &&
-                (bsphere[3] != std::numeric_limits<float>::infinity()))
+            if (pickBounds(collider, *it2, data))
             {
-                ColliderData data = collider->isHit(owner, bsphere);
-                if (data.IsHit)
-                {
-                    data.CollidableIndex = cursorID;      // cursor ID is index of collidable
-                    data.ObjectHit = owner;
-                    picklist.push_back(data);
-                }
+                data.CollidableIndex = cursorID;      // cursor ID is index of collidable
+                picklist.push_back(data);
             }
             ++cursorID;
         }
@@ -151,6 +154,251 @@ void Picker::pickBounds(Scene* scene,
     scene->unlockColliders();
 }
 
+/*
+ * Intersects the bounding spheres of the collidables with the
+ * colliders in the scene, only for the given pairs of collider index
+ * and collidable index. The pairs must be sorted by collider, then by
+ * collidable, so that the hits come out in the same order as
+ * pickBounds without pairs. The colliders are the ones the pairs were
+ * made from; if the colliders in the scene have changed since, every
+ * collider is tested against every collidable instead and false is returned.
+ */
+bool Picker::pickBounds(Scene* scene,
+                        std::vector<ColliderData>& picklist,
+                        const std::vector<SceneObject*>& collidables,
+                        const int64_t* colliderPtrs, int numColliders,
+                        const int* pairs, int numPairs)
+{
+    const std::vector<Component*>& colliders = scene->lockColliders();
+    bool same = (colliders.size() == static_cast<size_t>(numColliders));
+
+    for (int i = 0; same && (i < numColliders); ++i)
+    {
+        same = (reinterpret_cast<int64_t>(colliders[i]) == colliderPtrs[i]);
+    }
+    if (!same)
+    {
+        scene->unlockColliders();
+        pickBounds(scene, picklist, collidables);
+        return false;
+    }
+    for (int p = 0; p < numPairs; ++p)
+    {
+        int colliderIndex = pairs[p * 2];
+        int cursorID = pairs[p * 2 + 1];
+        Collider* collider = reinterpret_cast<Collider*>(colliders[colliderIndex]);
+        ColliderData data;
+
+        if (pickBounds(collider, collidables[cursorID], data))
+        {
+            data.CollidableIndex = cursorID;
+            picklist.push_back(data);
+        }
+    }
+    scene->unlockColliders();
+    return true;
+}
+
+/*
+ * Intersects the bounding sphere of a collidable with a collider.
+ * Disabled colliders and collidables and collidables without
+ * finite bounds are never hit.
+ */
+bool Picker::pickBounds(Collider* collider, SceneObject* collidable, ColliderData& data)
+{
+    if ((collidable == NULL) || !collidable->enabled())
+    {
+        return false;
+    }
+    BoundingVolume& bv = collidable->getBoundingVolume();
+    glm::vec3 center(bv.center());
+    float bsphere[4] = { center.x, center.y, center.z, bv.radius()};
+    SceneObject* owner = collider->owner_object();
+
+    if (collider->enabled() &&
+        (owner != NULL) &&
+        owner->enabled() &&
+        (bsphere[3] > 0) &&
+        (bsphere[3] != std::numeric_limits<float>::infinity()))
+    {
+        data = collider->isHit(owner, bsphere);
+        if (data.IsHit)
+        {
+            data.ObjectHit = owner;
+            return true;
+        }
+    }
+    return false;
+}
+
+/*
+ * Gets a sphere in world coordinates for each collider in the scene,
+ * for a broadphase which only tests collidables near a collider.
+ * Stores the collider pointers and five floats per collider, as
+ * described in getColliderBounds for a single collider.
+ * Nothing is stored if there are more than maxColliders colliders.
+ * Returns the number of colliders in the scene.
+ */
+int Picker::getColliderBounds(Scene* scene, int maxColliders, int64_t* colliderPtrs, float* bounds)
+{
+    const std::vector<Component*>& colliders = scene->lockColliders();
+    int n = colliders.size();
+
+    if (n <= maxColliders)
+    {
+        for (int i = 0; i < n; ++i)
+        {
+            Collider* collider = reinterpret_cast<Collider*>(colliders[i]);
+            colliderPtrs[i] = reinterpret_cast<int64_t>(collider);
+            getColliderBounds(collider, bounds + i * 5);
+        }
+    }
+    scene->unlockColliders();
+    return n;
+}
+
+/*
+ * Largest factor by which a matrix scales a length: the square root
+ * of the largest eigenvalue of the transpose of its upper 3x3 times
+ * itself, found in closed form.
+ */
+static double largestScale(const glm::mat4& m)
+{
+    glm::dmat3 a = glm::dmat3(glm::mat3(m));
+    glm::dmat3 b = glm::transpose(a) * a;
+    double p1 = b[0][1] * b[0][1] + b[0][2] * b[0][2] + b[1][2] * b[1][2];
+    double q = (b[0][0] + b[1][1] + b[2][2]) / 3.0;
+
+    if (p1 == 0)
+    {
+        return sqrt(std::max(b[0][0], std::max(b[1][1], b[2][2])));
+    }
+    double p2 = (b[0][0] - q) * (b[0][0] - q) + (b[1][1] - q) * (b[1][1] - q) +
+                (b[2][2] - q) * (b[2][2] - q) + 2.0 * p1;
+    double p = sqrt(p2 / 6.0);
+    glm::dmat3 c = (b - glm::dmat3(q)) * (1.0 / p);
+    double r = glm::clamp(glm::determinant(c) / 2.0, -1.0, 1.0);
+    return sqrt(q + 2.0 * p * cos(acos(r) / 3.0));
+}
+
+/*
+ * Computes a sphere in world coordinates outside of which the bounding
+ * sphere of a collidable cannot hit the collider. Stores its center and
+ * radius followed by a factor to scale the collidable radius by before
+ * adding it to the collider radius. The radius is negative if the
+ * collider cannot be hit and infinite if the test does not depend on
+ * the distance to the collidable.
+ *
+ * The sphere and mesh colliders transform the collidable sphere into
+ * their local coordinates with transformSphere, which turns its radius
+ * r into r times the length of the inverse model matrix applied to
+ * (1, 1, 1), and test it against a local sphere of radius R. In world
+ * coordinates the distance between the centers is then at most the
+ * largest scale of the model matrix times the sum of both radii.
+ */
+void Picker::getColliderBounds(Collider* collider, float* bounds)
+{
+    SceneObject* owner = collider->owner_object();
+    glm::vec3 center(0, 0, 0);
+    float radius = 0;
+
+    bounds[0] = bounds[1] = bounds[2] = 0;
+    bounds[3] = -1;
+    bounds[4] = 1;
+    if (!collider->enabled() || (owner == NULL) || !owner->enabled())
+    {
+        return;
+    }
+    RenderData* rd = owner->render_data();
+    Mesh* mesh = (rd != NULL) ? rd->mesh() : NULL;
+
+    switch (collider->shape_type())
+    {
+        case COLLIDER_SHAPE_SPHERE:
+        radius = reinterpret_cast<SphereCollider*>(collider)->get_radius();
+        if (mesh != NULL)
+        {
+            const BoundingVolume& meshbv = mesh->getBoundingVolume();
+            center = meshbv.center();
+            if (radius <= 0)
+            {
+                radius = meshbv.radius();
+            }
+        }
+        if (radius <= 0)
+        {
+            radius = 1;
+        }
+        break;
+
+        case COLLIDER_SHAPE_MESH:
+        {
+            Mesh* colliderMesh = reinterpret_cast<MeshCollider*>(collider)->mesh();
+            if (colliderMesh != NULL)
+            {
+                mesh = colliderMesh;
+            }
+            if (mesh == NULL)
+            {
+                return;                 // mesh colliders without a mesh are never hit
+            }
+            const BoundingVolume& meshbv = mesh->getBoundingVolume();
+            center = meshbv.center();
+            radius = meshbv.radius();
+        }
+        break;
+
+        default:
+        bounds[3] = std::numeric_limits<float>::infinity();
+        return;
+    }
+    glm::mat4 model_matrix = owner->transform()->getModelMatrix();
+    glm::mat4 model_inverse = glm::affineInverse(model_matrix);
+    glm::vec4 c = model_matrix * glm::vec4(center, 1);
+    double scale = largestScale(model_matrix);
+    double inverseScale = glm::length(glm::dvec3(glm::mat3(model_inverse) * glm::vec3(1, 1, 1)));
+
+    bounds[0] = c.x;
+    bounds[1] = c.y;
+    bounds[2] = c.z;
+    if (!std::isfinite(scale) || !std::isfinite(inverseScale))
+    {
+        bounds[3] = std::numeric_limits<float>::infinity();
+        return;
+    }
+    bounds[3] = scale * radius;
+    bounds[4] = scale * inverseScale;
+}
+
+/*
+ * Gets the bounding sphere of each collidable in world coordinates,
+ * four floats per collidable. The radius is negative for collidables
+ * which cannot hit anything in pickBounds.
+ */
+void Picker::getCollidableBounds(const std::vector<SceneObject*>& collidables, float* spheres)
+{
+    for (int i = 0; i < collidables.size(); ++i)
+    {
+        SceneObject* collidable = collidables[i];
+        float* s = spheres + i * 4;
+
+        s[0] = s[1] = s[2] = 0;
+        s[3] = -1;
+        if ((collidable != NULL) && collidable->enabled())
+        {
+            BoundingVolume& bv = collidable->getBoundingVolume();
+            float radius = bv.radius();
+            if ((radius > 0) && (radius != std::numeric_limits<float>::infinity()))
+            {
+                s[0] = bv.center().x;
+                s[1] = bv.center().y;
+                s[2] = bv.center().z;
+                s[3] = radius;
+            }
+        }
+    }
+}
+
 /**
  * Picks a single scene object from the scene. If the object has a mesh collider, the picker will calculate the
  * texture coordinates and barycentric coordinates of the corresponding hit-point. Note that this will do nothing
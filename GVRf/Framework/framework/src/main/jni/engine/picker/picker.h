@@ -23,6 +23,7 @@
 
 #include <vector>
 #include <memory>
+#include <cstdint>
 #include "objects/components/collider.h"
 #include "glm/glm.hpp"
 
@@ -56,6 +57,21 @@ public:
             Scene* scene,
             std::vector<ColliderData>& picklist,
             const std::vector<SceneObject*>& collidables);
+    static bool pickBounds(
+            Scene* scene,
+            std::vector<ColliderData>& picklist,
+            const std::vector<SceneObject*>& collidables,
+            const int64_t* colliders, int numColliders,
+            const int* pairs, int numPairs);
+    static int getColliderBounds(
+            Scene* scene, int maxColliders,
+            int64_t* colliders, float* bounds);
+    static void getCollidableBounds(
+            const std::vector<SceneObject*>& collidables,
+            float* spheres);
+    static uint64_t getPickState(
+            Scene* scene, Transform* t,
+            glm::vec3& ray_start, glm::vec3& ray_dir);
     static void pickSceneObject(
             SceneObject* scene_object,
             float ox, float oy, float oz,
@@ -64,6 +80,10 @@ public:
     static glm::vec3 pickSceneObjectAgainstBoundingBox(
             SceneObject* scene_object, float ox, float oy, float oz,
             float dx, float dy, float dz);
+
+private:
+    static bool pickBounds(Collider* collider, SceneObject* collidable, ColliderData& data);
+    static void getColliderBounds(Collider* collider, float* bounds);
 };
 
 }
@@ -37,10 +37,30 @@ extern "C" {
                                             jlong jtransform,
                                             jfloat ox, jfloat oy, jfloat oz,
                                             jfloat dx, jfloat dy, jfloat dz);
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_NativePicker_pickInto(JNIEnv * env,
+            jobject obj, jlong jscene, jlong jtransform,
+            jfloat ox, jfloat oy, jfloat oz, jfloat dx, jfloat dy, jfloat dz,
+            jboolean closest, jlongArray jcolliders, jfloatArray jfloats, jintArray jints);
     JNIEXPORT jobjectArray JNICALL
     Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env,
                                           jobject obj, jlong jscene,
                                           jobject collidables);
+    JNIEXPORT jobjectArray JNICALL
+    Java_org_gearvrf_NativePicker_pickBoundsPairs(JNIEnv * env,
+            jobject obj, jlong jscene, jlongArray jcollidables, jint numCollidables,
+            jlongArray jcolliders, jint numColliders, jintArray jpairs, jint numPairs);
+    JNIEXPORT jlong JNICALL
+    Java_org_gearvrf_NativePicker_getPickState(JNIEnv * env,
+            jobject obj, jlong jscene, jlong jtransform,
+            jfloat ox, jfloat oy, jfloat oz, jfloat dx, jfloat dy, jfloat dz,
+            jfloatArray jworldRay);
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_NativePicker_getColliderBounds(JNIEnv * env,
+            jobject obj, jlong jscene, jlongArray jcolliders, jfloatArray jbounds);
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativePicker_getCollidableBounds(JNIEnv * env,
+            jobject obj, jlongArray jcollidables, jint numCollidables, jfloatArray jspheres);
 
     JNIEXPORT jobjectArray JNICALL
     Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
@@ -193,6 +213,134 @@ Java_org_gearvrf_NativePicker_pickClosest(JNIEnv * env,
     return hitObject;
 }
 
+/*
+ * Picks the scene and writes the hits into the arrays of a
+ * GVRPickResults instead of making Java objects. Per hit there is
+ * a collider pointer, 12 floats (distance, hit position, barycentric,
+ * texture and normal coordinates) and 2 ints (face index, 1 if the
+ * mesh coordinates were computed). Nothing is written if the arrays
+ * are too small; the number of hits is returned either way.
+ */
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_pickInto(JNIEnv * env, jobject obj,
+                                       jlong jscene, jlong jtransform,
+                                       jfloat ox, jfloat oy, jfloat oz,
+                                       jfloat dx, jfloat dy, jfloat dz,
+                                       jboolean closest, jlongArray jcolliders,
+                                       jfloatArray jfloats, jintArray jints)
+{
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    Transform* t = reinterpret_cast<Transform*>(jtransform);
+    std::vector<ColliderData> colliders;
+
+    if (t == NULL)
+    {
+        t = scene->main_camera_rig()->getHeadTransform();
+        if (nullptr == t)
+        {
+            return 0;
+        }
+    }
+    if (closest)
+    {
+        ColliderData data;
+        Picker::pickClosest(scene, data, t, ox, oy, oz, dx, dy, dz);
+        if (data.IsHit)
+        {
+            colliders.push_back(data);
+        }
+    }
+    else
+    {
+        Picker::pickScene(scene, colliders, t, ox, oy, oz, dx, dy, dz);
+    }
+    int n = static_cast<int>(colliders.size());
+    if ((n == 0) ||
+        (env->GetArrayLength(jcolliders) < n) ||
+        (env->GetArrayLength(jfloats) < n * 12) ||
+        (env->GetArrayLength(jints) < n * 2))
+    {
+        return n;
+    }
+    jlong* colliderPtrs = env->GetLongArrayElements(jcolliders, 0);
+    jfloat* floats = env->GetFloatArrayElements(jfloats, 0);
+    jint* ints = env->GetIntArrayElements(jints, 0);
+
+    for (int i = 0; i < n; ++i)
+    {
+        const ColliderData& data = colliders[i];
+        MeshCollider* meshCollider = (MeshCollider *) data.ColliderHit;
+        bool hasCoords = meshCollider &&
+                         (meshCollider->shape_type() == COLLIDER_SHAPE_MESH) &&
+                         meshCollider->pickCoordinatesEnabled();
+        jfloat* f = floats + i * 12;
+
+        colliderPtrs[i] = reinterpret_cast<jlong>(data.ColliderHit);
+        f[0] = data.Distance;
+        f[1] = data.HitPosition.x;
+        f[2] = data.HitPosition.y;
+        f[3] = data.HitPosition.z;
+        f[4] = data.BarycentricCoordinates.x;
+        f[5] = data.BarycentricCoordinates.y;
+        f[6] = data.BarycentricCoordinates.z;
+        f[7] = data.TextureCoordinates.x;
+        f[8] = data.TextureCoordinates.y;
+        f[9] = data.NormalCoordinates.x;
+        f[10] = data.NormalCoordinates.y;
+        f[11] = data.NormalCoordinates.z;
+        ints[i * 2] = hasCoords ? data.FaceIndex : -1;
+        ints[i * 2 + 1] = hasCoords ? 1 : 0;
+    }
+    env->ReleaseIntArrayElements(jints, ints, 0);
+    env->ReleaseFloatArrayElements(jfloats, floats, 0);
+    env->ReleaseLongArrayElements(jcolliders, colliderPtrs, 0);
+    return n;
+}
+
+/*
+ * Makes the array of GVRPickedObject returned by the bounds picker.
+ * Returns null if there are no hits.
+ */
+static jobjectArray makeBoundsHits(JNIEnv* env, const std::vector<ColliderData>& colliders)
+{
+    int i = 0;
+
+    if (colliders.size() == 0)
+    {
+        return NULL;
+    }
+    jclass hitClass = env->FindClass("org/gearvrf/GVRPicker$GVRPickedObject");
+    jclass pickerClass = env->FindClass("org/gearvrf/GVRBoundsPicker");
+    jmethodID makeHit = env->GetStaticMethodID(pickerClass, "makeObjectHit", "(JIFFFF)Lorg/gearvrf/GVRPicker$GVRPickedObject;");
+    jobjectArray pickList = env->NewObjectArray(colliders.size(), hitClass, NULL);
+
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        const ColliderData& data = *it;
+        jlong pointerCollider = reinterpret_cast<jlong>(data.ColliderHit);
+        if (pointerCollider)
+        {
+            jobject hitObject = env->CallStaticObjectMethod(pickerClass, makeHit, pointerCollider,
+                                                            data.CollidableIndex, data.Distance,
+                                                            data.HitPosition.x, data.HitPosition.y,
+                                                            data.HitPosition.z);
+            if (hitObject != 0)
+            {
+                env->SetObjectArrayElement(pickList, i, hitObject);
+                env->DeleteLocalRef(hitObject);
+            } else
+            {
+                LOGE("PICKER: ERROR: failed to make GVRPickedObject for collidable #%d",
+                     data.CollidableIndex);
+            }
+        }
+        ++i;
+    }
+    env->DeleteLocalRef(hitClass);
+    env->DeleteLocalRef(pickerClass);
+    return pickList;
+}
+
 JNIEXPORT jobjectArray JNICALL
 Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env, jobject obj,
                                          jlong jscene,
@@ -232,42 +380,92 @@ Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env, jobject obj,
     env->DeleteLocalRef(listClass);
     env->DeleteLocalRef(hybridClass);
     Picker::pickBounds(scene, colliders, collidables);
+    return makeBoundsHits(env, colliders);
+}
 
-    if (colliders.size() == 0)
+JNIEXPORT jobjectArray JNICALL
+Java_org_gearvrf_NativePicker_pickBoundsPairs(JNIEnv * env, jobject obj,
+                                              jlong jscene, jlongArray jcollidables, jint numCollidables,
+                                              jlongArray jcolliders, jint numColliders,
+                                              jintArray jpairs, jint numPairs)
+{
+    Scene *scene = reinterpret_cast<Scene *>(jscene);
+    std::vector<ColliderData> colliders;
+    std::vector<SceneObject *> collidables;
+    jlong* collidablePtrs = env->GetLongArrayElements(jcollidables, 0);
+    jlong* colliderPtrs = env->GetLongArrayElements(jcolliders, 0);
+    jint* pairs = env->GetIntArrayElements(jpairs, 0);
+
+    for (int i = 0; i < numCollidables; ++i)
     {
-        return NULL;
+        collidables.push_back(reinterpret_cast<SceneObject*>(collidablePtrs[i]));
     }
-    jclass hitClass = env->FindClass("org/gearvrf/GVRPicker$GVRPickedObject");
-    jclass pickerClass = env->FindClass("org/gearvrf/GVRBoundsPicker");
-    jmethodID makeHit = env->GetStaticMethodID(pickerClass, "makeObjectHit", "(JIFFFF)Lorg/gearvrf/GVRPicker$GVRPickedObject;");
-    jobjectArray pickList = env->NewObjectArray(colliders.size(), hitClass, NULL);
+    Picker::pickBounds(scene, colliders, collidables,
+                       reinterpret_cast<const int64_t*>(colliderPtrs), numColliders,
+                       pairs, numPairs);
+    env->ReleaseIntArrayElements(jpairs, pairs, JNI_ABORT);
+    env->ReleaseLongArrayElements(jcolliders, colliderPtrs, JNI_ABORT);
+    env->ReleaseLongArrayElements(jcollidables, collidablePtrs, JNI_ABORT);
+    return makeBoundsHits(env, colliders);
+}
 
-    i = 0;
-    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativePicker_getPickState(JNIEnv * env, jobject obj,
+                                           jlong jscene, jlong jtransform,
+                                           jfloat ox, jfloat oy, jfloat oz,
+                                           jfloat dx, jfloat dy, jfloat dz,
+                                           jfloatArray jworldRay)
+{
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    Transform* t = reinterpret_cast<Transform*>(jtransform);
+    glm::vec3 ray_start(ox, oy, oz);
+    glm::vec3 ray_dir(dx, dy, dz);
+
+    if (t == NULL)
     {
-        const ColliderData& data = *it;
-        jlong pointerCollider = reinterpret_cast<jlong>(data.ColliderHit);
-        if (pointerCollider)
-        {
-            jobject hitObject = env->CallStaticObjectMethod(pickerClass, makeHit, pointerCollider,
-                                                            data.CollidableIndex, data.Distance,
-                                                            data.HitPosition.x, data.HitPosition.y,
-                                                            data.HitPosition.z);
-            if (hitObject != 0)
-            {
-                env->SetObjectArrayElement(pickList, i, hitObject);
-                env->DeleteLocalRef(hitObject);
-            } else
-            {
-                LOGE("PICKER: ERROR: failed to make GVRPickedObject for collidable #%d",
-                     data.CollidableIndex);
-            }
-        }
-        ++i;
+        t = scene->main_camera_rig()->getHeadTransform();
     }
-    env->DeleteLocalRef(hitClass);
-    env->DeleteLocalRef(pickerClass);
-    return pickList;
+    jlong state = static_cast<jlong>(Picker::getPickState(scene, t, ray_start, ray_dir));
+    float worldRay[6] = { ray_start.x, ray_start.y, ray_start.z, ray_dir.x, ray_dir.y, ray_dir.z };
+    env->SetFloatArrayRegion(jworldRay, 0, 6, worldRay);
+    return state;
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_getColliderBounds(JNIEnv * env, jobject obj,
+                                                jlong jscene, jlongArray jcolliders, jfloatArray jbounds)
+{
+    Scene *scene = reinterpret_cast<Scene *>(jscene);
+    int maxColliders = env->GetArrayLength(jcolliders);
+    jlong* colliderPtrs = env->GetLongArrayElements(jcolliders, 0);
+    jfloat* bounds = env->GetFloatArrayElements(jbounds, 0);
+
+    if (env->GetArrayLength(jbounds) < maxColliders * 5)
+    {
+        maxColliders = env->GetArrayLength(jbounds) / 5;
+    }
+    int n = Picker::getColliderBounds(scene, maxColliders, reinterpret_cast<int64_t*>(colliderPtrs), bounds);
+    env->ReleaseFloatArrayElements(jbounds, bounds, 0);
+    env->ReleaseLongArrayElements(jcolliders, colliderPtrs, 0);
+    return n;
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativePicker_getCollidableBounds(JNIEnv * env, jobject obj,
+                                                  jlongArray jcollidables, jint numCollidables,
+                                                  jfloatArray jspheres)
+{
+    std::vector<SceneObject *> collidables;
+    jlong* collidablePtrs = env->GetLongArrayElements(jcollidables, 0);
+    jfloat* spheres = env->GetFloatArrayElements(jspheres, 0);
+
+    for (int i = 0; i < numCollidables; ++i)
+    {
+        collidables.push_back(reinterpret_cast<SceneObject*>(collidablePtrs[i]));
+    }
+    Picker::getCollidableBounds(collidables, spheres);
+    env->ReleaseFloatArrayElements(jspheres, spheres, 0);
+    env->ReleaseLongArrayElements(jcollidables, collidablePtrs, JNI_ABORT);
 }
 
 JNIEXPORT jobject JNICALL
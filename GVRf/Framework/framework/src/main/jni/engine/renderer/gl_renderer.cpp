@@ -551,6 +551,7 @@ namespace gvr
                 rstate.scene->pick(scene_object);
             }
         }
+        rstate.scene->finishVisibleColliders();
         rstate.scene->unlockColliders();
     }
 
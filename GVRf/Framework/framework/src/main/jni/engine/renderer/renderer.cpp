@@ -219,6 +219,7 @@ bool Renderer::occlusion_cull_init(RenderState& renderState, std::vector<SceneOb
             addRenderData(render_data, renderState, *render_data_vector);
             renderState.scene->pick(scene_object);
         }
+        renderState.scene->finishVisibleColliders();
         renderState.scene->unlockColliders();
         return false;
     }
@@ -27,7 +27,8 @@ namespace gvr {
     class GLFloatImage : public GLImage, public FloatImage
     {
     public:
-        GLFloatImage(int pixelFormat = GL_RG) : FloatImage(pixelFormat), GLImage(GL_TEXTURE_2D)
+        GLFloatImage(int pixelFormat = GL_RG) : FloatImage(pixelFormat), GLImage(GL_TEXTURE_2D),
+            mStorageWidth(0), mStorageHeight(0), mStorageFormat(0)
         { }
         virtual ~GLFloatImage() {}
         virtual int getId() { return mId; }
@@ -64,13 +65,32 @@ namespace gvr {
             float* pixels = env->GetFloatArrayElements(array, 0);
             int internalFormat = (mFormat == GL_RGB) ? GL_RGB32F : GL_RG32F;
             glBindTexture(mType, texid);
-            glTexImage2D(GL_TEXTURE_2D, 0, internalFormat, mWidth, mHeight, 0, mFormat, GL_FLOAT, pixels);
-            env->ReleaseFloatArrayElements(array, pixels, 0);
+            if ((mStorageWidth == mWidth) && (mStorageHeight == mHeight) && (mStorageFormat == mFormat) &&
+                ((mDirtyBegin > 0) || (mDirtyEnd < mHeight)))
+            {
+                // Only upload the rows which changed
+                int floatsPerRow = mWidth * ((mFormat == GL_RGB) ? 3 : 2);
+                glTexSubImage2D(GL_TEXTURE_2D, 0, 0, mDirtyBegin, mWidth, mDirtyEnd - mDirtyBegin,
+                                mFormat, GL_FLOAT, pixels + mDirtyBegin * floatsPerRow);
+            }
+            else
+            {
+                glTexImage2D(GL_TEXTURE_2D, 0, internalFormat, mWidth, mHeight, 0, mFormat, GL_FLOAT, pixels);
+                mStorageWidth = mWidth;
+                mStorageHeight = mHeight;
+                mStorageFormat = mFormat;
+            }
+            env->ReleaseFloatArrayElements(array, pixels, JNI_ABORT);
             env->DeleteLocalRef(array);
             clearData(env);
         }
 
     private:
+        // Size of the texture storage allocated by the last full upload
+        int mStorageWidth;
+        int mStorageHeight;
+        int mStorageFormat;
+
         GLFloatImage(const GLFloatImage&) = delete;
         GLFloatImage(GLFloatImage&&) = delete;
         GLFloatImage& operator=(const GLFloatImage&) = delete;
@@ -39,6 +39,7 @@ public:
 
     void set_half_extents(float x, float y, float z) {
         half_extents_ = glm::vec3(x, y, z);
+        invalidatePickState();
     }
 
     glm::vec3 get_half_extents() {
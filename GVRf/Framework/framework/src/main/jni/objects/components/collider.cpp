@@ -25,7 +25,6 @@
 
 namespace gvr
 {
-
 /*
  * Transform a ray in world coordinates to be in the coordinate space of a model.
  * @param model_matrix 4x4 matrix to transform model into world coordinates
@@ -48,11 +47,30 @@ namespace gvr
     void Collider::onAddedToScene(Scene *scene)
     {
         scene->addCollider(this);
+        scene_ = scene;
+        scene->invalidatePickState();
     }
 
     void Collider::onRemovedFromScene(Scene *scene)
     {
         scene->removeCollider(this);
+        scene_ = NULL;
+        scene->invalidatePickState();
+    }
+
+    void Collider::invalidatePickState()
+    {
+        const Collider* collider = this;
+
+        while (collider->group_ != NULL)
+        {
+            collider = collider->group_;
+        }
+        Scene* scene = collider->scene_;
+        if (scene != NULL)
+        {
+            scene->invalidatePickState();
+        }
     }
 
 /*
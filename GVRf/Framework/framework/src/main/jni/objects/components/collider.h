@@ -101,6 +101,12 @@ public:
 
     void set_pick_distance(float dist) {
         pick_distance_ = dist;
+        invalidatePickState();
+    }
+
+    virtual void set_enable(bool enable) {
+        Component::set_enable(enable);
+        invalidatePickState();
     }
 
     float pick_distance() const {
@@ -111,12 +117,28 @@ public:
     virtual void onRemovedFromScene(Scene* scene);
     static void transformSphere(const glm::mat4& model_matrix, float* sphere);
 
+    /*
+     * Tells the scene this collider is in that a ray pick may give
+     * a different result. A collider in a group uses the scene of the
+     * group. Nothing happens while the collider is not in a scene.
+     * See Scene::getPickStateVersion.
+     */
+    void invalidatePickState();
+
 protected:
-    Collider() : Component(Collider::getComponentType()), pick_distance_(0) {}
-    explicit Collider(long long type) : Component(type), pick_distance_(0) {}
+    Collider() : Component(Collider::getComponentType()), pick_distance_(0),
+                 scene_(NULL), group_(NULL) {}
+    explicit Collider(long long type) : Component(type), pick_distance_(0),
+                 scene_(NULL), group_(NULL) {}
 
     float pick_distance_;
 
+private:
+    friend class ColliderGroup;
+
+    Scene* scene_;
+    Collider* group_;
+
     Collider(const Collider& collider) = delete;
     Collider(Collider&& collider) = delete;
     Collider& operator=(const Collider& collider) = delete;
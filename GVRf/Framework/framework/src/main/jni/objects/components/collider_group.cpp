@@ -35,13 +35,21 @@ namespace gvr {
 
     void ColliderGroup::addChildComponent(Component* collider)
     {
-        colliders_.push_back(static_cast<Collider*>(collider));
+        Collider* child = static_cast<Collider*>(collider);
+
+        colliders_.push_back(child);
+        child->group_ = this;
+        invalidatePickState();
     }
 
     void ColliderGroup::removeChildComponent(Component* collider)
     {
-        colliders_.erase(std::remove(colliders_.begin(), colliders_.end(),
-                                     static_cast<Collider*>(collider)), colliders_.end());
+        Collider* child = static_cast<Collider*>(collider);
+
+        colliders_.erase(std::remove(colliders_.begin(), colliders_.end(), child),
+                         colliders_.end());
+        child->group_ = NULL;
+        invalidatePickState();
     }
 
 
@@ -102,6 +102,7 @@ namespace gvr
             }
             else
             {
+                mesh->getVertexBuffer()->markPicked();
                 data = MeshCollider::isHit(*mesh, O, D, pickCoordinates);
             }
             if (data.IsHit)
@@ -46,6 +46,7 @@ public:
 
     void set_mesh(Mesh* mesh) {
         mesh_ = mesh;
+        invalidatePickState();
     }
 
     bool pickCoordinatesEnabled(){
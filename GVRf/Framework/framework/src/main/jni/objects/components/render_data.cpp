@@ -86,6 +86,7 @@ void RenderData::set_mesh(Mesh* mesh)
         if (owner)
         {
             owner->dirtyHierarchicalBoundingVolume();
+            owner->invalidatePickState();
         }
     }
 }
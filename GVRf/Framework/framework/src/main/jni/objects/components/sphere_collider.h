@@ -43,6 +43,7 @@ public:
     void set_radius(float r)
     {
         radius_ = r;
+        invalidatePickState();
     }
 
     float get_radius()
@@ -36,7 +36,9 @@ Scene::Scene() :
         frustum_flag_(false),
         dirtyFlag_(0),
         occlusion_flag_(false),
-        pick_visible_(true)
+        pick_visible_(true),
+        visible_collider_count_(0),
+        pick_state_version_(1)
 
 { }
 
@@ -119,18 +121,34 @@ void Scene::clearAllColliders() {
     lockColliders();
     allColliders.clear();
     visibleColliders.clear();
+    visible_collider_count_ = 0;
     unlockColliders();
+    invalidatePickState();
 }
 
 void Scene::pick(SceneObject* sceneobj) {
     if (pick_visible_) {
          Collider* collider = static_cast<Collider*>(sceneobj->getComponent(Collider::getComponentType()));
         if (collider) {
-            visibleColliders.push_back(collider);
+            if (visible_collider_count_ >= visibleColliders.size()) {
+                visibleColliders.push_back(collider);
+                invalidatePickState();
+            } else if (visibleColliders[visible_collider_count_] != collider) {
+                visibleColliders[visible_collider_count_] = collider;
+                invalidatePickState();
+            }
+            ++visible_collider_count_;
         }
      }
 }
 
+void Scene::finishVisibleColliders() {
+    if (visible_collider_count_ < visibleColliders.size()) {
+        visibleColliders.resize(visible_collider_count_);
+        invalidatePickState();
+    }
+}
+
 void Scene::addCollider(Collider* collider) {
     auto it = std::find(allColliders.begin(), allColliders.end(), collider);
     if (it == allColliders.end()) {
@@ -21,6 +21,7 @@
 #ifndef SCENE_H_
 #define SCENE_H_
 
+#include <atomic>
 #include <memory>
 #include <vector>
 #include <mutex>
@@ -122,7 +123,12 @@ public:
      * Enabling this feature incurs a small amount of overhead
      * during culling to gather the visible colliders.
      */
-    void setPickVisible(bool pickflag) { pick_visible_ = pickflag; }
+    void setPickVisible(bool pickflag) {
+        if (pick_visible_ != pickflag) {
+            pick_visible_ = pickflag;
+            invalidatePickState();
+        }
+    }
 
     /*
      * Returns true if only visible objects are picked.
@@ -149,9 +155,11 @@ public:
      * Clear the visible collider list.
      * This list is constructed every frame during culling
      * to contain only the pickable objects that are visible.
+     * It is rebuilt over the list of the previous frame so the
+     * pick state only changes when the visible colliders do.
      * This function does not lock the collider list!
      */
-    void clearVisibleColliders() { visibleColliders.clear(); }
+    void clearVisibleColliders() { visible_collider_count_ = 0; }
 
     /*
      * Called during culling to add a scene object's
@@ -159,6 +167,31 @@ public:
      */
     void pick(SceneObject* sceneobj);
 
+    /*
+     * Called after culling to drop the colliders of the previous
+     * frame which are no longer visible.
+     * This function does not lock the collider list!
+     */
+    void finishVisibleColliders();
+
+    /*
+     * Gets a number which changes whenever something a ray pick of
+     * this scene depends on may have changed: the colliders in the
+     * scene or in the visible collider list, the shape or enable state
+     * of a collider or the transform, enable state, components, mesh
+     * or vertices of a scene object which owns one. Transforms only
+     * count if they move a collider, so a moving camera rig does not
+     * change it. It never changes while none of these do, so the picker
+     * can tell in constant time that a pick would give the same result.
+     */
+    uint64_t getPickStateVersion() const {
+        return pick_state_version_.load();
+    }
+
+    void invalidatePickState() {
+        ++pick_state_version_;
+    }
+
     /*
      * Get the current collider list and lock it.
      * If set_pick_visible is set the visible collider list
@@ -216,6 +249,8 @@ private:
     LightList lights_;
     std::vector<Component*> allColliders;
     std::vector<Component*> visibleColliders;
+    size_t visible_collider_count_;
+    std::atomic<uint64_t> pick_state_version_;
 };
 
 }
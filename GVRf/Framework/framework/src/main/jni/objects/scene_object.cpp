@@ -21,6 +21,7 @@
 
 #include "objects/components/camera.h"
 #include "objects/components/camera_rig.h"
+#include "objects/components/collider.h"
 #include "objects/components/render_data.h"
 #include "util/gvr_log.h"
 #include "mesh.h"
@@ -42,6 +43,11 @@ SceneObject::~SceneObject() {
     delete queries_;
 }
 
+void SceneObject::set_enable(bool enable) {
+    enabled_ = enable;
+    invalidatePickState();
+}
+
 bool SceneObject::attachComponent(Component* component) {
     for (auto it = components_.begin(); it != components_.end(); ++it) {
         if ((*it)->getType() == component->getType())
@@ -49,6 +55,7 @@ bool SceneObject::attachComponent(Component* component) {
     }
     component->set_owner_object(this);
     components_.push_back(component);
+    invalidatePickState();
     SceneObject* par = parent();
     if (par)
     {
@@ -96,6 +103,7 @@ Component* SceneObject::detachComponent(long long type)
                     }
                 }
             }
+            invalidatePickState();
             component->set_owner_object(NULL);
             components_.erase(it);
             return component;
@@ -258,6 +266,7 @@ void SceneObject::onTransformChanged()
     }
     setTransformDirty();
     dirtyHierarchicalBoundingVolume();
+    invalidatePickState();
     if (getChildrenCount() > 0)
     {
         std::lock_guard<std::mutex> lock(children_mutex_);
@@ -269,6 +278,21 @@ void SceneObject::onTransformChanged()
     }
 }
 
+/*
+ * Tells the scene that a ray pick may give a different result if this
+ * object owns a collider. Changes to the transforms of its ancestors
+ * reach it through onTransformChanged. Objects without a collider do
+ * not change the pick state.
+ */
+void SceneObject::invalidatePickState()
+{
+    Collider* collider = static_cast<Collider*>(getComponent(Collider::getComponentType()));
+    if (collider)
+    {
+        collider->invalidatePickState();
+    }
+}
+
 void SceneObject::clear()
 {
     Scene* scene = Scene::main_scene();
@@ -54,9 +54,7 @@ public:
         return enabled_;
     }
 
-    void set_enable(bool enable) {
-        enabled_ = enable;
-    }
+    void set_enable(bool enable);
 
     void set_in_frustum(bool in_frustum = true) {
         in_frustum_ = in_frustum;
@@ -142,6 +140,7 @@ public:
     void dirtyHierarchicalBoundingVolume();
     BoundingVolume& getBoundingVolume();
     void onTransformChanged();
+    void invalidatePickState();
     bool onAddChild(SceneObject* addme, SceneObject* root);
     bool onRemoveChild(SceneObject* removeme, SceneObject* root);
     void onAddedToScene(Scene* scene);
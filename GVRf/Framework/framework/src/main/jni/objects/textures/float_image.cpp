@@ -13,11 +13,12 @@
  * limitations under the License.
  */
 
+#include <algorithm>
 #include "float_image.h"
 
 namespace gvr {
     FloatImage::FloatImage(int pixelFormat) : Image(ImageType::FLOAT_BITMAP, pixelFormat),
-                               mJava(NULL), mData(NULL)
+                               mJava(NULL), mData(NULL), mDirtyBegin(0), mDirtyEnd(0)
     {
     }
 
@@ -42,6 +43,8 @@ namespace gvr {
         {
             mFormat = pixelFormat;
         }
+        mDirtyBegin = 0;
+        mDirtyEnd = height;
         if (data != NULL)
         {
             mData = static_cast<jfloatArray>(env->NewGlobalRef(data));
@@ -49,6 +52,36 @@ namespace gvr {
         }
     }
 
+    /*
+     * The data holds all the rows, only the given ones changed.
+     * Rows changed by updates which were not uploaded yet are kept.
+     */
+    void FloatImage::updateRows(JNIEnv* env, int width, int height, int firstRow, int numRows, jfloatArray data)
+    {
+        std::lock_guard<std::mutex> lock(mUpdateLock);
+        env->GetJavaVM(&mJava);
+        if ((width != mWidth) || (height != mHeight))
+        {
+            mWidth = width;
+            mHeight = height;
+            mDirtyBegin = 0;
+            mDirtyEnd = height;
+        }
+        else if (mData != NULL)
+        {
+            mDirtyBegin = std::min(mDirtyBegin, firstRow);
+            mDirtyEnd = std::max(mDirtyEnd, firstRow + numRows);
+        }
+        else
+        {
+            mDirtyBegin = firstRow;
+            mDirtyEnd = firstRow + numRows;
+        }
+        clearData(env);
+        mData = static_cast<jfloatArray>(env->NewGlobalRef(data));
+        signalUpdate();
+    }
+
 
     void FloatImage::clearData(JNIEnv* env)
     {
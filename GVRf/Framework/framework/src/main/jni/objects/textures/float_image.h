@@ -31,6 +31,7 @@ namespace gvr {
         FloatImage(int pixelFormat = GL_RG);
         virtual ~FloatImage();
         void update(JNIEnv* env, int width, int height, jfloatArray data, int pixelFormat = 0);
+        void updateRows(JNIEnv* env, int width, int height, int firstRow, int numRows, jfloatArray data);
 
     protected:
         void clearData(JNIEnv* env);
@@ -44,6 +45,9 @@ namespace gvr {
     protected:
         JavaVM* mJava;
         jfloatArray mData;
+        // Rows which changed since the last upload
+        int mDirtyBegin;
+        int mDirtyEnd;
     };
 
 }
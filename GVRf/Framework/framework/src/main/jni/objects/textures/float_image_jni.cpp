@@ -26,6 +26,11 @@ extern "C"
     Java_org_gearvrf_NativeFloatImage_update(JNIEnv* env, jobject obj, jlong jimage,
                                              jint width, jint height,
                                              jint pixelFormat, jfloatArray jdata);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeFloatImage_updateRows(JNIEnv* env, jobject obj, jlong jimage,
+                                                 jint width, jint height,
+                                                 jint firstRow, jint numRows, jfloatArray jdata);
 };
 
 JNIEXPORT void JNICALL
@@ -39,4 +44,13 @@ Java_org_gearvrf_NativeFloatImage_update(JNIEnv* env, jobject obj, jlong jimage,
     env->ReleaseFloatArrayElements(jdata, data, 0);
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeFloatImage_updateRows(JNIEnv* env, jobject obj, jlong jimage,
+                                             jint width, jint height,
+                                             jint firstRow, jint numRows, jfloatArray jdata)
+{
+    FloatImage* image = reinterpret_cast<FloatImage*>(jimage);
+    image->updateRows(env, width, height, firstRow, numRows, jdata);
+}
+
 }
@@ -5,6 +5,7 @@
  *
  ****/
 #include "vertex_buffer.h"
+#include "objects/scene.h"
 #include "util/gvr_log.h"
 #include <sstream>
 
@@ -30,6 +31,16 @@ namespace gvr {
         mVertexCount = 0;
     }
 
+    void VertexBuffer::invalidatePickState()
+    {
+        Scene* scene = Scene::main_scene();
+
+        if (mPicked && (scene != NULL))
+        {
+            scene->invalidatePickState();
+        }
+    }
+
     void VertexBuffer::getBoundingVolume(BoundingVolume& bv) const
     {
         const float* verts = getVertexData();
@@ -150,6 +161,7 @@ namespace gvr {
             src += srcStride;
         }
         markDirty();
+        invalidatePickState();
         attr->IsSet = true;
         return true;
     }
@@ -275,6 +287,7 @@ namespace gvr {
             src += srcStride;
         }
         markDirty();
+        invalidatePickState();
         attr->IsSet = true;
         return true;
     }
@@ -3,6 +3,7 @@
 #include <string>
 #include <vector>
 #include <mutex>
+#include <atomic>
 #include "data_descriptor.h"
 #include "hybrid_object.h"
 #include "bounding_volume.h"
@@ -137,6 +138,14 @@ namespace gvr {
         void            dump() const;
         void            dump(const char* attrName) const;
 
+        /**
+         * Called by a mesh collider which hit tests the triangles
+         * of this buffer. From then on, updating a vertex attribute
+         * changes the pick state of the main scene.
+         * @see Scene::getPickStateVersion
+         */
+        void            markPicked()    { mPicked = true; }
+
     protected:
         bool            setVertexCount(int vertexCount);
         const void*     getData(const char* attributeName, int& size) const;
@@ -146,6 +155,10 @@ namespace gvr {
         int             mVertexCount;       // current number of vertices
         char*           mVertexData;        // vertex data buffer
         int             mBoneFlags = 0;     // indicates which vertex attributes are bones
+        std::atomic<bool> mPicked { false };  // true if a mesh collider uses the vertices
+
+    private:
+        void            invalidatePickState();
     };
 
 } // end gvrf
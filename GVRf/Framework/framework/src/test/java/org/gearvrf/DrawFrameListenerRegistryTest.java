@@ -0,0 +1,183 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DrawFrameListenerRegistryTest {
+    private static class Listener implements GVRDrawFrameListener {
+        final List<Listener> mCalls;
+
+        Listener(List<Listener> calls) {
+            mCalls = calls;
+        }
+
+        @Override
+        public void onDrawFrame(float frameTime) {
+            mCalls.add(this);
+        }
+    }
+
+    private final List<Listener> mCalls = new ArrayList<Listener>();
+
+    private void drawFrame(DrawFrameListenerRegistry registry) {
+        final int count = registry.beginFrame();
+        for (int i = 0; i < count; ++i) {
+            final GVRDrawFrameListener l = registry.get(i);
+            if (l != null) {
+                l.onDrawFrame(0.016f);
+            }
+        }
+    }
+
+    @Test
+    public void callsListenersInRegistrationOrder() {
+        final DrawFrameListenerRegistry registry = new DrawFrameListenerRegistry();
+        final Listener a = new Listener(mCalls);
+        final Listener b = new Listener(mCalls);
+        final Listener c = new Listener(mCalls);
+
+        registry.add(b);
+        registry.add(a);
+        registry.add(c);
+        drawFrame(registry);
+        assertEquals(3, mCalls.size());
+        assertSame(b, mCalls.get(0));
+        assertSame(a, mCalls.get(1));
+        assertSame(c, mCalls.get(2));
+    }
+
+    @Test
+    public void ignoresDuplicatesAndUnknownRemovals() {
+        final DrawFrameListenerRegistry registry = new DrawFrameListenerRegistry();
+        final Listener a = new Listener(mCalls);
+
+        registry.add(a);
+        registry.add(a);
+        registry.remove(new Listener(mCalls));
+        drawFrame(registry);
+        assertEquals(1, registry.size());
+        assertEquals(1, mCalls.size());
+    }
+
+    @Test
+    public void removalKeepsTheOrderOfTheOthers() {
+        final DrawFrameListenerRegistry registry = new DrawFrameListenerRegistry();
+        final Listener[] listeners = new Listener[5];
+
+        for (int i = 0; i < listeners.length; ++i) {
+            listeners[i] = new Listener(mCalls);
+            registry.add(listeners[i]);
+        }
+        drawFrame(registry);
+        registry.remove(listeners[1]);
+        registry.remove(listeners[3]);
+        mCalls.clear();
+        drawFrame(registry);
+        assertEquals(3, registry.size());
+        assertEquals(3, mCalls.size());
+        assertSame(listeners[0], mCalls.get(0));
+        assertSame(listeners[2], mCalls.get(1));
+        assertSame(listeners[4], mCalls.get(2));
+    }
+
+    @Test
+    public void requestsApplyOnTheNextFrameInOrder() {
+        final DrawFrameListenerRegistry registry = new DrawFrameListenerRegistry();
+        final Listener a = new Listener(mCalls);
+
+        registry.add(a);
+        assertEquals(0, registry.size());
+        registry.remove(a);
+        registry.add(a);
+        drawFrame(registry);
+        assertEquals(1, mCalls.size());
+
+        registry.remove(a);
+        registry.add(a);
+        registry.remove(a);
+        mCalls.clear();
+        drawFrame(registry);
+        assertEquals(0, registry.size());
+        assertEquals(0, mCalls.size());
+    }
+
+    @Test
+    public void changesMadeByListenersTakeEffectNextFrame() {
+        final DrawFrameListenerRegistry registry = new DrawFrameListenerRegistry();
+        final Listener late = new Listener(mCalls);
+        final Listener adder = new Listener(mCalls) {
+            @Override
+            public void onDrawFrame(float frameTime) {
+                super.onDrawFrame(frameTime);
+                registry.add(late);
+                registry.remove(this);
+            }
+        };
+
+        registry.add(adder);
+        drawFrame(registry);
+        assertEquals(1, mCalls.size());
+        mCalls.clear();
+        drawFrame(registry);
+        assertEquals(1, mCalls.size());
+        assertSame(late, mCalls.get(0));
+    }
+
+    @Test
+    public void growsAndCompactsManyListeners() {
+        final DrawFrameListenerRegistry registry = new DrawFrameListenerRegistry();
+        final Listener[] listeners = new Listener[1000];
+
+        for (int i = 0; i < listeners.length; ++i) {
+            listeners[i] = new Listener(mCalls);
+            registry.add(listeners[i]);
+        }
+        drawFrame(registry);
+        assertEquals(listeners.length, mCalls.size());
+        for (int i = 0; i < listeners.length; i += 2) {
+            registry.remove(listeners[i]);
+        }
+        for (int i = 0; i < listeners.length; i += 2) {
+            registry.add(listeners[i]);
+        }
+        mCalls.clear();
+        drawFrame(registry);
+        assertEquals(listeners.length, registry.size());
+        assertSame(listeners[1], mCalls.get(0));
+        assertSame(listeners[0], mCalls.get(listeners.length / 2));
+    }
+
+    @Test
+    public void clearDropsPendingRequests() {
+        final DrawFrameListenerRegistry registry = new DrawFrameListenerRegistry();
+
+        registry.add(new Listener(mCalls));
+        drawFrame(registry);
+        registry.add(new Listener(mCalls));
+        registry.clear();
+        mCalls.clear();
+        drawFrame(registry);
+        assertEquals(0, registry.size());
+        assertEquals(0, mCalls.size());
+    }
+}
@@ -0,0 +1,604 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GVRUrlCacheTest
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File mDirectory;
+    private Server mServer;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        mDirectory = File.createTempFile("urlcache", "");
+        mDirectory.delete();
+        mServer = new Server();
+    }
+
+    @After
+    public void tearDown()
+    {
+        delete(mDirectory);
+    }
+
+    @Test
+    public void hitDoesNotGoToTheServer() throws IOException
+    {
+        final byte[] content = randomBytes(1, 5000);
+        mServer.put("/hit.bin", content, "\"v1\"", null, null);
+
+        final GVRUrlCache cache = newCache(1 << 20);
+        final File file = cache.get(mServer.url("/hit.bin"));
+        assertArrayEquals(content, read(file));
+        assertEquals(file, cache.get(mServer.url("/hit.bin")));
+        assertEquals(1, mServer.getRequests("/hit.bin"));
+        assertEquals(content.length, cache.getSize());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missingUrl() throws IOException
+    {
+        newCache(1 << 20).get(mServer.url("/missing.bin"));
+    }
+
+    @Test
+    public void sameContentIsStoredOnce() throws IOException
+    {
+        final byte[] content = randomBytes(1, 5000);
+        mServer.put("/a.bin", content, "\"a\"", null, null);
+        mServer.put("/b.bin", content, "\"b\"", null, null);
+
+        final GVRUrlCache cache = newCache(1 << 20);
+        final File file = cache.get(mServer.url("/a.bin"));
+        assertEquals(file, cache.get(mServer.url("/b.bin")));
+        assertEquals(content.length, cache.getSize());
+    }
+
+    @Test
+    public void revalidatesAfterARestart() throws IOException
+    {
+        final byte[] v1 = randomBytes(2, 3000);
+        final byte[] dated = randomBytes(4, 2000);
+        mServer.put("/etag.bin", v1, "\"v1\"", null, null);
+        mServer.put("/dated.bin", dated, null, "Mon, 01 Oct 2018 10:00:00 GMT", null);
+        mServer.put("/fresh.bin", v1, "\"f1\"", null, "max-age=3600");
+
+        GVRUrlCache cache = newCache(1 << 20);
+        cache.get(mServer.url("/etag.bin"));
+        cache.get(mServer.url("/dated.bin"));
+        cache.get(mServer.url("/fresh.bin"));
+
+        cache = newCache(1 << 20);
+        assertArrayEquals(v1, read(cache.get(mServer.url("/etag.bin"))));
+        assertArrayEquals(dated, read(cache.get(mServer.url("/dated.bin"))));
+        assertArrayEquals(v1, read(cache.get(mServer.url("/fresh.bin"))));
+        assertEquals(2, mServer.getRequests("/etag.bin"));
+        assertEquals(1, mServer.getNotModified("/etag.bin"));
+        assertEquals(2, mServer.getRequests("/dated.bin"));
+        assertEquals(1, mServer.getNotModified("/dated.bin"));
+        // Not revalidated during its max-age
+        assertEquals(1, mServer.getRequests("/fresh.bin"));
+
+        // Once per cache
+        cache.get(mServer.url("/etag.bin"));
+        assertEquals(2, mServer.getRequests("/etag.bin"));
+    }
+
+    @Test
+    public void downloadsChangedContent() throws IOException
+    {
+        final byte[] v1 = randomBytes(2, 3000);
+        final byte[] v2 = randomBytes(3, 4000);
+        mServer.put("/etag.bin", v1, "\"v1\"", null, null);
+        final File old = newCache(1 << 20).get(mServer.url("/etag.bin"));
+
+        mServer.put("/etag.bin", v2, "\"v2\"", null, null);
+        final GVRUrlCache cache = newCache(1 << 20);
+        assertArrayEquals(v2, read(cache.get(mServer.url("/etag.bin"))));
+        assertEquals(2, mServer.getRequests("/etag.bin"));
+        assertEquals(0, mServer.getNotModified("/etag.bin"));
+        assertEquals(v2.length, cache.getSize());
+        // The replaced content is readable until the cache is opened again
+        assertArrayEquals(v1, read(old));
+        newCache(1 << 20).getSize();
+        assertFalse(old.exists());
+    }
+
+    @Test
+    public void sameContentWithoutValidatorsIsKept() throws IOException
+    {
+        final byte[] content = randomBytes(9, 3000);
+        mServer.put("/plain.bin", content, null, null, null);
+        final File first = newCache(1 << 20).get(mServer.url("/plain.bin"));
+
+        // Downloaded again, with the same hash
+        final GVRUrlCache cache = newCache(1 << 20);
+        final File second = cache.get(mServer.url("/plain.bin"));
+        assertEquals(2, mServer.getRequests("/plain.bin"));
+        assertEquals(first, second);
+        assertTrue(second.exists());
+        assertArrayEquals(content, read(second));
+        assertEquals(content.length, cache.getSize());
+
+        // Still there for the next cache
+        final GVRUrlCache reopened = newCache(1 << 20);
+        assertEquals(content.length, reopened.getSize());
+        assertArrayEquals(content, read(reopened.get(mServer.url("/plain.bin"))));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsed() throws IOException
+    {
+        final int size = 4096;
+        final GVRUrlCache cache = newCache(10 * size);
+        final File[] files = new File[10];
+
+        for (int i = 0; i < 12; ++i)
+        {
+            mServer.put("/lru" + i, randomBytes(100 + i, size), "\"lru" + i + "\"", null, null);
+        }
+        for (int i = 0; i < 10; ++i)
+        {
+            files[i] = cache.get(mServer.url("/lru" + i));
+        }
+        assertEquals(10 * size, cache.getSize());
+
+        // Use the oldest one, then add two more: 1 and 2 are evicted
+        cache.get(mServer.url("/lru0"));
+        cache.get(mServer.url("/lru10"));
+        cache.get(mServer.url("/lru11"));
+        assertEquals(10 * size, cache.getSize());
+        // An evicted file can still be read
+        assertTrue(files[1].exists());
+
+        final GVRUrlCache reopened = newCache(10 * size);
+        reopened.get(mServer.url("/lru0"));
+        reopened.get(mServer.url("/lru3"));
+        assertEquals(1, mServer.getNotModified("/lru0"));
+        assertEquals(1, mServer.getNotModified("/lru3"));
+        assertFalse(files[1].exists());
+        reopened.get(mServer.url("/lru1"));
+        assertEquals(2, mServer.getRequests("/lru1"));
+        assertEquals(0, mServer.getNotModified("/lru1"));
+    }
+
+    @Test
+    public void orderOfUseSurvivesARestart() throws IOException
+    {
+        final int size = 4096;
+        final GVRUrlCache cache = newCache(10 * size);
+
+        for (int i = 0; i < 4; ++i)
+        {
+            mServer.put("/lru" + i, randomBytes(100 + i, size), "\"lru" + i + "\"", null, null);
+            cache.get(mServer.url("/lru" + i));
+            new File(new File(mDirectory, "urls"), sha1(mServer.url("/lru" + i).toString()))
+                    .setLastModified(1000000000000L + i * 10000L);
+        }
+
+        final GVRUrlCache smaller = newCache(2 * size);
+        assertEquals(2 * size, smaller.getSize());
+        smaller.get(mServer.url("/lru3"));
+        assertEquals(1, mServer.getNotModified("/lru3"));
+        smaller.get(mServer.url("/lru0"));
+        assertEquals(0, mServer.getNotModified("/lru0"));
+    }
+
+    @Test
+    public void recoversFromCorruptFiles() throws IOException
+    {
+        final byte[] content = randomBytes(5, 6000);
+        final byte[] other = randomBytes(6, 6000);
+        mServer.put("/corrupt.bin", content, "\"c1\"", null, null);
+        mServer.put("/index.bin", other, "\"i1\"", null, null);
+
+        GVRUrlCache cache = newCache(1 << 20);
+        final File file = cache.get(mServer.url("/corrupt.bin"));
+        cache.get(mServer.url("/index.bin"));
+
+        // Flip a byte of the content, keeping its size
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(100);
+        final int b = raf.read();
+        raf.seek(100);
+        raf.write(b ^ 0xFF);
+        raf.close();
+
+        // Truncate the index file of the other one
+        final File index = new File(new File(mDirectory, "urls"), sha1(mServer.url("/index.bin").toString()));
+        assertTrue(index.exists());
+        final RandomAccessFile truncated = new RandomAccessFile(index, "rw");
+        truncated.setLength(10);
+        truncated.close();
+
+        // Leave a partial download behind
+        final File partial = new File(new File(mDirectory, "tmp"), "download123.tmp");
+        partial.getParentFile().mkdirs();
+        final RandomAccessFile leftover = new RandomAccessFile(partial, "rw");
+        leftover.setLength(100);
+        leftover.close();
+
+        cache = newCache(1 << 20);
+        assertArrayEquals(content, read(cache.get(mServer.url("/corrupt.bin"))));
+        assertEquals(2, mServer.getRequests("/corrupt.bin"));
+        assertEquals(0, mServer.getNotModified("/corrupt.bin"));
+        assertArrayEquals(other, read(cache.get(mServer.url("/index.bin"))));
+        assertEquals(2, mServer.getRequests("/index.bin"));
+        assertEquals(0, mServer.getNotModified("/index.bin"));
+        assertFalse(partial.exists());
+        assertEquals(content.length + other.length, cache.getSize());
+    }
+
+    @Test
+    public void prefetchesAManifestInParallel() throws IOException
+    {
+        final int count = 16;
+        final StringBuilder text = new StringBuilder("# scene\n\n");
+        final byte[][] contents = new byte[count][];
+
+        for (int i = 0; i < count; ++i)
+        {
+            contents[i] = randomBytes(200 + i, 20000);
+            mServer.put("/scene/tex" + i + ".bin", contents[i], "\"t" + i + "\"", null, null);
+            if ((i % 2) == 0)
+            {
+                text.append(sha256(contents[i])).append("  ");
+            }
+            text.append("tex").append(i).append(".bin\n");
+        }
+        final GVRUrlCache.Manifest manifest = GVRUrlCache.Manifest.read(
+                new ByteArrayInputStream(text.toString().getBytes(UTF8)), mServer.url("/scene/scene.manifest"));
+        assertEquals(count, manifest.size());
+        assertNotNull(manifest.getHash(0));
+        assertNull(manifest.getHash(1));
+
+        final GVRUrlCache cache = newCache(1 << 24);
+        mServer.setDelay(50);
+        cache.prefetch(manifest, 8);
+        mServer.setDelay(0);
+        assertTrue(mServer.getMaxConcurrent() > 1);
+
+        final int before = mServer.getTotalRequests();
+        for (int i = 0; i < count; ++i)
+        {
+            assertArrayEquals(contents[i], read(cache.get(manifest.getUrl(i))));
+        }
+        assertEquals(before, mServer.getTotalRequests());
+
+        // Hashed resources aren't revalidated, nor downloaded under another URL
+        final GVRUrlCache reopened = newCache(1 << 24);
+        reopened.prefetch(manifest, 8);
+        assertEquals(count / 2, mServer.getTotalRequests() - before);
+        mServer.put("/scene/moved.bin", contents[0], "\"m\"", null, null);
+        reopened.get(mServer.url("/scene/moved.bin"), sha256(contents[0]));
+        assertEquals(0, mServer.getRequests("/scene/moved.bin"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsContentWithAnotherHash() throws IOException
+    {
+        final GVRUrlCache.Manifest wrong = new GVRUrlCache.Manifest();
+        mServer.put("/scene/wrong.bin", randomBytes(1, 1000), "\"w\"", null, null);
+        wrong.add(mServer.url("/scene/wrong.bin"), sha256(randomBytes(8, 100)));
+        newCache(1 << 20).prefetch(wrong, 2);
+    }
+
+    @Test
+    public void usesTheCachedCopyWhenTheServerFails() throws IOException
+    {
+        final byte[] content = randomBytes(7, 1000);
+        mServer.put("/offline.bin", content, "\"o1\"", null, null);
+        newCache(1 << 20).get(mServer.url("/offline.bin"));
+
+        mServer.setFailing(true);
+        assertArrayEquals(content, read(newCache(1 << 20).get(mServer.url("/offline.bin"))));
+        try
+        {
+            newCache(1 << 20).get(mServer.url("/never.bin"));
+            fail("a server failure was ignored");
+        }
+        catch (FileNotFoundException ex)
+        {
+            fail("a server failure is not a missing file");
+        }
+        catch (IOException ex)
+        {
+        }
+    }
+
+    private GVRUrlCache newCache(long maxBytes)
+    {
+        return new GVRUrlCache(mDirectory, maxBytes);
+    }
+
+    private static byte[] randomBytes(long seed, int length)
+    {
+        final byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] read(File file) throws IOException
+    {
+        final byte[] bytes = new byte[(int) file.length()];
+        final InputStream stream = new FileInputStream(file);
+        try
+        {
+            int offset = 0;
+            int count;
+            while ((offset < bytes.length) && ((count = stream.read(bytes, offset, bytes.length - offset)) != -1))
+            {
+                offset += count;
+            }
+        }
+        finally
+        {
+            stream.close();
+        }
+        return bytes;
+    }
+
+    private static String sha1(String text) throws IOException
+    {
+        return hash("SHA-1", text.getBytes(UTF8));
+    }
+
+    private static String sha256(byte[] bytes) throws IOException
+    {
+        return hash("SHA-256", bytes);
+    }
+
+    private static String hash(String algorithm, byte[] bytes) throws IOException
+    {
+        try
+        {
+            return GVRUrlCache.toHex(MessageDigest.getInstance(algorithm).digest(bytes));
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new IOException(ex);
+        }
+    }
+
+    private static void delete(File file)
+    {
+        final File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /*
+     * Answers the requests of its URLs in the process, from a table of
+     * resources, honoring If-None-Match and If-Modified-Since.
+     */
+    private static final class Server extends URLStreamHandler
+    {
+        private static final class Resource
+        {
+            byte[] content;
+            Map<String, String> headers = new HashMap<String, String>();
+        }
+
+        private final Map<String, Resource> mResources = new HashMap<String, Resource>();
+        private final Map<String, Integer> mRequests = new HashMap<String, Integer>();
+        private final Map<String, Integer> mNotModified = new HashMap<String, Integer>();
+        private int mTotalRequests;
+        private int mConcurrent;
+        private int mMaxConcurrent;
+        private volatile int mDelay;
+        private volatile boolean mFailing;
+
+        URL url(String path) throws IOException
+        {
+            return new URL("http", "cache.test", 80, path, this);
+        }
+
+        synchronized void put(String path, byte[] content, String etag, String lastModified, String cacheControl)
+        {
+            final Resource resource = new Resource();
+            resource.content = content;
+            if (etag != null)
+            {
+                resource.headers.put("etag", etag);
+            }
+            if (lastModified != null)
+            {
+                resource.headers.put("last-modified", lastModified);
+            }
+            if (cacheControl != null)
+            {
+                resource.headers.put("cache-control", cacheControl);
+            }
+            mResources.put(path, resource);
+        }
+
+        synchronized int getRequests(String path)
+        {
+            final Integer count = mRequests.get(path);
+            return (count != null) ? count : 0;
+        }
+
+        synchronized int getNotModified(String path)
+        {
+            final Integer count = mNotModified.get(path);
+            return (count != null) ? count : 0;
+        }
+
+        synchronized int getTotalRequests()
+        {
+            return mTotalRequests;
+        }
+
+        synchronized int getMaxConcurrent()
+        {
+            return mMaxConcurrent;
+        }
+
+        void setDelay(int millis)
+        {
+            mDelay = millis;
+        }
+
+        void setFailing(boolean failing)
+        {
+            mFailing = failing;
+        }
+
+        @Override
+        protected URLConnection openConnection(URL url)
+        {
+            return new Connection(url);
+        }
+
+        private final class Connection extends HttpURLConnection
+        {
+            private Resource mResource;
+
+            Connection(URL url)
+            {
+                super(url);
+            }
+
+            @Override
+            public void connect()
+            {
+            }
+
+            @Override
+            public void disconnect()
+            {
+            }
+
+            @Override
+            public boolean usingProxy()
+            {
+                return false;
+            }
+
+            @Override
+            public int getResponseCode() throws IOException
+            {
+                if (responseCode == -1)
+                {
+                    responseCode = respond();
+                }
+                return responseCode;
+            }
+
+            @Override
+            public String getHeaderField(String name)
+            {
+                return (mResource != null) ? mResource.headers.get(name.toLowerCase()) : null;
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException
+            {
+                if (getResponseCode() != HTTP_OK)
+                {
+                    throw new FileNotFoundException(url.toString());
+                }
+                return new ByteArrayInputStream(mResource.content);
+            }
+
+            private int respond() throws IOException
+            {
+                final String path = url.getPath();
+                final String ifNoneMatch = getRequestProperty("If-None-Match");
+                final String ifModifiedSince = getRequestProperty("If-Modified-Since");
+
+                synchronized (Server.this)
+                {
+                    mMaxConcurrent = Math.max(mMaxConcurrent, ++mConcurrent);
+                }
+                try
+                {
+                    if (mDelay > 0)
+                    {
+                        Thread.sleep(mDelay);
+                    }
+                }
+                catch (InterruptedException ex)
+                {
+                    throw new IOException(ex);
+                }
+                synchronized (Server.this)
+                {
+                    --mConcurrent;
+                    if (mFailing)
+                    {
+                        return HTTP_UNAVAILABLE;
+                    }
+                    ++mTotalRequests;
+                    mRequests.put(path, getRequests(path) + 1);
+                    final Resource resource = mResources.get(path);
+                    if (resource == null)
+                    {
+                        return HTTP_NOT_FOUND;
+                    }
+                    mResource = resource;
+                    final String etag = resource.headers.get("etag");
+                    final String lastModified = resource.headers.get("last-modified");
+                    if (((ifNoneMatch != null) && ifNoneMatch.equals(etag))
+                        || ((ifNoneMatch == null) && (ifModifiedSince != null) && ifModifiedSince.equals(lastModified)))
+                    {
+                        mNotModified.put(path, getNotModified(path) + 1);
+                        return HTTP_NOT_MODIFIED;
+                    }
+                    return HTTP_OK;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Animates a facial rig with {@link SparseBlendShapes} and checks the
+ * result against the dense blend shapes of {@link GVRMeshMorph}.
+ *
+ * The rig has 52 blend shapes over 8000 vertices, each shape moving a
+ * few hundred vertices around a point of the mesh. Every frame a few
+ * shapes change their weight, the way a talking face does. The deltas
+ * accumulated by the sparse shapes are compared with the weighted sum
+ * of the dense deltas of all the shapes, which is what the shader of a
+ * dense morph computes, and must be identical. The benchmark reports
+ * the bytes of morph texture uploaded per frame by both, the dense
+ * texture being uploaded whole when it changes. It runs on a desktop
+ * JVM, with the unit tests on the class path:
+ * <pre>
+ *     java org.gearvrf.MorphBenchmark
+ * </pre>
+ */
+final class MorphBenchmark
+{
+    static final int NUM_VERTS = 8000;
+    static final int NUM_SHAPES = 52;
+    static final int MOVED_VERTS = 300;
+    static final int FLOATS_PER_VERTEX = 12;
+    static final int ACTIVE_SHAPES = 6;
+
+    private MorphBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        final int frames = (args.length > 0) ? Integer.parseInt(args[0]) : 300;
+        final Random random = new Random(7);
+        final int texWidth = FLOATS_PER_VERTEX * NUM_SHAPES;
+        final float[] dense = new float[texWidth * NUM_VERTS];
+        final SparseBlendShapes sparse = new SparseBlendShapes(NUM_SHAPES, NUM_VERTS, FLOATS_PER_VERTEX);
+        final float[] shape = new float[FLOATS_PER_VERTEX * NUM_VERTS];
+        int sparseFloats = 0;
+
+        for (int s = 0; s < NUM_SHAPES; ++s)
+        {
+            makeShape(random, shape);
+            for (int v = 0; v < NUM_VERTS; ++v)
+            {
+                System.arraycopy(shape, v * FLOATS_PER_VERTEX,
+                                 dense, v * texWidth + s * FLOATS_PER_VERTEX, FLOATS_PER_VERTEX);
+            }
+            sparse.setShape(s, shape);
+            sparseFloats += sparse.getVertexCount(s) * FLOATS_PER_VERTEX;
+        }
+
+        final float[] weights = new float[NUM_SHAPES];
+        final float[] expected = new float[FLOATS_PER_VERTEX * NUM_VERTS];
+        final long denseBytes = 4L * dense.length;
+        final long rowBytes = 4L * FLOATS_PER_VERTEX;
+        long sparseBytes = 0;
+        long maxBytes = 0;
+        long sparseTime = 0;
+        int mismatches = 0;
+
+        sparse.accumulate();
+        for (int f = 0; f < frames; ++f)
+        {
+            for (int i = 0; i < ACTIVE_SHAPES; ++i)
+            {
+                final int s = random.nextInt(NUM_SHAPES);
+                weights[s] = (random.nextInt(4) == 0) ? 0.0f : random.nextFloat();
+            }
+            final long start = System.nanoTime();
+            sparse.setWeights(weights);
+            sparse.accumulate();
+            sparseTime += System.nanoTime() - start;
+
+            final long bytes = (sparse.getDirtyEnd() - sparse.getDirtyBegin()) * rowBytes;
+            sparseBytes += bytes;
+            maxBytes = Math.max(maxBytes, bytes);
+
+            sumDense(dense, weights, expected);
+            final float[] accumulated = sparse.getAccumulated();
+            for (int i = 0; i < expected.length; ++i)
+            {
+                if (expected[i] != accumulated[i])
+                {
+                    ++mismatches;
+                }
+            }
+        }
+
+        System.out.println(String.format(Locale.US,
+                "%d vertices, %d shapes, %d frames: dense texture %d KB, uploaded whole; "
+                + "sparse shapes %d KB, %.1f KB uploaded per frame (max %.1f KB), %.1f us per frame, "
+                + "%d values differ",
+                NUM_VERTS, NUM_SHAPES, frames, denseBytes / 1024, 4L * sparseFloats / 1024,
+                sparseBytes / 1024.0 / frames, maxBytes / 1024.0,
+                sparseTime / 1000.0 / frames, mismatches));
+        if (mismatches > 0)
+        {
+            throw new IllegalStateException("Sparse blend shapes differ from the dense ones");
+        }
+    }
+
+    /*
+     * Moves the vertices around a random point of the mesh, the vertex
+     * indices being roughly spatial as in most exported meshes, with a
+     * few untouched vertices in between.
+     */
+    private static void makeShape(Random random, float[] shape)
+    {
+        final int center = random.nextInt(NUM_VERTS);
+
+        Arrays.fill(shape, 0.0f);
+        for (int i = 0; i < MOVED_VERTS; ++i)
+        {
+            final int v = center + (int) (random.nextGaussian() * MOVED_VERTS / 2);
+            if ((v < 0) || (v >= NUM_VERTS))
+            {
+                continue;
+            }
+            for (int j = 0; j < 9; ++j)
+            {
+                shape[v * FLOATS_PER_VERTEX + j] = random.nextFloat() - 0.5f;
+            }
+        }
+    }
+
+    /*
+     * What the shader of a dense morph adds to each vertex
+     */
+    private static void sumDense(float[] dense, float[] weights, float[] result)
+    {
+        final int texWidth = FLOATS_PER_VERTEX * NUM_SHAPES;
+
+        Arrays.fill(result, 0.0f);
+        for (int v = 0; v < NUM_VERTS; ++v)
+        {
+            for (int s = 0; s < NUM_SHAPES; ++s)
+            {
+                for (int j = 0; j < FLOATS_PER_VERTEX; ++j)
+                {
+                    result[v * FLOATS_PER_VERTEX + j] +=
+                        weights[s] * dense[v * texWidth + s * FLOATS_PER_VERTEX + j];
+                }
+            }
+        }
+    }
+}
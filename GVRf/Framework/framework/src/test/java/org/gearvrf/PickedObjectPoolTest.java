@@ -0,0 +1,155 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class PickedObjectPoolTest
+{
+    private static Object sThreadBean;
+    private static Method sAllocatedBytes;
+
+    @Test
+    public void picksAlternateBetweenTwoSets()
+    {
+        final PickedObjectPool pool = new PickedObjectPool();
+        final GVRPicker.GVRPickedObject[] first = pool.next(2);
+        final GVRPicker.GVRPickedObject[] second = pool.next(2);
+
+        assertNotSame(first, second);
+        for (GVRPicker.GVRPickedObject a : first)
+        {
+            for (GVRPicker.GVRPickedObject b : second)
+            {
+                assertNotSame(a, b);
+            }
+        }
+        final GVRPicker.GVRPickedObject[] third = pool.next(2);
+        assertSame(first, third);
+        assertSame(first[0], third[0]);
+        assertSame(first[1], third[1]);
+    }
+
+    @Test
+    public void arrayHoldsExactlyTheHits()
+    {
+        final PickedObjectPool pool = new PickedObjectPool();
+
+        assertEquals(3, pool.next(3).length);
+        assertEquals(0, pool.next(0).length);
+        assertEquals(1, pool.next(1).length);
+        for (GVRPicker.GVRPickedObject hit : pool.next(5))
+        {
+            assertTrue(hit != null);
+            assertEquals(-1, hit.faceIndex);
+            assertEquals(3, hit.hitLocation.length);
+        }
+    }
+
+    @Test
+    public void objectsAreKeptWhenTheHitsChange()
+    {
+        final PickedObjectPool pool = new PickedObjectPool();
+        final GVRPicker.GVRPickedObject[] three = pool.next(3);
+
+        three[1].touched = true;
+        three[2].touched = true;
+        pool.next(0);
+        final GVRPicker.GVRPickedObject[] one = pool.next(1);
+        assertSame(three[0], one[0]);
+        assertFalse(three[1].touched);
+        assertFalse(three[2].touched);
+
+        pool.next(0);
+        final GVRPicker.GVRPickedObject[] again = pool.next(3);
+        assertSame(three[1], again[1]);
+        assertSame(three[2], again[2]);
+    }
+
+    /*
+     * A pick with the same number of hits as the pick before last
+     * reuses the array and the objects of that pick.
+     */
+    @Test
+    public void steadyPicksDoNotAllocate()
+    {
+        final PickedObjectPool pool = new PickedObjectPool();
+        int touched = 0;
+
+        assumeTrue(allocatedBytes() >= 0);
+        for (int i = 0; i < 1000; ++i)
+        {
+            touched += pick(pool, i);
+        }
+        final long bytes = allocatedBytes();
+        for (int i = 0; i < 100000; ++i)
+        {
+            touched += pick(pool, i);
+        }
+        final long allocated = allocatedBytes() - bytes;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        assertTrue(touched > 0);
+    }
+
+    private static int pick(PickedObjectPool pool, int frame)
+    {
+        final GVRPicker.GVRPickedObject[] picked = pool.next(4);
+        int touched = 0;
+
+        for (GVRPicker.GVRPickedObject hit : picked)
+        {
+            hit.hitDistance = frame;
+            hit.hitLocation[0] = frame;
+            hit.touched = (frame & 1) != 0;
+            if (hit.touched)
+            {
+                ++touched;
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * @return the bytes allocated by the current thread, -1 if unknown
+     */
+    private static long allocatedBytes()
+    {
+        try
+        {
+            if (sAllocatedBytes == null)
+            {
+                sThreadBean = Class.forName("java.lang.management.ManagementFactory")
+                        .getMethod("getThreadMXBean").invoke(null);
+                sAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                        .getMethod("getThreadAllocatedBytes", long.class);
+            }
+            return (Long) sAllocatedBytes.invoke(sThreadBean, Thread.currentThread().getId());
+        }
+        catch (Exception e)
+        {
+            return -1;
+        }
+    }
+}
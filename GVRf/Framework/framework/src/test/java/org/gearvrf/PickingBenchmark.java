@@ -0,0 +1,317 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares picking with a {@link GVRColliderBVH} against the native picker
+ * on a scene of 100000 triangles.
+ *
+ * The scene is a terrain of 10 x 10 tiles, each a scene object with its
+ * own mesh and a {@link GVRMeshCollider} picking coordinates, over a
+ * rippled height field of 1000 triangles. Rays start above the terrain
+ * and point down in random directions. The picks of both pickers are
+ * compared, and the benchmark reports how many differ. This needs the
+ * native library, so it is run on a device, from a test activity which
+ * has a {@link GVRContext}:
+ * <pre>
+ *     Log.i(TAG, PickingBenchmark.run(gvrContext, 1000));
+ * </pre>
+ * The triangle level alone runs on a desktop JVM, with the unit tests on
+ * the class path. It is timed against a linear scan of the triangles,
+ * which is what the native mesh collider does:
+ * <pre>
+ *     java org.gearvrf.PickingBenchmark [rays]
+ * </pre>
+ */
+final class PickingBenchmark
+{
+    static final int TILES = 10;
+    static final int TILE_QUADS_X = 25;
+    static final int TILE_QUADS_Z = 20;
+    static final float TILE_SIZE = 10.0f;
+
+    private PickingBenchmark()
+    {
+    }
+
+    /**
+     * Runs the benchmark on the calling thread.
+     * @param gvrContext    context to create the scene with
+     * @param rays          number of rays to cast with each picker
+     * @return build and pick times and the number of picks which differ
+     */
+    static String run(GVRContext gvrContext, int rays)
+    {
+        final GVRScene scene = new GVRScene(gvrContext);
+        final GVRTransform trans = scene.getRoot().getTransform();
+        final int[] indices = gridIndices(TILE_QUADS_X, TILE_QUADS_Z);
+        final float[][] rayData = makeRays(rays, TILES * TILE_SIZE);
+
+        for (int tx = 0; tx < TILES; ++tx)
+        {
+            for (int tz = 0; tz < TILES; ++tz)
+            {
+                final GVRMesh mesh = new GVRMesh(gvrContext, "float3 a_position float2 a_texcoord");
+                final float x0 = tx * TILE_SIZE;
+                final float z0 = tz * TILE_SIZE;
+                mesh.setVertices(heightField(TILE_QUADS_X, TILE_QUADS_Z, TILE_SIZE, x0, z0));
+                mesh.setTexCoords(gridTexCoords(TILE_QUADS_X, TILE_QUADS_Z));
+                mesh.setIndices(indices);
+
+                final GVRSceneObject tile = new GVRSceneObject(gvrContext, mesh);
+                tile.attachComponent(new GVRMeshCollider(gvrContext, mesh, true));
+                scene.addSceneObject(tile);
+            }
+        }
+
+        final GVRColliderBVH bvh = new GVRColliderBVH(scene);
+        long start = System.nanoTime();
+        bvh.build();
+        final long buildTime = System.nanoTime() - start;
+
+        final GVRPicker.GVRPickedObject[] nativeHits = new GVRPicker.GVRPickedObject[rays];
+        start = System.nanoTime();
+        for (int i = 0; i < rays; ++i)
+        {
+            final float[] r = rayData[i];
+            nativeHits[i] = GVRPicker.pickClosest(scene, trans, r[0], r[1], r[2], r[3], r[4], r[5]);
+        }
+        final long nativeTime = System.nanoTime() - start;
+
+        int mismatches = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < rays; ++i)
+        {
+            final float[] r = rayData[i];
+            final GVRPicker.GVRPickedObject hit = bvh.pickClosest(trans, r[0], r[1], r[2], r[3], r[4], r[5]);
+            if (!sameHit(hit, nativeHits[i]))
+            {
+                ++mismatches;
+            }
+        }
+        final long bvhTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        bvh.refit();
+        final long refitTime = System.nanoTime() - start;
+
+        return String.format(Locale.US,
+                "%d triangles in %d colliders, %d rays: native %.1f us/ray, bvh %.1f us/ray "
+                + "(build %.1f ms, refit %.2f ms), %d picks differ",
+                TILES * TILES * TILE_QUADS_X * TILE_QUADS_Z * 2, bvh.getColliderCount(), rays,
+                nativeTime / 1000.0 / rays, bvhTime / 1000.0 / rays,
+                buildTime / 1000000.0, refitTime / 1000000.0, mismatches);
+    }
+
+    public static void main(String[] args)
+    {
+        final int rays = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+        final int quadsX = TILES * TILE_QUADS_X;
+        final int quadsZ = TILES * TILE_QUADS_Z;
+        final float size = TILES * TILE_SIZE;
+        final float[] positions = heightField(quadsX, quadsZ, size, 0, 0);
+        final int[] indices = gridIndices(quadsX, quadsZ);
+        final float[][] rayData = makeRays(rays, size);
+        final float[] hit = new float[4];
+        final float[] linearHit = new float[4];
+        int mismatches = 0;
+        int hits = 0;
+
+        long start = System.nanoTime();
+        final TriangleBVH tree = new TriangleBVH(positions, indices);
+        final long buildTime = System.nanoTime() - start;
+
+        // Warm up both paths before timing them
+        for (int i = 0; i < rays; ++i)
+        {
+            final float[] r = rayData[i];
+            tree.intersect(r[0], r[1], r[2], r[3], r[4], r[5], Float.POSITIVE_INFINITY, hit);
+            linearIntersect(positions, indices, r, linearHit);
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < rays; ++i)
+        {
+            final float[] r = rayData[i];
+            linearIntersect(positions, indices, r, linearHit);
+        }
+        final long linearTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rays; ++i)
+        {
+            final float[] r = rayData[i];
+            tree.intersect(r[0], r[1], r[2], r[3], r[4], r[5], Float.POSITIVE_INFINITY, hit);
+        }
+        final long bvhTime = System.nanoTime() - start;
+
+        for (int i = 0; i < rays; ++i)
+        {
+            final float[] r = rayData[i];
+            final int face = tree.intersect(r[0], r[1], r[2], r[3], r[4], r[5], Float.POSITIVE_INFINITY, hit);
+            final int linearFace = linearIntersect(positions, indices, r, linearHit);
+            if (face >= 0)
+            {
+                ++hits;
+            }
+            if ((face != linearFace) && (Math.abs(hit[0] - linearHit[0]) > 1e-4f))
+            {
+                ++mismatches;
+            }
+        }
+        start = System.nanoTime();
+        tree.refit(positions);
+        final long refitTime = System.nanoTime() - start;
+
+        System.out.println(String.format(Locale.US,
+                "%d triangles, %d rays (%d hit): linear %.1f us/ray, bvh %.2f us/ray, "
+                + "build %.1f ms, refit %.1f ms, %d picks differ",
+                tree.getTriangleCount(), rays, hits,
+                linearTime / 1000.0 / rays, bvhTime / 1000.0 / rays,
+                buildTime / 1000000.0, refitTime / 1000000.0, mismatches));
+    }
+
+    /*
+     * Closest hit found by testing every triangle in turn,
+     * as the native mesh collider does.
+     */
+    private static int linearIntersect(float[] p, int[] indices, float[] ray, float[] result)
+    {
+        final float ox = ray[0], oy = ray[1], oz = ray[2];
+        final float dx = ray[3], dy = ray[4], dz = ray[5];
+        float closest = Float.POSITIVE_INFINITY;
+        int face = -1;
+
+        for (int t = 0; t < indices.length / 3; ++t)
+        {
+            final int a = indices[t * 3] * 3, b = indices[t * 3 + 1] * 3, c = indices[t * 3 + 2] * 3;
+            final float e1x = p[b] - p[a], e1y = p[b + 1] - p[a + 1], e1z = p[b + 2] - p[a + 2];
+            final float e2x = p[c] - p[a], e2y = p[c + 1] - p[a + 1], e2z = p[c + 2] - p[a + 2];
+            final float px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+            final float det = e1x * px + e1y * py + e1z * pz;
+            if ((det > -0.00001f) && (det < 0.00001f))
+            {
+                continue;
+            }
+            final float inv = 1.0f / det;
+            final float tx = ox - p[a], ty = oy - p[a + 1], tz = oz - p[a + 2];
+            final float u = (tx * px + ty * py + tz * pz) * inv;
+            if ((u < 0) || (u > 1))
+            {
+                continue;
+            }
+            final float qx = ty * e1z - tz * e1y, qy = tz * e1x - tx * e1z, qz = tx * e1y - ty * e1x;
+            final float v = (dx * qx + dy * qy + dz * qz) * inv;
+            if ((v < 0) || (u + v > 1))
+            {
+                continue;
+            }
+            final float d = (e2x * qx + e2y * qy + e2z * qz) * inv;
+            if ((d > 0.00001f) && (d < closest))
+            {
+                closest = d;
+                face = t;
+            }
+        }
+        result[0] = closest;
+        return face;
+    }
+
+    private static boolean sameHit(GVRPicker.GVRPickedObject a, GVRPicker.GVRPickedObject b)
+    {
+        if ((a == null) || (b == null))
+        {
+            return a == b;
+        }
+        return (a.hitCollider == b.hitCollider) &&
+               ((a.faceIndex == b.faceIndex) || (Math.abs(a.hitDistance - b.hitDistance) < 1e-4f));
+    }
+
+    private static float[][] makeRays(int count, float size)
+    {
+        final Random random = new Random(7);
+        final float[][] rays = new float[count][];
+
+        for (int i = 0; i < count; ++i)
+        {
+            final float dx = random.nextFloat() - 0.5f;
+            final float dz = random.nextFloat() - 0.5f;
+            final float len = (float) Math.sqrt(dx * dx + 1 + dz * dz);
+            rays[i] = new float[] {
+                    random.nextFloat() * size, 5.0f, random.nextFloat() * size,
+                    dx / len, -1.0f / len, dz / len };
+        }
+        return rays;
+    }
+
+    static float[] heightField(int quadsX, int quadsZ, float size, float x0, float z0)
+    {
+        final float[] positions = new float[(quadsX + 1) * (quadsZ + 1) * 3];
+        int v = 0;
+
+        for (int j = 0; j <= quadsZ; ++j)
+        {
+            for (int i = 0; i <= quadsX; ++i)
+            {
+                final float x = x0 + size * i / quadsX;
+                final float z = z0 + size * j / quadsZ;
+                positions[v++] = x;
+                positions[v++] = (float) (Math.sin(x * 0.7) * Math.cos(z * 0.5));
+                positions[v++] = z;
+            }
+        }
+        return positions;
+    }
+
+    static float[] gridTexCoords(int quadsX, int quadsZ)
+    {
+        final float[] texCoords = new float[(quadsX + 1) * (quadsZ + 1) * 2];
+        int v = 0;
+
+        for (int j = 0; j <= quadsZ; ++j)
+        {
+            for (int i = 0; i <= quadsX; ++i)
+            {
+                texCoords[v++] = (float) i / quadsX;
+                texCoords[v++] = (float) j / quadsZ;
+            }
+        }
+        return texCoords;
+    }
+
+    static int[] gridIndices(int quadsX, int quadsZ)
+    {
+        final int[] indices = new int[quadsX * quadsZ * 6];
+        int n = 0;
+
+        for (int j = 0; j < quadsZ; ++j)
+        {
+            for (int i = 0; i < quadsX; ++i)
+            {
+                final int v = j * (quadsX + 1) + i;
+                indices[n++] = v;
+                indices[n++] = v + quadsX + 1;
+                indices[n++] = v + 1;
+                indices[n++] = v + 1;
+                indices[n++] = v + quadsX + 1;
+                indices[n++] = v + quadsX + 2;
+            }
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,192 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SparseBlendShapesTest
+{
+    private static final int NUM_VERTS = 2000;
+    private static final int NUM_SHAPES = 20;
+    private static final int MOVED_VERTS = 100;
+    private static final int FLOATS_PER_VERTEX = 12;
+    private static final int ACTIVE_SHAPES = 4;
+
+    /*
+     * A facial rig: every frame a few shapes change their weight,
+     * the way a talking face does.
+     */
+    @Test
+    public void accumulatesTheWeightedSumOfTheDenseShapes()
+    {
+        final Random random = new Random(7);
+        final float[][] dense = new float[NUM_SHAPES][];
+        final SparseBlendShapes sparse = makeShapes(random, dense);
+        final float[] weights = new float[NUM_SHAPES];
+        final float[] expected = new float[FLOATS_PER_VERTEX * NUM_VERTS];
+
+        sparse.accumulate();
+        for (int f = 0; f < 100; ++f)
+        {
+            for (int i = 0; i < ACTIVE_SHAPES; ++i)
+            {
+                final int s = random.nextInt(NUM_SHAPES);
+                weights[s] = (random.nextInt(4) == 0) ? 0.0f : random.nextFloat();
+            }
+            sparse.setWeights(weights);
+            sparse.accumulate();
+            sumDense(dense, weights, expected);
+            assertArrayEquals(expected, sparse.getAccumulated(), 0.0f);
+        }
+    }
+
+    @Test
+    public void keepsOnlyTheMovedVertices()
+    {
+        final float[][] dense = new float[NUM_SHAPES][];
+        final SparseBlendShapes sparse = makeShapes(new Random(3), dense);
+
+        for (int s = 0; s < NUM_SHAPES; ++s)
+        {
+            int moved = 0;
+            for (int v = 0; v < NUM_VERTS; ++v)
+            {
+                for (int j = 0; j < FLOATS_PER_VERTEX; ++j)
+                {
+                    if (dense[s][v * FLOATS_PER_VERTEX + j] != 0)
+                    {
+                        ++moved;
+                        break;
+                    }
+                }
+            }
+            assertEquals(moved, sparse.getVertexCount(s));
+            assertTrue(moved <= MOVED_VERTS);
+        }
+    }
+
+    @Test
+    public void dirtyRangeCoversTheChangedShape()
+    {
+        final SparseBlendShapes sparse = new SparseBlendShapes(2, 100, 3);
+        final float[] shape = new float[300];
+        final float[] weights = new float[2];
+
+        shape[3 * 40] = 1.0f;
+        shape[3 * 45 + 2] = 2.0f;
+        sparse.setShape(0, shape);
+        Arrays.fill(shape, 0.0f);
+        shape[3 * 90 + 1] = 1.0f;
+        sparse.setShape(1, shape);
+        sparse.accumulate();
+        assertEquals(0, sparse.getDirtyBegin());
+        assertEquals(100, sparse.getDirtyEnd());
+
+        weights[0] = 0.5f;
+        assertTrue(sparse.setWeights(weights));
+        sparse.accumulate();
+        assertEquals(40, sparse.getDirtyBegin());
+        assertEquals(46, sparse.getDirtyEnd());
+        assertEquals(0.5f, sparse.getAccumulated()[3 * 40], 0.0f);
+        assertEquals(1.0f, sparse.getAccumulated()[3 * 45 + 2], 0.0f);
+
+        assertFalse(sparse.setWeights(weights));
+        sparse.accumulate();
+        assertEquals(sparse.getDirtyBegin(), sparse.getDirtyEnd());
+    }
+
+    @Test
+    public void countsMovedVertices()
+    {
+        final float[] base = { 0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3 };
+        final float[] target = base.clone();
+
+        assertEquals(0, SparseBlendShapes.countMovedVertices(base, FloatBuffer.wrap(target)));
+        target[4] = 5;
+        target[9] = -3;
+        assertEquals(2, SparseBlendShapes.countMovedVertices(base, FloatBuffer.wrap(target)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAShapeWithTooFewVertices()
+    {
+        new SparseBlendShapes(1, 10, 3).setShape(0, new float[27]);
+    }
+
+    private static SparseBlendShapes makeShapes(Random random, float[][] dense)
+    {
+        final SparseBlendShapes sparse = new SparseBlendShapes(NUM_SHAPES, NUM_VERTS, FLOATS_PER_VERTEX);
+
+        for (int s = 0; s < NUM_SHAPES; ++s)
+        {
+            dense[s] = new float[FLOATS_PER_VERTEX * NUM_VERTS];
+            makeShape(random, dense[s]);
+            sparse.setShape(s, dense[s]);
+        }
+        return sparse;
+    }
+
+    /*
+     * Moves the vertices around a random point of the mesh, the vertex
+     * indices being roughly spatial as in most exported meshes, with a
+     * few untouched vertices in between.
+     */
+    private static void makeShape(Random random, float[] shape)
+    {
+        final int center = random.nextInt(NUM_VERTS);
+
+        for (int i = 0; i < MOVED_VERTS; ++i)
+        {
+            final int v = center + (int) (random.nextGaussian() * MOVED_VERTS / 2);
+            if ((v < 0) || (v >= NUM_VERTS))
+            {
+                continue;
+            }
+            for (int j = 0; j < 9; ++j)
+            {
+                shape[v * FLOATS_PER_VERTEX + j] = random.nextFloat() - 0.5f;
+            }
+        }
+    }
+
+    /*
+     * What the shader of a dense morph adds to each vertex
+     */
+    private static void sumDense(float[][] dense, float[] weights, float[] result)
+    {
+        Arrays.fill(result, 0.0f);
+        for (int v = 0; v < NUM_VERTS; ++v)
+        {
+            for (int s = 0; s < NUM_SHAPES; ++s)
+            {
+                for (int j = 0; j < FLOATS_PER_VERTEX; ++j)
+                {
+                    final int i = v * FLOATS_PER_VERTEX + j;
+                    result[i] += weights[s] * dense[s][i];
+                }
+            }
+        }
+    }
+}
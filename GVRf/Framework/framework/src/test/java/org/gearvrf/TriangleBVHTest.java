@@ -0,0 +1,228 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TriangleBVHTest
+{
+    private static final int QUADS_X = 50;
+    private static final int QUADS_Z = 40;
+    private static final float SIZE = 20.0f;
+
+    @Test
+    public void findsTheSameHitsAsALinearScan()
+    {
+        final float[] positions = heightField(0);
+        final int[] indices = gridIndices();
+        final TriangleBVH tree = new TriangleBVH(positions, indices);
+
+        assertEquals(QUADS_X * QUADS_Z * 2, tree.getTriangleCount());
+        checkAgainstLinearScan(tree, positions, indices, 500);
+    }
+
+    @Test
+    public void refitFollowsMovedVertices()
+    {
+        final int[] indices = gridIndices();
+        final TriangleBVH tree = new TriangleBVH(heightField(0), indices);
+        final float[] moved = heightField(3.0f);
+        final float[] bounds = new float[6];
+
+        tree.refit(moved);
+        tree.getBounds(bounds);
+        assertTrue(bounds[1] >= 2.0f);
+        assertTrue(bounds[4] <= 4.0f);
+        checkAgainstLinearScan(tree, moved, indices, 500);
+    }
+
+    @Test
+    public void boundsEncloseAllVertices()
+    {
+        final float[] positions = heightField(0);
+        final TriangleBVH tree = new TriangleBVH(positions, gridIndices());
+        final float[] bounds = new float[6];
+
+        tree.getBounds(bounds);
+        for (int v = 0; v < positions.length; v += 3)
+        {
+            for (int a = 0; a < 3; ++a)
+            {
+                assertTrue(positions[v + a] >= bounds[a]);
+                assertTrue(positions[v + a] <= bounds[a + 3]);
+            }
+        }
+        assertEquals(0, bounds[0], 1e-6f);
+        assertEquals(SIZE, bounds[3], 1e-6f);
+    }
+
+    @Test
+    public void trianglesWithoutIndices()
+    {
+        final float[] positions = {
+                0, 0, 0,  1, 0, 0,  0, 0, 1,
+                0, 1, 0,  1, 1, 0,  0, 1, 1 };
+        final TriangleBVH tree = new TriangleBVH(positions, null);
+        final float[] hit = new float[4];
+
+        assertEquals(2, tree.getTriangleCount());
+        assertEquals(1, tree.intersect(0.2f, 5, 0.2f, 0, -1, 0, Float.POSITIVE_INFINITY, hit));
+        assertEquals(4, hit[0], 1e-5f);
+        assertEquals(0, tree.intersect(0.2f, -5, 0.2f, 0, 1, 0, Float.POSITIVE_INFINITY, hit));
+        assertEquals(5, hit[0], 1e-5f);
+    }
+
+    @Test
+    public void ignoresHitsBeyondTheLimit()
+    {
+        final float[] positions = { 0, 0, 0,  1, 0, 0,  0, 0, 1 };
+        final TriangleBVH tree = new TriangleBVH(positions, null);
+        final float[] hit = new float[4];
+
+        assertEquals(-1, tree.intersect(0.2f, 5, 0.2f, 0, -1, 0, 4.5f, hit));
+        assertEquals(0, tree.intersect(0.2f, 5, 0.2f, 0, -1, 0, 5.5f, hit));
+        assertEquals(-1, tree.intersect(2, 5, 2, 0, -1, 0, Float.POSITIVE_INFINITY, hit));
+    }
+
+    @Test
+    public void emptyTreeHitsNothing()
+    {
+        final TriangleBVH tree = new TriangleBVH(new float[0], new int[0]);
+
+        assertEquals(0, tree.getTriangleCount());
+        assertEquals(-1, tree.intersect(0, 1, 0, 0, -1, 0, Float.POSITIVE_INFINITY, new float[4]));
+    }
+
+    private static void checkAgainstLinearScan(TriangleBVH tree, float[] positions, int[] indices, int rays)
+    {
+        final Random random = new Random(7);
+        final float[] hit = new float[4];
+        final float[] linearHit = new float[1];
+        int hits = 0;
+
+        for (int i = 0; i < rays; ++i)
+        {
+            final float dx = random.nextFloat() - 0.5f;
+            final float dz = random.nextFloat() - 0.5f;
+            final float len = (float) Math.sqrt(dx * dx + 1 + dz * dz);
+            final float[] r = {
+                    random.nextFloat() * SIZE, 10.0f, random.nextFloat() * SIZE,
+                    dx / len, -1.0f / len, dz / len };
+            final int face = tree.intersect(r[0], r[1], r[2], r[3], r[4], r[5], Float.POSITIVE_INFINITY, hit);
+            final int linearFace = linearIntersect(positions, indices, r, linearHit);
+
+            assertEquals(linearFace >= 0, face >= 0);
+            if (face >= 0)
+            {
+                ++hits;
+                assertEquals(linearHit[0], hit[0], 1e-4f);
+                assertEquals(1.0f, hit[1] + hit[2] + hit[3], 1e-4f);
+            }
+        }
+        assertTrue(hits > rays / 2);
+    }
+
+    /*
+     * Closest hit found by testing every triangle in turn,
+     * as the native mesh collider does.
+     */
+    private static int linearIntersect(float[] p, int[] indices, float[] ray, float[] result)
+    {
+        final float ox = ray[0], oy = ray[1], oz = ray[2];
+        final float dx = ray[3], dy = ray[4], dz = ray[5];
+        float closest = Float.POSITIVE_INFINITY;
+        int face = -1;
+
+        for (int t = 0; t < indices.length / 3; ++t)
+        {
+            final int a = indices[t * 3] * 3, b = indices[t * 3 + 1] * 3, c = indices[t * 3 + 2] * 3;
+            final float e1x = p[b] - p[a], e1y = p[b + 1] - p[a + 1], e1z = p[b + 2] - p[a + 2];
+            final float e2x = p[c] - p[a], e2y = p[c + 1] - p[a + 1], e2z = p[c + 2] - p[a + 2];
+            final float px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+            final float det = e1x * px + e1y * py + e1z * pz;
+            if ((det > -0.00001f) && (det < 0.00001f))
+            {
+                continue;
+            }
+            final float inv = 1.0f / det;
+            final float tx = ox - p[a], ty = oy - p[a + 1], tz = oz - p[a + 2];
+            final float u = (tx * px + ty * py + tz * pz) * inv;
+            if ((u < 0) || (u > 1))
+            {
+                continue;
+            }
+            final float qx = ty * e1z - tz * e1y, qy = tz * e1x - tx * e1z, qz = tx * e1y - ty * e1x;
+            final float v = (dx * qx + dy * qy + dz * qz) * inv;
+            if ((v < 0) || (u + v > 1))
+            {
+                continue;
+            }
+            final float d = (e2x * qx + e2y * qy + e2z * qz) * inv;
+            if ((d > 0.00001f) && (d < closest))
+            {
+                closest = d;
+                face = t;
+            }
+        }
+        result[0] = closest;
+        return face;
+    }
+
+    private static float[] heightField(float lift)
+    {
+        final float[] positions = new float[(QUADS_X + 1) * (QUADS_Z + 1) * 3];
+        int v = 0;
+
+        for (int j = 0; j <= QUADS_Z; ++j)
+        {
+            for (int i = 0; i <= QUADS_X; ++i)
+            {
+                final float x = SIZE * i / QUADS_X;
+                final float z = SIZE * j / QUADS_Z;
+                positions[v++] = x;
+                positions[v++] = lift + (float) (Math.sin(x * 0.7) * Math.cos(z * 0.5));
+                positions[v++] = z;
+            }
+        }
+        return positions;
+    }
+
+    private static int[] gridIndices()
+    {
+        final int[] indices = new int[QUADS_X * QUADS_Z * 6];
+        int n = 0;
+
+        for (int j = 0; j < QUADS_Z; ++j)
+        {
+            for (int i = 0; i < QUADS_X; ++i)
+            {
+                final int v = j * (QUADS_X + 1) + i;
+                indices[n++] = v;
+                indices[n++] = v + QUADS_X + 1;
+                indices[n++] = v + 1;
+                indices[n++] = v + 1;
+                indices[n++] = v + QUADS_X + 1;
+                indices[n++] = v + QUADS_X + 2;
+            }
+        }
+        return indices;
+    }
+}
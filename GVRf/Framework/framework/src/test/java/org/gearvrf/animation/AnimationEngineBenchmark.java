@@ -0,0 +1,122 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.animation;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.gearvrf.GVRHybridObject;
+import org.gearvrf.debug.GVRFrameProfiler;
+
+/**
+ * Times the animation engine with many short animations running at once,
+ * as in a user interface where widgets keep starting small animations.
+ *
+ * Each animation lasts between 50 and 500 ms and starts again from its
+ * finish callback, so on every frame some animations finish and others
+ * start while {@code count} of them are running. The animations do not
+ * touch any object: only the cost of the engine is measured. The
+ * benchmark uses its own engine, which is not attached to the frame loop,
+ * and runs on a desktop JVM:
+ * <pre>
+ *     java org.gearvrf.animation.AnimationEngineBenchmark [count] [frames]
+ * </pre>
+ */
+final class AnimationEngineBenchmark {
+    private static final float FRAME_TIME = 1.0f / 60;
+
+    private static final class ShortAnimation extends GVRAnimation implements GVROnFinish {
+        private final GVRAnimationEngine mEngine;
+        float mRatio;
+
+        ShortAnimation(GVRAnimationEngine engine, float duration) {
+            super(null, duration);
+            mEngine = engine;
+            setOnFinish(this);
+        }
+
+        @Override
+        protected void animate(GVRHybridObject target, float ratio) {
+            mRatio = ratio;
+        }
+
+        @Override
+        public void onStart() {
+        }
+
+        @Override
+        protected void onFinish() {
+        }
+
+        @Override
+        public void finished(GVRAnimation animation) {
+            mEngine.start(this);
+        }
+    }
+
+    private AnimationEngineBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final int count = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+        final int frames = (args.length > 1) ? Integer.parseInt(args[1]) : 600;
+
+        for (int pass = 0; pass < 3; ++pass) {
+            final String result = run(count, frames);
+            if (pass == 2) {
+                System.out.println(result);
+            }
+        }
+    }
+
+    /**
+     * Runs the benchmark on the calling thread.
+     * @param count         number of animations running at once
+     * @param frames        number of frames to time
+     * @return mean and worst frame times, and the mean number of animations
+     *         started and finished per frame
+     */
+    static String run(int count, int frames) {
+        final GVRAnimationEngine engine = new GVRAnimationEngine(new GVRFrameProfiler());
+        final Random random = new Random(42);
+        long total = 0;
+        long worst = 0;
+        long started = 0;
+        long finished = 0;
+
+        for (int i = 0; i < count; ++i) {
+            engine.start(new ShortAnimation(engine, 0.05f + random.nextFloat() * 0.45f));
+        }
+        // the first second starts all the animations and warms up
+        for (int i = 0; i < 60; ++i) {
+            engine.runFrame(FRAME_TIME);
+        }
+        for (int i = 0; i < frames; ++i) {
+            final long start = System.nanoTime();
+            engine.runFrame(FRAME_TIME);
+            final long time = System.nanoTime() - start;
+
+            total += time;
+            worst = Math.max(worst, time);
+            started += engine.getStartedCount();
+            finished += engine.getFinishedCount();
+        }
+        return String.format(Locale.US,
+                "%d animations: mean %.3f ms, max %.3f ms per frame, %.1f started, %.1f finished per frame",
+                engine.getActiveCount(), total / 1000000.0 / frames, worst / 1000000.0,
+                (double) started / frames, (double) finished / frames);
+    }
+}
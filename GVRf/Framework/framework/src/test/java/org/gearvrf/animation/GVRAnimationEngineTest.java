@@ -0,0 +1,319 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.animation;
+
+import org.gearvrf.GVRHybridObject;
+import org.gearvrf.debug.GVRFrameProfiler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GVRAnimationEngineTest {
+    private static final float FRAME_TIME = 0.05f;
+
+    /*
+     * Counts its updates and runs an action on its first update. The log
+     * calls of onStart and onFinish are left out.
+     */
+    private static class TestAnimation extends GVRAnimation implements GVROnFinish {
+        int mUpdates;
+        int mFinished;
+        Runnable mOnFirstUpdate;
+        Runnable mOnFinished;
+
+        TestAnimation(float duration) {
+            super(null, duration);
+            setOnFinish(this);
+        }
+
+        @Override
+        protected void animate(GVRHybridObject target, float ratio) {
+            if ((mUpdates++ == 0) && (mOnFirstUpdate != null)) {
+                mOnFirstUpdate.run();
+            }
+        }
+
+        @Override
+        public void onStart() {
+        }
+
+        @Override
+        protected void onFinish() {
+        }
+
+        @Override
+        public void finished(GVRAnimation animation) {
+            ++mFinished;
+            if (mOnFinished != null) {
+                mOnFinished.run();
+            }
+        }
+
+        boolean isRunning() {
+            return mEngineSlot >= 0;
+        }
+    }
+
+    private GVRAnimationEngine mEngine;
+
+    @Before
+    public void setUp() {
+        mEngine = new GVRAnimationEngine(new GVRFrameProfiler());
+    }
+
+    @Test
+    public void startTakesEffectOnTheNextFrame() {
+        final TestAnimation a = new TestAnimation(1);
+
+        mEngine.start(a);
+        assertFalse(a.isRunning());
+        assertEquals(0, a.mUpdates);
+        mEngine.runFrame(FRAME_TIME);
+        assertTrue(a.isRunning());
+        assertEquals(1, a.mUpdates);
+        assertEquals(1, mEngine.getActiveCount());
+        assertEquals(1, mEngine.getStartedCount());
+        assertEquals(0, mEngine.getFinishedCount());
+
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(0, mEngine.getStartedCount());
+    }
+
+    @Test
+    public void finishedAnimationCallsBackOnceAndLeaves() {
+        final TestAnimation a = new TestAnimation(0.12f);
+
+        mEngine.start(a);
+        mEngine.runFrame(FRAME_TIME);
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(0, a.mFinished);
+        assertFalse(a.isFinished());
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(1, a.mFinished);
+        assertTrue(a.isFinished());
+        assertFalse(a.isRunning());
+        assertEquals(1, mEngine.getActiveCount());
+        assertEquals(1, mEngine.getFinishedCount());
+
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(3, a.mUpdates);
+        assertEquals(1, a.mFinished);
+        assertEquals(0, mEngine.getActiveCount());
+        assertEquals(0, mEngine.getFinishedCount());
+    }
+
+    /*
+     * A finished animation is replaced by the last one, which must still
+     * be updated in the same frame, and exactly once.
+     */
+    @Test
+    public void everyAnimationIsUpdatedOncePerFrame() {
+        final List<TestAnimation> animations = new ArrayList<TestAnimation>();
+
+        for (int i = 0; i < 100; ++i) {
+            final TestAnimation a = new TestAnimation(FRAME_TIME * (1 + i % 7) + 0.01f);
+            animations.add(a);
+            mEngine.start(a);
+        }
+        for (int frame = 1; frame <= 8; ++frame) {
+            mEngine.runFrame(FRAME_TIME);
+            int running = 0;
+            for (int i = 0; i < animations.size(); ++i) {
+                final TestAnimation a = animations.get(i);
+                final int frames = 2 + i % 7;
+                assertEquals(Math.min(frame, frames), a.mUpdates);
+                assertEquals((frame >= frames) ? 1 : 0, a.mFinished);
+                if (a.isRunning()) {
+                    ++running;
+                }
+            }
+            assertEquals(running, mEngine.getActiveCount() - mEngine.getFinishedCount());
+        }
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(0, mEngine.getActiveCount());
+    }
+
+    @Test
+    public void stopWhileIteratingTakesEffectOnTheNextFrame() {
+        final TestAnimation a = new TestAnimation(1);
+        final TestAnimation b = new TestAnimation(1);
+
+        mEngine.start(a);
+        mEngine.start(b);
+        mEngine.runFrame(FRAME_TIME);
+        a.mUpdates = 0;
+        b.mUpdates = 0;
+        a.mOnFirstUpdate = new Runnable() {
+            @Override
+            public void run() {
+                mEngine.stop(b);
+                mEngine.stop(a);
+            }
+        };
+
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(1, a.mUpdates);
+        assertEquals(1, b.mUpdates);
+        assertTrue(a.isRunning());
+        assertTrue(b.isRunning());
+
+        mEngine.runFrame(FRAME_TIME);
+        assertFalse(a.isRunning());
+        assertFalse(b.isRunning());
+        assertEquals(1, a.mUpdates);
+        assertEquals(1, b.mUpdates);
+        assertEquals(0, a.mFinished);
+        assertEquals(0, mEngine.getActiveCount());
+        assertEquals(2, mEngine.getFinishedCount());
+    }
+
+    @Test
+    public void startWhileIteratingTakesEffectOnTheNextFrame() {
+        final TestAnimation a = new TestAnimation(1);
+        final TestAnimation b = new TestAnimation(1);
+
+        a.mOnFirstUpdate = new Runnable() {
+            @Override
+            public void run() {
+                mEngine.start(b);
+            }
+        };
+        mEngine.start(a);
+        mEngine.runFrame(FRAME_TIME);
+        assertFalse(b.isRunning());
+        assertEquals(0, b.mUpdates);
+
+        mEngine.runFrame(FRAME_TIME);
+        assertTrue(b.isRunning());
+        assertEquals(1, b.mUpdates);
+        assertEquals(2, mEngine.getActiveCount());
+        assertEquals(1, mEngine.getStartedCount());
+    }
+
+    @Test
+    public void restartingARunningAnimationResetsIt() {
+        final TestAnimation a = new TestAnimation(0.12f);
+
+        mEngine.start(a);
+        mEngine.runFrame(FRAME_TIME);
+        mEngine.runFrame(FRAME_TIME);
+        mEngine.start(a);
+        assertEquals(0, a.getElapsedTime(), 0);
+
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(1, mEngine.getActiveCount());
+        assertEquals(0, mEngine.getStartedCount());
+        assertEquals(0, a.mFinished);
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(0, a.mFinished);
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(1, a.mFinished);
+        assertEquals(5, a.mUpdates);
+    }
+
+    @Test
+    public void restartFromTheFinishCallback() {
+        final TestAnimation a = new TestAnimation(0.07f);
+
+        a.mOnFinished = new Runnable() {
+            @Override
+            public void run() {
+                mEngine.start(a);
+            }
+        };
+        mEngine.start(a);
+        mEngine.runFrame(FRAME_TIME);
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(1, a.mFinished);
+        assertFalse(a.isRunning());
+        assertEquals(1, mEngine.getFinishedCount());
+
+        mEngine.runFrame(FRAME_TIME);
+        assertTrue(a.isRunning());
+        assertEquals(1, mEngine.getStartedCount());
+        assertEquals(3, a.mUpdates);
+    }
+
+    @Test
+    public void queuedRequestsApplyInOrder() {
+        final TestAnimation a = new TestAnimation(1);
+        final TestAnimation b = new TestAnimation(1);
+
+        mEngine.start(a);
+        mEngine.stop(a);
+        mEngine.stop(b);
+        mEngine.start(b);
+        mEngine.runFrame(FRAME_TIME);
+        assertFalse(a.isRunning());
+        assertTrue(b.isRunning());
+        assertEquals(0, a.mUpdates);
+        assertEquals(1, mEngine.getActiveCount());
+        assertEquals(2, mEngine.getStartedCount());
+        assertEquals(1, mEngine.getFinishedCount());
+    }
+
+    @Test
+    public void stoppingAnAnimationWhichIsNotRunningIsIgnored() {
+        final TestAnimation a = new TestAnimation(1);
+        final TestAnimation b = new TestAnimation(1);
+
+        mEngine.start(a);
+        mEngine.runFrame(FRAME_TIME);
+        mEngine.stop(b);
+        mEngine.runFrame(FRAME_TIME);
+        assertTrue(a.isRunning());
+        assertEquals(1, mEngine.getActiveCount());
+        assertEquals(0, mEngine.getFinishedCount());
+    }
+
+    @Test
+    public void animationWithoutRepetitionsIsNotStarted() {
+        final TestAnimation a = new TestAnimation(1);
+
+        a.setRepeatCount(0);
+        mEngine.start(a);
+        mEngine.runFrame(FRAME_TIME);
+        assertFalse(a.isRunning());
+        assertEquals(0, mEngine.getActiveCount());
+    }
+
+    @Test
+    public void slotsGrowPastTheInitialCapacity() {
+        final TestAnimation[] animations = new TestAnimation[1000];
+
+        for (int i = 0; i < animations.length; ++i) {
+            animations[i] = new TestAnimation(1);
+            mEngine.start(animations[i]);
+        }
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(animations.length, mEngine.getActiveCount());
+        for (int i = 0; i < animations.length; i += 2) {
+            mEngine.stop(animations[i]);
+        }
+        mEngine.runFrame(FRAME_TIME);
+        assertEquals(animations.length / 2, mEngine.getActiveCount());
+        assertEquals(animations.length / 2, mEngine.getFinishedCount());
+        for (int i = 0; i < animations.length; ++i) {
+            assertEquals((i % 2 == 0) ? 1 : 2, animations[i].mUpdates);
+        }
+    }
+}
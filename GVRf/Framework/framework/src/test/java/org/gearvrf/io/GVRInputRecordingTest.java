@@ -0,0 +1,319 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GVRInputRecordingTest
+{
+    private static final int FRAMES = 2000;
+    private static final int KEY_DOWN = 0;
+    private static final int KEY_UP = 1;
+    private static final int MOTION_MOVE = 2;
+    private static final int SOURCE_TOUCHPAD = 0x00100008;
+
+    /*
+     * Random updates, with several updates in some frames, none in others,
+     * and values which need every byte of their varints
+     */
+    @Test
+    public void everyFieldSurvivesTheFile() throws IOException
+    {
+        final Random random = new Random(11);
+        final List<GVRInputRecording.Frame> frames = new ArrayList<GVRInputRecording.Frame>();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final GVRInputRecording.Writer writer = new GVRInputRecording.Writer(out,
+                GVRControllerType.CONTROLLER);
+        long frameIndex = 0;
+        long time = 0;
+
+        for (int i = 0; i < 500; ++i)
+        {
+            final GVRInputRecording.Frame frame = new GVRInputRecording.Frame();
+            frameIndex += random.nextInt(3);
+            time += random.nextInt(50000000);
+            frame.frame = frameIndex;
+            frame.time = time;
+            frame.active = random.nextBoolean();
+            frame.cursorDepth = random.nextFloat() * 10;
+            for (int j = 0; j < 3; ++j)
+            {
+                frame.origin[j] = random.nextFloat() - 0.5f;
+                frame.direction[j] = random.nextFloat() - 0.5f;
+            }
+            for (int j = random.nextInt(4); j > 0; --j)
+            {
+                frame.addKey(random.nextInt(2), random.nextInt(300), random.nextInt(3));
+            }
+            for (int j = random.nextInt(5); j > 0; --j)
+            {
+                frame.addMotion(random.nextInt(3), random.nextInt(), random.nextInt(),
+                                random.nextFloat(), -random.nextFloat(), random.nextInt(5000));
+            }
+            frames.add(frame);
+            writer.write(frame);
+        }
+        writer.close();
+
+        final GVRInputRecording.Reader reader = new GVRInputRecording.Reader(
+                new ByteArrayInputStream(out.toByteArray()));
+        final GVRInputRecording.Frame read = new GVRInputRecording.Frame();
+        assertEquals(GVRControllerType.CONTROLLER, reader.getControllerType());
+        for (GVRInputRecording.Frame frame : frames)
+        {
+            assertTrue(reader.read(read));
+            assertSameFrame(frame, read);
+        }
+        assertFalse(reader.read(read));
+        assertFalse(reader.read(read));
+    }
+
+    /*
+     * A ray sweeps back and forth over the scene, with the button pressed
+     * and the touchpad swiped from time to time. The replay must make the
+     * controller pick with the same ray, active flag and events in the same
+     * frames as the live controller.
+     */
+    @Test
+    public void replayDrivesThePicksOfTheLiveController() throws IOException
+    {
+        final Random random = new Random(7);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final GVRInputRecording.Writer writer = new GVRInputRecording.Writer(out,
+                GVRControllerType.GAZE);
+        final GVRInputRecording.Frame frame = new GVRInputRecording.Frame();
+        final InputLog live = new InputLog();
+        boolean active = false;
+
+        for (int f = 0; f < FRAMES; ++f)
+        {
+            // Input threads deliver 0 to 3 updates per frame, at least one in the last
+            final int updates = (f == FRAMES - 1) ? 1 : random.nextInt(4);
+
+            live.mFrame = f;
+            for (int u = 0; u < updates; ++u)
+            {
+                final double angle = Math.sin((f * 4 + u) * 0.01) * 0.8;
+                final long now = f * 16L;
+
+                frame.clearEvents();
+                frame.frame = f;
+                frame.time = f * 16666667L + u;
+                frame.active = active;
+                frame.cursorDepth = 1 + u;
+                frame.origin[0] = 0;
+                frame.origin[1] = 1.5f;
+                frame.origin[2] = 0;
+                frame.direction[0] = (float) Math.sin(angle);
+                frame.direction[1] = 0;
+                frame.direction[2] = (float) -Math.cos(angle);
+                live.setRay(0, 1.5f, 0, frame.direction[0], 0, frame.direction[2]);
+                live.setCursorDepth(frame.cursorDepth);
+                if (random.nextInt(40) == 0)
+                {
+                    active = !active;
+                    frame.active = active;
+                    frame.addKey(active ? KEY_DOWN : KEY_UP, 66, 0);
+                }
+                live.setActive(active);
+                if (frame.keyCount > 0)
+                {
+                    live.onKeyEvent(frame.keyActions[0], 66, 0, now);
+                }
+                if (random.nextInt(60) == 0)
+                {
+                    frame.addMotion(MOTION_MOVE, 0, SOURCE_TOUCHPAD, f, -f, 120);
+                    live.onMotionEvent(MOTION_MOVE, 0, SOURCE_TOUCHPAD, f, -f, now - 120, now);
+                }
+                live.pick();
+                writer.write(frame);
+            }
+        }
+        writer.close();
+
+        final InputLog replayed = new InputLog();
+        final GVRInputRecording.Player player = new GVRInputRecording.Player(
+                new GVRInputRecording.Reader(new ByteArrayInputStream(out.toByteArray())));
+        final GVRInputRecording.Player.Listener listener = new GVRInputRecording.Player.Listener()
+        {
+            public void onUpdate(GVRInputRecording.Frame frame)
+            {
+                ReplayInput.replay(frame, replayed.mFrame * 16L, replayed);
+            }
+        };
+        int played = 0;
+
+        do
+        {
+            replayed.mFrame = played++;
+        }
+        while (player.playFrame(listener));
+        player.close();
+        assertTrue(live.mPicks > FRAMES);
+        assertEquals(live.mInput, replayed.mInput);
+        assertEquals(live.mPicks, replayed.mPicks);
+        assertEquals(FRAMES, played);
+    }
+
+    @Test
+    public void truncatedFileFailsWithEOFException() throws IOException
+    {
+        final byte[] bytes = record();
+        final GVRInputRecording.Frame frame = new GVRInputRecording.Frame();
+
+        for (int length = 0; length < bytes.length; ++length)
+        {
+            try
+            {
+                final GVRInputRecording.Reader reader = new GVRInputRecording.Reader(
+                        new ByteArrayInputStream(Arrays.copyOf(bytes, length)));
+                while (reader.read(frame))
+                {
+                }
+                fail("read " + length + " of " + bytes.length + " bytes");
+            }
+            catch (EOFException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void fileWithoutMagicFails() throws IOException
+    {
+        final byte[] corrupt = record();
+        corrupt[0] = 'X';
+        new GVRInputRecording.Reader(new ByteArrayInputStream(corrupt));
+    }
+
+    @Test(expected = IOException.class)
+    public void writeAfterCloseFails() throws IOException
+    {
+        final GVRInputRecording.Writer writer = new GVRInputRecording.Writer(
+                new ByteArrayOutputStream(), GVRControllerType.MOUSE);
+        writer.close();
+        writer.write(new GVRInputRecording.Frame());
+    }
+
+    private static byte[] record() throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final GVRInputRecording.Writer writer = new GVRInputRecording.Writer(out,
+                GVRControllerType.MOUSE);
+        final GVRInputRecording.Frame frame = new GVRInputRecording.Frame();
+        for (int i = 0; i < 10; ++i)
+        {
+            frame.frame = i;
+            frame.addMotion(2, 1, 8194, i, i, i);
+            writer.write(frame);
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static void assertSameFrame(GVRInputRecording.Frame expected, GVRInputRecording.Frame actual)
+    {
+        assertEquals(expected.frame, actual.frame);
+        assertEquals(expected.time, actual.time);
+        assertEquals(expected.active, actual.active);
+        assertEquals(expected.cursorDepth, actual.cursorDepth, 0.0f);
+        assertArrayEquals(expected.origin, actual.origin, 0.0f);
+        assertArrayEquals(expected.direction, actual.direction, 0.0f);
+        assertEquals(expected.keyCount, actual.keyCount);
+        assertEquals(expected.motionCount, actual.motionCount);
+        for (int i = 0; i < expected.keyCount; ++i)
+        {
+            assertEquals(expected.keyActions[i], actual.keyActions[i]);
+            assertEquals(expected.keyCodes[i], actual.keyCodes[i]);
+            assertEquals(expected.keyRepeats[i], actual.keyRepeats[i]);
+        }
+        for (int i = 0; i < expected.motionCount; ++i)
+        {
+            assertEquals(expected.motionActions[i], actual.motionActions[i]);
+            assertEquals(expected.motionButtons[i], actual.motionButtons[i]);
+            assertEquals(expected.motionSources[i], actual.motionSources[i]);
+            assertEquals(expected.motionX[i], actual.motionX[i], 0.0f);
+            assertEquals(expected.motionY[i], actual.motionY[i], 0.0f);
+            assertEquals(expected.motionDurations[i], actual.motionDurations[i]);
+        }
+    }
+
+    /*
+     * Writes down the input a controller picks with, prefixed by the index
+     * of the frame it is set in.
+     */
+    private static final class InputLog implements ReplayInput.Target
+    {
+        final List<String> mInput = new ArrayList<String>();
+        int mFrame;
+        int mPicks;
+
+        @Override
+        public void setRay(float ox, float oy, float oz, float dx, float dy, float dz)
+        {
+            mInput.add(mFrame + " ray " + ox + " " + oy + " " + oz + " " + dx + " " + dy + " " + dz);
+        }
+
+        @Override
+        public void setCursorDepth(float depth)
+        {
+            mInput.add(mFrame + " depth " + depth);
+        }
+
+        @Override
+        public void setActive(boolean active)
+        {
+            mInput.add(mFrame + " active " + active);
+        }
+
+        @Override
+        public void onKeyEvent(int action, int keyCode, int repeat, long time)
+        {
+            mInput.add(mFrame + " key " + action + " " + keyCode + " " + repeat + " " + time);
+        }
+
+        @Override
+        public void onMotionEvent(int action, int buttons, int source, float x, float y,
+                                  long downTime, long time)
+        {
+            mInput.add(mFrame + " motion " + action + " " + buttons + " " + source + " "
+                       + x + " " + y + " " + downTime + " " + time);
+        }
+
+        @Override
+        public void pick()
+        {
+            mInput.add(mFrame + " pick");
+            ++mPicks;
+        }
+    }
+}
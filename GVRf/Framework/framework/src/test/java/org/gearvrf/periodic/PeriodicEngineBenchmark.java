@@ -0,0 +1,319 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.periodic;
+
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times the {@link TimingWheel} of {@link GVRPeriodicEngine} against the
+ * priority queue it replaced, with thousands of timers: AI ticks, UI
+ * blinkers and network heartbeats which run periodically, and one-shot
+ * timeouts which are rescheduled and canceled all the time.
+ *
+ * The queue is a copy of what the engine used to do: every change of
+ * scheduling removes the event from the queue and adds it back under the
+ * lock of the queue, and every event which runs scans the queue to know
+ * whether it rescheduled itself. The first test changes timers from the
+ * frame loop, the second one from producer threads while the frame loop
+ * runs, and reports the time of the frames. Both run on a simulated
+ * clock, one frame every 16.6 ms, and run on a desktop JVM with the
+ * unit tests on the class path:
+ * <pre>
+ *     java org.gearvrf.periodic.PeriodicEngineBenchmark [timers]
+ * </pre>
+ */
+final class PeriodicEngineBenchmark {
+    static final long TICK = 1000000;
+    static final long FRAME = 16666667;
+    static final int FRAMES = 600;
+    static final int CHANGES_PER_FRAME = 500;
+    static final int PRODUCERS = 4;
+    static final long SECOND = 1000000000L;
+
+    private PeriodicEngineBenchmark() {
+    }
+
+    /*
+     * The operations the benchmark needs from both implementations
+     */
+    private interface Scheduler {
+        void schedule(int timer, long deadline, long period);
+
+        void cancel(int timer);
+
+        /**
+         * @return number of timers which ran
+         */
+        int advance(long now);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final int timers = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+
+        for (int round = 0; round < 2; ++round) {
+            final boolean print = (round == 1);
+            final long legacy = runFrameLoop(new LegacyQueue(timers), timers);
+            final long wheel = runFrameLoop(new Wheel(timers), timers);
+            if (print) {
+                final long ops = (long) FRAMES * CHANGES_PER_FRAME;
+                System.out.println(String.format(Locale.US,
+                        "%d timers, %d frames, %d changes from the frame loop:%n"
+                        + "  priority queue %.1f ms, %.2f us per change%n"
+                        + "  timing wheel   %.1f ms, %.2f us per change",
+                        timers, FRAMES, ops, legacy / 1e6, legacy / 1e3 / ops,
+                        wheel / 1e6, wheel / 1e3 / ops));
+            }
+        }
+        for (int round = 0; round < 2; ++round) {
+            final boolean print = (round == 1);
+            final long[] legacy = runProducers(new LegacyQueue(timers), timers);
+            final long[] wheel = runProducers(new Wheel(timers), timers);
+            if (print) {
+                System.out.println(String.format(Locale.US,
+                        "%d producer threads during %d frames:%n"
+                        + "  priority queue %d changes, frame %.1f us on average, %.1f us at most%n"
+                        + "  timing wheel   %d changes, frame %.1f us on average, %.1f us at most",
+                        PRODUCERS, FRAMES, legacy[0], legacy[1] / 1e3, legacy[2] / 1e3,
+                        wheel[0], wheel[1] / 1e3, wheel[2] / 1e3));
+            }
+        }
+    }
+
+    /*
+     * A third of the timers are periodic, the rest are timeouts which the
+     * frame loop keeps rescheduling and canceling.
+     * @return nanoseconds taken
+     */
+    private static long runFrameLoop(Scheduler scheduler, int timers) {
+        final Random random = new Random(3);
+        long now = 0;
+        int ran = 0;
+
+        final long start = System.nanoTime();
+        setUp(scheduler, timers, random);
+        for (int frame = 0; frame < FRAMES; ++frame) {
+            for (int i = 0; i < CHANGES_PER_FRAME; ++i) {
+                change(scheduler, timers, random, now);
+            }
+            now += FRAME;
+            ran += scheduler.advance(now);
+        }
+        final long time = System.nanoTime() - start;
+        if (ran == 0) {
+            throw new IllegalStateException("No timer ran");
+        }
+        return time;
+    }
+
+    /*
+     * @return changes made by the producers, average and maximum time of
+     * the frames
+     */
+    private static long[] runProducers(final Scheduler scheduler, final int timers)
+            throws InterruptedException {
+        final AtomicLong now = new AtomicLong();
+        final AtomicLong changes = new AtomicLong();
+        final Thread[] threads = new Thread[PRODUCERS];
+        final boolean[] stop = new boolean[1];
+
+        setUp(scheduler, timers, new Random(5));
+        for (int p = 0; p < PRODUCERS; ++p) {
+            final int first = timers / 3 + p * ((timers - timers / 3) / PRODUCERS);
+            final int count = (timers - timers / 3) / PRODUCERS;
+            final Random random = new Random(p);
+            threads[p] = new Thread(new Runnable() {
+                public void run() {
+                    long done = 0;
+                    while (!isStopped(stop)) {
+                        final int timer = first + random.nextInt(count);
+                        if (random.nextInt(4) == 0) {
+                            scheduler.cancel(timer);
+                        } else {
+                            scheduler.schedule(timer, now.get() + randomDelay(random), 0);
+                        }
+                        ++done;
+                    }
+                    changes.addAndGet(done);
+                }
+            });
+            threads[p].start();
+        }
+
+        long total = 0;
+        long max = 0;
+        for (int frame = 0; frame < FRAMES; ++frame) {
+            final long start = System.nanoTime();
+            scheduler.advance(now.addAndGet(FRAME));
+            final long time = System.nanoTime() - start;
+            total += time;
+            max = Math.max(max, time);
+            // The rest of the frame
+            while (System.nanoTime() - start < FRAME / 16) {
+                Thread.yield();
+            }
+        }
+        synchronized (stop) {
+            stop[0] = true;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new long[] { changes.get(), total / FRAMES, max };
+    }
+
+    private static boolean isStopped(boolean[] stop) {
+        synchronized (stop) {
+            return stop[0];
+        }
+    }
+
+    private static void setUp(Scheduler scheduler, int timers, Random random) {
+        for (int i = 0; i < timers; ++i) {
+            if (i < timers / 3) {
+                // AI ticks, blinkers and heartbeats
+                final long period = (i % 3 == 0) ? SECOND / 10 : ((i % 3 == 1) ? SECOND / 2 : 5 * SECOND);
+                scheduler.schedule(i, (long) (random.nextDouble() * period), period);
+            } else {
+                scheduler.schedule(i, randomDelay(random), 0);
+            }
+        }
+    }
+
+    private static void change(Scheduler scheduler, int timers, Random random, long now) {
+        final int timer = timers / 3 + random.nextInt(timers - timers / 3);
+        if (random.nextInt(4) == 0) {
+            scheduler.cancel(timer);
+        } else {
+            scheduler.schedule(timer, now + randomDelay(random), 0);
+        }
+    }
+
+    private static long randomDelay(Random random) {
+        return SECOND / 10 + (long) (random.nextDouble() * 30 * SECOND);
+    }
+
+    /*
+     * The engine as it was: a priority queue under a lock
+     */
+    private static final class LegacyQueue implements Scheduler {
+        private final class Event implements Comparable<Event> {
+            long mTime;
+            long mPeriod;
+
+            public int compareTo(Event other) {
+                return (mTime < other.mTime) ? -1 : ((mTime == other.mTime) ? 0 : 1);
+            }
+
+            boolean enqueued() {
+                synchronized (mQueue) {
+                    for (Event event : mQueue) {
+                        if (this == event) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+        }
+
+        private final PriorityQueue<Event> mQueue = new PriorityQueue<Event>();
+        private final Event[] mEvents;
+
+        LegacyQueue(int timers) {
+            mEvents = new Event[timers];
+            for (int i = 0; i < timers; ++i) {
+                mEvents[i] = new Event();
+            }
+        }
+
+        public void schedule(int timer, long deadline, long period) {
+            final Event event = mEvents[timer];
+            synchronized (mQueue) {
+                mQueue.remove(event);
+                event.mTime = deadline;
+                event.mPeriod = period;
+                mQueue.add(event);
+            }
+        }
+
+        public void cancel(int timer) {
+            synchronized (mQueue) {
+                mQueue.remove(mEvents[timer]);
+            }
+        }
+
+        public int advance(long now) {
+            int ran = 0;
+            synchronized (mQueue) {
+                for (Event first = mQueue.peek(); first != null && first.mTime <= now; first = mQueue.peek()) {
+                    final Event event = mQueue.poll();
+                    ++ran;
+                    if ((event.mPeriod > 0) && !event.enqueued()) {
+                        event.mTime = now + event.mPeriod;
+                        mQueue.add(event);
+                    }
+                }
+            }
+            return ran;
+        }
+    }
+
+    private static final class Wheel implements Scheduler {
+        private final class Event extends TimingWheel.Timer {
+            long mPeriod;
+
+            @Override
+            protected void expired() {
+                ++mRan;
+                if (mPeriod > 0) {
+                    mWheel.schedule(this, mNow + mPeriod);
+                }
+            }
+        }
+
+        private final TimingWheel mWheel = new TimingWheel(TICK, 0);
+        private final Event[] mEvents;
+        private long mNow;
+        private int mRan;
+
+        Wheel(int timers) {
+            mEvents = new Event[timers];
+            for (int i = 0; i < timers; ++i) {
+                mEvents[i] = new Event();
+            }
+        }
+
+        public void schedule(int timer, long deadline, long period) {
+            final Event event = mEvents[timer];
+            event.mPeriod = period;
+            mWheel.schedule(event, deadline);
+        }
+
+        public void cancel(int timer) {
+            mWheel.cancel(mEvents[timer]);
+        }
+
+        public int advance(long now) {
+            mNow = now;
+            mRan = 0;
+            mWheel.advance(now);
+            return mRan;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.periodic;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/*
+ * Checks the wheel against a simple model, on a clock which only moves
+ * when the test says so. Timers are scheduled with delays from a
+ * nanosecond to weeks, so that every level of the wheel and the timers
+ * beyond it are used.
+ */
+public class TimingWheelTest {
+    private static final long TICK = 1000000;
+    private static final long START = 123456789;
+    private static final int TIMERS = 2000;
+    private static final int STEPS = 20000;
+
+    private final Random mRandom = new Random(1);
+    private final TimingWheel mWheel = new TimingWheel(TICK, START);
+    private final TestTimer[] mTimers = new TestTimer[TIMERS];
+    private final int[] mExpired = new int[TIMERS];
+    private long mNow = START;
+
+    /*
+     * A timer, and what the model knows about it
+     */
+    private final class TestTimer extends TimingWheel.Timer {
+        final int mId;
+        long mDeadline = TimingWheel.UNSCHEDULED;
+        long mPeriod;
+
+        TestTimer(int id) {
+            mId = id;
+        }
+
+        void schedule(long deadline) {
+            mDeadline = deadline;
+            mWheel.schedule(this, deadline);
+        }
+
+        @Override
+        protected void expired() {
+            ++mExpired[mId];
+            if (mPeriod > 0) {
+                schedule(mNow + mPeriod);
+            } else {
+                mDeadline = TimingWheel.UNSCHEDULED;
+            }
+        }
+    }
+
+    public TimingWheelTest() {
+        for (int i = 0; i < TIMERS; ++i) {
+            mTimers[i] = new TestTimer(i);
+        }
+    }
+
+    /*
+     * Random timers are scheduled, rescheduled and canceled, some of them
+     * rearming themselves when they expire. The clock moves by steps from
+     * a nanosecond to days, and the timers which expire in each step must
+     * be those whose deadline, rounded up to a tick, is at or before the
+     * time.
+     */
+    @Test
+    public void expiresTheTimersTheModelExpects() {
+        final int[] expected = new int[TIMERS];
+
+        for (int step = 0; step < STEPS; ++step) {
+            for (int i = mRandom.nextInt(20); i > 0; --i) {
+                change(mTimers[mRandom.nextInt(TIMERS)]);
+            }
+
+            mNow += randomDuration(step % 500 == 499 ? 50 : 32);
+            Arrays.fill(mExpired, 0);
+            Arrays.fill(expected, 0);
+            final long target = floorDiv(mNow - START, TICK);
+            for (TestTimer timer : mTimers) {
+                if ((timer.mDeadline != TimingWheel.UNSCHEDULED)
+                        && (ceilDiv(timer.mDeadline - START, TICK) <= target)) {
+                    // Timers rearm after now, so they can't expire twice
+                    expected[timer.mId] = 1;
+                }
+            }
+            mWheel.advance(mNow);
+
+            int scheduled = 0;
+            for (int i = 0; i < TIMERS; ++i) {
+                if (mExpired[i] != expected[i]) {
+                    fail("timer " + i + " expired " + mExpired[i] + " times at step " + step);
+                }
+                if (mTimers[i].mDeadline != TimingWheel.UNSCHEDULED) {
+                    ++scheduled;
+                }
+            }
+            assertEquals("timers at step " + step, scheduled, mWheel.size());
+        }
+    }
+
+    @Test
+    public void neverExpiresEarly() {
+        final TestTimer timer = mTimers[0];
+
+        timer.schedule(START + TICK * 10 + 1);
+        mWheel.advance(START + TICK * 11 - 1);
+        assertEquals(0, mExpired[0]);
+        mWheel.advance(START + TICK * 11);
+        assertEquals(1, mExpired[0]);
+        assertEquals(0, mWheel.size());
+    }
+
+    /*
+     * Producers schedule and cancel their own timers while the wheel is
+     * advanced; the clock is frozen before any deadline, and the last
+     * request of every timer wins
+     */
+    @Test
+    public void lastRequestFromAnyThreadWins() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 500;
+        final int changes = 50000;
+        final TimingWheel wheel = new TimingWheel(TICK, START);
+        final int[] expired = new int[producers * perProducer];
+        final boolean[] scheduled = new boolean[expired.length];
+        final TimingWheel.Timer[] timers = new TimingWheel.Timer[expired.length];
+        final Thread[] threads = new Thread[producers];
+
+        for (int i = 0; i < timers.length; ++i) {
+            final int id = i;
+            timers[i] = new TimingWheel.Timer() {
+                @Override
+                protected void expired() {
+                    ++expired[id];
+                }
+            };
+        }
+        for (int p = 0; p < producers; ++p) {
+            final int first = p * perProducer;
+            final Random random = new Random(1 + p);
+            threads[p] = new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < changes; ++i) {
+                        final int id = first + random.nextInt(perProducer);
+                        scheduled[id] = random.nextBoolean();
+                        if (scheduled[id]) {
+                            wheel.schedule(timers[id], START + TICK * (1000 + random.nextInt(1000000)));
+                        } else {
+                            wheel.cancel(timers[id]);
+                        }
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        boolean running = true;
+        while (running) {
+            wheel.advance(START);
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        wheel.advance(START);
+
+        int count = 0;
+        for (boolean s : scheduled) {
+            count += s ? 1 : 0;
+        }
+        assertEquals(count, wheel.size());
+        wheel.advance(START + TICK * 2000000);
+        for (int i = 0; i < expired.length; ++i) {
+            assertEquals("timer " + i, scheduled[i] ? 1 : 0, expired[i]);
+        }
+    }
+
+    /*
+     * Schedules, reschedules or cancels a timer; some deadlines are past
+     */
+    private void change(TestTimer timer) {
+        switch (mRandom.nextInt(6)) {
+        case 0:
+            timer.mDeadline = TimingWheel.UNSCHEDULED;
+            mWheel.cancel(timer);
+            break;
+        case 1:
+            timer.mPeriod = 0;
+            timer.schedule(mNow - randomDuration(24));
+            break;
+        case 2:
+            timer.mPeriod = 1 + randomDuration(34);
+            timer.schedule(mNow + randomDuration(34));
+            break;
+        default:
+            timer.mPeriod = 0;
+            timer.schedule(mNow + randomDuration(52));
+            break;
+        }
+    }
+
+    /*
+     * A duration of up to 2^bits nanoseconds, evenly spread over the
+     * powers of two
+     */
+    private long randomDuration(int bits) {
+        final int shift = mRandom.nextInt(bits);
+        return (mRandom.nextLong() >>> (63 - shift));
+    }
+
+    private static long floorDiv(long x, long y) {
+        final long q = x / y;
+        return ((x % y != 0) && ((x < 0) != (y < 0))) ? q - 1 : q;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -floorDiv(-x, y);
+    }
+}
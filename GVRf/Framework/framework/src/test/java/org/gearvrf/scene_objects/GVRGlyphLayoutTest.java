@@ -0,0 +1,143 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.scene_objects;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GVRGlyphLayoutTest
+{
+    private GVRGlyphLayout mLayout;
+
+    /*
+     * Every glyph is 1 wide with an advance of 1, spaces are empty,
+     * lines are 2 high with the baseline 1.5 below their top.
+     */
+    @Before
+    public void setUp()
+    {
+        final GVRGlyphSet glyphs = new GVRGlyphSet(-1.5f, 0.5f, 0, 4);
+
+        for (char c = 'a'; c <= 'z'; ++c)
+        {
+            glyphs.add(new GVRGlyphSet.Glyph(c, 0, -1, 1, 1, 1, 0, 0, 1, 1));
+        }
+        glyphs.add(new GVRGlyphSet.Glyph(' ', 0, 0, 0, 0, 1, 0, 0, 0, 0));
+        mLayout = new GVRGlyphLayout(glyphs);
+    }
+
+    @Test
+    public void breaksAtNewlines()
+    {
+        assertTrue(mLayout.layout("ab\ncde\n"));
+        assertEquals(3, mLayout.getLineCount());
+        assertEquals(5, mLayout.getQuadCount());
+        assertEquals(3, mLayout.getWidth(), 0);
+        assertEquals(6, mLayout.getHeight(), 0);
+        // first glyph of the second line: baseline at -3.5, glyph top 1 above it
+        assertEquals(0, quadLeft(2), 0);
+        assertEquals(-2.5f, quadTop(2), 1e-6f);
+    }
+
+    @Test
+    public void wrapsAtTheLastSpace()
+    {
+        mLayout.setMaxWidth(7);
+        mLayout.layout("abc def ghi");
+        assertEquals(2, mLayout.getLineCount());
+        assertEquals(9, mLayout.getQuadCount());
+        // "ghi" starts the second line
+        assertEquals(0, quadLeft(6), 0);
+        assertTrue(quadTop(6) < quadTop(5));
+        assertEquals(7, mLayout.getWidth(), 0);
+    }
+
+    @Test
+    public void wrapsAtAnEarlierSpace()
+    {
+        mLayout.setMaxWidth(6);
+        mLayout.layout("abc def ghi");
+        assertEquals(3, mLayout.getLineCount());
+        assertEquals(0, quadLeft(3), 0);
+        assertEquals(0, quadLeft(6), 0);
+    }
+
+    @Test
+    public void breaksLongWords()
+    {
+        mLayout.setMaxWidth(4);
+        mLayout.layout("abcdefghij");
+        assertEquals(3, mLayout.getLineCount());
+        assertEquals(4, mLayout.getWidth(), 0);
+        assertEquals(0, quadLeft(4), 0);
+        assertEquals(0, quadLeft(8), 0);
+    }
+
+    @Test
+    public void alignsLines()
+    {
+        mLayout.setAlignment(GVRGlyphLayout.Alignment.END);
+        mLayout.layout("ab\nabcd");
+        assertEquals(-2, quadLeft(0), 0);
+        assertEquals(-4, quadLeft(2), 0);
+        mLayout.setAlignment(GVRGlyphLayout.Alignment.MIDDLE);
+        mLayout.layout("ab\nabcd");
+        assertEquals(-1, quadLeft(0), 0);
+        assertEquals(-2, quadLeft(2), 0);
+    }
+
+    @Test
+    public void onlyLaysOutChangedLines()
+    {
+        mLayout.layout("abc\ndef\nghi");
+        assertFalse(mLayout.layout("abc\ndef\nghi"));
+        assertTrue(mLayout.layout("abc\ndef\nxyz"));
+        assertEquals(6, mLayout.getFirstChangedQuad());
+        assertEquals(9, mLayout.getQuadCount());
+    }
+
+    @Test
+    public void relayoutMatchesAFreshLayout()
+    {
+        mLayout.setMaxWidth(6);
+        mLayout.layout("the quick brown fox");
+        mLayout.layout("the quick brawn fox jumps");
+
+        final GVRGlyphLayout fresh = new GVRGlyphLayout(mLayout.getGlyphSet());
+        fresh.setMaxWidth(6);
+        fresh.layout("the quick brawn fox jumps");
+        assertEquals(fresh.getLineCount(), mLayout.getLineCount());
+        assertEquals(fresh.getQuadCount(), mLayout.getQuadCount());
+        for (int i = 0; i < fresh.getQuadCount() * 12; ++i)
+        {
+            assertEquals(fresh.getPositions()[i], mLayout.getPositions()[i], 0);
+        }
+    }
+
+    private float quadLeft(int quad)
+    {
+        return mLayout.getPositions()[quad * 12];
+    }
+
+    private float quadTop(int quad)
+    {
+        return mLayout.getPositions()[quad * 12 + 1];
+    }
+}
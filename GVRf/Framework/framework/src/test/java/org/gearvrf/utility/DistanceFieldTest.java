@@ -0,0 +1,87 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DistanceFieldTest
+{
+    private static final int SIZE = 32;
+
+    @Test
+    public void matchesTheDistanceToADisc()
+    {
+        final float radius = 8;
+        final float spread = 6;
+        final byte[] mask = new byte[SIZE * SIZE];
+        final byte[] field = new byte[SIZE * SIZE];
+
+        for (int y = 0; y < SIZE; ++y)
+        {
+            for (int x = 0; x < SIZE; ++x)
+            {
+                mask[y * SIZE + x] = (byte) ((distance(x, y) <= radius) ? 255 : 0);
+            }
+        }
+        DistanceField.compute(mask, SIZE, SIZE, spread, field);
+        for (int y = 0; y < SIZE; ++y)
+        {
+            for (int x = 0; x < SIZE; ++x)
+            {
+                final int value = field[y * SIZE + x] & 0xFF;
+                final float signed = radius - distance(x, y);
+                final boolean inside = (mask[y * SIZE + x] != 0);
+
+                assertEquals("inside at " + x + "," + y, inside, value >= 128);
+                if (Math.abs(signed) < spread - 1)
+                {
+                    // pixel centered distances are within one pixel of the true edge
+                    final float expected = 128 + 127 * signed / spread;
+                    assertEquals("at " + x + "," + y, expected, value, 127 / spread + 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void clampsFarPixels()
+    {
+        final byte[] mask = new byte[SIZE * SIZE];
+        mask[0] = (byte) 255;
+
+        DistanceField.compute(mask, SIZE, SIZE, 2, mask);
+        // distances are between pixel centers, so a lone pixel is half a spread inside
+        assertEquals(192, mask[0] & 0xFF);
+        assertEquals(65, mask[1] & 0xFF);
+        assertEquals(0, mask[SIZE * SIZE - 1] & 0xFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShortArrays()
+    {
+        DistanceField.compute(new byte[10], 4, 4, 2, new byte[16]);
+    }
+
+    private static float distance(int x, int y)
+    {
+        final float dx = x - SIZE / 2;
+        final float dy = y - SIZE / 2;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
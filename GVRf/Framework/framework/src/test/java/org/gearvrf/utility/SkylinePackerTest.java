@@ -0,0 +1,113 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SkylinePackerTest
+{
+    @Test
+    public void packsFromTheTopLeft()
+    {
+        final SkylinePacker packer = new SkylinePacker(64, 64, 0);
+        final int[] xy = new int[2];
+
+        assertTrue(packer.pack(16, 8, xy));
+        assertEquals(0, xy[0]);
+        assertEquals(0, xy[1]);
+        assertTrue(packer.pack(16, 8, xy));
+        assertEquals(16, xy[0]);
+        assertEquals(0, xy[1]);
+        assertEquals(8, packer.getUsedHeight());
+    }
+
+    @Test
+    public void placedRectanglesDoNotOverlap()
+    {
+        final Random random = new Random(1);
+        final SkylinePacker packer = new SkylinePacker(256, 256, 1);
+        final List<int[]> placed = new ArrayList<int[]>();
+        final int[] xy = new int[2];
+
+        for (int i = 0; i < 200; ++i)
+        {
+            final int w = 1 + random.nextInt(24);
+            final int h = 1 + random.nextInt(24);
+            if (!packer.pack(w, h, xy))
+            {
+                continue;
+            }
+            assertTrue(xy[0] >= 0 && xy[1] >= 0);
+            assertTrue(xy[0] + w <= 256 && xy[1] + h <= 256);
+            // the padding to the right and below must not be covered either
+            for (int[] r : placed)
+            {
+                final boolean apart = (xy[0] >= r[0] + r[2] + 1) || (r[0] >= xy[0] + w + 1)
+                        || (xy[1] >= r[1] + r[3] + 1) || (r[1] >= xy[1] + h + 1);
+                assertTrue("rectangle " + placed.size() + " overlaps", apart);
+            }
+            placed.add(new int[] { xy[0], xy[1], w, h });
+        }
+        assertTrue(placed.size() > 50);
+        assertTrue(packer.getOccupancy() > 0.5f);
+    }
+
+    @Test
+    public void reportsOverflow()
+    {
+        final SkylinePacker packer = new SkylinePacker(32, 32, 0);
+        final int[] xy = new int[2];
+
+        assertFalse(packer.pack(33, 1, xy));
+        assertFalse(packer.pack(1, 33, xy));
+        for (int i = 0; i < 4; ++i)
+        {
+            assertTrue(packer.pack(16, 16, xy));
+        }
+        assertFalse(packer.pack(1, 1, xy));
+        assertEquals(1.0f, packer.getOccupancy(), 0);
+
+        packer.reset();
+        assertTrue(packer.pack(32, 32, xy));
+    }
+
+    @Test
+    public void paddingOnlyCountsBetweenRectangles()
+    {
+        final SkylinePacker packer = new SkylinePacker(32, 32, 2);
+        final int[] xy = new int[2];
+
+        // the padding of the last column and row may go past the bin
+        assertTrue(packer.pack(15, 32, xy));
+        assertTrue(packer.pack(15, 32, xy));
+        assertEquals(17, xy[0]);
+        assertFalse(packer.pack(1, 1, xy));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyRectangles()
+    {
+        new SkylinePacker(32, 32, 0).pack(0, 4, new int[2]);
+    }
+}
@@ -0,0 +1,88 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TextureAtlasLayoutTest
+{
+    @Test
+    public void keepsPaddingAroundEachImage()
+    {
+        final TextureAtlasLayout layout = new TextureAtlasLayout(1024, 2);
+
+        for (int i = 0; i < 20; ++i)
+        {
+            layout.add("image" + i, 10 + i * 3, 40 - i);
+        }
+        assertTrue(layout.layout());
+        for (int i = 0; i < layout.getCount(); ++i)
+        {
+            final int x = layout.getX(i), y = layout.getY(i);
+            final int w = layout.getImageWidth(i), h = layout.getImageHeight(i);
+
+            assertTrue(x >= 2 && y >= 2);
+            assertTrue(x + w + 2 <= layout.getWidth() && y + h + 2 <= layout.getHeight());
+            for (int j = 0; j < i; ++j)
+            {
+                final boolean apart = (x - 2 >= layout.getX(j) + layout.getImageWidth(j) + 2)
+                        || (layout.getX(j) - 2 >= x + w + 2)
+                        || (y - 2 >= layout.getY(j) + layout.getImageHeight(j) + 2)
+                        || (layout.getY(j) - 2 >= y + h + 2);
+                assertTrue("images " + i + " and " + j + " overlap", apart);
+            }
+        }
+    }
+
+    @Test
+    public void growsToTheSmallestPowerOfTwo()
+    {
+        final TextureAtlasLayout layout = new TextureAtlasLayout(1024, 0);
+
+        layout.add("a", 64, 64);
+        assertTrue(layout.layout());
+        assertEquals(64, layout.getWidth());
+        assertEquals(64, layout.getHeight());
+        layout.add("b", 64, 64);
+        assertTrue(layout.layout());
+        assertEquals(128, layout.getWidth());
+        assertEquals(64, layout.getHeight());
+        assertEquals(0.5f, layout.getScale(0)[0], 0);
+    }
+
+    @Test
+    public void reportsOverflow()
+    {
+        final TextureAtlasLayout layout = new TextureAtlasLayout(128, 1);
+
+        for (int i = 0; i < 5; ++i)
+        {
+            layout.add("tile" + i, 62, 62);
+        }
+        assertFalse(layout.layout());
+        assertEquals(0, layout.getWidth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsImagesLargerThanTheAtlas()
+    {
+        new TextureAtlasLayout(128, 1).add("big", 127, 10);
+    }
+}